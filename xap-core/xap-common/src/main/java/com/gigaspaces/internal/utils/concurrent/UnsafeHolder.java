@@ -109,4 +109,12 @@ public class UnsafeHolder {
     public static int getByte(long address) {
         return _unsafe.getByte(address);
     }
+
+    public static void putInt(long address, int value) {
+        _unsafe.putInt(address, value);
+    }
+
+    public static int getInt(long address) {
+        return _unsafe.getInt(address);
+    }
 }
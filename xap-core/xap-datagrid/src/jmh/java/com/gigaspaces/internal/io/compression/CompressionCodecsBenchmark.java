@@ -0,0 +1,67 @@
+package com.gigaspaces.internal.io.compression;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.Deflater;
+
+/**
+ * Compresses and decompresses a stream of marshalled entry packets with each of the codecs.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 10)
+@Fork(1)
+public class CompressionCodecsBenchmark {
+
+    @Param({"lz4", "lz4-dictionary", "deflate-1", "deflate-9"})
+    public String codec;
+
+    @Param({"2000"})
+    public int packets;
+
+    private List<byte[]> data;
+    private AdaptiveCompressor compressor;
+
+    @Setup(Level.Trial)
+    public void setup() throws Exception {
+        data = CompressionCodecsTest.marshalledPackets(packets);
+        CompressionCodec compressionCodec;
+        if ("lz4".equals(codec))
+            compressionCodec = Lz4Codec.INSTANCE;
+        else if ("lz4-dictionary".equals(codec))
+            compressionCodec = new Lz4Codec(CompressionDictionary.train(data.subList(0, data.size() / 4), 8192));
+        else if ("deflate-1".equals(codec))
+            compressionCodec = new DeflateCodec(Deflater.BEST_SPEED);
+        else
+            compressionCodec = new DeflateCodec(Deflater.BEST_COMPRESSION);
+        compressor = new AdaptiveCompressor(compressionCodec, 0, 1, false);
+    }
+
+    @Benchmark
+    public void compressAndDecompress(Blackhole blackhole) throws Exception {
+        for (byte[] packet : data)
+            blackhole.consume(compressor.decompress(compressor.compress(packet)));
+    }
+
+    public static void main(String[] args) throws Exception {
+        new Runner(new OptionsBuilder().include(CompressionCodecsBenchmark.class.getSimpleName()).build()).run();
+    }
+}
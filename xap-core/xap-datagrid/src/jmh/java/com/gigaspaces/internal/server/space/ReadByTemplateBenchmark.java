@@ -0,0 +1,123 @@
+package com.gigaspaces.internal.server.space;
+
+import com.gigaspaces.annotation.pojo.SpaceId;
+import com.gigaspaces.annotation.pojo.SpaceIndex;
+import com.gigaspaces.client.SpaceProxyFactory;
+import com.gigaspaces.internal.client.spaceproxy.ISpaceProxy;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Reads single entries by template from an embedded space, through an index and through a scan of
+ * the entries of the type. Run with the gc profiler (-prof gc) to compare the allocation rate per
+ * read, which includes the scan iterators of the space.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 10)
+@Fork(1)
+public class ReadByTemplateBenchmark {
+
+    @Param({"10000"})
+    public int entries;
+
+    @Param({"100"})
+    public int groups;
+
+    private ISpaceProxy space;
+    private Item indexedTemplate;
+    private Item scannedTemplate;
+    private int next;
+
+    @Setup(Level.Trial)
+    public void setup() throws Exception {
+        space = new SpaceProxyFactory().createSpaceProxy("readByTemplateBenchmark", false);
+        for (int i = 0; i < entries; i++)
+            space.write(new Item(i, "group-" + (i % groups), i % groups), null, Long.MAX_VALUE);
+        indexedTemplate = new Item();
+        scannedTemplate = new Item();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws Exception {
+        space.getDirectProxy().shutdown();
+    }
+
+    @Benchmark
+    public Object readByIndexedProperty() throws Exception {
+        indexedTemplate.setGroupId(next++ % groups);
+        return space.read(indexedTemplate, null, 0);
+    }
+
+    @Benchmark
+    public Object readByScannedProperty() throws Exception {
+        scannedTemplate.setGroupName("group-" + (next++ % groups));
+        return space.read(scannedTemplate, null, 0);
+    }
+
+    public static void main(String[] args) throws Exception {
+        new Runner(new OptionsBuilder()
+                .include(ReadByTemplateBenchmark.class.getSimpleName())
+                .addProfiler("gc")
+                .build()).run();
+    }
+
+    public static class Item {
+        private Integer id;
+        private String groupName;
+        private Integer groupId;
+
+        public Item() {
+        }
+
+        public Item(Integer id, String groupName, Integer groupId) {
+            this.id = id;
+            this.groupName = groupName;
+            this.groupId = groupId;
+        }
+
+        @SpaceId
+        public Integer getId() {
+            return id;
+        }
+
+        public void setId(Integer id) {
+            this.id = id;
+        }
+
+        public String getGroupName() {
+            return groupName;
+        }
+
+        public void setGroupName(String groupName) {
+            this.groupName = groupName;
+        }
+
+        @SpaceIndex
+        public Integer getGroupId() {
+            return groupId;
+        }
+
+        public void setGroupId(Integer groupId) {
+            this.groupId = groupId;
+        }
+    }
+}
@@ -0,0 +1,92 @@
+package com.gigaspaces.internal.server.space.redolog.storage.bytebuffer.mmap;
+
+import com.gigaspaces.internal.server.space.redolog.storage.bytebuffer.IByteBufferStorage;
+import com.gigaspaces.internal.server.space.redolog.storage.bytebuffer.IByteBufferStorageCursor;
+import com.gigaspaces.internal.server.space.redolog.storage.bytebuffer.raf.RAFByteBufferStorage;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.nio.ByteBuffer;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Writes and reads back the length prefixed packets workload of the swap redo log over the memory
+ * mapped and the random access file storages.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 10)
+@Fork(1)
+public class MappedByteBufferStorageBenchmark {
+
+    @Param({"mmap", "raf"})
+    public String storageType;
+
+    @Param({"2000"})
+    public int packets;
+
+    private IByteBufferStorage storage;
+    private byte[][] data;
+    private byte[] buffer;
+
+    @Setup(Level.Trial)
+    public void setup() throws Exception {
+        storage = "mmap".equals(storageType)
+                ? new MappedByteBufferStorage("mmap_benchmark", 64 * 1024, false)
+                : new RAFByteBufferStorage("raf_benchmark");
+        data = new byte[packets][];
+        Random random = new Random(17);
+        for (int i = 0; i < packets; i++) {
+            data[i] = new byte[16 + random.nextInt(512)];
+            random.nextBytes(data[i]);
+        }
+        buffer = new byte[1024];
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        storage.close();
+    }
+
+    @Benchmark
+    public void writeAndReadPackets(Blackhole blackhole) throws Exception {
+        IByteBufferStorageCursor cursor = storage.getCursor();
+        cursor.setPosition(0);
+        for (byte[] packet : data) {
+            cursor.writeInt(packet.length);
+            cursor.writeBytes(packet, 0, packet.length);
+        }
+        cursor.setPosition(0);
+        for (int i = 0; i < data.length; i++) {
+            int length = cursor.readInt();
+            ByteBuffer slice = cursor.readSlice(length);
+            if (slice != null)
+                slice.get(buffer, 0, length);
+            else
+                cursor.readBytes(buffer, 0, length);
+            blackhole.consume(buffer);
+        }
+    }
+
+    public static void main(String[] args) throws Exception {
+        new Runner(new OptionsBuilder().include(MappedByteBufferStorageBenchmark.class.getSimpleName()).build()).run();
+    }
+}
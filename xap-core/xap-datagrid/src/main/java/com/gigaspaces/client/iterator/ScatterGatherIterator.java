@@ -0,0 +1,483 @@
+/*
+ * Copyright (c) 2008-2016, GigaSpaces Technologies, Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.gigaspaces.client.iterator;
+
+import com.gigaspaces.SpaceRuntimeException;
+import com.gigaspaces.async.AsyncFutureListener;
+import com.gigaspaces.async.AsyncResult;
+import com.gigaspaces.client.ReadMultipleException;
+import com.gigaspaces.client.TakeMultipleException;
+import com.gigaspaces.internal.client.spaceproxy.IDirectSpaceProxy;
+import com.gigaspaces.internal.client.spaceproxy.ISpaceProxy;
+import com.gigaspaces.internal.client.spaceproxy.metadata.ObjectType;
+import com.gigaspaces.internal.client.spaceproxy.operations.ReadTakeEntriesSpaceOperationRequest;
+import com.gigaspaces.internal.client.spaceproxy.operations.ReadTakeEntriesSpaceOperationResult;
+import com.gigaspaces.internal.remoting.routing.RemoteOperationRouter;
+import com.gigaspaces.internal.remoting.routing.partitioned.PartitionedClusterRemoteOperationRouter;
+import com.gigaspaces.internal.transport.IEntryPacket;
+import com.gigaspaces.internal.transport.ITemplatePacket;
+import com.gigaspaces.logger.Constants;
+import com.j_spaces.core.client.ReadModifiers;
+import com.j_spaces.jdbc.builder.SQLQueryTemplatePacket;
+
+import net.jini.core.transaction.Transaction;
+
+import java.io.Closeable;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.PriorityQueue;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * An iterator over the results of a read or take multiple operation, which returns the entries of
+ * each partition as soon as they arrive instead of waiting for all the partitions to reply.
+ * <p>
+ * The partitions are queried concurrently. A read iterator reads the matching entries of each
+ * partition with a single request. A take iterator takes them in batches, and requests the next
+ * batch of a partition only once the previous one was returned to the caller, until the partition
+ * has no more matching entries or the max number of entries was taken. Only the batches which
+ * arrived and were not consumed yet are held by the iterator.
+ * <p>
+ * Closing the iterator, or reaching the max number of entries, stops requesting more batches. The
+ * entries which were taken and were not returned at that time, at most a batch per partition, are
+ * not returned. A take iterator therefore requires a transaction, which should be aborted to return
+ * them to the space.
+ *
+ * @since 16.0
+ */
+@com.gigaspaces.api.InternalApi
+public class ScatterGatherIterator<T> implements Iterator<T>, Iterable<T>, Closeable {
+    private static final Logger _logger = LoggerFactory.getLogger(Constants.LOGGER_GSITERATOR);
+
+    private final PartitionReader _reader;
+    private final boolean _isTake;
+    private final int _batchSize;
+    private final int _maxEntries;
+    private final Comparator<? super T> _orderBy;
+    private final boolean _throwPartialFailure;
+
+    // guarded by this, updated by the threads on which the partitions replies arrive
+    private final ArrayDeque<Batch> _arrived = new ArrayDeque<Batch>();
+    private final List<Integer> _starvedPartitions = new ArrayList<Integer>();
+    private int _remainingEntries;
+    private int _pendingRequests;
+    private boolean _closed;
+
+    private PartitionResults<T> _current;
+    private Batch _currentBatch;
+    private PriorityQueue<PartitionResults<T>> _merged;
+    private int _returnedEntries;
+
+    public ScatterGatherIterator(ISpaceProxy spaceProxy, Object query, Transaction txn, boolean isTake, int modifiers,
+                                 ScatterGatherIteratorConfiguration configuration) {
+        this(new SpacePartitionReader(spaceProxy, query, txn, isTake, modifiers), isTake, configuration.getBatchSize(),
+                configuration.getMaxEntries(), (Comparator<? super T>) configuration.getOrderBy(), ReadModifiers.isThrowPartialFailure(modifiers));
+    }
+
+    ScatterGatherIterator(PartitionReader reader, boolean isTake, int batchSize, int maxEntries, Comparator<? super T> orderBy,
+                          boolean throwPartialFailure) {
+        if (batchSize <= 0)
+            throw new IllegalArgumentException("batchSize argument must be greater than zero.");
+        if (orderBy != null && maxEntries != Integer.MAX_VALUE)
+            throw new IllegalArgumentException("Ordered iterator does not support a max number of entries.");
+
+        this._reader = reader;
+        this._isTake = isTake;
+        this._batchSize = batchSize;
+        this._maxEntries = maxEntries;
+        this._orderBy = orderBy;
+        this._throwPartialFailure = throwPartialFailure;
+        this._remainingEntries = maxEntries;
+
+        if (maxEntries > 0)
+            start();
+    }
+
+    private void start() {
+        final int numOfPartitions = _reader.getNumOfPartitions();
+        if (_logger.isDebugEnabled())
+            _logger.debug("Scatter gather iterator initialized for " + numOfPartitions + " partitions with maxEntries=" + _maxEntries);
+        final List<Request> requests = new ArrayList<Request>(numOfPartitions);
+        synchronized (this) {
+            for (int partitionId = 0; partitionId < numOfPartitions; partitionId++)
+                requestNext(partitionId, requests);
+        }
+        send(requests);
+    }
+
+    @Override
+    public boolean hasNext() {
+        if (_returnedEntries >= _maxEntries) {
+            close();
+            return false;
+        }
+        final boolean result = _orderBy == null ? hasNextArrived() : hasNextMerged();
+        if (!result)
+            close();
+        return result;
+    }
+
+    @Override
+    public T next() {
+        if (!hasNext())
+            throw new NoSuchElementException();
+        _returnedEntries++;
+        if (_orderBy == null)
+            return _current.next();
+
+        final PartitionResults<T> head = _merged.poll();
+        final T result = head.next();
+        if (head.hasNext())
+            _merged.add(head);
+        return result;
+    }
+
+    @Override
+    public void remove() {
+        throw new UnsupportedOperationException("remove is not supported");
+    }
+
+    @Override
+    public void close() {
+        synchronized (this) {
+            if (_closed)
+                return;
+            _closed = true;
+            if (_isTake && _pendingRequests != 0 && _logger.isDebugEnabled())
+                _logger.debug("Scatter gather iterator closed while " + _pendingRequests + " take requests are in progress");
+            if (_isTake) {
+                final int unreadEntries = countUnreadEntries();
+                if (unreadEntries != 0 && _logger.isWarnEnabled())
+                    _logger.warn("Scatter gather iterator closed with " + unreadEntries + " taken entries which were not returned, " +
+                            "they are removed from the space unless the transaction is aborted");
+            }
+            _arrived.clear();
+            _starvedPartitions.clear();
+            notifyAll();
+        }
+        _current = null;
+        _currentBatch = null;
+    }
+
+    @Override
+    public Iterator<T> iterator() {
+        return this;
+    }
+
+    synchronized int getNumOfPendingRequests() {
+        return _pendingRequests;
+    }
+
+    private int countUnreadEntries() {
+        int result = _current != null ? _current.remaining() : 0;
+        if (_merged != null) {
+            for (PartitionResults<T> partitionResults : _merged)
+                result += partitionResults.remaining();
+        }
+        for (Batch batch : _arrived) {
+            if (batch._packets != null)
+                result += batch._packets.length;
+        }
+        return result;
+    }
+
+    private boolean hasNextArrived() {
+        while (_current == null || !_current.hasNext()) {
+            // the next batch of a take is requested once the entries of the previous one were returned
+            if (_currentBatch != null && _currentBatch._hasMore)
+                requestNext(_currentBatch._partitionId);
+            _currentBatch = null;
+            final Batch batch = awaitBatch();
+            if (batch == null)
+                return false;
+            _current = new PartitionResults<T>(toResults(batch));
+            _currentBatch = batch;
+        }
+        return true;
+    }
+
+    private boolean hasNextMerged() {
+        if (_merged == null) {
+            // sort each partition once it arrives, while waiting for the rest of the partitions
+            _merged = new PriorityQueue<PartitionResults<T>>(Math.max(1, _reader.getNumOfPartitions()), new Comparator<PartitionResults<T>>() {
+                @Override
+                public int compare(PartitionResults<T> o1, PartitionResults<T> o2) {
+                    return _orderBy.compare(o1.peek(), o2.peek());
+                }
+            });
+            Batch batch;
+            while ((batch = awaitBatch()) != null) {
+                final List<T> results = toResults(batch);
+                if (!results.isEmpty()) {
+                    Collections.sort(results, _orderBy);
+                    _merged.add(new PartitionResults<T>(results));
+                }
+            }
+        }
+        return !_merged.isEmpty();
+    }
+
+    /**
+     * @return the next batch which arrived, or null once no more batches will arrive
+     */
+    private synchronized Batch awaitBatch() {
+        while (_arrived.isEmpty()) {
+            if (_closed || _pendingRequests == 0)
+                return null;
+            try {
+                wait();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                close();
+                throw new SpaceRuntimeException("Interrupted while waiting for the results of the partitions", e);
+            }
+        }
+        return _arrived.poll();
+    }
+
+    private List<T> toResults(Batch batch) {
+        if (batch._failure != null) {
+            if (_throwPartialFailure) {
+                close();
+                throw _isTake ? new TakeMultipleException(batch._failure) : new ReadMultipleException(batch._failure);
+            }
+            if (_logger.isWarnEnabled())
+                _logger.warn("Skipping the results of partition " + batch._partitionId + " which failed", batch._failure);
+            return Collections.emptyList();
+        }
+        if (batch._packets == null)
+            return Collections.emptyList();
+        final List<T> results = new ArrayList<T>(batch._packets.length);
+        for (IEntryPacket packet : batch._packets)
+            results.add((T) _reader.convert(packet));
+        return results;
+    }
+
+    /**
+     * Called once the reply of a request to a partition arrives.
+     */
+    void onBatch(int partitionId, int requestedEntries, IEntryPacket[] packets, Exception failure) {
+        List<Request> requests = null;
+        synchronized (this) {
+            _pendingRequests--;
+            if (_closed) {
+                notifyAll();
+                return;
+            }
+            final int returnedEntries = packets != null ? packets.length : 0;
+            final boolean hasMore = _isTake && _orderBy == null && failure == null && returnedEntries == requestedEntries;
+            _arrived.add(new Batch(partitionId, packets, failure, hasMore));
+            if (_isTake && _orderBy == null) {
+                // entries which were requested and not taken may be taken from other partitions
+                _remainingEntries += requestedEntries - returnedEntries;
+                requests = new ArrayList<Request>();
+                if (_remainingEntries > 0 && !_starvedPartitions.isEmpty()) {
+                    final List<Integer> starvedPartitions = new ArrayList<Integer>(_starvedPartitions);
+                    _starvedPartitions.clear();
+                    for (Integer starvedPartitionId : starvedPartitions)
+                        requestNext(starvedPartitionId, requests);
+                }
+            }
+            notifyAll();
+        }
+        if (requests != null)
+            send(requests);
+    }
+
+    private void requestNext(int partitionId) {
+        final List<Request> requests = new ArrayList<Request>(1);
+        synchronized (this) {
+            if (_closed)
+                return;
+            requestNext(partitionId, requests);
+        }
+        send(requests);
+    }
+
+    private void requestNext(int partitionId, List<Request> requests) {
+        int maxEntries = _maxEntries;
+        // a take iterator takes a batch at a time, an ordered one takes each partition at once to merge them
+        if (_isTake && _orderBy == null) {
+            maxEntries = Math.min(_batchSize, _remainingEntries);
+            if (maxEntries == 0) {
+                _starvedPartitions.add(partitionId);
+                return;
+            }
+            _remainingEntries -= maxEntries;
+        }
+        _pendingRequests++;
+        requests.add(new Request(partitionId, maxEntries));
+    }
+
+    private void send(List<Request> requests) {
+        for (Request request : requests) {
+            try {
+                _reader.read(request._partitionId, request._maxEntries, this);
+            } catch (Exception e) {
+                onBatch(request._partitionId, request._maxEntries, null, e);
+            }
+        }
+    }
+
+    /**
+     * Reads entries from the partitions of a space.
+     */
+    interface PartitionReader {
+        int getNumOfPartitions();
+
+        /**
+         * Requests up to the given number of entries from the partition, and reports them to
+         * {@link ScatterGatherIterator#onBatch} once they arrive.
+         */
+        void read(int partitionId, int maxEntries, ScatterGatherIterator<?> target) throws Exception;
+
+        /**
+         * Converts an entry read from the partitions to the object returned by the iterator.
+         */
+        Object convert(IEntryPacket packet);
+    }
+
+    private static final class SpacePartitionReader implements PartitionReader {
+        private final IDirectSpaceProxy _spaceProxy;
+        private final Object _query;
+        private final ITemplatePacket _queryPacket;
+        private final Transaction _txn;
+        private final boolean _isTake;
+        private final int _modifiers;
+        private final PartitionedClusterRemoteOperationRouter _partitionedRouter;
+
+        private SpacePartitionReader(ISpaceProxy spaceProxy, Object query, Transaction txn, boolean isTake, int modifiers) {
+            if (spaceProxy == null)
+                throw new IllegalArgumentException("space argument must not be null.");
+            if (query == null)
+                throw new IllegalArgumentException("query argument must not be null.");
+            // entries which were taken and not returned can only be restored by aborting the transaction
+            if (isTake && txn == null)
+                throw new IllegalArgumentException("A take iterator requires a transaction.");
+            this._spaceProxy = spaceProxy.getDirectProxy();
+            this._query = query;
+            this._queryPacket = toTemplatePacket(query);
+            this._txn = txn;
+            this._isTake = isTake;
+            this._modifiers = modifiers;
+            // routed queries and broadcast types are executed by a single request, same as a read or take multiple
+            final RemoteOperationRouter router = _spaceProxy.getProxyRouter().getOperationRouter();
+            this._partitionedRouter = router instanceof PartitionedClusterRemoteOperationRouter
+                    && _queryPacket.getRoutingFieldValue() == null && !_queryPacket.isBroadcast()
+                    ? (PartitionedClusterRemoteOperationRouter) router
+                    : null;
+        }
+
+        private ITemplatePacket toTemplatePacket(Object template) {
+            ObjectType objectType = ObjectType.fromObject(template);
+            ITemplatePacket templatePacket = _spaceProxy.getTypeManager().getTemplatePacketFromObject(template, objectType);
+            if (templatePacket instanceof SQLQueryTemplatePacket)
+                templatePacket = _spaceProxy.getQueryManager().getSQLTemplate((SQLQueryTemplatePacket) templatePacket, null);
+            return templatePacket;
+        }
+
+        @Override
+        public int getNumOfPartitions() {
+            return _partitionedRouter != null ? _partitionedRouter.getNumOfPartitions() : 1;
+        }
+
+        @Override
+        public void read(final int partitionId, final int maxEntries, final ScatterGatherIterator<?> target) {
+            final ReadTakeEntriesSpaceOperationRequest request = new ReadTakeEntriesSpaceOperationRequest(_queryPacket.clone(),
+                    _txn, _isTake, _modifiers, maxEntries, maxEntries, 0, false, _query);
+            final RemoteOperationRouter router = _partitionedRouter != null
+                    ? _partitionedRouter.getPartitionRouter(partitionId)
+                    : _spaceProxy.getProxyRouter().getOperationRouter();
+            router.executeAsync(request, router.createFutureListener(request, new AsyncFutureListener<Object>() {
+                @Override
+                public void onResult(AsyncResult<Object> result) {
+                    if (result.getException() != null) {
+                        target.onBatch(partitionId, maxEntries, null, result.getException());
+                        return;
+                    }
+                    final ReadTakeEntriesSpaceOperationResult partitionResult = (ReadTakeEntriesSpaceOperationResult) result.getResult();
+                    if (partitionResult == null)
+                        target.onBatch(partitionId, maxEntries, null, null);
+                    else
+                        target.onBatch(partitionId, maxEntries, partitionResult.getEntryPackets(), partitionResult.getExecutionException());
+                }
+            }));
+        }
+
+        @Override
+        public Object convert(IEntryPacket packet) {
+            return _spaceProxy.getTypeManager().convertQueryResult(packet, _queryPacket, false);
+        }
+    }
+
+    private static final class Request {
+        private final int _partitionId;
+        private final int _maxEntries;
+
+        private Request(int partitionId, int maxEntries) {
+            _partitionId = partitionId;
+            _maxEntries = maxEntries;
+        }
+    }
+
+    private static final class Batch {
+        private final int _partitionId;
+        private final IEntryPacket[] _packets;
+        private final Exception _failure;
+        private final boolean _hasMore;
+
+        private Batch(int partitionId, IEntryPacket[] packets, Exception failure, boolean hasMore) {
+            _partitionId = partitionId;
+            _packets = packets;
+            _failure = failure;
+            _hasMore = hasMore;
+        }
+    }
+
+    private static final class PartitionResults<T> {
+        private final List<T> _results;
+        private int _position;
+
+        private PartitionResults(List<T> results) {
+            _results = results;
+        }
+
+        private T peek() {
+            return _results.get(_position);
+        }
+
+        private T next() {
+            return _results.get(_position++);
+        }
+
+        private boolean hasNext() {
+            return _position < _results.size();
+        }
+
+        private int remaining() {
+            return _results.size() - _position;
+        }
+    }
+}
@@ -0,0 +1,96 @@
+/*
+ * Copyright (c) 2008-2016, GigaSpaces Technologies, Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.gigaspaces.client.iterator;
+
+import java.util.Comparator;
+
+/**
+ * Configuration class for {@link ScatterGatherIterator}
+ *
+ * @since 16.0
+ */
+public class ScatterGatherIteratorConfiguration {
+    private int batchSize = SpaceIteratorConfiguration.getDefaultBatchSize();
+    private int maxEntries = Integer.MAX_VALUE;
+    private Comparator<?> orderBy;
+
+    /**
+     * Constructs a new configuration with default values
+     */
+    public ScatterGatherIteratorConfiguration() {
+    }
+
+    /**
+     * @return max number of entries taken from a partition by a single request of a take
+     * iterator
+     */
+    public int getBatchSize() {
+        return batchSize;
+    }
+
+    /**
+     * Sets the max number of entries taken from a partition by a single request of a take
+     * iterator. A read iterator reads the matching entries of each partition with a single request.
+     * @param batchSize
+     * @return updated iterator configuration
+     */
+    public ScatterGatherIteratorConfiguration setBatchSize(int batchSize) {
+        this.batchSize = batchSize;
+        return this;
+    }
+
+    /**
+     * @return max number of entries returned by the iterator
+     */
+    public int getMaxEntries() {
+        return maxEntries;
+    }
+
+    /**
+     * Sets the max number of entries returned by the iterator, the same as the maxEntries of a
+     * read or take multiple operation
+     * @param maxEntries
+     * @return updated iterator configuration
+     */
+    public ScatterGatherIteratorConfiguration setMaxEntries(int maxEntries) {
+        this.maxEntries = maxEntries;
+        return this;
+    }
+
+    /**
+     * @return the order of the returned entries, or null if they are returned in the order they
+     * arrive from the partitions
+     */
+    public Comparator<?> getOrderBy() {
+        return orderBy;
+    }
+
+    /**
+     * Sets the order of the returned entries. The entries of each partition are sorted as they
+     * arrive and merged with the entries of the other partitions, so the first entry is returned
+     * once all the partitions replied. Ordered iterators do not support a max number of entries,
+     * as the first entries in order can not be known before all the partitions replied, instead
+     * the iterator can be closed once enough entries were consumed.
+     * @param orderBy
+     * @return updated iterator configuration
+     */
+    public ScatterGatherIteratorConfiguration setOrderBy(Comparator<?> orderBy) {
+        this.orderBy = orderBy;
+        return this;
+    }
+}
@@ -0,0 +1,76 @@
+/*
+ * Copyright (c) 2008-2019, GigaSpaces Technologies, Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.gigaspaces.client.storage_adapters;
+
+import com.gigaspaces.internal.io.compression.AdaptiveCompressor;
+import com.gigaspaces.internal.io.compression.CompressionDictionary;
+import com.gigaspaces.internal.io.compression.Lz4Codec;
+
+import java.io.IOException;
+
+/**
+ * Adapter for compressing properties using fast lz4 compression and storing them in space in binary form.
+ * <p>
+ * Compared to {@link ZipAdapter}, values are compressed less but several times faster. Small values and values which
+ * do not compress well are stored uncompressed. To compress small values with repetitive content, extend this adapter
+ * with a dictionary trained from sample values by {@link CompressionDictionary#train}.
+ *
+ * @since 16.0
+ */
+public class Lz4Adapter extends PropertyStorageAdapter {
+
+    private final AdaptiveCompressor compressor;
+
+    public Lz4Adapter() {
+        this(null);
+    }
+
+    /**
+     * @param dictionary content common to the values of the property, the same dictionary must be used by all the
+     *                   clients of the space
+     */
+    protected Lz4Adapter(CompressionDictionary dictionary) {
+        // values are not compressed adaptively so that equal values are stored as equal bytes
+        this.compressor = new AdaptiveCompressor(new Lz4Codec(dictionary), dictionary == null ? AdaptiveCompressor.DEFAULT_MIN_LENGTH : 0,
+                AdaptiveCompressor.DEFAULT_MAX_RATIO, false);
+    }
+
+    @Override
+    public String getName() {
+        return "Lz4" + (useBase64Wrapper() ? "-base64" : "");
+    }
+
+    @Override
+    public Class<?> getStorageClass() {
+        return useBase64Wrapper() ? String.class : BinaryWrapper.class;
+    }
+
+    @Override
+    public boolean supportsEqualsMatching() {
+        return true;
+    }
+
+    @Override
+    public Object toSpace(Object value) throws IOException {
+        return wrapBinary(compressor.compress(serialize(value)));
+    }
+
+    @Override
+    public Object fromSpace(Object value) throws IOException, ClassNotFoundException {
+        return deserialize(compressor.decompress(unwrapBinary(value)));
+    }
+}
@@ -84,6 +84,7 @@ public class EventSessionConfig implements Serializable, Textualizable {
     private int batchSize = DEFAULT_BATCH_SIZE;
     private long batchTime = DEFAULT_BATCH_TIME;
     private int batchPendingThreshold = DEFAULT_BATCH_PENDING_THRESHOLD;
+    private boolean coalesceUpdates = false;
     private boolean renew = false;
     private boolean durable = false;
     private Boolean triggerNotifyTemplate;
@@ -272,6 +273,28 @@ public class EventSessionConfig implements Serializable, Textualizable {
         return batchPendingThreshold;
     }
 
+    /**
+     * @return <code>true</code> if a pending update notification of an entry is replaced by the
+     * notification of its next update before the batch is sent.
+     * @since 16.0
+     */
+    public boolean isCoalesceUpdates() {
+        return coalesceUpdates;
+    }
+
+    /**
+     * Sets whether the space should replace a pending update notification of an entry, which was
+     * not sent yet, with the notification of its next update, so only the latest state of the entry
+     * is sent within the batch. The notifications of an entry are still sent in the order they
+     * occurred. Requires batching, and can not be used with fifo or durable notifications.
+     *
+     * @since 16.0
+     */
+    public EventSessionConfig setCoalesceUpdates(boolean coalesceUpdates) {
+        this.coalesceUpdates = coalesceUpdates;
+        return this;
+    }
+
     public boolean isAutoRenew() {
         return renew;
     }
@@ -441,6 +464,15 @@ public class EventSessionConfig implements Serializable, Textualizable {
      * Checks configuration validity
      */
     public void validate() {
+        if (coalesceUpdates) {
+            if (!isBatching())
+                throw new UnsupportedOperationException("Coalescing update notifications requires batch notifications");
+            if (isFifo())
+                throw new UnsupportedOperationException("Update notifications can not be coalesced for FIFO notifications");
+            if (isDurableNotifications())
+                throw new UnsupportedOperationException("Update notifications can not be coalesced for durable notifications");
+        }
+
         if (USE_OLD_GUARANTEED_NOTIFICATIONS && isGuaranteedNotifications() && isFifo())
             throw new UnsupportedOperationException("Notify delivery in case of a server failure can not be guaranteed for FIFO notifications.");
 
@@ -474,6 +506,7 @@ public class EventSessionConfig implements Serializable, Textualizable {
             textualizer.append("batchSize", getBatchSize());
             textualizer.append("batchTime", getBatchTime());
             textualizer.append("batchPendingThreshold", getBatchPendingThreshold());
+            textualizer.append("coalesceUpdates", isCoalesceUpdates());
         }
         textualizer.append("autoRenew", isAutoRenew());
         if (isAutoRenew()) {
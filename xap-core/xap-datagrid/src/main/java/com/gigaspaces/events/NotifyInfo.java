@@ -59,6 +59,7 @@ public class NotifyInfo implements SmartExternalizable, ISwapExternalizable, Tex
     private Integer _batchSize;
     private Integer _batchPendingThreshold;
     private Long _batchTime;
+    private boolean _coalesceUpdates;
 
     private int _notifyType;
     private int _modifiers;
@@ -102,6 +103,7 @@ public class NotifyInfo implements SmartExternalizable, ISwapExternalizable, Tex
             this._batchSize = config.getBatchSize();
             this._batchTime = config.getBatchTime();
             this._batchPendingThreshold = config.getBatchPendingThreshold();
+            this._coalesceUpdates = config.isCoalesceUpdates();
         }
         this._tag = tag;
     }
@@ -116,6 +118,7 @@ public class NotifyInfo implements SmartExternalizable, ISwapExternalizable, Tex
         this._batchSize = notifyInfo._batchSize;
         this._batchPendingThreshold = notifyInfo._batchPendingThreshold;
         this._batchTime = notifyInfo._batchTime;
+        this._coalesceUpdates = notifyInfo._coalesceUpdates;
         this._notifyType = notifyInfo._notifyType;
         this._templateUID = notifyInfo._templateUID;
         this._listener = listener;
@@ -139,6 +142,7 @@ public class NotifyInfo implements SmartExternalizable, ISwapExternalizable, Tex
         textualizer.append("batchSize", _batchSize);
         textualizer.append("batchPendingThreshold", _batchPendingThreshold);
         textualizer.append("batchTime", _batchTime);
+        textualizer.append("coalesceUpdates", _coalesceUpdates);
         textualizer.append("replicateTemplate", _replicateTemplate);
         textualizer.append("triggerNotifyTemplate", _triggerNotifyTemplate);
         textualizer.append("guaranteed", _guaranteedNotifications);
@@ -295,6 +299,15 @@ public class NotifyInfo implements SmartExternalizable, ISwapExternalizable, Tex
         this._batchPendingThreshold = pendingThreshold;
     }
 
+    /**
+     * @return <code>true</code> if a pending update notification of an entry is replaced by the
+     * notification of its next update before the batch is sent.
+     * @since 16.0
+     */
+    public boolean isCoalesceUpdates() {
+        return _coalesceUpdates;
+    }
+
     public String getTag() {
         return _tag;
     }
@@ -336,6 +349,7 @@ public class NotifyInfo implements SmartExternalizable, ISwapExternalizable, Tex
     private static final short FLAG_RETURN_ONLY_UIDS = 1 << 11;
     private static final short FLAG_CUSTOM_INFO = 1 << 12;
     private static final short FLAG_TAG_STRING = 1 << 13;
+    private static final short FLAG_COALESCE_UPDATES = 1 << 14;
 
     /**
      * This flag has been superseeded by FLAG_MODIFIERS - they are never used together.
@@ -481,6 +495,7 @@ public class NotifyInfo implements SmartExternalizable, ISwapExternalizable, Tex
         _broadcast = (flags & FLAG_BROADCAST) != 0;
         _guaranteedNotifications = (flags & FLAG_GUARANTEED_NOTIFY) != 0;
         _returnOnlyUids = (flags & FLAG_RETURN_ONLY_UIDS) != 0;
+        _coalesceUpdates = (flags & FLAG_COALESCE_UPDATES) != 0;
         if ((flags & FLAG_IS_REPLICATE_SET) != 0)
             _replicateTemplate = (flags & FLAG_REPLICATE_NOTIFY) != 0;
         if ((flags & FLAG_IS_TRIGGER_SET) != 0)
@@ -557,6 +572,8 @@ public class NotifyInfo implements SmartExternalizable, ISwapExternalizable, Tex
             flags |= FLAG_CUSTOM_INFO;
         if (_tag != null)
             flags |= FLAG_TAG_STRING;
+        if (_coalesceUpdates)
+            flags |= FLAG_COALESCE_UPDATES;
 
         return flags;
     }
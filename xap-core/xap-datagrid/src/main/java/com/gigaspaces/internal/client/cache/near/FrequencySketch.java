@@ -0,0 +1,102 @@
+/*
+ * Copyright (c) 2008-2016, GigaSpaces Technologies, Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.gigaspaces.internal.client.cache.near;
+
+/**
+ * An approximate count of how often keys were accessed recently, used by the near cache to decide
+ * which of two keys is more worth keeping.
+ * <p>
+ * This is a count-min sketch with four 4-bit counters per key, packed in longs. Once the number of
+ * recorded accesses reaches ten times the size of the sketch all the counters are halved, so the
+ * counts reflect recent accesses rather than all the accesses ever made. Not thread safe.
+ *
+ * @since 16.0
+ */
+@com.gigaspaces.api.InternalApi
+public class FrequencySketch {
+    private static final long[] SEEDS = {0xc3a5c85c97cb3127L, 0xb492b66fbe98f273L, 0x9ae16a3b2f90404fL, 0xcbf29ce484222325L};
+    private static final long RESET_MASK = 0x7777777777777777L;
+    private static final int MAX_COUNT = 15;
+
+    private final long[] _table;
+    private final int _tableMask;
+    private final int _sampleSize;
+    private int _size;
+
+    /**
+     * @param maximumSize the maximal number of keys the sketch should tell apart, usually the
+     *                    maximal size of the cache
+     */
+    public FrequencySketch(int maximumSize) {
+        int tableSize = Integer.highestOneBit(Math.max(maximumSize, 16) - 1) << 1;
+        _table = new long[tableSize];
+        _tableMask = tableSize - 1;
+        _sampleSize = 10 * maximumSize;
+    }
+
+    /**
+     * @return the estimated number of times the key was accessed recently, up to 15
+     */
+    public int frequency(Object key) {
+        final int hash = spread(key.hashCode());
+        int frequency = MAX_COUNT;
+        for (int i = 0; i < SEEDS.length; i++) {
+            final int index = indexOf(hash, i);
+            final int offset = offsetOf(hash, i);
+            frequency = Math.min(frequency, (int) ((_table[index] >>> offset) & 0xfL));
+        }
+        return frequency;
+    }
+
+    public void increment(Object key) {
+        final int hash = spread(key.hashCode());
+        boolean added = false;
+        for (int i = 0; i < SEEDS.length; i++) {
+            final int index = indexOf(hash, i);
+            final int offset = offsetOf(hash, i);
+            if (((_table[index] >>> offset) & 0xfL) != MAX_COUNT) {
+                _table[index] += 1L << offset;
+                added = true;
+            }
+        }
+        if (added && ++_size >= _sampleSize)
+            reset();
+    }
+
+    private void reset() {
+        for (int i = 0; i < _table.length; i++)
+            _table[i] = (_table[i] >>> 1) & RESET_MASK;
+        _size /= 2;
+    }
+
+    private int indexOf(int hash, int i) {
+        long h = (hash + SEEDS[i]) * SEEDS[i];
+        h += h >>> 32;
+        return ((int) h) & _tableMask;
+    }
+
+    // each of the 4 counters of a key lives in a different one of the 16 nibbles of its long
+    private static int offsetOf(int hash, int i) {
+        return (((hash >>> (i << 3)) & 3) << 2 | i) << 2;
+    }
+
+    private static int spread(int hash) {
+        hash = ((hash >>> 16) ^ hash) * 0x45d9f3b;
+        hash = ((hash >>> 16) ^ hash) * 0x45d9f3b;
+        return (hash >>> 16) ^ hash;
+    }
+}
@@ -0,0 +1,430 @@
+/*
+ * Copyright (c) 2008-2016, GigaSpaces Technologies, Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.gigaspaces.internal.client.cache.near;
+
+import com.gigaspaces.internal.transport.IEntryPacket;
+
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * A bounded cache of entry packets read by a space proxy, keyed by the query they were read by,
+ * which is invalidated by the uid and version of modified entries.
+ * <p>
+ * Admission and eviction follow W-TinyLFU: new entries enter a small LRU window, and an entry
+ * evicted from the window replaces the least recently used entry of the main segmented LRU only
+ * if its key was accessed more often recently, as estimated by a {@link FrequencySketch}. This
+ * keeps the frequently read entries in the cache when a scan of entries which are read once
+ * passes through it.
+ * <p>
+ * A read which was sent to the space before an invalidation of the same entry was received may
+ * return the entry as it was before it was modified. Invalidations are remembered for a while, so
+ * such results are not cached unless their version is not older than the invalidated version.
+ *
+ * @since 16.0
+ */
+@com.gigaspaces.api.InternalApi
+public class NearCache {
+    private static final int WINDOW_PERCENTAGE = 1;
+    private static final int PROTECTED_PERCENTAGE = 80;
+    // number of local modifications waiting for their invalidation to be received
+    private static final int MAX_PENDING_LOCAL_MODIFICATIONS = 1000;
+
+    private final int _maxEntries;
+    private final int _maxWindowEntries;
+    private final int _maxProtectedEntries;
+    private final long _maxAgeNanos;
+    private final FrequencySketch _sketch;
+    private final Map<Object, Node> _nodes = new HashMap<Object, Node>();
+    // nodes of the same entry read by different queries are chained
+    private final Map<String, Node> _nodesByUid = new HashMap<String, Node>();
+    private final Map<String, Invalidation> _invalidations;
+    private final Map<String, Long> _pendingLocalModifications;
+    private final NodeList _window = new NodeList();
+    private final NodeList _probation = new NodeList();
+    private final NodeList _protected = new NodeList();
+
+    private long _hits;
+    private long _misses;
+    private long _evictions;
+    private long _invalidationsCount;
+    private long _rejectedStalePuts;
+    private long _estimatedMemory;
+    private long _invalidationLagCount;
+    private long _invalidationLagTotalNanos;
+    private long _invalidationLagMaxNanos;
+
+    /**
+     * @param maxEntries   the maximal number of entries kept by the cache
+     * @param maxAgeMillis the time after which a cached entry is read from the space again, in
+     *                     case its invalidation was lost, 0 for no limit
+     */
+    public NearCache(int maxEntries, long maxAgeMillis) {
+        if (maxEntries < 2)
+            throw new IllegalArgumentException("Near cache must hold at least 2 entries: " + maxEntries);
+        _maxEntries = maxEntries;
+        _maxWindowEntries = Math.max(1, maxEntries * WINDOW_PERCENTAGE / 100);
+        _maxProtectedEntries = (maxEntries - _maxWindowEntries) * PROTECTED_PERCENTAGE / 100;
+        _maxAgeNanos = maxAgeMillis * 1000000L;
+        _sketch = new FrequencySketch(maxEntries);
+        _invalidations = new BoundedMap<Invalidation>(maxEntries);
+        _pendingLocalModifications = new BoundedMap<Long>(MAX_PENDING_LOCAL_MODIFICATIONS);
+    }
+
+    /**
+     * @return a copy of the cached packet, or null if the key is not cached
+     */
+    public synchronized IEntryPacket get(Object key) {
+        _sketch.increment(key);
+        Node node = _nodes.get(key);
+        if (node != null && _maxAgeNanos != 0 && System.nanoTime() - node._creationTime > _maxAgeNanos) {
+            remove(node);
+            node = null;
+        }
+        if (node == null) {
+            _misses++;
+            return null;
+        }
+        _hits++;
+        onAccess(node);
+        return node._packet.clone();
+    }
+
+    /**
+     * Caches a packet read from the space.
+     *
+     * @param readStartTime the {@link System#nanoTime()} at which the read was sent to the space
+     * @return true if the packet was cached
+     */
+    public synchronized boolean put(Object key, IEntryPacket packet, long readStartTime) {
+        final String uid = packet.getUID();
+        if (uid == null)
+            return false;
+        final Invalidation invalidation = _invalidations.get(uid);
+        if (invalidation != null && invalidation._time - readStartTime >= 0
+                && (invalidation._removed || packet.getVersion() < invalidation._version)) {
+            _rejectedStalePuts++;
+            return false;
+        }
+
+        Node node = _nodes.get(key);
+        if (node != null) {
+            if (!node._uid.equals(uid) || packet.getVersion() >= node._packet.getVersion()) {
+                remove(node);
+            } else {
+                return false;
+            }
+        }
+        node = new Node(key, uid, packet.clone(), estimateMemory(packet));
+        _nodes.put(key, node);
+        node._nextWithSameUid = _nodesByUid.put(uid, node);
+        _estimatedMemory += node._estimatedMemory;
+        _window.addFirst(node);
+        node._list = _window;
+        if (_window._size > _maxWindowEntries)
+            evict();
+        return true;
+    }
+
+    /**
+     * Removes the cached packets of the entry with the given uid if they are older than the given
+     * version.
+     *
+     * @param removed true if the entry was removed from the space, in which case its packets are
+     *                removed regardless of their version
+     */
+    public synchronized void invalidate(String uid, int version, boolean removed) {
+        final Long modificationTime = _pendingLocalModifications.remove(uid);
+        final long now = System.nanoTime();
+        if (modificationTime != null) {
+            final long lag = now - modificationTime;
+            _invalidationLagCount++;
+            _invalidationLagTotalNanos += lag;
+            _invalidationLagMaxNanos = Math.max(_invalidationLagMaxNanos, lag);
+        }
+        invalidate(uid, version, removed, now);
+    }
+
+    /**
+     * Removes the cached packets of an entry modified by this client, without waiting for its
+     * invalidation to be received, and measures the time until it is received.
+     */
+    public synchronized void invalidateLocally(String uid, int version, boolean removed) {
+        final long now = System.nanoTime();
+        invalidate(uid, version, removed, now);
+        _pendingLocalModifications.put(uid, now);
+    }
+
+    private void invalidate(String uid, int version, boolean removed, long now) {
+        _invalidationsCount++;
+        final Invalidation previous = _invalidations.get(uid);
+        _invalidations.put(uid, new Invalidation(previous != null ? Math.max(previous._version, version) : version, removed, now));
+        for (Node node = _nodesByUid.get(uid); node != null; ) {
+            final Node next = node._nextWithSameUid;
+            if (removed || node._packet.getVersion() < version)
+                remove(node);
+            node = next;
+        }
+    }
+
+    public synchronized void clear() {
+        _nodes.clear();
+        _nodesByUid.clear();
+        _window.clear();
+        _probation.clear();
+        _protected.clear();
+        _estimatedMemory = 0;
+    }
+
+    public synchronized int size() {
+        return _nodes.size();
+    }
+
+    public int getMaxEntries() {
+        return _maxEntries;
+    }
+
+    public synchronized long getHits() {
+        return _hits;
+    }
+
+    public synchronized long getMisses() {
+        return _misses;
+    }
+
+    /**
+     * @return the percentage of reads which were served by the cache, or -1 if there were no reads
+     */
+    public synchronized double getHitRatio() {
+        final long total = _hits + _misses;
+        return total == 0 ? -1 : (double) _hits / total * 100;
+    }
+
+    public synchronized long getEvictions() {
+        return _evictions;
+    }
+
+    public synchronized long getInvalidations() {
+        return _invalidationsCount;
+    }
+
+    /**
+     * @return the number of read results which were not cached because the entry was invalidated
+     * while they were read
+     */
+    public synchronized long getRejectedStalePuts() {
+        return _rejectedStalePuts;
+    }
+
+    /**
+     * @return a rough estimation of the memory used by the cached packets, in bytes
+     */
+    public synchronized long getEstimatedMemory() {
+        return _estimatedMemory;
+    }
+
+    /**
+     * @return the average time between a modification by this client and the receipt of its
+     * invalidation, in milliseconds, or -1 if none were received
+     */
+    public synchronized double getAverageInvalidationLag() {
+        return _invalidationLagCount == 0 ? -1 : _invalidationLagTotalNanos / (_invalidationLagCount * 1000000d);
+    }
+
+    /**
+     * @return the longest time between a modification by this client and the receipt of its
+     * invalidation, in milliseconds
+     */
+    public synchronized double getMaxInvalidationLag() {
+        return _invalidationLagMaxNanos / 1000000d;
+    }
+
+    private void onAccess(Node node) {
+        if (node._list == _protected) {
+            _protected.moveToFirst(node);
+        } else if (node._list == _probation) {
+            _probation.remove(node);
+            _protected.addFirst(node);
+            node._list = _protected;
+            if (_protected._size > _maxProtectedEntries) {
+                final Node demoted = _protected.removeLast();
+                _probation.addFirst(demoted);
+                demoted._list = _probation;
+            }
+        } else {
+            _window.moveToFirst(node);
+        }
+    }
+
+    private void evict() {
+        final Node candidate = _window.removeLast();
+        _probation.addFirst(candidate);
+        candidate._list = _probation;
+        if (_nodes.size() <= _maxEntries)
+            return;
+        final Node victim = _probation._size > 1 ? _probation.last() : _protected.last();
+        // ties are decided in favor of the victim, since the candidate was only accessed while in the window
+        final Node evicted = _sketch.frequency(candidate._key) > _sketch.frequency(victim._key) ? victim : candidate;
+        remove(evicted);
+        _evictions++;
+    }
+
+    private void remove(Node node) {
+        node._list.remove(node);
+        _nodes.remove(node._key);
+        _estimatedMemory -= node._estimatedMemory;
+        Node head = _nodesByUid.get(node._uid);
+        if (head == node) {
+            if (node._nextWithSameUid == null)
+                _nodesByUid.remove(node._uid);
+            else
+                _nodesByUid.put(node._uid, node._nextWithSameUid);
+        } else {
+            while (head._nextWithSameUid != node)
+                head = head._nextWithSameUid;
+            head._nextWithSameUid = node._nextWithSameUid;
+        }
+    }
+
+    static long estimateMemory(IEntryPacket packet) {
+        // the node, the key and the packet itself
+        long memory = 160;
+        final Object[] values = packet.getFieldValues();
+        if (values != null) {
+            memory += 16 + 8L * values.length;
+            for (Object value : values)
+                memory += estimateMemory(value);
+        }
+        final Map<String, Object> dynamicProperties = packet.getDynamicProperties();
+        if (dynamicProperties != null) {
+            for (Map.Entry<String, Object> property : dynamicProperties.entrySet())
+                memory += 32 + estimateMemory(property.getKey()) + estimateMemory(property.getValue());
+        }
+        return memory;
+    }
+
+    private static long estimateMemory(Object value) {
+        if (value == null)
+            return 0;
+        if (value instanceof String)
+            return 40 + 2L * ((String) value).length();
+        if (value instanceof byte[])
+            return 16 + ((byte[]) value).length;
+        if (value instanceof Number || value instanceof Boolean || value instanceof Character)
+            return 16;
+        return 64;
+    }
+
+    /**
+     * A cached packet, linked in one of the lists of the cache.
+     */
+    private static final class Node {
+        private final Object _key;
+        private final String _uid;
+        private final IEntryPacket _packet;
+        private final long _estimatedMemory;
+        private final long _creationTime = System.nanoTime();
+        private Node _nextWithSameUid;
+        private NodeList _list;
+        private Node _prev;
+        private Node _next;
+
+        private Node(Object key, String uid, IEntryPacket packet, long estimatedMemory) {
+            _key = key;
+            _uid = uid;
+            _packet = packet;
+            _estimatedMemory = estimatedMemory;
+        }
+    }
+
+    /**
+     * A doubly linked list of nodes, from the most recently used to the least recently used.
+     */
+    private static final class NodeList {
+        private final Node _head = new Node(null, null, null, 0);
+        private int _size;
+
+        private NodeList() {
+            _head._next = _head;
+            _head._prev = _head;
+        }
+
+        private void addFirst(Node node) {
+            node._next = _head._next;
+            node._prev = _head;
+            _head._next._prev = node;
+            _head._next = node;
+            _size++;
+        }
+
+        private void remove(Node node) {
+            node._prev._next = node._next;
+            node._next._prev = node._prev;
+            node._prev = null;
+            node._next = null;
+            _size--;
+        }
+
+        private void moveToFirst(Node node) {
+            remove(node);
+            addFirst(node);
+        }
+
+        private Node last() {
+            return _head._prev;
+        }
+
+        private Node removeLast() {
+            final Node node = _head._prev;
+            remove(node);
+            return node;
+        }
+
+        private void clear() {
+            _head._next = _head;
+            _head._prev = _head;
+            _size = 0;
+        }
+    }
+
+    private static final class Invalidation {
+        private final int _version;
+        private final boolean _removed;
+        private final long _time;
+
+        private Invalidation(int version, boolean removed, long time) {
+            _version = version;
+            _removed = removed;
+            _time = time;
+        }
+    }
+
+    private static final class BoundedMap<V> extends LinkedHashMap<String, V> {
+        private static final long serialVersionUID = 1L;
+        private final int _maxSize;
+
+        private BoundedMap(int maxSize) {
+            _maxSize = maxSize;
+        }
+
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, V> eldest) {
+            return size() > _maxSize;
+        }
+    }
+}
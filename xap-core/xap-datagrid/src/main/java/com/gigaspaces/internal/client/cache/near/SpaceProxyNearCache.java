@@ -0,0 +1,326 @@
+/*
+ * Copyright (c) 2008-2016, GigaSpaces Technologies, Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.gigaspaces.internal.client.cache.near;
+
+import com.gigaspaces.document.SpaceDocument;
+import com.gigaspaces.events.NotifyInfo;
+import com.gigaspaces.internal.client.QueryResultTypeInternal;
+import com.gigaspaces.internal.client.cache.CustomInfo;
+import com.gigaspaces.internal.client.spaceproxy.SpaceProxyImpl;
+import com.gigaspaces.internal.client.spaceproxy.actioninfo.ReadTakeByIdsProxyActionInfo;
+import com.gigaspaces.internal.client.spaceproxy.actioninfo.ReadTakeProxyActionInfo;
+import com.gigaspaces.internal.transport.IEntryPacket;
+import com.gigaspaces.internal.transport.ITemplatePacket;
+import com.gigaspaces.internal.utils.ObjectUtils;
+import com.gigaspaces.logger.Constants;
+import com.gigaspaces.metrics.Gauge;
+import com.gigaspaces.metrics.MetricManager;
+import com.gigaspaces.metrics.MetricRegistrator;
+import com.j_spaces.core.IdQueryPacket;
+import com.j_spaces.core.UidQueryPacket;
+import com.j_spaces.core.client.EntryArrivedRemoteEvent;
+import com.j_spaces.core.client.Modifiers;
+import com.j_spaces.core.client.NotifyModifiers;
+import com.j_spaces.kernel.SystemProperties;
+
+import net.jini.core.event.EventRegistration;
+import net.jini.core.event.RemoteEvent;
+import net.jini.core.event.RemoteEventListener;
+import net.jini.core.lease.Lease;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Serves reads by id and by uid of a remote space proxy from a {@link NearCache}, which is kept
+ * consistent with the space by notifications of the modified entries.
+ * <p>
+ * The first time an entry of a type is read, the proxy registers for uid only notifications of
+ * updates and removals of the entries of that type, and only reads which start after the
+ * registration is completed are cached. The registrations are flagged as local cache registrations
+ * so they are listed with the local caches of the space.
+ *
+ * @since 16.0
+ */
+@com.gigaspaces.api.InternalApi
+public class SpaceProxyNearCache {
+    private static final Logger _logger = LoggerFactory.getLogger(Constants.LOGGER_CLIENT);
+
+    // read modifiers which do not change the result of a read by id outside a transaction
+    private static final int CACHEABLE_MODIFIERS = Modifiers.DIRTY_READ | Modifiers.READ_COMMITTED
+            | Modifiers.MEMORY_ONLY_SEARCH | Modifiers.LOG_SCANNED_ENTRIES_COUNT;
+    private static final int NOTIFY_TYPE = NotifyModifiers.NOTIFY_UPDATE | NotifyModifiers.NOTIFY_TAKE
+            | NotifyModifiers.NOTIFY_LEASE_EXPIRATION;
+
+    private final SpaceProxyImpl _spaceProxy;
+    private final NearCache _cache;
+    private final Map<String, TypeRegistration> _registrations = new ConcurrentHashMap<String, TypeRegistration>();
+    private final MetricManager _metricManager;
+    private final MetricRegistrator _metricRegistrator;
+    private volatile boolean _closed;
+
+    /**
+     * @return a near cache for the given proxy, or null if the near cache is disabled or the proxy
+     * is embedded in the space
+     */
+    public static SpaceProxyNearCache create(SpaceProxyImpl spaceProxy) {
+        final int maxEntries = Integer.getInteger(SystemProperties.NEAR_CACHE_MAX_ENTRIES, SystemProperties.NEAR_CACHE_MAX_ENTRIES_DEFAULT);
+        if (maxEntries <= 0 || spaceProxy.isEmbedded())
+            return null;
+        final long maxAge = Long.getLong(SystemProperties.NEAR_CACHE_MAX_AGE, SystemProperties.NEAR_CACHE_MAX_AGE_DEFAULT);
+        return new SpaceProxyNearCache(spaceProxy, new NearCache(Math.max(maxEntries, 2), maxAge));
+    }
+
+    private SpaceProxyNearCache(SpaceProxyImpl spaceProxy, NearCache cache) {
+        _spaceProxy = spaceProxy;
+        _cache = cache;
+        _metricManager = MetricManager.acquire();
+        final Map<String, String> tags = new HashMap<String, String>();
+        tags.put("space_name", spaceProxy.getName());
+        _metricRegistrator = _metricManager.createRegistrator("near-cache", tags);
+        registerMetrics(_metricRegistrator);
+    }
+
+    public NearCache getCache() {
+        return _cache;
+    }
+
+    /**
+     * @return the key of a read which can be served by the near cache, or null if the read should
+     * be sent to the space
+     */
+    public Object getKey(ReadTakeProxyActionInfo actionInfo) {
+        if (actionInfo.isTake || actionInfo.isSqlQuery || actionInfo.returnOnlyUids || !isCacheable(actionInfo.txn, actionInfo.modifiers))
+            return null;
+        final ITemplatePacket query = actionInfo.queryPacket;
+        if (query.getProjectionTemplate() != null || query.getVersion() != 0)
+            return null;
+        if (query instanceof IdQueryPacket)
+            return new Key(query.getTypeName(), query.getID(), query.getQueryResultType());
+        if (query instanceof UidQueryPacket && query.getMultipleUIDs() == null)
+            return new Key(query.getTypeName(), query.getUID(), query.getQueryResultType());
+        return null;
+    }
+
+    /**
+     * @return the keys of a read by ids which can be served by the near cache, or null if the read
+     * should be sent to the space
+     */
+    public Object[] getKeys(ReadTakeByIdsProxyActionInfo actionInfo) {
+        if (actionInfo.isTake || !isCacheable(actionInfo.txn, actionInfo.modifiers) || actionInfo.queryPacket.getProjectionTemplate() != null)
+            return null;
+        final Object[] keys = new Object[actionInfo.ids.length];
+        for (int i = 0; i < keys.length; i++)
+            keys[i] = new Key(actionInfo.className, actionInfo.ids[i], actionInfo.queryPacket.getQueryResultType());
+        return keys;
+    }
+
+    private static boolean isCacheable(Object txn, int modifiers) {
+        return txn == null && (modifiers & ~CACHEABLE_MODIFIERS) == 0;
+    }
+
+    public IEntryPacket get(Object key) {
+        return _cache.get(key);
+    }
+
+    /**
+     * Caches the result of a read, if the entries of its type were already observed for
+     * modifications when the read started.
+     *
+     * @param readStartTime the {@link System#nanoTime()} at which the read was sent to the space
+     */
+    public void put(Object key, IEntryPacket packet, long readStartTime) {
+        if (packet == null || packet.getTypeName() == null || _closed)
+            return;
+        final TypeRegistration registration = getOrRegister(packet.getTypeName());
+        if (registration != null && registration._registrationTime - readStartTime < 0)
+            _cache.put(key, packet, readStartTime);
+    }
+
+    /**
+     * Invalidates an entry which was written or removed by this proxy.
+     */
+    public void onLocalModification(String uid, int version, boolean removed) {
+        if (uid != null)
+            _cache.invalidateLocally(uid, version, removed);
+    }
+
+    public void close() {
+        _closed = true;
+        for (TypeRegistration registration : _registrations.values()) {
+            if (registration._eventRegistration != null) {
+                try {
+                    registration._eventRegistration.getLease().cancel();
+                } catch (Exception e) {
+                    if (_logger.isDebugEnabled())
+                        _logger.debug("Failed to cancel near cache registration of type " + registration._typeName, e);
+                }
+            }
+        }
+        _registrations.clear();
+        _cache.clear();
+        _metricRegistrator.clear();
+        _metricManager.close();
+    }
+
+    /**
+     * @return the registration of the given type, or null if the type is not yet registered
+     */
+    private TypeRegistration getOrRegister(String typeName) {
+        TypeRegistration registration = _registrations.get(typeName);
+        if (registration != null)
+            return registration._eventRegistration != null ? registration : null;
+        registration = new TypeRegistration(typeName);
+        if (_registrations.putIfAbsent(typeName, registration) != null)
+            return null;
+        try {
+            NotifyInfo notifyInfo = new NotifyInfo(new InvalidationListener(), NOTIFY_TYPE)
+                    .setReturnOnlyUids(true)
+                    .setCustomInfo(new NearCacheCustomInfo());
+            EventRegistration eventRegistration = _spaceProxy.getDataEventsManager().addListener(new SpaceDocument(typeName),
+                    Lease.FOREVER, notifyInfo, true);
+            registration._registrationTime = System.nanoTime();
+            registration._eventRegistration = eventRegistration;
+        } catch (Exception e) {
+            // the entries of this type are not cached, the registration is kept to avoid retrying it on every read
+            _logger.warn("Failed to register near cache invalidations of type " + typeName + ", entries of this type will not be cached", e);
+        }
+        return null;
+    }
+
+    private void registerMetrics(MetricRegistrator registrator) {
+        registrator.register("size", new Gauge<Integer>() {
+            @Override
+            public Integer getValue() {
+                return _cache.size();
+            }
+        });
+        registrator.register("hits", new Gauge<Long>() {
+            @Override
+            public Long getValue() {
+                return _cache.getHits();
+            }
+        });
+        registrator.register("misses", new Gauge<Long>() {
+            @Override
+            public Long getValue() {
+                return _cache.getMisses();
+            }
+        });
+        registrator.register("hit-ratio", new Gauge<Double>() {
+            @Override
+            public Double getValue() {
+                return validate(_cache.getHitRatio());
+            }
+        });
+        registrator.register("evictions", new Gauge<Long>() {
+            @Override
+            public Long getValue() {
+                return _cache.getEvictions();
+            }
+        });
+        registrator.register("invalidations", new Gauge<Long>() {
+            @Override
+            public Long getValue() {
+                return _cache.getInvalidations();
+            }
+        });
+        registrator.register("invalidation-lag-avg", new Gauge<Double>() {
+            @Override
+            public Double getValue() {
+                return validate(_cache.getAverageInvalidationLag());
+            }
+        });
+        registrator.register("invalidation-lag-max", new Gauge<Double>() {
+            @Override
+            public Double getValue() {
+                return _cache.getMaxInvalidationLag();
+            }
+        });
+        registrator.register("memory-estimate", new Gauge<Long>() {
+            @Override
+            public Long getValue() {
+                return _cache.getEstimatedMemory();
+            }
+        });
+    }
+
+    /**
+     * A read by id or by uid of an entry, with the result type it was read with.
+     */
+    private static final class Key {
+        private final String _typeName;
+        private final Object _id;
+        private final QueryResultTypeInternal _resultType;
+
+        private Key(String typeName, Object id, QueryResultTypeInternal resultType) {
+            _typeName = typeName;
+            _id = id;
+            _resultType = resultType;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o)
+                return true;
+            if (!(o instanceof Key))
+                return false;
+            Key other = (Key) o;
+            return _id.equals(other._id) && _resultType == other._resultType && ObjectUtils.equals(_typeName, other._typeName);
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * _id.hashCode() + (_typeName != null ? _typeName.hashCode() : 0);
+        }
+    }
+
+    private static final class TypeRegistration {
+        private final String _typeName;
+        private volatile EventRegistration _eventRegistration;
+        private volatile long _registrationTime;
+
+        private TypeRegistration(String typeName) {
+            _typeName = typeName;
+        }
+    }
+
+    private final class InvalidationListener implements RemoteEventListener {
+        @Override
+        public void notify(RemoteEvent event) {
+            final EntryArrivedRemoteEvent entryEvent = (EntryArrivedRemoteEvent) event;
+            final IEntryPacket packet = entryEvent.getEntryPacket();
+            _cache.invalidate(packet.getUID(), packet.getVersion(), !entryEvent.getNotifyActionType().isUpdate());
+        }
+    }
+
+    /**
+     * Flags the invalidation registrations as local cache registrations in the space.
+     */
+    private static final class NearCacheCustomInfo extends CustomInfo {
+        private static final long serialVersionUID = 1L;
+
+        @Override
+        public boolean isLocalCacheCustomInfo() {
+            return true;
+        }
+    }
+}
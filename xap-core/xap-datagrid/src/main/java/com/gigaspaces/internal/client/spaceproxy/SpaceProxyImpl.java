@@ -20,6 +20,7 @@ import com.gigaspaces.admin.demote.DemoteFailedException;
 import com.gigaspaces.admin.quiesce.QuiesceToken;
 import com.gigaspaces.client.DirectSpaceProxyFactory;
 import com.gigaspaces.executor.SpaceTask;
+import com.gigaspaces.internal.client.cache.near.SpaceProxyNearCache;
 import com.gigaspaces.internal.client.spaceproxy.actioninfo.CommonProxyActionInfo;
 import com.gigaspaces.internal.client.spaceproxy.actioninfo.SnapshotProxyActionInfo;
 import com.gigaspaces.internal.client.spaceproxy.actions.AbstractSpaceProxyActionManager;
@@ -33,6 +34,7 @@ import com.gigaspaces.internal.client.spaceproxy.operations.ExecuteTaskSpaceOper
 import com.gigaspaces.internal.client.spaceproxy.operations.GetEntryTypeDescriptorSpaceOperationRequest;
 import com.gigaspaces.internal.client.spaceproxy.operations.RegisterEntryTypeDescriptorSpaceOperationRequest;
 import com.gigaspaces.internal.client.spaceproxy.operations.SpaceOperationRequest;
+import com.gigaspaces.internal.client.spaceproxy.router.OnewayWriteBatcher;
 import com.gigaspaces.internal.client.spaceproxy.router.SpaceProxyRouter;
 import com.gigaspaces.internal.client.spaceproxy.transaction.SpaceProxyTransactionManager;
 import com.gigaspaces.internal.cluster.ClusterTopology;
@@ -103,9 +105,12 @@ public class SpaceProxyImpl extends AbstractDirectSpaceProxy implements SameProx
     private final ISpaceProxyTypeManager _typeManager;
     private final IQueryManager _queryManager;
     private final SpaceProxyDataEventsManager _dataEventsManager;
+    private final SpaceProxyNearCache _nearCache;
 
     private boolean _initializedNewRouter;
     private volatile SpaceProxyRouter _proxyRouter;
+    private volatile OnewayWriteBatcher _onewayWriteBatcher;
+    private volatile boolean _initializedOnewayWriteBatcher;
     private volatile boolean closed = false;
 
     public SpaceProxyImpl(DirectSpaceProxyFactoryImpl factory, ProxySettings proxySettings) {
@@ -121,6 +126,7 @@ public class SpaceProxyImpl extends AbstractDirectSpaceProxy implements SameProx
         this._queryManager = new QueryManager(this);
         this._typeManager = new SpaceProxyTypeManager(this);
         this._dataEventsManager = new SpaceProxyDataEventsManager(this, _proxySettings.getExportedTransportConfig());
+        this._nearCache = SpaceProxyNearCache.create(this);
 
         // set properties attached to space url
         getURL().setPropertiesForSpaceProxy(this);
@@ -177,6 +183,28 @@ public class SpaceProxyImpl extends AbstractDirectSpaceProxy implements SameProx
         return _dataEventsManager;
     }
 
+    /**
+     * @return the near cache of this proxy, or null if it is disabled
+     */
+    public SpaceProxyNearCache getNearCache() {
+        return _nearCache;
+    }
+
+    /**
+     * @return the batcher of the oneway writes of this proxy, or null if batching is disabled
+     */
+    public OnewayWriteBatcher getOnewayWriteBatcher() {
+        if (!_initializedOnewayWriteBatcher) {
+            synchronized (_spaceInitializeLock) {
+                if (!_initializedOnewayWriteBatcher) {
+                    _onewayWriteBatcher = closed ? null : OnewayWriteBatcher.create(this);
+                    _initializedOnewayWriteBatcher = true;
+                }
+            }
+        }
+        return _onewayWriteBatcher;
+    }
+
     @Override
     public IProxySecurityManager getSecurityManager() {
         return _securityManager;
@@ -495,6 +523,12 @@ public class SpaceProxyImpl extends AbstractDirectSpaceProxy implements SameProx
 
         closed = true;
 
+        if (_onewayWriteBatcher != null)
+            _onewayWriteBatcher.close();
+
+        if (_nearCache != null)
+            _nearCache.close();
+
         if (_dataEventsManager != null)
             _dataEventsManager.close();
 
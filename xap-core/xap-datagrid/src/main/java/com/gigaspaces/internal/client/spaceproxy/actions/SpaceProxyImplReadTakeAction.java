@@ -18,6 +18,7 @@ package com.gigaspaces.internal.client.spaceproxy.actions;
 
 import com.gigaspaces.async.AsyncFuture;
 import com.gigaspaces.cluster.replication.TakeConsistencyLevelCompromisedException;
+import com.gigaspaces.internal.client.cache.near.SpaceProxyNearCache;
 import com.gigaspaces.internal.client.spaceproxy.SpaceProxyImpl;
 import com.gigaspaces.internal.client.spaceproxy.actioninfo.ReadTakeAsyncProxyActionInfo;
 import com.gigaspaces.internal.client.spaceproxy.actioninfo.ReadTakeProxyActionInfo;
@@ -55,6 +56,15 @@ public class SpaceProxyImplReadTakeAction extends ReadTakeProxyAction<SpaceProxy
 
         spaceProxy.beforeSpaceAction(actionInfo);
 
+        final SpaceProxyNearCache nearCache = spaceProxy.getNearCache();
+        final Object nearCacheKey = nearCache != null ? nearCache.getKey(actionInfo) : null;
+        if (nearCacheKey != null) {
+            result = nearCache.get(nearCacheKey);
+            if (result != null)
+                return actionInfo.convertQueryResult(spaceProxy, result, null);
+        }
+        final long startTime = System.nanoTime();
+
         if (actionInfo.isSqlQuery)
             result = spaceProxy.getQueryManager().readTake(actionInfo);
         else {
@@ -73,6 +83,12 @@ public class SpaceProxyImplReadTakeAction extends ReadTakeProxyAction<SpaceProxy
                 throw new TakeConsistencyLevelCompromisedException(request.getRemoteOperationResult().getSyncReplicationLevel() + 1, actionInfo.convertQueryResult(spaceProxy, result, null));
             }
         }
+        if (nearCache != null && result != null) {
+            if (actionInfo.isTake)
+                nearCache.onLocalModification(result.getUID(), result.getVersion(), true);
+            else if (nearCacheKey != null)
+                nearCache.put(nearCacheKey, result, startTime);
+        }
         return actionInfo.convertQueryResult(spaceProxy, result, null);
     }
 
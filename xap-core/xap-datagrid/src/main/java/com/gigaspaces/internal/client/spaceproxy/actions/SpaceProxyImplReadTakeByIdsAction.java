@@ -17,6 +17,7 @@
 package com.gigaspaces.internal.client.spaceproxy.actions;
 
 import com.gigaspaces.client.ReadTakeByIdsException;
+import com.gigaspaces.internal.client.cache.near.SpaceProxyNearCache;
 import com.gigaspaces.internal.client.spaceproxy.SpaceProxyImpl;
 import com.gigaspaces.internal.client.spaceproxy.actioninfo.ReadTakeByIdsProxyActionInfo;
 import com.gigaspaces.internal.client.spaceproxy.operations.ReadTakeEntriesByIdsSpaceOperationRequest;
@@ -53,19 +54,51 @@ public class SpaceProxyImplReadTakeByIdsAction extends ReadTakeByIdsProxyAction<
             if (actionInfo.ids.length == 0)
                 packets = new IEntryPacket[0];
             else {
-                final ReadTakeEntriesByIdsSpaceOperationRequest request = new ReadTakeEntriesByIdsSpaceOperationRequest(
-                        actionInfo.queryPacket,
-                        actionInfo.isTake,
-                        actionInfo.modifiers,
-                        actionInfo.txn);
                 spaceProxy.beforeSpaceAction(actionInfo);
-                spaceProxy.getProxyRouter().execute(request);
-                final ReadTakeEntriesByIdsSpaceOperationResult result = request.getFinalResult();
-                packets = result.getEntryPackets();
+                final SpaceProxyNearCache nearCache = spaceProxy.getNearCache();
+                final Object[] nearCacheKeys = nearCache != null ? nearCache.getKeys(actionInfo) : null;
+                packets = nearCacheKeys != null ? getCachedPackets(nearCache, nearCacheKeys) : null;
+                if (packets == null) {
+                    final ReadTakeEntriesByIdsSpaceOperationRequest request = new ReadTakeEntriesByIdsSpaceOperationRequest(
+                            actionInfo.queryPacket,
+                            actionInfo.isTake,
+                            actionInfo.modifiers,
+                            actionInfo.txn);
+                    final long startTime = System.nanoTime();
+                    spaceProxy.getProxyRouter().execute(request);
+                    final ReadTakeEntriesByIdsSpaceOperationResult result = request.getFinalResult();
+                    packets = result.getEntryPackets();
+                    if (nearCache != null)
+                        updateNearCache(nearCache, nearCacheKeys, packets, actionInfo.isTake, startTime);
+                }
             }
             return actionInfo.convertResults(spaceProxy, packets, returnPackets, null);
         } catch (ReadTakeByIdsException e) {
             throw actionInfo.convertResults(spaceProxy, e, returnPackets, null);
         }
     }
+
+    /**
+     * @return the cached packets of all the given keys, or null if any of them is not cached
+     */
+    private static IEntryPacket[] getCachedPackets(SpaceProxyNearCache nearCache, Object[] keys) {
+        final IEntryPacket[] packets = new IEntryPacket[keys.length];
+        for (int i = 0; i < keys.length; i++) {
+            packets[i] = nearCache.get(keys[i]);
+            if (packets[i] == null)
+                return null;
+        }
+        return packets;
+    }
+
+    private static void updateNearCache(SpaceProxyNearCache nearCache, Object[] keys, IEntryPacket[] packets, boolean isTake, long startTime) {
+        for (int i = 0; i < packets.length; i++) {
+            if (packets[i] == null)
+                continue;
+            if (isTake)
+                nearCache.onLocalModification(packets[i].getUID(), packets[i].getVersion(), true);
+            else if (keys != null)
+                nearCache.put(keys[i], packets[i], startTime);
+        }
+    }
 }
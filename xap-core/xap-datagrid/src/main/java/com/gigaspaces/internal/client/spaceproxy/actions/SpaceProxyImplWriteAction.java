@@ -22,6 +22,7 @@ import com.gigaspaces.internal.client.spaceproxy.actioninfo.WriteProxyActionInfo
 import com.gigaspaces.internal.client.spaceproxy.operations.WriteEntriesSpaceOperationRequest;
 import com.gigaspaces.internal.client.spaceproxy.operations.WriteEntrySpaceOperationRequest;
 import com.gigaspaces.internal.client.spaceproxy.operations.WriteEntrySpaceOperationResult;
+import com.gigaspaces.internal.client.spaceproxy.router.OnewayWriteBatcher;
 import com.gigaspaces.internal.server.space.operations.WriteEntryResult;
 import com.j_spaces.core.LeaseContext;
 import com.j_spaces.core.client.Modifiers;
@@ -42,14 +43,26 @@ public class SpaceProxyImplWriteAction extends WriteProxyAction<SpaceProxyImpl>
 
         WriteEntrySpaceOperationRequest request = new WriteEntrySpaceOperationRequest(actionInfo.entryPacket,
                 actionInfo.txn, actionInfo.lease, actionInfo.timeout, actionInfo.modifiers, actionInfo.isUpdate());
+        OnewayWriteBatcher batcher = spaceProxy.getOnewayWriteBatcher();
         if (Modifiers.contains(actionInfo.modifiers, Modifiers.ONE_WAY)) {
-            spaceProxy.getProxyRouter().executeOneway(request);
+            if (batcher != null && !actionInfo.isUpdate() && batcher.isBatchable(actionInfo.entryPacket, actionInfo.timeout)) {
+                batcher.add(actionInfo.entryPacket, actionInfo.lease, actionInfo.modifiers);
+            } else {
+                // a write which is not batched should not overtake the batched writes of its partition
+                if (batcher != null)
+                    batcher.flushBefore(actionInfo.entryPacket);
+                spaceProxy.getProxyRouter().executeOneway(request);
+            }
             return null;
         }
+        if (batcher != null)
+            batcher.flushBefore(actionInfo.entryPacket);
         spaceProxy.getProxyRouter().execute(request);
         WriteEntrySpaceOperationResult result = request.getRemoteOperationResult();
         result.processExecutionException();
         WriteEntryResult writeResult = result.getResult();
+        if (spaceProxy.getNearCache() != null && writeResult != null)
+            spaceProxy.getNearCache().onLocalModification(writeResult.getUid(), writeResult.getVersion(), false);
         return spaceProxy.getTypeManager().processWriteResult(writeResult, actionInfo.entry, actionInfo.entryPacket);
     }
 
@@ -61,6 +74,9 @@ public class SpaceProxyImplWriteAction extends WriteProxyAction<SpaceProxyImpl>
                 actionInfo.entries, actionInfo.entryPackets, actionInfo.txn,
                 actionInfo.lease, actionInfo.leases, actionInfo.timeout, actionInfo.modifiers, actionInfo.isBroadcast);
 
+        OnewayWriteBatcher batcher = spaceProxy.getOnewayWriteBatcher();
+        if (batcher != null)
+            batcher.flushBefore(actionInfo.entryPackets);
         if (Modifiers.contains(actionInfo.modifiers, Modifiers.ONE_WAY)) {
             spaceProxy.getProxyRouter().executeOneway(request);
             return null;
@@ -0,0 +1,440 @@
+/*
+ * Copyright (c) 2008-2016, GigaSpaces Technologies, Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.gigaspaces.internal.client.spaceproxy.router;
+
+import com.gigaspaces.internal.client.spaceproxy.SpaceProxyImpl;
+import com.gigaspaces.internal.client.spaceproxy.operations.WriteEntriesSpaceOperationRequest;
+import com.gigaspaces.internal.client.spaceproxy.operations.WriteEntriesSpaceOperationResult;
+import com.gigaspaces.internal.cluster.SpaceClusterInfo;
+import com.gigaspaces.internal.remoting.routing.RemoteOperationRouter;
+import com.gigaspaces.internal.remoting.routing.partitioned.PartitionedClusterRemoteOperationRouter;
+import com.gigaspaces.internal.remoting.routing.partitioned.PartitionedClusterUtils;
+import com.gigaspaces.internal.transport.IEntryPacket;
+import com.gigaspaces.internal.utils.concurrent.GSThreadFactory;
+import com.gigaspaces.logger.Constants;
+import com.j_spaces.kernel.SystemProperties;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.rmi.RemoteException;
+import java.util.ArrayDeque;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Groups the oneway writes of a space proxy by their target partition, and sends each group as a
+ * single write multiple operation to its partition once it reaches the batch size, or once its
+ * first write waited for the linger time.
+ * <p>
+ * The batches of a partition are sent one at a time in the order they were filled, so the writes
+ * of a partition are applied in the order they were made. The number of writes which were not sent
+ * yet is bounded, a write which exceeds it waits until pending batches are sent. If a batch fails
+ * to be sent the next write to its partition fails with the cause, instead of queuing more writes
+ * behind a partition which is not available.
+ *
+ * @since 16.0
+ */
+@com.gigaspaces.api.InternalApi
+public class OnewayWriteBatcher {
+    private static final Logger _logger = LoggerFactory.getLogger(Constants.LOGGER_SPACEPROXY_ROUTER);
+
+    private final String _name;
+    private final int _batchSize;
+    private final long _lingerNanos;
+    private final int _maxPendingWrites;
+    private final SpaceClusterInfo _clusterInfo;
+    private final BatchSender _sender;
+    private final Executor _executor;
+    // the last one holds the writes which are routed by the space
+    private final PartitionBatches[] _partitions;
+    private final Semaphore _pendingWrites;
+    private final ScheduledExecutorService _lingerTimer;
+    private final LongAdder _sentBatches = new LongAdder();
+    private final LongAdder _sentWrites = new LongAdder();
+    private final LongAdder _failedWrites = new LongAdder();
+    private volatile boolean _closed;
+
+    /**
+     * @return a batcher for the oneway writes of the given proxy, or null if batching is disabled
+     */
+    public static OnewayWriteBatcher create(SpaceProxyImpl spaceProxy) {
+        final int batchSize = Integer.getInteger(SystemProperties.ONEWAY_WRITE_BATCH_SIZE, SystemProperties.ONEWAY_WRITE_BATCH_SIZE_DEFAULT);
+        if (batchSize <= 1 || spaceProxy.isEmbedded())
+            return null;
+        final SpaceClusterInfo clusterInfo = spaceProxy.getSpaceClusterInfo();
+        final boolean partitioned = spaceProxy.isClustered() && clusterInfo.isPartitioned();
+        return new OnewayWriteBatcher(spaceProxy.getName(), partitioned ? clusterInfo : null, batchSize,
+                Long.getLong(SystemProperties.ONEWAY_WRITE_BATCH_LINGER, SystemProperties.ONEWAY_WRITE_BATCH_LINGER_DEFAULT),
+                Integer.getInteger(SystemProperties.ONEWAY_WRITE_BATCH_MAX_PENDING, SystemProperties.ONEWAY_WRITE_BATCH_MAX_PENDING_DEFAULT),
+                new ProxyBatchSender(spaceProxy), spaceProxy.getThreadPool());
+    }
+
+    /**
+     * @param clusterInfo       the cluster of the target partitions, or null if the space is not
+     *                          partitioned
+     * @param executor          sends the batches which are due to their linger time
+     */
+    public OnewayWriteBatcher(String name, SpaceClusterInfo clusterInfo, int batchSize, long lingerMillis,
+                              int maxPendingWrites, BatchSender sender, Executor executor) {
+        this(name, clusterInfo, clusterInfo != null ? clusterInfo.getNumberOfPartitions() : 0, batchSize, lingerMillis,
+                maxPendingWrites, sender, executor);
+    }
+
+    OnewayWriteBatcher(String name, SpaceClusterInfo clusterInfo, int numOfPartitions, int batchSize, long lingerMillis,
+                       int maxPendingWrites, BatchSender sender, Executor executor) {
+        _name = name;
+        _clusterInfo = clusterInfo;
+        _batchSize = batchSize;
+        _lingerNanos = TimeUnit.MILLISECONDS.toNanos(lingerMillis);
+        _maxPendingWrites = Math.max(maxPendingWrites, batchSize);
+        _sender = sender;
+        _executor = executor;
+        _pendingWrites = new Semaphore(_maxPendingWrites);
+        _partitions = new PartitionBatches[numOfPartitions + 1];
+        for (int i = 0; i < numOfPartitions; i++)
+            _partitions[i] = new PartitionBatches(i);
+        _partitions[numOfPartitions] = new PartitionBatches(PartitionedClusterUtils.NO_PARTITION);
+        _lingerTimer = Executors.newSingleThreadScheduledExecutor(GSThreadFactory.daemon("oneway-write-batcher-" + name));
+        final long period = Math.max(1, lingerMillis / 2);
+        _lingerTimer.scheduleWithFixedDelay(new Runnable() {
+            @Override
+            public void run() {
+                sendLingeringBatches();
+            }
+        }, period, period, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * @return true if the write of the given packet can be batched
+     */
+    public boolean isBatchable(IEntryPacket packet, long timeout) {
+        if (_closed || timeout != 0 || packet.getTypeDescriptor().isBroadcast())
+            return false;
+        // a write without routing which is not routed by the space fails the same as it would without batching
+        return _clusterInfo == null || packet.getRoutingFieldValue() != null || packet.getTypeDescriptor().isAutoGenerateRouting();
+    }
+
+    /**
+     * Adds a oneway write to the batch of its partition, and sends the batch if it is full.
+     *
+     * @throws RemoteException if the previous batch of the partition failed to be sent
+     */
+    public void add(IEntryPacket packet, long lease, int modifiers) throws RemoteException, InterruptedException {
+        final int partitionId = _clusterInfo != null
+                ? PartitionedClusterUtils.getPartitionId(packet.getRoutingFieldValue(), _clusterInfo)
+                : PartitionedClusterUtils.NO_PARTITION;
+        add(partitionId, packet, lease, modifiers);
+    }
+
+    void add(int partitionId, IEntryPacket packet, long lease, int modifiers) throws RemoteException, InterruptedException {
+        if (_closed)
+            throw new IllegalStateException("Oneway write batcher of " + _name + " is closed");
+        final PartitionBatches partition = _partitions[partitionId == PartitionedClusterUtils.NO_PARTITION ? _partitions.length - 1 : partitionId];
+        final Exception failure = partition._failure;
+        if (failure != null) {
+            partition._failure = null;
+            throw new RemoteException("Failed to send batched oneway writes to " + partition, failure);
+        }
+
+        _pendingWrites.acquire();
+        final boolean send;
+        synchronized (partition) {
+            if (partition._current != null && partition._current._modifiers != modifiers)
+                partition.seal();
+            if (partition._current == null)
+                partition._current = new Batch(_batchSize, modifiers);
+            partition._current.add(packet, lease);
+            if (partition._current._size == _batchSize)
+                partition.seal();
+            send = partition.startSending();
+        }
+        if (send)
+            sendReadyBatches(partition);
+    }
+
+    /**
+     * Sends all the pending writes, waiting for batches which are being sent by other threads.
+     */
+    public void flush() throws InterruptedException {
+        for (PartitionBatches partition : _partitions) {
+            final boolean send;
+            synchronized (partition) {
+                if (partition._current != null)
+                    partition.seal();
+                send = partition.startSending();
+            }
+            if (send)
+                sendReadyBatches(partition);
+        }
+        // wait for batches which are sent by other threads
+        _pendingWrites.acquire(_maxPendingWrites);
+        _pendingWrites.release(_maxPendingWrites);
+    }
+
+    /**
+     * Sends the pending writes which a write of the given packet that is not batched could
+     * overtake: the writes of its partition and the writes routed by the space, or all the pending
+     * writes if its partition is not known. Waits for such batches which are being sent by other
+     * threads.
+     */
+    public void flushBefore(IEntryPacket packet) throws InterruptedException {
+        if (_clusterInfo == null || packet.getRoutingFieldValue() == null)
+            flushPartitions();
+        else
+            flushBefore(PartitionedClusterUtils.getPartitionId(packet.getRoutingFieldValue(), _clusterInfo));
+    }
+
+    /**
+     * Sends the pending writes which a write of the given packets that is not batched could
+     * overtake, see {@link #flushBefore(IEntryPacket)}.
+     */
+    public void flushBefore(IEntryPacket[] packets) throws InterruptedException {
+        if (_clusterInfo == null) {
+            flushPartitions();
+            return;
+        }
+        final boolean[] targets = new boolean[_partitions.length - 1];
+        for (IEntryPacket packet : packets) {
+            if (packet.getRoutingFieldValue() == null) {
+                flushPartitions();
+                return;
+            }
+            targets[PartitionedClusterUtils.getPartitionId(packet.getRoutingFieldValue(), _clusterInfo)] = true;
+        }
+        for (int i = 0; i < targets.length; i++) {
+            if (targets[i])
+                flushPartition(_partitions[i]);
+        }
+        flushPartition(_partitions[_partitions.length - 1]);
+    }
+
+    void flushBefore(int partitionId) throws InterruptedException {
+        if (partitionId != PartitionedClusterUtils.NO_PARTITION)
+            flushPartition(_partitions[partitionId]);
+        flushPartition(_partitions[_partitions.length - 1]);
+    }
+
+    private void flushPartitions() throws InterruptedException {
+        for (PartitionBatches partition : _partitions)
+            flushPartition(partition);
+    }
+
+    private void flushPartition(PartitionBatches partition) throws InterruptedException {
+        final boolean send;
+        synchronized (partition) {
+            if (partition._current != null)
+                partition.seal();
+            send = partition.startSending();
+        }
+        if (send)
+            sendReadyBatches(partition);
+        synchronized (partition) {
+            while (partition._sending)
+                partition.wait();
+        }
+    }
+
+    public void close() {
+        if (_closed)
+            return;
+        _closed = true;
+        _lingerTimer.shutdown();
+        try {
+            flush();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    public int getPendingWrites() {
+        return _maxPendingWrites - _pendingWrites.availablePermits();
+    }
+
+    public long getSentBatches() {
+        return _sentBatches.sum();
+    }
+
+    public long getSentWrites() {
+        return _sentWrites.sum();
+    }
+
+    public long getFailedWrites() {
+        return _failedWrites.sum();
+    }
+
+    void sendLingeringBatches() {
+        final long now = System.nanoTime();
+        for (final PartitionBatches partition : _partitions) {
+            final boolean send;
+            synchronized (partition) {
+                if (partition._current != null && now - partition._current._creationTime >= _lingerNanos)
+                    partition.seal();
+                send = partition.startSending();
+            }
+            if (send) {
+                _executor.execute(new Runnable() {
+                    @Override
+                    public void run() {
+                        sendReadyBatches(partition);
+                    }
+                });
+            }
+        }
+    }
+
+    /**
+     * Sends the ready batches of the given partition until none are left, called by the one thread
+     * which started sending them.
+     */
+    private void sendReadyBatches(PartitionBatches partition) {
+        for (; ; ) {
+            final Batch batch;
+            synchronized (partition) {
+                batch = partition._ready.poll();
+                if (batch == null) {
+                    partition._sending = false;
+                    partition.notifyAll();
+                    return;
+                }
+            }
+            send(partition, batch);
+        }
+    }
+
+    private void send(PartitionBatches partition, Batch batch) {
+        try {
+            _sender.send(partition._partitionId, batch.packets(), batch.leases(), batch._modifiers);
+            _sentBatches.increment();
+            _sentWrites.add(batch._size);
+        } catch (Exception e) {
+            if (e instanceof InterruptedException)
+                Thread.currentThread().interrupt();
+            _failedWrites.add(batch._size);
+            partition._failure = e;
+            if (_logger.isWarnEnabled())
+                _logger.warn("Failed to send a batch of " + batch._size + " oneway writes to " + partition + " of " + _name, e);
+        } finally {
+            _pendingWrites.release(batch._size);
+        }
+    }
+
+    /**
+     * Sends a batch of writes to a partition.
+     */
+    public interface BatchSender {
+        /**
+         * @param partitionId the target partition, or {@link PartitionedClusterUtils#NO_PARTITION}
+         *                    if the writes should be routed by the space
+         */
+        void send(int partitionId, IEntryPacket[] packets, long[] leases, int modifiers) throws Exception;
+    }
+
+    private static final class ProxyBatchSender implements BatchSender {
+        private final SpaceProxyImpl _spaceProxy;
+
+        private ProxyBatchSender(SpaceProxyImpl spaceProxy) {
+            _spaceProxy = spaceProxy;
+        }
+
+        @Override
+        public void send(int partitionId, IEntryPacket[] packets, long[] leases, int modifiers) throws Exception {
+            final WriteEntriesSpaceOperationRequest request = new WriteEntriesSpaceOperationRequest(_spaceProxy.getTypeManager(),
+                    null, packets, null, 0, leases, 0, modifiers, false);
+            RemoteOperationRouter router = _spaceProxy.getProxyRouter().getOperationRouter();
+            // all the writes of the batch belong to the partition, so the request is sent as is
+            if (partitionId != PartitionedClusterUtils.NO_PARTITION && router instanceof PartitionedClusterRemoteOperationRouter)
+                router = ((PartitionedClusterRemoteOperationRouter) router).getPartitionRouter(partitionId);
+            router.executeOneway(request);
+            final WriteEntriesSpaceOperationResult result = request.getRemoteOperationResult();
+            if (result != null && result.getExecutionException() != null)
+                throw result.getExecutionException();
+        }
+    }
+
+    private static final class PartitionBatches {
+        private final int _partitionId;
+        private final ArrayDeque<Batch> _ready = new ArrayDeque<Batch>();
+        private Batch _current;
+        private boolean _sending;
+        private volatile Exception _failure;
+
+        private PartitionBatches(int partitionId) {
+            _partitionId = partitionId;
+        }
+
+        private void seal() {
+            _ready.add(_current);
+            _current = null;
+        }
+
+        /**
+         * @return true if the calling thread should send the ready batches
+         */
+        private boolean startSending() {
+            if (_sending || _ready.isEmpty())
+                return false;
+            _sending = true;
+            return true;
+        }
+
+        @Override
+        public String toString() {
+            return _partitionId == PartitionedClusterUtils.NO_PARTITION ? "space" : "partition " + (_partitionId + 1);
+        }
+    }
+
+    private static final class Batch {
+        private final IEntryPacket[] _packets;
+        private final long[] _leases;
+        private final int _modifiers;
+        private final long _creationTime = System.nanoTime();
+        private int _size;
+
+        private Batch(int capacity, int modifiers) {
+            _packets = new IEntryPacket[capacity];
+            _leases = new long[capacity];
+            _modifiers = modifiers;
+        }
+
+        private void add(IEntryPacket packet, long lease) {
+            _packets[_size] = packet;
+            _leases[_size] = lease;
+            _size++;
+        }
+
+        private IEntryPacket[] packets() {
+            if (_size == _packets.length)
+                return _packets;
+            final IEntryPacket[] packets = new IEntryPacket[_size];
+            System.arraycopy(_packets, 0, packets, 0, _size);
+            return packets;
+        }
+
+        private long[] leases() {
+            if (_size == _leases.length)
+                return _leases;
+            final long[] leases = new long[_size];
+            System.arraycopy(_leases, 0, leases, 0, _size);
+            return leases;
+        }
+    }
+}
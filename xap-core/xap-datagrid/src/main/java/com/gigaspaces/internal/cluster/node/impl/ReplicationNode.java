@@ -63,6 +63,8 @@ import com.gigaspaces.internal.cluster.node.impl.packets.ReplicaRequestPacket;
 import com.gigaspaces.internal.cluster.node.impl.processlog.DefaultProcessLogExceptionHandlerBuilder;
 import com.gigaspaces.internal.cluster.node.impl.processlog.IReplicationProcessLogBuilder;
 import com.gigaspaces.internal.cluster.node.impl.processlog.IReplicationProcessLogExceptionHandlerBuilder;
+import com.gigaspaces.internal.cluster.node.impl.processlog.IReplicationTargetProcessLog;
+import com.gigaspaces.internal.cluster.node.impl.processlog.globalorder.GlobalOrderTargetProcessLog;
 import com.gigaspaces.internal.cluster.node.impl.replica.CurrentStageInfo;
 import com.gigaspaces.internal.cluster.node.impl.replica.ISpaceReplicaData;
 import com.gigaspaces.internal.cluster.node.impl.replica.ISpaceReplicaDataConsumer;
@@ -935,6 +937,13 @@ public class ReplicationNode
                     sourceUniqueId);
     }
 
+    @Override
+    public void onTargetChannelCreated(String groupName, String sourceMemberName,
+                                       IReplicationTargetProcessLog processLog) {
+        if (processLog instanceof GlobalOrderTargetProcessLog)
+            ((GlobalOrderTargetProcessLog) processLog).registerWith(metricRegister.extend("target").extend(sourceMemberName));
+    }
+
     @Override
     public void onTargetChannelConnected(String groupName,
                                          String sourceMemberName, Object sourceUniqueId) {
@@ -54,6 +54,7 @@ import com.gigaspaces.internal.server.space.redolog.storage.BufferedRedoLogFileS
 import com.gigaspaces.internal.server.space.redolog.storage.CacheLastRedoLogFileStorageDecorator;
 import com.gigaspaces.internal.server.space.redolog.storage.IRedoLogFileStorage;
 import com.gigaspaces.internal.server.space.redolog.storage.bytebuffer.*;
+import com.gigaspaces.internal.server.space.redolog.storage.bytebuffer.mmap.MappedByteBufferStorageFactory;
 import com.gigaspaces.internal.server.space.redolog.storage.bytebuffer.raf.RAFByteBufferStorageFactory;
 import com.gigaspaces.internal.utils.StringUtils;
 import com.gigaspaces.internal.utils.collections.CopyOnUpdateMap;
@@ -69,6 +70,7 @@ import com.j_spaces.core.cluster.SwapBacklogConfig;
 import com.j_spaces.core.cluster.startup.CompactionResult;
 import com.j_spaces.core.exception.internal.ReplicationInternalSpaceException;
 import com.j_spaces.kernel.JSpaceUtilities;
+import com.j_spaces.kernel.SystemProperties;
 
 import java.io.IOException;
 import java.io.ObjectInput;
@@ -97,6 +99,14 @@ public abstract class AbstractSingleFileGroupBacklog<T extends IReplicationOrder
     protected final Logger _replicationLogger;
 
     private final static long WEIGHT_WARNING_THRESHOLD = 50;
+    //Swap backlog storage - "raf" (default) or "mmap" for memory mapped segments
+    private final static String SWAP_STORAGE = System.getProperty(SystemProperties.REPLICATION_SWAP_STORAGE, SystemProperties.REPLICATION_SWAP_STORAGE_DEFAULT);
+    private final static boolean SWAP_STORAGE_ASYNC_FORCE = Boolean.parseBoolean(System.getProperty(SystemProperties.REPLICATION_SWAP_MMAP_ASYNC_FORCE, SystemProperties.REPLICATION_SWAP_MMAP_ASYNC_FORCE_DEFAULT));
+    //Whether appends of concurrent producers are performed in batches under a single acquisition of the write lock
+    private final static boolean COMBINING_APPEND = Boolean.parseBoolean(System.getProperty(SystemProperties.REPLICATION_BACKLOG_COMBINING_APPEND, SystemProperties.REPLICATION_BACKLOG_COMBINING_APPEND_DEFAULT));
+    //Whether updates which are superseded by a later operation on the same entry are discarded from the range not yet consumed by lagging targets
+    private final static boolean SUPERSEDED_UPDATES_COMPACTION = Boolean.getBoolean("com.gs.replication.backlog.superseded-updates-compaction");
+    private final static long SUPERSEDED_UPDATES_COMPACTION_BATCH_SIZE = Long.getLong("com.gs.replication.backlog.superseded-updates-compaction.batch-size", 10000);
     private final DynamicSourceGroupConfigHolder _groupConfigHolder;
     private final String _groupName;
     private final IReplicationPacketDataProducer<?> _dataProducer;
@@ -124,11 +134,14 @@ public abstract class AbstractSingleFileGroupBacklog<T extends IReplicationOrder
     protected final IPacketFilteredHandler _defaultFilteredHandler = new DefaultPacketFilteredHandler();
 
     protected final ReadWriteLock _rwLock = new ReentrantReadWriteLock();
+    private final BacklogAppendCombiner _appendCombiner = new BacklogAppendCombiner(_rwLock.writeLock(), COMBINING_APPEND);
     private long _nextKey = 0;
 
     private final ICaluclateMinUnconfirmedKey _getMinUnconfirmedKeyProcedure;
     private boolean _closed;
     private RedoLogCompaction _redoLogCompaction;
+    private long _lastSupersededUpdatesCompactionKey = -1;
+    private long _supersededUpdatesCompactedPackets;
 
     public AbstractSingleFileGroupBacklog(DynamicSourceGroupConfigHolder groupConfigHolder,
                                           String name, IReplicationPacketDataProducer<?> dataProducer) {
@@ -357,11 +370,19 @@ public abstract class AbstractSingleFileGroupBacklog<T extends IReplicationOrder
         return new MemoryRedoLogFile<T>(_name, this);
     }
 
+    private static IByteBufferStorageFactory createByteBufferStorageFactory(String fileName, SwapBacklogConfig swapBacklogConfig) {
+        if ("mmap".equalsIgnoreCase(SWAP_STORAGE))
+            return new MappedByteBufferStorageFactory(fileName, swapBacklogConfig.getSegmentSize(), SWAP_STORAGE_ASYNC_FORCE);
+        if (!"raf".equalsIgnoreCase(SWAP_STORAGE))
+            throw new IllegalArgumentException("Unsupported swap backlog storage [" + SWAP_STORAGE + "], supported values are raf and mmap");
+        return new RAFByteBufferStorageFactory(fileName);
+    }
+
     private IRedoLogFile<T> createSwapBacklog(SourceGroupConfig groupConfig) {
         BacklogConfig backlogConfig = groupConfig.getBacklogConfig();
         SwapBacklogConfig swapBacklogConfig = backlogConfig.getSwapBacklogConfig();
-        IByteBufferStorageFactory byteBufferStorageProvider = new RAFByteBufferStorageFactory("redolog_"
-                + _name.replace(":", "_"));
+        IByteBufferStorageFactory byteBufferStorageProvider = createByteBufferStorageFactory("redolog_"
+                + _name.replace(":", "_"), swapBacklogConfig);
         // Configure ByteBufferRedoLogFile
         ByteBufferRedoLogFileConfig<T> storageConfig = new ByteBufferRedoLogFileConfig<T>();
         storageConfig.setMaxSizePerSegment(swapBacklogConfig.getSegmentSize());
@@ -770,6 +791,52 @@ public abstract class AbstractSingleFileGroupBacklog<T extends IReplicationOrder
 
     protected abstract void onBeginSynchronization(String memberName);
 
+    public boolean resumeSynchronizing(String memberName, long lastProcessedKey) {
+        _rwLock.writeLock().lock();
+        try {
+            final long lastInsertedKey = getLastInsertedKeyToBacklogUnsafe();
+            // the backlog must still hold every packet that follows the last processed key of the member
+            final boolean retained = !_outOfSyncDueToDeletionTargets.contains(memberName)
+                    && lastProcessedKey <= lastInsertedKey
+                    && (getBacklogFile().isEmpty() ? lastProcessedKey == lastInsertedKey : getFirstKeyInBacklogInternal() <= lastProcessedKey + 1);
+            if (!retained || !onResumeSynchronization(memberName, lastProcessedKey)) {
+                if (_loggerReplica.isDebugEnabled())
+                    _loggerReplica.debug(getLogPrefix()
+                            + "cannot resume synchronization with member ["
+                            + memberName + "] from key " + lastProcessedKey
+                            + ", current key " + lastInsertedKey);
+                return false;
+            }
+            String resumeSyncMsg = "resume synchronization with member ["
+                    + memberName
+                    + "] from key "
+                    + lastProcessedKey
+                    + ", current key "
+                    + lastInsertedKey;
+            if (_loggerReplica.isDebugEnabled())
+                _loggerReplica.debug(getLogPrefix() + resumeSyncMsg);
+            logEventInHistory(memberName, resumeSyncMsg);
+            clearConfirmedPackets();
+            // the member already holds the data up to the resumed key, the packets which follow it
+            // are replicated as is the same as in direct persistency sync
+            _activeSynchronizingTarget.put(memberName, new SynchronizingData(_logger, true));
+            _backlogCapacityAllowedBreachingTargets.add(memberName);
+            return true;
+        } finally {
+            _rwLock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Marks the packets up to the specified key as confirmed by a member which resumes its
+     * synchronization
+     *
+     * @return false if this backlog cannot resume the synchronization of a member
+     */
+    protected boolean onResumeSynchronization(String memberName, long lastProcessedKey) {
+        return false;
+    }
+
     public boolean synchronizationDataGenerated(String memberName, String uid) {
         _rwLock.writeLock().lock();
         try {
@@ -1090,6 +1157,7 @@ public abstract class AbstractSingleFileGroupBacklog<T extends IReplicationOrder
         //try compact redo log
         performCompactionUnsafe();
 
+        compactSupersededUpdatesUnsafe();
     }
 
     @Override
@@ -1124,6 +1192,61 @@ public abstract class AbstractSingleFileGroupBacklog<T extends IReplicationOrder
         }
     }
 
+    /**
+     * Whether the packets of this backlog can be replaced by discarded packets of the global order
+     */
+    protected boolean isSupersededUpdatesCompactionSupported() {
+        return false;
+    }
+
+    /*
+     * should be called under write lock
+     */
+    private void compactSupersededUpdatesUnsafe() {
+        if (!SUPERSEDED_UPDATES_COMPACTION || !isSupersededUpdatesCompactionSupported()) {
+            return;
+        }
+        if (getBacklogFile().isEmpty()) {
+            _lastSupersededUpdatesCompactionKey = -1;
+            return;
+        }
+        final long lastKey = getLastInsertedKeyToBacklogUnsafe();
+        long from = getFirstKeyInBacklogInternal();
+        //The mirror discarded packets count is decreased once a discarded packet is deleted, therefore
+        //only packets which were not confirmed by the mirror yet are discarded
+        if (_mirrorMemberName != null) {
+            from = Math.max(from, getLastConfirmedKeyUnsafe(_mirrorMemberName) + 1);
+        }
+        //The pass is done under the write lock, therefore it compacts one batch of packets, starting from the
+        //oldest packet not consumed yet, and each pass continues from where the previous one ended
+        from = Math.max(from, _lastSupersededUpdatesCompactionKey + 1);
+        //The batch which follows the compacted one is read as well, so an update at the end of the compacted
+        //batch is discarded when the operation superseding it is in the next batch
+        if (lastKey - from + 1 < 2 * SUPERSEDED_UPDATES_COMPACTION_BATCH_SIZE) {
+            return;
+        }
+        //A swap backlog discards only the packets it keeps in memory, the ones in its external storage are
+        //compacted once they are moved back into memory
+        final long to = Math.min(from + SUPERSEDED_UPDATES_COMPACTION_BATCH_SIZE - 1, _backlogFile.getLastSupersedableKey());
+        if (to < from) {
+            return;
+        }
+        final long scanTo = to + SUPERSEDED_UPDATES_COMPACTION_BATCH_SIZE;
+        _lastSupersededUpdatesCompactionKey = to;
+
+        final CompactionResult compactionResult = _backlogFile.compactSupersededUpdates(from, to, scanTo);
+        if (compactionResult.isEmpty()) {
+            return;
+        }
+        _supersededUpdatesCompactedPackets += compactionResult.getDiscardedCount();
+        if (_mirrorMemberName != null) {
+            updateMirrorWeightAfterCompaction(compactionResult);
+        }
+        if (_logger.isDebugEnabled()) {
+            _logger.debug(getLogPrefix() + "discarded " + compactionResult.getDiscardedCount() + " superseded update packets in range " + from + "-" + to);
+        }
+    }
+
     // Should be called under write lock
     public void updateMirrorWeightAfterCompaction(final CompactionResult compactionResult) {
         AbstractSingleFileConfirmationHolder confirmation = _confirmationMap.get(_mirrorMemberName);
@@ -1246,6 +1369,14 @@ public abstract class AbstractSingleFileGroupBacklog<T extends IReplicationOrder
         return memberNames;
     }
 
+    /**
+     * Performs an append to the backlog under the write lock, possibly together with the appends
+     * of concurrent producers under the same acquisition of the lock.
+     */
+    protected <R> R appendToBacklog(BacklogAppendCombiner.AppendOperation<R> operation) {
+        return _appendCombiner.append(operation);
+    }
+
     //Should be called under read lock
     protected long getNextKeyUnsafe() {
         return _nextKey;
@@ -1265,6 +1396,9 @@ public abstract class AbstractSingleFileGroupBacklog<T extends IReplicationOrder
     //Should be called under write lock
     protected void setNextKeyUnsafe(long newNextKey) {
         _nextKey = newNextKey;
+        //The keys of the backlog were reset
+        if (newNextKey <= _lastSupersededUpdatesCompactionKey)
+            _lastSupersededUpdatesCompactionKey = -1;
     }
 
     public IMarker getUnconfirmedMarker(String memberName) {
@@ -1393,6 +1527,31 @@ public abstract class AbstractSingleFileGroupBacklog<T extends IReplicationOrder
                 return getBacklogFile().getExternalStorageSpaceUsed();
             }
         });
+        metricRegister.register("superseded-updates-compacted-packets", new SynchronizedGauge() {
+            @Override
+            protected Long getValueImpl() {
+                return _supersededUpdatesCompactedPackets;
+            }
+        });
+        metricRegister.register("appended-packets", new Gauge<Long>() {
+            @Override
+            public Long getValue() throws Exception {
+                return _appendCombiner.getAppends();
+            }
+        });
+        metricRegister.register("append-lock-acquisitions", new Gauge<Long>() {
+            @Override
+            public Long getValue() throws Exception {
+                return _appendCombiner.getLockAcquisitions();
+            }
+        });
+        metricRegister.register("append-lock-hold-time-avg-micros", new Gauge<Double>() {
+            @Override
+            public Double getValue() throws Exception {
+                final long lockAcquisitions = _appendCombiner.getLockAcquisitions();
+                return lockAcquisitions == 0 ? 0d : (double) _appendCombiner.getLockHoldTime() / lockAcquisitions / 1000;
+            }
+        });
     }
 
     private abstract class SynchronizedGauge extends Gauge<Long> {
@@ -1432,6 +1591,7 @@ public abstract class AbstractSingleFileGroupBacklog<T extends IReplicationOrder
                 return;
             _closed = true;
             _backlogFile.close();
+            _lastSupersededUpdatesCompactionKey = -1;
         } finally {
             _rwLock.writeLock().unlock();
         }
@@ -0,0 +1,189 @@
+/*
+ * Copyright (c) 2008-2016, GigaSpaces Technologies, Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.gigaspaces.internal.cluster.node.impl.backlog;
+
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Performs the appends of concurrent producers to a backlog under its write lock, acquiring the
+ * lock once per batch of appends instead of once per append.
+ * <p>
+ * Each producer publishes its append to a lock free queue. The producer which acquires the lock
+ * performs all the published appends in their publication order, while the other producers wait
+ * for their own append to complete rather than compete for the lock. The backlog file is therefore
+ * still modified and its keys still assigned by a single thread at a time, and readers holding the
+ * read lock keep seeing a consistent backlog which contains only completed appends.
+ *
+ * @since 16.0
+ */
+@com.gigaspaces.api.InternalApi
+public class BacklogAppendCombiner {
+    // bounds the time a waiting producer may miss a release of the lock by a reader
+    private static final long PARK_NANOS = TimeUnit.MICROSECONDS.toNanos(50);
+    private static final int MAX_BATCH_SIZE = 1024;
+
+    private final Lock _lock;
+    private final boolean _combining;
+    private final ConcurrentLinkedQueue<PendingAppend<?>> _pendingAppends = new ConcurrentLinkedQueue<PendingAppend<?>>();
+    // updated under the lock only
+    private volatile long _appends;
+    private volatile long _lockAcquisitions;
+    private volatile long _lockHoldTime;
+
+    /**
+     * @param lock      the write lock of the backlog
+     * @param combining whether appends of concurrent producers are combined, otherwise each
+     *                  producer acquires the lock for its own append
+     */
+    public BacklogAppendCombiner(Lock lock, boolean combining) {
+        _lock = lock;
+        _combining = combining;
+    }
+
+    public boolean isCombining() {
+        return _combining;
+    }
+
+    /**
+     * Performs the given append under the lock, possibly by another producer thread, and returns
+     * its result or throws its exception.
+     */
+    public <R> R append(AppendOperation<R> operation) {
+        if (!_combining)
+            return appendExclusively(operation);
+
+        final PendingAppend<R> pending = new PendingAppend<R>(operation, Thread.currentThread());
+        _pendingAppends.add(pending);
+        boolean interrupted = false;
+        while (!pending.isDone()) {
+            if (_lock.tryLock()) {
+                try {
+                    combine();
+                } finally {
+                    _lock.unlock();
+                }
+                // appends published during the unlock would otherwise wait for a park timeout
+                PendingAppend<?> next = _pendingAppends.peek();
+                if (next != null)
+                    LockSupport.unpark(next._producer);
+            } else {
+                LockSupport.parkNanos(this, PARK_NANOS);
+                if (Thread.interrupted())
+                    interrupted = true;
+            }
+        }
+        if (interrupted)
+            Thread.currentThread().interrupt();
+        return pending.getResult();
+    }
+
+    private <R> R appendExclusively(AppendOperation<R> operation) {
+        _lock.lock();
+        final long startTime = System.nanoTime();
+        try {
+            return operation.append();
+        } finally {
+            onLockReleasing(1, startTime);
+            _lock.unlock();
+        }
+    }
+
+    private void combine() {
+        final long startTime = System.nanoTime();
+        int count = 0;
+        PendingAppend<?> pending;
+        while (count < MAX_BATCH_SIZE && (pending = _pendingAppends.poll()) != null) {
+            pending.run();
+            count++;
+        }
+        if (count > 0)
+            onLockReleasing(count, startTime);
+    }
+
+    private void onLockReleasing(int appends, long startTime) {
+        _appends += appends;
+        _lockAcquisitions++;
+        _lockHoldTime += System.nanoTime() - startTime;
+    }
+
+    /**
+     * @return the number of completed appends
+     */
+    public long getAppends() {
+        return _appends;
+    }
+
+    /**
+     * @return the number of times the lock was acquired in order to append
+     */
+    public long getLockAcquisitions() {
+        return _lockAcquisitions;
+    }
+
+    /**
+     * @return the total time in nanoseconds the lock was held in order to append
+     */
+    public long getLockHoldTime() {
+        return _lockHoldTime;
+    }
+
+    public interface AppendOperation<R> {
+        /**
+         * Called under the lock.
+         */
+        R append();
+    }
+
+    private static final class PendingAppend<R> {
+        private final AppendOperation<R> _operation;
+        private final Thread _producer;
+        private R _result;
+        private Throwable _error;
+        private volatile boolean _done;
+
+        private PendingAppend(AppendOperation<R> operation, Thread producer) {
+            _operation = operation;
+            _producer = producer;
+        }
+
+        private void run() {
+            try {
+                _result = _operation.append();
+            } catch (Throwable e) {
+                _error = e;
+            }
+            _done = true;
+            LockSupport.unpark(_producer);
+        }
+
+        private boolean isDone() {
+            return _done;
+        }
+
+        private R getResult() {
+            if (_error instanceof RuntimeException)
+                throw (RuntimeException) _error;
+            if (_error instanceof Error)
+                throw (Error) _error;
+            return _result;
+        }
+    }
+}
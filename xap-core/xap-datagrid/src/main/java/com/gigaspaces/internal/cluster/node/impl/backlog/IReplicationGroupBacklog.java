@@ -95,6 +95,15 @@ public interface IReplicationGroupBacklog extends IDynamicSourceGroupStateListen
 
     void beginSynchronizing(String memberName, boolean isDirectPersistencySync);
 
+    /**
+     * Begins synchronization of a member which already holds the data up to the specified key, the
+     * member is only sent the packets which follow that key
+     *
+     * @return false if the backlog no longer holds all the packets which follow the specified key
+     * @since 16.0
+     */
+    boolean resumeSynchronizing(String memberName, long lastProcessedKey);
+
     boolean synchronizationDataGenerated(String memberName, String uid);
 
     void synchronizationCopyStageDone(String memberName);
@@ -21,6 +21,7 @@ import com.gigaspaces.internal.cluster.node.impl.ReplicationMultipleOperationTyp
 import com.gigaspaces.internal.cluster.node.impl.ReplicationOutContext;
 import com.gigaspaces.internal.cluster.node.impl.ReplicationSingleOperationType;
 import com.gigaspaces.internal.cluster.node.impl.backlog.AbstractSingleFileGroupBacklog;
+import com.gigaspaces.internal.cluster.node.impl.backlog.BacklogAppendCombiner;
 import com.gigaspaces.internal.cluster.node.impl.backlog.CompletedHandshakeContext;
 import com.gigaspaces.internal.cluster.node.impl.backlog.EmptyIdleStateData;
 import com.gigaspaces.internal.cluster.node.impl.backlog.IBacklogHandshakeRequest;
@@ -117,6 +118,11 @@ public abstract class AbstractGlobalOrderGroupBacklog
         return value.hadAnyHandshake() ? value.getLastConfirmedKey() : -1;
     }
 
+    @Override
+    protected boolean isSupersededUpdatesCompactionSupported() {
+        return true;
+    }
+
     public void processResult(String memberName, IProcessResult result,
                               List<IReplicationOrderedPacket> packets)
             throws ReplicationException {
@@ -234,6 +240,17 @@ public abstract class AbstractGlobalOrderGroupBacklog
         updateLastConfirmedKeyUnsafe(memberName, key);
     }
 
+    @Override
+    protected boolean onResumeSynchronization(String memberName, long lastProcessedKey) {
+        GlobalOrderConfirmationHolder confirmationHolder = getConfirmationHolderUnsafe(memberName);
+        // keys confirmed by a member before this backlog ever handshaked with it belong to another backlog
+        if (confirmationHolder == null || !confirmationHolder.hadAnyHandshake()
+                || confirmationHolder.getLastConfirmedKey() > lastProcessedKey)
+            return false;
+        updateLastConfirmedKeyUnsafe(memberName, lastProcessedKey);
+        return true;
+    }
+
     public IReplicationOrderedPacket replaceWithDiscarded(
             IReplicationOrderedPacket packet, boolean forceDiscard) {
         return new GlobalOrderDiscardedReplicationPacket(packet.getKey());
@@ -317,8 +334,17 @@ public abstract class AbstractGlobalOrderGroupBacklog
     }
 
     private GlobalOrderOperationPacket insertPacketToBacklog(
+            final IReplicationPacketData<?> data, final ReplicationOutContext outContext) {
+        return appendToBacklog(new BacklogAppendCombiner.AppendOperation<GlobalOrderOperationPacket>() {
+            @Override
+            public GlobalOrderOperationPacket append() {
+                return insertPacketToBacklogUnsafe(data, outContext);
+            }
+        });
+    }
+
+    private GlobalOrderOperationPacket insertPacketToBacklogUnsafe(
             IReplicationPacketData<?> data, ReplicationOutContext outContext) {
-        _rwLock.writeLock().lock();
         try {
 
             setPacketWeight(data);
@@ -343,8 +369,6 @@ public abstract class AbstractGlobalOrderGroupBacklog
                         e);
             validateIntegrity();
             throw e;
-        } finally {
-            _rwLock.writeLock().unlock();
         }
     }
 
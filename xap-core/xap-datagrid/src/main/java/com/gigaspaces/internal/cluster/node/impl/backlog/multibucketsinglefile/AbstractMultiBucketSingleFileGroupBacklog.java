@@ -21,6 +21,7 @@ import com.gigaspaces.internal.cluster.node.impl.ReplicationMultipleOperationTyp
 import com.gigaspaces.internal.cluster.node.impl.ReplicationOutContext;
 import com.gigaspaces.internal.cluster.node.impl.ReplicationSingleOperationType;
 import com.gigaspaces.internal.cluster.node.impl.backlog.AbstractSingleFileGroupBacklog;
+import com.gigaspaces.internal.cluster.node.impl.backlog.BacklogAppendCombiner;
 import com.gigaspaces.internal.cluster.node.impl.backlog.CompletedHandshakeContext;
 import com.gigaspaces.internal.cluster.node.impl.backlog.EmptyIdleStateData;
 import com.gigaspaces.internal.cluster.node.impl.backlog.IBacklogHandshakeRequest;
@@ -327,34 +328,38 @@ public abstract class AbstractMultiBucketSingleFileGroupBacklog
     }
 
     private SingleBucketOrderedPacket createAndInsertSingleBucketPacket(
-            IReplicationPacketData<?> data, ReplicationOutContext outContext) {
-        _rwLock.writeLock().lock();
-        try {
+            final IReplicationPacketData<?> data, final ReplicationOutContext outContext) {
+        return appendToBacklog(new BacklogAppendCombiner.AppendOperation<SingleBucketOrderedPacket>() {
+            @Override
+            public SingleBucketOrderedPacket append() {
+                return createAndInsertSingleBucketPacketUnsafe(data, outContext);
+            }
+        });
+    }
 
-            setPacketWeight(data);
+    private SingleBucketOrderedPacket createAndInsertSingleBucketPacketUnsafe(
+            IReplicationPacketData<?> data, ReplicationOutContext outContext) {
+        setPacketWeight(data);
 
-            if (!shouldInsertPacket(data))
-                return null;
+        if (!shouldInsertPacket(data))
+            return null;
 
-            // This is single entry operation, we can optimize
-            // Extract bucket index and bitmap
-            IReplicationPacketEntryData entryData = data.getSingleEntryData();
-            short bucketId = extractBucketIndex(entryData);
-            // Get key from bucket
-            long key = _bucketLastKeys[bucketId];
-            _bucketLastKeys[bucketId] = key + 1;
-            // Wrap data with packet, add to backlog and context
-            SingleBucketOrderedPacket packet = new SingleBucketOrderedPacket(takeNextKeyUnsafe(outContext),
-                    key,
-                    bucketId,
-                    data);
+        // This is single entry operation, we can optimize
+        // Extract bucket index and bitmap
+        IReplicationPacketEntryData entryData = data.getSingleEntryData();
+        short bucketId = extractBucketIndex(entryData);
+        // Get key from bucket
+        long key = _bucketLastKeys[bucketId];
+        _bucketLastKeys[bucketId] = key + 1;
+        // Wrap data with packet, add to backlog and context
+        SingleBucketOrderedPacket packet = new SingleBucketOrderedPacket(takeNextKeyUnsafe(outContext),
+                key,
+                bucketId,
+                data);
 
-            insertPacketToBacklog(packet, outContext);
+        insertPacketToBacklog(packet, outContext);
 
-            return packet;
-        } finally {
-            _rwLock.writeLock().unlock();
-        }
+        return packet;
     }
 
     private short extractBucketIndex(IReplicationPacketEntryData entryData) {
@@ -362,92 +367,96 @@ public abstract class AbstractMultiBucketSingleFileGroupBacklog
     }
 
     public IMultiBucketSingleFileReplicationOrderedPacket addTransactionOperationPacket(
-            ISyncReplicationGroupOutContext groupContext,
+            final ISyncReplicationGroupOutContext groupContext,
             ServerTransaction transaction,
             ArrayList<IEntryHolder> lockedEntries, ReplicationMultipleOperationType operationType) {
         // Convert operation to data
-        IReplicationPacketData<?> data = getDataProducer().createTransactionOperationData(transaction,
+        final IReplicationPacketData<?> data = getDataProducer().createTransactionOperationData(transaction,
                 lockedEntries,
                 groupContext.getEntireContext(),
                 operationType);
         if (data.isEmpty())
             return null;
 
-        _rwLock.writeLock().lock();
-        try {
+        return appendToBacklog(new BacklogAppendCombiner.AppendOperation<IMultiBucketSingleFileReplicationOrderedPacket>() {
+            @Override
+            public IMultiBucketSingleFileReplicationOrderedPacket append() {
+                return insertTransactionPacketUnsafe(data, groupContext.getEntireContext());
+            }
+        });
+    }
 
-            setPacketWeight(data);
-
-            if (!shouldInsertPacket(data))
-                return null;
-
-            // Optimization if transaction only participate in one bucket, we
-            // can send s single bucket operation packet
-            // instead
-            boolean firstEntryData = true;
-            short singleBucketIndex = 0; // Avoid compilation error, will always
-            // be
-            // set at first iteration
-            long singleBucketKey = 0; // Avoid compilation error, will always be
-            // set at first iteration
-            ShortObjectMap<BucketKey> bucketsKeys = null;
-            for (IReplicationPacketEntryData entryData : data) {
-                if (firstEntryData) {
-                    singleBucketIndex = extractBucketIndex(entryData);
-                    // Get key from bucket
-                    singleBucketKey = _bucketLastKeys[singleBucketIndex];
-                    _bucketLastKeys[singleBucketIndex] = singleBucketKey + 1;
-                    firstEntryData = false;
-                } else {
-                    short bucketIndex = extractBucketIndex(entryData);
-                    if (bucketIndex == singleBucketIndex)
-                        continue;
-
-                    // If we reached here, optimization is cancelled, we have
-                    // more than one bucket
-                    if (bucketsKeys == null) {
-                        // Put already existing bucket in the buckets keys map
-                        bucketsKeys = CollectionsFactory.getInstance().createShortObjectMap();
-                        bucketsKeys.put(singleBucketIndex,
-                                new BucketKey(singleBucketKey));
-                    }
-
-                    if (bucketsKeys.containsKey(bucketIndex))
-                        continue;
-
-                    // Get key from bucket
-                    long key = _bucketLastKeys[bucketIndex];
-                    _bucketLastKeys[bucketIndex] = key + 1;
-
-                    bucketsKeys.put(bucketIndex, new BucketKey(key));
+    private IMultiBucketSingleFileReplicationOrderedPacket insertTransactionPacketUnsafe(
+            IReplicationPacketData<?> data, ReplicationOutContext outContext) {
+        setPacketWeight(data);
+
+        if (!shouldInsertPacket(data))
+            return null;
+
+        // Optimization if transaction only participate in one bucket, we
+        // can send s single bucket operation packet
+        // instead
+        boolean firstEntryData = true;
+        short singleBucketIndex = 0; // Avoid compilation error, will always
+        // be
+        // set at first iteration
+        long singleBucketKey = 0; // Avoid compilation error, will always be
+        // set at first iteration
+        ShortObjectMap<BucketKey> bucketsKeys = null;
+        for (IReplicationPacketEntryData entryData : data) {
+            if (firstEntryData) {
+                singleBucketIndex = extractBucketIndex(entryData);
+                // Get key from bucket
+                singleBucketKey = _bucketLastKeys[singleBucketIndex];
+                _bucketLastKeys[singleBucketIndex] = singleBucketKey + 1;
+                firstEntryData = false;
+            } else {
+                short bucketIndex = extractBucketIndex(entryData);
+                if (bucketIndex == singleBucketIndex)
+                    continue;
+
+                // If we reached here, optimization is cancelled, we have
+                // more than one bucket
+                if (bucketsKeys == null) {
+                    // Put already existing bucket in the buckets keys map
+                    bucketsKeys = CollectionsFactory.getInstance().createShortObjectMap();
+                    bucketsKeys.put(singleBucketIndex,
+                            new BucketKey(singleBucketKey));
                 }
-            }
 
-            // Protect from empty transaction
-            if (firstEntryData)
-                throw new IllegalArgumentException("cannot add an empty transaction to replication backlog");
-            // Must create multiple bucker packet
-            IMultiBucketSingleFileReplicationOrderedPacket packet;
-            if (bucketsKeys != null) {
-                // Wrap data with packet, add to backlog and context
-                packet = new MultipleBucketOrderedPacket(takeNextKeyUnsafe(groupContext.getEntireContext()),
-                        bucketsKeys,
-                        data);
-            }
-            // Only one bucket participate, we can optimize
-            else {
-                packet = new SingleBucketOrderedPacket(takeNextKeyUnsafe(groupContext.getEntireContext()),
-                        singleBucketKey,
-                        singleBucketIndex,
-                        data);
-            }
+                if (bucketsKeys.containsKey(bucketIndex))
+                    continue;
 
-            insertPacketToBacklog(packet, groupContext.getEntireContext());
+                // Get key from bucket
+                long key = _bucketLastKeys[bucketIndex];
+                _bucketLastKeys[bucketIndex] = key + 1;
 
-            return packet;
-        } finally {
-            _rwLock.writeLock().unlock();
+                bucketsKeys.put(bucketIndex, new BucketKey(key));
+            }
+        }
+
+        // Protect from empty transaction
+        if (firstEntryData)
+            throw new IllegalArgumentException("cannot add an empty transaction to replication backlog");
+        // Must create multiple bucker packet
+        IMultiBucketSingleFileReplicationOrderedPacket packet;
+        if (bucketsKeys != null) {
+            // Wrap data with packet, add to backlog and context
+            packet = new MultipleBucketOrderedPacket(takeNextKeyUnsafe(outContext),
+                    bucketsKeys,
+                    data);
         }
+        // Only one bucket participate, we can optimize
+        else {
+            packet = new SingleBucketOrderedPacket(takeNextKeyUnsafe(outContext),
+                    singleBucketKey,
+                    singleBucketIndex,
+                    data);
+        }
+
+        insertPacketToBacklog(packet, outContext);
+
+        return packet;
     }
 
     private void insertPacketToBacklog(
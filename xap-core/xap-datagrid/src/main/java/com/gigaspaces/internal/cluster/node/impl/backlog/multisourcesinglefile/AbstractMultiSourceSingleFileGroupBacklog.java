@@ -21,6 +21,7 @@ import com.gigaspaces.internal.cluster.node.impl.ReplicationMultipleOperationTyp
 import com.gigaspaces.internal.cluster.node.impl.ReplicationOutContext;
 import com.gigaspaces.internal.cluster.node.impl.ReplicationSingleOperationType;
 import com.gigaspaces.internal.cluster.node.impl.backlog.AbstractSingleFileGroupBacklog;
+import com.gigaspaces.internal.cluster.node.impl.backlog.BacklogAppendCombiner;
 import com.gigaspaces.internal.cluster.node.impl.backlog.CompletedHandshakeContext;
 import com.gigaspaces.internal.cluster.node.impl.backlog.EmptyIdleStateData;
 import com.gigaspaces.internal.cluster.node.impl.backlog.IBacklogHandshakeRequest;
@@ -361,8 +362,17 @@ public abstract class AbstractMultiSourceSingleFileGroupBacklog extends Abstract
     }
 
     private GlobalOrderOperationPacket insertPacketToBacklog(
+            final IReplicationPacketData<?> data, final ReplicationOutContext outContext) {
+        return appendToBacklog(new BacklogAppendCombiner.AppendOperation<GlobalOrderOperationPacket>() {
+            @Override
+            public GlobalOrderOperationPacket append() {
+                return insertPacketToBacklogUnsafe(data, outContext);
+            }
+        });
+    }
+
+    private GlobalOrderOperationPacket insertPacketToBacklogUnsafe(
             IReplicationPacketData<?> data, ReplicationOutContext outContext) {
-        _rwLock.writeLock().lock();
         try {
 
             setPacketWeight(data);
@@ -387,8 +397,6 @@ public abstract class AbstractMultiSourceSingleFileGroupBacklog extends Abstract
                         e);
             validateIntegrity();
             throw e;
-        } finally {
-            _rwLock.writeLock().unlock();
         }
     }
 
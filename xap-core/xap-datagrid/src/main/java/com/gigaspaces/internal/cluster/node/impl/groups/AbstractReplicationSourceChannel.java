@@ -541,6 +541,19 @@ public abstract class AbstractReplicationSourceChannel
         beginSynchronizing(false);
     }
 
+    public synchronized boolean resumeSynchronizing(long lastProcessedKey)
+            throws CannotExecuteSynchronizeReplicaException {
+        if (pingTarget())
+            throw new CannotExecuteSynchronizeReplicaException("replication group ["
+                    + getGroupName()
+                    + "] has a connected channel to ["
+                    + getMemberName() + "]");
+        if (!getGroupBacklog().resumeSynchronizing(getMemberName(), lastProcessedKey))
+            return false;
+        _synchronizing = true;
+        return true;
+    }
+
     public synchronized void stopSynchronization() {
         if (!_synchronizing)
             return;
@@ -632,22 +645,36 @@ public abstract class AbstractReplicationSourceChannel
 
     protected Future replicateAsync(List<IReplicationOrderedPacket> packets)
             throws RemoteException {
+        return replicateAsync(packets, null);
+    }
+
+    /**
+     * Replicate given packets asynchronously, the given listener (if not null) is notified once
+     * the result of the replication is received
+     */
+    protected Future replicateAsync(List<IReplicationOrderedPacket> packets, IAsyncReplicationListener listener)
+            throws RemoteException {
         if (packets == null || packets.isEmpty())
             return CompletedFuture.INSTANCE;
 
         boolean containsDiscardedPacket = invokeBeforeReplicatingChannelDataFilter(packets);
 
-        return replicateBatchAsyncAfterChannelFilter(packets, null, containsDiscardedPacket);
+        return replicateBatchAsyncAfterChannelFilter(packets, listener, containsDiscardedPacket);
     }
 
     protected Future replicateAsync(IReplicationOrderedPacket packet)
             throws RemoteException {
+        return replicateAsync(packet, null);
+    }
+
+    protected Future replicateAsync(IReplicationOrderedPacket packet, IAsyncReplicationListener listener)
+            throws RemoteException {
         if (packet == null)
             return CompletedFuture.INSTANCE;
 
         packet = invokeBeforeReplicatingChannelDataFilter(packet);
 
-        return replicateAsyncAfterChannelFilter(packet);
+        return replicateAsyncAfterChannelFilter(packet, listener);
     }
 
     private int replicateBatchAfterChannelFilter(
@@ -953,7 +980,7 @@ public abstract class AbstractReplicationSourceChannel
     }
 
     private Future replicateAsyncAfterChannelFilter(
-            IReplicationOrderedPacket packet) throws RemoteException {
+            IReplicationOrderedPacket packet, final IAsyncReplicationListener listener) throws RemoteException {
         final IReplicationOrderedPacket finalPacket = invokeOutputFilterIfNeeded(packet);
         if (_specificLogger.isTraceEnabled())
             _specificLogger.trace("Replicating filtered packet: "
@@ -968,12 +995,14 @@ public abstract class AbstractReplicationSourceChannel
             final ReplicateFuture resultFuture = new ReplicateFuture();
             processResultFuture.setListener(new AsyncFutureListener<Object>() {
                 public void onResult(AsyncResult<Object> wiredResult) {
+                    Throwable error = null;
+                    IProcessResult processResult = null;
                     try {
                         Exception exception = wiredResult.getException();
                         if (exception != null)
                             throw exception;
 
-                        IProcessResult processResult = _groupBacklog.fromWireForm(wiredResult.getResult());
+                        processResult = _groupBacklog.fromWireForm(wiredResult.getResult());
 
                         logProcessResultIfNecessary(processResult, finalPacket);
 
@@ -985,11 +1014,18 @@ public abstract class AbstractReplicationSourceChannel
                         _statisticsCounter.increment();
                         resultFuture.releaseOk();
                     } catch (Throwable t) {
+                        error = t;
                         trackPendingErrorIfNeeded(t, finalPacket);
                         onAsyncReplicateErrorResult(t, finalPacket);
                         resultFuture.releaseError(t);
                     } finally {
                         replicatedDataPacketResource.release();
+                        if (listener != null) {
+                            if (error != null)
+                                listener.onReplicateFailed(error);
+                            else
+                                listener.onReplicateSucceeded(processResult);
+                        }
                     }
                 }
 
@@ -299,6 +299,12 @@ public abstract class AbstractReplicationSourceGroup<T extends SourceGroupConfig
         beginSynchronizing(synchronizingMemberLookupName, synchronizingSourceUniqueId, false);
     }
 
+    public boolean resumeSynchronizing(String synchronizingMemberLookupName,
+                                       Object synchronizingSourceUniqueId, long lastProcessedKey) {
+        AbstractReplicationSourceChannel channel = getChannelSafe(synchronizingMemberLookupName);
+        return channel.resumeSynchronizing(lastProcessedKey);
+    }
+
     protected AbstractReplicationSourceChannel getChannelSafe(
             String synchronizingMemberLookupName) {
         AbstractReplicationSourceChannel channel = _channels.get(synchronizingMemberLookupName);
@@ -39,6 +39,7 @@ import com.gigaspaces.logger.Constants;
 import com.j_spaces.core.exception.ClosedResourceException;
 
 import java.util.Arrays;
+import java.util.Collection;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -133,6 +134,10 @@ public abstract class AbstractReplicationTargetGroup
         return _channels.get(sourceMemberLookupName);
     }
 
+    public Collection<AbstractReplicationTargetChannel> getChannels() {
+        return _channels.values();
+    }
+
     public synchronized ConnectChannelHandshakeResponse connectChannel(
             RouterStubHolder sourceRouterStubHolder,
             ConnectChannelHandshakeRequest handshakeRequest) {
@@ -202,6 +207,9 @@ public abstract class AbstractReplicationTargetGroup
         // Close previous channel if exists
         if (previousChannel != null)
             previousChannel.close(_channelCloseTimeout, TimeUnit.SECONDS);
+        // Notified once the previous channel is closed, so its resources are released first
+        if (_listener != null)
+            _listener.onTargetChannelCreated(getGroupName(), sourceRouterStubHolder.getMyEndpointDetails().getLookupName(), channel.getProcessLog());
         // Handshake is successful
         // Failed handshake should throw an exception
         return channel;
@@ -96,6 +96,17 @@ public interface IReplicationSourceGroup {
 
     void beginSynchronizing(String synchronizingMemberLookupName, Object synchronizingSourceUniqueId, boolean isDirectPersistencySync);
 
+    /**
+     * Signal this source group that one of its channel is now used for space synchronization
+     * replica of a member which already holds the data up to the specified key of this group
+     * backlog
+     *
+     * @return false if the backlog no longer holds all the packets which follow the specified key,
+     * in which case a regular synchronization should be used
+     * @since 16.0
+     */
+    boolean resumeSynchronizing(String synchronizingMemberLookupName, Object synchronizingSourceUniqueId, long lastProcessedKey);
+
     /**
      * During synchronization process, notify the channel specified by the target name, that a sync
      * data was generated in order for it to know to filter older data when replicating to target
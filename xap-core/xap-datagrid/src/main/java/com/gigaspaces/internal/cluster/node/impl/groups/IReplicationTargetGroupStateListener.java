@@ -18,6 +18,7 @@ package com.gigaspaces.internal.cluster.node.impl.groups;
 
 import com.gigaspaces.cluster.replication.IncomingReplicationOutOfSyncException;
 import com.gigaspaces.internal.cluster.node.impl.backlog.IBacklogMemberState;
+import com.gigaspaces.internal.cluster.node.impl.processlog.IReplicationTargetProcessLog;
 
 /**
  * Note to implementers: The methods of this interface will be called under replication locks If A
@@ -52,6 +53,13 @@ public interface IReplicationTargetGroupStateListener {
     void onTargetChannelSourceDisconnected(String groupName,
                                            String sourceMemberName, Object sourceUniqueId);
 
+    /**
+     * Called when a new target channel was created, before its handshake is completed
+     */
+    default void onTargetChannelCreated(String groupName, String sourceMemberName,
+                                        IReplicationTargetProcessLog processLog) {
+    }
+
     /**
      * Called when a target channel is connected/created
      */
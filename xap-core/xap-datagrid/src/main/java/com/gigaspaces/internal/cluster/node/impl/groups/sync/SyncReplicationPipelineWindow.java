@@ -0,0 +1,122 @@
+/*
+ * Copyright (c) 2008-2016, GigaSpaces Technologies, Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.gigaspaces.internal.cluster.node.impl.groups.sync;
+
+import com.gigaspaces.internal.cluster.node.impl.groups.IAsyncReplicationListener;
+import com.gigaspaces.internal.cluster.node.impl.processlog.IProcessResult;
+
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Bounds the number of batches a synchronous channel has dispatched to its target and not yet
+ * received a result for.
+ * <p>
+ * Operations of different threads are dispatched without waiting for each other, the target
+ * processes the packets by their key order and holds each caller until its own packets were
+ * processed. The window limits how many such unacknowledged batches are in flight, the timeout
+ * bounds a single wait for a slot so the caller can report the wait and check its state.
+ *
+ * @since 16.0
+ */
+@com.gigaspaces.api.InternalApi
+public class SyncReplicationPipelineWindow {
+    private final int _size;
+    private final long _timeout;
+    private final Semaphore _permits;
+    private final LongAdder _overflows = new LongAdder();
+
+    /**
+     * @param size    the maximal number of unacknowledged batches
+     * @param timeout the time in milliseconds to wait for a slot
+     */
+    public SyncReplicationPipelineWindow(int size, long timeout) {
+        if (size <= 0)
+            throw new IllegalArgumentException("Pipeline window size must be positive [" + size + "]");
+        _size = size;
+        _timeout = timeout;
+        _permits = new Semaphore(size);
+    }
+
+    /**
+     * @return a slot which should be released once the result of the batch is received, or null if
+     * the window remained full during the timeout
+     */
+    public Slot acquire() {
+        boolean acquired;
+        try {
+            acquired = _permits.tryAcquire(_timeout, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            acquired = false;
+        }
+        if (!acquired) {
+            _overflows.increment();
+            return null;
+        }
+        return new Slot();
+    }
+
+    public int getSize() {
+        return _size;
+    }
+
+    public int getInFlight() {
+        return _size - _permits.availablePermits();
+    }
+
+    /**
+     * @return the number of times the wait of a caller for a slot timed out
+     */
+    public long getOverflows() {
+        return _overflows.sum();
+    }
+
+    @Override
+    public String toString() {
+        return "in-flight [" + getInFlight() + "/" + _size + "], overflows [" + getOverflows() + "]";
+    }
+
+    /**
+     * A slot of the window, released once either explicitly or by the result of an asynchronous
+     * replication.
+     */
+    public final class Slot implements IAsyncReplicationListener {
+        private final AtomicBoolean _released = new AtomicBoolean();
+
+        private Slot() {
+        }
+
+        public void release() {
+            if (_released.compareAndSet(false, true))
+                _permits.release();
+        }
+
+        @Override
+        public void onReplicateFailed(Throwable error) {
+            release();
+        }
+
+        @Override
+        public void onReplicateSucceeded(IProcessResult processResult) {
+            release();
+        }
+    }
+}
@@ -25,6 +25,7 @@ import com.gigaspaces.internal.cluster.node.impl.config.DynamicSourceGroupConfig
 import com.gigaspaces.internal.cluster.node.impl.filters.IReplicationOutFilter;
 import com.gigaspaces.internal.cluster.node.impl.groups.AbstractReplicationSourceChannel;
 import com.gigaspaces.internal.cluster.node.impl.groups.CompletedFuture;
+import com.gigaspaces.internal.cluster.node.impl.groups.IAsyncReplicationListener;
 import com.gigaspaces.internal.cluster.node.impl.groups.IReplicationChannelDataFilter;
 import com.gigaspaces.internal.cluster.node.impl.groups.IReplicationGroupHistory;
 import com.gigaspaces.internal.cluster.node.impl.groups.IReplicationSourceGroupStateListener;
@@ -38,9 +39,12 @@ import com.gigaspaces.internal.utils.concurrent.IAsyncHandler;
 import com.gigaspaces.internal.utils.concurrent.IAsyncHandlerProvider;
 import com.gigaspaces.internal.utils.concurrent.IAsyncHandlerProvider.CycleResult;
 import com.gigaspaces.logger.LogLevel;
+import com.gigaspaces.metrics.Gauge;
+import com.gigaspaces.metrics.MetricRegistrator;
 import com.j_spaces.core.filters.ReplicationStatistics.ReplicationMode;
 import com.j_spaces.core.filters.ReplicationStatistics.ReplicationOperatingMode;
 import com.j_spaces.kernel.JSpaceUtilities;
+import com.j_spaces.kernel.SystemProperties;
 
 import java.rmi.RemoteException;
 import java.util.List;
@@ -66,6 +70,7 @@ public class SyncReplicationSourceChannel
     private IMarker _asyncMinimalCompletionMarker;
     private IMarker _beginOfSyncStateMarker;
     private volatile Throwable _unresolvedError;
+    private final SyncReplicationPipelineWindow _pipelineWindow;
 
     public SyncReplicationSourceChannel(
             DynamicSourceGroupConfigHolder groupConfig, String groupName,
@@ -100,6 +105,11 @@ public class SyncReplicationSourceChannel
         _asyncStateBatchSize = asyncStateBatchSize;
         _idleDelayMilis = idleDelayMilis;
         _syncState = true;
+        final int pipelineWindowSize = Integer.getInteger(SystemProperties.REPLICATION_SYNC_PIPELINE_WINDOW,
+                SystemProperties.REPLICATION_SYNC_PIPELINE_WINDOW_DEFAULT);
+        _pipelineWindow = pipelineWindowSize > 0 ? new SyncReplicationPipelineWindow(pipelineWindowSize,
+                Long.getLong(SystemProperties.REPLICATION_SYNC_PIPELINE_WINDOW_TIMEOUT,
+                        SystemProperties.REPLICATION_SYNC_PIPELINE_WINDOW_TIMEOUT_DEFAULT)) : null;
         // After all is initialized we can let the super class to start since it
         // will perform operations that can delegate onConnected/onDisconnected
         // events
@@ -125,13 +135,32 @@ public class SyncReplicationSourceChannel
             if (delegateToAsyncRunner(context.size()))
                 return CompletedFuture.INSTANCE;
         }
+        if (_pipelineWindow == null)
+            return executeAsync(context, null);
+
+        final SyncReplicationPipelineWindow.Slot slot = acquirePipelineWindowSlot();
+        if (slot == null)
+            return CompletedFuture.INSTANCE;
+        Future<?> future = null;
+        try {
+            future = executeAsync(context, slot);
+            return future;
+        } finally {
+            // The slot is released by the result of the replication unless nothing was dispatched
+            if (future == null || future.isDone())
+                slot.release();
+        }
+    }
+
+    private Future<?> executeAsync(ISyncReplicationGroupOutContext context,
+                                   IAsyncReplicationListener listener) {
         try {
             if (context.isSinglePacket()) {
                 IReplicationOrderedPacket packet = context.getSinglePacket();
-                return replicateAsync(packet);
+                return replicateAsync(packet, listener);
             } else {
                 final List<IReplicationOrderedPacket> packets = context.getOrderedPackets();
-                return replicateAsync(packets);
+                return replicateAsync(packets, listener);
             }
         } catch (RemoteException e) {
             if (_specificLogger.isDebugEnabled()) {
@@ -205,6 +234,20 @@ public class SyncReplicationSourceChannel
             if (delegateToAsyncRunner(context.size()))
                 return 0;
         }
+        if (_pipelineWindow == null)
+            return executeSync(context);
+
+        final SyncReplicationPipelineWindow.Slot slot = acquirePipelineWindowSlot();
+        if (slot == null)
+            return 0;
+        try {
+            return executeSync(context);
+        } finally {
+            slot.release();
+        }
+    }
+
+    private int executeSync(ISyncReplicationGroupOutContext context) {
         try {
             if (context.isSinglePacket()) {
                 IReplicationOrderedPacket packet = context.getSinglePacket();
@@ -254,6 +297,35 @@ public class SyncReplicationSourceChannel
         return 0;
     }
 
+    /**
+     * Blocks the caller until a slot of the pipeline window is released, the synchronous guarantee
+     * is kept by holding back the caller rather than leaving its packets to the async state.
+     *
+     * @return a slot of the pipeline window, or null if the channel moved to async state while
+     * waiting or the caller was interrupted, in which case the packets are resent from the backlog
+     * by the async dispatcher
+     */
+    private SyncReplicationPipelineWindow.Slot acquirePipelineWindowSlot() {
+        while (true) {
+            SyncReplicationPipelineWindow.Slot slot = _pipelineWindow.acquire();
+            if (slot != null)
+                return slot;
+            if (Thread.currentThread().isInterrupted()) {
+                if (_specificLogger.isWarnEnabled())
+                    _specificLogger.warn("interrupted while waiting for a slot of the pipeline window, delegating to async state");
+                moveToAsyncIfNeeded();
+                return null;
+            }
+            // Moved to async state by a failure of an in flight batch, the async dispatcher resends the packets
+            if (!_syncState)
+                return null;
+            if (_specificLogger.isWarnEnabled())
+                _specificLogger.warn("pipeline window of "
+                        + _pipelineWindow.getSize()
+                        + " unacknowledged batches is full, the caller keeps waiting for a slot [" + _pipelineWindow + "]");
+        }
+    }
+
     private LogLevel getExceptionLogLevel(Throwable rootCauseException) {
         if (rootCauseException instanceof ReplicationConsumeTimeoutException)
             return LogLevel.WARNING;
@@ -577,10 +649,30 @@ public class SyncReplicationSourceChannel
             return ReplicationOperatingMode.ASYNC;
     }
 
+    @Override
+    public void registerWith(MetricRegistrator metricRegister) {
+        super.registerWith(metricRegister);
+        if (_pipelineWindow == null)
+            return;
+        metricRegister.register("pipeline-inflight-batches", new Gauge<Integer>() {
+            @Override
+            public Integer getValue() throws Exception {
+                return _pipelineWindow.getInFlight();
+            }
+        });
+        metricRegister.register("pipeline-window-overflows", new Gauge<Long>() {
+            @Override
+            public Long getValue() throws Exception {
+                return _pipelineWindow.getOverflows();
+            }
+        });
+    }
+
     @Override
     public String onDumpState() {
         return StringUtils.NEW_LINE + "mode ["
-                + (isSync() ? "SYNC]" : "ASYNC]");
+                + (isSync() ? "SYNC]" : "ASYNC]")
+                + (_pipelineWindow != null ? StringUtils.NEW_LINE + "pipeline window " + _pipelineWindow : "");
     }
 
 }
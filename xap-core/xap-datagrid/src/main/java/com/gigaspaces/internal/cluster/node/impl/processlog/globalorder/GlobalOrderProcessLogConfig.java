@@ -22,10 +22,21 @@ import com.gigaspaces.internal.cluster.node.impl.processlog.ProcessLogConfig;
 public class GlobalOrderProcessLogConfig
         extends ProcessLogConfig {
 
+    //Number of lanes the packets of the channel are applied in, by the hash of the entry uid, 1 applies the packets one by one
+    private int _parallelApplyLanes = Integer.getInteger("com.gs.replication.target.parallel-apply-lanes", 1);
+
+    public int getParallelApplyLanes() {
+        return _parallelApplyLanes;
+    }
+
+    public void setParallelApplyLanes(int parallelApplyLanes) {
+        _parallelApplyLanes = parallelApplyLanes;
+    }
+
     @Override
     public String toString() {
         return "GlobalOrderProcessLogConfig [_consumeTimeout="
-                + getConsumeTimeout() + "]";
+                + getConsumeTimeout() + ", _parallelApplyLanes=" + _parallelApplyLanes + "]";
     }
 
 
@@ -0,0 +1,321 @@
+/*
+ * Copyright (c) 2008-2016, GigaSpaces Technologies, Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.gigaspaces.internal.cluster.node.impl.processlog.globalorder;
+
+import com.gigaspaces.internal.cluster.node.impl.ReplicationInContext;
+import com.gigaspaces.internal.cluster.node.impl.backlog.globalorder.GlobalOrderOperationPacket;
+import com.gigaspaces.internal.cluster.node.impl.packets.IReplicationOrderedPacket;
+import com.gigaspaces.internal.cluster.node.impl.packets.data.IReplicationPacketData;
+import com.gigaspaces.internal.cluster.node.impl.packets.data.IReplicationPacketEntryData;
+import com.gigaspaces.internal.cluster.node.impl.processlog.AbstractSingleFileTargetProcessLog;
+import com.j_spaces.kernel.threadpool.DynamicExecutors;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Applies consecutive packets of a global order process log in parallel lanes. Non transactional
+ * operations on a single entry are assigned to a lane by the hash of the entry uid, so the
+ * operations on each entry are applied in the order of the packets, while the other packets
+ * (transactions, type introductions, discarded packets etc.) are applied alone, once all the
+ * packets which precede them were applied.
+ *
+ * @since 16.0
+ */
+@com.gigaspaces.api.InternalApi
+public class GlobalOrderProcessLogLanes {
+
+    private final Lane[] _lanes;
+    private final ExecutorService _executorService;
+
+    public GlobalOrderProcessLogLanes(int lanesCount, AbstractSingleFileTargetProcessLog processLog) {
+        _lanes = new Lane[lanesCount];
+        for (int i = 0; i < lanesCount; i++)
+            _lanes[i] = new Lane(processLog.createReplicationInContext());
+        // The first lane is applied by the processing thread
+        _executorService = DynamicExecutors.newScalingThreadPool(1, lanesCount - 1, 10000);
+    }
+
+    public int getLanesCount() {
+        return _lanes.length;
+    }
+
+    /**
+     * @return whether the packet can be applied concurrently with packets of other entries
+     */
+    public static boolean isLaneApplicable(IReplicationOrderedPacket packet) {
+        if (!(packet instanceof GlobalOrderOperationPacket) || !packet.isDataPacket())
+            return false;
+        IReplicationPacketData<?> data = packet.getData();
+        if (data == null || !data.isSingleEntryData())
+            return false;
+        IReplicationPacketEntryData entryData = data.getSingleEntryData();
+        if (entryData == null || entryData.getUid() == null)
+            return false;
+        switch (entryData.getOperationType()) {
+            case WRITE:
+            case UPDATE:
+            case CHANGE:
+            case REMOVE_ENTRY:
+            case EVICT:
+            case CANCEL_LEASE:
+            case EXTEND_ENTRY_LEASE:
+            case ENTRY_LEASE_EXPIRED:
+                return true;
+            default:
+                return false;
+        }
+    }
+
+    /**
+     * Applies the given consecutive packets, which should all be {@link
+     * #isLaneApplicable(IReplicationOrderedPacket) lane applicable}, and waits until all the lanes
+     * are done. Each lane stops at the first packet it failed to apply.
+     *
+     * @return the packets which were applied, in the order of the given packets, which are all the
+     * packets unless an error is thrown
+     * @throws ParallelApplyException if any of the packets failed, holding the applied packets that
+     *                                precede the first failed packet, and the packets that follow it
+     *                                which were applied by the other lanes
+     */
+    public List<IReplicationOrderedPacket> apply(List<IReplicationOrderedPacket> packets, PacketApplier applier)
+            throws ParallelApplyException {
+        List<IReplicationOrderedPacket>[] segments = split(packets);
+        int activeLanes = 0;
+        for (List<IReplicationOrderedPacket> segment : segments) {
+            if (segment != null)
+                activeLanes++;
+        }
+
+        final CountDownLatch completion = new CountDownLatch(activeLanes);
+        int callerLane = -1;
+        for (int i = 0; i < segments.length; i++) {
+            if (segments[i] == null)
+                continue;
+            // The processing thread applies the first active lane by itself
+            if (callerLane == -1) {
+                callerLane = i;
+                continue;
+            }
+            submit(_lanes[i], segments[i], applier, completion);
+        }
+        _lanes[callerLane].apply(segments[callerLane], applier);
+        completion.countDown();
+        awaitUninterruptibly(completion);
+
+        return collectApplied(packets, segments);
+    }
+
+    private void submit(final Lane lane, final List<IReplicationOrderedPacket> segment, final PacketApplier applier,
+                        final CountDownLatch completion) {
+        try {
+            _executorService.submit(new Runnable() {
+                public void run() {
+                    try {
+                        lane.apply(segment, applier);
+                    } finally {
+                        completion.countDown();
+                    }
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            lane.fail(segment, e);
+            completion.countDown();
+        }
+    }
+
+    private List<IReplicationOrderedPacket>[] split(List<IReplicationOrderedPacket> packets) {
+        @SuppressWarnings("unchecked")
+        List<IReplicationOrderedPacket>[] segments = new List[_lanes.length];
+        for (IReplicationOrderedPacket packet : packets) {
+            final int laneIndex = laneIndex(packet);
+            if (segments[laneIndex] == null)
+                segments[laneIndex] = new ArrayList<IReplicationOrderedPacket>();
+            segments[laneIndex].add(packet);
+            _lanes[laneIndex]._queueDepth.incrementAndGet();
+        }
+        return segments;
+    }
+
+    private List<IReplicationOrderedPacket> collectApplied(List<IReplicationOrderedPacket> packets,
+                                                           List<IReplicationOrderedPacket>[] segments) throws ParallelApplyException {
+        Lane failedLane = null;
+        for (int i = 0; i < segments.length; i++) {
+            Lane lane = _lanes[i];
+            if (segments[i] == null || lane._failedKey == -1)
+                continue;
+            if (failedLane == null || lane._failedKey < failedLane._failedKey)
+                failedLane = lane;
+        }
+        if (failedLane == null)
+            return packets;
+
+        // All the packets that precede the first failed packet were applied, since each lane
+        // applies its packets in order and stops only at its own failure. A packet that follows it
+        // was applied unless its lane failed at it or at a preceding packet of the lane
+        final long failedKey = failedLane._failedKey;
+        final Throwable error = failedLane._error;
+        List<IReplicationOrderedPacket> applied = new ArrayList<IReplicationOrderedPacket>();
+        List<IReplicationOrderedPacket> appliedAhead = new ArrayList<IReplicationOrderedPacket>();
+        for (IReplicationOrderedPacket packet : packets) {
+            if (packet.getKey() < failedKey) {
+                applied.add(packet);
+                continue;
+            }
+            final long laneFailedKey = _lanes[laneIndex(packet)]._failedKey;
+            if (laneFailedKey == -1 || packet.getKey() < laneFailedKey)
+                appliedAhead.add(packet);
+        }
+        for (int i = 0; i < segments.length; i++)
+            _lanes[i].clearFailure();
+        throw new ParallelApplyException(error, applied, appliedAhead);
+    }
+
+    private int laneIndex(IReplicationOrderedPacket packet) {
+        return (packet.getData().getSingleEntryData().getUid().hashCode() & Integer.MAX_VALUE) % _lanes.length;
+    }
+
+    private static void awaitUninterruptibly(CountDownLatch latch) {
+        // The caller may only proceed once no lane applies packets anymore
+        boolean interrupted = false;
+        while (true) {
+            try {
+                latch.await();
+                break;
+            } catch (InterruptedException e) {
+                interrupted = true;
+            }
+        }
+        if (interrupted)
+            Thread.currentThread().interrupt();
+    }
+
+    /**
+     * @return the number of packets which were assigned to the lane and were not applied yet
+     */
+    public int getQueueDepth(int lane) {
+        return _lanes[lane]._queueDepth.get();
+    }
+
+    public long getAppliedPackets(int lane) {
+        return _lanes[lane]._appliedPackets.sum();
+    }
+
+    /**
+     * @return the average time in micros it took the lane to apply a packet
+     */
+    public double getAverageApplyTime(int lane) {
+        final long appliedPackets = _lanes[lane]._appliedPackets.sum();
+        return appliedPackets == 0 ? 0d : (double) _lanes[lane]._applyTime.sum() / appliedPackets / 1000;
+    }
+
+    public void close() {
+        _executorService.shutdown();
+    }
+
+    public String dumpState() {
+        StringBuilder dump = new StringBuilder("lanes [");
+        for (int i = 0; i < _lanes.length; i++) {
+            if (i > 0)
+                dump.append(", ");
+            dump.append("queue depth=").append(getQueueDepth(i)).append(" applied=").append(getAppliedPackets(i));
+        }
+        return dump.append("]").toString();
+    }
+
+    private static class Lane {
+        private final ReplicationInContext _context;
+        private final AtomicInteger _queueDepth = new AtomicInteger();
+        private final LongAdder _appliedPackets = new LongAdder();
+        private final LongAdder _applyTime = new LongAdder();
+        // Written by the lane and read by the processing thread once the lane is done
+        private long _failedKey = -1;
+        private Throwable _error;
+
+        private Lane(ReplicationInContext context) {
+            _context = context;
+        }
+
+        private void apply(List<IReplicationOrderedPacket> segment, PacketApplier applier) {
+            for (int i = 0; i < segment.size(); i++) {
+                IReplicationOrderedPacket packet = segment.get(i);
+                final long startTime = System.nanoTime();
+                try {
+                    applier.apply(_context, packet);
+                } catch (Throwable t) {
+                    fail(segment.subList(i, segment.size()), t);
+                    return;
+                }
+                _applyTime.add(System.nanoTime() - startTime);
+                _appliedPackets.increment();
+                _queueDepth.decrementAndGet();
+            }
+        }
+
+        private void fail(List<IReplicationOrderedPacket> notApplied, Throwable error) {
+            _failedKey = notApplied.get(0).getKey();
+            _error = error;
+            _queueDepth.addAndGet(-notApplied.size());
+        }
+
+        private void clearFailure() {
+            _failedKey = -1;
+            _error = null;
+        }
+    }
+
+    /**
+     * Applies a single packet using the given context, which is used only by the calling lane
+     */
+    public interface PacketApplier {
+        void apply(ReplicationInContext context, IReplicationOrderedPacket packet) throws Exception;
+    }
+
+    public static class ParallelApplyException extends Exception {
+        private static final long serialVersionUID = 1L;
+
+        private final List<IReplicationOrderedPacket> _appliedPackets;
+        private final List<IReplicationOrderedPacket> _appliedAheadPackets;
+
+        public ParallelApplyException(Throwable cause, List<IReplicationOrderedPacket> appliedPackets,
+                                      List<IReplicationOrderedPacket> appliedAheadPackets) {
+            super(cause);
+            _appliedPackets = appliedPackets;
+            _appliedAheadPackets = appliedAheadPackets;
+        }
+
+        /**
+         * @return the applied packets that precede the first failed packet
+         */
+        public List<IReplicationOrderedPacket> getAppliedPackets() {
+            return _appliedPackets;
+        }
+
+        /**
+         * @return the packets that follow the first failed packet and were applied by other lanes
+         */
+        public List<IReplicationOrderedPacket> getAppliedAheadPackets() {
+            return _appliedAheadPackets;
+        }
+    }
+}
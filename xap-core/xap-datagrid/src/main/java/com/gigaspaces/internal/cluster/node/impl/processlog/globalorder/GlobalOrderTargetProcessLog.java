@@ -28,6 +28,7 @@ import com.gigaspaces.internal.cluster.node.impl.packets.IReplicationOrderedPack
 import com.gigaspaces.internal.cluster.node.impl.packets.data.IDataConsumeFix;
 import com.gigaspaces.internal.cluster.node.impl.packets.data.IDataConsumeResult;
 import com.gigaspaces.internal.cluster.node.impl.packets.data.IReplicationPacketData;
+import com.gigaspaces.internal.cluster.node.impl.packets.data.BlobstoreReplicationPacketDataConsumer;
 import com.gigaspaces.internal.cluster.node.impl.packets.data.IReplicationPacketDataConsumer;
 import com.gigaspaces.internal.cluster.node.impl.processlog.IReplicationProcessLogExceptionHandler;
 import com.gigaspaces.internal.cluster.node.impl.processlog.ReplicationConsumeTimeoutException;
@@ -37,12 +38,17 @@ import com.gigaspaces.internal.collections.CollectionsFactory;
 import com.gigaspaces.internal.collections.LongObjectIterator;
 import com.gigaspaces.internal.collections.LongObjectMap;
 import com.gigaspaces.internal.utils.concurrent.ExchangeCountDownLatch;
+import com.gigaspaces.metrics.Gauge;
+import com.gigaspaces.metrics.MetricRegistrator;
 import com.j_spaces.core.exception.ClosedResourceException;
 
+import java.util.ArrayList;
 import java.util.Comparator;
+import java.util.HashSet;
 import java.util.Iterator;
 import java.util.List;
 import java.util.NoSuchElementException;
+import java.util.Set;
 import java.util.SortedSet;
 import java.util.TreeSet;
 import java.util.concurrent.TimeUnit;
@@ -54,10 +60,17 @@ public class GlobalOrderTargetProcessLog
         extends AbstractGlobalOrderTargetProcessLog
         implements IReplicationSyncTargetProcessLog,
         IReplicationAsyncTargetProcessLog {
+    private static final String LANE_METRIC_PREFIX = "lane-";
+
     private final SortedSet<IReplicationOrderedPacket> _packetsQueue;
     private final LongObjectMap<ExchangeCountDownLatch<Throwable>> _pendingPackets = CollectionsFactory.getInstance().createLongObjectMap();
 
     private final long _consumeTimeout;
+    private final GlobalOrderProcessLogLanes _lanes;
+    // Keys of packets that were applied by a lane while a preceding packet failed, they are not applied
+    // again once the failed packet is processed
+    private final Set<Long> _appliedAheadKeys = new HashSet<Long>();
+    private volatile MetricRegistrator _lanesMetricRegistrator;
 
     public GlobalOrderTargetProcessLog(
             GlobalOrderProcessLogConfig processLogConfig,
@@ -97,6 +110,9 @@ public class GlobalOrderTargetProcessLog
                 groupHistory);
         _consumeTimeout = processLogConfig.getConsumeTimeout();
         _packetsQueue = new TreeSet<IReplicationOrderedPacket>(new SharedOrderedPacketComparator());
+        // Blobstore bulks are flushed using the context of the process log, which is not shared with the lanes
+        _lanes = processLogConfig.getParallelApplyLanes() > 1 && !(dataConsumer instanceof BlobstoreReplicationPacketDataConsumer)
+                ? new GlobalOrderProcessLogLanes(processLogConfig.getParallelApplyLanes(), this) : null;
     }
 
     @Override
@@ -289,6 +305,9 @@ public class GlobalOrderTargetProcessLog
 
     protected boolean processPackets(String sourceLookupName, long myLastKey,
                                      IReplicationInFilterCallback filterInCallback) throws Exception {
+        if (_lanes != null)
+            return processPacketsInLanes(sourceLookupName, myLastKey, filterInCallback);
+
         for (Iterator<IReplicationOrderedPacket> iterator = _packetsQueue.iterator(); iterator.hasNext(); ) {
             IReplicationOrderedPacket packet = iterator.next();
             // We have a missing packet, break loop
@@ -311,59 +330,114 @@ public class GlobalOrderTargetProcessLog
 
             iterator.remove();
 
-            ExchangeCountDownLatch<Throwable> latch = _pendingPackets.remove(packet.getKey());
-            // Notify pending thread
-            if (latch != null)
-                latch.countDown(null);
+            releasePendingPacket(packet.getKey());
+        }
+        return true;
+    }
+
+    private boolean processPacketsInLanes(String sourceLookupName, long myLastKey,
+                                          IReplicationInFilterCallback filterInCallback) throws Exception {
+        while (!_packetsQueue.isEmpty()) {
+            List<IReplicationOrderedPacket> lanesBatch = collectLanesBatch();
+            if (lanesBatch.size() > 1) {
+                applyInLanes(sourceLookupName, lanesBatch, filterInCallback);
+                continue;
+            }
+
+            // The next packet is applied alone, once all the packets that precede it were applied
+            IReplicationOrderedPacket packet = _packetsQueue.first();
+            // We have a missing packet, break loop
+            if (packet.getKey() > _lastProcessedKey + 1)
+                return _lastProcessedKey >= myLastKey;
 
+            // Packets that were already processed (i.e resent during exception) may be kept in the pending queue
+            if (packet.getKey() == _lastProcessedKey + 1) {
+                processPacket(sourceLookupName,
+                        filterInCallback,
+                        getReplicationInContext(),
+                        packet,
+                        true);
+            }
+            _packetsQueue.remove(packet);
+            releasePendingPacket(packet.getKey());
         }
         return true;
     }
 
+    /**
+     * @return the consecutive packets at the head of the queue which can be applied in lanes
+     */
+    private List<IReplicationOrderedPacket> collectLanesBatch() {
+        List<IReplicationOrderedPacket> lanesBatch = new ArrayList<IReplicationOrderedPacket>();
+        long nextKey = _lastProcessedKey + 1;
+        for (IReplicationOrderedPacket packet : _packetsQueue) {
+            if (packet.getKey() != nextKey || !GlobalOrderProcessLogLanes.isLaneApplicable(packet)
+                    || _appliedAheadKeys.contains(packet.getKey()))
+                break;
+            lanesBatch.add(packet);
+            nextKey++;
+        }
+        return lanesBatch;
+    }
+
+    private void applyInLanes(final String sourceLookupName, List<IReplicationOrderedPacket> lanesBatch,
+                              final IReplicationInFilterCallback filterInCallback) throws Exception {
+        List<IReplicationOrderedPacket> appliedPackets;
+        Throwable error = null;
+        try {
+            appliedPackets = _lanes.apply(lanesBatch, new GlobalOrderProcessLogLanes.PacketApplier() {
+                @Override
+                public void apply(ReplicationInContext context, IReplicationOrderedPacket packet) throws Exception {
+                    context.setContextPacket(packet);
+                    context.setLastProcessedKey(packet.getKey() - 1);
+                    try {
+                        consumePacket(context, packet, filterInCallback, true);
+                    } finally {
+                        context.setContextPacket(null);
+                    }
+                }
+            });
+        } catch (GlobalOrderProcessLogLanes.ParallelApplyException e) {
+            appliedPackets = e.getAppliedPackets();
+            error = e.getCause();
+            for (IReplicationOrderedPacket packet : e.getAppliedAheadPackets())
+                _appliedAheadKeys.add(packet.getKey());
+        }
+
+        for (IReplicationOrderedPacket packet : appliedPackets) {
+            _lastProcessedKey = packet.getKey();
+            afterSuccessfulConsumption(sourceLookupName, packet);
+            _packetsQueue.remove(packet);
+            releasePendingPacket(packet.getKey());
+        }
+
+        if (error instanceof Exception)
+            throw (Exception) error;
+        if (error instanceof Error)
+            throw (Error) error;
+    }
+
+    private void releasePendingPacket(long key) {
+        ExchangeCountDownLatch<Throwable> latch = _pendingPackets.remove(key);
+        // Notify pending thread
+        if (latch != null)
+            latch.countDown(null);
+    }
+
     private void processPacket(String sourceLookupName,
                                IReplicationInFilterCallback filterInCallback,
                                ReplicationInContext context, IReplicationOrderedPacket packet,
                                boolean throwOnClosed) throws Exception {
+        if (!_appliedAheadKeys.isEmpty() && _appliedAheadKeys.remove(packet.getKey())) {
+            // The packet was applied by a lane while a preceding packet failed
+            _lastProcessedKey++;
+        }
         // We can process this packet, process and remove it.
-        if (preprocess(packet)) {
+        else if (preprocess(packet)) {
             context.setContextPacket(packet);
             context.setLastProcessedKey(_lastProcessedKey);
             try {
-                IReplicationPacketData<?> data = packet.getData();
-                // If there's a replication filter and should clone, clone the
-                // data
-                // packet before
-                // consumption
-                if (filterInCallback != null && shouldCloneOnFilter())
-                    data = data.clone();
-
-                IDataConsumeResult prevResult = null;
-
-                do {
-                    // If closed, reject immediately
-                    if (throwOnClosed && isClosed())
-                        throw new ClosedResourceException("Process log is closed");
-
-                    IDataConsumeResult consumeResult = getDataConsumer().consume(context,
-                            data,
-                            getReplicationInFacade(),
-                            filterInCallback);
-                    if (!consumeResult.isFailed())
-                        break;
-
-                    throwIfRepetitiveError(prevResult, consumeResult);
-                    if (_specificLogger.isDebugEnabled())
-                        _specificLogger.debug(
-                                "Encountered error while consuming packet ["
-                                        + packet
-                                        + "], trying to resolve issue",
-                                consumeResult.toException());
-                    IDataConsumeFix fix = getExceptionHandler().handleException(consumeResult, packet);
-                    data = getDataConsumer().applyFix(context, data, fix);
-                    if (_specificLogger.isDebugEnabled())
-                        _specificLogger.debug("Fix applied - retrying the operation [" + fix + "]");
-                    prevResult = consumeResult;
-                } while (true);
+                consumePacket(context, packet, filterInCallback, throwOnClosed);
                 _lastProcessedKey++;
             } finally {
                 //Clear packet from context
@@ -374,6 +448,45 @@ public class GlobalOrderTargetProcessLog
         afterSuccessfulConsumption(sourceLookupName, packet);
     }
 
+    private void consumePacket(ReplicationInContext context, IReplicationOrderedPacket packet,
+                               IReplicationInFilterCallback filterInCallback, boolean throwOnClosed) throws Exception {
+        IReplicationPacketData<?> data = packet.getData();
+        // If there's a replication filter and should clone, clone the
+        // data
+        // packet before
+        // consumption
+        if (filterInCallback != null && shouldCloneOnFilter())
+            data = data.clone();
+
+        IDataConsumeResult prevResult = null;
+
+        do {
+            // If closed, reject immediately
+            if (throwOnClosed && isClosed())
+                throw new ClosedResourceException("Process log is closed");
+
+            IDataConsumeResult consumeResult = getDataConsumer().consume(context,
+                    data,
+                    getReplicationInFacade(),
+                    filterInCallback);
+            if (!consumeResult.isFailed())
+                break;
+
+            throwIfRepetitiveError(prevResult, consumeResult);
+            if (_specificLogger.isDebugEnabled())
+                _specificLogger.debug(
+                        "Encountered error while consuming packet ["
+                                + packet
+                                + "], trying to resolve issue",
+                        consumeResult.toException());
+            IDataConsumeFix fix = getExceptionHandler().handleException(consumeResult, packet);
+            data = getDataConsumer().applyFix(context, data, fix);
+            if (_specificLogger.isDebugEnabled())
+                _specificLogger.debug("Fix applied - retrying the operation [" + fix + "]");
+            prevResult = consumeResult;
+        } while (true);
+    }
+
     protected void afterSuccessfulConsumption(String sourceLookupName,
                                               IReplicationOrderedPacket packet) {
         // Default do nothing
@@ -418,7 +531,8 @@ public class GlobalOrderTargetProcessLog
                 return "EMPTY";
             try {
                 IReplicationOrderedPacket first = _packetsQueue.first();
-                return "pending packets [" + _packetsQueue.size() + "], first packet [" + first.toString() + "]";
+                return "pending packets [" + _packetsQueue.size() + "], first packet [" + first.toString() + "]"
+                        + (_lanes != null ? ", " + _lanes.dumpState() : "");
             } catch (NoSuchElementException e) {
                 return "EMPTY";
             }
@@ -430,6 +544,41 @@ public class GlobalOrderTargetProcessLog
     @Override
     protected void onClose() {
         releasePendingWithError(new ClosedResourceException("Process log is closed"));
+        if (_lanes != null)
+            _lanes.close();
+        MetricRegistrator lanesMetricRegistrator = _lanesMetricRegistrator;
+        if (lanesMetricRegistrator != null)
+            lanesMetricRegistrator.unregisterByPrefix(LANE_METRIC_PREFIX);
+    }
+
+    public void registerWith(MetricRegistrator metricRegister) {
+        if (_lanes == null)
+            return;
+        // Replace the metrics of a previous process log of the source which was not closed gracefully
+        metricRegister.unregisterByPrefix(LANE_METRIC_PREFIX);
+        _lanesMetricRegistrator = metricRegister;
+        for (int i = 0; i < _lanes.getLanesCount(); i++) {
+            final int lane = i;
+            MetricRegistrator laneMetricRegister = metricRegister.extend(LANE_METRIC_PREFIX + lane);
+            laneMetricRegister.register("queue-depth", new Gauge<Integer>() {
+                @Override
+                public Integer getValue() throws Exception {
+                    return _lanes.getQueueDepth(lane);
+                }
+            });
+            laneMetricRegister.register("applied-packets", new Gauge<Long>() {
+                @Override
+                public Long getValue() throws Exception {
+                    return _lanes.getAppliedPackets(lane);
+                }
+            });
+            laneMetricRegister.register("apply-time-avg-micros", new Gauge<Double>() {
+                @Override
+                public Double getValue() throws Exception {
+                    return _lanes.getAverageApplyTime(lane);
+                }
+            });
+        }
     }
 
     private GlobalOrderProcessResult onErrorReleasePendingAndReturnResult(
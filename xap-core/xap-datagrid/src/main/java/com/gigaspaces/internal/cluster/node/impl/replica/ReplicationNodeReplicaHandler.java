@@ -25,6 +25,7 @@ import com.gigaspaces.internal.cluster.node.impl.filters.ISpaceCopyReplicaOutFil
 import com.gigaspaces.internal.cluster.node.impl.groups.IReplicationSourceGroup;
 import com.gigaspaces.internal.cluster.node.impl.packets.ReplicaRequestPacket;
 import com.gigaspaces.internal.cluster.node.impl.replica.data.AbstractEntryReplicaData;
+import com.gigaspaces.internal.cluster.node.replica.ReplicaResumeRejectedException;
 import com.gigaspaces.internal.cluster.node.replica.SpaceCopyReplicaParameters;
 import com.gigaspaces.internal.extension.XapExtensions;
 import com.gigaspaces.internal.server.metadata.IServerTypeDesc;
@@ -129,9 +130,12 @@ public class ReplicationNodeReplicaHandler {
 
                 boolean syncListRecovery = isDirectPersistencySyncReplicaRequest(replicaRequestPacket);
 
-                sourceGroup.beginSynchronizing(channelName,
-                        replicaRequestPacket.getSourceUniqueId(),
-                        syncListRecovery);
+                if (isResumeSynchronizeReplicaRequest(replicaRequestPacket))
+                    resumeSynchronizing(sourceGroup, channelName, replicaRequestPacket);
+                else
+                    sourceGroup.beginSynchronizing(channelName,
+                            replicaRequestPacket.getSourceUniqueId(),
+                            syncListRecovery);
 
                 // handle receiving sync list from backup by chunks
                 if (syncListRecovery)
@@ -190,6 +194,28 @@ public class ReplicationNodeReplicaHandler {
                 && ((SpaceCopyReplicaParameters) replicaRequestPacket.getParameters()).getSynchronizationListFetcher() != null;
     }
 
+    private boolean isResumeSynchronizeReplicaRequest(ReplicaRequestPacket replicaRequestPacket) {
+        return replicaRequestPacket.getParameters() instanceof SpaceCopyReplicaParameters
+                && ((SpaceCopyReplicaParameters) replicaRequestPacket.getParameters()).isResumeSynchronization();
+    }
+
+    private void resumeSynchronizing(IReplicationSourceGroup sourceGroup, String channelName,
+                                     ReplicaRequestPacket replicaRequestPacket) {
+        SpaceCopyReplicaParameters replicaParams = (SpaceCopyReplicaParameters) replicaRequestPacket.getParameters();
+        // The resumed key belongs to the backlog of the source the target replicated from, which is
+        // identified by its unique id since the backlog is not kept when this member restarts
+        Object myUniqueId = _replicationNode.getReplicationRouter().getMyEndpointDetails().getUniqueId();
+        if (!myUniqueId.equals(replicaParams.getResumeSourceUniqueId()))
+            throw new ReplicaResumeRejectedException("Cannot resume synchronization of [" + channelName
+                    + "] from key " + replicaParams.getResumeFromKey() + ", the key belongs to the backlog of another source");
+        if (!sourceGroup.resumeSynchronizing(channelName, replicaRequestPacket.getSourceUniqueId(), replicaParams.getResumeFromKey()))
+            throw new ReplicaResumeRejectedException("Cannot resume synchronization of [" + channelName
+                    + "] from key " + replicaParams.getResumeFromKey() + ", the backlog no longer holds the packets which follow it");
+        if (_logger.isInfoEnabled())
+            _logger.info(_replicationNode.getLogPrefix() + "resuming synchronization of " + channelName
+                    + " from key " + replicaParams.getResumeFromKey());
+    }
+
     private List<String> fetchSynchronizationList(SpaceCopyReplicaParameters params) throws RemoteException {
         List<String> syncList = new LinkedList<String>();
         int batchSize = Integer.getInteger(SystemProperties.REPLICATION_BLOBSTORE_SYNC_LIST_BATCH_SIZE,
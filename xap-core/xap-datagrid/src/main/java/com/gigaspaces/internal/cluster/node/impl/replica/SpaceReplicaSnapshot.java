@@ -0,0 +1,223 @@
+/*
+ * Copyright (c) 2008-2016, GigaSpaces Technologies, Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.gigaspaces.internal.cluster.node.impl.replica;
+
+import com.gigaspaces.internal.io.ContextClassResolverObjectInputStream;
+import com.gigaspaces.internal.version.PlatformLogicalVersion;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.util.List;
+
+/**
+ * A replica of a space kept in a local file, together with the position in the backlog of the
+ * source it was replicated from. A backup space which restarts restores its data from the snapshot
+ * and only synchronizes the backlog packets which follow that position.
+ * <p>
+ * The snapshot is written to a temporary file which is renamed once it is complete, so a snapshot
+ * file is either complete or absent.
+ *
+ * @since 16.0
+ */
+@com.gigaspaces.api.InternalApi
+public class SpaceReplicaSnapshot {
+    private static final int MAGIC = 0x58415053;
+    private static final int FORMAT_VERSION = 1;
+    private static final int RESET_INTERVAL = 1000;
+    private static final String FILE_SUFFIX = ".snapshot";
+
+    private static final ISynchronizationCallback NO_SYNCHRONIZATION = new ISynchronizationCallback() {
+        @Override
+        public boolean synchronizationDataGenerated(ISpaceReplicaData data) {
+            return false;
+        }
+    };
+
+    private final String _spaceName;
+    private final String _groupName;
+    private final Object _sourceUniqueId;
+    private final long _lastProcessedKey;
+
+    /**
+     * @param spaceName        the full name of the space the snapshot belongs to
+     * @param groupName        the name of the replication group the space synchronizes with
+     * @param sourceUniqueId   the unique id of the source the space replicated from
+     * @param lastProcessedKey the key of the last packet the space processed from that source
+     */
+    public SpaceReplicaSnapshot(String spaceName, String groupName, Object sourceUniqueId, long lastProcessedKey) {
+        _spaceName = spaceName;
+        _groupName = groupName;
+        _sourceUniqueId = sourceUniqueId;
+        _lastProcessedKey = lastProcessedKey;
+    }
+
+    /**
+     * @return the snapshot file of the specified space in the specified directory
+     */
+    public static File getFile(File directory, String spaceName) {
+        return new File(directory, spaceName.replaceAll("[^A-Za-z0-9._-]", "_") + FILE_SUFFIX);
+    }
+
+    public String getSpaceName() {
+        return _spaceName;
+    }
+
+    public String getGroupName() {
+        return _groupName;
+    }
+
+    public Object getSourceUniqueId() {
+        return _sourceUniqueId;
+    }
+
+    public long getLastProcessedKey() {
+        return _lastProcessedKey;
+    }
+
+    /**
+     * Writes this snapshot with all the data generated by the specified producers, in order.
+     *
+     * @return the number of replica data written
+     */
+    public long write(File file, List<? extends ISingleStageReplicaDataProducer<?>> producers) throws IOException {
+        final File parent = file.getAbsoluteFile().getParentFile();
+        if (!parent.isDirectory() && !parent.mkdirs())
+            throw new IOException("Failed to create directory " + parent);
+        final File tempFile = new File(parent, file.getName() + ".tmp");
+        long count = 0;
+        boolean completed = false;
+        final FileOutputStream fileOut = new FileOutputStream(tempFile);
+        try {
+            ObjectOutputStream out = new ObjectOutputStream(new BufferedOutputStream(fileOut));
+            out.writeInt(MAGIC);
+            out.writeInt(FORMAT_VERSION);
+            out.writeUTF(PlatformLogicalVersion.getLogicalVersion().toString());
+            out.writeUTF(_spaceName);
+            out.writeUTF(_groupName);
+            out.writeObject(_sourceUniqueId);
+            out.writeLong(_lastProcessedKey);
+            for (ISingleStageReplicaDataProducer<?> producer : producers) {
+                ISpaceReplicaData data;
+                while ((data = producer.produceNextData(NO_SYNCHRONIZATION)) != null) {
+                    out.writeObject(data);
+                    // don't keep back references to all the written data
+                    if (++count % RESET_INTERVAL == 0)
+                        out.reset();
+                }
+            }
+            out.writeObject(null);
+            out.writeLong(count);
+            out.flush();
+            fileOut.getFD().sync();
+            completed = true;
+        } finally {
+            fileOut.close();
+            if (!completed)
+                tempFile.delete();
+        }
+        file.delete();
+        if (!tempFile.renameTo(file)) {
+            tempFile.delete();
+            throw new IOException("Failed to rename " + tempFile + " to " + file);
+        }
+        return count;
+    }
+
+    /**
+     * Opens the specified snapshot file for reading, the header of the snapshot is read and
+     * validated before this method returns.
+     */
+    public static Reader read(File file) throws IOException, ClassNotFoundException {
+        return new Reader(file);
+    }
+
+    @Override
+    public String toString() {
+        return "SpaceReplicaSnapshot [spaceName=" + _spaceName + ", groupName=" + _groupName
+                + ", sourceUniqueId=" + _sourceUniqueId + ", lastProcessedKey=" + _lastProcessedKey + "]";
+    }
+
+    /**
+     * Reads the replica data of a snapshot file in the order it was written.
+     */
+    public static class Reader implements Closeable {
+        private final ObjectInputStream _in;
+        private final SpaceReplicaSnapshot _snapshot;
+        private long _count;
+        private boolean _done;
+
+        private Reader(File file) throws IOException, ClassNotFoundException {
+            _in = ContextClassResolverObjectInputStream.Factory.instance.create(new BufferedInputStream(new FileInputStream(file)));
+            try {
+                if (_in.readInt() != MAGIC)
+                    throw new IOException(file + " is not a space replica snapshot");
+                final int formatVersion = _in.readInt();
+                if (formatVersion != FORMAT_VERSION)
+                    throw new IOException("Unsupported snapshot format version " + formatVersion + " of " + file);
+                // replica data is serialized in the form of the version that wrote it
+                final String version = _in.readUTF();
+                if (!version.equals(PlatformLogicalVersion.getLogicalVersion().toString()))
+                    throw new IOException("Snapshot " + file + " was written by version " + version);
+                final String spaceName = _in.readUTF();
+                final String groupName = _in.readUTF();
+                final Object sourceUniqueId = _in.readObject();
+                final long lastProcessedKey = _in.readLong();
+                _snapshot = new SpaceReplicaSnapshot(spaceName, groupName, sourceUniqueId, lastProcessedKey);
+            } catch (IOException e) {
+                _in.close();
+                throw e;
+            } catch (ClassNotFoundException e) {
+                _in.close();
+                throw e;
+            }
+        }
+
+        public SpaceReplicaSnapshot getSnapshot() {
+            return _snapshot;
+        }
+
+        /**
+         * @return the next replica data of the snapshot, null once all the data was read
+         */
+        public ISpaceReplicaData next() throws IOException, ClassNotFoundException {
+            if (_done)
+                return null;
+            final ISpaceReplicaData data = (ISpaceReplicaData) _in.readObject();
+            if (data != null) {
+                _count++;
+                return data;
+            }
+            _done = true;
+            final long expectedCount = _in.readLong();
+            if (expectedCount != _count)
+                throw new IOException("Snapshot holds " + expectedCount + " replica data, only " + _count + " were read");
+            return null;
+        }
+
+        @Override
+        public void close() throws IOException {
+            _in.close();
+        }
+    }
+}
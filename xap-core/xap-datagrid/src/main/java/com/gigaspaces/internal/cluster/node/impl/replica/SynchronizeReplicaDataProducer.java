@@ -49,15 +49,19 @@ public class SynchronizeReplicaDataProducer
         dataProducers.add(new SpaceTypeReplicaDataProducer(_engine));
         if (_logger.isTraceEnabled())
             _logger.trace(_engine.getReplicationNode() + "created SpaceTypeReplicaDataProducer");
-        for (ITemplatePacket templatePacket : parameters.getTemplatePackets()) {
-            // create unique EntryReplicaProducer that deals with direct persistency sync list
-            if (parameters.getSynchronizationListFetcher() != null) {
-                dataProducers.add(new DirectPersisntecyEntryReplicaProducer(_engine, parameters, templatePacket, _requestContext));
-            } else {
-                dataProducers.add(new EntryReplicaProducer(_engine, parameters, templatePacket, _requestContext));
+        // A resumed synchronization target already holds the entries, it only gets the backlog
+        // packets it missed
+        if (!parameters.isResumeSynchronization()) {
+            for (ITemplatePacket templatePacket : parameters.getTemplatePackets()) {
+                // create unique EntryReplicaProducer that deals with direct persistency sync list
+                if (parameters.getSynchronizationListFetcher() != null) {
+                    dataProducers.add(new DirectPersisntecyEntryReplicaProducer(_engine, parameters, templatePacket, _requestContext));
+                } else {
+                    dataProducers.add(new EntryReplicaProducer(_engine, parameters, templatePacket, _requestContext));
+                }
+                if (_logger.isTraceEnabled())
+                    _logger.trace(_engine.getReplicationNode() + "created EntryReplicaProducer for templatePacket " + templatePacket);
             }
-            if (_logger.isTraceEnabled())
-                _logger.trace(_engine.getReplicationNode() + "created EntryReplicaProducer for templatePacket " + templatePacket);
         }
 
         if (parameters.isCopyNotifyTemplates()) {
@@ -46,6 +46,8 @@ public class SpaceCopyReplicaParameters implements ISpaceCopyReplicaParameters {
     private SpaceContext _spaceContext;
     private DirectPersistencySyncListFetcher _fetcher;
     private transient List<String> _syncList;
+    private Object _resumeSourceUniqueId;
+    private long _resumeFromKey = -1;
 
     public SpaceCopyReplicaParameters() {
     }
@@ -68,6 +70,10 @@ public class SpaceCopyReplicaParameters implements ISpaceCopyReplicaParameters {
         if (LRMIInvocationContext.getEndpointLogicalVersion().greaterOrEquals(PlatformLogicalVersion.v10_2_0)) {
             IOUtils.writeObject(out, _fetcher);
         }
+        if (LRMIInvocationContext.getEndpointLogicalVersion().greaterOrEquals(PlatformLogicalVersion.v16_0_0)) {
+            IOUtils.writeObject(out, _resumeSourceUniqueId);
+            out.writeLong(_resumeFromKey);
+        }
 
     }
 
@@ -88,6 +94,10 @@ public class SpaceCopyReplicaParameters implements ISpaceCopyReplicaParameters {
         if (LRMIInvocationContext.getEndpointLogicalVersion().greaterOrEquals(PlatformLogicalVersion.v10_2_0)) {
             _fetcher = IOUtils.readObject(in);
         }
+        if (LRMIInvocationContext.getEndpointLogicalVersion().greaterOrEquals(PlatformLogicalVersion.v16_0_0)) {
+            _resumeSourceUniqueId = IOUtils.readObject(in);
+            _resumeFromKey = in.readLong();
+        }
     }
 
     public boolean isCopyNotifyTemplates() {
@@ -162,6 +172,31 @@ public class SpaceCopyReplicaParameters implements ISpaceCopyReplicaParameters {
         return _includeEvictionReplicationMarkers;
     }
 
+    /**
+     * Sets the position in the backlog of the source from which a synchronize replica resumes, the
+     * target already holds the data up to that position.
+     *
+     * @param sourceUniqueId   the unique id of the source the target replicated from
+     * @param lastProcessedKey the key of the last packet the target processed from that source
+     * @since 16.0
+     */
+    public void setResumePoint(Object sourceUniqueId, long lastProcessedKey) {
+        _resumeSourceUniqueId = sourceUniqueId;
+        _resumeFromKey = lastProcessedKey;
+    }
+
+    public boolean isResumeSynchronization() {
+        return _resumeSourceUniqueId != null && _resumeFromKey >= 0;
+    }
+
+    public Object getResumeSourceUniqueId() {
+        return _resumeSourceUniqueId;
+    }
+
+    public long getResumeFromKey() {
+        return _resumeFromKey;
+    }
+
     @Override
     public String toString() {
         return "ReplicaType=" + _replicaType + StringUtils.NEW_LINE +
@@ -170,7 +205,8 @@ public class SpaceCopyReplicaParameters implements ISpaceCopyReplicaParameters {
                 "MemoryOnly=" + _memoryOnly + StringUtils.NEW_LINE +
                 "IncludeEvictionReplicationMarkers=" + _includeEvictionReplicationMarkers + StringUtils.NEW_LINE +
                 "TemplatePackets=" + _templatePackets + StringUtils.NEW_LINE +
-                "SpaceContext=" + String.valueOf(_spaceContext != null);
+                "SpaceContext=" + String.valueOf(_spaceContext != null) + StringUtils.NEW_LINE +
+                "ResumeFromKey=" + _resumeFromKey;
     }
 
 
@@ -137,6 +137,17 @@ public class MarshalOutputStream
         }
     }
 
+    /**
+     * Returns true if writing the given object using {@link #writeRepetitiveObject(Object)} does
+     * not grow the cache of repetitive objects beyond the given number of objects.
+     *
+     * @since 16.0
+     */
+    public boolean canWriteRepetitiveObject(Object obj, int maxCachedObjects) {
+        return !_optimize || _context.getRepetitiveObjectCode(obj) != CODE_NULL
+                || _context.getNumOfRepetitiveObjects() < maxCachedObjects;
+    }
+
     public void writeSmartExternalizable(SmartExternalizable obj)
             throws IOException{
         // If object is null, write null code:
@@ -358,6 +369,10 @@ public class MarshalOutputStream
             return _repetitiveObjectsCache.get(obj);
         }
 
+        public int getNumOfRepetitiveObjects() {
+            return _repetitiveObjectCounter - MarshalConstants.FIRST_REPETITIVE;
+        }
+
         public int cacheRepetitiveObject(Object obj) {
             int code = _repetitiveObjectCounter++;
             _repetitiveObjectsCache.put(obj, code);
@@ -0,0 +1,160 @@
+/*
+ * Copyright (c) 2008-2016, GigaSpaces Technologies, Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.gigaspaces.internal.io.compression;
+
+import java.io.IOException;
+import java.util.Arrays;
+
+/**
+ * Compresses payloads with a codec, and stores payloads which are too small or do not compress
+ * well as is.
+ * <p>
+ * Each compressed payload starts with the id of the codec which compressed it, or {@link #STORED}
+ * if it was stored as is, followed by the length of the original payload, so payloads are
+ * decompressed by the codec which compressed them whatever codec the decompressing side uses.
+ * <p>
+ * An adaptive compressor also stops trying to compress for a while after a streak of payloads
+ * which did not compress well, since a stream tends to keep carrying the same kind of data. The
+ * output of an adaptive compressor depends on the previous payloads, so it should not be used
+ * where equal payloads must be compressed to equal bytes.
+ *
+ * @since 16.0
+ */
+@com.gigaspaces.api.InternalApi
+public class AdaptiveCompressor {
+    public static final byte STORED = 0;
+    public static final int DEFAULT_MIN_LENGTH = 64;
+    public static final double DEFAULT_MAX_RATIO = 0.9;
+
+    private static final int INCOMPRESSIBLE_STREAK_THRESHOLD = 4;
+    private static final int MAX_BYPASSED_PAYLOADS = 64;
+
+    private final CompressionCodec _codec;
+    private final int _minLength;
+    private final double _maxRatio;
+    private final boolean _adaptive;
+    // the adaptive state is a hint, races between threads only affect which payloads are stored
+    private int _incompressibleStreak;
+    private int _payloadsToBypass;
+    private int _bypassLength;
+
+    public AdaptiveCompressor(CompressionCodec codec, boolean adaptive) {
+        this(codec, DEFAULT_MIN_LENGTH, DEFAULT_MAX_RATIO, adaptive);
+    }
+
+    /**
+     * @param minLength payloads shorter than this are stored as is
+     * @param maxRatio  payloads whose compressed length exceeds this ratio of their length are
+     *                  stored as is
+     * @param adaptive  whether to stop compressing for a while after a streak of payloads which
+     *                  did not compress well
+     */
+    public AdaptiveCompressor(CompressionCodec codec, int minLength, double maxRatio, boolean adaptive) {
+        _codec = codec;
+        _minLength = minLength;
+        _maxRatio = maxRatio;
+        _adaptive = adaptive;
+    }
+
+    public CompressionCodec getCodec() {
+        return _codec;
+    }
+
+    public byte[] compress(byte[] data) throws IOException {
+        return compress(data, 0, data.length);
+    }
+
+    public byte[] compress(byte[] data, int offset, int length) throws IOException {
+        if (length < _minLength || (_adaptive && bypass()))
+            return store(data, offset, length);
+
+        final int headerLength = 1 + varIntLength(length);
+        final byte[] result = new byte[headerLength + _codec.getMaxCompressedLength(length)];
+        final int compressedLength = _codec.compress(data, offset, length, result, headerLength);
+        if (compressedLength > length * _maxRatio) {
+            if (_adaptive && ++_incompressibleStreak >= INCOMPRESSIBLE_STREAK_THRESHOLD) {
+                _bypassLength = Math.min(Math.max(_bypassLength * 2, 1), MAX_BYPASSED_PAYLOADS);
+                _payloadsToBypass = _bypassLength;
+            }
+            return store(data, offset, length);
+        }
+        _incompressibleStreak = 0;
+        _bypassLength = 0;
+        result[0] = _codec.getId();
+        writeVarInt(result, 1, length);
+        return Arrays.copyOf(result, headerLength + compressedLength);
+    }
+
+    public byte[] decompress(byte[] data) throws IOException {
+        return decompress(data, 0, data.length);
+    }
+
+    public byte[] decompress(byte[] data, int offset, int length) throws IOException {
+        if (length == 0)
+            throw new IOException("Compressed payload is empty");
+        final byte codecId = data[offset];
+        if (codecId == STORED)
+            return Arrays.copyOfRange(data, offset + 1, offset + length);
+
+        final CompressionCodec codec = codecId == _codec.getId() ? _codec : CompressionCodecs.forId(codecId);
+        if (codec == null)
+            throw new IOException("Payload was compressed by an unknown codec " + codecId);
+        int position = offset + 1;
+        int originalLength = 0;
+        for (int shift = 0; ; shift += 7) {
+            if (position == offset + length || shift > 28)
+                throw new IOException("Malformed compressed payload header");
+            final byte b = data[position++];
+            originalLength |= (b & 0x7F) << shift;
+            if (b >= 0)
+                break;
+        }
+        final byte[] result = new byte[originalLength];
+        codec.decompress(data, position, offset + length - position, result, 0, originalLength);
+        return result;
+    }
+
+    private boolean bypass() {
+        if (_payloadsToBypass == 0)
+            return false;
+        // the payload after the bypassed ones probes whether the data became compressible
+        _payloadsToBypass--;
+        return true;
+    }
+
+    private static byte[] store(byte[] data, int offset, int length) {
+        final byte[] result = new byte[1 + length];
+        result[0] = STORED;
+        System.arraycopy(data, offset, result, 1, length);
+        return result;
+    }
+
+    private static int varIntLength(int value) {
+        int length = 1;
+        while ((value >>>= 7) != 0)
+            length++;
+        return length;
+    }
+
+    private static void writeVarInt(byte[] buffer, int position, int value) {
+        while ((value & ~0x7F) != 0) {
+            buffer[position++] = (byte) ((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        buffer[position] = (byte) value;
+    }
+}
@@ -0,0 +1,59 @@
+/*
+ * Copyright (c) 2008-2016, GigaSpaces Technologies, Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.gigaspaces.internal.io.compression;
+
+import java.io.IOException;
+
+/**
+ * A compression algorithm used to compress network messages and stored property values.
+ * <p>
+ * Codecs are stateless and may be used by several threads concurrently.
+ *
+ * @since 16.0
+ */
+public interface CompressionCodec {
+    /**
+     * Returns the id written in front of data compressed by this codec, used to pick the codec
+     * which decompresses it.
+     */
+    byte getId();
+
+    /**
+     * Returns a name used for configuration and display.
+     */
+    String getName();
+
+    /**
+     * Returns the maximal length of the compressed form of data of the given length.
+     */
+    int getMaxCompressedLength(int length);
+
+    /**
+     * Compresses the given data into the destination array, which should have at least {@link
+     * #getMaxCompressedLength(int)} bytes after the destination offset.
+     *
+     * @return the length of the compressed data
+     */
+    int compress(byte[] src, int srcOffset, int length, byte[] dst, int dstOffset) throws IOException;
+
+    /**
+     * Decompresses the given compressed data into the destination array.
+     *
+     * @param originalLength the length of the data before it was compressed
+     */
+    void decompress(byte[] src, int srcOffset, int length, byte[] dst, int dstOffset, int originalLength) throws IOException;
+}
@@ -0,0 +1,52 @@
+/*
+ * Copyright (c) 2008-2016, GigaSpaces Technologies, Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.gigaspaces.internal.io.compression;
+
+import java.util.zip.Deflater;
+
+/**
+ * Resolves the built in codecs by name and by id.
+ *
+ * @since 16.0
+ */
+@com.gigaspaces.api.InternalApi
+public class CompressionCodecs {
+    private static final DeflateCodec DEFLATE = new DeflateCodec(Deflater.DEFAULT_COMPRESSION);
+
+    public static CompressionCodec forName(String name) {
+        if ("lz4".equalsIgnoreCase(name))
+            return Lz4Codec.INSTANCE;
+        if ("deflate".equalsIgnoreCase(name))
+            return DEFLATE;
+        throw new IllegalArgumentException("Unknown compression codec: " + name);
+    }
+
+    /**
+     * @return the codec with the given id, or null if it is not a built in codec which can be used
+     * without configuration
+     */
+    public static CompressionCodec forId(byte id) {
+        switch (id) {
+            case Lz4Codec.ID:
+                return Lz4Codec.INSTANCE;
+            case DeflateCodec.ID:
+                return DEFLATE;
+            default:
+                return null;
+        }
+    }
+}
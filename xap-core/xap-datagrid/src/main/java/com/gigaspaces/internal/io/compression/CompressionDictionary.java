@@ -0,0 +1,126 @@
+/*
+ * Copyright (c) 2008-2016, GigaSpaces Technologies, Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.gigaspaces.internal.io.compression;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.zip.CRC32;
+
+/**
+ * Content which is common to many small payloads, used by {@link Lz4Codec} to compress each
+ * payload as if it was preceded by that content.
+ *
+ * @since 16.0
+ */
+@com.gigaspaces.api.InternalApi
+public class CompressionDictionary {
+    /**
+     * The maximal size of a dictionary, matches can not refer to content farther than that.
+     */
+    public static final int MAX_SIZE = 0xFFFF;
+
+    private static final int SEGMENT_LENGTH = 8;
+
+    private final byte[] _bytes;
+    private final int _id;
+
+    public CompressionDictionary(byte[] bytes) {
+        if (bytes.length > MAX_SIZE)
+            throw new IllegalArgumentException("Dictionary size " + bytes.length + " exceeds the maximal size " + MAX_SIZE);
+        _bytes = bytes;
+        CRC32 crc = new CRC32();
+        crc.update(bytes);
+        _id = (int) crc.getValue();
+    }
+
+    public byte[] getBytes() {
+        return _bytes;
+    }
+
+    /**
+     * Returns an id of the dictionary content, used to verify data is decompressed with the
+     * dictionary it was compressed with.
+     */
+    public int getId() {
+        return _id;
+    }
+
+    /**
+     * Trains a dictionary from sample payloads.
+     * <p>
+     * Each maximal run of content which appears in at least two samples is a candidate, and the
+     * candidates which cover the most bytes of the samples are kept, with the most valuable ones
+     * at the end of the dictionary, closest to the data.
+     *
+     * @param maxSize the maximal size of the dictionary, up to {@link #MAX_SIZE}
+     */
+    public static CompressionDictionary train(Collection<byte[]> samples, int maxSize) {
+        maxSize = Math.min(maxSize, MAX_SIZE);
+        // the number of samples each segment appears in
+        final Map<ByteBuffer, Integer> segmentFrequencies = new HashMap<ByteBuffer, Integer>();
+        for (byte[] sample : samples) {
+            Set<ByteBuffer> sampleSegments = new HashSet<ByteBuffer>();
+            for (int i = 0; i + SEGMENT_LENGTH <= sample.length; i++)
+                sampleSegments.add(ByteBuffer.wrap(sample, i, SEGMENT_LENGTH).slice());
+            for (ByteBuffer segment : sampleSegments)
+                segmentFrequencies.merge(segment, 1, Integer::sum);
+        }
+
+        // runs of consecutive common segments form the candidates, scored by the bytes they cover
+        final Map<ByteBuffer, Long> candidateScores = new HashMap<ByteBuffer, Long>();
+        for (byte[] sample : samples) {
+            int runStart = -1;
+            for (int i = 0; i + SEGMENT_LENGTH <= sample.length + 1; i++) {
+                final boolean common = i + SEGMENT_LENGTH <= sample.length
+                        && segmentFrequencies.get(ByteBuffer.wrap(sample, i, SEGMENT_LENGTH).slice()) > 1;
+                if (common && runStart < 0) {
+                    runStart = i;
+                } else if (!common && runStart >= 0) {
+                    final int runLength = Math.min(i - 1 + SEGMENT_LENGTH - runStart, maxSize);
+                    candidateScores.merge(ByteBuffer.wrap(sample, runStart, runLength).slice(), (long) runLength, Long::sum);
+                    runStart = -1;
+                }
+            }
+        }
+
+        final List<Map.Entry<ByteBuffer, Long>> candidates = new ArrayList<Map.Entry<ByteBuffer, Long>>(candidateScores.entrySet());
+        candidates.sort((c1, c2) -> Long.compare(c2.getValue(), c1.getValue()));
+        final List<ByteBuffer> selected = new ArrayList<ByteBuffer>();
+        int size = 0;
+        for (Map.Entry<ByteBuffer, Long> candidate : candidates) {
+            final ByteBuffer content = candidate.getKey();
+            if (size + content.remaining() > maxSize)
+                continue;
+            selected.add(content);
+            size += content.remaining();
+        }
+
+        final byte[] bytes = new byte[size];
+        int position = size;
+        for (ByteBuffer content : selected) {
+            position -= content.remaining();
+            content.duplicate().get(bytes, position, content.remaining());
+        }
+        return new CompressionDictionary(bytes);
+    }
+}
@@ -0,0 +1,290 @@
+/*
+ * Copyright (c) 2008-2016, GigaSpaces Technologies, Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.gigaspaces.internal.io.compression;
+
+import java.io.IOException;
+import java.util.Arrays;
+
+/**
+ * A pure java implementation of the LZ4 block format, which trades compression ratio for speed
+ * and compresses and decompresses at several hundreds of megabytes per second per core.
+ * <p>
+ * The codec may be given a dictionary, which is used as if it preceded the data, so small payloads
+ * with content common to the dictionary are compressed as well. The data must be decompressed
+ * with the same dictionary, and the id of the dictionary is written in front of the compressed
+ * data to detect a mismatch.
+ *
+ * @since 16.0
+ */
+@com.gigaspaces.api.InternalApi
+public class Lz4Codec implements CompressionCodec {
+    public static final byte ID = 2;
+    public static final byte DICTIONARY_ID = 3;
+    public static final Lz4Codec INSTANCE = new Lz4Codec(null);
+
+    private static final int MIN_MATCH = 4;
+    // the last literals of a block and the minimal distance of the last match from the end of it
+    private static final int LAST_LITERALS = 5;
+    private static final int MF_LIMIT = 12;
+    private static final int MAX_DISTANCE = 0xFFFF;
+    private static final int MIN_HASH_LOG = 8;
+    private static final int MAX_HASH_LOG = 14;
+    private static final int DICTIONARY_HASH_LOG = 12;
+    // after 2^SKIP_STRENGTH positions without a match the search starts to skip positions
+    private static final int SKIP_STRENGTH = 6;
+    private static final int RUN_MASK = 0x0F;
+
+    private final CompressionDictionary _dictionary;
+    // the hash table of the dictionary positions, copied by each compression
+    private final int[] _dictionaryTable;
+
+    public Lz4Codec(CompressionDictionary dictionary) {
+        _dictionary = dictionary;
+        if (dictionary != null) {
+            final byte[] bytes = dictionary.getBytes();
+            _dictionaryTable = new int[1 << DICTIONARY_HASH_LOG];
+            Arrays.fill(_dictionaryTable, -1);
+            for (int position = 0; position + MIN_MATCH <= bytes.length; position++)
+                _dictionaryTable[hash(readInt(bytes, position), DICTIONARY_HASH_LOG)] = position;
+        } else {
+            _dictionaryTable = null;
+        }
+    }
+
+    public CompressionDictionary getDictionary() {
+        return _dictionary;
+    }
+
+    @Override
+    public byte getId() {
+        return _dictionary == null ? ID : DICTIONARY_ID;
+    }
+
+    @Override
+    public String getName() {
+        return _dictionary == null ? "lz4" : "lz4-dictionary";
+    }
+
+    @Override
+    public int getMaxCompressedLength(int length) {
+        return length + length / 255 + 16 + (_dictionary == null ? 0 : 4);
+    }
+
+    @Override
+    public int compress(byte[] src, int srcOffset, int length, byte[] dst, int dstOffset) throws IOException {
+        if (_dictionary == null)
+            return compressBlock(src, srcOffset, srcOffset, srcOffset + length, null, dst, dstOffset);
+
+        // the dictionary is placed right before the data so matches can refer to it
+        final byte[] dictionary = _dictionary.getBytes();
+        final byte[] window = new byte[dictionary.length + length];
+        System.arraycopy(dictionary, 0, window, 0, dictionary.length);
+        System.arraycopy(src, srcOffset, window, dictionary.length, length);
+        writeInt(dst, dstOffset, _dictionary.getId());
+        return 4 + compressBlock(window, 0, dictionary.length, window.length, _dictionaryTable, dst, dstOffset + 4);
+    }
+
+    @Override
+    public void decompress(byte[] src, int srcOffset, int length, byte[] dst, int dstOffset, int originalLength) throws IOException {
+        try {
+            if (_dictionary == null) {
+                decompressBlock(src, srcOffset, srcOffset + length, dst, dstOffset, dstOffset, originalLength);
+                return;
+            }
+            final int dictionaryId = readInt(src, srcOffset);
+            if (dictionaryId != _dictionary.getId())
+                throw new IOException("Data was compressed with dictionary " + dictionaryId + " but is decompressed with dictionary " + _dictionary.getId());
+            final byte[] dictionary = _dictionary.getBytes();
+            final byte[] window = Arrays.copyOf(dictionary, dictionary.length + originalLength);
+            decompressBlock(src, srcOffset + 4, srcOffset + length, window, 0, dictionary.length, originalLength);
+            System.arraycopy(window, dictionary.length, dst, dstOffset, originalLength);
+        } catch (ArrayIndexOutOfBoundsException e) {
+            throw new IOException("Malformed lz4 data", e);
+        }
+    }
+
+    /**
+     * Compresses the bytes of the given buffer from the start position to the end, the bytes from
+     * the window start to the start position may be referred to by matches but are not written,
+     * and are hashed by the given window table.
+     */
+    private static int compressBlock(byte[] buffer, int windowStart, int start, int end, int[] windowTable, byte[] dst, int dstOffset) {
+        int dstPosition = dstOffset;
+        int anchor = start;
+        final int matchSearchLimit = end - MF_LIMIT;
+        if (start < matchSearchLimit) {
+            final int hashLog;
+            final int[] table;
+            if (windowTable != null) {
+                hashLog = DICTIONARY_HASH_LOG;
+                table = windowTable.clone();
+            } else {
+                hashLog = hashLog(end - windowStart);
+                table = new int[1 << hashLog];
+                Arrays.fill(table, -1);
+            }
+
+            final int matchLimit = end - LAST_LITERALS;
+            int position = start;
+            int searches = 0;
+            while (position < matchSearchLimit) {
+                final int sequence = readInt(buffer, position);
+                final int h = hash(sequence, hashLog);
+                int ref = table[h];
+                table[h] = position;
+                if (ref < 0 || position - ref > MAX_DISTANCE || readInt(buffer, ref) != sequence) {
+                    position += 1 + (searches++ >>> SKIP_STRENGTH);
+                    continue;
+                }
+                searches = 0;
+                while (position > anchor && ref > windowStart && buffer[position - 1] == buffer[ref - 1]) {
+                    position--;
+                    ref--;
+                }
+                int matchLength = MIN_MATCH;
+                while (position + matchLength < matchLimit && buffer[position + matchLength] == buffer[ref + matchLength])
+                    matchLength++;
+
+                dstPosition = writeSequence(buffer, anchor, position - anchor, position - ref, matchLength, dst, dstPosition);
+                position += matchLength;
+                anchor = position;
+                if (position - 2 < matchSearchLimit)
+                    table[hash(readInt(buffer, position - 2), hashLog)] = position - 2;
+            }
+        }
+        return writeLastLiterals(buffer, anchor, end - anchor, dst, dstPosition) - dstOffset;
+    }
+
+    private static int writeSequence(byte[] src, int literalsStart, int literalsLength, int offset, int matchLength,
+                                     byte[] dst, int dstPosition) {
+        final int tokenPosition = dstPosition++;
+        int token;
+        if (literalsLength >= RUN_MASK) {
+            token = RUN_MASK << 4;
+            dstPosition = writeLength(literalsLength - RUN_MASK, dst, dstPosition);
+        } else {
+            token = literalsLength << 4;
+        }
+        System.arraycopy(src, literalsStart, dst, dstPosition, literalsLength);
+        dstPosition += literalsLength;
+        dst[dstPosition++] = (byte) offset;
+        dst[dstPosition++] = (byte) (offset >>> 8);
+        final int matchLengthCode = matchLength - MIN_MATCH;
+        if (matchLengthCode >= RUN_MASK) {
+            token |= RUN_MASK;
+            dstPosition = writeLength(matchLengthCode - RUN_MASK, dst, dstPosition);
+        } else {
+            token |= matchLengthCode;
+        }
+        dst[tokenPosition] = (byte) token;
+        return dstPosition;
+    }
+
+    private static int writeLastLiterals(byte[] src, int literalsStart, int literalsLength, byte[] dst, int dstPosition) {
+        if (literalsLength >= RUN_MASK) {
+            dst[dstPosition++] = (byte) (RUN_MASK << 4);
+            dstPosition = writeLength(literalsLength - RUN_MASK, dst, dstPosition);
+        } else {
+            dst[dstPosition++] = (byte) (literalsLength << 4);
+        }
+        System.arraycopy(src, literalsStart, dst, dstPosition, literalsLength);
+        return dstPosition + literalsLength;
+    }
+
+    private static int writeLength(int length, byte[] dst, int dstPosition) {
+        while (length >= 0xFF) {
+            dst[dstPosition++] = (byte) 0xFF;
+            length -= 0xFF;
+        }
+        dst[dstPosition++] = (byte) length;
+        return dstPosition;
+    }
+
+    /**
+     * Decompresses a block into the given buffer from the start position, the bytes from the
+     * window start to the start position may be referred to by matches.
+     */
+    private static void decompressBlock(byte[] src, int srcPosition, int srcEnd, byte[] buffer, int windowStart, int start, int originalLength)
+            throws IOException {
+        final int end = start + originalLength;
+        int position = start;
+        while (true) {
+            final int token = src[srcPosition++] & 0xFF;
+            int literalsLength = token >>> 4;
+            if (literalsLength == RUN_MASK) {
+                int b;
+                do {
+                    b = src[srcPosition++] & 0xFF;
+                    literalsLength += b;
+                } while (b == 0xFF);
+            }
+            if (srcPosition + literalsLength > srcEnd || position + literalsLength > end)
+                throw new IOException("Malformed lz4 data, literals exceed the block");
+            System.arraycopy(src, srcPosition, buffer, position, literalsLength);
+            srcPosition += literalsLength;
+            position += literalsLength;
+            if (srcPosition == srcEnd)
+                break;
+
+            final int offset = (src[srcPosition++] & 0xFF) | ((src[srcPosition++] & 0xFF) << 8);
+            int ref = position - offset;
+            if (offset == 0 || ref < windowStart)
+                throw new IOException("Malformed lz4 data, match offset " + offset + " is out of the block");
+            int matchLength = token & RUN_MASK;
+            if (matchLength == RUN_MASK) {
+                int b;
+                do {
+                    b = src[srcPosition++] & 0xFF;
+                    matchLength += b;
+                } while (b == 0xFF);
+            }
+            matchLength += MIN_MATCH;
+            if (position + matchLength > end)
+                throw new IOException("Malformed lz4 data, match exceeds the block");
+            if (offset >= matchLength) {
+                System.arraycopy(buffer, ref, buffer, position, matchLength);
+                position += matchLength;
+            } else {
+                // the match overlaps the bytes it produces
+                for (int i = 0; i < matchLength; i++)
+                    buffer[position++] = buffer[ref++];
+            }
+        }
+        if (position != end)
+            throw new IOException("Malformed lz4 data, expected " + originalLength + " bytes but got " + (position - start));
+    }
+
+    private static int hashLog(int length) {
+        return Math.max(MIN_HASH_LOG, Math.min(MAX_HASH_LOG, 32 - Integer.numberOfLeadingZeros(length)));
+    }
+
+    private static int hash(int sequence, int hashLog) {
+        return (sequence * -1640531535) >>> (32 - hashLog);
+    }
+
+    private static int readInt(byte[] buffer, int position) {
+        return (buffer[position] & 0xFF) | ((buffer[position + 1] & 0xFF) << 8)
+                | ((buffer[position + 2] & 0xFF) << 16) | ((buffer[position + 3] & 0xFF) << 24);
+    }
+
+    private static void writeInt(byte[] buffer, int position, int value) {
+        buffer[position] = (byte) value;
+        buffer[position + 1] = (byte) (value >>> 8);
+        buffer[position + 2] = (byte) (value >>> 16);
+        buffer[position + 3] = (byte) (value >>> 24);
+    }
+}
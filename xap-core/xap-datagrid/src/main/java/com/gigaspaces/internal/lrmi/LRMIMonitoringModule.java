@@ -42,20 +42,23 @@ public class LRMIMonitoringModule {
         if (!Pivot.isMonitorActivity() || monitoringId == null || writer == null || reader == null)
             return;
 
-        LRMIMethodMonitoringDetailsImpl methodMonitoringDetails = _monitoringDetails.get(monitoringId);
-        if (methodMonitoringDetails == null) {
-            methodMonitoringDetails = new LRMIMethodMonitoringDetailsImpl();
-            _monitoringDetails.put(monitoringId, methodMonitoringDetails);
+        //a multiplexed connection is monitored by concurrent invocations
+        synchronized (this) {
+            LRMIMethodMonitoringDetailsImpl methodMonitoringDetails = _monitoringDetails.get(monitoringId);
+            if (methodMonitoringDetails == null) {
+                methodMonitoringDetails = new LRMIMethodMonitoringDetailsImpl();
+                _monitoringDetails.put(monitoringId, methodMonitoringDetails);
+            }
+            long generatedTraffic = writer.getGeneratedTraffic();
+            //this is not volatile, so we may have a non updates result
+            long thisInvocationGeneratedTraffic = Math.max(0, generatedTraffic - _lastMonitoredGeneratedTraffic);
+            _lastMonitoredGeneratedTraffic = generatedTraffic;
+            long receivedTraffic = reader.getReceivedTraffic();
+            //this is not volatile, so we may have a non updates result
+            long thisInvocationReceivedTraffic = Math.max(0, receivedTraffic - _lastMonitoredReceivedTraffic);
+            _lastMonitoredReceivedTraffic = receivedTraffic;
+            methodMonitoringDetails.addTrackingDetails(thisInvocationGeneratedTraffic, thisInvocationReceivedTraffic);
         }
-        long generatedTraffic = writer.getGeneratedTraffic();
-        //this is not volatile, so we may have a non updates result
-        long thisInvocationGeneratedTraffic = Math.max(0, generatedTraffic - _lastMonitoredGeneratedTraffic);
-        _lastMonitoredGeneratedTraffic = generatedTraffic;
-        long receivedTraffic = reader.getReceivedTraffic();
-        //this is not volatile, so we may have a non updates result
-        long thisInvocationReceivedTraffic = Math.max(0, receivedTraffic - _lastMonitoredReceivedTraffic);
-        _lastMonitoredReceivedTraffic = receivedTraffic;
-        methodMonitoringDetails.addTrackingDetails(thisInvocationGeneratedTraffic, thisInvocationReceivedTraffic);
     }
 
     public void addMonitoringActivity(Map<String, LRMIMethodMonitoringDetails> trackingDetails) {
@@ -0,0 +1,273 @@
+/*
+ * Copyright (c) 2008-2016, GigaSpaces Technologies, Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.gigaspaces.internal.metadata;
+
+import com.gigaspaces.internal.io.IOArrayException;
+import com.gigaspaces.internal.io.IOUtils;
+import com.gigaspaces.internal.io.MarshalOutputStream;
+import com.gigaspaces.metadata.StorageType;
+
+import java.io.Externalizable;
+import java.io.IOException;
+import java.io.ObjectInput;
+import java.io.ObjectOutput;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * The kinds of the fixed properties of a type, used to write the fixed property values of an entry
+ * as a compact record: a bitmap of the non null values followed by the values, where values of
+ * primitive kinds are written in their fixed width and strings are written once per connection.
+ * <p>
+ * The layout is written along the record, as a repetitive object when written to a marshal
+ * stream, so the reading side does not need the type descriptor to read the record, and the
+ * layout itself is sent once per connection.
+ *
+ * @since 16.0
+ */
+@com.gigaspaces.api.InternalApi
+public class FixedPropertiesLayout implements Externalizable {
+    private static final long serialVersionUID = 1L;
+
+    private static final byte KIND_OBJECT = 0;
+    private static final byte KIND_BOOLEAN = 1;
+    private static final byte KIND_BYTE = 2;
+    private static final byte KIND_SHORT = 3;
+    private static final byte KIND_INT = 4;
+    private static final byte KIND_LONG = 5;
+    private static final byte KIND_FLOAT = 6;
+    private static final byte KIND_DOUBLE = 7;
+    private static final byte KIND_CHAR = 8;
+    private static final byte KIND_STRING = 9;
+
+    private static final byte STRING_UTF = 0;
+    private static final byte STRING_REPETITIVE = 1;
+    private static final byte STRING_OBJECT = 2;
+    // longer strings are rarely repeated, and are not worth a place in the repetitive objects cache
+    private static final int MAX_REPETITIVE_STRING_LENGTH = 64;
+    private static final int MAX_REPETITIVE_OBJECTS = 10000;
+    private static final int UTF_MAX_LENGTH = 0xFFFF / 3;
+
+    private static final Map<String, Byte> _kindsByTypeName = initKindsByTypeName();
+    private static final Class<?>[] _classesByKind = {null, Boolean.class, Byte.class, Short.class, Integer.class,
+            Long.class, Float.class, Double.class, Character.class, String.class};
+
+    private byte[] _kinds;
+
+    /**
+     * Default constructor required by {@link java.io.Externalizable}.
+     */
+    public FixedPropertiesLayout() {
+    }
+
+    public FixedPropertiesLayout(PropertyInfo[] properties) {
+        _kinds = new byte[properties.length];
+        for (int i = 0; i < properties.length; i++) {
+            // values of properties which are not stored as objects are written in the form they are converted to
+            final boolean storedAsObject = properties[i].getStorageAdapter() == null && properties[i].getStorageType() == StorageType.OBJECT;
+            final Byte kind = storedAsObject ? _kindsByTypeName.get(properties[i].getTypeName()) : null;
+            _kinds[i] = kind != null ? kind : KIND_OBJECT;
+        }
+    }
+
+    /**
+     * Returns true if the given values can be written with this layout, i.e. each value which is
+     * not null matches the kind of its property.
+     */
+    public boolean matches(Object[] values) {
+        if (values.length != _kinds.length)
+            return false;
+        for (int i = 0; i < values.length; i++) {
+            final Class<?> kindClass = _classesByKind[_kinds[i]];
+            if (kindClass != null && values[i] != null && values[i].getClass() != kindClass)
+                return false;
+        }
+        return true;
+    }
+
+    public void writeValues(ObjectOutput out, Object[] values) throws IOException {
+        final int length = values.length;
+        for (int i = 0; i < length; i += 8) {
+            int nonNullIndicators = 0;
+            for (int j = i; j < Math.min(length, i + 8); j++)
+                if (values[j] != null)
+                    nonNullIndicators |= 1 << (j - i);
+            out.writeByte(nonNullIndicators);
+        }
+        int i = 0;
+        try {
+            for (; i < length; i++) {
+                if (values[i] != null)
+                    writeValue(out, _kinds[i], values[i]);
+            }
+        } catch (IOException e) {
+            throw new IOArrayException(i, "Failed to serialize item #" + i, e);
+        }
+    }
+
+    public Object[] readValues(ObjectInput in) throws IOException, ClassNotFoundException {
+        final int length = _kinds.length;
+        final Object[] values = new Object[length];
+        final byte[] nonNullIndicators = new byte[(length + 7) / 8];
+        in.readFully(nonNullIndicators);
+        int i = 0;
+        try {
+            for (; i < length; i++) {
+                if ((nonNullIndicators[i / 8] & (1 << (i % 8))) != 0)
+                    values[i] = readValue(in, _kinds[i]);
+            }
+        } catch (IOException e) {
+            throw new IOArrayException(i, "Failed to deserialize item #" + i, e);
+        }
+        return values;
+    }
+
+    private static void writeValue(ObjectOutput out, byte kind, Object value) throws IOException {
+        switch (kind) {
+            case KIND_BOOLEAN:
+                out.writeBoolean((Boolean) value);
+                break;
+            case KIND_BYTE:
+                out.writeByte((Byte) value);
+                break;
+            case KIND_SHORT:
+                out.writeShort((Short) value);
+                break;
+            case KIND_INT:
+                out.writeInt((Integer) value);
+                break;
+            case KIND_LONG:
+                out.writeLong((Long) value);
+                break;
+            case KIND_FLOAT:
+                out.writeFloat((Float) value);
+                break;
+            case KIND_DOUBLE:
+                out.writeDouble((Double) value);
+                break;
+            case KIND_CHAR:
+                out.writeChar((Character) value);
+                break;
+            case KIND_STRING:
+                writeString(out, (String) value);
+                break;
+            default:
+                IOUtils.writeObject(out, value);
+        }
+    }
+
+    private static Object readValue(ObjectInput in, byte kind) throws IOException, ClassNotFoundException {
+        switch (kind) {
+            case KIND_BOOLEAN:
+                return in.readBoolean();
+            case KIND_BYTE:
+                return in.readByte();
+            case KIND_SHORT:
+                return in.readShort();
+            case KIND_INT:
+                return in.readInt();
+            case KIND_LONG:
+                return in.readLong();
+            case KIND_FLOAT:
+                return in.readFloat();
+            case KIND_DOUBLE:
+                return in.readDouble();
+            case KIND_CHAR:
+                return in.readChar();
+            case KIND_STRING:
+                return readString(in);
+            default:
+                return IOUtils.readObject(in);
+        }
+    }
+
+    private static void writeString(ObjectOutput out, String value) throws IOException {
+        if (value.length() <= MAX_REPETITIVE_STRING_LENGTH && out instanceof MarshalOutputStream
+                && ((MarshalOutputStream) out).canWriteRepetitiveObject(value, MAX_REPETITIVE_OBJECTS)) {
+            out.writeByte(STRING_REPETITIVE);
+            IOUtils.writeRepetitiveString(out, value);
+        } else if (value.length() < UTF_MAX_LENGTH) {
+            out.writeByte(STRING_UTF);
+            out.writeUTF(value);
+        } else {
+            out.writeByte(STRING_OBJECT);
+            IOUtils.writeString(out, value);
+        }
+    }
+
+    private static String readString(ObjectInput in) throws IOException, ClassNotFoundException {
+        final byte code = in.readByte();
+        switch (code) {
+            case STRING_REPETITIVE:
+                return IOUtils.readRepetitiveString(in);
+            case STRING_UTF:
+                return in.readUTF();
+            case STRING_OBJECT:
+                return IOUtils.readString(in);
+            default:
+                throw new IOException("Unknown string code: " + code);
+        }
+    }
+
+    private static Map<String, Byte> initKindsByTypeName() {
+        Map<String, Byte> kinds = new HashMap<String, Byte>();
+        kinds.put("boolean", KIND_BOOLEAN);
+        kinds.put(Boolean.class.getName(), KIND_BOOLEAN);
+        kinds.put("byte", KIND_BYTE);
+        kinds.put(Byte.class.getName(), KIND_BYTE);
+        kinds.put("short", KIND_SHORT);
+        kinds.put(Short.class.getName(), KIND_SHORT);
+        kinds.put("int", KIND_INT);
+        kinds.put(Integer.class.getName(), KIND_INT);
+        kinds.put("long", KIND_LONG);
+        kinds.put(Long.class.getName(), KIND_LONG);
+        kinds.put("float", KIND_FLOAT);
+        kinds.put(Float.class.getName(), KIND_FLOAT);
+        kinds.put("double", KIND_DOUBLE);
+        kinds.put(Double.class.getName(), KIND_DOUBLE);
+        kinds.put("char", KIND_CHAR);
+        kinds.put(Character.class.getName(), KIND_CHAR);
+        kinds.put(String.class.getName(), KIND_STRING);
+        return kinds;
+    }
+
+    @Override
+    public void writeExternal(ObjectOutput out) throws IOException {
+        out.writeInt(_kinds.length);
+        out.write(_kinds);
+    }
+
+    @Override
+    public void readExternal(ObjectInput in) throws IOException {
+        _kinds = new byte[in.readInt()];
+        in.readFully(_kinds);
+        for (byte kind : _kinds)
+            if (kind < 0 || kind >= _classesByKind.length)
+                throw new IOException("Unknown property kind: " + kind);
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        return obj instanceof FixedPropertiesLayout && Arrays.equals(_kinds, ((FixedPropertiesLayout) obj)._kinds);
+    }
+
+    @Override
+    public int hashCode() {
+        return Arrays.hashCode(_kinds);
+    }
+}
@@ -106,6 +106,13 @@ public interface ITypeDesc extends SpaceTypeDescriptor, IDotnetTypeDescDetails,
 
     String getPrimitivePropertiesWithoutNullValues();
 
+    /**
+     * @return the layout the fixed property values of entries of this type are written with, or
+     * null if they should be written as an array of objects
+     * @since 16.0
+     */
+    FixedPropertiesLayout getFixedPropertiesLayout();
+
     String getTypeUidPrefix();
 
     PropertyInfo[] getSerializedProperties();
@@ -118,6 +118,7 @@ public class TypeDesc implements ITypeDesc {
 
     private transient List<SpaceIndex> _compoundIndexes;
     private transient String _primitivePropertiesWithoutNullValues;
+    private transient FixedPropertiesLayout _fixedPropertiesLayout;
 
     private transient PropertyInfo[] _serializedProperties;
     private transient PropertyInfo[] _nonSerializedProperties;
@@ -628,6 +629,11 @@ public class TypeDesc implements ITypeDesc {
         return _primitivePropertiesWithoutNullValues;
     }
 
+    @Override
+    public FixedPropertiesLayout getFixedPropertiesLayout() {
+        return _fixedPropertiesLayout;
+    }
+
     private static int calcChecksum(String[] superClasses, PropertyInfo[] properties) {
         int superClassesChecksum = calculateChecksum(superClasses);
         int propertiesChecksum = calculateChecksum(properties);
@@ -1084,6 +1090,7 @@ public class TypeDesc implements ITypeDesc {
         this._entryTypeDescs = initEntryTypeDescs();
         buildCompoundIndexesList();
         this._primitivePropertiesWithoutNullValues = findPrimitivePropertiesWithoutNullValues();
+        this._fixedPropertiesLayout = new FixedPropertiesLayout(_fixedProperties);
     }
 
     private String findPrimitivePropertiesWithoutNullValues() {
@@ -141,6 +141,8 @@ public abstract class AbstractQueryIndex implements IQueryIndexScanner {
                 size = -1;
             }
             IndexInfo info = ExplainPlanUtil.createIndexInfo(this, index, typeData, size, true);
+            if (info != null)
+                info.setCost(size >= 0 ? size : estimateScanCost(typeData));
             choiceNode.addOption(info);
             choiceNode.setChosen(info);
         }
@@ -152,6 +154,30 @@ public abstract class AbstractQueryIndex implements IQueryIndexScanner {
         return entriesByIndex;
     }
 
+    /**
+     * Estimates the cost of scanning the entries returned by this index when their number is not
+     * known in advance, i.e. when the index returns an iterator. The cost is measured in entries
+     * and is comparable to the size of the lists returned by other indexes.
+     *
+     * @return the estimated cost, or -1 if it can't be estimated
+     */
+    public long estimateScanCost(TypeData typeData) {
+        return -1;
+    }
+
+    /**
+     * @return the index if it has a bitmap index which can be used for the template, null otherwise
+     */
+    protected TypeDataIndex<?> getBitmapIndexedIndex(TypeData typeData, ITemplateHolder template, int latestIndexToConsider) {
+        final TypeDataIndex<?> index = typeData.getIndex(getIndexName());
+        if (index == null || index.getBitmapIndex() == null || latestIndexToConsider < index.getIndexCreationNumber())
+            return null;
+        //bitmaps are ordered by entry ordinals
+        if (template.isFifoTemplate() || template.isFifoGroupPoll())
+            return null;
+        return index;
+    }
+
     private String inferIndexScannerName() {
         String simpleName = this.getClass().getSimpleName();
         return simpleName.substring(0, simpleName.indexOf("Index"));
@@ -20,6 +20,7 @@ import com.gigaspaces.internal.query.explainplan.IndexChoiceNode;
 import com.gigaspaces.internal.query.explainplan.IndexInfo;
 import com.gigaspaces.internal.query.explainplan.UnionIndexInfo;
 import com.gigaspaces.internal.server.storage.ITemplateHolder;
+import com.gigaspaces.internal.utils.collections.CompressedBitmap;
 import com.j_spaces.core.cache.IEntryCacheInfo;
 import com.j_spaces.core.cache.TypeData;
 import com.j_spaces.core.cache.TypeDataIndex;
@@ -84,7 +85,9 @@ public class CompoundAndIndexScanner extends AbstractCompoundIndexScanner {
 
         IndexChoiceNode fatherNode = null;
         IndexChoiceNode choiceNode = null;
-        IQueryIndexScanner shortestIndex = null;
+        IQueryIndexScanner shortestListIndex = null;
+        IQueryIndexScanner shortestExtendedIndexIndex = null;
+        long extendedIndexMatchCost = -1;
         final boolean isExplainPlan = context.getExplainPlanContext() != null;
         final boolean trackIndexHits = context.getIndexMetricsContext() != null;
         if(isExplainPlan){
@@ -137,9 +140,14 @@ public class CompoundAndIndexScanner extends AbstractCompoundIndexScanner {
                     intersectedList = addToIntersectedList(context, intersectedList, result, template.isFifoTemplate(), false/*shortest*/, typeData);
 
                 if (!wasUids) {
-                    shortestExtendedIndexMatch = (IScanListIterator<IEntryCacheInfo>) result;
-                    if (isExplainPlan || trackIndexHits) {
-                        shortestIndex = queryIndex;
+                    long cost = queryIndex.isUidsScanner() ? uidsSize : estimateScanCost(queryIndex, typeData);
+                    //prefer the cheapest iterator, an iterator with unknown cost replaces the previous one as before
+                    if (shortestExtendedIndexMatch == null || cost < 0 || extendedIndexMatchCost < 0 || cost <= extendedIndexMatchCost) {
+                        shortestExtendedIndexMatch = (IScanListIterator<IEntryCacheInfo>) result;
+                        extendedIndexMatchCost = cost;
+                        if (isExplainPlan || trackIndexHits) {
+                            shortestExtendedIndexIndex = queryIndex;
+                        }
                     }
                 }
                 continue;
@@ -161,7 +169,7 @@ public class CompoundAndIndexScanner extends AbstractCompoundIndexScanner {
             if (shortestPotentialMatchList == null || potentialMatchListSize <= shortestPotentialMatchList.size()){
                 shortestPotentialMatchList = potentialMatchList;
                 if(isExplainPlan || trackIndexHits){
-                    shortestIndex = queryIndex;
+                    shortestListIndex = queryIndex;
                 }
             }
             if (!shortestPotentialMatchList.isMultiObjectCollection() && !context.isIndicesIntersectionEnabled())
@@ -169,7 +177,8 @@ public class CompoundAndIndexScanner extends AbstractCompoundIndexScanner {
 
         }
 
-        if (shortestPotentialMatchList != null && (uidsSize == Integer.MAX_VALUE || shortestPotentialMatchList.size() <= uidsSize)) {
+        // A list is preferred unless the estimated cost of scanning an iterator is lower
+        if (shortestPotentialMatchList != null && (shortestExtendedIndexMatch == null || extendedIndexMatchCost < 0 || shortestPotentialMatchList.size() <= extendedIndexMatchCost)) {
             if (context.isIndicesIntersectionEnabled()) {
                 intersectedList = addToIntersectedList(context, intersectedList, shortestPotentialMatchList, template.isFifoTemplate(), true/*shortest*/, typeData);
                 if (shortestExtendedIndexMatch != null)
@@ -178,11 +187,11 @@ public class CompoundAndIndexScanner extends AbstractCompoundIndexScanner {
             }
 
             if (isExplainPlan){
-                addChosenIndex(context, typeData, fatherNode, choiceNode, shortestIndex != null ? shortestIndex.getIndexName() : "");
+                addChosenIndex(context, typeData, fatherNode, choiceNode, shortestListIndex != null ? shortestListIndex.getIndexName() : "");
             }
 
-            if (trackIndexHits && shortestIndex != null) {
-                context.getIndexMetricsContext().addChosenIndex(shortestIndex);
+            if (trackIndexHits && shortestListIndex != null) {
+                context.getIndexMetricsContext().addChosenIndex(shortestListIndex);
             }
 
             return shortestPotentialMatchList;
@@ -195,11 +204,11 @@ public class CompoundAndIndexScanner extends AbstractCompoundIndexScanner {
             }
 
             if (isExplainPlan){
-                addChosenIndex(context, typeData, fatherNode, choiceNode, shortestIndex != null ? shortestIndex.getIndexName() : null);
+                addChosenIndex(context, typeData, fatherNode, choiceNode, shortestExtendedIndexIndex != null ? shortestExtendedIndexIndex.getIndexName() : null);
             }
 
-            if (trackIndexHits && shortestIndex != null) {
-                context.getIndexMetricsContext().addChosenIndex(shortestIndex);
+            if (trackIndexHits && shortestExtendedIndexIndex != null) {
+                context.getIndexMetricsContext().addChosenIndex(shortestExtendedIndexIndex);
             }
 
             return shortestExtendedIndexMatch;
@@ -216,6 +225,25 @@ public class CompoundAndIndexScanner extends AbstractCompoundIndexScanner {
         return IQueryIndexScanner.RESULT_IGNORE_INDEX;
     }
 
+    /**
+     * Intersects the bitmaps of the conditions which can be resolved by bitmap indexes, the other
+     * conditions are evaluated when the entries are matched.
+     */
+    @Override
+    public CompressedBitmap getBitmap(TypeData typeData, ITemplateHolder template, int latestIndexToConsider) {
+        CompressedBitmap result = null;
+        for (IQueryIndexScanner indexScanner : indexScanners) {
+            CompressedBitmap bitmap = indexScanner.getBitmap(typeData, template, latestIndexToConsider);
+            if (bitmap != null)
+                result = result == null ? bitmap : result.and(bitmap);
+        }
+        return result;
+    }
+
+    private static long estimateScanCost(IQueryIndexScanner queryIndex, TypeData typeData) {
+        return queryIndex instanceof AbstractQueryIndex ? ((AbstractQueryIndex) queryIndex).estimateScanCost(typeData) : -1;
+    }
+
     private void addChosenIndex(Context context, TypeData typeData, IndexChoiceNode fatherNode, IndexChoiceNode choiceNode, String shortestIndexName) {
         IndexInfo chosen = context.getExplainPlanContext().getSingleExplainPlan().getLatestIndexChoiceNode(typeData.getClassName()).getOptionByName(shortestIndexName);
         choiceNode.setChosen(chosen);
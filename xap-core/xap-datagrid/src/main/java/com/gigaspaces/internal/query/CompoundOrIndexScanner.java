@@ -20,6 +20,7 @@ import com.gigaspaces.internal.query.explainplan.ExplainPlanContext;
 import com.gigaspaces.internal.query.explainplan.IndexChoiceNode;
 import com.gigaspaces.internal.query.explainplan.UnionIndexInfo;
 import com.gigaspaces.internal.server.storage.ITemplateHolder;
+import com.gigaspaces.internal.utils.collections.CompressedBitmap;
 import com.j_spaces.core.cache.IEntryCacheInfo;
 import com.j_spaces.core.cache.TypeData;
 import com.j_spaces.core.cache.TypeDataIndex;
@@ -107,6 +108,21 @@ public class CompoundOrIndexScanner extends AbstractCompoundIndexScanner
         return unionList;
     }
 
+    /**
+     * Unites the bitmaps of the conditions, only if all of them can be resolved by bitmap indexes.
+     */
+    @Override
+    public CompressedBitmap getBitmap(TypeData typeData, ITemplateHolder template, int latestIndexToConsider) {
+        CompressedBitmap result = null;
+        for (IQueryIndexScanner indexScanner : indexScanners) {
+            CompressedBitmap bitmap = indexScanner.getBitmap(typeData, template, latestIndexToConsider);
+            if (bitmap == null)
+                return null;
+            result = result == null ? bitmap : result.or(bitmap);
+        }
+        return result;
+    }
+
     public void add(IQueryIndexScanner customIndex) {
         indexScanners.add(customIndex);
     }
@@ -17,6 +17,8 @@
 package com.gigaspaces.internal.query;
 
 import com.gigaspaces.internal.query.explainplan.IndexChoiceNode;
+import com.gigaspaces.internal.server.storage.ITemplateHolder;
+import com.gigaspaces.internal.utils.collections.CompressedBitmap;
 import com.j_spaces.core.cache.TypeData;
 import com.j_spaces.core.cache.TypeDataIndex;
 import com.j_spaces.core.cache.context.Context;
@@ -77,6 +79,17 @@ public class ExactValueIndexScanner extends AbstractQueryIndex {
         return res;
     }
 
+    @Override
+    public CompressedBitmap getBitmap(TypeData typeData, ITemplateHolder template, int latestIndexToConsider) {
+        TypeDataIndex<?> index = getBitmapIndexedIndex(typeData, template, latestIndexToConsider);
+        if (index == null || _indexValue == null)
+            return null;
+        ConvertedObjectWrapper convertedValueWrapper = ConvertedObjectWrapper.create(_indexValue, index.getValueType());
+        if (convertedValueWrapper == null)
+            return null;
+        return index.getBitmapIndex().get(convertedValueWrapper.getValue());
+    }
+
     public boolean requiresOrderedIndex() {
         return false;
     }
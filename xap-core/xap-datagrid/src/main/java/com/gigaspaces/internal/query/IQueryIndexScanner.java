@@ -17,6 +17,7 @@
 package com.gigaspaces.internal.query;
 
 import com.gigaspaces.internal.server.storage.ITemplateHolder;
+import com.gigaspaces.internal.utils.collections.CompressedBitmap;
 import com.gigaspaces.metrics.LongCounter;
 import com.gigaspaces.serialization.SmartExternalizable;
 import com.j_spaces.core.cache.TypeData;
@@ -78,6 +79,16 @@ public interface IQueryIndexScanner extends SmartExternalizable
 
     boolean isExtendsAbstractQueryIndex();
 
+    /**
+     * Resolves the condition of this index scanner to the ordinals of the potentially matching
+     * entries using the bitmap indexes of the type.
+     *
+     * @return the ordinals, or null if the condition can't be resolved by bitmap indexes
+     */
+    default CompressedBitmap getBitmap(TypeData typeData, ITemplateHolder template, int latestIndexToConsider) {
+        return null;
+    }
+
     default LongCounter getIndexUsageCounter(TypeData typeData) {
         String indexName = getIndexName();
         if (indexName != null) {
@@ -19,6 +19,8 @@ package com.gigaspaces.internal.query;
 import com.gigaspaces.internal.io.IOUtils;
 import com.gigaspaces.internal.query.explainplan.IndexChoiceNode;
 import com.gigaspaces.internal.server.storage.ITemplateHolder;
+import com.gigaspaces.internal.utils.collections.CompressedBitmap;
+import com.j_spaces.core.cache.BitmapIndex;
 import com.j_spaces.core.cache.IEntryCacheInfo;
 import com.j_spaces.core.cache.TypeData;
 import com.j_spaces.core.cache.TypeDataIndex;
@@ -113,6 +115,23 @@ public class InValueIndexScanner extends AbstractQueryIndex {
         return inMatchResult;
     }
 
+    @Override
+    public CompressedBitmap getBitmap(TypeData typeData, ITemplateHolder template, int latestIndexToConsider) {
+        TypeDataIndex<?> index = getBitmapIndexedIndex(typeData, template, latestIndexToConsider);
+        if (index == null || _indexInValueSet.isEmpty())
+            return null;
+        BitmapIndex bitmapIndex = index.getBitmapIndex();
+        CompressedBitmap result = new CompressedBitmap();
+        for (Object indexValue : _indexInValueSet) {
+            ConvertedObjectWrapper convertedValueWrapper = ConvertedObjectWrapper.create(indexValue, index.getValueType());
+            if (convertedValueWrapper == null)
+                return null;
+            if (convertedValueWrapper.getValue() != null)
+                result = bitmapIndex.or(result, convertedValueWrapper.getValue());
+        }
+        return result;
+    }
+
     public boolean requiresOrderedIndex() {
         return false;
     }
@@ -16,6 +16,7 @@
 
 package com.gigaspaces.internal.query;
 
+import com.j_spaces.core.cache.IndexStatistics;
 import com.j_spaces.core.cache.TypeData;
 import com.j_spaces.core.cache.TypeDataIndex;
 import com.j_spaces.core.cache.context.Context;
@@ -35,6 +36,8 @@ import java.io.ObjectOutput;
 @com.gigaspaces.api.InternalApi
 public class RangeIndexScanner extends AbstractQueryIndex {
     private static final long serialVersionUID = -5025380388944017192L;
+    //traversing an ordered index costs more than traversing a list of the same size
+    private static final int ORDERED_SCAN_COST_FACTOR = 2;
 
     private Comparable<?> _min;
     private boolean _includeMin;
@@ -84,6 +87,16 @@ public class RangeIndexScanner extends AbstractQueryIndex {
 
     }
 
+    @Override
+    public long estimateScanCost(TypeData typeData) {
+        TypeDataIndex<?> index = typeData.getIndex(getIndexName());
+        IndexStatistics statistics = index != null ? index.getStatistics() : null;
+        if (statistics == null || _convertedMinWrapper == null || _convertedMaxWrapper == null)
+            return -1;
+        long estimated = statistics.estimateRange(_convertedMinWrapper.getValue(), _includeMin, _convertedMaxWrapper.getValue(), _includeMax);
+        return estimated < 0 ? -1 : estimated * ORDERED_SCAN_COST_FACTOR;
+    }
+
     @Override
     protected boolean hasIndexValue() {
         return _min != null || _max != null;
@@ -17,6 +17,8 @@ package com.gigaspaces.internal.query.explainplan;
 
 import com.gigaspaces.api.ExperimentalApi;
 import com.gigaspaces.internal.io.IOUtils;
+import com.gigaspaces.internal.version.PlatformLogicalVersion;
+import com.gigaspaces.lrmi.LRMIInvocationContext;
 import com.gigaspaces.metadata.index.SpaceIndexType;
 
 import java.io.IOException;
@@ -94,6 +96,9 @@ public class BetweenIndexInfo extends IndexInfo {
         objectOutput.writeObject(max);
         objectOutput.writeBoolean(includeMax);
         objectOutput.writeBoolean(isUsable());
+        if(LRMIInvocationContext.getEndpointLogicalVersion().greaterOrEquals(PlatformLogicalVersion.v16_0_0)){
+            objectOutput.writeLong(getCost());
+        }
     }
 
     @Override
@@ -107,6 +112,9 @@ public class BetweenIndexInfo extends IndexInfo {
         max = (Comparable) objectInput.readObject();
         includeMax = objectInput.readBoolean();
         setUsable(objectInput.readBoolean());
+        if(LRMIInvocationContext.getEndpointLogicalVersion().greaterOrEquals(PlatformLogicalVersion.v16_0_0)){
+            setCost(objectInput.readLong());
+        }
     }
 
 
@@ -17,6 +17,8 @@ package com.gigaspaces.internal.query.explainplan;
 
 import com.gigaspaces.api.ExperimentalApi;
 import com.gigaspaces.internal.io.IOUtils;
+import com.gigaspaces.internal.version.PlatformLogicalVersion;
+import com.gigaspaces.lrmi.LRMIInvocationContext;
 import com.gigaspaces.metadata.index.SpaceIndexType;
 
 import java.io.Externalizable;
@@ -38,6 +40,7 @@ public class IndexInfo implements Externalizable {
     private Object value;
     private QueryOperator operator;
     private boolean usable;
+    private long cost = -1;
 
     public IndexInfo() {
     }
@@ -118,6 +121,22 @@ public class IndexInfo implements Externalizable {
         this.usable = usable;
     }
 
+    /**
+     * @return the estimated cost of scanning the entries of this index, measured in entries, or -1
+     * if it is unknown
+     */
+    public long getCost() {
+        return cost;
+    }
+
+    public void setCost(long cost) {
+        this.cost = cost;
+    }
+
+    protected String getCostDesc() {
+        return cost < 0 ? "" : ", cost=" + cost;
+    }
+
     @Override
     public void writeExternal(ObjectOutput objectOutput) throws IOException {
         IOUtils.writeString(objectOutput, this.name);
@@ -126,6 +145,9 @@ public class IndexInfo implements Externalizable {
         objectOutput.writeObject(this.value);
         objectOutput.writeObject(this.operator);
         objectOutput.writeBoolean(this.usable);
+        if(LRMIInvocationContext.getEndpointLogicalVersion().greaterOrEquals(PlatformLogicalVersion.v16_0_0)){
+            objectOutput.writeLong(this.cost);
+        }
     }
 
     @Override
@@ -136,12 +158,16 @@ public class IndexInfo implements Externalizable {
         this.value = objectInput.readObject();
         this.operator = (QueryOperator) objectInput.readObject();
         this.usable = objectInput.readBoolean();
+        if(LRMIInvocationContext.getEndpointLogicalVersion().greaterOrEquals(PlatformLogicalVersion.v16_0_0)){
+            this.cost = objectInput.readLong();
+        }
     }
 
     @Override
     public String toString() {
         return getCriteriaDesc() +
                ", size=" + getSizeDesc() +
+               getCostDesc() +
                ", type=" + getType() +
                (isUsable() ? "" : ", UNUSABLE");
     }
@@ -20,6 +20,7 @@ public class IndexInfoDetail {
     private Object value;
     private QueryOperator operator;
     private SpaceIndexType type;
+    private long cost;
 
 
     public IndexInfoDetail(Integer id, IndexInfo option) {
@@ -29,6 +30,7 @@ public class IndexInfoDetail {
         operator = option.getOperator();
         size = option.getSize();
         type = option.getType();
+        cost = option.getCost();
     }
 
     public Integer getId() {
@@ -71,6 +73,14 @@ public class IndexInfoDetail {
         this.size = size;
     }
 
+    public long getCost() {
+        return cost;
+    }
+
+    public void setCost(long cost) {
+        this.cost = cost;
+    }
+
     public SpaceIndexType getType() {
         return type;
     }
@@ -96,13 +106,13 @@ public class IndexInfoDetail {
 //
     protected String getString(boolean verbose) {
         if (verbose) {
-            return String.format("[#%s] " + getValueFormatting() + ", size=%s, type=%s"
+            return String.format("[#%s] " + getValueFormatting() + ", size=%s%s, type=%s"
                     , getId(), getNameDescription(), getOperationDescription()
-                    , getValueDescription(value), getSizeDesc(), getType());
+                    , getValueDescription(value), getSizeDesc(), getCostDesc(), getType());
         } else {
-            return String.format("- " + getValueFormatting() + ", size=%s"
+            return String.format("- " + getValueFormatting() + ", size=%s%s"
                     , getNameDescription(), getOperationDescription()
-                    , getValueDescription(value), getSizeDesc());
+                    , getValueDescription(value), getSizeDesc(), getCostDesc());
         }
     }
 
@@ -122,6 +132,10 @@ public class IndexInfoDetail {
         return getValueDesc( value );
     }
 
+    protected String getCostDesc() {
+        return cost < 0 ? "" : ", cost=" + cost;
+    }
+
     protected String getSizeDesc() {
         return size == null || size == -1 ? "unknown" : String.valueOf(size);
     }
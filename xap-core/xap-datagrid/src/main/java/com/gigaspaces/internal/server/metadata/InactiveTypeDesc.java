@@ -22,6 +22,7 @@ import com.gigaspaces.document.SpaceDocument;
 import com.gigaspaces.internal.io.IOUtils;
 import com.gigaspaces.internal.metadata.EntryType;
 import com.gigaspaces.internal.metadata.EntryTypeDesc;
+import com.gigaspaces.internal.metadata.FixedPropertiesLayout;
 import com.gigaspaces.internal.metadata.ITypeDesc;
 import com.gigaspaces.internal.metadata.ITypeIntrospector;
 import com.gigaspaces.internal.metadata.PropertyInfo;
@@ -410,6 +411,11 @@ import java.util.Set;
         throw new UnsupportedOperationException();
     }
 
+    @Override
+    public FixedPropertiesLayout getFixedPropertiesLayout() {
+        return null;
+    }
+
     @Override
     public boolean hasSequenceNumber() {
         return false;
@@ -58,6 +58,7 @@ import com.gigaspaces.internal.cluster.node.impl.directPersistency.DirectPersist
 import com.gigaspaces.internal.cluster.node.impl.directPersistency.DirectPersistencySyncListFetcher;
 import com.gigaspaces.internal.cluster.node.impl.groups.IReplicationChannelDataFilter;
 import com.gigaspaces.internal.cluster.node.impl.groups.reliableasync.AsyncChannelConfig;
+import com.gigaspaces.internal.cluster.node.impl.replica.SpaceReplicaSnapshot;
 import com.gigaspaces.internal.cluster.node.impl.replica.SpaceSynchronizeReplicaRequestContext;
 import com.gigaspaces.internal.cluster.node.impl.router.RouterStubHolder;
 import com.gigaspaces.internal.cluster.node.impl.view.ViewDynamicSourceGroupMemberLifeCycle;
@@ -77,6 +78,7 @@ import com.gigaspaces.internal.remoting.routing.partitioned.PartitionedClusterUt
 import com.gigaspaces.internal.server.metadata.AddTypeDescResult;
 import com.gigaspaces.internal.server.metadata.AddTypeDescResultType;
 import com.gigaspaces.internal.server.metadata.IServerTypeDesc;
+import com.gigaspaces.internal.server.space.events.BatchNotifyExecutor;
 import com.gigaspaces.internal.server.space.events.SpaceDataEventManager;
 import com.gigaspaces.internal.server.space.iterator.ServerIteratorInfo;
 import com.gigaspaces.internal.server.space.iterator.ServerIteratorRequestInfo;
@@ -85,6 +87,7 @@ import com.gigaspaces.internal.server.space.metadata.ServerTypeDesc;
 import com.gigaspaces.internal.server.space.metadata.SpaceTypeManager;
 import com.gigaspaces.internal.server.space.operations.WriteEntriesResult;
 import com.gigaspaces.internal.server.space.operations.WriteEntryResult;
+import com.gigaspaces.internal.server.space.recovery.RecoverySnapshotHandler;
 import com.gigaspaces.internal.server.space.recovery.direct_persistency.StorageConsistencyModes;
 import com.gigaspaces.internal.server.space.replication.SpaceReplicationInitializer;
 import com.gigaspaces.internal.server.space.replication.SpaceReplicationManager;
@@ -207,6 +210,7 @@ public class SpaceEngine implements ISpaceModeListener , IClusterInfoChangedList
     private final SpaceTypeManager _typeManager;
     // Uncategorized components
     private final SpaceReplicationManager _replicationManager;
+    private final RecoverySnapshotHandler _recoverySnapshotHandler;
     private final TransactionHandler _transactionHandler;
     private final CacheManager _cacheManager;
     private final FilterManager _filterManager;
@@ -347,6 +351,7 @@ public class SpaceEngine implements ISpaceModeListener , IClusterInfoChangedList
         _isReplicated = _replicationManager.isReplicated();
         _isReplicatedPersistentBlobstore = _replicationManager.isReplicatedPersistentBlobstore();
         _isSyncReplication = _replicationManager.isSyncReplication();
+        _recoverySnapshotHandler = new RecoverySnapshotHandler(this);
 
         _cacheManager = new CacheManager(_configReader, _clusterPolicy, _typeManager,
                 _replicationManager.getReplicationNode(), storageAdapter, this, _spaceImpl.getCustomProperties());
@@ -512,6 +517,27 @@ public class SpaceEngine implements ISpaceModeListener , IClusterInfoChangedList
                 return countTransactions(TransactionInfo.Types.ALL, TransactionConstants.ACTIVE);
             }
         });
+
+        final BatchNotifyExecutor batchNotifier = _dataEventManager.getBatchNotifyExecutor();
+        registrator.register(registrator.toPath("notify", "batch", "received-events"), new Gauge<Long>() {
+            @Override
+            public Long getValue() throws Exception {
+                return batchNotifier.getReceivedEvents();
+            }
+        });
+        registrator.register(registrator.toPath("notify", "batch", "coalesced-events"), new Gauge<Long>() {
+            @Override
+            public Long getValue() throws Exception {
+                return batchNotifier.getCoalescedEvents();
+            }
+        });
+        registrator.register(registrator.toPath("notify", "batch", "coalescing-ratio"), new Gauge<Double>() {
+            @Override
+            public Double getValue() throws Exception {
+                final long received = batchNotifier.getReceivedEvents();
+                return received == 0 ? 0d : (double) batchNotifier.getCoalescedEvents() / received;
+            }
+        });
     }
 
     private IDuplicateOperationFilter createDuplicateOperationIDFilter() {
@@ -3602,6 +3628,14 @@ public class SpaceEngine implements ISpaceModeListener , IClusterInfoChangedList
         }
     }
 
+    /**
+     * Keeps the data of this backup space in a local snapshot if enabled, should be called when an
+     * active backup space is shutdown.
+     */
+    public void saveRecoverySnapshot() {
+        _recoverySnapshotHandler.save();
+    }
+
     private boolean shouldFlushPendingReplication() {
         SpaceHealthStatus spaceHealthStatus = _spaceImpl.getLocalSpaceHealthStatus();
         //If space is unhealthy do not wait for pending replication flush
@@ -3790,7 +3824,18 @@ public class SpaceEngine implements ISpaceModeListener , IClusterInfoChangedList
             return null;  //in-place-update by id no inheritance
         if(serverTypeDesc.getTypeDesc().isBroadcast() && skipBroadcastTable(context, template))
             return null;
-        IScanListIterator<IEntryCacheInfo> toScan = template.isServerIterator() ? getOrCreateScanListIteratorFromServerIterator(context, typeDesc, template, serverTypeDesc) : _cacheManager.getMatchingMemoryEntriesForScanning(context, typeDesc, template, serverTypeDesc);
+        IScanListIterator<IEntryCacheInfo> toScan;
+        if (template.isServerIterator()) {
+            toScan = getOrCreateScanListIteratorFromServerIterator(context, typeDesc, template, serverTypeDesc);
+        } else {
+            //the scan is consumed and released below, so the scan iterator of the context can be reused
+            context.setReuseScanIterator(true);
+            try {
+                toScan = _cacheManager.getMatchingMemoryEntriesForScanning(context, typeDesc, template, serverTypeDesc);
+            } finally {
+                context.setReuseScanIterator(false);
+            }
+        }
 
         if (toScan == null)
             return null;
@@ -6714,6 +6759,16 @@ public class SpaceEngine implements ISpaceModeListener , IClusterInfoChangedList
             }
         }
 
+        // an empty in memory backup may restore its data from the snapshot it kept on shutdown
+        SpaceReplicaSnapshot recoverySnapshot = null;
+        if (!transientOnly && !memoryOnly) {
+            try {
+                recoverySnapshot = _recoverySnapshotHandler.restore();
+            } catch (Exception e) {
+                return FailedSyncSpaceReplicateState.createFailedSyncState(e);
+            }
+        }
+
         ISpaceSynchronizeReplicaRequestContext context = createReplicateSpaceContext(sourceRemoteUrl,
                 null,
                 true,
@@ -6726,6 +6781,9 @@ public class SpaceEngine implements ISpaceModeListener , IClusterInfoChangedList
                 concurrentConsumers,
                 getCacheManager().isBlobStoreCachePolicy(),
                 directPersistencySyncListRecovery ? directPersistencySyncListFetcher : null);
+        if (recoverySnapshot != null)
+            ((SpaceCopyReplicaParameters) context.getParameters()).setResumePoint(recoverySnapshot.getSourceUniqueId(),
+                    recoverySnapshot.getLastProcessedKey());
 
         ISpaceSynchronizeReplicaState spaceSynchronizeReplicaRequest = getReplicationNode().spaceSynchronizeReplicaRequest(context);
 
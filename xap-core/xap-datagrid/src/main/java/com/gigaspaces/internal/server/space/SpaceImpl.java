@@ -1369,6 +1369,9 @@ public class SpaceImpl extends AbstractService implements IRemoteSpace, IInterna
 
         beforeShutdown();
 
+        if (!isDestroy && previousState == ISpaceState.STARTED && isBackup())
+            saveRecoverySnapshot();
+
         if (isDestroy)
             destroy();
         else if (previousState != ISpaceState.STOPPED)
@@ -1424,6 +1427,17 @@ public class SpaceImpl extends AbstractService implements IRemoteSpace, IInterna
             engine.waitForConsistentState();
     }
 
+    private void saveRecoverySnapshot() {
+        SpaceEngine engine = _engine;
+        if (engine == null)
+            return;
+        try {
+            engine.saveRecoverySnapshot();
+        } catch (RuntimeException e) {
+            _logger.warn("Failed to save recovery snapshot", e);
+        }
+    }
+
     public void unregister() throws RemoteException {
         unregisterFromLookupService();
 
@@ -127,19 +127,31 @@ public class TemplateScanner {
 
     private void cancelTemplates(Map<?, IStoredList<TemplateCacheInfo>> map, Exception ex) {
         if (map == null) return;
+        ScanSingleListIterator<TemplateCacheInfo> iterator = null;
         for (IStoredList<TemplateCacheInfo> storedList : map.values()) {
-            cancelTemplates(storedList, ex);
+            iterator = cancelTemplates(storedList, ex, iterator);
         }
     }
 
 
     private void cancelTemplates(IStoredList<TemplateCacheInfo> templates, Exception ex) {
-        if (templates == null) return;
+        cancelTemplates(templates, ex, null);
+    }
+
+    /**
+     * @param iterator an iterator to reuse, or null
+     * @return the iterator used for the scan, for reuse in the next scan
+     */
+    private ScanSingleListIterator<TemplateCacheInfo> cancelTemplates(IStoredList<TemplateCacheInfo> templates, Exception ex,
+                                                                     ScanSingleListIterator<TemplateCacheInfo> iterator) {
+        if (templates == null) return iterator;
 
-        if (templates.isEmpty()) return;
+        if (templates.isEmpty()) return iterator;
 
-        ScanSingleListIterator<TemplateCacheInfo> iterator = new ScanSingleListIterator<TemplateCacheInfo>(templates, false);
-        //TODO consider using iterator.reuse();
+        if (iterator == null)
+            iterator = new ScanSingleListIterator<TemplateCacheInfo>(templates, false);
+        else
+            iterator.reuse(templates);
         try {
             while (iterator.hasNext()) {
                 ITemplateHolder templateHolder = iterator.next().getSubject().m_TemplateHolder;
@@ -150,6 +162,7 @@ public class TemplateScanner {
         } finally {
             iterator.releaseScan();
         }
+        return iterator;
     }
 
 
@@ -34,6 +34,7 @@ import java.util.Iterator;
 import java.util.Map;
 import java.util.NoSuchElementException;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -62,6 +63,8 @@ public class BatchNotifyExecutor {
     private WorkingGroup<RemoteEventBusPacket> _notifyWorkingGroup;
     //for debugging
     private final AtomicInteger _estimatedNumberOfTimeKeys;
+    private final LongAdder _receivedEvents = new LongAdder();
+    private final LongAdder _coalescedEvents = new LongAdder();
 
 
     public BatchNotifyExecutor(String fullSpaceName, WorkingGroup<RemoteEventBusPacket> notifyWorkingGroup) {
@@ -77,6 +80,21 @@ public class BatchNotifyExecutor {
         _notifyThread.shutdown();
     }
 
+    /**
+     * @return the number of events which were added to the batches of the notify templates
+     */
+    public long getReceivedEvents() {
+        return _receivedEvents.sum();
+    }
+
+    /**
+     * @return the number of events which replaced a pending update of the same entry instead of
+     * being sent on their own
+     */
+    public long getCoalescedEvents() {
+        return _coalescedEvents.sum();
+    }
+
     public void execute(RemoteEventBusPacket re) throws RemoteException, UnknownEventException {
         if (re.isAfterBatching()) {
             re.notifyListener();
@@ -94,7 +112,12 @@ public class BatchNotifyExecutor {
                 time = time + (BATCH_NOTIFY_TIMEKEY_GRANULARITY - leftover);
         }
         EventHolder eventHolder = new EventHolder(event, time);
-        template.addPendingEvent(eventHolder);
+        _receivedEvents.increment();
+        if (!template.addPendingEvent(eventHolder)) {
+            // replaced a pending update of the same entry, which is already scheduled to be sent
+            _coalescedEvents.increment();
+            return;
+        }
         //if (_logger.isTraceEnabled())
         //{
         //    _logger.trace("execute: added to template border="  + template.getBatchOrder() + " seq=" + eventHolder.getEvent().getSequenceNumber());
@@ -300,12 +323,16 @@ public class BatchNotifyExecutor {
 
     // this class holds the event and the original time to fire.
     public static class EventHolder {
-        private final RemoteEvent _event;
+        private volatile RemoteEvent _event;
         private final long _time;
+        // the sequence number of the original event, the held event may be replaced by a coalesced update
+        private final long _sequenceNumber;
+        private boolean _polled;
 
         public EventHolder(RemoteEvent event, long time) {
             _event = event;
             _time = time;
+            _sequenceNumber = event.getSequenceNumber();
         }
 
         public RemoteEvent getEvent() {
@@ -315,6 +342,30 @@ public class BatchNotifyExecutor {
         public long getTime() {
             return _time;
         }
+
+        public long getSequenceNumber() {
+            return _sequenceNumber;
+        }
+
+        /**
+         * Replaces the held event, unless it was already polled in order to be sent.
+         */
+        public synchronized boolean replaceEvent(RemoteEvent event) {
+            if (_polled)
+                return false;
+            _event = event;
+            return true;
+        }
+
+        /**
+         * @return <code>false</code> if this holder was already polled
+         */
+        public synchronized boolean markPolled() {
+            if (_polled)
+                return false;
+            _polled = true;
+            return true;
+        }
     }
 
     private static class TimeKey implements Comparable<TimeKey> {
@@ -334,7 +385,7 @@ public class BatchNotifyExecutor {
             if (_templateBatchOrder != other._templateBatchOrder)
                 return (int) (_templateBatchOrder - other._templateBatchOrder);
 
-            return (int) (_holder.getEvent().getSequenceNumber() - other._holder.getEvent().getSequenceNumber());
+            return (int) (_holder.getSequenceNumber() - other._holder.getSequenceNumber());
         }
     }
 
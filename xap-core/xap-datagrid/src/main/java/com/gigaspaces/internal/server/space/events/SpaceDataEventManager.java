@@ -169,6 +169,10 @@ public class SpaceDataEventManager implements ISpaceModeListener {
         return _dataEventDispatcherWorkingGroup.getQueue().size();
     }
 
+    public BatchNotifyExecutor getBatchNotifyExecutor() {
+        return _batchNotifier;
+    }
+
     public void executePacket(RemoteEventBusPacket re, NotifyTemplateHolder th)
             throws RemoteException, UnknownEventException {
         if (th.isBatching())
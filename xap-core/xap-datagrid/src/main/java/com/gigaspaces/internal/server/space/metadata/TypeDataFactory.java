@@ -27,6 +27,11 @@ import com.j_spaces.core.cache.CustomTypeDataIndex;
 import com.j_spaces.core.cache.MultiValueTypeDataIndex;
 import com.j_spaces.core.cache.TypeData;
 import com.j_spaces.core.cache.TypeDataIndex;
+import com.j_spaces.kernel.SystemProperties;
+
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Set;
 
 import static com.j_spaces.core.Constants.CacheManager.CACHE_MANAGER_USE_ECONOMY_HASHMAP_DEFAULT;
 import static com.j_spaces.core.Constants.CacheManager.CACHE_MANAGER_USE_ECONOMY_HASHMAP_PROP;
@@ -34,6 +39,10 @@ import static com.j_spaces.core.Constants.CacheManager.CACHE_MANAGER_USE_ECONOMY
 @com.gigaspaces.api.InternalApi
 public class TypeDataFactory {
     private final boolean _useEconomyHashMap;
+    //typeName.propertyName of ordered indexes kept in native memory
+    private final Set<String> _offHeapOrderedIndexes;
+    //typeName.propertyName of equality indexes which keep a secondary bitmap index
+    private final Set<String> _bitmapIndexes;
 
     private final CacheManager _cacheManager;
 
@@ -43,6 +52,31 @@ public class TypeDataFactory {
 
         configReader.assertSpacePropertyNotExists("engine.extended-match.enabled-classes", "7.0.1", "8.0");
         _cacheManager = cacheManager;
+        _offHeapOrderedIndexes = initIndexesList(System.getProperty(SystemProperties.CACHE_MANAGER_OFF_HEAP_ORDERED_INDEXES));
+        _bitmapIndexes = initIndexesList(System.getProperty(SystemProperties.CACHE_MANAGER_BITMAP_INDEXES, SystemProperties.CACHE_MANAGER_BITMAP_INDEXES_DEFAULT));
+    }
+
+    private static Set<String> initIndexesList(String value) {
+        if (value == null || value.trim().isEmpty())
+            return Collections.emptySet();
+        Set<String> result = new HashSet<String>();
+        for (String index : value.split(","))
+            if (!index.trim().isEmpty())
+                result.add(index.trim());
+        return result;
+    }
+
+    public boolean hasBitmapIndexes(String typeName) {
+        if (_bitmapIndexes.isEmpty())
+            return false;
+        for (String index : _bitmapIndexes)
+            if (index.startsWith(typeName + "."))
+                return true;
+        return false;
+    }
+
+    public boolean isBitmapIndex(String typeName, String propertyName) {
+        return !_bitmapIndexes.isEmpty() && _bitmapIndexes.contains(typeName + "." + propertyName);
     }
 
     public boolean useEconomyHashMap() {
@@ -67,8 +101,9 @@ public class TypeDataFactory {
         return new TypeData(serverTypeDesc, originalTypeData, reason);
     }
 
-    public <K> TypeDataIndex<K> createTypeDataIndex(CacheManager cacheManager, ISpaceIndex index, int pos, int indexCreationNumber, Class<?> indexValueClass, ISpaceIndex.FifoGroupsIndexTypes fifoGroupsIndexType) {
-        return new TypeDataIndex<K>(cacheManager, index, pos, _useEconomyHashMap, indexCreationNumber, indexValueClass, fifoGroupsIndexType);
+    public <K> TypeDataIndex<K> createTypeDataIndex(CacheManager cacheManager, String typeName, ISpaceIndex index, int pos, int indexCreationNumber, Class<?> indexValueClass, ISpaceIndex.FifoGroupsIndexTypes fifoGroupsIndexType) {
+        boolean offHeapOrderedIndex = !_offHeapOrderedIndexes.isEmpty() && _offHeapOrderedIndexes.contains(typeName + "." + index.getName());
+        return new TypeDataIndex<K>(cacheManager, index, pos, _useEconomyHashMap, indexCreationNumber, indexValueClass, fifoGroupsIndexType, offHeapOrderedIndex);
     }
 
     public <K> TypeDataIndex<K> createMultiValuePerEntryTypeDataIndex(CacheManager cacheManager, ISpaceIndex index, int pos, int indexCreationNumber, ISpaceIndex.MultiValuePerEntryIndexTypes indexType) {
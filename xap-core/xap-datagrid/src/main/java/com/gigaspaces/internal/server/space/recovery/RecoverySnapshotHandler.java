@@ -0,0 +1,232 @@
+/*
+ * Copyright (c) 2008-2016, GigaSpaces Technologies, Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.gigaspaces.internal.server.space.recovery;
+
+import com.gigaspaces.internal.cluster.node.impl.ReplicationNode;
+import com.gigaspaces.internal.cluster.node.impl.groups.AbstractReplicationTargetChannel;
+import com.gigaspaces.internal.cluster.node.impl.groups.AbstractReplicationTargetGroup;
+import com.gigaspaces.internal.cluster.node.impl.groups.IReplicationTargetGroup;
+import com.gigaspaces.internal.cluster.node.impl.groups.NoSuchReplicationGroupExistException;
+import com.gigaspaces.internal.cluster.node.impl.processlog.IReplicationTargetProcessLog;
+import com.gigaspaces.internal.cluster.node.impl.processlog.globalorder.GlobalOrderReliableAsyncTargetKeeperProcessLog;
+import com.gigaspaces.internal.cluster.node.impl.processlog.globalorder.GlobalOrderTargetProcessLog;
+import com.gigaspaces.internal.cluster.node.impl.replica.EntryReplicaProducer;
+import com.gigaspaces.internal.cluster.node.impl.replica.IExecutableSpaceReplicaData;
+import com.gigaspaces.internal.cluster.node.impl.replica.ISingleStageReplicaDataProducer;
+import com.gigaspaces.internal.cluster.node.impl.replica.ISpaceReplicaData;
+import com.gigaspaces.internal.cluster.node.impl.replica.SpaceCopyIntermediateResult;
+import com.gigaspaces.internal.cluster.node.impl.replica.SpaceReplicaDataConsumer;
+import com.gigaspaces.internal.cluster.node.impl.replica.SpaceReplicaSnapshot;
+import com.gigaspaces.internal.cluster.node.impl.replica.SpaceTypeReplicaDataProducer;
+import com.gigaspaces.internal.cluster.node.replica.SpaceCopyReplicaParameters;
+import com.gigaspaces.internal.cluster.node.replica.SpaceCopyReplicaParameters.ReplicaType;
+import com.gigaspaces.internal.server.space.SpaceEngine;
+import com.gigaspaces.internal.server.space.SpaceEngineReplicaConsumerFacade;
+import com.gigaspaces.logger.Constants;
+import com.gigaspaces.time.SystemTime;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.File;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Keeps the data of an in memory backup space in a local {@link SpaceReplicaSnapshot} when it is
+ * shutdown, so it can restore its data locally once it restarts and only synchronize the packets
+ * the primary backlog holds from the position the snapshot was taken at.
+ * <p>
+ * Enabled by setting the directory of the snapshots with the <code>com.gs.replication.recovery.snapshot-dir</code>
+ * system property. The primary decides if the synchronization can resume from the snapshot
+ * position, otherwise the backup recovers all the data from the primary as usual.
+ *
+ * @since 16.0
+ */
+@com.gigaspaces.api.InternalApi
+public class RecoverySnapshotHandler {
+    private static final Logger _logger = LoggerFactory.getLogger(Constants.LOGGER_REPLICATION_REPLICA);
+
+    private static final String SNAPSHOT_DIR = System.getProperty("com.gs.replication.recovery.snapshot-dir");
+    private static final long SNAPSHOT_CLOSE_TIMEOUT = Long.getLong("com.gs.replication.recovery.snapshot-close-timeout", 10000);
+
+    private final SpaceEngine _engine;
+    private SpaceReplicaSnapshot _restoredSnapshot;
+    private boolean _restoreAttempted;
+
+    public RecoverySnapshotHandler(SpaceEngine engine) {
+        _engine = engine;
+    }
+
+    /**
+     * Restores the data of this space from its snapshot if one exists, the snapshot is consumed by
+     * the first call and any following call returns the same result.
+     *
+     * @return the restored snapshot, or null if no data was restored
+     * @throws Exception if the space holds partially restored data and can not be synchronized
+     */
+    public synchronized SpaceReplicaSnapshot restore() throws Exception {
+        if (_restoreAttempted)
+            return _restoredSnapshot;
+        _restoreAttempted = true;
+
+        final File file = getSnapshotFile();
+        if (file == null || !file.exists())
+            return null;
+        if (!isSupported() || !_engine.getSpaceImpl().isBackup() || !_engine.getCacheManager().isEmptyAfterInitialLoadStage()) {
+            file.delete();
+            return null;
+        }
+
+        final long startTime = SystemTime.timeMillis();
+        SpaceReplicaSnapshot.Reader reader = null;
+        try {
+            try {
+                reader = SpaceReplicaSnapshot.read(file);
+            } catch (Exception e) {
+                if (_logger.isWarnEnabled())
+                    _logger.warn(getLogPrefix() + "ignoring recovery snapshot " + file + " which can not be read", e);
+                return null;
+            }
+            final SpaceReplicaSnapshot snapshot = reader.getSnapshot();
+            if (!snapshot.getSpaceName().equals(_engine.getFullSpaceName())
+                    || !snapshot.getGroupName().equals(_engine.generateGroupName())) {
+                if (_logger.isWarnEnabled())
+                    _logger.warn(getLogPrefix() + "ignoring recovery snapshot " + file + " of another space " + snapshot);
+                return null;
+            }
+
+            final SpaceReplicaDataConsumer consumer = new SpaceReplicaDataConsumer(_engine.getTypeManager(),
+                    new SpaceEngineReplicaConsumerFacade(_engine));
+            final SpaceCopyIntermediateResult result = consumer.createEmptyResult();
+            final ReplicationNode replicationNode = (ReplicationNode) _engine.getReplicationNode();
+            long count = 0;
+            ISpaceReplicaData data;
+            while ((data = reader.next()) != null) {
+                consumer.consumeData((IExecutableSpaceReplicaData) data, result, replicationNode);
+                count++;
+            }
+            if (_logger.isInfoEnabled())
+                _logger.info(getLogPrefix() + "restored " + count + " replica data from recovery snapshot " + file
+                        + " in " + (SystemTime.timeMillis() - startTime) + " ms, synchronization will resume from key "
+                        + snapshot.getLastProcessedKey());
+            _restoredSnapshot = snapshot;
+            return snapshot;
+        } finally {
+            if (reader != null)
+                reader.close();
+            // the snapshot is stale once the space starts replicating
+            file.delete();
+        }
+    }
+
+    /**
+     * Writes the data of this space to its snapshot, should only be called while an in memory
+     * backup space is shutting down since replication into the space is stopped.
+     */
+    public void save() {
+        final File file = getSnapshotFile();
+        if (file == null || !isSupported())
+            return;
+
+        final String groupName = _engine.generateGroupName();
+        final IReplicationTargetGroup targetGroup;
+        try {
+            targetGroup = ((ReplicationNode) _engine.getReplicationNode()).getReplicationTargetGroup(groupName);
+        } catch (NoSuchReplicationGroupExistException e) {
+            return;
+        }
+        if (!(targetGroup instanceof AbstractReplicationTargetGroup))
+            return;
+        final Collection<AbstractReplicationTargetChannel> channels = ((AbstractReplicationTargetGroup) targetGroup).getChannels();
+        if (channels.size() != 1) {
+            if (_logger.isDebugEnabled())
+                _logger.debug(getLogPrefix() + "skipping recovery snapshot, replicating from " + channels.size() + " sources");
+            return;
+        }
+        final AbstractReplicationTargetChannel channel = channels.iterator().next();
+        final IReplicationTargetProcessLog processLog = channel.getProcessLog();
+        // a keeper process log holds reliable async state which is not part of the space data
+        if (!(processLog instanceof GlobalOrderTargetProcessLog) || processLog instanceof GlobalOrderReliableAsyncTargetKeeperProcessLog)
+            return;
+
+        final long startTime = SystemTime.timeMillis();
+        try {
+            // Stop replicating into this space so the data matches the last processed key, the
+            // primary keeps the following packets in its backlog for this space
+            if (!processLog.close(SNAPSHOT_CLOSE_TIMEOUT, TimeUnit.MILLISECONDS)) {
+                if (_logger.isWarnEnabled())
+                    _logger.warn(getLogPrefix() + "skipping recovery snapshot, replication processing did not stop in " + SNAPSHOT_CLOSE_TIMEOUT + " ms");
+                return;
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return;
+        }
+        if (!_engine.getTransactionHandler().getXtnTable().isEmpty()) {
+            if (_logger.isInfoEnabled())
+                _logger.info(getLogPrefix() + "skipping recovery snapshot, there are active transactions");
+            return;
+        }
+
+        final SpaceReplicaSnapshot snapshot = new SpaceReplicaSnapshot(_engine.getFullSpaceName(),
+                groupName,
+                channel.getSourceUniqueId(),
+                ((GlobalOrderTargetProcessLog) processLog).getLastProcessedKey());
+        final SpaceCopyReplicaParameters parameters = new SpaceCopyReplicaParameters();
+        parameters.setReplicaType(ReplicaType.SYNCRONIZE);
+        final List<ISingleStageReplicaDataProducer<?>> producers = Arrays.<ISingleStageReplicaDataProducer<?>>asList(
+                new SpaceTypeReplicaDataProducer(_engine),
+                new EntryReplicaProducer(_engine, parameters, null, "recovery-snapshot"));
+        try {
+            final long count = snapshot.write(file, producers);
+            if (_logger.isInfoEnabled())
+                _logger.info(getLogPrefix() + "wrote " + count + " replica data to recovery snapshot " + file
+                        + " in " + (SystemTime.timeMillis() - startTime) + " ms, " + snapshot);
+        } catch (Exception e) {
+            if (_logger.isWarnEnabled())
+                _logger.warn(getLogPrefix() + "failed to write recovery snapshot " + file, e);
+        } finally {
+            for (ISingleStageReplicaDataProducer<?> producer : producers)
+                producer.close(false /*forced*/);
+        }
+    }
+
+    /**
+     * Only in memory spaces whose data is fully kept by the replication can be restored from a
+     * snapshot, persistent spaces reload their own data.
+     */
+    private boolean isSupported() {
+        return _engine.isReplicated()
+                && _engine.getCacheManager().isAllInCachePolicy()
+                && !_engine.getCacheManager().isCacheExternalDB()
+                && !_engine.getCacheManager().isBlobStoreCachePolicy()
+                && !_engine.isTieredStorage()
+                && _engine.getSpaceImpl().getDirectPersistencyRecoveryHelper() == null
+                && _engine.getReplicationNode().getDirectPesistencySyncHandler() == null;
+    }
+
+    private File getSnapshotFile() {
+        return SNAPSHOT_DIR != null ? SpaceReplicaSnapshot.getFile(new File(SNAPSHOT_DIR), _engine.getFullSpaceName()) : null;
+    }
+
+    private String getLogPrefix() {
+        return "[" + _engine.getFullSpaceName() + "] ";
+    }
+}
@@ -28,7 +28,9 @@ import com.j_spaces.core.cluster.ReplicationPolicy;
 import com.j_spaces.core.cluster.startup.CompactionResult;
 import com.j_spaces.core.cluster.startup.RedoLogCompactionUtil;
 
+import java.util.HashMap;
 import java.util.Iterator;
+import java.util.Map;
 import java.util.NoSuchElementException;
 
 import org.slf4j.Logger;
@@ -322,6 +324,46 @@ public class FixedSizeSwapRedoLogFile<T extends IReplicationOrderedPacket> imple
         return result;
     }
 
+    @Override
+    public CompactionResult compactSupersededUpdates(long from, long to, long scanTo) {
+        //Packets in the external storage can not be replaced, only the packets which are kept in
+        //memory, which are the oldest ones and the next to be consumed by lagging targets, are compacted.
+        //The packets of the external storage up to the scan end are only read, to find the operations
+        //superseding the packets at the end of the memory
+        final Map<String, Boolean> supersedingOperations = new HashMap<String, Boolean>();
+        if (_insertToExternal && scanTo > _memoryRedoLogFile.getLastSupersedableKey())
+            collectSupersedingOperationsFromStorage(scanTo, supersedingOperations);
+
+        final CompactionResult result = _memoryRedoLogFile.compactSupersededUpdates(from, to, scanTo, supersedingOperations);
+        if (_logger.isDebugEnabled() && !result.isEmpty()) {
+            _logger.debug("[" + _name + "]: Discarded " + result.getDiscardedCount() + " superseded update packets in range " + from + "-" + to);
+        }
+        return result;
+    }
+
+    private void collectSupersedingOperationsFromStorage(long scanTo, Map<String, Boolean> supersedingOperations) {
+        try {
+            StorageReadOnlyIterator<T> storageIterator = _externalStorage.readOnlyIterator();
+            try {
+                while (storageIterator.hasNext()) {
+                    T packet = storageIterator.next();
+                    if (packet.getKey() > scanTo)
+                        break;
+                    RedoLogCompactionUtil.collectSupersedingOperations(packet, supersedingOperations);
+                }
+            } finally {
+                storageIterator.close();
+            }
+        } catch (StorageException e) {
+            throw new SwapStorageException(e);
+        }
+    }
+
+    @Override
+    public long getLastSupersedableKey() {
+        return _memoryRedoLogFile.getLastSupersedableKey();
+    }
+
     /**
      * A read only iterator which iterate over the memory redo log file, and once completed
      * iterating over it, it continue to iterate over the external storage
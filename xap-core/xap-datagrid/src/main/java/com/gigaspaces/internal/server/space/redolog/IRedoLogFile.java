@@ -107,4 +107,22 @@ public interface IRedoLogFile<T extends IReplicationOrderedPacket> extends Itera
      * @return number of discarded packets
      */
     CompactionResult performCompaction(long from, long to);
+
+    /**
+     * Discards the update packets in the given range which are superseded by a later operation on
+     * the same entry, the packets which follow the range up to the given scan end are read to find
+     * the operations superseding the packets at the end of the range
+     *
+     * @param from   key of the first packet of the range
+     * @param to     key of the last packet of the range, no later than {@link #getLastSupersedableKey()}
+     * @param scanTo key of the last packet read
+     * @return number of discarded packets
+     */
+    CompactionResult compactSupersededUpdates(long from, long to, long scanTo);
+
+    /**
+     * @return key of the newest packet which {@link #compactSupersededUpdates(long, long, long)} can
+     * discard, or -1 if there is none
+     */
+    long getLastSupersedableKey();
 }
@@ -24,9 +24,11 @@ import com.gigaspaces.internal.utils.collections.ReadOnlyIteratorAdapter;
 import com.j_spaces.core.cluster.startup.CompactionResult;
 import com.j_spaces.core.cluster.startup.RedoLogCompactionUtil;
 
+import java.util.HashMap;
 import java.util.Iterator;
 import java.util.LinkedList;
 import java.util.ListIterator;
+import java.util.Map;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -177,6 +179,34 @@ public class MemoryRedoLogFile<T extends IReplicationOrderedPacket> implements I
         return compactionResult;
     }
 
+    @Override
+    public CompactionResult compactSupersededUpdates(long from, long to, long scanTo) {
+        return compactSupersededUpdates(from, to, scanTo, new HashMap<String, Boolean>());
+    }
+
+    /**
+     * @param supersedingOperations the operations which follow the packets of this file up to the
+     *                              scan end, see {@link RedoLogCompactionUtil#collectSupersedingOperations}
+     */
+    public CompactionResult compactSupersededUpdates(long from, long to, long scanTo, Map<String, Boolean> supersedingOperations) {
+        if (_redoFile.isEmpty()) {
+            return new CompactionResult();
+        }
+        //The keys are consecutive and a packet holds at least one key, therefore the packet of the scan end
+        //key is no later than this index, and the scan starts near the oldest packets without walking the list
+        long scanEndIndex = Math.min(_redoFile.size(), Math.max(0, scanTo - _redoFile.getFirst().getKey() + 1));
+        ListIterator<T> iterator = _redoFile.listIterator((int) scanEndIndex);
+        final CompactionResult compactionResult = RedoLogCompactionUtil.compactSupersededUpdates(from, to, scanTo, iterator, supersedingOperations);
+        this._weight -= compactionResult.getDiscardedCount();
+        this._discardedPacketCount += compactionResult.getDiscardedCount();
+        return compactionResult;
+    }
+
+    @Override
+    public long getLastSupersedableKey() {
+        return _redoFile.isEmpty() ? -1 : _redoFile.getLast().getEndKey();
+    }
+
     private void increaseWeight(T packet) {
         if (packet.isDiscardedPacket()) {
             _discardedPacketCount++;
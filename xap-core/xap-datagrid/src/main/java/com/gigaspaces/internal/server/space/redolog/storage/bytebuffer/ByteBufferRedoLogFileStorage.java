@@ -593,17 +593,6 @@ public class ByteBufferRedoLogFileStorage<T extends IReplicationOrderedPacket>
 
     }
 
-    private ByteArrayResource readBytesFromStorage(IByteBufferStorageCursor reader) {
-        int length = reader.readInt();
-        if (length == END_OF_PACKETS_MARKER)
-            return null;
-        if (length == END_OF_SEGMENT_MARKER)
-            return null;
-        ByteArrayResource byteArrayResource = getByteArrayResource(length);
-        reader.readBytes(byteArrayResource.array(), 0, length);
-        return byteArrayResource;
-    }
-
     private ByteArrayResource getByteArrayResource(int length) {
         ByteArrayResource resource = _byteArrayPool.getResource();
         resource.ensureCapacity(length);
@@ -635,22 +624,33 @@ public class ByteBufferRedoLogFileStorage<T extends IReplicationOrderedPacket>
 
     private T readSinglePacketFromStorage(IByteBufferStorageCursor reader) throws IOException,
             ClassNotFoundException {
-        ByteArrayResource serializedPacket = readBytesFromStorage(reader);
-        if (serializedPacket == null)
+        int length = reader.readInt();
+        if (length == END_OF_PACKETS_MARKER)
             return null;
-        try {
+        if (length == END_OF_SEGMENT_MARKER)
+            return null;
+        //Storage which is directly addressable is deserialized in place without a heap copy
+        ByteBuffer slice = reader.readSlice(length);
+        if (slice != null)
+            return onPacketRead(_packetSerializer.deserializePacket(slice));
 
-            T packet = _packetSerializer.deserializePacket(serializedPacket.array());
-            IReplicationPacketData<?> packetData = packet.getData();
-            if(packetData != null){
-                packetData.setWeight(backlogWeightPolicy.calculateWeight(packetData));
-            }
-            return packet;
+        ByteArrayResource serializedPacket = getByteArrayResource(length);
+        try {
+            reader.readBytes(serializedPacket.array(), 0, length);
+            return onPacketRead(_packetSerializer.deserializePacket(serializedPacket.array()));
         } finally {
             serializedPacket.release();
         }
     }
 
+    private T onPacketRead(T packet) {
+        IReplicationPacketData<?> packetData = packet.getData();
+        if(packetData != null){
+            packetData.setWeight(backlogWeightPolicy.calculateWeight(packetData));
+        }
+        return packet;
+    }
+
     public synchronized void allocatedNewResource(SegmentCursor resource) {
         if (_allocatedReaders.size() >= _maxCursors) {
             //Attempt to clear the storage reader of the older created reader
@@ -748,8 +748,12 @@ public class ByteBufferRedoLogFileStorage<T extends IReplicationOrderedPacket>
                         continue;
                     }
 
-                    byte[] packetBuffer = new byte[length];
-                    reader.readBytes(packetBuffer, 0, length);
+                    ByteBuffer packetBuffer = reader.readSlice(length);
+                    if (packetBuffer == null) {
+                        byte[] packetBytes = new byte[length];
+                        reader.readBytes(packetBytes, 0, length);
+                        packetBuffer = ByteBuffer.wrap(packetBytes);
+                    }
                     //Deserialize packet to check stream not corrupted
                     if (_traceableLogger.isTraceEnabled())
                         _traceableLogger.trace("deserializing packet");
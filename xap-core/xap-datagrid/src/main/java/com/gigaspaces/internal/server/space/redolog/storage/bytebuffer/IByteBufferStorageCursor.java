@@ -16,6 +16,8 @@
 
 package com.gigaspaces.internal.server.space.redolog.storage.bytebuffer;
 
+import java.nio.ByteBuffer;
+
 public interface IByteBufferStorageCursor {
     void setPosition(long position);
 
@@ -39,5 +41,17 @@ public interface IByteBufferStorageCursor {
 
     void writeBytes(byte[] array, int offset, int length);
 
+    /**
+     * Returns a view over the next <code>length</code> bytes of the storage and advances the
+     * position past them, allowing the caller to consume the bytes without copying them to the heap.
+     *
+     * @return the view, or null if the storage does not support it for the requested range, in which
+     * case the position is left unchanged.
+     * @since 16.0
+     */
+    default ByteBuffer readSlice(int length) {
+        return null;
+    }
+
     void close();
 }
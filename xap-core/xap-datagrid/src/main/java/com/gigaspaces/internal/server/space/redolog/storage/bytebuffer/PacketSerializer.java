@@ -16,8 +16,8 @@
 
 package com.gigaspaces.internal.server.space.redolog.storage.bytebuffer;
 
-import com.gigaspaces.internal.io.GSByteArrayInputStream;
 import com.gigaspaces.internal.io.GSByteArrayOutputStream;
+import com.gigaspaces.internal.space.transport.xnio.ByteBufferBackedInputStream;
 import com.gigaspaces.logger.Constants;
 import com.j_spaces.kernel.pool.IResourceFactory;
 import com.j_spaces.kernel.pool.IResourcePool;
@@ -94,6 +94,16 @@ public class PacketSerializer<T> {
     }
 
     public T deserializePacket(byte[] serializedPacket) throws IOException, ClassNotFoundException {
+        return deserializePacket(ByteBuffer.wrap(serializedPacket));
+    }
+
+    /**
+     * Deserializes a packet directly from the specified buffer, which may be a view over off heap
+     * memory such as a memory mapped file, without copying it to the heap first.
+     *
+     * @since 16.0
+     */
+    public T deserializePacket(ByteBuffer serializedPacket) throws IOException, ClassNotFoundException {
         InputStreamsResource resource = _inputStreamsPool.getResource();
         try {
             resource.setBuffer(serializedPacket);
@@ -119,16 +129,17 @@ public class PacketSerializer<T> {
     }
 
     final private static byte[] _resetBuffer = new byte[]{ObjectStreamConstants.TC_RESET, ObjectStreamConstants.TC_NULL};
-    final private static byte[] _dummyBuffer = new byte[0];
+    final private static ByteBuffer _dummyBuffer = ByteBuffer.allocate(0);
 
     public class InputStreamsResource extends Resource {
-        private GSByteArrayInputStream gsByteArrayInputStream = new GSByteArrayInputStream(_dummyBuffer);
+        private final ByteBuffer resetBuffer = ByteBuffer.wrap(_resetBuffer);
+        private ByteBufferBackedInputStream inputStream = new ByteBufferBackedInputStream(_dummyBuffer);
         private ByteBufferObjectInputStream objectInputStream;
         private boolean _corrupted;
 
         public T readPacket() throws IOException, ClassNotFoundException {
             if (objectInputStream == null)
-                objectInputStream = new ByteBufferObjectInputStream(gsByteArrayInputStream);
+                objectInputStream = new ByteBufferObjectInputStream(inputStream);
             return _packetStreamSerializer.readPacketFromStream(objectInputStream);
         }
 
@@ -136,8 +147,8 @@ public class PacketSerializer<T> {
             _corrupted = true;
         }
 
-        public void setBuffer(byte[] serializedPacket) {
-            gsByteArrayInputStream.setBuffer(serializedPacket);
+        public void setBuffer(ByteBuffer serializedPacket) {
+            inputStream.setBuffer(serializedPacket);
         }
 
         @Override
@@ -146,10 +157,11 @@ public class PacketSerializer<T> {
                 recreateStream();
                 return;
             }
-            gsByteArrayInputStream.setBuffer(_resetBuffer);
+            resetBuffer.rewind();
+            inputStream.setBuffer(resetBuffer);
             try {
                 objectInputStream.readObject();
-                gsByteArrayInputStream.setBuffer(_dummyBuffer);
+                inputStream.setBuffer(_dummyBuffer);
             } catch (IOException e) {
                 recreateStream();
                 throw new RuntimeException("Unexpected error when clearing packet serializer resource", e);
@@ -160,9 +172,9 @@ public class PacketSerializer<T> {
         }
 
         private void recreateStream() {
-            gsByteArrayInputStream = new GSByteArrayInputStream(_dummyBuffer);
+            inputStream = new ByteBufferBackedInputStream(_dummyBuffer);
             try {
-                objectInputStream = new ByteBufferObjectInputStream(gsByteArrayInputStream);
+                objectInputStream = new ByteBufferObjectInputStream(inputStream);
                 _corrupted = false;
             } catch (IOException e) {
                 throw new RuntimeException("Unexpected error when resetting packet serializer resource streams", e);
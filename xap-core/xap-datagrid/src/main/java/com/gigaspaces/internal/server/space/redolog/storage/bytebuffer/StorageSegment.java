@@ -16,6 +16,7 @@
 
 package com.gigaspaces.internal.server.space.redolog.storage.bytebuffer;
 
+import java.nio.ByteBuffer;
 import java.util.ArrayList;
 import java.util.concurrent.locks.Lock;
 import java.util.concurrent.locks.ReentrantLock;
@@ -279,6 +280,11 @@ public class StorageSegment {
             _storageCursor.readBytes(result, offset, length);
         }
 
+        @Override
+        public ByteBuffer readSlice(int length) {
+            return _storageCursor.readSlice(length);
+        }
+
         public int readInt() {
             return _storageCursor.readInt();
         }
@@ -0,0 +1,343 @@
+/*
+ * Copyright (c) 2008-2016, GigaSpaces Technologies, Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.gigaspaces.internal.server.space.redolog.storage.bytebuffer.mmap;
+
+import com.gigaspaces.internal.server.space.redolog.storage.bytebuffer.ByteBufferStorageException;
+import com.gigaspaces.internal.server.space.redolog.storage.bytebuffer.IByteBufferStorage;
+import com.gigaspaces.internal.server.space.redolog.storage.bytebuffer.IByteBufferStorageCursor;
+import com.gigaspaces.internal.utils.concurrent.GSThreadFactory;
+import com.gigaspaces.logger.Constants;
+import com.gigaspaces.start.SystemLocations;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * {@link IByteBufferStorage} implementation that is based on memory mapped regions of a file.
+ * <p>
+ * The file is mapped lazily in fixed size regions as the storage grows, reads and writes are plain
+ * memory copies and a packet which resides entirely within a single region can be read in place
+ * using {@link IByteBufferStorageCursor#readSlice(int)}. Regions which were filled by the writer
+ * may optionally be forced to the disk by a background thread.
+ *
+ * @since 16.0
+ */
+@com.gigaspaces.api.InternalApi
+public class MappedByteBufferStorage
+        implements IByteBufferStorage {
+
+    private static final Logger _logger = LoggerFactory.getLogger(Constants.LOGGER_REPLICATION_BACKLOG);
+
+    private static volatile ExecutorService _forceExecutor;
+
+    private final File _file;
+    private final int _regionSize;
+    private final boolean _asyncForce;
+    private final RandomAccessFile _raf;
+    private final FileChannel _channel;
+    private final List<MappedByteBuffer> _regions = new ArrayList<MappedByteBuffer>();
+    //Guards forcing regions against the content of the file being discarded
+    private final Object _forceLock = new Object();
+    //Incremented whenever the mapped regions are dropped, a pending force of an older generation is skipped
+    private int _generation;
+    private volatile Cursor _cursor;
+    private volatile boolean _closed;
+
+    public MappedByteBufferStorage(String fileName, int regionSize, boolean asyncForce) throws ByteBufferStorageException {
+        if (regionSize <= 0)
+            throw new IllegalArgumentException("region size must be positive - " + regionSize);
+        _regionSize = regionSize;
+        _asyncForce = asyncForce;
+        try {
+            File workLocation = SystemLocations.singleton().work().toFile();
+            workLocation.mkdirs();
+            File replicationDirPath = new File(workLocation, "replication");
+            replicationDirPath.mkdirs();
+            _file = File.createTempFile(fileName, "tmp", replicationDirPath);
+            _raf = new RandomAccessFile(_file, "rw");
+            _channel = _raf.getChannel();
+        } catch (IOException e) {
+            throw new ByteBufferStorageException("error creating memory mapped temp file", e);
+        }
+        try {
+            _file.deleteOnExit();
+        } catch (Throwable t) {
+            //Do nothing, this can occurr if deleteOnExit is called when the jvm is during shutdown.
+        }
+    }
+
+    /**
+     * Discards the content of the storage. Accessing a mapping beyond the end of a truncated file
+     * crashes the process, so all references to the mapped regions are dropped before the file is
+     * truncated - the cursor's view over a region, the regions themselves and any pending force of
+     * them. Regions are not unmapped explicitly, they are released by the GC once no view over them
+     * is referenced. A view returned by {@link IByteBufferStorageCursor#readSlice(int)} must not be
+     * used once the storage is cleared.
+     */
+    public synchronized void clear() throws ByteBufferStorageException {
+        dropRegions();
+        if (_cursor != null)
+            _cursor.reset();
+        try {
+            _raf.setLength(0);
+        } catch (IOException e) {
+            throw new ByteBufferStorageException("error clearing memory mapped file", e);
+        }
+    }
+
+    public synchronized void close() {
+        _cursor = null;
+        dropRegions();
+        _closed = true;
+        try {
+            _channel.close();
+            _raf.close();
+        } catch (IOException e) {
+            if (_logger.isWarnEnabled())
+                _logger.warn("error closing memory mapped file " + getName(), e);
+        }
+        _file.delete();
+    }
+
+    public File getFile() {
+        return _file;
+    }
+
+    public int getRegionSize() {
+        return _regionSize;
+    }
+
+    public synchronized IByteBufferStorageCursor getCursor()
+            throws ByteBufferStorageException {
+        if (_closed)
+            throw new MappedByteBufferStorageException("storage is closed");
+        if (_cursor == null)
+            _cursor = new Cursor();
+
+        return _cursor;
+    }
+
+    public String getName() {
+        try {
+            return _file.getAbsolutePath();
+        } catch (Throwable t) {
+            //We dont want to throw exception from here
+            return null;
+        }
+    }
+
+    private synchronized MappedByteBuffer getRegion(int index) {
+        if (_closed)
+            throw new MappedByteBufferStorageException("storage is closed");
+        try {
+            while (_regions.size() <= index)
+                _regions.add(_channel.map(FileChannel.MapMode.READ_WRITE, (long) _regions.size() * _regionSize, _regionSize));
+        } catch (IOException e) {
+            throw new MappedByteBufferStorageException(e);
+        }
+        return _regions.get(index);
+    }
+
+    //Waits for a force which is in progress, no pending force will access the dropped regions
+    private void dropRegions() {
+        synchronized (_forceLock) {
+            _generation++;
+        }
+        _regions.clear();
+    }
+
+    private void forceAsync(final MappedByteBuffer region) {
+        final int generation;
+        synchronized (_forceLock) {
+            generation = _generation;
+        }
+        getForceExecutor().execute(new Runnable() {
+            @Override
+            public void run() {
+                synchronized (_forceLock) {
+                    //the region was dropped and its file may already be truncated
+                    if (generation != _generation)
+                        return;
+                    try {
+                        region.force();
+                    } catch (Throwable t) {
+                        if (_logger.isDebugEnabled())
+                            _logger.debug("failed forcing memory mapped region of " + getName(), t);
+                    }
+                }
+            }
+        });
+    }
+
+    private static ExecutorService getForceExecutor() {
+        if (_forceExecutor == null) {
+            synchronized (MappedByteBufferStorage.class) {
+                if (_forceExecutor == null)
+                    _forceExecutor = Executors.newSingleThreadExecutor(GSThreadFactory.daemon("RedoLogMappedStorageForcer"));
+            }
+        }
+        return _forceExecutor;
+    }
+
+    private class Cursor implements IByteBufferStorageCursor {
+
+        private long _position;
+        //Cached view over the region that contains the current position
+        private int _regionIndex = -1;
+        private ByteBuffer _region;
+
+        //Drops the cached view which may refer to a region which is no longer backed by the file
+        void reset() {
+            _position = 0;
+            _regionIndex = -1;
+            _region = null;
+        }
+
+        public void close() {
+            synchronized (MappedByteBufferStorage.this) {
+                if (_cursor == this)
+                    _cursor = null;
+            }
+        }
+
+        public long getPosition() {
+            return _position;
+        }
+
+        public void setPosition(long position) {
+            _position = position;
+        }
+
+        public void movePosition(long offset) {
+            _position += offset;
+        }
+
+        private ByteBuffer region() {
+            int index = (int) (_position / _regionSize);
+            if (index != _regionIndex) {
+                _region = getRegion(index).duplicate();
+                _regionIndex = index;
+            }
+            _region.position((int) (_position % _regionSize));
+            return _region;
+        }
+
+        private boolean fitsInRegion(int length) {
+            return _position % _regionSize + length <= _regionSize;
+        }
+
+        private void advance(int length, boolean write) {
+            int previousRegion = (int) (_position / _regionSize);
+            _position += length;
+            if (write && _asyncForce && _position / _regionSize > previousRegion)
+                forceAsync(getRegion(previousRegion));
+        }
+
+        public byte readByte() {
+            byte value = region().get();
+            advance(1, false);
+            return value;
+        }
+
+        public void writeByte(byte value) {
+            region().put(value);
+            advance(1, true);
+        }
+
+        public int readInt() {
+            if (!fitsInRegion(4))
+                return ((readByte() & 0xFF) << 24) | ((readByte() & 0xFF) << 16) | ((readByte() & 0xFF) << 8) | (readByte() & 0xFF);
+            int value = region().getInt();
+            advance(4, false);
+            return value;
+        }
+
+        public void writeInt(int value) {
+            if (!fitsInRegion(4)) {
+                writeByte((byte) (value >>> 24));
+                writeByte((byte) (value >>> 16));
+                writeByte((byte) (value >>> 8));
+                writeByte((byte) value);
+                return;
+            }
+            region().putInt(value);
+            advance(4, true);
+        }
+
+        public long readLong() {
+            if (!fitsInRegion(8))
+                return ((long) readInt() << 32) | (readInt() & 0xFFFFFFFFL);
+            long value = region().getLong();
+            advance(8, false);
+            return value;
+        }
+
+        public void writeLong(long value) {
+            if (!fitsInRegion(8)) {
+                writeInt((int) (value >>> 32));
+                writeInt((int) value);
+                return;
+            }
+            region().putLong(value);
+            advance(8, true);
+        }
+
+        public void readBytes(byte[] result, int offset, int length) {
+            while (length > 0) {
+                ByteBuffer region = region();
+                int chunk = Math.min(length, region.remaining());
+                region.get(result, offset, chunk);
+                advance(chunk, false);
+                offset += chunk;
+                length -= chunk;
+            }
+        }
+
+        public void writeBytes(byte[] array, int offset, int length) {
+            while (length > 0) {
+                ByteBuffer region = region();
+                int chunk = Math.min(length, region.remaining());
+                region.put(array, offset, chunk);
+                advance(chunk, true);
+                offset += chunk;
+                length -= chunk;
+            }
+        }
+
+        @Override
+        public ByteBuffer readSlice(int length) {
+            if (!fitsInRegion(length))
+                return null;
+            ByteBuffer slice = region().slice();
+            slice.limit(length);
+            advance(length, false);
+            return slice;
+        }
+    }
+
+}
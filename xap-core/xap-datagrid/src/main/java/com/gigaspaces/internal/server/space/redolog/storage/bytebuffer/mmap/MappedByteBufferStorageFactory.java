@@ -0,0 +1,60 @@
+/*
+ * Copyright (c) 2008-2016, GigaSpaces Technologies, Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.gigaspaces.internal.server.space.redolog.storage.bytebuffer.mmap;
+
+import com.gigaspaces.internal.server.space.redolog.storage.bytebuffer.ByteBufferStorageException;
+import com.gigaspaces.internal.server.space.redolog.storage.bytebuffer.IByteBufferStorage;
+import com.gigaspaces.internal.server.space.redolog.storage.bytebuffer.IByteBufferStorageFactory;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * {@link IByteBufferStorageFactory} implementation that provides {@link MappedByteBufferStorage}
+ * instances
+ *
+ * @since 16.0
+ */
+@com.gigaspaces.api.InternalApi
+public class MappedByteBufferStorageFactory
+        implements IByteBufferStorageFactory {
+
+    public static final int MIN_REGION_SIZE = 1024 * 1024;
+    public static final int MAX_REGION_SIZE = 256 * 1024 * 1024;
+
+    private final String _fileName;
+    private final int _regionSize;
+    private final boolean _asyncForce;
+    private final AtomicInteger _counter = new AtomicInteger(0);
+
+    /**
+     * @param segmentSize the expected size of a single storage, a storage is mapped in regions of
+     *                    this size (bounded) so that most packets can be read in place.
+     * @param asyncForce  whether regions filled by the writer are forced to the disk in the
+     *                    background.
+     */
+    public MappedByteBufferStorageFactory(String fileName, long segmentSize, boolean asyncForce) {
+        this._fileName = fileName;
+        this._regionSize = (int) Math.max(MIN_REGION_SIZE, Math.min(MAX_REGION_SIZE, segmentSize));
+        this._asyncForce = asyncForce;
+    }
+
+    public IByteBufferStorage createStorage() throws ByteBufferStorageException {
+        int index = _counter.getAndIncrement();
+        return new MappedByteBufferStorage(_fileName + "_" + index, _regionSize, _asyncForce);
+    }
+
+}
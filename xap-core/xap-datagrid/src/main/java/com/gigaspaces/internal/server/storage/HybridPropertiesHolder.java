@@ -16,6 +16,8 @@ public class HybridPropertiesHolder implements SmartExternalizable {
     private byte[] packedSerializedProperties;
     private boolean dirty;
     private boolean unpacked;
+    // serialized properties which were deserialized individually while the rest are still packed
+    private boolean[] materialized;
 
     public HybridPropertiesHolder() {
         this.unpackedSerializedProperties = EMPTY_OBJECTS_ARRAY;
@@ -77,18 +79,55 @@ public class HybridPropertiesHolder implements SmartExternalizable {
     public Object getFixedProperty(ITypeDesc typeDesc, int position) {
         int[] optimizedPositions = typeDesc.getPositionsForSplitting();
         if (optimizedPositions[position] < 0) {
+            int serializedPosition = (optimizedPositions[position] * -1) - 1;
             if (!unpacked) {
+                if (typeDesc.getClassBinaryStorageAdapter().isDirectFieldAccessOptimized())
+                    return materializeSerializedProperty(typeDesc, serializedPosition);
                 unpackSerializedProperties(typeDesc);
             }
-            return unpackedSerializedProperties[(optimizedPositions[position] * -1) - 1];
+            return unpackedSerializedProperties[serializedPosition];
         } else {
             return nonSerializedProperties[optimizedPositions[position] - 1];
         }
     }
 
-    private void unpackSerializedProperties(ITypeDesc typeDesc) {
+    /**
+     * Deserializes a single serialized property, leaving the rest packed, so accessing a few
+     * properties of an entry with many properties does not deserialize all of them. Synchronized
+     * since the entry data may be read by several threads.
+     */
+    private synchronized Object materializeSerializedProperty(ITypeDesc typeDesc, int serializedPosition) {
+        if (unpacked)
+            return unpackedSerializedProperties[serializedPosition];
+        if (materialized == null)
+            materialized = new boolean[unpackedSerializedProperties.length];
+        if (!materialized[serializedPosition]) {
+            try {
+                unpackedSerializedProperties[serializedPosition] = typeDesc.getClassBinaryStorageAdapter()
+                        .getFieldAtIndex(typeDesc, packedSerializedProperties, serializedPosition);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            } catch (ClassNotFoundException e) {
+                throw new IllegalStateException(e);
+            }
+            materialized[serializedPosition] = true;
+        }
+        return unpackedSerializedProperties[serializedPosition];
+    }
+
+    private synchronized void unpackSerializedProperties(ITypeDesc typeDesc) {
+        if (unpacked)
+            return;
         try {
-            this.unpackedSerializedProperties = typeDesc.getClassBinaryStorageAdapter().fromBinary(typeDesc, packedSerializedProperties);
+            Object[] values = typeDesc.getClassBinaryStorageAdapter().fromBinary(typeDesc, packedSerializedProperties);
+            // keep the instances of properties which were already handed out
+            if (materialized != null) {
+                for (int i = 0; i < materialized.length; i++)
+                    if (materialized[i])
+                        values[i] = unpackedSerializedProperties[i];
+                materialized = null;
+            }
+            this.unpackedSerializedProperties = values;
             unpacked = true;
         } catch (IOException e) {
             throw new UncheckedIOException(e);
@@ -102,7 +141,11 @@ public class HybridPropertiesHolder implements SmartExternalizable {
         Object[] serializedProps = unpackedSerializedProperties.length == 0 ? unpackedSerializedProperties : Arrays.copyOf(unpackedSerializedProperties, unpackedSerializedProperties.length);
         Object[] nonSerializedProps = nonSerializedProperties.length == 0 ? nonSerializedProperties : Arrays.copyOf(nonSerializedProperties, nonSerializedProperties.length);
         byte[] packedBinaryProps = packedSerializedProperties.length == 0 ? packedSerializedProperties : Arrays.copyOf(packedSerializedProperties, packedSerializedProperties.length);
-        return new HybridPropertiesHolder(serializedProps, nonSerializedProps, packedBinaryProps, this.unpacked, this.dirty);
+        HybridPropertiesHolder clone = new HybridPropertiesHolder(serializedProps, nonSerializedProps, packedBinaryProps, this.unpacked, this.dirty);
+        boolean[] materialized = this.materialized;
+        if (materialized != null)
+            clone.materialized = Arrays.copyOf(materialized, materialized.length);
+        return clone;
     }
 
     @Override
@@ -137,6 +180,7 @@ public class HybridPropertiesHolder implements SmartExternalizable {
             } else {
                 unpackedSerializedProperties = new Object[unpackedSize];
             }
+            materialized = null;
             int packedSize = in.readInt();
             if (packedSize == 0) {
                 packedSerializedProperties = EMPTY_BYTE_ARRAY;
@@ -191,7 +235,7 @@ public class HybridPropertiesHolder implements SmartExternalizable {
             System.arraycopy(src, 0, target, 0, src.length);
             this.nonSerializedProperties = target;
         }
-        if (unpacked && unpackedSerializedProperties.length != 0) {
+        if ((unpacked || materialized != null) && unpackedSerializedProperties.length != 0) {
             src = unpackedSerializedProperties;
             target = new Object[src.length];
             System.arraycopy(src, 0, target, 0, src.length);
@@ -202,6 +246,7 @@ public class HybridPropertiesHolder implements SmartExternalizable {
 
     public void setFixedProperties(ITypeDesc typeDescriptor, Object[] values) {
         splitProperties(typeDescriptor, values);
+        this.materialized = null;
         this.unpacked = true;
         this.dirty = true;
     }
@@ -245,6 +290,7 @@ public class HybridPropertiesHolder implements SmartExternalizable {
     public void setFixedProperties(Object[] values) {
         this.nonSerializedProperties = values;
         this.unpackedSerializedProperties = EMPTY_OBJECTS_ARRAY;
+        this.materialized = null;
         this.unpacked = true;
         this.dirty = true;
     }
@@ -265,6 +311,7 @@ public class HybridPropertiesHolder implements SmartExternalizable {
 
     public void setSerialized(Object[] serialized) {
         this.unpackedSerializedProperties = serialized;
+        this.materialized = null;
         this.unpacked = true;
         this.dirty = true;
     }
@@ -43,6 +43,8 @@ import net.jini.core.event.RemoteEventListener;
 import net.jini.core.transaction.server.ServerTransaction;
 
 import java.rmi.MarshalledObject;
+import java.util.HashMap;
+import java.util.Map;
 import java.util.Queue;
 import java.util.concurrent.ConcurrentLinkedQueue;
 import java.util.concurrent.atomic.AtomicBoolean;
@@ -71,6 +73,8 @@ public class NotifyTemplateHolder extends TemplateHolder {
     private final AtomicBoolean _notifyInProgress;
     private final Queue<EventHolder> _pendingBatchEvents;
     private final AtomicInteger _numPendingBatchEvents;
+    // the last pending event of each entry, if it is an update which can be coalesced
+    private final Map<String, EventHolder> _pendingUpdates;
     private long _batchOrder;
 
     public NotifyTemplateHolder(IServerTypeDesc typeDesc, ITemplatePacket template,
@@ -87,9 +91,11 @@ public class NotifyTemplateHolder extends TemplateHolder {
         if (_notifyInfo.isBatching()) {
             _pendingBatchEvents = new ConcurrentLinkedQueue<EventHolder>();
             _numPendingBatchEvents = new AtomicInteger();
+            _pendingUpdates = _notifyInfo.isCoalesceUpdates() ? new HashMap<String, EventHolder>() : null;
         } else {
             _pendingBatchEvents = null;
             _numPendingBatchEvents = null;
+            _pendingUpdates = null;
         }
 
         if (_logger.isDebugEnabled())
@@ -170,12 +176,55 @@ public class NotifyTemplateHolder extends TemplateHolder {
         _notifyInfo.setListener(listener);
     }
 
-    public void addPendingEvent(EventHolder event) {
+    /**
+     * Adds an event to the pending batch of this template. If updates are coalesced and the last
+     * pending event of the same entry is an update of the same type, that event is replaced by the
+     * given one in its place in the batch, which keeps the order of the events of each entry.
+     *
+     * @return <code>false</code> if the event was coalesced into a pending event
+     */
+    public boolean addPendingEvent(EventHolder event) {
+        final String uid = _pendingUpdates != null ? getCoalescingUid(event.getEvent()) : null;
+        if (uid == null) {
+            enqueuePendingEvent(event);
+            return true;
+        }
+
+        synchronized (_pendingUpdates) {
+            final int notifyType = ((EntryArrivedRemoteEvent) event.getEvent()).getNotifyType();
+            if (notifyType == NotifyModifiers.NOTIFY_UPDATE || notifyType == NotifyModifiers.NOTIFY_MATCHED_UPDATE) {
+                EventHolder pending = _pendingUpdates.get(uid);
+                if (pending != null && ((EntryArrivedRemoteEvent) pending.getEvent()).getNotifyType() == notifyType
+                        && pending.replaceEvent(event.getEvent()))
+                    return false;
+                _pendingUpdates.put(uid, event);
+            } else {
+                // later updates must not be coalesced into an update which precedes this event
+                _pendingUpdates.remove(uid);
+            }
+            enqueuePendingEvent(event);
+            return true;
+        }
+    }
+
+    private void enqueuePendingEvent(EventHolder event) {
         _numPendingBatchEvents.incrementAndGet();
         _pendingBatchEvents.add(event);
     }
 
+    private static String getCoalescingUid(RemoteEvent event) {
+        if (!(event instanceof EntryArrivedRemoteEvent))
+            return null;
+        IEntryPacket entryPacket = ((EntryArrivedRemoteEvent) event).getEntryPacket();
+        return entryPacket != null ? entryPacket.getUID() : null;
+    }
+
     public void clearPendingEvents() {
+        if (_pendingUpdates != null) {
+            synchronized (_pendingUpdates) {
+                _pendingUpdates.clear();
+            }
+        }
         _pendingBatchEvents.clear();
         _numPendingBatchEvents.set(0);
     }
@@ -184,6 +233,14 @@ public class NotifyTemplateHolder extends TemplateHolder {
         EventHolder res = _numPendingBatchEvents.get() > 0 ? _pendingBatchEvents.poll() : null;
         if (res != null) {
             _numPendingBatchEvents.decrementAndGet();
+            // the event is about to be sent, so it can no longer be replaced
+            if (_pendingUpdates != null && res.markPolled()) {
+                synchronized (_pendingUpdates) {
+                    String uid = getCoalescingUid(res.getEvent());
+                    if (_pendingUpdates.get(uid) == res)
+                        _pendingUpdates.remove(uid);
+                }
+            }
             return res;
         }
         return null;
@@ -209,6 +266,10 @@ public class NotifyTemplateHolder extends TemplateHolder {
         return _notifyInfo.getBatchTime();
     }
 
+    public boolean isCoalesceUpdates() {
+        return _pendingUpdates != null;
+    }
+
     public long getBatchOrder() {
         return _batchOrder;
     }
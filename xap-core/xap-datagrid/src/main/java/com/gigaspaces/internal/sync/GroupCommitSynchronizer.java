@@ -0,0 +1,189 @@
+/*
+ * Copyright (c) 2008-2016, GigaSpaces Technologies, Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.gigaspaces.internal.sync;
+
+import com.gigaspaces.sync.DataSyncOperation;
+import com.gigaspaces.sync.SpaceSynchronizationEndpoint;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Coalesces single entry operations of concurrent threads into a single {@link
+ * SpaceSynchronizationEndpoint#onOperationsBatchSynchronization} call.
+ * <p>
+ * The first thread which arrives while no batch is being collected becomes the leader of the
+ * batch. If other operations are queued or another batch is being synchronized, it waits up to the
+ * configured window (or until the batch is full) for other threads to join, otherwise it
+ * synchronizes its operation at once. Every caller returns only once its operation was
+ * synchronized.
+ * <p>
+ * The endpoint does not report which operations of a failed batch were applied, so the failure of
+ * a batch is thrown to all the callers whose operations are in it. Retrying the operations one by
+ * one would replay the ones the endpoint already applied.
+ *
+ * @since 16.0
+ */
+@com.gigaspaces.api.InternalApi
+public class GroupCommitSynchronizer {
+    private final static Logger _logger = LoggerFactory.getLogger(com.gigaspaces.logger.Constants.LOGGER_PERSISTENT);
+
+    private final SpaceSynchronizationEndpoint _syncEndpoint;
+    private final String _spaceName;
+    private final long _windowNanos;
+    private final int _maxBatchSize;
+
+    private final Object _lock = new Object();
+    private ArrayList<Request> _pending = new ArrayList<Request>();
+    private boolean _collecting;
+    //number of batches which are being synchronized
+    private int _flushing;
+
+    public GroupCommitSynchronizer(SpaceSynchronizationEndpoint syncEndpoint, String spaceName, long windowMicros, int maxBatchSize) {
+        if (windowMicros <= 0)
+            throw new IllegalArgumentException("group commit window must be positive - " + windowMicros);
+        if (maxBatchSize <= 1)
+            throw new IllegalArgumentException("group commit max batch size must be greater than 1 - " + maxBatchSize);
+        _syncEndpoint = syncEndpoint;
+        _spaceName = spaceName;
+        _windowNanos = TimeUnit.MICROSECONDS.toNanos(windowMicros);
+        _maxBatchSize = maxBatchSize;
+    }
+
+    /**
+     * Synchronizes the operation, possibly within a batch of concurrent operations, and throws the
+     * failure of the operation if it failed.
+     */
+    public void synchronize(DataSyncOperation operation) {
+        Request request = new Request(operation);
+        boolean leader;
+        synchronized (_lock) {
+            _pending.add(request);
+            leader = !_collecting;
+            if (leader)
+                _collecting = true;
+            else if (_pending.size() >= _maxBatchSize)
+                _lock.notifyAll();
+        }
+        if (leader) {
+            List<Request> batch = collect();
+            try {
+                flush(batch);
+            } finally {
+                synchronized (_lock) {
+                    _flushing--;
+                }
+            }
+        }
+
+        request.await();
+        if (request._failure instanceof RuntimeException)
+            throw (RuntimeException) request._failure;
+        if (request._failure instanceof Error)
+            throw (Error) request._failure;
+    }
+
+    private List<Request> collect() {
+        synchronized (_lock) {
+            //a lone writer has no one to wait for
+            boolean wait = _pending.size() > 1 || _flushing > 0;
+            long deadline = System.nanoTime() + _windowNanos;
+            while (wait && _pending.size() < _maxBatchSize) {
+                long remaining = deadline - System.nanoTime();
+                if (remaining <= 0)
+                    break;
+                try {
+                    TimeUnit.NANOSECONDS.timedWait(_lock, remaining);
+                } catch (InterruptedException e) {
+                    //flush what was collected so far, the callers are waiting for it
+                    Thread.currentThread().interrupt();
+                    break;
+                }
+            }
+            //the next arriving thread starts a new batch while this one is synchronized
+            List<Request> batch = _pending;
+            _pending = new ArrayList<Request>();
+            _collecting = false;
+            _flushing++;
+            return batch;
+        }
+    }
+
+    private void flush(List<Request> batch) {
+        if (batch.size() == 1) {
+            synchronizeSingle(batch.get(0));
+            return;
+        }
+        DataSyncOperation[] operations = new DataSyncOperation[batch.size()];
+        for (int i = 0; i < operations.length; i++)
+            operations[i] = batch.get(i)._operation;
+        Throwable failure = null;
+        try {
+            _syncEndpoint.onOperationsBatchSynchronization(new OperationsDataBatchImpl(operations, _spaceName));
+        } catch (Throwable t) {
+            if (_logger.isDebugEnabled())
+                _logger.debug("Group commit of " + operations.length + " operations failed", t);
+            failure = t;
+        }
+        for (Request request : batch)
+            request.done(failure);
+    }
+
+    private void synchronizeSingle(Request request) {
+        try {
+            _syncEndpoint.onOperationsBatchSynchronization(new OperationsDataBatchImpl(request._operation, _spaceName));
+            request.done(null);
+        } catch (Throwable t) {
+            request.done(t);
+        }
+    }
+
+    private static class Request {
+        private final DataSyncOperation _operation;
+        private final CountDownLatch _latch = new CountDownLatch(1);
+        private volatile Throwable _failure;
+
+        private Request(DataSyncOperation operation) {
+            _operation = operation;
+        }
+
+        private void done(Throwable failure) {
+            _failure = failure;
+            _latch.countDown();
+        }
+
+        //the operation is synchronized even if the caller is interrupted, so it must wait for its outcome
+        private void await() {
+            boolean interrupted = false;
+            while (true) {
+                try {
+                    _latch.await();
+                    break;
+                } catch (InterruptedException e) {
+                    interrupted = true;
+                }
+            }
+            if (interrupted)
+                Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -98,6 +98,7 @@ public class SynchronizationStorageAdapter implements IStorageAdapter {
     private final boolean _supportsPartialUpdate;
     private final boolean _centralDataSource;
     private final boolean _supportsInheritance;
+    private final GroupCommitSynchronizer _groupCommitSynchronizer;
 
     public SynchronizationStorageAdapter(SpaceEngine engine, SpaceDataSource spaceDataSource,
                                          SpaceSynchronizationEndpoint synchronizationEndpointInterceptor)
@@ -126,6 +127,26 @@ public class SynchronizationStorageAdapter implements IStorageAdapter {
         this._converter = new EntryPacketDataConverter(_typeManager, _dataClass);
         this._conversionAdapter = new EntryAdapter(_converter);
         this._centralDataSource = engine.getClusterPolicy() != null ? engine.getClusterPolicy().m_CacheLoaderConfig.centralDataSource : false;
+        this._groupCommitSynchronizer = createGroupCommitSynchronizer();
+    }
+
+    private GroupCommitSynchronizer createGroupCommitSynchronizer() {
+        if (_syncEndpoint == null)
+            return null;
+        long windowMicros = _configReader.getLongSpaceProperty(Constants.DataAdapter.GROUP_COMMIT_WINDOW_PROP, Constants.DataAdapter.GROUP_COMMIT_WINDOW_DEFAULT);
+        int maxBatchSize = _configReader.getIntSpaceProperty(Constants.DataAdapter.GROUP_COMMIT_MAX_BATCH_SIZE_PROP, Constants.DataAdapter.GROUP_COMMIT_MAX_BATCH_SIZE_DEFAULT);
+        if (windowMicros <= 0 || maxBatchSize <= 1)
+            return null;
+        if (_logger.isInfoEnabled())
+            _logger.info("Group commit of single entry operations is enabled [window-micros=" + windowMicros + ", max-batch-size=" + maxBatchSize + "]");
+        return new GroupCommitSynchronizer(_syncEndpoint, _spaceName, windowMicros, maxBatchSize);
+    }
+
+    private void synchronizeOperation(DataSyncOperation operation) {
+        if (_groupCommitSynchronizer != null)
+            _groupCommitSynchronizer.synchronize(operation);
+        else
+            _syncEndpoint.onOperationsBatchSynchronization(new OperationsDataBatchImpl(operation, _spaceName));
     }
 
     @Override
@@ -252,7 +273,7 @@ public class SynchronizationStorageAdapter implements IStorageAdapter {
             if (_engine.getCacheManager().isSyncHybrid()) {
                 injectSyncHybridOperationsDetails(context, new DataSyncOperation[]{operation});
             }
-            _syncEndpoint.onOperationsBatchSynchronization(new OperationsDataBatchImpl(operation, _spaceName));
+            synchronizeOperation(operation);
         } catch (Throwable t) {
             if (_logger.isDebugEnabled())
                 LogUtils.throwing(_logger, getClass(), "Insert Entry", t);
@@ -288,7 +309,7 @@ public class SynchronizationStorageAdapter implements IStorageAdapter {
         if (_engine.getCacheManager().isSyncHybrid()) {
             injectSyncHybridOperationsDetails(context, new DataSyncOperation[]{operation});
         }
-        _syncEndpoint.onOperationsBatchSynchronization(new OperationsDataBatchImpl(operation, _spaceName));
+        synchronizeOperation(operation);
     }
 
     @Override
@@ -303,7 +324,7 @@ public class SynchronizationStorageAdapter implements IStorageAdapter {
             if (_engine.getCacheManager().isSyncHybrid()) {
                 injectSyncHybridOperationsDetails(context, new DataSyncOperation[]{operation});
             }
-            _syncEndpoint.onOperationsBatchSynchronization(new OperationsDataBatchImpl(operation, _spaceName));
+            synchronizeOperation(operation);
         } catch (Throwable t) {
             if (_logger.isDebugEnabled())
                 LogUtils.throwing(_logger, getClass(), "Remove Entry", t);
@@ -22,11 +22,14 @@ package com.gigaspaces.internal.transport;
 import com.gigaspaces.internal.io.IOArrayException;
 import com.gigaspaces.internal.io.IOUtils;
 import com.gigaspaces.internal.metadata.EntryType;
+import com.gigaspaces.internal.metadata.FixedPropertiesLayout;
 import com.gigaspaces.internal.metadata.ITypeDesc;
 import com.gigaspaces.internal.metadata.PropertyInfo;
 import com.gigaspaces.internal.query.ICustomQuery;
+import com.gigaspaces.internal.utils.GsEnv;
 import com.gigaspaces.internal.version.PlatformLogicalVersion;
 import com.j_spaces.core.EntrySerializationException;
+import com.j_spaces.kernel.SystemProperties;
 
 import java.io.IOException;
 import java.io.ObjectInput;
@@ -221,6 +224,9 @@ public class EntryPacket extends AbstractEntryPacket {
     private static final short FLAG_RETURN_ONLY_UIDS = 1 << 9;
     private static final short FLAG_CUSTOM_QUERY = 1 << 10;
     private static final short FLAG_DYNAMIC_PROPERTIES = 1 << 11;
+    private static final short FLAG_FIXED_PROPERTIES_LAYOUT = 1 << 12;
+
+    private static final boolean FIXED_PROPERTIES_LAYOUT_ENABLED = GsEnv.propertyBoolean(SystemProperties.ENTRY_PACKET_FIXED_PROPERTIES_LAYOUT_ENABLED).get(true);
 
     private short buildFlags() {
         short flags = 0;
@@ -279,7 +285,11 @@ public class EntryPacket extends AbstractEntryPacket {
     private final void serializePacket(ObjectOutput out,
                                        PlatformLogicalVersion version) {
         try {
-            out.writeShort(buildFlags());
+            final FixedPropertiesLayout fixedPropertiesLayout = getFixedPropertiesLayout(version);
+            short flags = buildFlags();
+            if (fixedPropertiesLayout != null)
+                flags |= FLAG_FIXED_PROPERTIES_LAYOUT;
+            out.writeShort(flags);
 
             if (_typeName != null)
                 IOUtils.writeRepetitiveString(out, _typeName);
@@ -293,7 +303,11 @@ public class EntryPacket extends AbstractEntryPacket {
                 IOUtils.writeStringArray(out, _multipleUIDs);
             if (_fixedProperties != null) {
                 try {
-                    IOUtils.writeObjectArrayCompressed(out, _fixedProperties);
+                    if (fixedPropertiesLayout != null) {
+                        IOUtils.writeRepetitiveObject(out, fixedPropertiesLayout);
+                        fixedPropertiesLayout.writeValues(out, _fixedProperties);
+                    } else
+                        IOUtils.writeObjectArrayCompressed(out, _fixedProperties);
                 } catch (IOArrayException e) {
                     throw createPropertySerializationException(e, true);
                 }
@@ -340,7 +354,11 @@ public class EntryPacket extends AbstractEntryPacket {
                 _multipleUIDs = IOUtils.readStringArray(in);
             if ((flags & FLAG_FIELDS_VALUES) != 0) {
                 try {
-                    _fixedProperties = IOUtils.readObjectArrayCompressed(in);
+                    if ((flags & FLAG_FIXED_PROPERTIES_LAYOUT) != 0) {
+                        FixedPropertiesLayout fixedPropertiesLayout = IOUtils.readRepetitiveObject(in);
+                        _fixedProperties = fixedPropertiesLayout.readValues(in);
+                    } else
+                        _fixedProperties = IOUtils.readObjectArrayCompressed(in);
                 } catch (IOArrayException e) {
                     throw createPropertySerializationException(e, false);
                 }
@@ -357,6 +375,15 @@ public class EntryPacket extends AbstractEntryPacket {
         }
     }
 
+    private FixedPropertiesLayout getFixedPropertiesLayout(PlatformLogicalVersion version) {
+        if (!FIXED_PROPERTIES_LAYOUT_ENABLED || _fixedProperties == null || _typeDesc == null
+                || !version.greaterOrEquals(PlatformLogicalVersion.v16_0_0))
+            return null;
+        final FixedPropertiesLayout fixedPropertiesLayout = _typeDesc.getFixedPropertiesLayout();
+        // values which do not match the type, e.g. of a template with converted values, are written as is
+        return fixedPropertiesLayout != null && fixedPropertiesLayout.matches(_fixedProperties) ? fixedPropertiesLayout : null;
+    }
+
     private EntrySerializationException createPropertySerializationException(IOArrayException e, boolean isSerialize) {
         final int index = e.getIndex();
         String message = "Failed to " + (isSerialize ? "serialize" : "deserialize") +
@@ -0,0 +1,549 @@
+/*
+ * Copyright (c) 2008-2016, GigaSpaces Technologies, Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.gigaspaces.internal.utils.collections;
+
+import java.util.NoSuchElementException;
+
+/**
+ * A compressed set of non negative ints, organized like a roaring bitmap.
+ * <p>
+ * The values are partitioned by their high 16 bits into chunks, each chunk keeps its low 16 bits
+ * either in a sorted array (sparse chunks of up to 4096 values) or in a 65536 bits bitmap (dense
+ * chunks), so both sparse and dense sets are compact and intersections/unions are performed chunk
+ * by chunk without looking at single values.
+ * <p>
+ * NOTE - not thread safe, concurrent access has to be synchronized by the caller.
+ *
+ * @since 16.0
+ */
+@com.gigaspaces.api.InternalApi
+public class CompressedBitmap {
+    private static final int ARRAY_CONTAINER_MAX_SIZE = 4096;
+    private static final int BITMAP_WORDS = 1 << 10;
+
+    private char[] _keys;
+    private Container[] _containers;
+    private int _size;
+
+    public CompressedBitmap() {
+        this(4);
+    }
+
+    private CompressedBitmap(int capacity) {
+        _keys = new char[capacity];
+        _containers = new Container[capacity];
+    }
+
+    /**
+     * @return true if the value was not in the bitmap
+     */
+    public boolean add(int value) {
+        checkValue(value);
+        char key = highBits(value);
+        int pos = indexOf(key);
+        if (pos < 0) {
+            pos = -pos - 1;
+            insertContainer(pos, key, new ArrayContainer());
+        }
+        Container container = _containers[pos];
+        int cardinality = container.cardinality();
+        Container result = container.add(lowBits(value));
+        _containers[pos] = result;
+        return result.cardinality() != cardinality;
+    }
+
+    /**
+     * @return true if the value was in the bitmap
+     */
+    public boolean remove(int value) {
+        if (value < 0)
+            return false;
+        int pos = indexOf(highBits(value));
+        if (pos < 0)
+            return false;
+        Container container = _containers[pos];
+        int cardinality = container.cardinality();
+        Container result = container.remove(lowBits(value));
+        if (result.cardinality() == 0)
+            removeContainer(pos);
+        else
+            _containers[pos] = result;
+        return result.cardinality() != cardinality;
+    }
+
+    public boolean contains(int value) {
+        if (value < 0)
+            return false;
+        int pos = indexOf(highBits(value));
+        return pos >= 0 && _containers[pos].contains(lowBits(value));
+    }
+
+    public int cardinality() {
+        int result = 0;
+        for (int i = 0; i < _size; i++)
+            result += _containers[i].cardinality();
+        return result;
+    }
+
+    public boolean isEmpty() {
+        return _size == 0;
+    }
+
+    public CompressedBitmap copy() {
+        CompressedBitmap result = new CompressedBitmap(Math.max(_size, 4));
+        for (int i = 0; i < _size; i++) {
+            result._keys[i] = _keys[i];
+            result._containers[i] = _containers[i].copy();
+        }
+        result._size = _size;
+        return result;
+    }
+
+    /**
+     * @return a new bitmap with the values which are in both this bitmap and the other one
+     */
+    public CompressedBitmap and(CompressedBitmap other) {
+        CompressedBitmap result = new CompressedBitmap(Math.max(Math.min(_size, other._size), 4));
+        int i = 0, j = 0;
+        while (i < _size && j < other._size) {
+            char key = _keys[i];
+            char otherKey = other._keys[j];
+            if (key < otherKey) {
+                i++;
+            } else if (key > otherKey) {
+                j++;
+            } else {
+                Container container = _containers[i].and(other._containers[j]);
+                if (container.cardinality() > 0)
+                    result.appendContainer(key, container);
+                i++;
+                j++;
+            }
+        }
+        return result;
+    }
+
+    /**
+     * @return a new bitmap with the values which are in either this bitmap or the other one
+     */
+    public CompressedBitmap or(CompressedBitmap other) {
+        CompressedBitmap result = new CompressedBitmap(Math.max(_size + other._size, 4));
+        int i = 0, j = 0;
+        while (i < _size || j < other._size) {
+            if (j == other._size || (i < _size && _keys[i] < other._keys[j])) {
+                result.appendContainer(_keys[i], _containers[i].copy());
+                i++;
+            } else if (i == _size || _keys[i] > other._keys[j]) {
+                result.appendContainer(other._keys[j], other._containers[j].copy());
+                j++;
+            } else {
+                result.appendContainer(_keys[i], _containers[i].or(other._containers[j]));
+                i++;
+                j++;
+            }
+        }
+        return result;
+    }
+
+    /**
+     * @return an iterator over the values of the bitmap in ascending order
+     */
+    public IntIterator iterator() {
+        return new IntIterator();
+    }
+
+    private static void checkValue(int value) {
+        if (value < 0)
+            throw new IllegalArgumentException("negative value - " + value);
+    }
+
+    private static char highBits(int value) {
+        return (char) (value >>> 16);
+    }
+
+    private static char lowBits(int value) {
+        return (char) value;
+    }
+
+    private int indexOf(char key) {
+        int low = 0;
+        int high = _size - 1;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            char midKey = _keys[mid];
+            if (midKey < key)
+                low = mid + 1;
+            else if (midKey > key)
+                high = mid - 1;
+            else
+                return mid;
+        }
+        return -(low + 1);
+    }
+
+    private void insertContainer(int pos, char key, Container container) {
+        ensureCapacity(_size + 1);
+        System.arraycopy(_keys, pos, _keys, pos + 1, _size - pos);
+        System.arraycopy(_containers, pos, _containers, pos + 1, _size - pos);
+        _keys[pos] = key;
+        _containers[pos] = container;
+        _size++;
+    }
+
+    private void appendContainer(char key, Container container) {
+        ensureCapacity(_size + 1);
+        _keys[_size] = key;
+        _containers[_size] = container;
+        _size++;
+    }
+
+    private void removeContainer(int pos) {
+        System.arraycopy(_keys, pos + 1, _keys, pos, _size - pos - 1);
+        System.arraycopy(_containers, pos + 1, _containers, pos, _size - pos - 1);
+        _containers[--_size] = null;
+    }
+
+    private void ensureCapacity(int capacity) {
+        if (capacity <= _keys.length)
+            return;
+        int newCapacity = Math.max(capacity, _keys.length * 2);
+        char[] keys = new char[newCapacity];
+        Container[] containers = new Container[newCapacity];
+        System.arraycopy(_keys, 0, keys, 0, _size);
+        System.arraycopy(_containers, 0, containers, 0, _size);
+        _keys = keys;
+        _containers = containers;
+    }
+
+    /**
+     * Iterates the values of the bitmap, the bitmap must not be changed during the iteration.
+     */
+    public class IntIterator {
+        private int _pos;
+        private int _low = -1;
+        private int _next = -1;
+
+        private IntIterator() {
+            advance();
+        }
+
+        public boolean hasNext() {
+            return _next >= 0;
+        }
+
+        public int next() {
+            if (_next < 0)
+                throw new NoSuchElementException();
+            int result = _next;
+            advance();
+            return result;
+        }
+
+        private void advance() {
+            while (_pos < _size) {
+                int low = _containers[_pos].nextValue(_low + 1);
+                if (low >= 0) {
+                    _low = low;
+                    _next = (_keys[_pos] << 16) | low;
+                    return;
+                }
+                _pos++;
+                _low = -1;
+            }
+            _next = -1;
+        }
+    }
+
+    private static abstract class Container {
+        abstract Container add(char value);
+
+        abstract Container remove(char value);
+
+        abstract boolean contains(char value);
+
+        abstract int cardinality();
+
+        abstract Container copy();
+
+        abstract Container and(Container other);
+
+        abstract Container or(Container other);
+
+        /**
+         * @return the smallest value which is greater than or equal to from, or -1 if there is none
+         */
+        abstract int nextValue(int from);
+    }
+
+    private static final class ArrayContainer extends Container {
+        private char[] _values;
+        private int _cardinality;
+
+        private ArrayContainer() {
+            this(new char[4], 0);
+        }
+
+        private ArrayContainer(char[] values, int cardinality) {
+            _values = values;
+            _cardinality = cardinality;
+        }
+
+        private int indexOf(char value) {
+            int low = 0;
+            int high = _cardinality - 1;
+            while (low <= high) {
+                int mid = (low + high) >>> 1;
+                char midValue = _values[mid];
+                if (midValue < value)
+                    low = mid + 1;
+                else if (midValue > value)
+                    high = mid - 1;
+                else
+                    return mid;
+            }
+            return -(low + 1);
+        }
+
+        @Override
+        Container add(char value) {
+            int pos = indexOf(value);
+            if (pos >= 0)
+                return this;
+            if (_cardinality == ARRAY_CONTAINER_MAX_SIZE)
+                return toBitmap().add(value);
+            pos = -pos - 1;
+            if (_cardinality == _values.length) {
+                char[] values = new char[Math.min(_values.length * 2, ARRAY_CONTAINER_MAX_SIZE)];
+                System.arraycopy(_values, 0, values, 0, _cardinality);
+                _values = values;
+            }
+            System.arraycopy(_values, pos, _values, pos + 1, _cardinality - pos);
+            _values[pos] = value;
+            _cardinality++;
+            return this;
+        }
+
+        @Override
+        Container remove(char value) {
+            int pos = indexOf(value);
+            if (pos >= 0) {
+                System.arraycopy(_values, pos + 1, _values, pos, _cardinality - pos - 1);
+                _cardinality--;
+            }
+            return this;
+        }
+
+        @Override
+        boolean contains(char value) {
+            return indexOf(value) >= 0;
+        }
+
+        @Override
+        int cardinality() {
+            return _cardinality;
+        }
+
+        @Override
+        Container copy() {
+            char[] values = new char[Math.max(_cardinality, 4)];
+            System.arraycopy(_values, 0, values, 0, _cardinality);
+            return new ArrayContainer(values, _cardinality);
+        }
+
+        @Override
+        Container and(Container other) {
+            char[] result = new char[Math.max(Math.min(_cardinality, other.cardinality()), 4)];
+            int size = 0;
+            if (other instanceof ArrayContainer) {
+                ArrayContainer array = (ArrayContainer) other;
+                int i = 0, j = 0;
+                while (i < _cardinality && j < array._cardinality) {
+                    char value = _values[i];
+                    char otherValue = array._values[j];
+                    if (value < otherValue) {
+                        i++;
+                    } else if (value > otherValue) {
+                        j++;
+                    } else {
+                        result[size++] = value;
+                        i++;
+                        j++;
+                    }
+                }
+            } else {
+                for (int i = 0; i < _cardinality; i++)
+                    if (other.contains(_values[i]))
+                        result[size++] = _values[i];
+            }
+            return new ArrayContainer(result, size);
+        }
+
+        @Override
+        Container or(Container other) {
+            if (other instanceof BitmapContainer)
+                return other.or(this);
+            ArrayContainer array = (ArrayContainer) other;
+            if (_cardinality + array._cardinality > ARRAY_CONTAINER_MAX_SIZE)
+                return toBitmap().or(other);
+            char[] result = new char[Math.max(_cardinality + array._cardinality, 4)];
+            int i = 0, j = 0, size = 0;
+            while (i < _cardinality || j < array._cardinality) {
+                if (j == array._cardinality || (i < _cardinality && _values[i] < array._values[j])) {
+                    result[size++] = _values[i++];
+                } else if (i == _cardinality || _values[i] > array._values[j]) {
+                    result[size++] = array._values[j++];
+                } else {
+                    result[size++] = _values[i];
+                    i++;
+                    j++;
+                }
+            }
+            return new ArrayContainer(result, size);
+        }
+
+        @Override
+        int nextValue(int from) {
+            if (from > Character.MAX_VALUE)
+                return -1;
+            int pos = indexOf((char) from);
+            if (pos < 0)
+                pos = -pos - 1;
+            return pos < _cardinality ? _values[pos] : -1;
+        }
+
+        private BitmapContainer toBitmap() {
+            BitmapContainer bitmap = new BitmapContainer();
+            for (int i = 0; i < _cardinality; i++)
+                bitmap.add(_values[i]);
+            return bitmap;
+        }
+    }
+
+    private static final class BitmapContainer extends Container {
+        private final long[] _words;
+        private int _cardinality;
+
+        private BitmapContainer() {
+            this(new long[BITMAP_WORDS], 0);
+        }
+
+        private BitmapContainer(long[] words, int cardinality) {
+            _words = words;
+            _cardinality = cardinality;
+        }
+
+        @Override
+        Container add(char value) {
+            long word = _words[value >>> 6];
+            long updated = word | (1L << value);
+            if (updated != word) {
+                _words[value >>> 6] = updated;
+                _cardinality++;
+            }
+            return this;
+        }
+
+        @Override
+        Container remove(char value) {
+            long word = _words[value >>> 6];
+            long updated = word & ~(1L << value);
+            if (updated != word) {
+                _words[value >>> 6] = updated;
+                _cardinality--;
+                if (_cardinality <= ARRAY_CONTAINER_MAX_SIZE / 2)
+                    return toArray();
+            }
+            return this;
+        }
+
+        @Override
+        boolean contains(char value) {
+            return (_words[value >>> 6] & (1L << value)) != 0;
+        }
+
+        @Override
+        int cardinality() {
+            return _cardinality;
+        }
+
+        @Override
+        Container copy() {
+            return new BitmapContainer(_words.clone(), _cardinality);
+        }
+
+        @Override
+        Container and(Container other) {
+            if (other instanceof ArrayContainer)
+                return other.and(this);
+            long[] otherWords = ((BitmapContainer) other)._words;
+            long[] words = new long[BITMAP_WORDS];
+            int cardinality = 0;
+            for (int i = 0; i < BITMAP_WORDS; i++) {
+                words[i] = _words[i] & otherWords[i];
+                cardinality += Long.bitCount(words[i]);
+            }
+            BitmapContainer result = new BitmapContainer(words, cardinality);
+            return cardinality <= ARRAY_CONTAINER_MAX_SIZE ? result.toArray() : result;
+        }
+
+        @Override
+        Container or(Container other) {
+            long[] words = _words.clone();
+            int cardinality = 0;
+            if (other instanceof ArrayContainer) {
+                ArrayContainer array = (ArrayContainer) other;
+                for (int i = 0; i < array._cardinality; i++)
+                    words[array._values[i] >>> 6] |= 1L << array._values[i];
+            } else {
+                long[] otherWords = ((BitmapContainer) other)._words;
+                for (int i = 0; i < BITMAP_WORDS; i++)
+                    words[i] |= otherWords[i];
+            }
+            for (long word : words)
+                cardinality += Long.bitCount(word);
+            return new BitmapContainer(words, cardinality);
+        }
+
+        @Override
+        int nextValue(int from) {
+            int wordIndex = from >>> 6;
+            if (wordIndex >= BITMAP_WORDS)
+                return -1;
+            long word = _words[wordIndex] & (-1L << from);
+            while (true) {
+                if (word != 0)
+                    return wordIndex * 64 + Long.numberOfTrailingZeros(word);
+                if (++wordIndex == BITMAP_WORDS)
+                    return -1;
+                word = _words[wordIndex];
+            }
+        }
+
+        private ArrayContainer toArray() {
+            char[] values = new char[Math.max(_cardinality, 4)];
+            int size = 0;
+            for (int i = 0; i < BITMAP_WORDS; i++) {
+                long word = _words[i];
+                while (word != 0) {
+                    values[size++] = (char) (i * 64 + Long.numberOfTrailingZeros(word));
+                    word &= word - 1;
+                }
+            }
+            return new ArrayContainer(values, size);
+        }
+    }
+}
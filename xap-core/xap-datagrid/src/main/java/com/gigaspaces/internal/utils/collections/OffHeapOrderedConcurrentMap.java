@@ -0,0 +1,990 @@
+/*
+ * Copyright (c) 2008-2016, GigaSpaces Technologies, Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.gigaspaces.internal.utils.collections;
+
+import java.nio.ByteBuffer;
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Set;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.locks.StampedLock;
+
+/**
+ * An ordered concurrent map of boxed numeric keys whose structure is kept in native memory.
+ * <p>
+ * The map is a B+tree whose pages reside in direct byte buffer chunks, keys are stored as order
+ * preserving primitive <code>long</code> values and each leaf slot refers to an on-heap value slot,
+ * so the GC sees a single reference per distinct key instead of the nodes and boxed keys of a skip
+ * list. The keys are striped by their hash over several segments, each a B+tree of its own whose
+ * updates are serialized by its write lock, so only updates of keys of the same segment wait for
+ * each other. Lookups and scans use optimistic reads which are validated and retried under a read
+ * lock if an update interleaved - since pages are never returned to the OS while the map is alive,
+ * an interleaved read can only observe stale data, never an invalid address. Range scans merge the
+ * scans of the segments by key order and are weakly consistent: each segment is scanned in batches
+ * of entries, re-seeking after the last fetched key, so a scan never blocks updates.
+ * <p>
+ * Empty leaves are unlinked from the tree and their pages are reused, nodes are not rebalanced
+ * otherwise.
+ *
+ * @since 16.0
+ */
+@com.gigaspaces.api.InternalApi
+public class OffHeapOrderedConcurrentMap<V> extends AbstractMap<Object, V> implements ConcurrentMap<Object, V> {
+
+    /**
+     * The supported key types, each is mapped to a primitive long value whose signed order is the
+     * natural order of the boxed type.
+     */
+    public enum KeyType {
+        LONG(Long.class) {
+            @Override
+            long encode(Object key) {
+                return (Long) key;
+            }
+
+            @Override
+            Object decode(long value) {
+                return value;
+            }
+        },
+        INTEGER(Integer.class) {
+            @Override
+            long encode(Object key) {
+                return (Integer) key;
+            }
+
+            @Override
+            Object decode(long value) {
+                return (int) value;
+            }
+        },
+        SHORT(Short.class) {
+            @Override
+            long encode(Object key) {
+                return (Short) key;
+            }
+
+            @Override
+            Object decode(long value) {
+                return (short) value;
+            }
+        },
+        BYTE(Byte.class) {
+            @Override
+            long encode(Object key) {
+                return (Byte) key;
+            }
+
+            @Override
+            Object decode(long value) {
+                return (byte) value;
+            }
+        },
+        CHARACTER(Character.class) {
+            @Override
+            long encode(Object key) {
+                return (Character) key;
+            }
+
+            @Override
+            Object decode(long value) {
+                return (char) value;
+            }
+        },
+        DOUBLE(Double.class) {
+            //flipping the non sign bits of negative values orders the bits as Double.compareTo()
+            @Override
+            long encode(Object key) {
+                long bits = Double.doubleToLongBits((Double) key);
+                return bits ^ ((bits >> 63) & Long.MAX_VALUE);
+            }
+
+            @Override
+            Object decode(long value) {
+                return Double.longBitsToDouble(value ^ ((value >> 63) & Long.MAX_VALUE));
+            }
+        },
+        FLOAT(Float.class) {
+            @Override
+            long encode(Object key) {
+                int bits = Float.floatToIntBits((Float) key);
+                return bits ^ ((bits >> 31) & Integer.MAX_VALUE);
+            }
+
+            @Override
+            Object decode(long value) {
+                int bits = (int) value;
+                return Float.intBitsToFloat(bits ^ ((bits >> 31) & Integer.MAX_VALUE));
+            }
+        };
+
+        private final Class<?> _type;
+
+        KeyType(Class<?> type) {
+            _type = type;
+        }
+
+        public Class<?> getType() {
+            return _type;
+        }
+
+        abstract long encode(Object key);
+
+        abstract Object decode(long value);
+
+        /**
+         * @return the key type which matches the specified (primitive or boxed) class, or null if the
+         * class is not supported.
+         */
+        public static KeyType fromClass(Class<?> type) {
+            if (type == null)
+                return null;
+            if (type == Long.class || type == long.class)
+                return LONG;
+            if (type == Integer.class || type == int.class)
+                return INTEGER;
+            if (type == Short.class || type == short.class)
+                return SHORT;
+            if (type == Byte.class || type == byte.class)
+                return BYTE;
+            if (type == Character.class || type == char.class)
+                return CHARACTER;
+            if (type == Double.class || type == double.class)
+                return DOUBLE;
+            if (type == Float.class || type == float.class)
+                return FLOAT;
+            return null;
+        }
+    }
+
+    private static final int SEGMENTS = 8;
+    private static final int NODE_CAPACITY = 64;
+    private static final int MAX_DEPTH = 32;
+    private static final int SCAN_BATCH_SIZE = 16;
+    private static final int NONE = -1;
+
+    //page layout: [int isLeaf][int count][int next][int prev][long keys[capacity]][int values[capacity] | int children[capacity + 1]]
+    private static final int IS_LEAF_OFFSET = 0;
+    private static final int COUNT_OFFSET = 4;
+    private static final int NEXT_OFFSET = 8;
+    private static final int PREV_OFFSET = 12;
+    private static final int KEYS_OFFSET = 16;
+    private static final int REFS_OFFSET = KEYS_OFFSET + NODE_CAPACITY * 8;
+    private static final int PAGE_SIZE = REFS_OFFSET + (NODE_CAPACITY + 1) * 4 + 4;
+    private static final int PAGES_PER_CHUNK_SHIFT = 7;
+    private static final int PAGES_PER_CHUNK = 1 << PAGES_PER_CHUNK_SHIFT;
+
+    private final KeyType _keyType;
+    private final Segment[] _segments = new Segment[SEGMENTS];
+
+    public OffHeapOrderedConcurrentMap(KeyType keyType) {
+        if (keyType == null)
+            throw new IllegalArgumentException("keyType cannot be null");
+        _keyType = keyType;
+        for (int i = 0; i < SEGMENTS; i++)
+            _segments[i] = new Segment();
+    }
+
+    public KeyType getKeyType() {
+        return _keyType;
+    }
+
+    /**
+     * @return the amount of native memory reserved by this map.
+     */
+    public long getReservedBytes() {
+        long result = 0;
+        for (Segment segment : _segments)
+            result += (long) segment._chunks.length * PAGES_PER_CHUNK * PAGE_SIZE;
+        return result;
+    }
+
+    private long encode(Object key) {
+        if (key == null)
+            throw new NullPointerException();
+        if (key.getClass() != _keyType.getType())
+            throw new ClassCastException(key.getClass().getName() + " cannot be cast to " + _keyType.getType().getName());
+        return _keyType.encode(key);
+    }
+
+    private Segment segmentFor(long key) {
+        int hash = (int) (key ^ (key >>> 32));
+        hash ^= (hash >>> 16);
+        hash *= 0x85ebca6b;
+        hash ^= (hash >>> 13);
+        return _segments[hash & (SEGMENTS - 1)];
+    }
+
+    //--------------------------------------------------------------------------------------------
+    // page access
+    //--------------------------------------------------------------------------------------------
+
+    private static ByteBuffer chunkOf(ByteBuffer[] chunks, int page) {
+        int chunk = page >>> PAGES_PER_CHUNK_SHIFT;
+        if (page < 0 || chunk >= chunks.length)
+            throw new IllegalStateException("Invalid page " + page);
+        return chunks[chunk];
+    }
+
+    private static int offsetOf(int page) {
+        return (page & (PAGES_PER_CHUNK - 1)) * PAGE_SIZE;
+    }
+
+    private static boolean isLeaf(ByteBuffer chunk, int base) {
+        return chunk.getInt(base + IS_LEAF_OFFSET) != 0;
+    }
+
+    private static int count(ByteBuffer chunk, int base) {
+        int count = chunk.getInt(base + COUNT_OFFSET);
+        if (count < 0 || count > NODE_CAPACITY)
+            throw new IllegalStateException("Invalid page count " + count);
+        return count;
+    }
+
+    private static long key(ByteBuffer chunk, int base, int index) {
+        return chunk.getLong(base + KEYS_OFFSET + index * 8);
+    }
+
+    private static int ref(ByteBuffer chunk, int base, int index) {
+        return chunk.getInt(base + REFS_OFFSET + index * 4);
+    }
+
+    /**
+     * @return the index of the key in the node, or <code>-(insertion point) - 1</code>
+     */
+    private static int search(ByteBuffer chunk, int base, int count, long key) {
+        int low = 0;
+        int high = count - 1;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            long midKey = key(chunk, base, mid);
+            if (midKey < key)
+                low = mid + 1;
+            else if (midKey > key)
+                high = mid - 1;
+            else
+                return mid;
+        }
+        return -(low + 1);
+    }
+
+    //index of the child which may contain the key - the number of separators lower or equal to it
+    private static int childIndex(ByteBuffer chunk, int base, int count, long key) {
+        int index = search(chunk, base, count, key);
+        return index >= 0 ? index + 1 : -index - 1;
+    }
+
+    /**
+     * Inserts a key and a reference at the specified index, refShift is 0 for leaves (values are
+     * aligned with keys) and 1 for inner nodes (the child right of the key).
+     */
+    private static void insertAt(ByteBuffer chunk, int base, int count, int index, long key, int ref, int refShift) {
+        for (int i = count; i > index; i--) {
+            chunk.putLong(base + KEYS_OFFSET + i * 8, key(chunk, base, i - 1));
+            chunk.putInt(base + REFS_OFFSET + (i + refShift) * 4, ref(chunk, base, i - 1 + refShift));
+        }
+        chunk.putLong(base + KEYS_OFFSET + index * 8, key);
+        chunk.putInt(base + REFS_OFFSET + (index + refShift) * 4, ref);
+        chunk.putInt(base + COUNT_OFFSET, count + 1);
+    }
+
+    private static void moveEntries(ByteBuffer from, int fromBase, int fromIndex, ByteBuffer to, int toBase, int length, int toIndex) {
+        for (int i = 0; i < length; i++) {
+            to.putLong(toBase + KEYS_OFFSET + (toIndex + i) * 8, key(from, fromBase, fromIndex + i));
+            to.putInt(toBase + REFS_OFFSET + (toIndex + i) * 4, ref(from, fromBase, fromIndex + i));
+        }
+    }
+
+    //--------------------------------------------------------------------------------------------
+    // lookups
+    //--------------------------------------------------------------------------------------------
+
+    @Override
+    public V get(Object key) {
+        long k = encode(key);
+        return (V) segmentFor(k).get(k);
+    }
+
+    @Override
+    public boolean containsKey(Object key) {
+        return get(key) != null;
+    }
+
+    @Override
+    public int size() {
+        int result = 0;
+        for (Segment segment : _segments)
+            result += segment._size;
+        return result;
+    }
+
+    @Override
+    public boolean isEmpty() {
+        for (Segment segment : _segments) {
+            if (segment._size != 0)
+                return false;
+        }
+        return true;
+    }
+
+    //--------------------------------------------------------------------------------------------
+    // updates
+    //--------------------------------------------------------------------------------------------
+
+    private static final int PUT = 0;
+    private static final int PUT_IF_ABSENT = 1;
+    private static final int REPLACE = 2;
+    private static final int REMOVE = 3;
+
+    @Override
+    public V put(Object key, V value) {
+        return update(key, null, value, PUT);
+    }
+
+    @Override
+    public V putIfAbsent(Object key, V value) {
+        return update(key, null, value, PUT_IF_ABSENT);
+    }
+
+    @Override
+    public V replace(Object key, V value) {
+        return update(key, null, value, REPLACE);
+    }
+
+    @Override
+    public boolean replace(Object key, V oldValue, V newValue) {
+        if (oldValue == null)
+            throw new NullPointerException();
+        return update(key, oldValue, newValue, REPLACE) != null;
+    }
+
+    @Override
+    public V remove(Object key) {
+        return update(key, null, null, REMOVE);
+    }
+
+    @Override
+    public boolean remove(Object key, Object value) {
+        if (key == null)
+            throw new NullPointerException();
+        return value != null && update(key, value, null, REMOVE) != null;
+    }
+
+    private V update(Object key, Object expectedValue, V value, int operation) {
+        if (operation != REMOVE && value == null)
+            throw new NullPointerException();
+        long k = encode(key);
+        return (V) segmentFor(k).update(k, expectedValue, value, operation);
+    }
+
+    @Override
+    public void clear() {
+        for (Segment segment : _segments)
+            segment.clear();
+    }
+
+    //--------------------------------------------------------------------------------------------
+    // scans
+    //--------------------------------------------------------------------------------------------
+
+    /**
+     * Returns a weakly consistent iterator over the values of the specified key range, null bounds
+     * are unlimited.
+     *
+     * @param descending whether the scan starts from the upper bound
+     */
+    public Iterator<V> valuesIterator(Object from, boolean fromInclusive, Object to, boolean toInclusive, boolean descending) {
+        return new RangeIterator<V>(from, fromInclusive, to, toInclusive, descending, false);
+    }
+
+    /**
+     * @return the number of keys in the specified key range, null bounds are unlimited.
+     */
+    public int count(Object from, boolean fromInclusive, Object to, boolean toInclusive) {
+        long low = from == null ? Long.MIN_VALUE : encode(from);
+        long high = to == null ? Long.MAX_VALUE : encode(to);
+        boolean lowInclusive = from == null || fromInclusive;
+        boolean highInclusive = to == null || toInclusive;
+        int result = 0;
+        for (Segment segment : _segments)
+            result += segment.countRange(low, lowInclusive, high, highInclusive);
+        return result;
+    }
+
+    @Override
+    public Set<Entry<Object, V>> entrySet() {
+        return new AbstractSet<Entry<Object, V>>() {
+            @Override
+            public Iterator<Entry<Object, V>> iterator() {
+                return new RangeIterator<Entry<Object, V>>(null, true, null, true, false, true);
+            }
+
+            @Override
+            public int size() {
+                return OffHeapOrderedConcurrentMap.this.size();
+            }
+
+            @Override
+            public void clear() {
+                OffHeapOrderedConcurrentMap.this.clear();
+            }
+        };
+    }
+
+    /**
+     * A B+tree holding the keys of one hash stripe of the map. Its updates are serialized by its own
+     * write lock, so updates of keys of different segments proceed in parallel.
+     */
+    private static final class Segment {
+        private final StampedLock _lock = new StampedLock();
+
+        //native pages, a chunk is never released while the map is alive
+        private volatile ByteBuffer[] _chunks = new ByteBuffer[0];
+        private int _allocatedPages;
+        private int[] _freePages = new int[16];
+        private int _numOfFreePages;
+        private volatile int _root;
+
+        //on-heap value slots referred by the leaves
+        private volatile Object[] _values = new Object[16];
+        private int _allocatedValues;
+        private int[] _freeValues = new int[16];
+        private int _numOfFreeValues;
+
+        private volatile int _size;
+
+        //descent path of the current update, guarded by the write lock
+        private final int[] _pathPages = new int[MAX_DEPTH];
+        private final int[] _pathIndexes = new int[MAX_DEPTH];
+
+        Segment() {
+            _root = allocatePage(true);
+        }
+
+        private int findLeaf(ByteBuffer[] chunks, long key) {
+            int page = _root;
+            for (int depth = 0; depth < MAX_DEPTH; depth++) {
+                ByteBuffer chunk = chunkOf(chunks, page);
+                int base = offsetOf(page);
+                if (isLeaf(chunk, base))
+                    return page;
+                page = ref(chunk, base, childIndex(chunk, base, count(chunk, base), key));
+            }
+            throw new IllegalStateException("Max depth exceeded");
+        }
+
+        private int allocatePage(boolean leaf) {
+            int page;
+            if (_numOfFreePages > 0) {
+                page = _freePages[--_numOfFreePages];
+            } else {
+                page = _allocatedPages++;
+                if ((page >>> PAGES_PER_CHUNK_SHIFT) >= _chunks.length) {
+                    ByteBuffer[] chunks = Arrays.copyOf(_chunks, _chunks.length + 1);
+                    chunks[chunks.length - 1] = ByteBuffer.allocateDirect(PAGES_PER_CHUNK * PAGE_SIZE);
+                    _chunks = chunks;
+                }
+            }
+            ByteBuffer chunk = chunkOf(_chunks, page);
+            int base = offsetOf(page);
+            chunk.putInt(base + IS_LEAF_OFFSET, leaf ? 1 : 0);
+            chunk.putInt(base + COUNT_OFFSET, 0);
+            chunk.putInt(base + NEXT_OFFSET, NONE);
+            chunk.putInt(base + PREV_OFFSET, NONE);
+            return page;
+        }
+
+        private void freePage(int page) {
+            if (_numOfFreePages == _freePages.length)
+                _freePages = Arrays.copyOf(_freePages, _freePages.length * 2);
+            _freePages[_numOfFreePages++] = page;
+        }
+
+        private int allocateValue(Object value) {
+            int slot;
+            if (_numOfFreeValues > 0) {
+                slot = _freeValues[--_numOfFreeValues];
+            } else {
+                slot = _allocatedValues++;
+                if (slot == _values.length)
+                    _values = Arrays.copyOf(_values, _values.length * 2);
+            }
+            _values[slot] = value;
+            return slot;
+        }
+
+        private void freeValue(int slot) {
+            _values[slot] = null;
+            if (_numOfFreeValues == _freeValues.length)
+                _freeValues = Arrays.copyOf(_freeValues, _freeValues.length * 2);
+            _freeValues[_numOfFreeValues++] = slot;
+        }
+
+        Object get(long key) {
+            long stamp = _lock.tryOptimisticRead();
+            if (stamp != 0) {
+                try {
+                    Object value = doGet(key);
+                    if (_lock.validate(stamp))
+                        return value;
+                } catch (RuntimeException e) {
+                    //an update interleaved with the optimistic read - retry under lock
+                }
+            }
+            stamp = _lock.readLock();
+            try {
+                return doGet(key);
+            } finally {
+                _lock.unlockRead(stamp);
+            }
+        }
+
+        private Object doGet(long key) {
+            ByteBuffer[] chunks = _chunks;
+            int leaf = findLeaf(chunks, key);
+            ByteBuffer chunk = chunkOf(chunks, leaf);
+            int base = offsetOf(leaf);
+            int index = search(chunk, base, count(chunk, base), key);
+            return index < 0 ? null : _values[ref(chunk, base, index)];
+        }
+
+        Object update(long key, Object expectedValue, Object value, int operation) {
+            long stamp = _lock.writeLock();
+            try {
+                int depth = descend(key);
+                int leaf = _pathPages[depth];
+                ByteBuffer chunk = chunkOf(_chunks, leaf);
+                int base = offsetOf(leaf);
+                int count = count(chunk, base);
+                int index = search(chunk, base, count, key);
+                if (index >= 0) {
+                    int slot = ref(chunk, base, index);
+                    Object current = _values[slot];
+                    if (expectedValue != null && expectedValue != current && !expectedValue.equals(current))
+                        return null;
+                    switch (operation) {
+                        case PUT_IF_ABSENT:
+                            return current;
+                        case REMOVE:
+                            removeFromLeaf(depth, chunk, base, count, index);
+                            freeValue(slot);
+                            _size--;
+                            return current;
+                        default:
+                            _values[slot] = value;
+                            //replace with an expected value reports success by a non null result
+                            return expectedValue != null ? value : current;
+                    }
+                }
+                if (operation == REPLACE || operation == REMOVE)
+                    return null;
+                insertIntoLeaf(depth, -index - 1, key, allocateValue(value));
+                _size++;
+                return null;
+            } finally {
+                _lock.unlockWrite(stamp);
+            }
+        }
+
+        private int descend(long key) {
+            int page = _root;
+            for (int depth = 0; depth < MAX_DEPTH; depth++) {
+                _pathPages[depth] = page;
+                ByteBuffer chunk = chunkOf(_chunks, page);
+                int base = offsetOf(page);
+                if (isLeaf(chunk, base))
+                    return depth;
+                int index = childIndex(chunk, base, count(chunk, base), key);
+                _pathIndexes[depth] = index;
+                page = ref(chunk, base, index);
+            }
+            throw new IllegalStateException("Max depth exceeded");
+        }
+
+        private void insertIntoLeaf(int depth, int index, long key, int slot) {
+            int leaf = _pathPages[depth];
+            ByteBuffer chunk = chunkOf(_chunks, leaf);
+            int base = offsetOf(leaf);
+            int count = count(chunk, base);
+            if (count < NODE_CAPACITY) {
+                insertAt(chunk, base, count, index, key, slot, 0);
+                return;
+            }
+            //split - the upper half moves to a new right sibling
+            int right = allocatePage(true);
+            ByteBuffer rightChunk = chunkOf(_chunks, right);
+            int rightBase = offsetOf(right);
+            int half = NODE_CAPACITY / 2;
+            moveEntries(chunk, base, half, rightChunk, rightBase, NODE_CAPACITY - half, 0);
+            chunk.putInt(base + COUNT_OFFSET, half);
+            rightChunk.putInt(rightBase + COUNT_OFFSET, NODE_CAPACITY - half);
+            int next = chunk.getInt(base + NEXT_OFFSET);
+            rightChunk.putInt(rightBase + NEXT_OFFSET, next);
+            rightChunk.putInt(rightBase + PREV_OFFSET, leaf);
+            if (next != NONE)
+                chunkOf(_chunks, next).putInt(offsetOf(next) + PREV_OFFSET, right);
+            chunk.putInt(base + NEXT_OFFSET, right);
+            if (index <= half)
+                insertAt(chunk, base, half, index, key, slot, 0);
+            else
+                insertAt(rightChunk, rightBase, NODE_CAPACITY - half, index - half, key, slot, 0);
+            insertIntoParent(depth - 1, key(rightChunk, rightBase, 0), right);
+        }
+
+        private void insertIntoParent(int depth, long separator, int rightChild) {
+            if (depth < 0) {
+                //root was split
+                int oldRoot = _pathPages[0];
+                int root = allocatePage(false);
+                ByteBuffer chunk = chunkOf(_chunks, root);
+                int base = offsetOf(root);
+                chunk.putLong(base + KEYS_OFFSET, separator);
+                chunk.putInt(base + REFS_OFFSET, oldRoot);
+                chunk.putInt(base + REFS_OFFSET + 4, rightChild);
+                chunk.putInt(base + COUNT_OFFSET, 1);
+                _root = root;
+                return;
+            }
+            int node = _pathPages[depth];
+            ByteBuffer chunk = chunkOf(_chunks, node);
+            int base = offsetOf(node);
+            int count = count(chunk, base);
+            int index = _pathIndexes[depth];
+            if (count < NODE_CAPACITY) {
+                insertAt(chunk, base, count, index, separator, rightChild, 1);
+                return;
+            }
+            //split an inner node - the middle separator moves up
+            int right = allocatePage(false);
+            ByteBuffer rightChunk = chunkOf(_chunks, right);
+            int rightBase = offsetOf(right);
+            //build the overflowing node in a temporary array and distribute it
+            long[] keys = new long[NODE_CAPACITY + 1];
+            int[] children = new int[NODE_CAPACITY + 2];
+            for (int i = 0, j = 0; i < NODE_CAPACITY + 1; i++)
+                keys[i] = i == index ? separator : key(chunk, base, j++);
+            for (int i = 0, j = 0; i < NODE_CAPACITY + 2; i++)
+                children[i] = i == index + 1 ? rightChild : ref(chunk, base, j++);
+            int half = (NODE_CAPACITY + 1) / 2;
+            for (int i = 0; i < half; i++) {
+                chunk.putLong(base + KEYS_OFFSET + i * 8, keys[i]);
+                chunk.putInt(base + REFS_OFFSET + i * 4, children[i]);
+            }
+            chunk.putInt(base + REFS_OFFSET + half * 4, children[half]);
+            chunk.putInt(base + COUNT_OFFSET, half);
+            int rightCount = NODE_CAPACITY - half;
+            for (int i = 0; i < rightCount; i++) {
+                rightChunk.putLong(rightBase + KEYS_OFFSET + i * 8, keys[half + 1 + i]);
+                rightChunk.putInt(rightBase + REFS_OFFSET + i * 4, children[half + 1 + i]);
+            }
+            rightChunk.putInt(rightBase + REFS_OFFSET + rightCount * 4, children[NODE_CAPACITY + 1]);
+            rightChunk.putInt(rightBase + COUNT_OFFSET, rightCount);
+            insertIntoParent(depth - 1, keys[half], right);
+        }
+
+        private void removeFromLeaf(int depth, ByteBuffer chunk, int base, int count, int index) {
+            for (int i = index; i < count - 1; i++) {
+                chunk.putLong(base + KEYS_OFFSET + i * 8, key(chunk, base, i + 1));
+                chunk.putInt(base + REFS_OFFSET + i * 4, ref(chunk, base, i + 1));
+            }
+            chunk.putInt(base + COUNT_OFFSET, count - 1);
+            if (count - 1 > 0 || depth == 0)
+                return;
+            //unlink the empty leaf
+            int leaf = _pathPages[depth];
+            int next = chunk.getInt(base + NEXT_OFFSET);
+            int prev = chunk.getInt(base + PREV_OFFSET);
+            if (next != NONE)
+                chunkOf(_chunks, next).putInt(offsetOf(next) + PREV_OFFSET, prev);
+            if (prev != NONE)
+                chunkOf(_chunks, prev).putInt(offsetOf(prev) + NEXT_OFFSET, next);
+            freePage(leaf);
+            removeFromParent(depth - 1);
+        }
+
+        private void removeFromParent(int depth) {
+            int node = _pathPages[depth];
+            ByteBuffer chunk = chunkOf(_chunks, node);
+            int base = offsetOf(node);
+            int count = count(chunk, base);
+            int childIndex = _pathIndexes[depth];
+            if (count == 0) {
+                //the removed child was the only one
+                if (depth == 0) {
+                    chunk.putInt(base + IS_LEAF_OFFSET, 1);
+                    chunk.putInt(base + NEXT_OFFSET, NONE);
+                    chunk.putInt(base + PREV_OFFSET, NONE);
+                    return;
+                }
+                freePage(node);
+                removeFromParent(depth - 1);
+                return;
+            }
+            //remove the child and the separator next to it
+            int keyIndex = childIndex == 0 ? 0 : childIndex - 1;
+            for (int i = keyIndex; i < count - 1; i++)
+                chunk.putLong(base + KEYS_OFFSET + i * 8, key(chunk, base, i + 1));
+            for (int i = childIndex; i < count; i++)
+                chunk.putInt(base + REFS_OFFSET + i * 4, ref(chunk, base, i + 1));
+            chunk.putInt(base + COUNT_OFFSET, count - 1);
+            if (depth == 0 && count - 1 == 0) {
+                //collapse a root with a single child
+                _root = ref(chunk, base, 0);
+                freePage(node);
+            }
+        }
+
+        void clear() {
+            long stamp = _lock.writeLock();
+            try {
+                _chunks = new ByteBuffer[0];
+                _allocatedPages = 0;
+                _numOfFreePages = 0;
+                _values = new Object[16];
+                _allocatedValues = 0;
+                _numOfFreeValues = 0;
+                _size = 0;
+                _root = allocatePage(true);
+            } finally {
+                _lock.unlockWrite(stamp);
+            }
+        }
+
+        int countRange(long low, boolean lowInclusive, long high, boolean highInclusive) {
+            long stamp = _lock.readLock();
+            try {
+                ByteBuffer[] chunks = _chunks;
+                int result = 0;
+                int leaf = findLeaf(chunks, low);
+                while (leaf != NONE) {
+                    ByteBuffer chunk = chunkOf(chunks, leaf);
+                    int base = offsetOf(leaf);
+                    int count = count(chunk, base);
+                    if (count > 0) {
+                        if (key(chunk, base, 0) > low && key(chunk, base, count - 1) < high) {
+                            result += count;
+                        } else {
+                            for (int i = 0; i < count; i++) {
+                                long key = key(chunk, base, i);
+                                if (key > high || (key == high && !highInclusive))
+                                    return result;
+                                if (key > low || (key == low && lowInclusive))
+                                    result++;
+                            }
+                        }
+                    }
+                    leaf = chunk.getInt(base + NEXT_OFFSET);
+                }
+                return result;
+            } finally {
+                _lock.unlockRead(stamp);
+            }
+        }
+    }
+
+    /**
+     * Merges the range scans of all the segments by key order, each segment is scanned in batches.
+     */
+    private class RangeIterator<T> implements Iterator<T> {
+        private final long _low;
+        private final boolean _lowInclusive;
+        private final long _high;
+        private final boolean _highInclusive;
+        private final boolean _descending;
+        private final boolean _entries;
+        private final List<SegmentScan> _scans = new ArrayList<SegmentScan>(SEGMENTS);
+        private Object _lastReturned;
+        private long _lastReturnedKey;
+
+        RangeIterator(Object from, boolean fromInclusive, Object to, boolean toInclusive, boolean descending, boolean entries) {
+            _low = from == null ? Long.MIN_VALUE : encode(from);
+            _lowInclusive = from == null || fromInclusive;
+            _high = to == null ? Long.MAX_VALUE : encode(to);
+            _highInclusive = to == null || toInclusive;
+            _descending = descending;
+            _entries = entries;
+            for (Segment segment : _segments)
+                _scans.add(new SegmentScan(segment));
+        }
+
+        //the scan whose next key is the next one in the scan order, or null if all are exhausted
+        private SegmentScan nextScan() {
+            SegmentScan result = null;
+            for (int i = 0; i < _scans.size(); i++) {
+                SegmentScan scan = _scans.get(i);
+                if (!scan.hasNext())
+                    continue;
+                if (result == null || (_descending ? scan.nextKey() > result.nextKey() : scan.nextKey() < result.nextKey()))
+                    result = scan;
+            }
+            return result;
+        }
+
+        @Override
+        public boolean hasNext() {
+            return nextScan() != null;
+        }
+
+        @Override
+        public T next() {
+            SegmentScan scan = nextScan();
+            if (scan == null)
+                throw new NoSuchElementException();
+            _lastReturnedKey = scan.nextKey();
+            _lastReturned = scan.poll();
+            if (_entries)
+                return (T) new SimpleImmutableEntry<Object, Object>(_keyType.decode(_lastReturnedKey), _lastReturned);
+            return (T) _lastReturned;
+        }
+
+        @Override
+        public void remove() {
+            if (_lastReturned == null)
+                throw new IllegalStateException();
+            OffHeapOrderedConcurrentMap.this.remove(_keyType.decode(_lastReturnedKey), _lastReturned);
+            _lastReturned = null;
+        }
+
+        private boolean isAfterRange(long key) {
+            if (_descending)
+                return key < _low || (key == _low && !_lowInclusive);
+            return key > _high || (key == _high && !_highInclusive);
+        }
+
+        private boolean isInRange(long key) {
+            return (key > _low || (key == _low && _lowInclusive)) && (key < _high || (key == _high && _highInclusive));
+        }
+
+        /**
+         * Scans the range in a single segment, fetching batches of entries and re-seeking after the
+         * last fetched key.
+         */
+        private final class SegmentScan {
+            private final Segment _segment;
+            private final long[] _keys = new long[SCAN_BATCH_SIZE];
+            private final Object[] _batch = new Object[SCAN_BATCH_SIZE];
+            private int _batchSize;
+            private int _position;
+            private boolean _started;
+            private boolean _exhausted;
+            private long _lastKey;
+
+            SegmentScan(Segment segment) {
+                _segment = segment;
+            }
+
+            boolean hasNext() {
+                if (_position < _batchSize)
+                    return true;
+                if (_exhausted)
+                    return false;
+                fetch();
+                return _position < _batchSize;
+            }
+
+            long nextKey() {
+                return _keys[_position];
+            }
+
+            Object poll() {
+                Object value = _batch[_position];
+                _batch[_position++] = null;
+                return value;
+            }
+
+            private void fetch() {
+                _position = 0;
+                _batchSize = 0;
+                StampedLock lock = _segment._lock;
+                long stamp = lock.tryOptimisticRead();
+                if (stamp != 0) {
+                    try {
+                        boolean exhausted = fill();
+                        if (lock.validate(stamp)) {
+                            onFetched(exhausted);
+                            return;
+                        }
+                    } catch (RuntimeException e) {
+                        //an update interleaved with the optimistic read - retry under lock
+                    }
+                }
+                stamp = lock.readLock();
+                try {
+                    onFetched(fill());
+                } finally {
+                    lock.unlockRead(stamp);
+                }
+            }
+
+            private void onFetched(boolean exhausted) {
+                _exhausted = exhausted;
+                _started = true;
+                if (_batchSize > 0)
+                    _lastKey = _keys[_batchSize - 1];
+            }
+
+            //fills the batch, returns true if the range end was reached
+            private boolean fill() {
+                _batchSize = 0;
+                ByteBuffer[] chunks = _segment._chunks;
+                Object[] values = _segment._values;
+                long seek = _started ? _lastKey : (_descending ? _high : _low);
+                int leaf = _segment.findLeaf(chunks, seek);
+                ByteBuffer chunk = chunkOf(chunks, leaf);
+                int base = offsetOf(leaf);
+                int count = count(chunk, base);
+                int index = search(chunk, base, count, seek);
+                if (_descending)
+                    index = index >= 0 ? index : -index - 2;
+                else
+                    index = index >= 0 ? index : -index - 1;
+                int visitedLeaves = 0;
+                while (true) {
+                    while (_descending ? index >= 0 : index < count) {
+                        long key = key(chunk, base, index);
+                        if (isAfterRange(key))
+                            return true;
+                        if (isInRange(key) && (!_started || key != _lastKey)) {
+                            Object value = values[ref(chunk, base, index)];
+                            if (value != null) {
+                                _keys[_batchSize] = key;
+                                _batch[_batchSize++] = value;
+                                if (_batchSize == SCAN_BATCH_SIZE)
+                                    return false;
+                            }
+                        }
+                        index += _descending ? -1 : 1;
+                    }
+                    leaf = chunk.getInt(base + (_descending ? PREV_OFFSET : NEXT_OFFSET));
+                    if (leaf == NONE)
+                        return true;
+                    if (++visitedLeaves > _segment._allocatedPages)
+                        throw new IllegalStateException("Leaves cycle");
+                    chunk = chunkOf(chunks, leaf);
+                    base = offsetOf(leaf);
+                    count = count(chunk, base);
+                    index = _descending ? count - 1 : 0;
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,602 @@
+/*
+ * Copyright (c) 2008-2016, GigaSpaces Technologies, Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.gigaspaces.internal.utils.collections;
+
+import com.gigaspaces.internal.gnu.trove.HashFunctions;
+import com.gigaspaces.internal.gnu.trove.PrimeFinder;
+
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * A concurrent map whose keys are boxed numeric values of a single known type, stored unboxed in
+ * open addressing tables.
+ * <p>
+ * The map is divided into segments, each segment holds a double hashing table of primitive
+ * <code>long</code> keys (the same probing scheme used by the trove collections) and its values.
+ * Updates are performed under the segment lock while reads are lock free, so a lookup neither
+ * allocates nor blocks. Keys of the map's key type are never stored as objects - a key of any other
+ * type is kept in a regular {@link ConcurrentHashMap} in order to preserve {@link Object#equals}
+ * semantics, i.e. an <code>Integer</code> key never matches a <code>Long</code> one.
+ * <p>
+ * Iteration is weakly consistent and the iterated entries do not support {@link Map.Entry#setValue}.
+ *
+ * @since 16.0
+ */
+@com.gigaspaces.api.InternalApi
+public class PrimitiveKeyConcurrentHashMap<V> extends AbstractMap<Object, V> implements ConcurrentMap<Object, V> {
+
+    private static final float LOAD_FACTOR = 0.5f;
+    private static final int MIN_CAPACITY = 5;
+    //value of a removed slot, a slot whose value is null was never used
+    private static final Object REMOVED = new Object();
+
+    /**
+     * The supported key types, each maps its boxed values to distinct primitive long values which
+     * are equal iff the boxed values are equal.
+     */
+    public enum KeyType {
+        LONG(Long.class) {
+            @Override
+            long toLong(Object key) {
+                return (Long) key;
+            }
+
+            @Override
+            Object toKey(long value) {
+                return value;
+            }
+        },
+        INTEGER(Integer.class) {
+            @Override
+            long toLong(Object key) {
+                return (Integer) key;
+            }
+
+            @Override
+            Object toKey(long value) {
+                return (int) value;
+            }
+        },
+        SHORT(Short.class) {
+            @Override
+            long toLong(Object key) {
+                return (Short) key;
+            }
+
+            @Override
+            Object toKey(long value) {
+                return (short) value;
+            }
+        },
+        BYTE(Byte.class) {
+            @Override
+            long toLong(Object key) {
+                return (Byte) key;
+            }
+
+            @Override
+            Object toKey(long value) {
+                return (byte) value;
+            }
+        },
+        CHARACTER(Character.class) {
+            @Override
+            long toLong(Object key) {
+                return (Character) key;
+            }
+
+            @Override
+            Object toKey(long value) {
+                return (char) value;
+            }
+        },
+        DOUBLE(Double.class) {
+            //Double.equals() is defined by the bits representation
+            @Override
+            long toLong(Object key) {
+                return Double.doubleToLongBits((Double) key);
+            }
+
+            @Override
+            Object toKey(long value) {
+                return Double.longBitsToDouble(value);
+            }
+        },
+        FLOAT(Float.class) {
+            //Float.equals() is defined by the bits representation
+            @Override
+            long toLong(Object key) {
+                return Float.floatToIntBits((Float) key);
+            }
+
+            @Override
+            Object toKey(long value) {
+                return Float.intBitsToFloat((int) value);
+            }
+        };
+
+        private final Class<?> _type;
+
+        KeyType(Class<?> type) {
+            _type = type;
+        }
+
+        public Class<?> getType() {
+            return _type;
+        }
+
+        abstract long toLong(Object key);
+
+        abstract Object toKey(long value);
+
+        /**
+         * @return the key type which matches the specified (primitive or boxed) class, or null if the
+         * class is not supported.
+         */
+        public static KeyType fromClass(Class<?> type) {
+            if (type == null)
+                return null;
+            if (type == Long.class || type == long.class)
+                return LONG;
+            if (type == Integer.class || type == int.class)
+                return INTEGER;
+            if (type == Short.class || type == short.class)
+                return SHORT;
+            if (type == Byte.class || type == byte.class)
+                return BYTE;
+            if (type == Character.class || type == char.class)
+                return CHARACTER;
+            if (type == Double.class || type == double.class)
+                return DOUBLE;
+            if (type == Float.class || type == float.class)
+                return FLOAT;
+            return null;
+        }
+    }
+
+    private final KeyType _keyType;
+    private final Segment<V>[] _segments;
+    private final int _segmentShift;
+    private volatile ConcurrentHashMap<Object, V> _otherKeys;
+
+    public PrimitiveKeyConcurrentHashMap(KeyType keyType, int initialCapacity, int concurrencyLevel) {
+        if (keyType == null)
+            throw new IllegalArgumentException("keyType cannot be null");
+        _keyType = keyType;
+        int numOfSegments = 1;
+        int segmentBits = 0;
+        while (numOfSegments < concurrencyLevel) {
+            numOfSegments <<= 1;
+            segmentBits++;
+        }
+        _segmentShift = 32 - segmentBits;
+        _segments = new Segment[numOfSegments];
+        int segmentCapacity = Math.max(initialCapacity / numOfSegments, 1);
+        for (int i = 0; i < numOfSegments; i++)
+            _segments[i] = new Segment<V>(segmentCapacity);
+    }
+
+    public KeyType getKeyType() {
+        return _keyType;
+    }
+
+    private boolean isPrimitiveKey(Object key) {
+        if (key == null)
+            throw new NullPointerException();
+        return key.getClass() == _keyType.getType();
+    }
+
+    private Segment<V> segmentFor(int hash) {
+        if (_segmentShift == 32)
+            return _segments[0];
+        return _segments[(hash * 0x9E3779B9) >>> _segmentShift];
+    }
+
+    private ConcurrentHashMap<Object, V> getOtherKeys() {
+        ConcurrentHashMap<Object, V> otherKeys = _otherKeys;
+        if (otherKeys == null) {
+            synchronized (this) {
+                otherKeys = _otherKeys;
+                if (otherKeys == null)
+                    _otherKeys = otherKeys = new ConcurrentHashMap<Object, V>();
+            }
+        }
+        return otherKeys;
+    }
+
+    @Override
+    public V get(Object key) {
+        if (isPrimitiveKey(key)) {
+            long value = _keyType.toLong(key);
+            int hash = HashFunctions.hash(value);
+            return segmentFor(hash).get(value, hash);
+        }
+        ConcurrentHashMap<Object, V> otherKeys = _otherKeys;
+        return otherKeys == null ? null : otherKeys.get(key);
+    }
+
+    @Override
+    public boolean containsKey(Object key) {
+        return get(key) != null;
+    }
+
+    @Override
+    public V put(Object key, V value) {
+        return update(key, null, value, Segment.PUT);
+    }
+
+    @Override
+    public V putIfAbsent(Object key, V value) {
+        return update(key, null, value, Segment.PUT_IF_ABSENT);
+    }
+
+    @Override
+    public V replace(Object key, V value) {
+        return update(key, null, value, Segment.REPLACE);
+    }
+
+    @Override
+    public boolean replace(Object key, V oldValue, V newValue) {
+        if (oldValue == null)
+            throw new NullPointerException();
+        return update(key, oldValue, newValue, Segment.REPLACE) != null;
+    }
+
+    @Override
+    public V remove(Object key) {
+        return update(key, null, null, Segment.REMOVE);
+    }
+
+    @Override
+    public boolean remove(Object key, Object value) {
+        if (key == null)
+            throw new NullPointerException();
+        return value != null && update(key, value, null, Segment.REMOVE) != null;
+    }
+
+    private V update(Object key, Object expectedValue, V value, int operation) {
+        if (operation != Segment.REMOVE && value == null)
+            throw new NullPointerException();
+        if (isPrimitiveKey(key)) {
+            long primitiveKey = _keyType.toLong(key);
+            int hash = HashFunctions.hash(primitiveKey);
+            return segmentFor(hash).update(primitiveKey, hash, expectedValue, value, operation);
+        }
+        ConcurrentHashMap<Object, V> otherKeys = operation == Segment.PUT || operation == Segment.PUT_IF_ABSENT ? getOtherKeys() : _otherKeys;
+        if (otherKeys == null)
+            return null;
+        switch (operation) {
+            case Segment.PUT:
+                return otherKeys.put(key, value);
+            case Segment.PUT_IF_ABSENT:
+                return otherKeys.putIfAbsent(key, value);
+            case Segment.REPLACE:
+                if (expectedValue == null)
+                    return otherKeys.replace(key, value);
+                return otherKeys.replace(key, (V) expectedValue, value) ? value : null;
+            default:
+                if (expectedValue == null)
+                    return otherKeys.remove(key);
+                return otherKeys.remove(key, expectedValue) ? (V) expectedValue : null;
+        }
+    }
+
+    @Override
+    public int size() {
+        long size = 0;
+        for (Segment<V> segment : _segments)
+            size += segment._size;
+        ConcurrentHashMap<Object, V> otherKeys = _otherKeys;
+        if (otherKeys != null)
+            size += otherKeys.size();
+        return size > Integer.MAX_VALUE ? Integer.MAX_VALUE : (int) size;
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return size() == 0;
+    }
+
+    @Override
+    public void clear() {
+        for (Segment<V> segment : _segments)
+            segment.clear();
+        ConcurrentHashMap<Object, V> otherKeys = _otherKeys;
+        if (otherKeys != null)
+            otherKeys.clear();
+    }
+
+    @Override
+    public Set<Entry<Object, V>> entrySet() {
+        return new AbstractSet<Entry<Object, V>>() {
+            @Override
+            public Iterator<Entry<Object, V>> iterator() {
+                return new EntryIterator();
+            }
+
+            @Override
+            public int size() {
+                return PrimitiveKeyConcurrentHashMap.this.size();
+            }
+
+            @Override
+            public void clear() {
+                PrimitiveKeyConcurrentHashMap.this.clear();
+            }
+        };
+    }
+
+    private static final class Table {
+        final AtomicLongArray keys;
+        final AtomicReferenceArray<Object> values;
+
+        Table(int capacity) {
+            keys = new AtomicLongArray(capacity);
+            values = new AtomicReferenceArray<Object>(capacity);
+        }
+
+        int capacity() {
+            return values.length();
+        }
+    }
+
+    private static final class Segment<V> extends ReentrantLock {
+        private static final long serialVersionUID = 1L;
+
+        static final int PUT = 0;
+        static final int PUT_IF_ABSENT = 1;
+        static final int REPLACE = 2;
+        static final int REMOVE = 3;
+
+        private volatile Table _table;
+        private volatile int _size;
+        //number of removed slots, guarded by the lock
+        private int _removed;
+
+        Segment(int initialCapacity) {
+            _table = new Table(capacityFor(initialCapacity));
+        }
+
+        private static int capacityFor(int size) {
+            return PrimeFinder.nextPrime(Math.max(MIN_CAPACITY, (int) Math.ceil(size / LOAD_FACTOR) + 1));
+        }
+
+        /**
+         * Lock free lookup. The writer marks a slot as removed before its key is replaced and
+         * publishes the new key before the new value, so once a matching key is read the value of
+         * the slot is read again - if it is still the same value it belongs to the matched key,
+         * otherwise the slot was concurrently changed and the lookup is performed under the lock.
+         */
+        V get(long key, int hash) {
+            final Table table = _table;
+            final int length = table.capacity();
+            final int h = hash & 0x7fffffff;
+            int index = h % length;
+            final int probe = 1 + (h % (length - 2));
+            for (int i = 0; i < length; i++) {
+                Object value = table.values.get(index);
+                if (value == null)
+                    return null;
+                if (value != REMOVED && table.keys.get(index) == key) {
+                    //the value read before the key might belong to a previous key of a reused slot
+                    if (table.values.get(index) == value)
+                        return (V) value;
+                    return lockedGet(key, hash);
+                }
+                index -= probe;
+                if (index < 0)
+                    index += length;
+            }
+            return null;
+        }
+
+        private V lockedGet(long key, int hash) {
+            lock();
+            try {
+                final Table table = _table;
+                final int length = table.capacity();
+                final int h = hash & 0x7fffffff;
+                int index = h % length;
+                final int probe = 1 + (h % (length - 2));
+                for (int i = 0; i < length; i++) {
+                    Object value = table.values.get(index);
+                    if (value == null)
+                        return null;
+                    if (value != REMOVED && table.keys.get(index) == key)
+                        return (V) value;
+                    index -= probe;
+                    if (index < 0)
+                        index += length;
+                }
+                return null;
+            } finally {
+                unlock();
+            }
+        }
+
+        V update(long key, int hash, Object expectedValue, V value, int operation) {
+            lock();
+            try {
+                final Table table = _table;
+                final int length = table.capacity();
+                final int h = hash & 0x7fffffff;
+                int index = h % length;
+                final int probe = 1 + (h % (length - 2));
+                int freeIndex = -1;
+                for (int i = 0; i < length; i++) {
+                    Object current = table.values.get(index);
+                    if (current == null) {
+                        if (freeIndex == -1)
+                            freeIndex = index;
+                        break;
+                    }
+                    if (current == REMOVED) {
+                        if (freeIndex == -1)
+                            freeIndex = index;
+                    } else if (table.keys.get(index) == key) {
+                        return updateExisting(table, index, (V) current, expectedValue, value, operation);
+                    }
+                    index -= probe;
+                    if (index < 0)
+                        index += length;
+                }
+                if (operation == REPLACE || operation == REMOVE)
+                    return null;
+                if (table.values.get(freeIndex) == REMOVED)
+                    _removed--;
+                table.keys.set(freeIndex, key);
+                table.values.set(freeIndex, value);
+                _size++;
+                if (_size + _removed > length * LOAD_FACTOR)
+                    rehash();
+                return null;
+            } finally {
+                unlock();
+            }
+        }
+
+        private V updateExisting(Table table, int index, V current, Object expectedValue, V value, int operation) {
+            if (expectedValue != null && expectedValue != current && !expectedValue.equals(current))
+                return null;
+            switch (operation) {
+                case PUT_IF_ABSENT:
+                    return current;
+                case REMOVE:
+                    table.values.set(index, REMOVED);
+                    _size--;
+                    _removed++;
+                    return current;
+                default:
+                    table.values.set(index, value);
+                    //replace with an expected value reports success by a non null result
+                    return expectedValue != null ? value : current;
+            }
+        }
+
+        //Builds a new table which is published as a whole, concurrent readers keep using the old one
+        private void rehash() {
+            final Table table = _table;
+            final Table newTable = new Table(capacityFor(_size + (_size >> 1)));
+            final int newLength = newTable.capacity();
+            for (int i = 0; i < table.capacity(); i++) {
+                Object value = table.values.get(i);
+                if (value == null || value == REMOVED)
+                    continue;
+                long key = table.keys.get(i);
+                int h = HashFunctions.hash(key) & 0x7fffffff;
+                int index = h % newLength;
+                int probe = 1 + (h % (newLength - 2));
+                while (newTable.values.get(index) != null) {
+                    index -= probe;
+                    if (index < 0)
+                        index += newLength;
+                }
+                newTable.keys.set(index, key);
+                newTable.values.set(index, value);
+            }
+            _removed = 0;
+            _table = newTable;
+        }
+
+        void clear() {
+            lock();
+            try {
+                _table = new Table(capacityFor(MIN_CAPACITY));
+                _size = 0;
+                _removed = 0;
+            } finally {
+                unlock();
+            }
+        }
+    }
+
+    private class EntryIterator implements Iterator<Entry<Object, V>> {
+        private int _segmentIndex = -1;
+        private Table _table;
+        private int _slot;
+        private Iterator<Entry<Object, V>> _otherKeysIterator;
+        private Entry<Object, V> _next;
+        private Entry<Object, V> _last;
+
+        EntryIterator() {
+            advance();
+        }
+
+        private void advance() {
+            _next = null;
+            while (_otherKeysIterator == null) {
+                if (_table != null) {
+                    while (_slot < _table.capacity()) {
+                        int slot = _slot++;
+                        Object value = _table.values.get(slot);
+                        if (value != null && value != REMOVED) {
+                            long key = _table.keys.get(slot);
+                            //skip a slot which was reused while reading it
+                            if (_table.values.get(slot) != value)
+                                continue;
+                            _next = new SimpleImmutableEntry<Object, V>(_keyType.toKey(key), (V) value);
+                            return;
+                        }
+                    }
+                }
+                if (++_segmentIndex < _segments.length) {
+                    _table = _segments[_segmentIndex]._table;
+                    _slot = 0;
+                } else {
+                    ConcurrentHashMap<Object, V> otherKeys = _otherKeys;
+                    _otherKeysIterator = otherKeys != null ? otherKeys.entrySet().iterator() : null;
+                    if (_otherKeysIterator == null)
+                        return;
+                }
+            }
+            if (_otherKeysIterator.hasNext())
+                _next = _otherKeysIterator.next();
+        }
+
+        @Override
+        public boolean hasNext() {
+            return _next != null;
+        }
+
+        @Override
+        public Entry<Object, V> next() {
+            if (_next == null)
+                throw new NoSuchElementException();
+            _last = _next;
+            advance();
+            return _last;
+        }
+
+        @Override
+        public void remove() {
+            if (_last == null)
+                throw new IllegalStateException();
+            PrimitiveKeyConcurrentHashMap.this.remove(_last.getKey());
+            _last = null;
+        }
+    }
+}
@@ -50,6 +50,12 @@ public class ConnectionPool {
     private volatile boolean _disabled;
     private volatile boolean _closed;
 
+    // a multiplexed connection stays acquired from the pool and is shared by synchronous invocations until it breaks
+    private final Object _multiplexedLock = new Object();
+    private volatile ConnectionResource _multiplexedConnection;
+    //guarded by _multiplexedLock
+    private int _multiplexedConnectionUsers;
+
     public static LongAdder getActiveConnectionsCounter() {
         return activeConnections;
     }
@@ -84,6 +90,13 @@ public class ConnectionPool {
      * full, the caller will be blocked until a free connection is available.
      */
     public ConnectionResource getConnection(LRMIMethod lrmiMethod) throws RemoteException, MalformedURLException {
+        final boolean multiplexable = !lrmiMethod.isAsync && !lrmiMethod.isOneWay;
+        if (multiplexable && _multiplexedConnection != null) {
+            ConnectionResource conn = getMultiplexedConnection();
+            if (conn != null)
+                return conn;
+        }
+
         boolean waitForConnection = true;
         if (lrmiMethod.isAsync){
             waitForConnection = WAIT_INDEFINITELY_FOR_CONNECTION;
@@ -120,13 +133,54 @@ public class ConnectionPool {
             throw ex;
         }
         activeConnections.increment();
+        if (multiplexable && conn.isMultiplexed()) {
+            synchronized (_multiplexedLock) {
+                if (_multiplexedConnection == null) {
+                    _multiplexedConnection = conn;
+                    _multiplexedConnectionUsers = 1;
+                }
+            }
+        }
         return conn;
     }
 
+    /**
+     * Returns the shared multiplexed connection, or null if it is broken, in which case it is
+     * returned to the pool once its last user frees it.
+     */
+    private ConnectionResource getMultiplexedConnection() {
+        ConnectionResource brokenConnection;
+        synchronized (_multiplexedLock) {
+            ConnectionResource conn = _multiplexedConnection;
+            if (conn == null)
+                return null;
+            if (conn.isMultiplexed() && !_closed) {
+                _multiplexedConnectionUsers++;
+                return conn;
+            }
+            if (_multiplexedConnectionUsers > 0)
+                return null;
+            _multiplexedConnection = null;
+            brokenConnection = conn;
+        }
+        activeConnections.decrement();
+        _peersPool.freeResource(brokenConnection);
+        return null;
+    }
+
     /**
      * Free a connection (return it to pool).
      */
     public void freeConnection(ConnectionResource clientPeer) {
+        if (clientPeer == _multiplexedConnection) {
+            synchronized (_multiplexedLock) {
+                if (clientPeer == _multiplexedConnection) {
+                    if (--_multiplexedConnectionUsers > 0 || clientPeer.isMultiplexed())
+                        return;
+                    _multiplexedConnection = null;
+                }
+            }
+        }
         activeConnections.decrement();
         _peersPool.freeResource(clientPeer);
     }
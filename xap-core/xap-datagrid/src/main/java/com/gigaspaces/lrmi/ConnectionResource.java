@@ -52,4 +52,13 @@ public abstract class ConnectionResource
 
     public abstract LRMIMonitoringModule getMonitoringModule();
 
+    /**
+     * @return <code>true</code> if this resource can be shared by concurrent synchronous
+     * invocations
+     * @since 16.0
+     */
+    public boolean isMultiplexed() {
+        return false;
+    }
+
 }
@@ -94,6 +94,14 @@ public class LRMIClassLoadersHolder {
         }
     }
 
+    /**
+     * @return <code>true</code> if classes may be imported from remote end points
+     * @since 16.0
+     */
+    public static boolean isEnabled() {
+        return enabled;
+    }
+
     //GS-7354: Protect from stack overflow which can be caused by a recursive call to remote loading of the same class
     //Will happen if this mechanism is trying to load gigaspaces classses from the AppClassLoader inside service grid
     private static final ThreadLocal<String> _currentLoadingClass = new ThreadLocal<String>();
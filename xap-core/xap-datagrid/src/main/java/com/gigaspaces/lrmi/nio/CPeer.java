@@ -24,7 +24,9 @@ import com.gigaspaces.exception.lrmi.LRMINoSuchObjectException;
 import com.gigaspaces.exception.lrmi.LRMIUnhandledException;
 import com.gigaspaces.exception.lrmi.LRMIUnhandledException.Stage;
 import com.gigaspaces.exception.lrmi.ProtocolException;
+import com.gigaspaces.internal.io.GSByteArrayInputStream;
 import com.gigaspaces.internal.io.MarshalContextClearedException;
+import com.gigaspaces.internal.io.MarshalInputStream;
 import com.gigaspaces.internal.lrmi.ConnectionUrlDescriptor;
 import com.gigaspaces.internal.lrmi.LRMIMonitoringModule;
 import com.gigaspaces.internal.reflection.ReflectionUtil;
@@ -159,6 +161,12 @@ public class CPeer extends BaseClientPeer {
     private AsyncContext _asyncContext = null;
     private boolean _asyncConnect;
 
+    // set by the handshake if the server supports multiplexing, synchronous invocations then share this connection
+    private volatile boolean _multiplexed;
+    private final Object _multiplexedLock = new Object();
+    //guarded by _multiplexedLock
+    private MultiplexedChannel _multiplexedChannel;
+
     public static LongAdder getConnectionsCounter() {
         return connections;
     }
@@ -266,7 +274,8 @@ public class CPeer extends BaseClientPeer {
 
         RequestPacket requestPacket = new RequestPacket(new HandshakeRequest(PlatformLogicalVersion.getLogicalVersion()));
         requestPacket.operationPriority = getOperationPriority(lrmiMethod, LRMIInvocationContext.getCurrentContext());
-        conversation.addChat(new LRMIChat(requestPacket));
+        LRMIChat handshakeChat = new LRMIChat(requestPacket);
+        conversation.addChat(handshakeChat);
 
         try {
             SettableFuture<Conversation> future = clientConversationRunner.addConversation(conversation);
@@ -276,6 +285,7 @@ public class CPeer extends BaseClientPeer {
                 future.get(_config.getSocketConnectTimeout(), TimeUnit.MILLISECONDS);
             }
             conversation.channel().configureBlocking(true);
+            _multiplexed = isMultiplexingNegotiated(handshakeChat.result());
             return conversation.channel();
         } catch (Throwable t) {
             conversation.close(t);
@@ -486,6 +496,7 @@ public class CPeer extends BaseClientPeer {
 
             _closed = true;
 
+            closeMultiplexedChannel();
             closeSocketAndUnregisterWatchdog();
         }
     }
@@ -499,6 +510,7 @@ public class CPeer extends BaseClientPeer {
         if (disconnected.compareAndSet(false, true)) {
             connections.decrement();
         }
+        closeMultiplexedChannel();
         closeSocketAndUnregisterWatchdog();
 
         m_SockChannel = null;
@@ -520,6 +532,17 @@ public class CPeer extends BaseClientPeer {
         setConnected(false);
     }
 
+    private void closeMultiplexedChannel() {
+        MultiplexedChannel multiplexedChannel;
+        synchronized (_multiplexedLock) {
+            _multiplexed = false;
+            multiplexedChannel = _multiplexedChannel;
+            _multiplexedChannel = null;
+        }
+        if (multiplexedChannel != null)
+            multiplexedChannel.close(new ConnectException("LRMI transport protocol over NIO connection [" + getConnectionURL() + "] was disconnected"));
+    }
+
     private void closeSocketAndUnregisterWatchdog() {
         try {
             if (m_SockChannel != null)
@@ -599,10 +622,13 @@ public class CPeer extends BaseClientPeer {
             _watchdogContext.watchResponse("handshake");
 
             //In slow consumer we must read this in blocking mode
+            ReplyPacket<Object> handshakeReply;
             if (_blocking)
-                _reader.readReply(0, 1000);
+                handshakeReply = _reader.readReply(0, 1000);
             else
-                _reader.readReply(_slowConsumerLatency, 1000);
+                handshakeReply = _reader.readReply(_slowConsumerLatency, 1000);
+            _multiplexed = _blocking && _slowConsumerThroughput == 0 && _filterManager == null
+                    && ProtocolValidation.isMultiplexingNegotiated(handshakeReply.getResult());
         } catch (ClassNotFoundException e) {
             if (_logger.isErrorEnabled())
                 _logger.error("unexpected exception occured at handshake sequence: [" + getConnectionURL() + "]", e);
@@ -614,6 +640,71 @@ public class CPeer extends BaseClientPeer {
         }
     }
 
+    /**
+     * Reads the handshake reply which was read by the async connect conversation.
+     */
+    private static boolean isMultiplexingNegotiated(ByteBuffer handshakeReply) throws IOException, ClassNotFoundException {
+        if (handshakeReply == null)
+            return false;
+        MarshalInputStream mis = new MarshalInputStream(new GSByteArrayInputStream(handshakeReply.array()));
+        ReplyPacket<Object> reply = new ReplyPacket<Object>();
+        reply.readExternal(mis);
+        return ProtocolValidation.isMultiplexingNegotiated(reply.getResult());
+    }
+
+    /**
+     * @return <code>true</code> if the server supports multiplexing, in which case synchronous
+     * invocations may be executed concurrently over this connection
+     * @since 16.0
+     */
+    @Override
+    public boolean isMultiplexed() {
+        return _multiplexed && isConnected();
+    }
+
+    private MultiplexedChannel getMultiplexedChannel() throws ConnectException {
+        synchronized (_multiplexedLock) {
+            if (!_multiplexed)
+                throw new ConnectException("LRMI transport protocol over NIO broken connection with ServerEndPoint: [" + getConnectionURL() + "]");
+            if (_multiplexedChannel == null) {
+                _multiplexedChannel = new MultiplexedChannel(this, _reader, _watchdogContext, _remoteClassLoaderIdentifier, _socketDisplayString);
+                _multiplexedChannel.start();
+            }
+            return _multiplexedChannel;
+        }
+    }
+
+    private Object invokeMultiplexed(LRMIMethod lrmiMethod, Object[] args, long clientClassLoaderId, boolean isCallBack,
+                                     OperationPriority priority) throws Exception {
+        MultiplexedChannel multiplexedChannel = getMultiplexedChannel();
+        RequestPacket requestPacket = new RequestPacket(getObjectId(), lrmiMethod.orderId, args, false,
+                isCallBack, lrmiMethod, clientClassLoaderId, priority, _serviceVersion);
+        final String monitoringId = Pivot.extractMonitoringId(requestPacket);
+
+        MultiplexedChannel.PendingInvocation invocation = multiplexedChannel.register(monitoringId);
+        requestPacket.setRequestId(invocation.getRequestId());
+        Writer writer = _writer;
+        try {
+            if (writer == null)
+                throw new ConnectException("LRMI transport protocol over NIO broken connection with ServerEndPoint: [" + getConnectionURL() + "]");
+            writer.writeRequest(requestPacket);
+        } catch (Exception e) {
+            invocation.cancel();
+            throw e;
+        }
+
+        ReplyPacket<Object> reply;
+        try {
+            reply = invocation.awaitReply();
+        } finally {
+            _monitoringModule.monitorActivity(monitoringId, writer, _reader);
+        }
+        // check for exception from server
+        if (reply.getException() != null)
+            throw reply.getException();
+        return reply.getResult();
+    }
+
     private OperationPriority getOperationPriority(LRMIMethod lrmiMethod, LRMIInvocationContext currentContext) {
         if (lrmiMethod.isLivenessPriority && currentContext.isLivenessPriorityEnabled())
             return OperationPriority.LIVENESS;
@@ -647,6 +738,8 @@ public class CPeer extends BaseClientPeer {
         // If prop.update.thread.name == true we change the thread name
         // on sync operations
         String previousThreadName = null;
+        // concurrent synchronous invocations share a multiplexed connection, and do not use its request and reply packets
+        final boolean multiplexed = _multiplexed && !lrmiMethod.isAsync && !lrmiMethod.isOneWay;
 
         //Put the current lrmi connection context while keeping the previous
         IRemoteClassProviderProvider previousConnection = LRMIConnection.putConnection(_remoteConnection);
@@ -656,6 +749,9 @@ public class CPeer extends BaseClientPeer {
 
             final boolean isCallBack = lrmiMethod.isCallBack || currentContext.isCallbackMethod();
             final OperationPriority priority = getOperationPriority(lrmiMethod, currentContext);
+            if (multiplexed)
+                return invokeMultiplexed(lrmiMethod, args, clientClassLoaderId, isCallBack, priority);
+
             _requestPacket.set(getObjectId(), lrmiMethod.orderId, args, lrmiMethod.isOneWay,
                     isCallBack, lrmiMethod, clientClassLoaderId, priority, _serviceVersion);
 
@@ -758,8 +854,11 @@ public class CPeer extends BaseClientPeer {
                 if (_logger.isTraceEnabled())
                     _logger.debug("LRMI caught LRMIUnhandledException during deserialization stage at end point, reseting writer context.", ex);
                 //We must reset the context because the other side have not completed reading the stream and therefore didn't
-                //learn all the new context
-                _writer.resetContext();
+                //learn all the new context, a multiplexed connection is written concurrently so it is disconnected instead
+                if (multiplexed)
+                    disconnect();
+                else
+                    _writer.resetContext();
             }
             if (_logger.isDebugEnabled())
                 _logger.debug("LRMI caught LRMIUnhandledException, propogating it upwards.", ex);
@@ -803,6 +902,9 @@ public class CPeer extends BaseClientPeer {
             /** no need to close connection on ApplicationException */
             if (ex instanceof ApplicationException)
                 throw (ApplicationException) ex;
+            /** an interrupted invocation stops waiting for its reply without closing a multiplexed connection */
+            if (multiplexed && ex instanceof InterruptedException)
+                throw (InterruptedException) ex;
 
             String exMsg = "LRMI transport protocol over NIO connection [" + getConnectionURL() + "] caught unexpected exception: " + ex.toString();
 
@@ -831,7 +933,7 @@ public class CPeer extends BaseClientPeer {
             }
             throw new ProtocolException(exMsg, ex);
         } finally {
-            if (!lrmiMethod.isAsync) {
+            if (!lrmiMethod.isAsync && !multiplexed) {
                 // unregister the thread with the watchdog
                 afterInvoke();
             }
@@ -102,6 +102,8 @@ public class ChannelEntry implements IWriteInterestManager {
     private final WriteExecutionPhaseListener _writeExecutionPhaseListener = new ChannelEntryWriteExecutionPhaseListener();
     private volatile State _currentChannelState = State.IDLE;
     private volatile boolean _firstMessage = true;
+    // set once a multiplexed request was read, from then on reading is resumed as soon as each request is unmarshalled
+    private volatile boolean _multiplexed;
 
 
     /**
@@ -247,12 +249,35 @@ public class ChannelEntry implements IWriteInterestManager {
     }
 
     public void returnSocket() {
+        // a multiplexed channel already resumed reading once the request was unmarshalled
+        if (!_multiplexed)
+            resumeReading();
+    }
+
+    private void resumeReading() {
         if (_readSelectorThread != null && _readSelectionKey != null) {
             _readSelectionKey.attach(null);
             _readSelectorThread.registerKey(_readSelectionKey);
         }
     }
 
+    /**
+     * Called by the worker thread once it unmarshalled a request, a multiplexed channel resumes
+     * reading at this point so that the next requests are handled while this one is.
+     *
+     * @since 16.0
+     */
+    public void onRequestUnmarshalled(RequestPacket requestPacket) {
+        if (requestPacket.isMultiplexed())
+            _multiplexed = true;
+        if (_multiplexed)
+            resumeReading();
+    }
+
+    public boolean isMultiplexed() {
+        return _multiplexed;
+    }
+
     public void onWriteEvent() {
         try {
             //From channel entry, we should restore read interest if this is the last
@@ -0,0 +1,240 @@
+/*
+ * Copyright (c) 2008-2016, GigaSpaces Technologies, Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.gigaspaces.lrmi.nio;
+
+import com.j_spaces.kernel.SystemProperties;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.WritableByteChannel;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A pool of direct buffers in power of two size classes, shared by all the lrmi readers and
+ * writers.
+ * <p>
+ * The JDK moves the bytes of a heap buffer to and from a socket through a temporary direct buffer
+ * of its own, which is cached per thread and may be as large as the largest buffer the thread ever
+ * used. The readers and writers stage their heap buffers through the buffers of this pool instead,
+ * so the native memory used for staging is shared by all the threads and is bounded.
+ * <p>
+ * The bytes are still copied once between the heap buffer and native memory, the same as the JDK
+ * does, so the pool does not reduce copies. It is disabled by default.
+ *
+ * @since 16.0
+ */
+@com.gigaspaces.api.InternalApi
+public class DirectByteBufferPool {
+    private static final int MIN_BUFFER_SIZE = 4 * 1024;
+
+    private static final DirectByteBufferPool _default = new DirectByteBufferPool(
+            Integer.getInteger(SystemProperties.MAX_LRMI_BUFFER_SIZE, SystemProperties.MAX_LRMI_BUFFER_SIZE_DEFAULT),
+            Long.getLong(SystemProperties.LRMI_DIRECT_BUFFER_POOL_SIZE, SystemProperties.LRMI_DIRECT_BUFFER_POOL_SIZE_DEFAULT));
+
+    private final int _maxBufferSize;
+    private final long _maxPooledBytes;
+    private final ConcurrentLinkedQueue<PooledByteBuffer>[] _sizeClasses;
+    private final AtomicLong _pooledBytes = new AtomicLong();
+    private final AtomicLong _outstandingBytes = new AtomicLong();
+    private final LongAdder _hits = new LongAdder();
+    private final LongAdder _misses = new LongAdder();
+
+    public static DirectByteBufferPool getDefault() {
+        return _default;
+    }
+
+    /**
+     * @param maxBufferSize  the size of the largest buffer of the pool, rounded up to a power of
+     *                       two
+     * @param maxPooledBytes the maximal number of bytes of the idle buffers kept by the pool, 0
+     *                       disables the pool
+     */
+    @SuppressWarnings("unchecked")
+    public DirectByteBufferPool(int maxBufferSize, long maxPooledBytes) {
+        _maxBufferSize = roundUp(Math.max(maxBufferSize, MIN_BUFFER_SIZE));
+        _maxPooledBytes = maxPooledBytes;
+        _sizeClasses = new ConcurrentLinkedQueue[sizeClassOf(_maxBufferSize) + 1];
+        for (int i = 0; i < _sizeClasses.length; i++)
+            _sizeClasses[i] = new ConcurrentLinkedQueue<PooledByteBuffer>();
+    }
+
+    public boolean isEnabled() {
+        return _maxPooledBytes > 0;
+    }
+
+    public int getMaxBufferSize() {
+        return _maxBufferSize;
+    }
+
+    /**
+     * @return a cleared buffer with a capacity of at least the given size, which should be
+     * released once it is no longer used
+     */
+    public PooledByteBuffer acquire(int size) {
+        if (size > _maxBufferSize)
+            throw new IllegalArgumentException("Requested buffer size " + size + " exceeds the maximal buffer size of the pool " + _maxBufferSize);
+        final int sizeClass = sizeClassOf(Math.max(size, MIN_BUFFER_SIZE));
+        PooledByteBuffer pooled = _sizeClasses[sizeClass].poll();
+        if (pooled != null) {
+            _pooledBytes.addAndGet(-pooled._buffer.capacity());
+            pooled._released.set(false);
+            pooled._buffer.clear();
+            _hits.increment();
+        } else {
+            pooled = new PooledByteBuffer(ByteBuffer.allocateDirect(MIN_BUFFER_SIZE << sizeClass), sizeClass);
+            _misses.increment();
+        }
+        _outstandingBytes.addAndGet(pooled._buffer.capacity());
+        return pooled;
+    }
+
+    /**
+     * Writes the remaining bytes of the given buffer to the channel the same as {@link
+     * WritableByteChannel#write(ByteBuffer)}, staging them through buffers of the pool if the
+     * given buffer is not direct.
+     */
+    public int write(WritableByteChannel channel, ByteBuffer src) throws IOException {
+        if (src.isDirect() || !src.hasArray() || !isEnabled() || !src.hasRemaining())
+            return channel.write(src);
+
+        PooledByteBuffer staging = acquire(Math.min(src.remaining(), _maxBufferSize));
+        try {
+            final ByteBuffer buffer = staging.buffer();
+            int totalWritten = 0;
+            while (src.hasRemaining()) {
+                buffer.clear();
+                final int length = Math.min(src.remaining(), buffer.capacity());
+                buffer.put(src.array(), src.arrayOffset() + src.position(), length);
+                buffer.flip();
+                final int written = channel.write(buffer);
+                src.position(src.position() + written);
+                totalWritten += written;
+                // the channel can not take more bytes at the moment
+                if (written < length)
+                    break;
+            }
+            return totalWritten;
+        } finally {
+            staging.release();
+        }
+    }
+
+    /**
+     * Reads bytes from the channel into the remaining space of the given buffer the same as {@link
+     * ReadableByteChannel#read(ByteBuffer)}, staging them through buffers of the pool if the given
+     * buffer is not direct.
+     */
+    public int read(ReadableByteChannel channel, ByteBuffer dst) throws IOException {
+        if (dst.isDirect() || !dst.hasArray() || !isEnabled() || !dst.hasRemaining())
+            return channel.read(dst);
+
+        PooledByteBuffer staging = acquire(Math.min(dst.remaining(), _maxBufferSize));
+        try {
+            final ByteBuffer buffer = staging.buffer();
+            int totalRead = 0;
+            while (dst.hasRemaining()) {
+                buffer.clear();
+                final int length = Math.min(dst.remaining(), buffer.capacity());
+                buffer.limit(length);
+                final int read = channel.read(buffer);
+                if (read == -1)
+                    return totalRead == 0 ? -1 : totalRead;
+                buffer.flip();
+                dst.put(buffer);
+                totalRead += read;
+                // no more bytes are available at the moment
+                if (read < length)
+                    break;
+            }
+            return totalRead;
+        } finally {
+            staging.release();
+        }
+    }
+
+    public long getHits() {
+        return _hits.sum();
+    }
+
+    public long getMisses() {
+        return _misses.sum();
+    }
+
+    /**
+     * @return the number of bytes of the buffers which are currently acquired from the pool
+     */
+    public long getOutstandingBytes() {
+        return _outstandingBytes.get();
+    }
+
+    /**
+     * @return the number of bytes of the idle buffers kept by the pool
+     */
+    public long getPooledBytes() {
+        return _pooledBytes.get();
+    }
+
+    private void release(PooledByteBuffer pooled) {
+        final int capacity = pooled._buffer.capacity();
+        _outstandingBytes.addAndGet(-capacity);
+        // buffers beyond the pool limit are left to be freed by the garbage collector
+        if (_pooledBytes.addAndGet(capacity) <= _maxPooledBytes)
+            _sizeClasses[pooled._sizeClass].offer(pooled);
+        else
+            _pooledBytes.addAndGet(-capacity);
+    }
+
+    private static int sizeClassOf(int size) {
+        return Integer.numberOfTrailingZeros(roundUp(size) / MIN_BUFFER_SIZE);
+    }
+
+    private static int roundUp(int size) {
+        final int highestOneBit = Integer.highestOneBit(size);
+        return highestOneBit == size ? size : highestOneBit << 1;
+    }
+
+    /**
+     * A direct buffer of the pool, which is returned to the pool once it is released.
+     */
+    public final class PooledByteBuffer {
+        private final ByteBuffer _buffer;
+        private final int _sizeClass;
+        private final AtomicBoolean _released = new AtomicBoolean();
+
+        private PooledByteBuffer(ByteBuffer buffer, int sizeClass) {
+            _buffer = buffer;
+            _sizeClass = sizeClass;
+        }
+
+        public ByteBuffer buffer() {
+            return _buffer;
+        }
+
+        /**
+         * Returns the buffer to the pool, it should not be used after it was released.
+         */
+        public void release() {
+            if (!_released.compareAndSet(false, true))
+                throw new IllegalStateException("Buffer was already returned to the pool");
+            DirectByteBufferPool.this.release(this);
+        }
+    }
+}
@@ -0,0 +1,257 @@
+/*
+ * Copyright (c) 2008-2016, GigaSpaces Technologies, Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.gigaspaces.lrmi.nio;
+
+import com.gigaspaces.exception.lrmi.LRMIUnhandledException;
+import com.gigaspaces.internal.utils.concurrent.GSThread;
+import com.gigaspaces.internal.version.PlatformLogicalVersion;
+import com.gigaspaces.logger.Constants;
+import com.gigaspaces.lrmi.LRMIInvocationContext;
+import com.gigaspaces.lrmi.LRMIInvocationContext.InvocationStage;
+import com.gigaspaces.lrmi.classloading.LRMIRemoteClassLoaderIdentifier;
+import com.j_spaces.kernel.ClassLoaderHelper;
+
+import java.io.IOException;
+import java.rmi.ConnectException;
+import java.rmi.UnmarshalException;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Correlates the replies read from a multiplexed connection with the invocations waiting for them.
+ * <p>
+ * Invocations write their requests concurrently, each with a request id of its own, and a single
+ * reader thread reads the replies in the order the server sent them, which is not necessarily the
+ * order of the requests, and hands each reply to the invocation with the same request id. Replies
+ * are read by a single thread because they share the marshal context of the connection.
+ *
+ * @since 16.0
+ */
+@com.gigaspaces.api.InternalApi
+public class MultiplexedChannel implements Runnable {
+    private static final Logger _logger = LoggerFactory.getLogger(Constants.LOGGER_LRMI);
+
+    private final CPeer _cpeer;
+    private final Reader _reader;
+    private final ClientPeerWatchedObjectsContext _watchdogContext;
+    private final LRMIRemoteClassLoaderIdentifier _remoteClassLoaderIdentifier;
+    private final String _connectionDisplayString;
+    private final Map<Long, PendingInvocation> _pendingInvocations = new ConcurrentHashMap<Long, PendingInvocation>();
+    private final AtomicLong _requestIdGenerator = new AtomicLong();
+    //guarded by _watchdogContext
+    private int _numOfPendingInvocations;
+    private volatile IOException _closeCause;
+
+    public MultiplexedChannel(CPeer cpeer, Reader reader, ClientPeerWatchedObjectsContext watchdogContext,
+                              LRMIRemoteClassLoaderIdentifier remoteClassLoaderIdentifier, String connectionDisplayString) {
+        _cpeer = cpeer;
+        _reader = reader;
+        _watchdogContext = watchdogContext;
+        _remoteClassLoaderIdentifier = remoteClassLoaderIdentifier;
+        _connectionDisplayString = connectionDisplayString;
+    }
+
+    public void start() {
+        GSThread readerThread = new GSThread(this, "LRMI-multiplexed-reader-" + _connectionDisplayString);
+        readerThread.setDaemon(true);
+        readerThread.start();
+    }
+
+    /**
+     * Registers an invocation of the current thread, the request id of the invocation should be
+     * set on its request packet before it is written.
+     */
+    public PendingInvocation register(String monitoringId) throws ConnectException {
+        LRMIInvocationContext currentContext = LRMIInvocationContext.getCurrentContext();
+        PendingInvocation invocation = new PendingInvocation(_requestIdGenerator.incrementAndGet(),
+                Thread.currentThread().getContextClassLoader(),
+                currentContext.getSourceLogicalVersion(),
+                currentContext.getTargetLogicalVersion());
+        _pendingInvocations.put(invocation._requestId, invocation);
+        synchronized (_watchdogContext) {
+            if (_numOfPendingInvocations++ == 0)
+                _watchdogContext.watchResponse(monitoringId);
+        }
+        //the channel may have been closed before the invocation was registered
+        IOException closeCause = _closeCause;
+        if (closeCause != null && remove(invocation._requestId) != null)
+            throw new ConnectException("Multiplexed connection to " + _connectionDisplayString + " is closed", closeCause);
+        return invocation;
+    }
+
+    /**
+     * Fails all the pending invocations and stops reading replies, called when the connection is
+     * disconnected.
+     *
+     * @return <code>false</code> if the channel was already closed
+     */
+    public boolean close(IOException cause) {
+        synchronized (this) {
+            if (_closeCause != null)
+                return false;
+            _closeCause = cause;
+        }
+        for (Long requestId : _pendingInvocations.keySet()) {
+            PendingInvocation invocation = remove(requestId);
+            if (invocation != null)
+                invocation.fail(new ConnectException("Multiplexed connection to " + _connectionDisplayString + " is closed", cause));
+        }
+        return true;
+    }
+
+    public boolean isClosed() {
+        return _closeCause != null;
+    }
+
+    public int getNumOfPendingInvocations() {
+        return _pendingInvocations.size();
+    }
+
+    public void run() {
+        RemoteClassLoaderContext.set(_remoteClassLoaderIdentifier);
+        final ClassLoader readerClassLoader = Thread.currentThread().getContextClassLoader();
+        try {
+            while (_closeCause == null) {
+                MultiplexedReplyPacket reply = new MultiplexedReplyPacket();
+                try {
+                    _reader.readReply(reply);
+                } catch (LRMIUnhandledException e) {
+                    //the reader already dropped the rest of this reply, the stream is usable for the next ones
+                    if (reply._invocation == null)
+                        throw e;
+                    reply._invocation.fail(e);
+                    continue;
+                } finally {
+                    ClassLoaderHelper.setContextClassLoader(readerClassLoader, true /*ignore security*/);
+                    LRMIInvocationContext.resetContext();
+                }
+                if (reply.getRequestId() == 0)
+                    throw new UnmarshalException("Received a reply which is not correlated with a request over a multiplexed connection: " + reply);
+                if (reply._invocation != null)
+                    reply._invocation.complete(reply);
+            }
+        } catch (Throwable t) {
+            if (_closeCause == null && _logger.isDebugEnabled())
+                _logger.debug("Multiplexed connection to " + _connectionDisplayString + " is broken", t);
+            IOException cause = t instanceof IOException ? (IOException) t : new IOException(t);
+            //if the connection was disconnected by the client peer it may already be reconnected
+            if (close(cause))
+                _cpeer.disconnect();
+        } finally {
+            RemoteClassLoaderContext.set(null);
+        }
+    }
+
+    private PendingInvocation remove(long requestId) {
+        PendingInvocation invocation = _pendingInvocations.remove(requestId);
+        if (invocation != null) {
+            synchronized (_watchdogContext) {
+                if (--_numOfPendingInvocations == 0 && _closeCause == null)
+                    _watchdogContext.watchIdle();
+            }
+        }
+        return invocation;
+    }
+
+    /**
+     * A reply which sets the context of the invocation it belongs to before its result is read.
+     */
+    private final class MultiplexedReplyPacket extends ReplyPacket<Object> {
+        private PendingInvocation _invocation;
+
+        @Override
+        protected void onRequestId(long requestId) {
+            _invocation = remove(requestId);
+            //an invocation which is no longer waiting still has its reply read to keep the stream in sync
+            if (_invocation != null) {
+                ClassLoaderHelper.setContextClassLoader(_invocation._contextClassLoader, true /*ignore security*/);
+                LRMIInvocationContext.updateContext(null, null, InvocationStage.CLIENT_RECEIVE_REPLY, _invocation._sourceLogicalVersion,
+                        _invocation._targetLogicalVersion, false, null, null);
+            } else {
+                LRMIInvocationContext.updateContext(null, null, InvocationStage.CLIENT_RECEIVE_REPLY, null,
+                        _cpeer.getServiceVersion(), false, null, null);
+            }
+        }
+    }
+
+    /**
+     * An invocation which waits for its reply on a multiplexed connection.
+     */
+    public final class PendingInvocation {
+        private final long _requestId;
+        private final ClassLoader _contextClassLoader;
+        private final PlatformLogicalVersion _sourceLogicalVersion;
+        private final PlatformLogicalVersion _targetLogicalVersion;
+        private ReplyPacket<Object> _reply;
+        private Exception _exception;
+
+        private PendingInvocation(long requestId, ClassLoader contextClassLoader,
+                                  PlatformLogicalVersion sourceLogicalVersion, PlatformLogicalVersion targetLogicalVersion) {
+            _requestId = requestId;
+            _contextClassLoader = contextClassLoader;
+            _sourceLogicalVersion = sourceLogicalVersion;
+            _targetLogicalVersion = targetLogicalVersion;
+        }
+
+        public long getRequestId() {
+            return _requestId;
+        }
+
+        /**
+         * Waits for the reply of this invocation.
+         *
+         * @throws Exception if the reply could not be read, or the connection was closed before it
+         *                   arrived
+         */
+        public ReplyPacket<Object> awaitReply() throws Exception {
+            try {
+                synchronized (this) {
+                    while (_reply == null && _exception == null)
+                        wait();
+                }
+            } catch (InterruptedException e) {
+                //the reply will be read and dropped once it arrives
+                cancel();
+                throw e;
+            }
+            if (_exception != null)
+                throw _exception;
+            return _reply;
+        }
+
+        /**
+         * Stops waiting for the reply, called if the request could not be written.
+         */
+        public void cancel() {
+            remove(_requestId);
+        }
+
+        private synchronized void complete(ReplyPacket<Object> reply) {
+            _reply = reply;
+            notifyAll();
+        }
+
+        private synchronized void fail(Exception exception) {
+            _exception = exception;
+            notifyAll();
+        }
+    }
+}
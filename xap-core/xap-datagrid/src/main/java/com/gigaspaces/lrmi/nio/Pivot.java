@@ -178,8 +178,15 @@ public class Pivot {
                 RequestPacket requestPacket = channelEntry.unmarshall(stream);
 
                 if (requestPacket == null) {
-                    channelEntry.returnSocket(); // releases Reader Selector
+                    // the reply to a multiplexed request which failed to unmarshal can not be correlated
+                    // with it, closing the channel fails all the requests pending on it
+                    if (channelEntry.isMultiplexed())
+                        pivot.closeConnection(channelEntry);
+                    else
+                        channelEntry.returnSocket(); // releases Reader Selector
                 } else {
+                    // a multiplexed channel reads the next request while this one is handled
+                    channelEntry.onRequestUnmarshalled(requestPacket);
                     try {
                         //Update stage once we finished unmarshaling the request
                         LRMIInvocationContext.updateContext(null, null, InvocationStage.INVOCATION_HANDLING, null, null, false, null, null);
@@ -480,7 +487,7 @@ public class Pivot {
                 HandshakeRequest handshakeRequest = (HandshakeRequest) reqObject;
                 channelEntry.setSourceDetails(handshakeRequest.getSourcePlatformLogicalVersion(), handshakeRequest.getSourcePid());
                 LRMIInvocationContext.getCurrentContext().setSourceLogicalVersion(handshakeRequest.getSourcePlatformLogicalVersion());
-                return new ReplyPacket<Object>(null, null);
+                return new ReplyPacket<Object>(ProtocolValidation.getServerCapabilities(), null);
             }
         }
         boolean sendResponse = true;
@@ -575,7 +582,8 @@ public class Pivot {
                     LRMIInvocationContext.getCurrentContext().getSourceLogicalVersion(),
                     requestPacket.operationPriority,
                     monitoringId,
-                    trace);
+                    trace,
+                    requestPacket.getRequestId());
             ResponseContext.setExistingResponseContext(respContext);
         }
 
@@ -594,6 +602,7 @@ public class Pivot {
         // should be created to make sure class definition will be sent to be read by the
         // corresponding (fresh) MarshalledInputStream on the other side.
         boolean reuseBuffer = requestPacket.getRequestObject() == null;
+        replyPacket.setRequestId(requestPacket.getRequestId());
         sendResponse(channelEntry, replyPacket, respContext, reuseBuffer, monitoringId);
     }
 
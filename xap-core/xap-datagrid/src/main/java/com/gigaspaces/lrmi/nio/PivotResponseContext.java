@@ -32,18 +32,21 @@ import com.gigaspaces.lrmi.ProtocolAdapter;
 public class PivotResponseContext extends AbstractResponseContext {
     private final Pivot _pivot;
     private final ChannelEntry _channel;
+    private final long _requestId;
 
     public PivotResponseContext(Pivot pivot, ChannelEntry channel, IResponseHandler handler,
                                 PlatformLogicalVersion sourcePlatformLogicalVersion, OperationPriority operationPriority,
-                                String lrmiMonitoringId, LRMIInvocationTrace trace) {
+                                String lrmiMonitoringId, LRMIInvocationTrace trace, long requestId) {
         super(sourcePlatformLogicalVersion, operationPriority, lrmiMonitoringId, trace);
         this._channel = channel;
         this._pivot = pivot;
+        this._requestId = requestId;
         setResponseHandler(handler);
     }
 
     @Override
     public void sendResponseToClient(ReplyPacket<?> respPacket) {
+        respPacket.setRequestId(_requestId);
         _pivot.requestPending(_channel, respPacket, this);
     }
 }
@@ -16,7 +16,10 @@
 
 package com.gigaspaces.lrmi.nio;
 
+import com.gigaspaces.lrmi.classloading.LRMIClassLoadersHolder;
+import com.gigaspaces.lrmi.nio.filters.IOBlockFilterManager;
 import com.gigaspaces.time.SystemTime;
+import com.j_spaces.kernel.SystemProperties;
 
 import java.io.IOException;
 import java.net.SocketTimeoutException;
@@ -33,6 +36,42 @@ public class ProtocolValidation {
 
     final public static String PROTOCOL_STRING = "gigaspaces-lrmi-protocol";
 
+    /**
+     * Capabilities are sent by the server as the result of the handshake reply, as an Integer bit
+     * mask so that older clients, which ignore the result, can still read it.
+     *
+     * @since 16.0
+     */
+    final public static int CAPABILITY_MULTIPLEXING = 1;
+
+    final private static boolean MULTIPLEXING_ENABLED = Boolean.parseBoolean(System.getProperty(SystemProperties.LRMI_MULTIPLEXING, String.valueOf(SystemProperties.LRMI_MULTIPLEXING_DEFAULT)));
+
+    /**
+     * A multiplexed connection reads the next request or reply while previous ones are handled, so
+     * it can not carry the synchronous conversations of remote class loading and network filters.
+     */
+    private static boolean isMultiplexingPossible() {
+        return !LRMIClassLoadersHolder.isEnabled() && IOBlockFilterManager.getFilterFactory() == null;
+    }
+
+    /**
+     * @return the capabilities the server sends in the handshake reply, or null if it has none
+     * @since 16.0
+     */
+    public static Integer getServerCapabilities() {
+        return isMultiplexingPossible() ? CAPABILITY_MULTIPLEXING : null;
+    }
+
+    /**
+     * @param handshakeResult the result of the handshake reply sent by the server
+     * @return <code>true</code> if the client should multiplex invocations over the connection
+     * @since 16.0
+     */
+    public static boolean isMultiplexingNegotiated(Object handshakeResult) {
+        return MULTIPLEXING_ENABLED && isMultiplexingPossible() && handshakeResult instanceof Integer
+                && (((Integer) handshakeResult) & CAPABILITY_MULTIPLEXING) != 0;
+    }
+
     public static int getProtocolHeaderBytesLength() {
         return getProtocolHeaderBytes().length;
     }
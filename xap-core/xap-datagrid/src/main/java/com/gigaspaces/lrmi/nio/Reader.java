@@ -87,6 +87,9 @@ public class Reader {
     /* cached data  buffer */
     final private SmartByteBufferCache _bufferCache = SmartByteBufferCache.getDefaultSmartByteBufferCache();
 
+    /* direct buffers used to read the data into the cached buffers */
+    final private DirectByteBufferPool _directBufferPool = DirectByteBufferPool.getDefault();
+
     /* data length buffer */
     final private ByteBuffer _headerBuffer = ByteBuffer.allocateDirect(4); // 4 == size of int in bytes
 
@@ -328,7 +331,7 @@ public class Reader {
                     buffer.position(bytesRead).limit(Math.min(dataLength, bytesRead + BUFFER_LIMIT));
                     workingBuffer = buffer.slice();
                 }
-                bRead = _socketChannel.read(workingBuffer);
+                bRead = _directBufferPool.read(_socketChannel, workingBuffer);
                 if (bRead == -1) // EOF
                     throwCloseConnection();
                 bytesRead += bRead;
@@ -462,7 +465,7 @@ public class Reader {
                 while (ctx.bytesRead < ctx.dataLength) {
                     ctx.buffer.position(ctx.bytesRead).limit(Math.min(ctx.dataLength, ctx.bytesRead + BUFFER_LIMIT));
                     ByteBuffer window = ctx.buffer.slice();
-                    int bRead = _socketChannel.read(window);
+                    int bRead = _directBufferPool.read(_socketChannel, window);
                     if (bRead == -1) // EOF
                         throwCloseConnection();
                     ctx.bytesRead += bRead;
@@ -472,7 +475,7 @@ public class Reader {
                     }
                 }
             } else {
-                int bRead = _socketChannel.read(ctx.buffer);
+                int bRead = _directBufferPool.read(_socketChannel, ctx.buffer);
                 if (bRead == -1) // EOF
                     throwCloseConnection();
 
@@ -37,9 +37,12 @@ import java.rmi.UnmarshalException;
 public class ReplyPacket<T> implements IPacket {
     private static final long serialVersionUID = 1L;
     private static final byte SERIAL_VERSION = Byte.MIN_VALUE + 1;
+    // used by replies on a multiplexed connection, followed by the request id
+    private static final byte SERIAL_VERSION_MULTIPLEXED = Byte.MIN_VALUE + 2;
 
     private T result;
     private Exception exception;   // if not null - an exception occurred
+    private transient long requestId;
 
     public ReplyPacket() {
     }
@@ -71,16 +74,42 @@ public class ReplyPacket<T> implements IPacket {
         return exception;
     }
 
+    /**
+     * @return the id of the request this is the reply of, 0 if the connection is not multiplexed
+     * @since 16.0
+     */
+    public long getRequestId() {
+        return requestId;
+    }
+
+    public void setRequestId(long requestId) {
+        this.requestId = requestId;
+    }
+
     public void clear() {
         result = null;
         exception = null;
+        requestId = 0;
+    }
+
+    /**
+     * Called when the request id of a reply on a multiplexed connection was read, before the
+     * result is read, to let the reader set the context the result should be read with.
+     *
+     * @since 16.0
+     */
+    protected void onRequestId(long requestId) {
     }
 
     /*
      * @see java.io.Externalizable#readExternal(java.io.ObjectInput)
      */
     public void readExternal(MarshalInputStream in) throws IOException, ClassNotFoundException {
-        if (in.readByte() != SERIAL_VERSION)
+        byte serialVersion = in.readByte();
+        if (serialVersion == SERIAL_VERSION_MULTIPLEXED) {
+            requestId = in.readLong();
+            onRequestId(requestId);
+        } else if (serialVersion != SERIAL_VERSION)
             throw new UnmarshalException("Requested version does not match local version. Please make sure you are using the same version on both ends.");
 
         LRMIRemoteClassLoaderIdentifier remoteClassLoaderId = RemoteClassLoaderContext.get();
@@ -106,7 +135,12 @@ public class ReplyPacket<T> implements IPacket {
 	 */
     public void writeExternal(MarshalOutputStream out) throws IOException {
         //Writes serial version
-        out.writeByte(SERIAL_VERSION);
+        if (requestId != 0) {
+            out.writeByte(SERIAL_VERSION_MULTIPLEXED);
+            out.writeLong(requestId);
+        } else {
+            out.writeByte(SERIAL_VERSION);
+        }
 
         PlatformLogicalVersion version = LRMIInvocationContext.getEndpointLogicalVersion();
         if (version.greaterOrEquals(PlatformLogicalVersion.v16_0_0)) {
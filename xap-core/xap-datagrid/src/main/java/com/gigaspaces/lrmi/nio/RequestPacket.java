@@ -80,6 +80,11 @@ public class RequestPacket implements IPacket {
     public transient boolean isCallBack;
     public transient OperationPriority operationPriority;
     private transient PlatformLogicalVersion targetVersion;
+    /**
+     * the id which correlates the reply with this request on a multiplexed connection, 0 if the
+     * connection is not multiplexed
+     */
+    private transient long requestId;
 
     public RequestPacket() {
         operationPriority = OperationPriority.REGULAR;
@@ -107,6 +112,7 @@ public class RequestPacket implements IPacket {
         this.remoteClassLoaderId = contextClassLoaderId;
         this.operationPriority = priority;
         this.targetVersion = targetVersion;
+        this.requestId = 0;
     }
 
     public Object getRequestObject() {
@@ -171,6 +177,8 @@ public class RequestPacket implements IPacket {
             objectId = in.readLong();
             methodOrderId = in.readInt();
             remoteClassLoaderId = in.readLong();
+            if ((flags & BitMap.IS_MULTIPLEXED) != 0)
+                requestId = in.readLong();
             operationPriority = decodePriority(flags);
             if (operationPriority == OperationPriority.CUSTOM) {
                 //Place holder for having named dedicated thread pools
@@ -265,6 +273,8 @@ public class RequestPacket implements IPacket {
             out.writeLong(objectId);
             out.writeInt(methodOrderId);
             out.writeLong(remoteClassLoaderId);
+            if (requestId != 0)
+                out.writeLong(requestId);
 
             if (operationPriority == OperationPriority.CUSTOM && targetVersion.greaterOrEquals(PlatformLogicalVersion.v9_7_0)) {
                 //Place holder for dedicated thread pools
@@ -315,6 +325,7 @@ public class RequestPacket implements IPacket {
         byte IS_MONITORING_PRIORITY = 1 << 4;
         byte IS_DIRECT_PRIORITY = IS_LIVENESS_PRIORITY | IS_MONITORING_PRIORITY;
         byte IS_CUSTOM_PRIORITY = 1 << 5;
+        byte IS_MULTIPLEXED = 1 << 6;
     }
 
     private byte buildFlags() {
@@ -328,6 +339,9 @@ public class RequestPacket implements IPacket {
         if (isCallBack) {
             flags |= BitMap.IS_CALLBACK;
         }
+        if (_requestObj == null && requestId != 0) {
+            flags |= BitMap.IS_MULTIPLEXED;
+        }
         return encodePriority(operationPriority, flags);
     }
 
@@ -350,6 +364,28 @@ public class RequestPacket implements IPacket {
         return isOneWay;
     }
 
+    public long getRequestId() {
+        return requestId;
+    }
+
+    /**
+     * Sets the id which correlates the reply with this request, only valid on a connection which
+     * negotiated the multiplexed protocol during the handshake.
+     *
+     * @since 16.0
+     */
+    public void setRequestId(long requestId) {
+        this.requestId = requestId;
+    }
+
+    /**
+     * @return <code>true</code> if this request was sent over a multiplexed connection
+     * @since 16.0
+     */
+    public boolean isMultiplexed() {
+        return requestId != 0;
+    }
+
     public void restorePreviousLRMIRemoteClassLoaderState() {
         if (shouldRestore)
             LRMIConnection.setRemoteClassLoaderIdentifier(previousIdentifier);
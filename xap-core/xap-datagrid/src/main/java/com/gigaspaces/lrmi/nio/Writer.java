@@ -76,6 +76,11 @@ public class Writer implements IChannelWriter {
      */
     final private SmartByteBufferCache _bufferCache = SmartByteBufferCache.getDefaultSmartByteBufferCache();
 
+    /**
+     * direct buffers used to write the data of the cached buffers.
+     */
+    final private DirectByteBufferPool _directBufferPool = DirectByteBufferPool.getDefault();
+
     final private int _slowConsumerThroughput;
     final private boolean _slowConsumer;
     final private int _slowConsumerLatency;
@@ -414,7 +419,7 @@ public class Writer implements IChannelWriter {
                     ctx.getBuffer().position(ctx.getCurrentPosition()).limit(Math.min(ctx.getTotalLength(), ctx.getCurrentPosition() + BUFFER_LIMIT));
                     ByteBuffer window = ctx.getBuffer().slice();
                     int windowSize = window.remaining();
-                    bytes = _sockChannel.write(window);
+                    bytes = _directBufferPool.write(_sockChannel, window);
                     ctx.setCurrentPosition(ctx.getCurrentPosition() + bytes);
                     ctx.setTotalBytesWritten(ctx.getTotalBytesWritten() + bytes);
 
@@ -424,7 +429,7 @@ public class Writer implements IChannelWriter {
                     }
                 }
             } else {
-                bytes = _sockChannel.write(ctx.getBuffer());
+                bytes = _directBufferPool.write(_sockChannel, ctx.getBuffer());
                 ctx.setTotalBytesWritten(ctx.getTotalBytesWritten() + bytes);
             }
 
@@ -469,7 +474,7 @@ public class Writer implements IChannelWriter {
                     dataBuffer.position(currentPosision).limit(Math.min(length, currentPosision + BUFFER_LIMIT));
                     ByteBuffer window = dataBuffer.slice();
                     int windowSize = window.remaining();
-                    bytes = _sockChannel.write(window);
+                    bytes = _directBufferPool.write(_sockChannel, window);
                     currentPosision += bytes;
 
                     if (bytes == 0) {
@@ -490,7 +495,7 @@ public class Writer implements IChannelWriter {
                         continue;
                     }
                 } else {
-                    bytes = _sockChannel.write(dataBuffer);
+                    bytes = _directBufferPool.write(_sockChannel, dataBuffer);
                 }
 
                 totalBytesWritten += bytes;
@@ -17,7 +17,12 @@
 
 package com.gigaspaces.lrmi.nio.filters;
 
+import com.gigaspaces.internal.io.compression.AdaptiveCompressor;
+import com.gigaspaces.internal.io.compression.CompressionCodec;
+import com.gigaspaces.internal.io.compression.CompressionCodecs;
+
 import java.io.ByteArrayOutputStream;
+import java.io.IOException;
 import java.nio.ByteBuffer;
 
 import org.slf4j.Logger;
@@ -28,6 +33,11 @@ import java.util.zip.Inflater;
 
 /**
  * A network filter to send compress messages between client and server.
+ * <p>
+ * The {@link Algo#ZIP} algorithm compresses every message with deflate. The other algorithms
+ * compress each message with a {@link CompressionCodec}, store small or incompressible messages as
+ * is, and tag each message with the codec which compressed it, so both ends may use different
+ * codecs of this kind.
  *
  * @author barak
  */
@@ -36,29 +46,54 @@ public class IOStreamCompressionFilter implements IOStreamFilter {
 
     private static final Logger logger = LoggerFactory.getLogger(IOStreamCompressionFilter.class.getName());
     private final Algo algo;
+    private final AdaptiveCompressor adaptiveCompressor;
 
     public enum Algo {
-        ZIP
+        ZIP,
+        /**
+         * @since 16.0
+         */
+        LZ4,
+        /**
+         * @since 16.0
+         */
+        DEFLATE
     }
 
     public IOStreamCompressionFilter(Algo algo) {
         this.algo = algo;
-        _compressor = new Deflater();
-        _compressor.setLevel(Deflater.BEST_COMPRESSION);
-        _decompressor = new Inflater();
+        if (algo == Algo.ZIP) {
+            _compressor = new Deflater();
+            _compressor.setLevel(Deflater.BEST_COMPRESSION);
+            _decompressor = new Inflater();
+            adaptiveCompressor = null;
+        } else {
+            adaptiveCompressor = new AdaptiveCompressor(CompressionCodecs.forName(algo.name()), true);
+        }
+    }
+
+    /**
+     * @since 16.0
+     */
+    public IOStreamCompressionFilter(CompressionCodec codec) {
+        this.algo = null;
+        adaptiveCompressor = new AdaptiveCompressor(codec, true);
     }
 
     /**
      * @param compressionLevel compresson level should be a number in (0-9)
      */
     public void setCompressionLevel(int compressionLevel) {
-        _compressor.setLevel(compressionLevel);
+        if (_compressor != null)
+            _compressor.setLevel(compressionLevel);
     }
 
     private Deflater _compressor;
     private Inflater _decompressor;
 
     public byte[] unrwap(ByteBuffer buf) throws DataFormatException {
+        if (adaptiveCompressor != null)
+            return unwrapAdaptive(buf);
         _decompressor = new Inflater();
         int size = buf.remaining();
         _decompressor.setInput(toByteArray(buf));
@@ -84,6 +119,16 @@ public class IOStreamCompressionFilter implements IOStreamFilter {
         return res;
     }
 
+    private byte[] unwrapAdaptive(ByteBuffer buf) throws DataFormatException {
+        try {
+            return adaptiveCompressor.decompress(toByteArray(buf));
+        } catch (IOException e) {
+            DataFormatException exception = new DataFormatException("Failed to decompress message using " + adaptiveCompressor.getCodec().getName());
+            exception.initCause(e);
+            throw exception;
+        }
+    }
+
     private byte[] toByteArray(ByteBuffer buf) {
         byte[] res = new byte[buf.remaining()];
         buf.get(res, 0, res.length);
@@ -91,6 +136,8 @@ public class IOStreamCompressionFilter implements IOStreamFilter {
     }
 
     public byte[] wrap(ByteBuffer buf) throws Exception {
+        if (adaptiveCompressor != null)
+            return wrapAdaptive(buf);
         int size = buf.remaining();
         _compressor.setInput(toByteArray(buf));
         _compressor.finish();
@@ -112,5 +159,19 @@ public class IOStreamCompressionFilter implements IOStreamFilter {
         return res;
     }
 
-
+    private byte[] wrapAdaptive(ByteBuffer buf) throws Exception {
+        int size = buf.remaining();
+        byte[] res;
+        if (buf.hasArray()) {
+            res = adaptiveCompressor.compress(buf.array(), buf.arrayOffset() + buf.position(), size);
+            buf.position(buf.limit());
+        } else {
+            res = adaptiveCompressor.compress(toByteArray(buf));
+        }
+        if (logger.isDebugEnabled()) {
+            logger.debug("Compress message of " + size + " bytes to "
+                    + res.length + " bytes using " + adaptiveCompressor.getCodec().getName());
+        }
+        return res;
+    }
 }
@@ -18,12 +18,17 @@
 package com.gigaspaces.lrmi.nio.filters;
 
 import com.gigaspaces.lrmi.nio.filters.IOStreamCompressionFilter.Algo;
+import com.j_spaces.kernel.SystemProperties;
 
 import java.net.InetSocketAddress;
 import java.util.zip.Deflater;
 
 /**
  * Use this network filter factory to send compress messages between client and server.
+ * <p>
+ * The compression algorithm is set by the {@link SystemProperties#LRMI_NETWORK_FILTER_COMPRESSION_ALGO}
+ * system property, and may be chosen per connection by overriding {@link
+ * #getAlgo(InetSocketAddress)}.
  *
  * @author barak
  */
@@ -35,21 +40,36 @@ public class IOStreamCompressionFilterFactory implements
     }
 
     public IOFilter createFilter() throws Exception {
-        // compresson level should be a number in (0-9)
-        Integer compressionLevel = Integer.getInteger("COMPRESSION",
-                Deflater.BEST_COMPRESSION);
-        IOStreamCompressionFilter streamCompressionFilter = new IOStreamCompressionFilter(
-                Algo.ZIP);
-        streamCompressionFilter.setCompressionLevel(compressionLevel);
-        return streamCompressionFilter;
+        return createFilter(getAlgo(null));
     }
 
     public IOFilter createClientFilter(InetSocketAddress remoteAddress) throws Exception {
-        return createFilter();
+        return createFilter(getAlgo(remoteAddress));
     }
 
     public IOFilter createServerFilter(InetSocketAddress remoteAddress) throws Exception {
-        return createFilter();
+        return createFilter(getAlgo(remoteAddress));
+    }
+
+    /**
+     * Returns the compression algorithm of the connection to the given address.
+     *
+     * @param remoteAddress the address of the other end of the connection, or null if unknown
+     * @since 16.0
+     */
+    protected Algo getAlgo(InetSocketAddress remoteAddress) {
+        return Algo.valueOf(System.getProperty(SystemProperties.LRMI_NETWORK_FILTER_COMPRESSION_ALGO,
+                SystemProperties.LRMI_NETWORK_FILTER_COMPRESSION_ALGO_DEFAULT).toUpperCase());
+    }
+
+    private IOFilter createFilter(Algo algo) {
+        // compresson level should be a number in (0-9)
+        Integer compressionLevel = Integer.getInteger("COMPRESSION",
+                Deflater.BEST_COMPRESSION);
+        IOStreamCompressionFilter streamCompressionFilter = new IOStreamCompressionFilter(
+                algo);
+        streamCompressionFilter.setCompressionLevel(compressionLevel);
+        return streamCompressionFilter;
     }
 
 }
\ No newline at end of file
@@ -18,6 +18,7 @@ package com.gigaspaces.lrmi.nio.info;
 
 import com.gigaspaces.lrmi.LRMIMonitoringDetails;
 import com.gigaspaces.lrmi.LRMIRuntime;
+import com.gigaspaces.lrmi.nio.DirectByteBufferPool;
 import com.gigaspaces.lrmi.nio.filters.SSLFilterFactory;
 import com.gigaspaces.start.SystemInfo;
 import com.j_spaces.core.service.ServiceConfigLoader;
@@ -59,9 +60,11 @@ public abstract class NIOInfoHelper {
     public static NIOStatistics getNIOStatistics() {
         LRMIRuntime lrmiRuntime = LRMIRuntime.getRuntime();
         ThreadPoolExecutor threadPoolExecutor = (ThreadPoolExecutor) lrmiRuntime.getThreadPool();
+        DirectByteBufferPool directBufferPool = DirectByteBufferPool.getDefault();
         return new NIOStatistics(System.currentTimeMillis(),
                 threadPoolExecutor.getCompletedTaskCount(), threadPoolExecutor.getActiveCount(),
-                threadPoolExecutor.getQueue().size());
+                threadPoolExecutor.getQueue().size(),
+                directBufferPool.getHits(), directBufferPool.getMisses(), directBufferPool.getOutstandingBytes());
     }
 
     public static LRMIMonitoringDetails fetchMonitoringDetails() {
@@ -16,6 +16,8 @@
 
 package com.gigaspaces.lrmi.nio.info;
 
+import com.gigaspaces.internal.version.PlatformLogicalVersion;
+import com.gigaspaces.lrmi.LRMIInvocationContext;
 import com.gigaspaces.serialization.SmartExternalizable;
 
 import java.io.Externalizable;
@@ -40,6 +42,12 @@ public class NIOStatistics implements SmartExternalizable {
 
     private int queueSize = -1;
 
+    private long directBufferPoolHits = -1;
+
+    private long directBufferPoolMisses = -1;
+
+    private long directBufferPoolOutstandingBytes = -1;
+
     public NIOStatistics() {
     }
 
@@ -50,6 +58,14 @@ public class NIOStatistics implements SmartExternalizable {
         this.queueSize = queueSize;
     }
 
+    public NIOStatistics(long timestamp, long completedTaskCount, int activeThreadsCount, int queueSize,
+                         long directBufferPoolHits, long directBufferPoolMisses, long directBufferPoolOutstandingBytes) {
+        this(timestamp, completedTaskCount, activeThreadsCount, queueSize);
+        this.directBufferPoolHits = directBufferPoolHits;
+        this.directBufferPoolMisses = directBufferPoolMisses;
+        this.directBufferPoolOutstandingBytes = directBufferPoolOutstandingBytes;
+    }
+
     public boolean isNA() {
         return timestamp == NA_TIMESTAMP;
     }
@@ -82,11 +98,55 @@ public class NIOStatistics implements SmartExternalizable {
         return queueSize;
     }
 
+    /**
+     * Returns the number of direct buffers which were reused from the lrmi direct buffer pool.
+     *
+     * @since 16.0
+     */
+    public long getDirectBufferPoolHits() {
+        return directBufferPoolHits;
+    }
+
+    /**
+     * Returns the number of direct buffers which were allocated by the lrmi direct buffer pool.
+     *
+     * @since 16.0
+     */
+    public long getDirectBufferPoolMisses() {
+        return directBufferPoolMisses;
+    }
+
+    /**
+     * Returns the ratio of the direct buffers reused from the lrmi direct buffer pool out of all
+     * the buffers acquired from it, or -1 if not available.
+     *
+     * @since 16.0
+     */
+    public double getDirectBufferPoolHitRate() {
+        final long total = directBufferPoolHits + directBufferPoolMisses;
+        return directBufferPoolHits < 0 || total <= 0 ? -1 : (double) directBufferPoolHits / total;
+    }
+
+    /**
+     * Returns the number of bytes of the direct buffers currently acquired from the lrmi direct
+     * buffer pool.
+     *
+     * @since 16.0
+     */
+    public long getDirectBufferPoolOutstandingBytes() {
+        return directBufferPoolOutstandingBytes;
+    }
+
     public void writeExternal(ObjectOutput out) throws IOException {
         out.writeLong(timestamp);
         out.writeLong(completedTaskCount);
         out.writeInt(activeThreadsCount);
         out.writeInt(queueSize);
+        if (LRMIInvocationContext.getEndpointLogicalVersion().greaterOrEquals(PlatformLogicalVersion.v16_0_0)) {
+            out.writeLong(directBufferPoolHits);
+            out.writeLong(directBufferPoolMisses);
+            out.writeLong(directBufferPoolOutstandingBytes);
+        }
     }
 
     public void readExternal(ObjectInput in) throws IOException, ClassNotFoundException {
@@ -94,5 +154,10 @@ public class NIOStatistics implements SmartExternalizable {
         completedTaskCount = in.readLong();
         activeThreadsCount = in.readInt();
         queueSize = in.readInt();
+        if (LRMIInvocationContext.getEndpointLogicalVersion().greaterOrEquals(PlatformLogicalVersion.v16_0_0)) {
+            directBufferPoolHits = in.readLong();
+            directBufferPoolMisses = in.readLong();
+            directBufferPoolOutstandingBytes = in.readLong();
+        }
     }
 }
@@ -0,0 +1,278 @@
+/*
+ * Copyright (c) 2008-2016, GigaSpaces Technologies, Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.gigaspaces.server.blobstore;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.zip.CRC32;
+
+/**
+ * A single pre-allocated, memory-mapped segment file of a {@link MappedSegmentBlobStoreStorageHandler}.
+ * <p>
+ * Record layout: <code>[int length][int crc][byte objectType][byte flags][int idLength][int
+ * dataLength][id][data]</code>. A zero length marks the end of the written part of the segment.
+ * Writes are performed by the handler under its append lock, reads are lock free.
+ *
+ * @since 16.0
+ */
+class MappedSegment {
+
+    static final int HEADER_SIZE = 18;
+
+    static final byte FLAG_TOMBSTONE = 1;
+    static final byte FLAG_STRING_ID = 2;
+    static final byte FLAG_RAW_DATA = 4;
+    static final byte FLAG_IN_BATCH = 8;
+    static final byte FLAG_BATCH_COMMIT = 16;
+
+    private final int _id;
+    private final File _file;
+    private final RandomAccessFile _raf;
+    private final FileChannel _channel;
+    private final MappedByteBuffer _buffer;
+    private final int _capacity;
+    private final AtomicLong _liveBytes = new AtomicLong();
+    private final AtomicLong _garbageBytes = new AtomicLong();
+    private int _writePosition;
+    private volatile boolean _dirty;
+    private volatile boolean _sealed;
+
+    MappedSegment(int id, File file, int capacity) throws IOException {
+        _id = id;
+        _file = file;
+        _raf = new RandomAccessFile(file, "rw");
+        if (_raf.length() < capacity)
+            _raf.setLength(capacity);
+        _capacity = (int) _raf.length();
+        _channel = _raf.getChannel();
+        _buffer = _channel.map(FileChannel.MapMode.READ_WRITE, 0, _capacity);
+    }
+
+    static long toLocation(int segmentId, int offset) {
+        return ((long) segmentId << 32) | (offset & 0xFFFFFFFFL);
+    }
+
+    static int segmentOf(long location) {
+        return (int) (location >>> 32);
+    }
+
+    static int offsetOf(long location) {
+        return (int) location;
+    }
+
+    int getId() {
+        return _id;
+    }
+
+    File getFile() {
+        return _file;
+    }
+
+    int getCapacity() {
+        return _capacity;
+    }
+
+    int getWritePosition() {
+        return _writePosition;
+    }
+
+    void setWritePosition(int writePosition) {
+        _writePosition = writePosition;
+    }
+
+    boolean isSealed() {
+        return _sealed;
+    }
+
+    void seal() {
+        _sealed = true;
+    }
+
+    long getLiveBytes() {
+        return _liveBytes.get();
+    }
+
+    long getGarbageBytes() {
+        return _garbageBytes.get();
+    }
+
+    void addLive(int recordLength) {
+        _liveBytes.addAndGet(recordLength);
+    }
+
+    void markGarbage(int recordLength) {
+        _liveBytes.addAndGet(-recordLength);
+        _garbageBytes.addAndGet(recordLength);
+    }
+
+    /**
+     * @return the ratio of superseded bytes out of the bytes written to this segment.
+     */
+    double getGarbageRatio() {
+        long garbage = _garbageBytes.get();
+        long total = garbage + _liveBytes.get();
+        return total == 0 ? 0 : (double) garbage / total;
+    }
+
+    boolean hasRoomFor(int recordLength) {
+        // keep room for the terminating zero length
+        return _writePosition + recordLength + 4 <= _capacity;
+    }
+
+    /**
+     * Appends a record at the current write position - must be called under the handler's append
+     * lock.
+     *
+     * @return the offset of the appended record within this segment.
+     */
+    int append(byte objectType, byte flags, byte[] id, byte[] data) {
+        final int offset = _writePosition;
+        final int dataLength = data == null ? -1 : data.length;
+        final int length = recordLength(id, data);
+        ByteBuffer buf = _buffer.duplicate();
+        buf.position(offset + 8);
+        buf.put(objectType);
+        buf.put(flags);
+        buf.putInt(id.length);
+        buf.putInt(dataLength);
+        buf.put(id);
+        if (data != null)
+            buf.put(data);
+        buf.putInt(0);
+        buf.position(offset + 4);
+        buf.putInt(crc(offset + 8, length - 8));
+        // length is written last so a torn record is never considered complete
+        buf.position(offset);
+        buf.putInt(length);
+        _writePosition = offset + length;
+        _dirty = true;
+        return offset;
+    }
+
+    static int recordLength(byte[] id, byte[] data) {
+        return HEADER_SIZE + id.length + (data == null ? 0 : data.length);
+    }
+
+    /**
+     * Reads the record at the specified offset, or returns null if there's no valid record there.
+     */
+    Record read(int offset, boolean withData) {
+        if (offset < 0 || offset + HEADER_SIZE > _capacity)
+            return null;
+        ByteBuffer buf = _buffer.duplicate();
+        buf.position(offset);
+        int length = buf.getInt();
+        if (length < HEADER_SIZE || offset + length > _capacity)
+            return null;
+        buf.getInt(); // crc is verified only on recovery
+        Record record = new Record();
+        record.offset = offset;
+        record.length = length;
+        record.objectType = buf.get();
+        record.flags = buf.get();
+        int idLength = buf.getInt();
+        int dataLength = buf.getInt();
+        record.id = new byte[idLength];
+        buf.get(record.id);
+        if (withData && dataLength >= 0) {
+            record.data = new byte[dataLength];
+            buf.get(record.data);
+        }
+        return record;
+    }
+
+    /**
+     * Validates the record at the specified offset against its checksum - used when scanning a
+     * segment after restart.
+     */
+    boolean isValid(int offset) {
+        if (offset < 0 || offset + HEADER_SIZE > _capacity)
+            return false;
+        ByteBuffer buf = _buffer.duplicate();
+        buf.position(offset);
+        int length = buf.getInt();
+        if (length < HEADER_SIZE || offset + length > _capacity)
+            return false;
+        return buf.getInt() == crc(offset + 8, length - 8);
+    }
+
+    private int crc(int from, int length) {
+        ByteBuffer buf = _buffer.duplicate();
+        buf.position(from);
+        buf.limit(from + length);
+        byte[] chunk = new byte[Math.min(length, 8192)];
+        CRC32 crc = new CRC32();
+        while (buf.hasRemaining()) {
+            int n = Math.min(chunk.length, buf.remaining());
+            buf.get(chunk, 0, n);
+            crc.update(chunk, 0, n);
+        }
+        return (int) crc.getValue();
+    }
+
+    void force() {
+        if (_dirty) {
+            _dirty = false;
+            _buffer.force();
+        }
+    }
+
+    /**
+     * Closes the file handle. The mapping itself is released by the GC, so concurrent readers which
+     * still hold a reference to this segment can safely finish their read.
+     */
+    void close() {
+        try {
+            _channel.close();
+            _raf.close();
+        } catch (IOException e) {
+            throw new BlobStoreException("Failed to close segment " + _file, e);
+        }
+    }
+
+    void delete() {
+        close();
+        if (!_file.delete() && _file.exists())
+            throw new BlobStoreException("Failed to delete segment " + _file);
+    }
+
+    static class Record {
+        int offset;
+        int length;
+        byte objectType;
+        byte flags;
+        byte[] id;
+        byte[] data;
+
+        boolean isTombstone() {
+            return (flags & FLAG_TOMBSTONE) != 0;
+        }
+
+        boolean isInBatch() {
+            return (flags & FLAG_IN_BATCH) != 0;
+        }
+
+        boolean isBatchCommit() {
+            return (flags & FLAG_BATCH_COMMIT) != 0;
+        }
+    }
+}
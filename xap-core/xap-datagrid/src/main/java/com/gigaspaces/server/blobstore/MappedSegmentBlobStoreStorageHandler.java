@@ -0,0 +1,716 @@
+/*
+ * Copyright (c) 2008-2016, GigaSpaces Technologies, Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.gigaspaces.server.blobstore;
+
+import com.gigaspaces.datasource.DataIterator;
+import com.gigaspaces.internal.utils.concurrent.GSThreadFactory;
+import com.gigaspaces.metrics.Gauge;
+import com.gigaspaces.metrics.MetricRegistrator;
+import com.j_spaces.kernel.SystemProperties;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.Serializable;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * A pure-java, append-only {@link BlobStoreStorageHandler} which keeps entry payloads in
+ * memory-mapped segment files on local disk, while only an id to file-offset index is kept on-heap.
+ * <p>
+ * Every add/replace appends a new record to the active segment and returns its file offset (a
+ * <code>Long</code>) as the position, removes append a tombstone. Sealed segments whose share of
+ * superseded records exceeds the compaction threshold are rewritten by a background compactor, so
+ * a position may become stale - in that case the record is located through the on-heap index.
+ * Bulks are appended under a single lock acquisition and forced to disk once (group commit), a
+ * transactional bulk is terminated by a commit record and is ignored on recovery if the commit
+ * record was not written.
+ * <p>
+ * Configuration is taken from the setters, or from the following system properties when the
+ * handler is created by class name: <code>com.gs.blobstore.mapped.path</code>,
+ * <code>com.gs.blobstore.mapped.segment-size</code>, <code>com.gs.blobstore.mapped.compaction-threshold</code>,
+ * <code>com.gs.blobstore.mapped.compaction-interval</code> and <code>com.gs.blobstore.mapped.force-writes</code>.
+ *
+ * @since 16.0
+ */
+@com.gigaspaces.api.InternalApi
+public class MappedSegmentBlobStoreStorageHandler extends BlobStoreStorageHandler {
+
+    private static final Logger _logger = LoggerFactory.getLogger(com.gigaspaces.logger.Constants.LOGGER_CACHE);
+
+    private static final String SEGMENT_SUFFIX = ".seg";
+    private static final byte[] EMPTY = new byte[0];
+
+    private String _path = System.getProperty(SystemProperties.BLOBSTORE_MAPPED_PATH, SystemProperties.BLOBSTORE_MAPPED_PATH_DEFAULT);
+    private int _segmentSize = Integer.getInteger(SystemProperties.BLOBSTORE_MAPPED_SEGMENT_SIZE, SystemProperties.BLOBSTORE_MAPPED_SEGMENT_SIZE_DEFAULT);
+    private double _compactionThreshold = Double.parseDouble(System.getProperty(SystemProperties.BLOBSTORE_MAPPED_COMPACTION_THRESHOLD, SystemProperties.BLOBSTORE_MAPPED_COMPACTION_THRESHOLD_DEFAULT));
+    private long _compactionInterval = Long.getLong(SystemProperties.BLOBSTORE_MAPPED_COMPACTION_INTERVAL, SystemProperties.BLOBSTORE_MAPPED_COMPACTION_INTERVAL_DEFAULT);
+    private boolean _forceWrites = Boolean.parseBoolean(System.getProperty(SystemProperties.BLOBSTORE_MAPPED_FORCE_WRITES, SystemProperties.BLOBSTORE_MAPPED_FORCE_WRITES_DEFAULT));
+
+    private final ConcurrentSkipListMap<Integer, MappedSegment> _segments = new ConcurrentSkipListMap<Integer, MappedSegment>();
+    private final Map<Serializable, Long>[] _indexes;
+    private final ReentrantLock _appendLock = new ReentrantLock();
+    private final AtomicLong _compactions = new AtomicLong();
+    private final AtomicLong _reclaimedBytes = new AtomicLong();
+    private final AtomicLong _groupCommits = new AtomicLong();
+    private final AtomicLong _staleReads = new AtomicLong();
+
+    private File _directory;
+    private MappedSegment _active;
+    private ScheduledExecutorService _compactor;
+    private volatile boolean _closed;
+
+    @SuppressWarnings("unchecked")
+    public MappedSegmentBlobStoreStorageHandler() {
+        _indexes = new Map[BlobStoreObjectType.values().length];
+        for (int i = 0; i < _indexes.length; i++)
+            _indexes[i] = new ConcurrentHashMap<Serializable, Long>(16, 0.75f, 128);
+    }
+
+    public void setPath(String path) {
+        _path = path;
+    }
+
+    public void setSegmentSize(int segmentSize) {
+        _segmentSize = segmentSize;
+    }
+
+    public void setCompactionThreshold(double compactionThreshold) {
+        _compactionThreshold = compactionThreshold;
+    }
+
+    public void setCompactionInterval(long compactionInterval) {
+        _compactionInterval = compactionInterval;
+    }
+
+    public void setForceWrites(boolean forceWrites) {
+        _forceWrites = forceWrites;
+    }
+
+    @Override
+    public void initialize(BlobStoreConfig blobStoreConfig) {
+        _directory = new File(_path, blobStoreConfig.getSpaceName().replaceAll("[^A-Za-z0-9._-]", "_"));
+        if (!_directory.isDirectory() && !_directory.mkdirs())
+            throw new BlobStoreException("Failed to create blob-store directory " + _directory);
+        try {
+            if (blobStoreConfig.isWarmStart())
+                recover();
+            else
+                deleteSegmentFiles();
+            _appendLock.lock();
+            try {
+                if (_active == null)
+                    roll();
+            } finally {
+                _appendLock.unlock();
+            }
+        } catch (IOException e) {
+            throw new BlobStoreException("Failed to initialize blob-store at " + _directory, e);
+        }
+        registerMetrics(blobStoreConfig.getMetricRegistrator());
+        if (_compactionInterval > 0) {
+            _compactor = Executors.newSingleThreadScheduledExecutor(GSThreadFactory.daemon("BlobStoreCompactor-" + blobStoreConfig.getSpaceName()));
+            _compactor.scheduleWithFixedDelay(new Runnable() {
+                @Override
+                public void run() {
+                    try {
+                        compact();
+                    } catch (Throwable t) {
+                        _logger.warn("blob-store segment compaction failed", t);
+                    }
+                }
+            }, _compactionInterval, _compactionInterval, TimeUnit.MILLISECONDS);
+        }
+        if (_logger.isInfoEnabled())
+            _logger.info("initialized mapped segment blob-store at " + _directory + " warmStart=" + blobStoreConfig.isWarmStart() + " segments=" + _segments.size());
+    }
+
+    private void registerMetrics(MetricRegistrator registrator) {
+        if (registrator == null)
+            return;
+        registrator.register(registrator.toPath("mapped-segments", "count"), new Gauge<Integer>() {
+            @Override
+            public Integer getValue() {
+                return _segments.size();
+            }
+        });
+        registrator.register(registrator.toPath("mapped-segments", "garbage-bytes"), new Gauge<Long>() {
+            @Override
+            public Long getValue() {
+                return getGarbageBytes();
+            }
+        });
+        registrator.register(registrator.toPath("mapped-segments", "compactions"), new Gauge<Long>() {
+            @Override
+            public Long getValue() {
+                return _compactions.get();
+            }
+        });
+    }
+
+    @Override
+    public Object add(Serializable id, Serializable data, BlobStoreObjectType objectType) {
+        _appendLock.lock();
+        try {
+            if (index(objectType).containsKey(id))
+                throw new BlobStoreException("key already exist " + id);
+            long location = put(id, data, objectType, (byte) 0);
+            force();
+            return location;
+        } finally {
+            _appendLock.unlock();
+        }
+    }
+
+    @Override
+    public Serializable get(Serializable id, Object position, BlobStoreObjectType objectType) {
+        MappedSegment.Record record = position instanceof Long ? readAt((Long) position, true) : null;
+        if (record == null) {
+            if (position instanceof Long)
+                _staleReads.incrementAndGet();
+            Long location = index(objectType).get(id);
+            if (location == null)
+                return null;
+            record = readAt(location, true);
+            if (record == null) {
+                // relocated by a concurrent compaction - the index already points to the new copy
+                location = index(objectType).get(id);
+                record = location != null ? readAt(location, true) : null;
+                if (record == null)
+                    return null;
+            }
+        }
+        return decodeData(record);
+    }
+
+    @Override
+    public Object replace(Serializable id, Serializable data, Object position, BlobStoreObjectType objectType) {
+        _appendLock.lock();
+        try {
+            if (!index(objectType).containsKey(id))
+                throw new BlobStoreException("no key exist " + id);
+            long location = put(id, data, objectType, (byte) 0);
+            force();
+            return location;
+        } finally {
+            _appendLock.unlock();
+        }
+    }
+
+    @Override
+    public Serializable remove(Serializable id, Object position, BlobStoreObjectType objectType) {
+        _appendLock.lock();
+        try {
+            Long location = index(objectType).get(id);
+            if (location == null)
+                throw new BlobStoreException("remove: didn't find object with id=" + id);
+            MappedSegment.Record previous = readAt(location, true);
+            delete(id, objectType, (byte) 0);
+            force();
+            return previous != null ? decodeData(previous) : null;
+        } finally {
+            _appendLock.unlock();
+        }
+    }
+
+    @Override
+    public List<BlobStoreBulkOperationResult> executeBulk(List<BlobStoreBulkOperationRequest> operations, BlobStoreObjectType objectType, boolean transactional) {
+        List<BlobStoreBulkOperationResult> result = new ArrayList<BlobStoreBulkOperationResult>(operations.size());
+        _appendLock.lock();
+        try {
+            if (transactional)
+                validateBulk(operations, objectType);
+            final byte flags = transactional ? MappedSegment.FLAG_IN_BATCH : 0;
+            for (BlobStoreBulkOperationRequest request : operations) {
+                final Serializable id = request.getId();
+                try {
+                    switch (request.getOpType()) {
+                        case ADD:
+                            if (index(objectType).containsKey(id))
+                                throw new BlobStoreException("key already exist " + id);
+                            result.add(new BlobStoreAddBulkOperationResult(id, put(id, request.getData(), objectType, flags)));
+                            break;
+                        case REPLACE:
+                            if (!index(objectType).containsKey(id))
+                                throw new BlobStoreException("no key exist " + id);
+                            result.add(new BlobStoreReplaceBulkOperationResult(id, put(id, request.getData(), objectType, flags), request.getOffHeapInfo()));
+                            break;
+                        case REMOVE:
+                            if (!index(objectType).containsKey(id))
+                                throw new BlobStoreException("remove: didn't find object with id=" + id);
+                            delete(id, objectType, flags);
+                            result.add(new BlobStoreRemoveBulkOperationResult(id));
+                            break;
+                        case GET:
+                            result.add(new BlobStoreGetBulkOperationResult(id, get(id, request.getPosition(), objectType), request.getPosition(), request.getOffHeapInfo()));
+                            break;
+                    }
+                } catch (RuntimeException ex) {
+                    if (transactional)
+                        throw ex;
+                    switch (request.getOpType()) {
+                        case ADD:
+                            result.add(new BlobStoreAddBulkOperationResult(id, ex));
+                            break;
+                        case REPLACE:
+                            result.add(new BlobStoreReplaceBulkOperationResult(id, ex));
+                            break;
+                        case REMOVE:
+                            result.add(new BlobStoreRemoveBulkOperationResult(id, ex));
+                            break;
+                        case GET:
+                            result.add(new BlobStoreGetBulkOperationResult(id, ex));
+                            break;
+                    }
+                }
+            }
+            if (transactional)
+                markGarbage(append(objectType, MappedSegment.FLAG_BATCH_COMMIT, EMPTY, null));
+            force();
+            _groupCommits.incrementAndGet();
+        } finally {
+            _appendLock.unlock();
+        }
+        return result;
+    }
+
+    /**
+     * Verifies a transactional bulk can be fully applied and rolls the active segment if needed, so
+     * that the bulk and its commit record are written to a single segment.
+     */
+    private void validateBulk(List<BlobStoreBulkOperationRequest> operations, BlobStoreObjectType objectType) {
+        Map<Serializable, Boolean> exists = new HashMap<Serializable, Boolean>();
+        long size = MappedSegment.recordLength(EMPTY, null);
+        for (BlobStoreBulkOperationRequest request : operations) {
+            final Serializable id = request.getId();
+            Boolean current = exists.get(id);
+            boolean present = current != null ? current : index(objectType).containsKey(id);
+            switch (request.getOpType()) {
+                case ADD:
+                    if (present)
+                        throw new BlobStoreException("key already exist " + id);
+                    exists.put(id, Boolean.TRUE);
+                    break;
+                case REPLACE:
+                    if (!present)
+                        throw new BlobStoreException("no key exist " + id);
+                    break;
+                case REMOVE:
+                    if (!present)
+                        throw new BlobStoreException("remove: didn't find object with id=" + id);
+                    exists.put(id, Boolean.FALSE);
+                    break;
+                default:
+                    break;
+            }
+            if (request.getOpType() == BlobStoreBulkOperationType.REMOVE)
+                size += MappedSegment.recordLength(encodeId(id), null);
+            else if (request.getOpType() != BlobStoreBulkOperationType.GET)
+                size += MappedSegment.recordLength(encodeId(id), encodeData(request.getData()));
+        }
+        if (size + 4 > _segmentSize)
+            throw new BlobStoreException("transactional bulk of " + size + " bytes exceeds segment size " + _segmentSize);
+        if (!_active.hasRoomFor((int) size))
+            roll();
+    }
+
+    @Override
+    public DataIterator<BlobStoreGetBulkOperationResult> iterator(BlobStoreObjectType objectType) {
+        return new IndexIterator(objectType);
+    }
+
+    @Override
+    public BlobStoreStorageStatistics getStatistics() {
+        final Map<String, String> properties = new HashMap<String, String>();
+        properties.put("segments", String.valueOf(_segments.size()));
+        properties.put("live-bytes", String.valueOf(getLiveBytes()));
+        properties.put("garbage-bytes", String.valueOf(getGarbageBytes()));
+        properties.put("compactions", String.valueOf(_compactions.get()));
+        properties.put("reclaimed-bytes", String.valueOf(_reclaimedBytes.get()));
+        properties.put("group-commits", String.valueOf(_groupCommits.get()));
+        properties.put("stale-position-reads", String.valueOf(_staleReads.get()));
+        return new BlobStoreStorageStatistics() {
+            @Override
+            public String getName() {
+                return MappedSegmentBlobStoreStorageHandler.class.getSimpleName();
+            }
+
+            @Override
+            public Map<String, String> toProperties() {
+                return properties;
+            }
+        };
+    }
+
+    @Override
+    public void close() {
+        if (_closed)
+            return;
+        _closed = true;
+        if (_compactor != null)
+            _compactor.shutdownNow();
+        _appendLock.lock();
+        try {
+            for (MappedSegment segment : _segments.values()) {
+                segment.force();
+                segment.close();
+            }
+        } finally {
+            _appendLock.unlock();
+        }
+    }
+
+    @Override
+    public Boolean isPersistent() {
+        return true;
+    }
+
+    long getLiveBytes() {
+        long result = 0;
+        for (MappedSegment segment : _segments.values())
+            result += segment.getLiveBytes();
+        return result;
+    }
+
+    long getGarbageBytes() {
+        long result = 0;
+        for (MappedSegment segment : _segments.values())
+            result += segment.getGarbageBytes();
+        return result;
+    }
+
+    int getNumOfSegments() {
+        return _segments.size();
+    }
+
+    private Map<Serializable, Long> index(BlobStoreObjectType objectType) {
+        return _indexes[objectType.ordinal()];
+    }
+
+    private long put(Serializable id, Serializable data, BlobStoreObjectType objectType, byte flags) {
+        if (data instanceof byte[])
+            flags |= MappedSegment.FLAG_RAW_DATA;
+        if (id instanceof String)
+            flags |= MappedSegment.FLAG_STRING_ID;
+        long location = append(objectType, flags, encodeId(id), encodeData(data));
+        Long previous = index(objectType).put(id, location);
+        if (previous != null)
+            markGarbage(previous);
+        return location;
+    }
+
+    private void delete(Serializable id, BlobStoreObjectType objectType, byte flags) {
+        if (id instanceof String)
+            flags |= MappedSegment.FLAG_STRING_ID;
+        flags |= MappedSegment.FLAG_TOMBSTONE;
+        byte[] idBytes = encodeId(id);
+        long location = append(objectType, flags, idBytes, null);
+        // the tombstone itself is garbage as soon as no older segment can hold the id
+        markGarbage(location);
+        Long previous = index(objectType).remove(id);
+        if (previous != null)
+            markGarbage(previous);
+    }
+
+    /**
+     * Appends a record to the active segment, rolling to a new segment if needed - must be called
+     * under the append lock.
+     */
+    private long append(BlobStoreObjectType objectType, byte flags, byte[] id, byte[] data) {
+        final int length = MappedSegment.recordLength(id, data);
+        if (length + 4 > _segmentSize)
+            throw new BlobStoreException("record of " + length + " bytes exceeds segment size " + _segmentSize);
+        if (!_active.hasRoomFor(length))
+            roll();
+        int offset = _active.append((byte) objectType.ordinal(), flags, id, data);
+        _active.addLive(length);
+        return MappedSegment.toLocation(_active.getId(), offset);
+    }
+
+    private void markGarbage(long location) {
+        MappedSegment segment = _segments.get(MappedSegment.segmentOf(location));
+        if (segment == null)
+            return;
+        MappedSegment.Record record = segment.read(MappedSegment.offsetOf(location), false);
+        if (record != null)
+            segment.markGarbage(record.length);
+    }
+
+    private void roll() {
+        try {
+            int id = _segments.isEmpty() ? 1 : _segments.lastKey() + 1;
+            if (_active != null) {
+                _active.force();
+                _active.seal();
+            }
+            MappedSegment segment = new MappedSegment(id, new File(_directory, String.format("%010d", id) + SEGMENT_SUFFIX), _segmentSize);
+            _segments.put(id, segment);
+            _active = segment;
+        } catch (IOException e) {
+            throw new BlobStoreException("Failed to create a new blob-store segment in " + _directory, e);
+        }
+    }
+
+    private void force() {
+        if (_forceWrites)
+            _active.force();
+    }
+
+    private MappedSegment.Record readAt(long location, boolean withData) {
+        MappedSegment segment = _segments.get(MappedSegment.segmentOf(location));
+        return segment != null ? segment.read(MappedSegment.offsetOf(location), withData) : null;
+    }
+
+    /**
+     * Rewrites the live records of every sealed segment whose garbage ratio exceeds the compaction
+     * threshold into the active segment, and deletes it.
+     */
+    void compact() {
+        for (MappedSegment segment : _segments.values()) {
+            if (_closed)
+                return;
+            if (!segment.isSealed() || segment.getGarbageRatio() < _compactionThreshold)
+                continue;
+            long garbage = segment.getGarbageBytes();
+            compact(segment);
+            _compactions.incrementAndGet();
+            _reclaimedBytes.addAndGet(garbage);
+            if (_logger.isDebugEnabled())
+                _logger.debug("compacted blob-store segment " + segment.getFile());
+        }
+    }
+
+    private void compact(MappedSegment segment) {
+        List<MappedSegment.Record> batch = new ArrayList<MappedSegment.Record>();
+        int offset = 0;
+        while (offset < segment.getWritePosition()) {
+            MappedSegment.Record record = segment.read(offset, true);
+            if (record == null)
+                break;
+            offset += record.length;
+            if (record.isBatchCommit()) {
+                for (MappedSegment.Record r : batch)
+                    relocate(segment, r);
+                batch.clear();
+            } else if (record.isInBatch()) {
+                batch.add(record);
+            } else {
+                relocate(segment, record);
+            }
+        }
+        // a trailing uncommitted bulk was never applied, so it is dropped along with the segment
+        _appendLock.lock();
+        try {
+            _active.force();
+            _segments.remove(segment.getId());
+            segment.delete();
+        } finally {
+            _appendLock.unlock();
+        }
+    }
+
+    private void relocate(MappedSegment segment, MappedSegment.Record record) {
+        BlobStoreObjectType objectType = BlobStoreObjectType.values()[record.objectType];
+        Serializable id = decodeId(record);
+        long location = MappedSegment.toLocation(segment.getId(), record.offset);
+        byte flags = (byte) (record.flags & ~MappedSegment.FLAG_IN_BATCH);
+        _appendLock.lock();
+        try {
+            if (record.isTombstone()) {
+                // tombstones are only needed while an older segment may still hold the id
+                if (_segments.lowerKey(segment.getId()) != null && !index(objectType).containsKey(id))
+                    markGarbage(append(objectType, flags, record.id, null));
+            } else {
+                Long current = index(objectType).get(id);
+                if (current != null && current == location)
+                    index(objectType).put(id, append(objectType, flags, record.id, record.data));
+            }
+        } finally {
+            _appendLock.unlock();
+        }
+    }
+
+    private void recover() throws IOException {
+        File[] files = _directory.listFiles();
+        if (files == null)
+            return;
+        for (File file : files) {
+            if (!file.getName().endsWith(SEGMENT_SUFFIX))
+                continue;
+            int id = Integer.parseInt(file.getName().substring(0, file.getName().length() - SEGMENT_SUFFIX.length()));
+            _segments.put(id, new MappedSegment(id, file, (int) Math.max(file.length(), _segmentSize)));
+        }
+        List<MappedSegment.Record> batch = new ArrayList<MappedSegment.Record>();
+        for (MappedSegment segment : _segments.values()) {
+            int offset = 0;
+            batch.clear();
+            while (segment.isValid(offset)) {
+                MappedSegment.Record record = segment.read(offset, false);
+                offset += record.length;
+                if (record.isBatchCommit()) {
+                    for (MappedSegment.Record r : batch)
+                        apply(segment, r);
+                    batch.clear();
+                    segment.addLive(record.length);
+                    segment.markGarbage(record.length);
+                } else if (record.isInBatch()) {
+                    batch.add(record);
+                } else {
+                    apply(segment, record);
+                }
+            }
+            // an uncommitted transactional bulk is discarded, appends resume on top of it
+            if (!batch.isEmpty())
+                offset = batch.get(0).offset;
+            segment.setWritePosition(offset);
+        }
+        for (MappedSegment segment : _segments.values()) {
+            if (segment != _segments.lastEntry().getValue())
+                segment.seal();
+        }
+        if (!_segments.isEmpty())
+            _active = _segments.lastEntry().getValue();
+    }
+
+    private void apply(MappedSegment segment, MappedSegment.Record record) {
+        BlobStoreObjectType objectType = BlobStoreObjectType.values()[record.objectType];
+        Serializable id = decodeId(record);
+        segment.addLive(record.length);
+        Long previous;
+        if (record.isTombstone()) {
+            segment.markGarbage(record.length);
+            previous = index(objectType).remove(id);
+        } else {
+            previous = index(objectType).put(id, MappedSegment.toLocation(segment.getId(), record.offset));
+        }
+        if (previous != null)
+            markGarbage(previous);
+    }
+
+    private void deleteSegmentFiles() {
+        File[] files = _directory.listFiles();
+        if (files == null)
+            return;
+        for (File file : files) {
+            if (file.getName().endsWith(SEGMENT_SUFFIX) && !file.delete())
+                throw new BlobStoreException("Failed to delete stale blob-store segment " + file);
+        }
+    }
+
+    private static byte[] encodeData(Serializable data) {
+        return data instanceof byte[] ? (byte[]) data : javaSerialize(data);
+    }
+
+    private static byte[] encodeId(Serializable id) {
+        return id instanceof String ? ((String) id).getBytes(StandardCharsets.UTF_8) : javaSerialize(id);
+    }
+
+    private static Serializable decodeId(MappedSegment.Record record) {
+        return (record.flags & MappedSegment.FLAG_STRING_ID) != 0 ? new String(record.id, StandardCharsets.UTF_8) : javaDeserialize(record.id);
+    }
+
+    private static Serializable decodeData(MappedSegment.Record record) {
+        if (record.data == null || record.isTombstone())
+            return null;
+        return (record.flags & MappedSegment.FLAG_RAW_DATA) != 0 ? record.data : javaDeserialize(record.data);
+    }
+
+    private static byte[] javaSerialize(Serializable obj) {
+        try {
+            ByteArrayOutputStream baos = new ByteArrayOutputStream(128);
+            ObjectOutputStream out = new ObjectOutputStream(baos);
+            out.writeObject(obj);
+            out.close();
+            return baos.toByteArray();
+        } catch (IOException e) {
+            throw new BlobStoreException(e);
+        }
+    }
+
+    private static Serializable javaDeserialize(byte[] bytes) {
+        try {
+            ObjectInputStream in = new ObjectInputStream(new ByteArrayInputStream(bytes));
+            try {
+                return (Serializable) in.readObject();
+            } finally {
+                in.close();
+            }
+        } catch (IOException e) {
+            throw new BlobStoreException(e);
+        } catch (ClassNotFoundException e) {
+            throw new BlobStoreException(e);
+        }
+    }
+
+    private class IndexIterator implements DataIterator<BlobStoreGetBulkOperationResult> {
+        private final BlobStoreObjectType _objectType;
+        private final Iterator<Map.Entry<Serializable, Long>> _iter;
+        private BlobStoreGetBulkOperationResult _next;
+
+        private IndexIterator(BlobStoreObjectType objectType) {
+            _objectType = objectType;
+            _iter = index(objectType).entrySet().iterator();
+        }
+
+        @Override
+        public boolean hasNext() {
+            while (_next == null && _iter.hasNext()) {
+                Map.Entry<Serializable, Long> entry = _iter.next();
+                Serializable data = get(entry.getKey(), entry.getValue(), _objectType);
+                if (data != null)
+                    _next = new BlobStoreGetBulkOperationResult(entry.getKey(), data, index(_objectType).get(entry.getKey()), null);
+            }
+            return _next != null;
+        }
+
+        @Override
+        public BlobStoreGetBulkOperationResult next() {
+            if (!hasNext())
+                return null;
+            BlobStoreGetBulkOperationResult result = _next;
+            _next = null;
+            return result;
+        }
+
+        @Override
+        public void remove() {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public void close() {
+        }
+    }
+}
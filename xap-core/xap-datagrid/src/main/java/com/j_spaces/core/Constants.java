@@ -682,6 +682,21 @@ public interface Constants {
 
         String DATA_SOURCE_SHARE_ITERATOR_TTL_PROP = SHARED_ITERATOR_PREFIX
                 + "time-to-live";
+
+        String GROUP_COMMIT_PREFIX = DATA_ADAPTER_PREFIX
+                + "group-commit.";
+
+        // Max time (in microseconds) a single entry operation waits for concurrent operations
+        // to be synchronized in the same batch, 0 disables group commit
+        String GROUP_COMMIT_WINDOW_PROP = GROUP_COMMIT_PREFIX
+                + "window-micros";
+
+        String GROUP_COMMIT_WINDOW_DEFAULT = "0";
+
+        String GROUP_COMMIT_MAX_BATCH_SIZE_PROP = GROUP_COMMIT_PREFIX
+                + "max-batch-size";
+
+        String GROUP_COMMIT_MAX_BATCH_SIZE_DEFAULT = "256";
     }
 
     public interface CacheManager {
@@ -752,6 +767,9 @@ public interface Constants {
         String BLOBSTORE_OFF_HEAP_MIN_DIFF_TO_ALLOCATE_PROP = "blobstore.off-heap.update_threshold";
         String BLOBSTORE_OFF_HEAP_MIN_DIFF_TO_ALLOCATE_DEFAULT_VALUE = "50B";
 
+        String BLOBSTORE_OFF_HEAP_ALLOCATOR_PROP = "com.gs.blobstore.off-heap.allocator";
+        String BLOBSTORE_OFF_HEAP_ALLOCATOR_DEFAULT = "malloc";
+
         /* initial % from LRU-cache to load */
         String CACHE_MANAGER_INITIAL_LOAD_DEFAULT = "50";
 
@@ -760,6 +778,16 @@ public interface Constants {
 
         String CACHE_MANAGER_INITIAL_LOAD_CLASS_PROP = "engine.initial_load_class";
 
+        /* number of threads inserting the entries of the initial load, 1 means the entries are inserted by the loading thread */
+        String CACHE_MANAGER_INITIAL_LOAD_THREADS_PROP = "engine.initial_load_threads";
+
+        String CACHE_MANAGER_INITIAL_LOAD_THREADS_DEFAULT = "1";
+
+        /* true if the indexes of an all in cache space are built once the entries of the initial load are inserted */
+        String CACHE_MANAGER_INITIAL_LOAD_DEFERRED_INDEXING_PROP = "engine.initial_load_deferred_indexing";
+
+        String CACHE_MANAGER_INITIAL_LOAD_DEFERRED_INDEXING_DEFAULT = "false";
+
         String CACHE_MANAGER_MIN_EXTENDED_INDEX_ACTIVATION_DEFAULT = "1";
 
         String CACHE_MANAGER_MIN_EXTENDED_INDEX_ACTIVATION_PROP = "engine.extended-match.min_ext_index_activation_size";
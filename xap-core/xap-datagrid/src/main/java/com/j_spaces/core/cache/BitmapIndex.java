@@ -0,0 +1,113 @@
+/*
+ * Copyright (c) 2008-2016, GigaSpaces Technologies, Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.j_spaces.core.cache;
+
+import com.gigaspaces.internal.utils.collections.CompressedBitmap;
+
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * A secondary index of a low cardinality property which keeps, for each value, a compressed bitmap
+ * of the ordinals of the entries with that value.
+ * <p>
+ * The bitmap index mirrors the equality index of the property, and is used to resolve
+ * conjunctions and disjunctions of equality conditions on several such properties by bitmap
+ * intersection and union before any entry is touched.
+ *
+ * @since 16.0
+ */
+@com.gigaspaces.api.InternalApi
+public class BitmapIndex {
+    private final EntryOrdinals _ordinals;
+    private final ConcurrentHashMap<Object, CompressedBitmap> _bitmaps = new ConcurrentHashMap<Object, CompressedBitmap>();
+
+    public BitmapIndex(EntryOrdinals ordinals) {
+        _ordinals = ordinals;
+    }
+
+    public EntryOrdinals getOrdinals() {
+        return _ordinals;
+    }
+
+    public void insert(Object value, IEntryCacheInfo entry) {
+        final int ordinal = _ordinals.acquire(entry);
+        _bitmaps.compute(value, (v, bitmap) -> {
+            if (bitmap == null)
+                bitmap = new CompressedBitmap();
+            synchronized (bitmap) {
+                bitmap.add(ordinal);
+            }
+            return bitmap;
+        });
+    }
+
+    public void remove(Object value, IEntryCacheInfo entry) {
+        final int ordinal = _ordinals.get(entry);
+        if (ordinal < 0)
+            return;
+        _bitmaps.computeIfPresent(value, (v, bitmap) -> {
+            synchronized (bitmap) {
+                bitmap.remove(ordinal);
+                return bitmap.isEmpty() ? null : bitmap;
+            }
+        });
+        _ordinals.release(entry);
+    }
+
+    /**
+     * @return a snapshot of the ordinals of the entries with the given value
+     */
+    public CompressedBitmap get(Object value) {
+        CompressedBitmap bitmap = _bitmaps.get(value);
+        if (bitmap == null)
+            return new CompressedBitmap();
+        synchronized (bitmap) {
+            return bitmap.copy();
+        }
+    }
+
+    /**
+     * @return the ordinals which are both in the given bitmap and in the bitmap of the given value
+     */
+    public CompressedBitmap and(CompressedBitmap ordinals, Object value) {
+        CompressedBitmap bitmap = _bitmaps.get(value);
+        if (bitmap == null)
+            return new CompressedBitmap();
+        synchronized (bitmap) {
+            return ordinals.and(bitmap);
+        }
+    }
+
+    /**
+     * @return the ordinals which are either in the given bitmap or in the bitmap of the given value
+     */
+    public CompressedBitmap or(CompressedBitmap ordinals, Object value) {
+        CompressedBitmap bitmap = _bitmaps.get(value);
+        if (bitmap == null)
+            return ordinals;
+        synchronized (bitmap) {
+            return ordinals.or(bitmap);
+        }
+    }
+
+    /**
+     * @return the number of distinct values in the index
+     */
+    public int getNumOfValues() {
+        return _bitmaps.size();
+    }
+}
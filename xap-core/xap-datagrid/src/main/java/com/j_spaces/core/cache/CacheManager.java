@@ -31,6 +31,7 @@ import com.gigaspaces.internal.cluster.node.impl.groups.IReplicationChannelDataF
 import com.gigaspaces.internal.cluster.node.impl.notification.NotificationReplicationChannelDataFilter;
 import com.gigaspaces.internal.metadata.ITypeDesc;
 import com.gigaspaces.internal.query.ICustomQuery;
+import com.gigaspaces.internal.query.ExactValueIndexScanner;
 import com.gigaspaces.internal.query.IQueryIndexScanner;
 import com.gigaspaces.internal.query.explainplan.*;
 import com.gigaspaces.internal.server.metadata.IServerTypeDesc;
@@ -53,6 +54,7 @@ import com.gigaspaces.internal.sync.hybrid.SyncHybridStorageAdapter;
 import com.gigaspaces.internal.transport.ITemplatePacket;
 import com.gigaspaces.internal.transport.TemplatePacket;
 import com.gigaspaces.internal.utils.StringUtils;
+import com.gigaspaces.internal.utils.collections.CompressedBitmap;
 import com.gigaspaces.internal.utils.collections.economy.EconomyConcurrentHashMap;
 import com.gigaspaces.internal.utils.collections.economy.HashEntryHandlerSpaceEntry;
 import com.gigaspaces.management.space.LocalCacheDetails;
@@ -60,6 +62,7 @@ import com.gigaspaces.metadata.SpaceMetadataException;
 import com.gigaspaces.metadata.index.CompoundIndex;
 import com.gigaspaces.metadata.index.ISpaceCompoundIndexSegment;
 import com.gigaspaces.metrics.Gauge;
+import com.gigaspaces.metrics.LongCounter;
 import com.gigaspaces.metrics.MetricConstants;
 import com.gigaspaces.metrics.MetricRegistrator;
 import com.gigaspaces.query.extension.QueryExtensionProvider;
@@ -116,6 +119,7 @@ import java.io.IOException;
 import java.util.*;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicInteger;
 
 import static com.j_spaces.core.Constants.CacheManager.*;
@@ -212,6 +216,9 @@ public class CacheManager extends AbstractCacheManager
     //is space empty after initial load stage- used is delta-recovery considerations
     private volatile boolean _emptyAfterInitialLoadStage;
 
+    //defers the index insertion of the entries while the initial load is in progress
+    private volatile DeferredIndexBuilder _deferredIndexBuilder;
+
     private final boolean _directPersistencyEmbeddedtHandlerUsed;
 
     private BlobStoreExtendedStorageHandler _blobStoreStorageHandler;
@@ -416,8 +423,8 @@ public class CacheManager extends AbstractCacheManager
             if(_blobStoreStorageHandler.getOffHeapStore() != null &&  _blobStoreStorageHandler.getOffHeapStore() instanceof OffHeapMemoryPool){
                 ((OffHeapMemoryPool) _blobStoreStorageHandler.getOffHeapStore()).setMinimalDiffToAllocate((int) minimalDiffToAllocate);
             }
-            if (_blobStoreStorageHandler.getOffHeapCache() != null) {
-                _blobStoreStorageHandler.getOffHeapCache().setMinimalDiffToAllocate((int) minimalDiffToAllocate);
+            if (_blobStoreStorageHandler.getOffHeapCache() instanceof OffHeapMemoryPool) {
+                ((OffHeapMemoryPool) _blobStoreStorageHandler.getOffHeapCache()).setMinimalDiffToAllocate((int) minimalDiffToAllocate);
             }
         }
     }
@@ -989,6 +996,7 @@ public class CacheManager extends AbstractCacheManager
                         "\tTotal Time: " + JSpaceUtilities.formatMillis(SystemTime.timeMillis() - initialLoadInfo.getRecoveryStartTime()) + ".");
             }
         }
+        registerInitialLoadMetrics(initialLoadInfo);
         if (getBlobStoreInternalCache() != null) {
             if (getBlobStoreInternalCache().getBlobStoreInternalCacheFilter() != null) {
                 if (_logger.isInfoEnabled()) {
@@ -1001,6 +1009,49 @@ public class CacheManager extends AbstractCacheManager
     }
 
 
+    private void registerInitialLoadMetrics(InitialLoadInfo initialLoadInfo) {
+        final long duration = SystemTime.timeMillis() - initialLoadInfo.getRecoveryStartTime();
+        final long inserted = initialLoadInfo.getInsertedToCache();
+        final long entriesPerSecond = duration > 0 ? inserted * 1000 / duration : inserted;
+        final long indexingTime = TimeUnit.NANOSECONDS.toMillis(initialLoadInfo.getIndexingTimeNanos());
+        final long indexBuildTime = TimeUnit.NANOSECONDS.toMillis(initialLoadInfo.getIndexBuildTimeNanos());
+        if (_logger.isDebugEnabled())
+            _logger.debug("Initial load inserted " + inserted + " entries [" + entriesPerSecond + " entries/sec], indexing time " + JSpaceUtilities.formatMillis(indexingTime)
+                    + ", deferred index build time " + JSpaceUtilities.formatMillis(indexBuildTime));
+
+        final MetricRegistrator registrator = _engine.getMetricRegistrator();
+        registrator.register(registrator.toPath("initial-load", "duration"), new Gauge<Long>() {
+            @Override
+            public Long getValue() {
+                return duration;
+            }
+        });
+        registrator.register(registrator.toPath("initial-load", "entries"), new Gauge<Long>() {
+            @Override
+            public Long getValue() {
+                return inserted;
+            }
+        });
+        registrator.register(registrator.toPath("initial-load", "entries-per-second"), new Gauge<Long>() {
+            @Override
+            public Long getValue() {
+                return entriesPerSecond;
+            }
+        });
+        registrator.register(registrator.toPath("initial-load", "indexing-time"), new Gauge<Long>() {
+            @Override
+            public Long getValue() {
+                return indexingTime;
+            }
+        });
+        registrator.register(registrator.toPath("initial-load", "index-build-time"), new Gauge<Long>() {
+            @Override
+            public Long getValue() {
+                return indexBuildTime;
+            }
+        });
+    }
+
     private void residentEntriesInitialLoad(Context context, SpaceConfigReader configReader, InitialLoadInfo initialLoadInfo)
             throws SAException {
         //special first call to SA- SA will return all classes, not just fifo classes
@@ -1013,10 +1064,19 @@ public class CacheManager extends AbstractCacheManager
                 isFifo);
 
         ISAdapterIterator<IEntryHolder> entriesIterSA = null;
+        ParallelInitialLoader parallelLoader = null;
         try {
             context.setInInitialLoad(true);
             entriesIterSA = _storageAdapter.initialLoad(context, th);
             if (entriesIterSA != null) {
+                int numOfLoadThreads = configReader.getIntSpaceProperty(CACHE_MANAGER_INITIAL_LOAD_THREADS_PROP, CACHE_MANAGER_INITIAL_LOAD_THREADS_DEFAULT);
+                //blob-store and tiered storage entries are loaded by the reading thread
+                if (numOfLoadThreads > 1 && !isBlobStoreCachePolicy() && !isTieredStorage())
+                    parallelLoader = new ParallelInitialLoader(this, initialLoadInfo, numOfLoadThreads);
+                //index maintenance is suspended for entries which are kept in memory and never evicted during the load
+                if (isAllInCachePolicy() && !isBlobStoreCachePolicy() && !isTieredStorage()
+                        && configReader.getBooleanSpaceProperty(CACHE_MANAGER_INITIAL_LOAD_DEFERRED_INDEXING_PROP, CACHE_MANAGER_INITIAL_LOAD_DEFERRED_INDEXING_DEFAULT))
+                    _deferredIndexBuilder = new DeferredIndexBuilder(this, numOfLoadThreads);
                 IServerTypeDesc serverTypeDesc = null;
                 Set<String> typesIn = _persistentBlobStore ? new HashSet<>() : null;
                 while (true) {
@@ -1068,6 +1128,11 @@ public class CacheManager extends AbstractCacheManager
                     if (eh.isBlobStoreEntry() && isDirectPersistencyEmbeddedtHandlerUsed()) {
                         insertBlobStoreEntryToCache = _replicationNode.getDirectPesistencySyncHandler().getEmbeddedSyncHandler().getInitialLoadHandler().onLoadingEntry(eh);
                     }
+                    if (parallelLoader != null) {
+                        parallelLoader.add(eh);
+                        initialLoadInfo.setLastLoggedTime(logInsertionIfNeeded(initialLoadInfo.getRecoveryStartTime(), initialLoadInfo.getLastLoggedTime(), initialLoadInfo.getInsertedToCache() + parallelLoader.getInserted()));
+                        continue;
+                    }
                     if (insertBlobStoreEntryToCache) {
                         if (isTieredStorage()){
                             context.setEntryTieredState(_engine.getTieredStorageManager().getEntryTieredState(eh.getEntryData()));
@@ -1098,6 +1163,13 @@ public class CacheManager extends AbstractCacheManager
                     initialLoadInfo.setLastLoggedTime(logInsertionIfNeeded(initialLoadInfo.getRecoveryStartTime(), initialLoadInfo.getLastLoggedTime(), initialLoadInfo.getInsertedToCache()));
 
                 } //while
+                if (parallelLoader != null) {
+                    ParallelInitialLoader loader = parallelLoader;
+                    parallelLoader = null;
+                    loader.finish();
+                }
+                if (_deferredIndexBuilder != null)
+                    buildDeferredIndexes(initialLoadInfo);
             }
             //any sorted blobStore entries ?
             if (isBlobStoreCachePolicy() && !initialLoadInfo.getBlobStoreFifoInitialLoader().isEmpty()) {
@@ -1113,6 +1185,14 @@ public class CacheManager extends AbstractCacheManager
                 }
             }
         } finally {
+            if (parallelLoader != null) {
+                try {
+                    parallelLoader.finish();
+                } catch (Exception e) {
+                    //suppress- the original failure is thrown
+                }
+            }
+            _deferredIndexBuilder = null;
             context.setInInitialLoad(false);
             if (entriesIterSA != null) {
                 entriesIterSA.close();
@@ -1120,6 +1200,16 @@ public class CacheManager extends AbstractCacheManager
         }
     }
 
+    private void buildDeferredIndexes(InitialLoadInfo initialLoadInfo) throws SAException {
+        DeferredIndexBuilder builder = _deferredIndexBuilder;
+        _deferredIndexBuilder = null;
+        long startTime = System.nanoTime();
+        int indexed = builder.build();
+        initialLoadInfo.setIndexBuildTimeNanos(System.nanoTime() - startTime);
+        if (_logger.isInfoEnabled() && indexed > 0)
+            _logger.info("Built the indexes of " + indexed + " initial load entries in " + JSpaceUtilities.formatMillis(TimeUnit.NANOSECONDS.toMillis(initialLoadInfo.getIndexBuildTimeNanos())));
+    }
+
     //in case types loaded from mirror verify they reside in ssd
     private void insertMetadataTypeToBlobstoreIfNeeded(IEntryHolder eh, Set<String> typesIn) {
         if (!eh.getServerTypeDesc().getTypeDesc().isBlobstoreEnabled() || typesIn.contains(eh.getServerTypeDesc().getTypeDesc().getTypeName()))
@@ -3657,11 +3747,20 @@ public class CacheManager extends AbstractCacheManager
                 return (res = oldEntry);
             }
 
-            insertEntryReferences(context, pEntry, typeData, applySequenceNumber);
+            if (context.isInInitialLoad() && context.getInitialLoadInfo() != null) {
+                long indexingStartTime = System.nanoTime();
+                insertEntryReferences(context, pEntry, typeData, applySequenceNumber);
+                context.getInitialLoadInfo().addIndexingTime(System.nanoTime() - indexingStartTime);
+            } else {
+                insertEntryReferences(context, pEntry, typeData, applySequenceNumber);
+            }
             //after inserting entry references- we recheck the type-data in order
             //to check if new index was added in order to prevent entry insertion that is missing
             // ad added index- checking a barrier
-            if (!recheckedTypeData && typeData.supportsDynamicIndexing() && typeData.isTypeDataReplaced()) {
+            //entries with deferred indexes are reindexed when their indexes are built
+            DeferredIndexBuilder deferredIndexBuilder = context.isInInitialLoad() ? _deferredIndexBuilder : null;
+            if (!recheckedTypeData && typeData.supportsDynamicIndexing() && typeData.isTypeDataReplaced()
+                    && (deferredIndexBuilder == null || !deferredIndexBuilder.isDeferred(typeData))) {
                 recheckedTypeData = true;
                 typeData = _typeDataMap.get(entryHolder.getServerTypeDesc());
                 TypeDataIndex.reindexEntry(this, pEntry, typeData);
@@ -3748,8 +3847,9 @@ public class CacheManager extends AbstractCacheManager
         }
 
         int sequenceNumPlaceHolderPos = 0;
+        DeferredIndexBuilder deferredIndexBuilder = context.isInInitialLoad() && !applySequenceNumber ? _deferredIndexBuilder : null;
 
-        if (pType.hasIndexes()) {
+        if (pType.hasIndexes() && (deferredIndexBuilder == null || !deferredIndexBuilder.defer(pEntry, pType))) {
             // add entry to indexes
             int indexBuildNumber = 0;
             final TypeDataIndex[] indexes = pType.getIndexes();
@@ -4367,6 +4467,9 @@ public class CacheManager extends AbstractCacheManager
             context.setBlobStoreUsePureIndexesAccess(isRelevantUsePureIndexesAccess(context, typeData, template));
         if (template.isFifoGroupPoll())
             return _fifoGroupCacheImpl.getScannableEntriesMinIndex(context, typeData, numOfFields, template);
+        CompressedBitmap bitmap = getEntriesByBitmapIndexes(context, typeData, numOfFields, template);
+        if (bitmap != null)
+            return bitmap.isEmpty() ? null : new ScanBitmapIterator(typeData.getEntryOrdinals(), bitmap);
         IStoredList<IEntryCacheInfo> res = getEntriesMinIndex(context, typeData, numOfFields, template);
         if (res != null && context.isIndicesIntersectionEnabled() && context.getChosenIntersectedList(false) != null)
             return context.getChosenIntersectedList(true/*final*/);
@@ -4374,10 +4477,72 @@ public class CacheManager extends AbstractCacheManager
             return res.getObjectFromHead();
         boolean fifoScan = template.isFifoTemplate() ||
                 (context.isInMemoryRecovery()  && (typeData.getFifoGroupingIndex()!=null  || typeData.isFifoSupport()));
-        return res != null ? new ScanSingleListIterator(res, fifoScan, template.isServerIterator()) : null;
+        return res != null ? context.getScanSingleListIterator(res, fifoScan, template.isServerIterator()) : null;
     }
 
 
+    /**
+     * Resolves the equality conditions of the template on bitmap indexed properties by bitmap
+     * intersection and union, before any entry is touched.
+     *
+     * @return the ordinals of the potentially matching entries, or null if less than two conditions
+     * can be resolved by bitmap indexes
+     */
+    private static CompressedBitmap getEntriesByBitmapIndexes(Context context, TypeData typeData, int numOfFields, ITemplateHolder template) {
+        if (typeData.getEntryOrdinals() == null || template.isFifoTemplate() || template.isServerIterator()
+                || template.getExplainPlan() != null || context.isInMemoryRecovery())
+            return null;
+        final int latestIndexToConsider = typeData.getLastIndexCreationNumber();
+        final TypeDataIndex<?> primaryKey = typeData.getIdField();
+        if (primaryKey != null && primaryKey.getPos() < numOfFields && template.getEntryData() != null
+                && primaryKey.getIndexValueForTemplate(template.getEntryData()) != null)
+            return null; //a single entry at most
+
+        CompressedBitmap result = null;
+        int numOfConditions = 0;
+        List<LongCounter> usedIndexes = context.getIndexMetricsContext() != null ? new ArrayList<LongCounter>() : null;
+        if (template.getEntryData() != null && template.getEntryData().getFixedPropertiesValues() != null) {
+            final short[] matchCodes = template.getExtendedMatchCodes();
+            for (TypeDataIndex<?> index : typeData.getIndexes()) {
+                if (index.getPos() >= numOfFields)
+                    break;
+                final BitmapIndex bitmapIndex = index.getBitmapIndex();
+                if (bitmapIndex == null || latestIndexToConsider < index.getIndexCreationNumber())
+                    continue;
+                if (matchCodes != null && matchCodes[index.getPos()] != TemplateMatchCodes.EQ)
+                    continue;
+                final Object templateValue = index.getIndexValueForTemplate(template.getEntryData());
+                if (templateValue == null)
+                    continue;
+                result = result == null ? bitmapIndex.get(templateValue) : bitmapIndex.and(result, templateValue);
+                numOfConditions++;
+                if (usedIndexes != null)
+                    usedIndexes.add(index.getUsageCounter());
+            }
+        }
+
+        if (template.getCustomQuery() != null && template.getCustomQuery().getCustomIndexes() != null) {
+            for (IQueryIndexScanner scanner : template.getCustomQuery().getCustomIndexes()) {
+                final CompressedBitmap bitmap = scanner.getBitmap(typeData, template, latestIndexToConsider);
+                if (bitmap == null)
+                    continue;
+                result = result == null ? bitmap : result.and(bitmap);
+                //a compound condition is worth a bitmap resolution by itself
+                numOfConditions += scanner instanceof ExactValueIndexScanner ? 1 : 2;
+                if (usedIndexes != null)
+                    usedIndexes.add(scanner.getIndexUsageCounter(typeData));
+            }
+        }
+        //a single equality condition is better served by its equality index list
+        if (numOfConditions < 2)
+            return null;
+        if (usedIndexes != null) {
+            for (LongCounter usedIndex : usedIndexes)
+                context.getIndexMetricsContext().addChosenIndex(usedIndex);
+        }
+        return result;
+    }
+
     private boolean isRelevantUsePureIndexesAccess(Context context, TypeData typeData, ITemplateHolder template) {
         if (!typeData.isBlobStoreClass() || !typeData.hasIndexes() || template.isFifoGroupPoll() || template.getXidOriginated() != null)
             return false;
@@ -5027,12 +5192,15 @@ public class CacheManager extends AbstractCacheManager
             context.setBlobStoreUsePureIndexesAccess(isRelevantUsePureIndexesAccess(context, entryType, template));
         if (template.isFifoGroupPoll())
             return _fifoGroupCacheImpl.getScannableEntriesMinIndexExtended(context, entryType, numOfFields, template);
+        CompressedBitmap bitmap = getEntriesByBitmapIndexes(context, entryType, numOfFields, template);
+        if (bitmap != null)
+            return bitmap.isEmpty() ? null : new ScanBitmapIterator(entryType.getEntryOrdinals(), bitmap);
         Object chosen = getEntriesMinIndexExtended(context, entryType, numOfFields, template);
         if (chosen != null && context.isIndicesIntersectionEnabled() && context.getChosenIntersectedList(false) != null)
             return context.getChosenIntersectedList(true/*final*/);
         if (chosen != null && (chosen instanceof IEntryCacheInfo))
             return (IEntryCacheInfo) chosen;
-        return (chosen instanceof IStoredList) ? new ScanSingleListIterator((IStoredList) chosen, template.isFifoTemplate(), template.isServerIterator()) :
+        return (chosen instanceof IStoredList) ? context.getScanSingleListIterator((IStoredList) chosen, template.isFifoTemplate(), template.isServerIterator()) :
                 (IScanListIterator<IEntryCacheInfo>) chosen;
     }
 
@@ -0,0 +1,312 @@
+/*
+ * Copyright (c) 2008-2016, GigaSpaces Technologies, Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.j_spaces.core.cache;
+
+import com.gigaspaces.internal.server.storage.IEntryData;
+import com.gigaspaces.internal.utils.concurrent.GSThreadFactory;
+import com.j_spaces.core.sadapter.SAException;
+import com.j_spaces.kernel.IObjectInfo;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Suspends the index maintenance of the entries inserted by the initial load, and builds the
+ * indexes of each type in bulk once all the entries are loaded.
+ * <p>
+ * A deferred entry is inserted only to the entries list of its type. When the load is done the
+ * index back references of the entries are reserved with place holders, then each index is built
+ * by its own task which inserts all the entries of the type and sets the back references in their
+ * reserved positions. The entries of an ordered (extended) index are inserted sorted by the index
+ * value.
+ * <p>
+ * Types which require checks on insertion or whose back references are not laid out per index
+ * keep the regular index maintenance: types with unique or multi value indexes, fifo and fifo
+ * groups types and types with query extension indexes.
+ *
+ * @since 16.0
+ */
+@com.gigaspaces.api.InternalApi
+public class DeferredIndexBuilder {
+    private static final Queue<IEntryCacheInfo> NOT_DEFERRED = new ConcurrentLinkedQueue<IEntryCacheInfo>();
+
+    private final CacheManager _cacheManager;
+    private final int _numOfThreads;
+    private final ConcurrentMap<TypeData, Queue<IEntryCacheInfo>> _deferred = new ConcurrentHashMap<TypeData, Queue<IEntryCacheInfo>>();
+
+    public DeferredIndexBuilder(CacheManager cacheManager, int numOfThreads) {
+        _cacheManager = cacheManager;
+        _numOfThreads = numOfThreads;
+    }
+
+    /**
+     * Defers the index insertion of an entry which was inserted to the entries list of its type,
+     * may be called by several loading threads.
+     *
+     * @return false if the entry should be inserted to the indexes of its type now
+     */
+    public boolean defer(IEntryCacheInfo pEntry, TypeData pType) {
+        Queue<IEntryCacheInfo> entries = getDeferredEntries(pType);
+        if (entries == NOT_DEFERRED)
+            return false;
+        entries.add(pEntry);
+        return true;
+    }
+
+    /**
+     * @return true if the index insertion of the entries of the type is deferred
+     */
+    public boolean isDeferred(TypeData pType) {
+        Queue<IEntryCacheInfo> entries = _deferred.get(pType);
+        return entries != null && entries != NOT_DEFERRED;
+    }
+
+    private Queue<IEntryCacheInfo> getDeferredEntries(TypeData pType) {
+        Queue<IEntryCacheInfo> entries = _deferred.get(pType);
+        if (entries == null) {
+            Queue<IEntryCacheInfo> created = isDeferrable(pType) ? new ConcurrentLinkedQueue<IEntryCacheInfo>() : NOT_DEFERRED;
+            entries = _deferred.putIfAbsent(pType, created);
+            if (entries == null)
+                entries = created;
+        }
+        return entries;
+    }
+
+    static boolean isDeferrable(TypeData pType) {
+        if (!pType.hasIndexes() || pType.isFifoSupport() || pType.getFifoGroupingIndex() != null || pType.isUsingQueryExtensionIndexManager())
+            return false;
+        for (TypeDataIndex index : pType.getIndexes()) {
+            if (pType.disableIdIndexForEntries(index))
+                continue;
+            if (index.isUniqueIndex() || index.isMultiValuePerEntryIndex())
+                return false;
+        }
+        return true;
+    }
+
+    /**
+     * Builds the indexes of the deferred entries, should be called after all the entries of the
+     * initial load were inserted.
+     *
+     * @return the number of entries which were inserted to the indexes of their type
+     */
+    public int build() throws SAException {
+        List<TypeIndexesBuild> builds = new ArrayList<TypeIndexesBuild>();
+        int numOfEntries = 0;
+        for (Map.Entry<TypeData, Queue<IEntryCacheInfo>> deferred : _deferred.entrySet()) {
+            if (deferred.getValue() == NOT_DEFERRED || deferred.getValue().isEmpty())
+                continue;
+            List<IEntryCacheInfo> entries = new ArrayList<IEntryCacheInfo>(deferred.getValue().size());
+            for (IEntryCacheInfo entry : deferred.getValue()) {
+                //an entry whose insertion failed after it was added to the entries list
+                if (!entry.isRemovingOrRemoved() && !entry.isDeleted())
+                    entries.add(entry);
+            }
+            builds.add(new TypeIndexesBuild(deferred.getKey(), entries.toArray(new IEntryCacheInfo[0])));
+            numOfEntries += entries.size();
+        }
+        _deferred.clear();
+        if (builds.isEmpty())
+            return 0;
+
+        ExecutorService executor = _numOfThreads > 1
+                ? Executors.newFixedThreadPool(_numOfThreads, GSThreadFactory.daemon("InitialLoadIndexBuild-" + _cacheManager.getEngine().getFullSpaceName()))
+                : null;
+        try {
+            List<Callable<Void>> tasks = new ArrayList<Callable<Void>>();
+            for (final TypeIndexesBuild build : builds) {
+                tasks.add(() -> {
+                    build.reserveBackRefs();
+                    return null;
+                });
+            }
+            execute(executor, tasks);
+
+            tasks.clear();
+            for (final TypeIndexesBuild build : builds) {
+                for (int i = 0; i < build._indexes.length; i++) {
+                    final int position = i;
+                    tasks.add(() -> {
+                        build.buildIndex(position);
+                        return null;
+                    });
+                }
+            }
+            execute(executor, tasks);
+
+            //an index may have been added to the type while its entries were loaded
+            for (TypeIndexesBuild build : builds)
+                build.reindexIfTypeDataReplaced();
+        } finally {
+            if (executor != null)
+                executor.shutdownNow();
+        }
+        return numOfEntries;
+    }
+
+    private static void execute(ExecutorService executor, List<Callable<Void>> tasks) throws SAException {
+        try {
+            if (executor == null) {
+                for (Callable<Void> task : tasks)
+                    task.call();
+                return;
+            }
+            for (Future<Void> future : executor.invokeAll(tasks))
+                future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new SAException("Interrupted while building the indexes of the initial load", e);
+        } catch (ExecutionException e) {
+            throw new SAException("Failed to build the indexes of the initial load", e.getCause());
+        } catch (Exception e) {
+            throw new SAException("Failed to build the indexes of the initial load", e);
+        }
+    }
+
+    private class TypeIndexesBuild {
+        private final TypeData _typeData;
+        private final IEntryCacheInfo[] _entries;
+        //the indexes which are kept for entries, in their back references order
+        private final TypeDataIndex[] _indexes;
+
+        private TypeIndexesBuild(TypeData typeData, IEntryCacheInfo[] entries) {
+            _typeData = typeData;
+            _entries = entries;
+            List<TypeDataIndex> indexes = new ArrayList<TypeDataIndex>();
+            for (TypeDataIndex index : typeData.getIndexes()) {
+                if (!typeData.disableIdIndexForEntries(index))
+                    indexes.add(index);
+            }
+            _indexes = indexes.toArray(new TypeDataIndex[0]);
+        }
+
+        /**
+         * Adds place holders for the index back references of the entries, the same way the
+         * sequence number index back references are reserved on insertion.
+         */
+        private void reserveBackRefs() {
+            int indexBuildNumber = 0;
+            if (_typeData.supportsDynamicIndexing()) {
+                for (TypeDataIndex index : _indexes)
+                    indexBuildNumber = Math.max(indexBuildNumber, index.getIndexCreationNumber());
+            }
+            for (IEntryCacheInfo entry : _entries) {
+                ArrayList<IObjectInfo<IEntryCacheInfo>> backRefs = entry.getBackRefs();
+                if (backRefs != null) {
+                    IEntryData entryData = entry.getEntryHolder(_cacheManager).getEntryData();
+                    int numOfBackRefs = 0;
+                    for (TypeDataIndex index : _indexes)
+                        numOfBackRefs += index.numOfEntryIndexBackRefs(index.getIndexValue(entryData));
+                    backRefs.ensureCapacity(backRefs.size() + numOfBackRefs);
+                    for (int i = 0; i < numOfBackRefs; i++)
+                        backRefs.add(TypeDataIndex._DummyOI);
+                }
+                if (indexBuildNumber > 0 && indexBuildNumber > entry.getLatestIndexCreationNumber())
+                    entry.setLatestIndexCreationNumber(indexBuildNumber);
+            }
+        }
+
+        /**
+         * Inserts all the entries to the index at the given position, each index is built by a
+         * single thread which sets only its own back references.
+         */
+        private void buildIndex(int position) {
+            TypeDataIndex index = _indexes[position];
+            IEntryCacheInfo[] entries = index.isExtendedIndex() ? sortByIndexValue(index) : _entries;
+            ArrayList<IObjectInfo<IEntryCacheInfo>> insertBackRefs = new ArrayList<IObjectInfo<IEntryCacheInfo>>(2);
+            for (IEntryCacheInfo entry : entries) {
+                IEntryData entryData = entry.getEntryHolder(_cacheManager).getEntryData();
+                ArrayList<IObjectInfo<IEntryCacheInfo>> backRefs = entry.getBackRefs();
+                if (backRefs == null) {
+                    index.insertEntryIndexedField(entry, index.getIndexValue(entryData), _typeData);
+                    continue;
+                }
+                insertBackRefs.clear();
+                index.insertEntryIndexedField(entry, index.getIndexValue(entryData), _typeData, insertBackRefs);
+                int backRefPos = backRefPosition(entryData, position);
+                for (int i = 0; i < insertBackRefs.size(); i++)
+                    backRefs.set(backRefPos + i, insertBackRefs.get(i));
+            }
+        }
+
+        private int backRefPosition(IEntryData entryData, int position) {
+            //the whole entries list back reference is first
+            int backRefPos = 1 + position;
+            for (int i = 0; i < position; i++) {
+                if (_indexes[i].isExtendedIndex() && _indexes[i].getIndexValue(entryData) != null)
+                    backRefPos++;
+            }
+            return backRefPos;
+        }
+
+        private IEntryCacheInfo[] sortByIndexValue(TypeDataIndex index) {
+            final IndexedEntry[] indexedEntries = new IndexedEntry[_entries.length];
+            for (int i = 0; i < _entries.length; i++)
+                indexedEntries[i] = new IndexedEntry(_entries[i], index.getIndexValue(_entries[i].getEntryHolder(_cacheManager).getEntryData()));
+            try {
+                Arrays.sort(indexedEntries, INDEX_VALUE_COMPARATOR);
+            } catch (ClassCastException e) {
+                //values which are not mutually comparable, insert them in load order
+                return _entries;
+            }
+            IEntryCacheInfo[] sorted = new IEntryCacheInfo[indexedEntries.length];
+            for (int i = 0; i < indexedEntries.length; i++)
+                sorted[i] = indexedEntries[i]._entry;
+            return sorted;
+        }
+
+        private void reindexIfTypeDataReplaced() {
+            if (!_typeData.supportsDynamicIndexing() || !_typeData.isTypeDataReplaced())
+                return;
+            for (IEntryCacheInfo entry : _entries)
+                TypeDataIndex.reindexEntry(_cacheManager, entry, _cacheManager.getTypeData(entry.getEntryHolder(_cacheManager).getServerTypeDesc()));
+        }
+    }
+
+    private static final Comparator<IndexedEntry> INDEX_VALUE_COMPARATOR = new Comparator<IndexedEntry>() {
+        @Override
+        public int compare(IndexedEntry e1, IndexedEntry e2) {
+            if (e1._value == null)
+                return e2._value == null ? 0 : -1;
+            if (e2._value == null)
+                return 1;
+            return ((Comparable) e1._value).compareTo(e2._value);
+        }
+    };
+
+    private static class IndexedEntry {
+        private final IEntryCacheInfo _entry;
+        private final Object _value;
+
+        private IndexedEntry(IEntryCacheInfo entry, Object value) {
+            _entry = entry;
+            _value = value;
+        }
+    }
+}
@@ -0,0 +1,132 @@
+/*
+ * Copyright (c) 2008-2016, GigaSpaces Technologies, Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.j_spaces.core.cache;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Assigns dense int ordinals to the entries of a type which has bitmap indexes.
+ * <p>
+ * An entry gets an ordinal when it is first inserted to a bitmap index and releases it when it
+ * was removed from all of them, released ordinals are reused so the ordinals stay dense. An
+ * ordinal may be reused while a query still holds a bitmap which contains it, so entries resolved
+ * by ordinal are always matched against the query.
+ *
+ * @since 16.0
+ */
+@com.gigaspaces.api.InternalApi
+public class EntryOrdinals {
+    private static final int PAGE_SHIFT = 12;
+    private static final int PAGE_SIZE = 1 << PAGE_SHIFT;
+
+    private final ConcurrentHashMap<IEntryCacheInfo, Ordinal> _ordinals = new ConcurrentHashMap<IEntryCacheInfo, Ordinal>();
+    private volatile AtomicReferenceArray<IEntryCacheInfo>[] _pages = new AtomicReferenceArray[0];
+    //guarded by this
+    private int[] _free = new int[16];
+    private int _numOfFree;
+    private int _next;
+
+    /**
+     * Gets the ordinal of the entry, assigning one if the entry has none, and increments the
+     * number of bitmap indexes which refer to it.
+     */
+    public int acquire(IEntryCacheInfo entry) {
+        return _ordinals.compute(entry, (e, ordinal) -> {
+            if (ordinal == null)
+                ordinal = new Ordinal(allocate(e));
+            ordinal._references++;
+            return ordinal;
+        })._value;
+    }
+
+    /**
+     * @return the ordinal of the entry, or -1 if it has none
+     */
+    public int get(IEntryCacheInfo entry) {
+        Ordinal ordinal = _ordinals.get(entry);
+        return ordinal != null ? ordinal._value : -1;
+    }
+
+    /**
+     * Decrements the number of bitmap indexes which refer to the entry and releases its ordinal
+     * once no index refers to it.
+     *
+     * @return the ordinal of the entry, or -1 if it has none
+     */
+    public int release(IEntryCacheInfo entry) {
+        final int[] result = {-1};
+        _ordinals.computeIfPresent(entry, (e, ordinal) -> {
+            result[0] = ordinal._value;
+            if (--ordinal._references > 0)
+                return ordinal;
+            free(ordinal._value);
+            return null;
+        });
+        return result[0];
+    }
+
+    /**
+     * @return the entry which currently has the ordinal, or null if there is none
+     */
+    public IEntryCacheInfo getEntry(int ordinal) {
+        AtomicReferenceArray<IEntryCacheInfo>[] pages = _pages;
+        int page = ordinal >>> PAGE_SHIFT;
+        return page < pages.length ? pages[page].get(ordinal & (PAGE_SIZE - 1)) : null;
+    }
+
+    /**
+     * @return the number of entries which have an ordinal
+     */
+    public int size() {
+        return _ordinals.size();
+    }
+
+    private synchronized int allocate(IEntryCacheInfo entry) {
+        int ordinal = _numOfFree > 0 ? _free[--_numOfFree] : _next++;
+        int page = ordinal >>> PAGE_SHIFT;
+        AtomicReferenceArray<IEntryCacheInfo>[] pages = _pages;
+        if (page == pages.length) {
+            AtomicReferenceArray<IEntryCacheInfo>[] newPages = new AtomicReferenceArray[pages.length + 1];
+            System.arraycopy(pages, 0, newPages, 0, pages.length);
+            newPages[page] = new AtomicReferenceArray<IEntryCacheInfo>(PAGE_SIZE);
+            _pages = pages = newPages;
+        }
+        pages[page].set(ordinal & (PAGE_SIZE - 1), entry);
+        return ordinal;
+    }
+
+    private synchronized void free(int ordinal) {
+        _pages[ordinal >>> PAGE_SHIFT].set(ordinal & (PAGE_SIZE - 1), null);
+        if (_numOfFree == _free.length) {
+            int[] free = new int[_free.length * 2];
+            System.arraycopy(_free, 0, free, 0, _numOfFree);
+            _free = free;
+        }
+        _free[_numOfFree++] = ordinal;
+    }
+
+    private static final class Ordinal {
+        private final int _value;
+        //the number of bitmap indexes which refer to the entry, changed only inside compute
+        private int _references;
+
+        private Ordinal(int value) {
+            _value = value;
+        }
+    }
+}
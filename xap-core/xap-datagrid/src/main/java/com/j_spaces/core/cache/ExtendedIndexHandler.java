@@ -51,9 +51,16 @@ public class ExtendedIndexHandler<K>
     private static final boolean FORCE_ORDERED_SCAN = true;
 
     public ExtendedIndexHandler(TypeDataIndex index) {
+        this(index, new FastConcurrentSkipListMap<Object, IStoredList<IEntryCacheInfo>>());
+    }
+
+    /**
+     * @param orderedStore the on-heap ordered store, null if the subclass maintains its own store
+     */
+    protected ExtendedIndexHandler(TypeDataIndex index, FastConcurrentSkipListMap<Object, IStoredList<IEntryCacheInfo>> orderedStore) {
         _index = index;
-        _orderedStore = new FastConcurrentSkipListMap<>();
-        _uniqueOrderedStore = _index.isUniqueIndex() ? (FastConcurrentSkipListMap<Object, IEntryCacheInfo>) ((FastConcurrentSkipListMap) _orderedStore) : null;
+        _orderedStore = orderedStore;
+        _uniqueOrderedStore = _index.isUniqueIndex() && _orderedStore != null ? (FastConcurrentSkipListMap<Object, IEntryCacheInfo>) ((FastConcurrentSkipListMap) _orderedStore) : null;
         if (index.getCacheManager().getEngine().getLeaseManager().isSupportsRecentExtendedUpdates())
             _recentExtendedIndexUpdates = new RecentExtendedIndexUpdates(index.getCacheManager());
         else
@@ -84,6 +91,10 @@ public class ExtendedIndexHandler<K>
         return _orderedStore.get(indexValue);
     }
 
+    protected TypeDataIndex getIndex() {
+        return _index;
+    }
+
 
     /**
      * insert a value for this key- if key already exist insert into the SL of same values
@@ -329,13 +340,8 @@ public class ExtendedIndexHandler<K>
 
         }
 
-        NavigableMap baseMap = _orderedStore;
-        NavigableMap mapToScan;
-        if (end == null)
-            mapToScan = start != null ? baseMap.tailMap(start, startinclusive) : baseMap;
-        else
-            mapToScan = start != null ? baseMap.subMap(start, startinclusive, end, endInclusive) : baseMap.headMap(end, endInclusive);
-        return new ExtendedIndexIterator<>(mapToScan, _index,originalStart,originalStartCondition, originalEnd,originalEndCondition);
+        return createScanIterator(start, startinclusive, end, endInclusive, false /*descending*/,
+                originalStart, originalStartCondition, originalEnd, originalEndCondition);
     }
 
     private ExtendedIndexIterator<IEntryCacheInfo> establishScanOrdered(K startPos, short relation, K endPos, boolean endPosInclusive) {
@@ -349,12 +355,28 @@ public class ExtendedIndexHandler<K>
                 ( !reversedScan ? 0 : relation ) :
                 ( endPosInclusive ? TemplateMatchCodes.LE : TemplateMatchCodes.LT );
 
-        NavigableMap baseMap = reversedScan ? _orderedStore.descendingMap() : _orderedStore;
+        if (reversedScan)
+            return createScanIterator(endPos, endPosInclusive, startPos, startinclusive, true /*descending*/,
+                    originalStart, originalStartCondition, originalEnd, originalEndCondition);
+        return createScanIterator(startPos, startinclusive, endPos, endPosInclusive, false /*descending*/,
+                originalStart, originalStartCondition, originalEnd, originalEndCondition);
+    }
+
+    /**
+     * creates an iterator over the index values between low and high (null means unlimited), the
+     * original start/end positions and conditions are kept by the iterator for the query explain
+     * plan and for matching recent updates.
+     */
+    protected ExtendedIndexIterator<IEntryCacheInfo> createScanIterator(Object low, boolean lowInclusive, Object high, boolean highInclusive, boolean descending,
+                                                                        Object originalStart, short originalStartCondition, Object originalEnd, short originalEndCondition) {
+        NavigableMap baseMap = _orderedStore;
         NavigableMap mapToScan;
-        if (endPos == null)
-            mapToScan = startPos != null ? baseMap.tailMap(startPos, startinclusive) : baseMap;
+        if (high == null)
+            mapToScan = low != null ? baseMap.tailMap(low, lowInclusive) : baseMap;
         else
-            mapToScan = startPos != null ? baseMap.subMap(startPos, startinclusive, endPos, endPosInclusive) : baseMap.headMap(endPos, endPosInclusive);
-        return new ExtendedIndexIterator<>(mapToScan, _index,originalStart,originalStartCondition, originalEnd,originalEndCondition);
+            mapToScan = low != null ? baseMap.subMap(low, lowInclusive, high, highInclusive) : baseMap.headMap(high, highInclusive);
+        if (descending)
+            mapToScan = mapToScan.descendingMap();
+        return new ExtendedIndexIterator<>(mapToScan, _index, originalStart, originalStartCondition, originalEnd, originalEndCondition);
     }
 }
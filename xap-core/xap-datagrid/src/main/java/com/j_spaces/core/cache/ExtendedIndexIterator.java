@@ -31,7 +31,7 @@ import java.util.NavigableMap;
 @com.gigaspaces.api.InternalApi
 public class ExtendedIndexIterator<V>
         implements IExtendedIndexIterator<V> {
-    private final Iterator<IStoredList<V>> _iter;
+    private final Iterator<? extends IStoredList<V>> _iter;
     private IStoredListIterator<V> _pos;
     private IStoredList<V> _entries;
     private boolean _eof;
@@ -47,8 +47,13 @@ public class ExtendedIndexIterator<V>
 
     public ExtendedIndexIterator(NavigableMap mapToScan, TypeDataIndex idx,
                                  Object originalStart,short originalStartCondition,Object originalEnd, short originalEndCondition){
-        _iter = mapToScan.values().iterator();
-        _size = mapToScan.size();
+        this(mapToScan.values().iterator(), mapToScan.size(), idx, originalStart, originalStartCondition, originalEnd, originalEndCondition);
+    }
+
+    public ExtendedIndexIterator(Iterator<? extends IStoredList<V>> iter, int size, TypeDataIndex idx,
+                                 Object originalStart,short originalStartCondition,Object originalEnd, short originalEndCondition){
+        _iter = iter;
+        _size = size;
         _idx = idx;
         _originalStart = originalStart;
         _originalStartCondition=originalStartCondition;
@@ -0,0 +1,112 @@
+/*
+ * Copyright (c) 2008-2016, GigaSpaces Technologies, Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.j_spaces.core.cache;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Cardinality statistics of an ordered index, maintained incrementally as values are inserted and
+ * removed.
+ * <p>
+ * Besides the number of indexed (non null) values the statistics keep a fixed size reservoir
+ * sample of the values, which serves as an equi-depth histogram when estimating the number of
+ * entries in a range. Values which are removed are not taken out of the sample, instead the
+ * reservoir is aged when the number of sampled inserts grows well beyond the number of live
+ * values, so recent inserts gradually replace stale samples.
+ *
+ * @since 16.0
+ */
+@com.gigaspaces.api.InternalApi
+public class IndexStatistics {
+    public static final int SAMPLE_SIZE = 512;
+
+    private final LongAdder _values = new LongAdder();
+    private final AtomicLong _sampledInserts = new AtomicLong();
+    private final AtomicReferenceArray<Object> _sample = new AtomicReferenceArray<Object>(SAMPLE_SIZE);
+
+    public void onInsert(Object value) {
+        _values.increment();
+        long seen = _sampledInserts.incrementAndGet();
+        if (seen <= SAMPLE_SIZE) {
+            _sample.set((int) (seen - 1), value);
+            return;
+        }
+        long slot = ThreadLocalRandom.current().nextLong(seen);
+        if (slot < SAMPLE_SIZE)
+            _sample.set((int) slot, value);
+        long live = _values.sum();
+        if (seen > 2 * live + SAMPLE_SIZE)
+            _sampledInserts.compareAndSet(seen, Math.max(live, SAMPLE_SIZE));
+    }
+
+    public void onRemove(Object value) {
+        _values.decrement();
+    }
+
+    /**
+     * @return the number of non null values in the index
+     */
+    public long getNumOfValues() {
+        return Math.max(0, _values.sum());
+    }
+
+    /**
+     * Estimates the number of entries whose value is within the given range, a null bound means the
+     * range is unbounded on that side.
+     *
+     * @return the estimated number of entries, or -1 if it can't be estimated
+     */
+    public long estimateRange(Object low, boolean lowInclusive, Object high, boolean highInclusive) {
+        long values = getNumOfValues();
+        if (values == 0)
+            return 0;
+        int sampled = (int) Math.min(_sampledInserts.get(), SAMPLE_SIZE);
+        int matching = 0;
+        try {
+            for (int i = 0; i < sampled; i++) {
+                Object value = _sample.get(i);
+                if (value != null && inRange((Comparable) value, low, lowInclusive, high, highInclusive))
+                    matching++;
+            }
+        } catch (ClassCastException e) {
+            return -1;
+        }
+        if (sampled == 0)
+            return -1;
+        //no sample in range - the range holds less than one sample worth of values
+        if (matching == 0)
+            return values / (sampled + 1);
+        return (long) Math.ceil((double) values * matching / sampled);
+    }
+
+    private static boolean inRange(Comparable value, Object low, boolean lowInclusive, Object high, boolean highInclusive) {
+        if (low != null) {
+            int c = value.compareTo(low);
+            if (c < 0 || (c == 0 && !lowInclusive))
+                return false;
+        }
+        if (high != null) {
+            int c = value.compareTo(high);
+            if (c > 0 || (c == 0 && !highInclusive))
+                return false;
+        }
+        return true;
+    }
+}
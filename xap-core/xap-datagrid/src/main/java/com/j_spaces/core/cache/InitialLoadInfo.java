@@ -22,6 +22,7 @@ import com.gigaspaces.time.SystemTime;
 import com.j_spaces.core.cache.blobStore.sadapter.BlobStoreFifoInitialLoader;
 
 import java.util.LinkedList;
+import java.util.concurrent.atomic.AtomicLong;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -45,6 +46,10 @@ public class InitialLoadInfo {
     private final long _recoveryLogInterval;
 
     private final LinkedList<String> _initialLoadErrors;
+    //time spent inserting entries to the type indexes, may be updated by several loading threads
+    private final AtomicLong _indexingTimeNanos = new AtomicLong();
+    //time spent building the deferred indexes once the entries were inserted
+    private long _indexBuildTimeNanos;
 
     private volatile BlobStoreFifoInitialLoader _blobStoreFifoInitialLoader;  //used in off heap
     private IServerTypeDesc _curDesc; //used in off heap
@@ -132,6 +137,22 @@ public class InitialLoadInfo {
         this._curTypeData = _curTypeData;
     }
 
+    public void addIndexingTime(long nanos) {
+        _indexingTimeNanos.addAndGet(nanos);
+    }
+
+    public long getIndexingTimeNanos() {
+        return _indexingTimeNanos.get();
+    }
+
+    public long getIndexBuildTimeNanos() {
+        return _indexBuildTimeNanos;
+    }
+
+    public void setIndexBuildTimeNanos(long nanos) {
+        _indexBuildTimeNanos = nanos;
+    }
+
     public LinkedList<String> getInitialLoadErrors() {
         return _initialLoadErrors;
     }
@@ -0,0 +1,73 @@
+/*
+ * Copyright (c) 2008-2016, GigaSpaces Technologies, Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.j_spaces.core.cache;
+
+import com.gigaspaces.internal.backport.java.util.concurrent.FastConcurrentSkipListMap;
+import com.gigaspaces.internal.utils.collections.OffHeapOrderedConcurrentMap;
+import com.j_spaces.kernel.IStoredList;
+
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Extended index handler whose ordered store is kept in native memory, see {@link
+ * OffHeapOrderedConcurrentMap}. Used for ordered indexes of numeric properties which were selected
+ * by {@link com.j_spaces.kernel.SystemProperties#CACHE_MANAGER_OFF_HEAP_ORDERED_INDEXES}.
+ *
+ * @since 16.0
+ */
+@com.gigaspaces.api.InternalApi
+public class OffHeapExtendedIndexHandler<K> extends ExtendedIndexHandler<K> {
+    private final OffHeapOrderedConcurrentMap<IStoredList<IEntryCacheInfo>> _offHeapStore;
+    private final OffHeapOrderedConcurrentMap<IEntryCacheInfo> _uniqueOffHeapStore;
+
+    public OffHeapExtendedIndexHandler(TypeDataIndex index, OffHeapOrderedConcurrentMap.KeyType keyType) {
+        super(index, null /*orderedStore*/);
+        _offHeapStore = new OffHeapOrderedConcurrentMap<IStoredList<IEntryCacheInfo>>(keyType);
+        _uniqueOffHeapStore = index.isUniqueIndex() ? (OffHeapOrderedConcurrentMap<IEntryCacheInfo>) ((OffHeapOrderedConcurrentMap) _offHeapStore) : null;
+    }
+
+    /**
+     * the store is not a skip list, fifo groups indexes which require it are kept on-heap
+     */
+    @Override
+    public FastConcurrentSkipListMap<Object, IStoredList<IEntryCacheInfo>> getOrderedStore() {
+        return null;
+    }
+
+    @Override
+    public ConcurrentMap<Object, IStoredList<IEntryCacheInfo>> getNonUniqueEntriesStore() {
+        return _offHeapStore;
+    }
+
+    @Override
+    public ConcurrentMap<Object, IEntryCacheInfo> getUniqueEntriesStore() {
+        return _uniqueOffHeapStore;
+    }
+
+    @Override
+    public IStoredList<IEntryCacheInfo> getIndexEntries(K indexValue) {
+        return _offHeapStore.get(indexValue);
+    }
+
+    @Override
+    protected ExtendedIndexIterator<IEntryCacheInfo> createScanIterator(Object low, boolean lowInclusive, Object high, boolean highInclusive, boolean descending,
+                                                                        Object originalStart, short originalStartCondition, Object originalEnd, short originalEndCondition) {
+        return new ExtendedIndexIterator<IEntryCacheInfo>(_offHeapStore.valuesIterator(low, lowInclusive, high, highInclusive, descending),
+                _offHeapStore.count(low, lowInclusive, high, highInclusive), getIndex(), originalStart, originalStartCondition, originalEnd, originalEndCondition);
+    }
+}
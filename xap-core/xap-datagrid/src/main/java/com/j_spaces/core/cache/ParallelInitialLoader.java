@@ -0,0 +1,186 @@
+/*
+ * Copyright (c) 2008-2016, GigaSpaces Technologies, Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.j_spaces.core.cache;
+
+import com.gigaspaces.internal.server.metadata.IServerTypeDesc;
+import com.gigaspaces.internal.server.storage.IEntryHolder;
+import com.gigaspaces.internal.utils.concurrent.GSThreadFactory;
+import com.j_spaces.core.cache.context.Context;
+import com.j_spaces.core.sadapter.SAException;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Inserts the entries of the initial load into the cache using several threads.
+ * <p>
+ * The entries are read by a single thread from the storage adapter iterator and dispatched in
+ * batches to the workers, each worker inserts its entries using its own cache context. Entries are
+ * dispatched by uid so a duplicate uid is always handled by the same worker, entries of fifo and
+ * fifo groups types are dispatched by type so they are inserted in the order they were read.
+ *
+ * @since 16.0
+ */
+@com.gigaspaces.api.InternalApi
+public class ParallelInitialLoader {
+    private static final int BATCH_SIZE = 256;
+    private static final int QUEUE_CAPACITY = 16;
+    private static final List<IEntryHolder> END_OF_LOAD = Collections.emptyList();
+
+    private final CacheManager _cacheManager;
+    private final InitialLoadInfo _initialLoadInfo;
+    private final Worker[] _workers;
+    private final List<IEntryHolder>[] _batches;
+    private final AtomicInteger _inserted = new AtomicInteger();
+    private volatile Throwable _failure;
+
+    public ParallelInitialLoader(CacheManager cacheManager, InitialLoadInfo initialLoadInfo, int numOfThreads) {
+        if (numOfThreads < 2)
+            throw new IllegalArgumentException("parallel initial load requires at least 2 threads - " + numOfThreads);
+        _cacheManager = cacheManager;
+        _initialLoadInfo = initialLoadInfo;
+        _workers = new Worker[numOfThreads];
+        _batches = new List[numOfThreads];
+        ThreadFactory threadFactory = GSThreadFactory.daemon("InitialLoad-" + cacheManager.getEngine().getFullSpaceName());
+        for (int i = 0; i < numOfThreads; i++) {
+            _workers[i] = new Worker();
+            _batches[i] = new ArrayList<IEntryHolder>(BATCH_SIZE);
+            threadFactory.newThread(_workers[i]).start();
+        }
+    }
+
+    /**
+     * @return the number of entries which were inserted to the cache so far
+     */
+    public int getInserted() {
+        return _inserted.get();
+    }
+
+    /**
+     * Dispatches the entry to its worker, should be called by a single thread.
+     */
+    public void add(IEntryHolder entryHolder) throws SAException {
+        checkFailure();
+        IServerTypeDesc typeDesc = entryHolder.getServerTypeDesc();
+        boolean ordered = typeDesc.isFifoSupported() || typeDesc.getTypeDesc().getFifoGroupingPropertyPath() != null;
+        int hash = ordered ? typeDesc.getTypeName().hashCode() : entryHolder.getUID().hashCode();
+        int worker = (hash & Integer.MAX_VALUE) % _workers.length;
+        List<IEntryHolder> batch = _batches[worker];
+        batch.add(entryHolder);
+        if (batch.size() == BATCH_SIZE) {
+            _batches[worker] = new ArrayList<IEntryHolder>(BATCH_SIZE);
+            _workers[worker].put(batch);
+        }
+    }
+
+    /**
+     * Waits for all the dispatched entries to be inserted and updates the initial load info.
+     */
+    public void finish() throws SAException {
+        for (int i = 0; i < _workers.length; i++) {
+            if (!_batches[i].isEmpty())
+                _workers[i].put(_batches[i]);
+            _workers[i].put(END_OF_LOAD);
+        }
+        for (Worker worker : _workers) {
+            worker.awaitTermination();
+            _initialLoadInfo.getInitialLoadErrors().addAll(worker._errors);
+        }
+        _initialLoadInfo.setInsertedToCache(_initialLoadInfo.getInsertedToCache() + _inserted.get());
+        checkFailure();
+    }
+
+    private void checkFailure() throws SAException {
+        Throwable failure = _failure;
+        if (failure == null)
+            return;
+        if (failure instanceof SAException)
+            throw (SAException) failure;
+        throw new SAException(failure);
+    }
+
+    private class Worker implements Runnable {
+        private final BlockingQueue<List<IEntryHolder>> _queue = new ArrayBlockingQueue<List<IEntryHolder>>(QUEUE_CAPACITY);
+        private final List<String> _errors = new ArrayList<String>();
+        private volatile boolean _terminated;
+
+        private void put(List<IEntryHolder> batch) throws SAException {
+            try {
+                _queue.put(batch);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new SAException("Interrupted while dispatching initial load entries", e);
+            }
+        }
+
+        @Override
+        public void run() {
+            Context context = _cacheManager.getCacheContext();
+            try {
+                context.setInInitialLoad(true);
+                context.setInitialLoadInfo(_initialLoadInfo);
+                while (true) {
+                    List<IEntryHolder> batch = _queue.take();
+                    if (batch == END_OF_LOAD)
+                        break;
+                    //after a failure keep draining so the dispatcher is never blocked
+                    if (_failure != null)
+                        continue;
+                    try {
+                        insert(context, batch);
+                    } catch (Throwable t) {
+                        _failure = t;
+                    }
+                }
+            } catch (InterruptedException e) {
+                _failure = e;
+            } finally {
+                context.setInInitialLoad(false);
+                _cacheManager.freeCacheContext(context);
+                synchronized (this) {
+                    _terminated = true;
+                    notifyAll();
+                }
+            }
+        }
+
+        private void insert(Context context, List<IEntryHolder> batch) throws SAException {
+            for (IEntryHolder entryHolder : batch) {
+                IEntryCacheInfo result = _cacheManager.safeInsertEntryToCache(context, entryHolder, false /* newEntry */, null /*pType*/, false /*pin*/, CacheManager.InitialLoadOrigin.FROM_NON_BLOBSTORE);
+                if (result != null && result.getEntryHolder(_cacheManager) == entryHolder)
+                    _inserted.incrementAndGet();
+                else if (result != null)
+                    _errors.add("Object with duplicate uid -  [" + entryHolder.getClassName() + ":" + entryHolder.getUID() + "]");
+            }
+        }
+
+        private synchronized void awaitTermination() throws SAException {
+            try {
+                while (!_terminated)
+                    wait();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new SAException("Interrupted while waiting for initial load to complete", e);
+            }
+        }
+    }
+}
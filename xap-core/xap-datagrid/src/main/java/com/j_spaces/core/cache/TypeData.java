@@ -141,6 +141,8 @@ public class TypeData {
     private final boolean _isAutoGeneratedId;
 
     private final boolean _isBlobStoreClass;
+    //ordinals of the entries, kept only if the type has bitmap indexes
+    private final EntryOrdinals _entryOrdinals;
 
     //the following describes the properties taking place in indexes(inc' segments)
     //used in off-heap initial  load of fifo/F-G classes
@@ -208,6 +210,7 @@ public class TypeData {
         HashSet<String> indexesRelatedDynamicProperties = new HashSet<String>();
 
         _isBlobStoreClass = typeDataFactory.getCcheManager().isblobStoreDataSpace() && serverTypeDesc.getTypeDesc().isBlobstoreEnabled();
+        _entryOrdinals = !_isBlobStoreClass && typeDataFactory.hasBitmapIndexes(_className) ? new EntryOrdinals() : null;
 
         if (serverTypeDesc.getTypeDesc().hasSequenceNumber()) {
             if (_cacheManager.isEvictableCachePolicy() && !_cacheManager.isMemorySpace())
@@ -242,7 +245,8 @@ public class TypeData {
                     FifoGroupsIndexTypes fifoGroupingType = getIndexFifoGroupingType(index, fifoGroupingName, fifoGroupingIndexes);
                     if (fifoGroupingType == FifoGroupsIndexTypes.AUXILIARY)
                         anyRequestsForFGCompound = true;
-                    currIndex = typeDataFactory.createTypeDataIndex(_typeDataFactory.getCcheManager(), getInternalIndex(index), i, 0 /*indexCreationNumber*/, property.getType(), fifoGroupingType);
+                    currIndex = typeDataFactory.createTypeDataIndex(_typeDataFactory.getCcheManager(), _className, getInternalIndex(index), i, 0 /*indexCreationNumber*/, property.getType(), fifoGroupingType);
+                    enableBitmapIndex(currIndex, property.getName());
                 } else
                     currIndex = typeDataFactory.createMultiValuePerEntryTypeDataIndex(_typeDataFactory.getCcheManager(), getInternalIndex(index), i, 0 /*indexCreationNumber*/, ((ISpaceIndex) index).getMultiValueIndexType());
 
@@ -457,6 +461,7 @@ public class TypeData {
         _hasInitialIndexes = originalTypeData._hasInitialIndexes;
         _anyInitialExtendedIndex = originalTypeData._anyInitialExtendedIndex;
         _isBlobStoreClass = originalTypeData._isBlobStoreClass;
+        _entryOrdinals = originalTypeData._entryOrdinals;
         boolean[] indexesRelatedFixedProperties = new boolean[originalTypeData._indexesRelatedFixedProperties.length];
         System.arraycopy(originalTypeData._indexesRelatedFixedProperties, 0, indexesRelatedFixedProperties, 0, indexesRelatedFixedProperties.length);
         HashSet<String> indexesRelatedDynamicProperties = new HashSet<String>(originalTypeData._indexesRelatedDynamicProperties);
@@ -498,9 +503,10 @@ public class TypeData {
                                 throw new UnsupportedOperationException("dynamic unique indices not supported type=" + serverTypeDesc.getTypeName() + " index=" + u.getName());
                         }
                         numNewIndexes++;
-                        if (!((ISpaceIndex) index).isMultiValuePerEntryIndex())
-                            currIndex = _typeDataFactory.createTypeDataIndex(_typeDataFactory.getCcheManager(), getInternalIndex(index), i, _lastIndexCreationNumber + numNewIndexes /* index creation #*/, property.getType(), ISpaceIndex.FifoGroupsIndexTypes.NONE);
-                        else
+                        if (!((ISpaceIndex) index).isMultiValuePerEntryIndex()) {
+                            currIndex = _typeDataFactory.createTypeDataIndex(_typeDataFactory.getCcheManager(), _className, getInternalIndex(index), i, _lastIndexCreationNumber + numNewIndexes /* index creation #*/, property.getType(), ISpaceIndex.FifoGroupsIndexTypes.NONE);
+                            enableBitmapIndex(currIndex, property.getName());
+                        } else
                             currIndex = _typeDataFactory.createMultiValuePerEntryTypeDataIndex(_typeDataFactory.getCcheManager(), getInternalIndex(index), i, _lastIndexCreationNumber + numNewIndexes /* index creation #*/, ((ISpaceIndex) index).getMultiValueIndexType());
 
                         if (hasSequenceNumber() && serverTypeDesc.getTypeDesc().getSequenceNumberFixedPropertyID() == i) {//the sequence # is an index too
@@ -933,6 +939,20 @@ public class TypeData {
         return (!_cacheManager.forceSpaceIdIndexIfEqual() && getIdField() == index && !index.isExtendedIndex() && !_isAutoGeneratedId);
     }
 
+    private void enableBitmapIndex(TypeDataIndex index, String propertyName) {
+        if (_entryOrdinals == null || !_typeDataFactory.isBitmapIndex(_className, propertyName))
+            return;
+        if (!index.enableBitmapIndex(_entryOrdinals) && _logger.isWarnEnabled())
+            _logger.warn("Bitmap index is not supported for unique or fifo groups index " + _className + "." + propertyName + ", using only its equality index");
+    }
+
+    /**
+     * @return the ordinals of the entries of this type, or null if the type has no bitmap indexes
+     */
+    public EntryOrdinals getEntryOrdinals() {
+        return _entryOrdinals;
+    }
+
     public boolean isBlobStoreClass() {
         return _isBlobStoreClass;
     }
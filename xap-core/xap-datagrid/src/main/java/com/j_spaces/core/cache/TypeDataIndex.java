@@ -31,6 +31,8 @@ import com.gigaspaces.internal.server.storage.IEntryData;
 import com.gigaspaces.internal.server.storage.IEntryHolder;
 import com.gigaspaces.internal.server.storage.ShadowEntryHolder;
 import com.gigaspaces.internal.utils.StringUtils;
+import com.gigaspaces.internal.utils.collections.OffHeapOrderedConcurrentMap;
+import com.gigaspaces.internal.utils.collections.PrimitiveKeyConcurrentHashMap;
 import com.gigaspaces.internal.utils.collections.economy.EconomyConcurrentHashMap;
 import com.gigaspaces.internal.utils.collections.economy.HashEntryHandlerSpaceEntry;
 import com.gigaspaces.internal.utils.collections.economy.IEconomyConcurrentMap;
@@ -68,6 +70,9 @@ public class TypeDataIndex<K> {
     //the percentage of unique values- above it we try "put" of raw value first
     private static final int UNIQUE_VALUE_TRY_THRESHOLD = 40;
 
+    private static final boolean USE_PRIMITIVE_KEY_STORES = Boolean.parseBoolean(System.getProperty(SystemProperties.CACHE_MANAGER_PRIMITIVE_KEY_INDEX_STORES, SystemProperties.CACHE_MANAGER_PRIMITIVE_KEY_INDEX_STORES_DEFAULT));
+    private static final boolean USE_INDEX_STATISTICS = Boolean.parseBoolean(System.getProperty(SystemProperties.CACHE_MANAGER_INDEX_STATISTICS, SystemProperties.CACHE_MANAGER_INDEX_STATISTICS_DEFAULT));
+
 
     private final int _position;
     private final SpaceIndexType _indexType;
@@ -98,6 +103,10 @@ public class TypeDataIndex<K> {
     //concurrent implementation
     private final IExtendedEntriesIndex<K, IEntryCacheInfo> _concurrentExtendedIndex;
     private final IExtendedEntriesIndex<K, IEntryCacheInfo> _concurrentExtendedFifoGroupsIndex;
+    //cardinality statistics of ordered indexes, used to estimate the cost of range scans
+    private final IndexStatistics _statistics;
+    //secondary bitmap index of a low cardinality property, set when the type data is built
+    private BitmapIndex _bitmapIndex;
 
     protected boolean m_AreAnyLogicallDelitions;
 
@@ -119,6 +128,8 @@ public class TypeDataIndex<K> {
     private int _estimatedUniqueNonNullValues;
 
     private final boolean _useEconomyHashMap;
+    //hash stores are keyed by unboxed numeric values
+    private final boolean _primitiveKeyStores;
 
     private Class<?> _valueType;
 
@@ -157,9 +168,17 @@ public class TypeDataIndex<K> {
     }
 
     public TypeDataIndex(CacheManager cacheManager, ISpaceIndex index, int pos, boolean useEconomyHashmap, int indexCreationNumber, Class<?> valueClass, ISpaceIndex.FifoGroupsIndexTypes fifoGroupsIndexType) {
+        this(cacheManager, index, pos, useEconomyHashmap, indexCreationNumber, valueClass, fifoGroupsIndexType, false);
+    }
+
+    /**
+     * @param offHeapOrderedIndex whether the ordered store of the index should be kept in native
+     *                            memory, applies only to numeric properties which are not used for
+     *                            fifo groups
+     */
+    public TypeDataIndex(CacheManager cacheManager, ISpaceIndex index, int pos, boolean useEconomyHashmap, int indexCreationNumber, Class<?> valueClass, ISpaceIndex.FifoGroupsIndexTypes fifoGroupsIndexType, boolean offHeapOrderedIndex) {
         this._logger = LoggerFactory.getLogger(com.gigaspaces.logger.Constants.LOGGER_CACHE + "." + cacheManager.getEngine().getSpaceImpl().getNodeName());
         _cacheManager = cacheManager;
-        _useEconomyHashMap = useEconomyHashmap;
         _indexCreationNumber = indexCreationNumber;
 
         this._position = pos;
@@ -169,7 +188,15 @@ public class TypeDataIndex<K> {
         _unique = index.isUnique();
         int numOfCHMSegents = Integer.getInteger(SystemProperties.CACHE_MANAGER_HASHMAP_SEGMENTS, SystemProperties.CACHE_MANAGER_HASHMAP_SEGMENTS_DEFAULT);
 
-        if (!_thinExtendedIndex) {
+        PrimitiveKeyConcurrentHashMap.KeyType primitiveKeyType = USE_PRIMITIVE_KEY_STORES ? PrimitiveKeyConcurrentHashMap.KeyType.fromClass(valueClass) : null;
+        _primitiveKeyStores = !_thinExtendedIndex && primitiveKeyType != null;
+        //primitive keyed stores keep their keys, so there's no need for the economy hash map
+        _useEconomyHashMap = useEconomyHashmap && !_primitiveKeyStores;
+        if (_primitiveKeyStores) {
+            //numeric keys are kept unboxed, lookups do not allocate
+            this._uniqueEntriesStore = index.isUnique() ? new PrimitiveKeyConcurrentHashMap<IEntryCacheInfo>(primitiveKeyType, 16, numOfCHMSegents) : null;
+            this._nonUniqueEntriesStore = new PrimitiveKeyConcurrentHashMap<IStoredList<IEntryCacheInfo>>(primitiveKeyType, 16, numOfCHMSegents);
+        } else if (!_thinExtendedIndex) {
             if (_useEconomyHashMap) {
                 this._uniqueEntriesStore = index.isUnique() ? new EconomyConcurrentHashMap<Object, IEntryCacheInfo>(16, 0.75f, numOfCHMSegents, new HashEntryHandlerSpaceEntry(pos)) : null;
                 this._nonUniqueEntriesStore = new EconomyConcurrentHashMap<Object, IStoredList<IEntryCacheInfo>>(16, 0.75f, numOfCHMSegents, new HashEntryHandlerSpaceEntry<Object>(pos));
@@ -190,7 +217,7 @@ public class TypeDataIndex<K> {
         _NNullTemplates = StoredListFactory.createConcurrentSegmentedList(true/* supportFifoPerSegment*/,1 /* inputNumOfSegments*/,true /* padded*/);
 
         if (_indexType.isOrdered()) {
-            _concurrentExtendedIndex = new ExtendedIndexHandler<K>(this);
+            _concurrentExtendedIndex = createExtendedIndex(offHeapOrderedIndex, valueClass, fifoGroupsIndexType);
 
             m_Notify_GT_Index = new TemplatesExtendedIndexHandler<K>(this);
             m_RT_GT_Index = new TemplatesExtendedIndexHandler<K>(this);
@@ -217,6 +244,7 @@ public class TypeDataIndex<K> {
             _concurrentExtendedFifoGroupsIndex = new FifoGroupsExtendedIndexHandler(this, _concurrentExtendedIndex, fifoGroupsIndexType);
         else
             _concurrentExtendedFifoGroupsIndex = null;
+        _statistics = _concurrentExtendedIndex != null && USE_INDEX_STATISTICS ? new IndexStatistics() : null;
 
         String val = System.getProperty(SystemProperties.CACHE_MANAGER_EMBEDDED_INDEX_PROTECTION);
         boolean embeddedIndexProtection = new Boolean(val != null ? val : SystemProperties.CACHE_MANAGER_EMBEDDED_INDEX_PROTECTION_DEFAULT);
@@ -251,6 +279,33 @@ public class TypeDataIndex<K> {
         return _concurrentExtendedIndex;
     }
 
+    /**
+     * @return the cardinality statistics of the index, or null if the index is not ordered
+     */
+    public IndexStatistics getStatistics() {
+        return _statistics;
+    }
+
+    /**
+     * @return the bitmap index of the property, or null if it has none
+     */
+    public BitmapIndex getBitmapIndex() {
+        return _bitmapIndex;
+    }
+
+    /**
+     * Keeps a bitmap index in addition to the equality index, should be called before any entry
+     * is inserted to the index.
+     *
+     * @return false if a bitmap index is not supported for this index
+     */
+    boolean enableBitmapIndex(EntryOrdinals ordinals) {
+        if (getClass() != TypeDataIndex.class || isUniqueIndex() || _fifoGroupsIndexType != ISpaceIndex.FifoGroupsIndexTypes.NONE)
+            return false;
+        _bitmapIndex = new BitmapIndex(ordinals);
+        return true;
+    }
+
     public IExtendedEntriesIndex<K, IEntryCacheInfo> getExtendedFGIndex() {
         return _concurrentExtendedFifoGroupsIndex;
     }
@@ -289,6 +344,18 @@ public class TypeDataIndex<K> {
         return _thinExtendedIndex;
     }
 
+    private IExtendedEntriesIndex<K, IEntryCacheInfo> createExtendedIndex(boolean offHeapOrderedIndex, Class<?> valueClass, ISpaceIndex.FifoGroupsIndexTypes fifoGroupsIndexType) {
+        if (!offHeapOrderedIndex)
+            return new ExtendedIndexHandler<K>(this);
+        OffHeapOrderedConcurrentMap.KeyType keyType = OffHeapOrderedConcurrentMap.KeyType.fromClass(valueClass);
+        if (keyType == null || fifoGroupsIndexType != ISpaceIndex.FifoGroupsIndexTypes.NONE) {
+            if (_logger.isWarnEnabled())
+                _logger.warn("Off-heap ordered index is supported only for numeric properties which are not used by fifo groups, using on-heap ordered index for " + _indexDefinition.getName());
+            return new ExtendedIndexHandler<K>(this);
+        }
+        return new OffHeapExtendedIndexHandler<K>(this, keyType);
+    }
+
     public boolean isFifoGroupsMainIndex() {
         return _fifoGroupsIndexType == ISpaceIndex.FifoGroupsIndexTypes.MAIN;
     }
@@ -508,6 +575,10 @@ public class TypeDataIndex<K> {
                 markIndexValue(uniqueValue);
             if (backRefs != null)
                 backRefs.add(isUniqueIndex() ? pEntry : oi);
+            if (_statistics != null)
+                _statistics.onInsert(fieldValue);
+            if (_bitmapIndex != null)
+                _bitmapIndex.insert(fieldValue, pEntry);
 
 
             if (isExtendedIndex()) {
@@ -706,6 +777,10 @@ public class TypeDataIndex<K> {
                                     ArrayList<IObjectInfo<IEntryCacheInfo>> deletedBackRefs,
                                     K fieldValue, final int refpos, IEntryCacheInfo pEntry,
                                     IObjectInfo oi, boolean fromFailure) {
+        if (_statistics != null)
+            _statistics.onRemove(fieldValue);
+        if (_bitmapIndex != null)
+            _bitmapIndex.remove(fieldValue, pEntry);
         if (isUniqueIndex() /*&& oi == pEntry TBD open-up when unique index is a general feature*/) {
             removeUniqueIndexedField(fieldValue, pEntry);
         } else {
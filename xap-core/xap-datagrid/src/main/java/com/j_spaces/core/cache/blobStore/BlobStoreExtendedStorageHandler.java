@@ -20,7 +20,6 @@ package com.j_spaces.core.cache.blobStore;
 import com.gigaspaces.datasource.DataIterator;
 import com.gigaspaces.server.blobstore.*;
 import com.j_spaces.core.cache.blobStore.memory_pool.AbstractMemoryPool;
-import com.j_spaces.core.cache.blobStore.memory_pool.OffHeapMemoryPool;
 
 import java.util.ArrayList;
 import java.util.List;
@@ -208,7 +207,7 @@ public abstract class BlobStoreExtendedStorageHandler {
      */
     public abstract DataIterator<BlobStoreGetBulkOperationResult> initialLoadIterator();
 
-    public abstract OffHeapMemoryPool getOffHeapCache();
+    public abstract AbstractMemoryPool getOffHeapCache();
 
     public abstract AbstractMemoryPool getOffHeapStore();
 
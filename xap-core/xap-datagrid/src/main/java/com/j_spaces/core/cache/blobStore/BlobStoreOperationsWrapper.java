@@ -28,6 +28,7 @@ import com.j_spaces.core.cache.CacheManager;
 import com.j_spaces.core.cache.blobStore.memory_pool.AbstractMemoryPool;
 import com.j_spaces.core.cache.blobStore.offheap.OffHeapStorageContainer;
 import com.j_spaces.core.cache.blobStore.memory_pool.OffHeapMemoryPool;
+import com.j_spaces.core.cache.blobStore.memory_pool.SlabMemoryPool;
 import com.j_spaces.kernel.threadpool.DynamicExecutors;
 
 import java.util.List;
@@ -52,7 +53,7 @@ public class BlobStoreOperationsWrapper extends BlobStoreExtendedStorageHandler
     private final BlobStoreStorageHandler _blobStore;
     private final BlobStoreSerializationUtils _serialization;
     private final boolean _needSerialization;
-    private final OffHeapMemoryPool _offHeapCache;
+    private final AbstractMemoryPool _offHeapCache;
     private final boolean _isOffHeap;
     private final AbstractMemoryPool _offHeapStore;
 
@@ -81,7 +82,7 @@ public class BlobStoreOperationsWrapper extends BlobStoreExtendedStorageHandler
         //TODO: some properties are only set after initialize , here we ONLY use 'off-heap-cache-memory-threshold' property
         Properties p = _blobStore.getProperties();
         String offHeapThreshold = p != null ? p.getProperty("off-heap-cache-memory-threshold") : null;
-        _offHeapCache = offHeapThreshold == null ? null :new OffHeapMemoryPool(StringUtils.parseStringAsBytes(offHeapThreshold));
+        _offHeapCache = offHeapThreshold == null ? null : createOffHeapCache(StringUtils.parseStringAsBytes(offHeapThreshold), p.getProperty("off-heap-cache-allocator"));
         //Validate _offHeapStore and _offHeapCache are mutually exclusive
         if(_offHeapCache != null && _offHeapStore != null){
             throw new RuntimeException("Configuration exception: can not enable off heap optimization when running with off-heap-blob-store configuration");
@@ -91,8 +92,18 @@ public class BlobStoreOperationsWrapper extends BlobStoreExtendedStorageHandler
         }
     }
 
+    private static AbstractMemoryPool createOffHeapCache(long threshold, String allocator) {
+        if (allocator == null)
+            allocator = System.getProperty(Constants.CacheManager.BLOBSTORE_OFF_HEAP_ALLOCATOR_PROP, Constants.CacheManager.BLOBSTORE_OFF_HEAP_ALLOCATOR_DEFAULT);
+        if (allocator.equalsIgnoreCase("slab"))
+            return new SlabMemoryPool(threshold);
+        if (allocator.equalsIgnoreCase("malloc"))
+            return new OffHeapMemoryPool(threshold);
+        throw new RuntimeException("Configuration exception: unknown off heap allocator '" + allocator + "', expected 'malloc' or 'slab'");
+    }
+
     @Override
-    public OffHeapMemoryPool getOffHeapCache() {
+    public AbstractMemoryPool getOffHeapCache() {
         return _offHeapCache;
     }
 
@@ -0,0 +1,507 @@
+/*
+ * Copyright (c) 2008-2016, GigaSpaces Technologies, Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+//
+
+package com.j_spaces.core.cache.blobStore.memory_pool;
+
+import com.gigaspaces.internal.utils.concurrent.UnsafeHolder;
+import com.gigaspaces.metrics.Gauge;
+import com.gigaspaces.metrics.LongCounter;
+import com.gigaspaces.metrics.MetricRegistrator;
+import com.j_spaces.core.cache.blobStore.BlobStoreRefEntryCacheInfo;
+import com.j_spaces.core.cache.blobStore.IBlobStoreOffHeapInfo;
+import com.j_spaces.kernel.SystemProperties;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.lang.ref.WeakReference;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * An off-heap memory pool which carves large pre-reserved native chunks into fixed size slots,
+ * instead of calling malloc/realloc for each entry.
+ * <p>
+ * Slots are grouped into size classes (four classes per power of two, up to {@link
+ * #MAX_SLOT_SIZE}), larger buffers are allocated directly. Freed slots are kept in per-thread
+ * magazines, full magazines are exchanged through a lock-free per-class depot, so allocation and
+ * release are constant time and lock free except when a new chunk is reserved. Before a new chunk
+ * is reserved, the free slots held by the magazines of threads which already ended are returned to
+ * the depot, so thread churn does not strand free slots. Used bytes are the exact slot bytes held by
+ * entries, and utilization and fragmentation are reported per class.
+ *
+ * @since 16.0
+ */
+public class SlabMemoryPool extends AbstractMemoryPool {
+
+    static final int HEADER_SIZE = 8;
+    static final int MIN_SLOT_SIZE = 16;
+    static final int MAX_SLOT_SIZE = 64 * 1024;
+    private static final int LARGE_CLASS = -1;
+    private static final int MAGAZINE_SIZE = 64;
+
+    private final Logger logger = LoggerFactory.getLogger(com.gigaspaces.logger.Constants.LOGGER_CACHE);
+    private final int chunkSize;
+    private final SizeClass[] classes;
+    private final LongCounter totalCounter = new LongCounter();
+    private final LongCounter largeCounter = new LongCounter();
+    // the addresses of the buffers allocated directly, so they can be freed when the pool is closed
+    private final Set<Long> largeAllocations = ConcurrentHashMap.newKeySet();
+    private final Map<Short, LongCounter> typesCounters = new ConcurrentHashMap<Short, LongCounter>();
+    // the magazines of all threads, so the free slots of ended threads can be reclaimed
+    private final ConcurrentLinkedQueue<ThreadMagazines> threadsMagazines = new ConcurrentLinkedQueue<ThreadMagazines>();
+    private final ThreadLocal<Magazine[]> magazines = new ThreadLocal<Magazine[]>() {
+        @Override
+        protected Magazine[] initialValue() {
+            ThreadMagazines threadMagazines = new ThreadMagazines(Thread.currentThread(), new Magazine[classes.length]);
+            threadsMagazines.add(threadMagazines);
+            return threadMagazines.magazines;
+        }
+    };
+
+    public SlabMemoryPool(long threshold) {
+        this(threshold, Integer.getInteger(SystemProperties.BLOBSTORE_OFF_HEAP_SLAB_CHUNK_SIZE, SystemProperties.BLOBSTORE_OFF_HEAP_SLAB_CHUNK_SIZE_DEFAULT));
+    }
+
+    public SlabMemoryPool(long threshold, int chunkSize) {
+        super(threshold);
+        if (!UnsafeHolder.isAvailable()) {
+            throw new RuntimeException(" unsafe instance could not be obtained");
+        }
+        if (chunkSize < MAX_SLOT_SIZE)
+            throw new IllegalArgumentException("chunk size must be at least " + MAX_SLOT_SIZE + " bytes");
+        this.chunkSize = chunkSize;
+        List<SizeClass> list = new ArrayList<SizeClass>();
+        for (int size = MIN_SLOT_SIZE; size <= MAX_SLOT_SIZE; size = nextSlotSize(size))
+            list.add(new SizeClass(list.size(), size));
+        this.classes = list.toArray(new SizeClass[list.size()]);
+    }
+
+    private static int nextSlotSize(int size) {
+        // four classes between consecutive powers of two keep internal fragmentation under 25%
+        int step = Math.max(Integer.highestOneBit(size) / 4, 4);
+        return size + step;
+    }
+
+    @Override
+    public void initMetrics(MetricRegistrator metricRegistrator) {
+        setMetricRegistrator(metricRegistrator);
+        getMetricRegistrator().register(metricsPath("total"), totalCounter);
+        getMetricRegistrator().register(percent(), new Gauge<Double>() {
+            @Override
+            public Double getValue() {
+                return threshold != 0 ? (double) totalCounter.getCount() / threshold : 0;
+            }
+        });
+        getMetricRegistrator().register(metricRegistrator.toPath("slab", "reserved-bytes"), new Gauge<Long>() {
+            @Override
+            public Long getValue() {
+                return getReservedBytes();
+            }
+        });
+        for (final SizeClass sizeClass : classes) {
+            getMetricRegistrator().register(metricRegistrator.toPath("slab", String.valueOf(sizeClass.slotSize), "utilization"), new Gauge<Double>() {
+                @Override
+                public Double getValue() {
+                    return sizeClass.getUtilization();
+                }
+            });
+            getMetricRegistrator().register(metricRegistrator.toPath("slab", String.valueOf(sizeClass.slotSize), "fragmentation"), new Gauge<Double>() {
+                @Override
+                public Double getValue() {
+                    return sizeClass.getFragmentation();
+                }
+            });
+        }
+    }
+
+    @Override
+    public void register(String typeName, short typeCode) {
+        LongCounter counter = new LongCounter();
+        typesCounters.put(typeCode, counter);
+        getMetricRegistrator().register(metricsPath(typeName), counter);
+    }
+
+    @Override
+    public void unregister(String typeName, short typeCode) {
+        typesCounters.remove(typeCode);
+        getMetricRegistrator().unregisterByPrefix(metricsPath(typeName));
+    }
+
+    @Override
+    public long getUsedBytes() {
+        return totalCounter.getCount();
+    }
+
+    /**
+     * @return the native memory reserved by this pool - all chunks plus directly allocated large
+     * buffers.
+     */
+    public long getReservedBytes() {
+        long result = largeCounter.getCount();
+        for (SizeClass sizeClass : classes)
+            result += sizeClass.reservedBytes.get();
+        return result;
+    }
+
+    @Override
+    public void write(IBlobStoreOffHeapInfo info, byte[] buf) {
+        if (info.getOffHeapAddress() != BlobStoreRefEntryCacheInfo.UNALLOCATED_OFFHEAP_MEMORY) {
+            throw new IllegalStateException("trying to allocateAndWrite when already allocated in off heap");
+        }
+        allocateAndWrite(info, buf);
+    }
+
+    @Override
+    public byte[] get(IBlobStoreOffHeapInfo info) {
+        long address = info.getOffHeapAddress();
+        if (address == BlobStoreRefEntryCacheInfo.UNALLOCATED_OFFHEAP_MEMORY) {
+            throw new IllegalStateException("trying to read from off heap but no address found");
+        }
+        byte[] res = new byte[UnsafeHolder.getInt(address)];
+        UnsafeHolder.copyByteArrayFromMemory(res, address + HEADER_SIZE, res.length);
+        return res;
+    }
+
+    @Override
+    public void update(IBlobStoreOffHeapInfo info, byte[] buf) {
+        long address = info.getOffHeapAddress();
+        if (address == BlobStoreRefEntryCacheInfo.UNALLOCATED_OFFHEAP_MEMORY) {
+            throw new IllegalStateException("trying to update when no off heap memory is allocated");
+        }
+        int classIndex = UnsafeHolder.getInt(address + 4);
+        int newClassIndex = classIndexOf(buf.length + HEADER_SIZE);
+        // the slot is reused as long as the new buffer still belongs to the same size class
+        if (classIndex != LARGE_CLASS && classIndex == newClassIndex) {
+            SizeClass sizeClass = classes[classIndex];
+            sizeClass.payloadBytes.addAndGet(buf.length - UnsafeHolder.getInt(address));
+            UnsafeHolder.putInt(address, buf.length);
+            UnsafeHolder.copyByteArrayToMemory(buf, address + HEADER_SIZE, buf.length);
+            return;
+        }
+        release(info);
+        allocateAndWrite(info, buf);
+    }
+
+    @Override
+    public void delete(IBlobStoreOffHeapInfo info) {
+        if (info.getOffHeapAddress() != BlobStoreRefEntryCacheInfo.UNALLOCATED_OFFHEAP_MEMORY) {
+            release(info);
+            info.setOffHeapAddress(BlobStoreRefEntryCacheInfo.UNALLOCATED_OFFHEAP_MEMORY);
+        }
+    }
+
+    @Override
+    public boolean isPmem() {
+        return false;
+    }
+
+    @Override
+    public boolean isOffHeap() {
+        return true;
+    }
+
+    /**
+     * Releases all reserved chunks and directly allocated buffers - the pool must not be used
+     * afterwards.
+     */
+    @Override
+    public void close() {
+        threadsMagazines.clear();
+        for (SizeClass sizeClass : classes)
+            sizeClass.close();
+        for (Iterator<Long> iterator = largeAllocations.iterator(); iterator.hasNext(); ) {
+            long address = iterator.next();
+            iterator.remove();
+            largeCounter.dec(UnsafeHolder.getInt(address) + HEADER_SIZE);
+            UnsafeHolder.freeFromMemory(address);
+        }
+    }
+
+    int classIndexOf(int slotBytes) {
+        if (slotBytes > MAX_SLOT_SIZE)
+            return LARGE_CLASS;
+        // binary search over the (few dozen) classes
+        int low = 0, high = classes.length - 1;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (classes[mid].slotSize < slotBytes)
+                low = mid + 1;
+            else
+                high = mid;
+        }
+        return low;
+    }
+
+    int getSlotSize(int classIndex) {
+        return classes[classIndex].slotSize;
+    }
+
+    double getUtilization(int classIndex) {
+        return classes[classIndex].getUtilization();
+    }
+
+    double getFragmentation(int classIndex) {
+        return classes[classIndex].getFragmentation();
+    }
+
+    private void allocateAndWrite(IBlobStoreOffHeapInfo info, byte[] buf) {
+        final int slotBytes = buf.length + HEADER_SIZE;
+        final int classIndex = classIndexOf(slotBytes);
+        final long address;
+        final int accounted;
+        if (classIndex == LARGE_CLASS) {
+            address = allocateLarge(slotBytes);
+            accounted = slotBytes;
+            largeCounter.inc(slotBytes);
+            largeAllocations.add(address);
+        } else {
+            SizeClass sizeClass = classes[classIndex];
+            address = allocate(sizeClass);
+            accounted = sizeClass.slotSize;
+            sizeClass.usedSlots.incrementAndGet();
+            sizeClass.payloadBytes.addAndGet(buf.length);
+        }
+        UnsafeHolder.putInt(address, buf.length);
+        UnsafeHolder.putInt(address + 4, classIndex);
+        UnsafeHolder.copyByteArrayToMemory(buf, address + HEADER_SIZE, buf.length);
+        info.setOffHeapAddress(address);
+        incrementMetrics(accounted, info.getServerTypeDescCode());
+    }
+
+    private void release(IBlobStoreOffHeapInfo info) {
+        final long address = info.getOffHeapAddress();
+        final int length = UnsafeHolder.getInt(address);
+        final int classIndex = UnsafeHolder.getInt(address + 4);
+        if (classIndex == LARGE_CLASS) {
+            largeAllocations.remove(address);
+            UnsafeHolder.freeFromMemory(address);
+            largeCounter.dec(length + HEADER_SIZE);
+            decrementMetrics(length + HEADER_SIZE, info.getServerTypeDescCode());
+            return;
+        }
+        SizeClass sizeClass = classes[classIndex];
+        sizeClass.usedSlots.decrementAndGet();
+        sizeClass.payloadBytes.addAndGet(-length);
+        free(sizeClass, address);
+        decrementMetrics(sizeClass.slotSize, info.getServerTypeDescCode());
+    }
+
+    private long allocate(SizeClass sizeClass) {
+        Magazine magazine = magazine(sizeClass);
+        if (magazine.size == 0) {
+            long[] full = sizeClass.depot.poll();
+            // prefer the slots stranded by ended threads over reserving a new chunk
+            if (full == null && sizeClass.isExhausted() && reclaimEndedThreadsMagazines())
+                full = sizeClass.depot.poll();
+            if (full == null)
+                return sizeClass.carve();
+            magazine.slots = full;
+            magazine.size = full.length;
+        }
+        return magazine.slots[--magazine.size];
+    }
+
+    private void free(SizeClass sizeClass, long address) {
+        Magazine magazine = magazine(sizeClass);
+        if (magazine.size == magazine.slots.length) {
+            sizeClass.depot.offer(magazine.slots);
+            magazine.slots = new long[MAGAZINE_SIZE];
+            magazine.size = 0;
+        }
+        magazine.slots[magazine.size++] = address;
+    }
+
+    private Magazine magazine(SizeClass sizeClass) {
+        Magazine[] threadMagazines = magazines.get();
+        Magazine magazine = threadMagazines[sizeClass.index];
+        if (magazine == null) {
+            magazine = new Magazine();
+            threadMagazines[sizeClass.index] = magazine;
+        }
+        return magazine;
+    }
+
+    /**
+     * Moves the free slots held by the magazines of threads which ended to the depots.
+     *
+     * @return true if any slot was moved
+     */
+    synchronized boolean reclaimEndedThreadsMagazines() {
+        boolean reclaimed = false;
+        for (Iterator<ThreadMagazines> iterator = threadsMagazines.iterator(); iterator.hasNext(); ) {
+            ThreadMagazines threadMagazines = iterator.next();
+            // detecting that the thread ended makes its last updates of the magazines visible
+            Thread owner = threadMagazines.owner.get();
+            if (owner != null && owner.isAlive())
+                continue;
+            iterator.remove();
+            for (int i = 0; i < classes.length; i++) {
+                Magazine magazine = threadMagazines.magazines[i];
+                if (magazine != null && magazine.size != 0) {
+                    classes[i].depot.offer(Arrays.copyOf(magazine.slots, magazine.size));
+                    reclaimed = true;
+                }
+            }
+        }
+        return reclaimed;
+    }
+
+    private long allocateLarge(int size) {
+        long address;
+        try {
+            address = UnsafeHolder.allocateMemory(size);
+        } catch (Error e) {
+            logger.error("failed to allocateAndWrite offheap space", e);
+            throw e;
+        }
+        if (address == 0) {
+            logger.error("failed to allocateAndWrite offheap space");
+            throw new RuntimeException("failed to allocateAndWrite offheap space");
+        }
+        return address;
+    }
+
+    private void incrementMetrics(long n, short typeCode) {
+        totalCounter.inc(n);
+        LongCounter typeCounter = typesCounters.get(typeCode);
+        if (typeCounter != null)
+            typeCounter.inc(n);
+    }
+
+    private void decrementMetrics(long n, short typeCode) {
+        totalCounter.dec(n);
+        LongCounter typeCounter = typesCounters.get(typeCode);
+        if (typeCounter != null)
+            typeCounter.dec(n);
+    }
+
+    /**
+     * A thread-confined stack of free slots of a single size class.
+     */
+    private static class Magazine {
+        long[] slots = new long[MAGAZINE_SIZE];
+        int size;
+    }
+
+    /**
+     * The magazines of a single thread, the thread is weakly referenced so it can be collected once
+     * it ended.
+     */
+    private static class ThreadMagazines {
+        final WeakReference<Thread> owner;
+        final Magazine[] magazines;
+
+        ThreadMagazines(Thread owner, Magazine[] magazines) {
+            this.owner = new WeakReference<Thread>(owner);
+            this.magazines = magazines;
+        }
+    }
+
+    private class SizeClass {
+        final int index;
+        final int slotSize;
+        final int slotsPerChunk;
+        final ConcurrentLinkedQueue<long[]> depot = new ConcurrentLinkedQueue<long[]>();
+        final List<Long> chunks = new ArrayList<Long>();
+        final AtomicLong reservedBytes = new AtomicLong();
+        final AtomicLong usedSlots = new AtomicLong();
+        final AtomicLong payloadBytes = new AtomicLong();
+        private volatile Chunk current;
+
+        SizeClass(int index, int slotSize) {
+            this.index = index;
+            this.slotSize = slotSize;
+            this.slotsPerChunk = chunkSize / slotSize;
+        }
+
+        long carve() {
+            while (true) {
+                Chunk chunk = current;
+                if (chunk != null) {
+                    int slot = chunk.nextSlot.getAndIncrement();
+                    if (slot < slotsPerChunk)
+                        return chunk.address + (long) slot * slotSize;
+                }
+                reserveChunk(chunk);
+            }
+        }
+
+        boolean isExhausted() {
+            Chunk chunk = current;
+            return chunk == null || chunk.nextSlot.get() >= slotsPerChunk;
+        }
+
+        private synchronized void reserveChunk(Chunk exhausted) {
+            if (current != exhausted)
+                return;
+            // the magazines of ended threads are pruned as the pool grows, whether or not their slots are needed now
+            reclaimEndedThreadsMagazines();
+            long address;
+            try {
+                address = UnsafeHolder.allocateMemory((long) slotsPerChunk * slotSize);
+            } catch (Error e) {
+                logger.error("failed to reserve offheap slab chunk", e);
+                throw e;
+            }
+            if (address == 0)
+                throw new RuntimeException("failed to reserve offheap slab chunk");
+            chunks.add(address);
+            reservedBytes.addAndGet((long) slotsPerChunk * slotSize);
+            current = new Chunk(address);
+        }
+
+        double getUtilization() {
+            long reserved = reservedBytes.get();
+            return reserved == 0 ? 0 : (double) usedSlots.get() * slotSize / reserved;
+        }
+
+        /**
+         * @return the share of used slot bytes which is not occupied by payload.
+         */
+        double getFragmentation() {
+            long used = usedSlots.get() * slotSize;
+            return used == 0 ? 0 : 1 - (double) (payloadBytes.get() + usedSlots.get() * HEADER_SIZE) / used;
+        }
+
+        synchronized void close() {
+            for (Long chunk : chunks)
+                UnsafeHolder.freeFromMemory(chunk);
+            chunks.clear();
+            reservedBytes.set(0);
+            current = null;
+        }
+    }
+
+    private static class Chunk {
+        final long address;
+        final AtomicInteger nextSlot = new AtomicInteger();
+
+        Chunk(long address) {
+            this.address = address;
+        }
+    }
+}
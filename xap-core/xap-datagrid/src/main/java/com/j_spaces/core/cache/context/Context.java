@@ -45,7 +45,9 @@ import com.j_spaces.core.client.Modifiers;
 import com.j_spaces.core.client.OperationTimeoutException;
 import com.j_spaces.core.fifo.FifoBackgroundRequest;
 import com.j_spaces.core.filters.FilterOperationCodes;
+import com.j_spaces.kernel.IStoredList;
 import com.j_spaces.kernel.list.MultiIntersectedStoredList;
+import com.j_spaces.kernel.list.ScanSingleListIterator;
 import net.jini.core.lease.Lease;
 import net.jini.core.transaction.server.ServerTransaction;
 
@@ -241,6 +243,10 @@ public class Context {
 
     private ViewPropertiesEntryData viewEntryData;
 
+    //scan iterator reused by the scans of single entry operations
+    private ScanSingleListIterator<IEntryCacheInfo> _reusableScanIterator;
+    private boolean _reuseScanIterator;
+
     private boolean _fromClustered;
 
 
@@ -490,6 +496,9 @@ public class Context {
         indexMetricsContext = null;
         _backupOnly=false;
         viewEntryData = null;
+        _reuseScanIterator = false;
+        if (_reusableScanIterator != null)
+            _reusableScanIterator.reuse(null, false);
         _fromClustered = false;
         entryTieredState = null;
         templateTieredState = null;
@@ -1302,6 +1311,28 @@ public class Context {
         }
     }
 
+    /**
+     * Enables reusing the scan iterator of this context for the next scans. Should be set only
+     * while creating a scan which is consumed and released before another scan of this context
+     * is created.
+     */
+    public void setReuseScanIterator(boolean reuseScanIterator) {
+        _reuseScanIterator = reuseScanIterator;
+    }
+
+    /**
+     * @return a scan iterator over the list, reusing the iterator of this context if enabled
+     */
+    public ScanSingleListIterator<IEntryCacheInfo> getScanSingleListIterator(IStoredList<IEntryCacheInfo> list, boolean fifoScan, boolean alternatingThread) {
+        if (!_reuseScanIterator || alternatingThread)
+            return new ScanSingleListIterator<IEntryCacheInfo>(list, fifoScan, alternatingThread);
+        if (_reusableScanIterator == null)
+            _reusableScanIterator = new ScanSingleListIterator<IEntryCacheInfo>(list, fifoScan);
+        else
+            _reusableScanIterator.reuse(list, fifoScan);
+        return _reusableScanIterator;
+    }
+
     public ViewPropertiesEntryData getViewEntryData() {
         return viewEntryData;
     }
@@ -1,13 +1,20 @@
 package com.j_spaces.core.cluster.startup;
 
+import com.gigaspaces.internal.cluster.node.impl.ReplicationSingleOperationType;
 import com.gigaspaces.internal.cluster.node.impl.backlog.globalorder.GlobalOrderDiscardedReplicationPacket;
+import com.gigaspaces.internal.cluster.node.impl.backlog.globalorder.GlobalOrderOperationPacket;
 import com.gigaspaces.internal.cluster.node.impl.packets.IReplicationOrderedPacket;
 import com.gigaspaces.internal.cluster.node.impl.packets.data.IReplicationPacketData;
+import com.gigaspaces.internal.cluster.node.impl.packets.data.IReplicationPacketEntryData;
 import com.gigaspaces.internal.cluster.node.impl.packets.data.IReplicationTransactionalPacketEntryData;
+import com.gigaspaces.internal.cluster.node.impl.packets.data.operations.AbstractReplicationPacketSingleEntryData;
 import com.gigaspaces.internal.cluster.node.impl.packets.data.operations.AbstractTransactionReplicationPacketData;
+import com.gigaspaces.internal.metadata.ITypeDesc;
+import com.gigaspaces.internal.server.storage.IEntryData;
 import com.j_spaces.core.cluster.ReplicationPolicy;
 
 import java.util.ListIterator;
+import java.util.Map;
 
 /**
  * @author Yael Nahon
@@ -57,6 +64,112 @@ public class RedoLogCompactionUtil {
         return new CompactionResult(discardedCount, deletedFromTxns);
     }
 
+    /**
+     * Replaces the update and change packets in the given range which are superseded by the next
+     * operation on the same entry, a full update or a removal, with discarded packets. A target
+     * which did not consume the range yet reaches the same entry state by applying only the
+     * operation that superseded them.
+     * <p>
+     * The packets are scanned backwards from the given scan end, the given iterator should be
+     * positioned after the packet of that key. The packets which follow the range are only read to
+     * find the operations superseding the packets at the end of the range, as are the operations of
+     * the given superseding operations map, which precede them. Only non transactional operations of
+     * non fifo types are discarded, and a transaction operating on an entry keeps all the operations
+     * on it which precede the transaction.
+     *
+     * @param supersedingOperations uid -> whether the next operation on the entry after the scanned
+     *                              packets supersedes the preceding updates, updated by the scan
+     * @return the number of discarded packets
+     */
+    public static CompactionResult compactSupersededUpdates(long from, long to, long scanTo, ListIterator iterator,
+                                                            Map<String, Boolean> supersedingOperations) {
+        long discardedCount = 0;
+
+        while (iterator.hasPrevious()) {
+            IReplicationOrderedPacket current = (IReplicationOrderedPacket) iterator.previous();
+            if (current.getKey() > scanTo) {
+                continue;
+            }
+            if (current.getKey() < from) {
+                break;
+            }
+            IReplicationPacketData<?> data = current.getData();
+            if (!current.isDataPacket() || data == null) {
+                continue;
+            }
+            if (!data.isSingleEntryData() /*is txn packet*/) {
+                for (IReplicationPacketEntryData entryData : data) {
+                    supersedingOperations.put(entryData.getUid(), Boolean.FALSE);
+                }
+                continue;
+            }
+            IReplicationPacketEntryData entryData = data.getSingleEntryData();
+            if (entryData == null || entryData.getUid() == null) {
+                continue;
+            }
+            if (current.getKey() <= to && Boolean.TRUE.equals(supersedingOperations.get(entryData.getUid())) && isSupersedable(current)) {
+                // the operations preceding the discarded one remain superseded by the same operation
+                iterator.set(new GlobalOrderDiscardedReplicationPacket(current.getKey()));
+                discardedCount++;
+                continue;
+            }
+            supersedingOperations.put(entryData.getUid(), isSuperseding(entryData));
+        }
+        return new CompactionResult(discardedCount, 0);
+    }
+
+    /**
+     * Records the operations of the given packet in the given superseding operations map, for the
+     * entries which no preceding packet recorded. The packets are expected in backlog order.
+     *
+     * @see #compactSupersededUpdates(long, long, long, ListIterator, Map)
+     */
+    public static void collectSupersedingOperations(IReplicationOrderedPacket packet, Map<String, Boolean> supersedingOperations) {
+        IReplicationPacketData<?> data = packet.getData();
+        if (!packet.isDataPacket() || data == null) {
+            return;
+        }
+        if (!data.isSingleEntryData() /*is txn packet*/) {
+            for (IReplicationPacketEntryData entryData : data) {
+                if (!supersedingOperations.containsKey(entryData.getUid()))
+                    supersedingOperations.put(entryData.getUid(), Boolean.FALSE);
+            }
+            return;
+        }
+        IReplicationPacketEntryData entryData = data.getSingleEntryData();
+        if (entryData == null || entryData.getUid() == null || supersedingOperations.containsKey(entryData.getUid())) {
+            return;
+        }
+        supersedingOperations.put(entryData.getUid(), isSuperseding(entryData));
+    }
+
+    private static boolean isSupersedable(IReplicationOrderedPacket packet) {
+        if (!(packet instanceof GlobalOrderOperationPacket) || !(packet.getData() instanceof AbstractReplicationPacketSingleEntryData)) {
+            return false;
+        }
+        AbstractReplicationPacketSingleEntryData data = (AbstractReplicationPacketSingleEntryData) packet.getData();
+        if (data.getOperationType() != ReplicationSingleOperationType.UPDATE && data.getOperationType() != ReplicationSingleOperationType.CHANGE) {
+            return false;
+        }
+        if (data.isFromGateway() || data.isBackupOnly()) {
+            return false;
+        }
+        // packets of fifo types, or whose type is not known (e.g. after being swapped), are kept
+        IEntryData entryData = data.getMainEntryData();
+        ITypeDesc typeDesc = entryData != null ? entryData.getSpaceTypeDescriptor() : null;
+        return typeDesc != null && !typeDesc.isFifoSupported();
+    }
+
+    private static Boolean isSuperseding(IReplicationPacketEntryData entryData) {
+        if (entryData.isFromGateway() || entryData.isBackupOnly()) {
+            return Boolean.FALSE;
+        }
+        if (entryData.getOperationType() == ReplicationSingleOperationType.REMOVE_ENTRY) {
+            return Boolean.TRUE;
+        }
+        return entryData.getOperationType() == ReplicationSingleOperationType.UPDATE && entryData.containsFullEntryData();
+    }
+
     public static int compactTxn(ListIterator<IReplicationTransactionalPacketEntryData> iterator) {
         int result = 0;
         while (iterator.hasNext()) {
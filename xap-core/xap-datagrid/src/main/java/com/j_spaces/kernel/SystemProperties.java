@@ -23,6 +23,7 @@ import com.gigaspaces.start.SystemInfo;
 import com.j_spaces.core.Constants;
 import com.j_spaces.core.client.UpdateModifiers;
 
+import java.io.File;
 import java.util.HashMap;
 import java.util.Map;
 
@@ -324,8 +325,39 @@ public class SystemProperties extends CommonSystemProperties {
     public final static String LRMI_CLASSLOADING_EXPORT = LRMI_CLASSLOADING + ".export";
     public final static String LRMI_CLASSLOADING_EXPORT_DEFAULT = "true";
 
+    /**
+     * Set to true in order to let concurrent synchronous invocations share a single multiplexed
+     * connection per end point, with the replies correlated to the requests by request ids.
+     * Multiplexing is negotiated during the connection handshake and is used only if lrmi class
+     * loading import and network filters are disabled on both ends. Defaults to false
+     *
+     * @since 16.0
+     */
+    public final static String LRMI_MULTIPLEXING = "com.gs.transport_protocol.lrmi.multiplexing";
+    public final static boolean LRMI_MULTIPLEXING_DEFAULT = false;
+
+    /**
+     * Maximum number of bytes of idle direct buffers kept by the lrmi direct buffer pool, which is
+     * used to move the bytes of heap buffers to and from the socket channels. A value of 0 disables
+     * the pool. Defaults to 0, which keeps the temporary direct buffers of the JDK
+     *
+     * @since 16.0
+     */
+    public final static String LRMI_DIRECT_BUFFER_POOL_SIZE = "com.gs.transport_protocol.lrmi.direct-buffer-pool.size";
+    public final static long LRMI_DIRECT_BUFFER_POOL_SIZE_DEFAULT = 0;
+
     public final static String LRMI_NETWORK_FILTER_FACTORY = "com.gs.lrmi.filter.factory";
 
+    /**
+     * The compression algorithm of the compression network filter, one of zip, lz4 or deflate.
+     * The lz4 and deflate algorithms store small or incompressible messages as is, and may be
+     * mixed between the ends of a connection, but not with zip. Defaults to zip
+     *
+     * @since 16.0
+     */
+    public final static String LRMI_NETWORK_FILTER_COMPRESSION_ALGO = "com.gs.lrmi.filter.compression.algo";
+    public final static String LRMI_NETWORK_FILTER_COMPRESSION_ALGO_DEFAULT = "zip";
+
     public final static String LRMI_NETWORK_FILTER_FACTORY_ADDRESS_MATCHERS_FILE = "com.gs.lrmi.filter.address-matchers-file";
 
     public final static String LRMI_NETWORK_FILTER_UNWRAP_BUFFER_ALLOCATION_STRATEGY = "com.gs.lrmi.filter.unrap.buffer.allocation.strategy";
@@ -362,6 +394,15 @@ public class SystemProperties extends CommonSystemProperties {
 
     public final static String SMART_EXTERNALIZABLE_ENABLED = "com.gs.smart-externalizable.enabled";
 
+    /**
+     * When enabled the fixed property values of entry packets are written with the layout of their
+     * type, as a bitmap of the non null values followed by the values, instead of as an array of
+     * objects. Defaults to true
+     *
+     * @since 16.0
+     */
+    public final static String ENTRY_PACKET_FIXED_PROPERTIES_LAYOUT_ENABLED = "com.gs.transport_protocol.lrmi.entry-packet.fixed-properties-layout.enabled";
+
     /**
      * Set the maximum used buffer size that may be cached for storage type serialization
      */
@@ -408,6 +449,54 @@ public class SystemProperties extends CommonSystemProperties {
 
     public final static String STORAGE_TYPE_SERIALIZATION_ZIP_IDEMPOTENT = "com.gs.client.storage-type-serialization.zip.idempotent";
 
+    /**
+     * The maximal number of entries kept by the near cache of a remote space proxy, which serves
+     * reads by id from the client and is invalidated by notifications of the space. A value of 0
+     * disables the near cache. Defaults to 0
+     *
+     * @since 16.0
+     */
+    public final static String NEAR_CACHE_MAX_ENTRIES = "com.gs.client.near-cache.max-entries";
+    public final static int NEAR_CACHE_MAX_ENTRIES_DEFAULT = 0;
+
+    /**
+     * The time in milliseconds after which an entry of the near cache is read from the space again,
+     * which bounds the staleness of entries whose invalidation was lost, for example while the
+     * client was disconnected. A value of 0 disables the limit. Defaults to 60000
+     *
+     * @since 16.0
+     */
+    public final static String NEAR_CACHE_MAX_AGE = "com.gs.client.near-cache.max-age";
+    public final static long NEAR_CACHE_MAX_AGE_DEFAULT = 60000;
+
+    /**
+     * The maximal number of oneway writes of a remote space proxy which are grouped by their target
+     * partition and sent together as a single write multiple operation. A value of 0 or 1 disables
+     * the batching. Defaults to 0
+     *
+     * @since 16.0
+     */
+    public final static String ONEWAY_WRITE_BATCH_SIZE = "com.gs.client.oneway-write.batch-size";
+    public final static int ONEWAY_WRITE_BATCH_SIZE_DEFAULT = 0;
+
+    /**
+     * The time in milliseconds a batch of oneway writes waits for more writes before it is sent.
+     * Defaults to 5
+     *
+     * @since 16.0
+     */
+    public final static String ONEWAY_WRITE_BATCH_LINGER = "com.gs.client.oneway-write.batch-linger";
+    public final static long ONEWAY_WRITE_BATCH_LINGER_DEFAULT = 5;
+
+    /**
+     * The maximal number of batched oneway writes which were not sent yet, beyond which oneway
+     * writes wait for pending batches to be sent. Defaults to 10000
+     *
+     * @since 16.0
+     */
+    public final static String ONEWAY_WRITE_BATCH_MAX_PENDING = "com.gs.client.oneway-write.batch-max-pending";
+    public final static int ONEWAY_WRITE_BATCH_MAX_PENDING_DEFAULT = 10000;
+
     public static final String AES_PASSPHRASE = "com.gs.property-storage.aes.passphrase";
     public static final String AES_PASSPHRASE_PATH = "com.gs.property-storage.aes.passphrase-path";
     public static final String AES_KEY_LENGTH = "com.gs.property-storage.aes.key-length";
@@ -703,6 +792,37 @@ public class SystemProperties extends CommonSystemProperties {
      */
     public final static int CACHE_MANAGER_HASHMAP_SEGMENTS_DEFAULT = 64;
 
+    /**
+     * Whether equality indexes of numeric properties (long, int, double etc.) keep their values
+     * unboxed in primitive keyed hash stores. Disabled by default.
+     */
+    public final static String CACHE_MANAGER_PRIMITIVE_KEY_INDEX_STORES = "com.gs.cacheManager.primitiveKeyIndexStores";
+
+    public final static String CACHE_MANAGER_PRIMITIVE_KEY_INDEX_STORES_DEFAULT = "false";
+
+    /**
+     * Comma separated list of <code>typeName.propertyName</code> ordered indexes of numeric
+     * properties whose ordered store is kept in native memory instead of an on-heap skip list.
+     */
+    public final static String CACHE_MANAGER_OFF_HEAP_ORDERED_INDEXES = "com.gs.cacheManager.offHeapOrderedIndexes";
+
+    /**
+     * Whether ordered indexes keep cardinality statistics which are used to estimate the cost of
+     * range scans when choosing between indexes.
+     */
+    public final static String CACHE_MANAGER_INDEX_STATISTICS = "com.gs.cacheManager.indexStatistics";
+
+    public final static String CACHE_MANAGER_INDEX_STATISTICS_DEFAULT = "true";
+
+    /**
+     * Comma separated list of <code>typeName.propertyName</code> equality indexes of low
+     * cardinality properties which keep a secondary bitmap index, used to resolve conditions on
+     * several such properties by bitmap intersection and union. Empty by default.
+     */
+    public final static String CACHE_MANAGER_BITMAP_INDEXES = "com.gs.cacheManager.bitmapIndexes";
+
+    public final static String CACHE_MANAGER_BITMAP_INDEXES_DEFAULT = "";
+
     /**
      * The timeout that a caller to the lease manager reaper force cycle is ready to wait for the
      * cycle to be completed
@@ -770,12 +890,90 @@ public class SystemProperties extends CommonSystemProperties {
     public static final String USE_BLOBSTORE_EMBEDDED_SYNC_LIST = "com.gs.blobstore.use_embedded_sync_list";
     public static final String USE_BLOBSTORE_EMBEDDED_SYNC_LIST_DEFAULT = "true";
 
+    /**
+     * The directory of the segment files of the mapped segment blob store storage handler, by
+     * default the <code>xap-blobstore</code> directory under the temporary directory.
+     */
+    public static final String BLOBSTORE_MAPPED_PATH = "com.gs.blobstore.mapped.path";
+    public static final String BLOBSTORE_MAPPED_PATH_DEFAULT = new File(System.getProperty("java.io.tmpdir"), "xap-blobstore").getPath();
+
+    /**
+     * The size in bytes of each segment file of the mapped segment blob store storage handler.
+     */
+    public static final String BLOBSTORE_MAPPED_SEGMENT_SIZE = "com.gs.blobstore.mapped.segment-size";
+    public static final int BLOBSTORE_MAPPED_SEGMENT_SIZE_DEFAULT = 64 * 1024 * 1024;
+
+    /**
+     * The share of superseded records above which a sealed segment of the mapped segment blob
+     * store storage handler is compacted.
+     */
+    public static final String BLOBSTORE_MAPPED_COMPACTION_THRESHOLD = "com.gs.blobstore.mapped.compaction-threshold";
+    public static final String BLOBSTORE_MAPPED_COMPACTION_THRESHOLD_DEFAULT = "0.5";
+
+    /**
+     * The interval in milliseconds between compaction cycles of the mapped segment blob store
+     * storage handler.
+     */
+    public static final String BLOBSTORE_MAPPED_COMPACTION_INTERVAL = "com.gs.blobstore.mapped.compaction-interval";
+    public static final long BLOBSTORE_MAPPED_COMPACTION_INTERVAL_DEFAULT = 10000;
+
+    /**
+     * Whether the mapped segment blob store storage handler forces each write, and each bulk once,
+     * to the disk before returning. Disabled by default.
+     */
+    public static final String BLOBSTORE_MAPPED_FORCE_WRITES = "com.gs.blobstore.mapped.force-writes";
+    public static final String BLOBSTORE_MAPPED_FORCE_WRITES_DEFAULT = "false";
+
+    /**
+     * The size in bytes of the native memory chunks the slab off-heap memory pool carves into
+     * slots of its size classes, must be at least the size of the largest slot.
+     */
+    public static final String BLOBSTORE_OFF_HEAP_SLAB_CHUNK_SIZE = "com.gs.offheap.slab.chunk-size";
+    public static final int BLOBSTORE_OFF_HEAP_SLAB_CHUNK_SIZE_DEFAULT = 1024 * 1024;
+
     public static final String REPLICATION_USE_BLOBSTORE_SYNC_LIST = "com.gs.replication.blobstore.use_sync_list";
     public static final String REPLICATION_USE_BLOBSTORE_SYNC_LIST_DEFAULT = "true";
 
     public static final String REPLICATION_USE_BACKUP_BLOBSTORE_BULKS = "com.gs.replication.blobstore.use_backup_bulks";
     public static final String REPLICATION_USE_BACKUP_BLOBSTORE_BULKS_DEFAULT = "true";
 
+    /**
+     * Whether the appends of concurrent producers to a replication backlog are performed in batches
+     * under a single acquisition of the backlog write lock. Disabled by default.
+     */
+    public static final String REPLICATION_BACKLOG_COMBINING_APPEND = "com.gs.replication.backlog.combining-append";
+    public static final String REPLICATION_BACKLOG_COMBINING_APPEND_DEFAULT = "false";
+
+    /**
+     * The maximal number of batches a synchronous replication channel dispatches to its target
+     * without waiting for their results, 0 (default) disables the pipelining. A caller which finds
+     * the window full is blocked until the result of an in flight batch is received, a warning is
+     * logged each time the wait exceeds {@link #REPLICATION_SYNC_PIPELINE_WINDOW_TIMEOUT}.
+     */
+    public static final String REPLICATION_SYNC_PIPELINE_WINDOW = "com.gs.replication.sync.pipeline-window";
+    public static final int REPLICATION_SYNC_PIPELINE_WINDOW_DEFAULT = 0;
+
+    /**
+     * The time in milliseconds a caller waits for a slot of the synchronous replication pipeline
+     * window before logging a warning and waiting again.
+     */
+    public static final String REPLICATION_SYNC_PIPELINE_WINDOW_TIMEOUT = "com.gs.replication.sync.pipeline-window.timeout";
+    public static final long REPLICATION_SYNC_PIPELINE_WINDOW_TIMEOUT_DEFAULT = 10000;
+
+    /**
+     * The storage of the swapped packets of a replication backlog, <code>raf</code> (default) for a
+     * random access file or <code>mmap</code> for memory mapped files.
+     */
+    public static final String REPLICATION_SWAP_STORAGE = "com.gs.replication.swap.storage";
+    public static final String REPLICATION_SWAP_STORAGE_DEFAULT = "raf";
+
+    /**
+     * Whether regions of the memory mapped swap storage of a replication backlog are forced to the
+     * disk in the background once filled. Disabled by default.
+     */
+    public static final String REPLICATION_SWAP_MMAP_ASYNC_FORCE = "com.gs.replication.swap.mmap.async-force";
+    public static final String REPLICATION_SWAP_MMAP_ASYNC_FORCE_DEFAULT = "false";
+
     public static final String DIRECT_PERSISTENCY_RECOVER_RETRIES = "com.gs.direct_persistency.recover_retries";
     public static final int DIRECT_PERSISTENCY_RECOVER_RETRIES_DEFAULT = 10;
 
@@ -0,0 +1,84 @@
+/*
+ * Copyright (c) 2008-2016, GigaSpaces Technologies, Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.j_spaces.kernel.list;
+
+import com.gigaspaces.internal.utils.collections.CompressedBitmap;
+import com.j_spaces.core.cache.EntryOrdinals;
+import com.j_spaces.core.cache.IEntryCacheInfo;
+
+/**
+ * scan iterator for the entries whose ordinals are in a bitmap resolved by bitmap indexes
+ * NOTE !!!- for single threaded use
+ *
+ * @since 16.0
+ */
+@com.gigaspaces.api.InternalApi
+public class ScanBitmapIterator
+        implements IScanListIterator<IEntryCacheInfo> {
+
+    private final EntryOrdinals _ordinals;
+    private final CompressedBitmap.IntIterator _iterator;
+    private final int _size;
+    private IEntryCacheInfo _subject;
+
+    public ScanBitmapIterator(EntryOrdinals ordinals, CompressedBitmap bitmap) {
+        _ordinals = ordinals;
+        _iterator = bitmap.iterator();
+        _size = bitmap.cardinality();
+    }
+
+    public boolean hasNext() {
+        while (_subject == null && _iterator.hasNext())
+            _subject = _ordinals.getEntry(_iterator.next());
+        return _subject != null;
+    }
+
+    public IEntryCacheInfo next() {
+        IEntryCacheInfo res = _subject;
+        _subject = null;
+        return res;
+    }
+
+    public void remove() {
+        throw new UnsupportedOperationException();
+    }
+
+    public void releaseScan() {
+    }
+
+    public int getAlreadyMatchedFixedPropertyIndexPos() {
+        return -1;
+    }
+
+    public boolean isAlreadyMatched() {
+        return false;
+    }
+
+    public boolean isIterator() {
+        return true;
+    }
+
+    @Override
+    public boolean hasSize() {
+        return true;
+    }
+
+    @Override
+    public int size() {
+        return _size;
+    }
+}
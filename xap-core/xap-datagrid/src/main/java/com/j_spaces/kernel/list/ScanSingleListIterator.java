@@ -47,7 +47,7 @@ public class ScanSingleListIterator<T>
 
     private IStoredListIterator<T> _pos;
 
-    private final boolean _fifoScan;
+    private boolean _fifoScan;
 
     private final boolean _alternatingThread;
     private final AtomicInteger _alternatingThreadBarrier; //pass thru volatile
@@ -163,8 +163,10 @@ public class ScanSingleListIterator<T>
      * release SLHolder for this scan
      */
     public void releaseScan() {
-        if (!_singleObjectResult && _pos != null)
+        if (!_singleObjectResult && _pos != null) {
             _list.freeSLHolder(_pos);
+            _pos = null;
+        }
     }
 
     //TBD- we can optimize here
@@ -182,11 +184,19 @@ public class ScanSingleListIterator<T>
 
     //reuse this object for scanning of another list
     public void reuse(IStoredList<T> list) {
+        //an abandoned scan of the previous list still holds its SLHolder
+        releaseScan();
         clean();
         _list = list;
 
     }
 
+    //reuse this object for scanning of another list, not for alternating thread scans
+    public void reuse(IStoredList<T> list, boolean fifoScan) {
+        reuse(list);
+        _fifoScan = fifoScan;
+    }
+
     private void clean() {
         _list = null;
         _nextObj = null;
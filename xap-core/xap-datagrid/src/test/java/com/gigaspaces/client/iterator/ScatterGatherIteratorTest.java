@@ -0,0 +1,284 @@
+/*
+ * Copyright (c) 2008-2016, GigaSpaces Technologies, Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.gigaspaces.client.iterator;
+
+import com.gigaspaces.client.ReadMultipleException;
+import com.gigaspaces.internal.transport.IEntryPacket;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.mockito.Mockito;
+
+import java.rmi.RemoteException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+
+public class ScatterGatherIteratorTest {
+
+    @Test
+    public void testEntriesOfEachPartitionAreReturnedOnceTheyArrive() {
+        TestReader reader = new TestReader(false, 3, 2);
+        ScatterGatherIterator<String> iterator = new ScatterGatherIterator<String>(reader, false, 10, Integer.MAX_VALUE, null, true);
+        Assert.assertEquals(3, reader.requests.size());
+
+        reader.complete(2);
+        Assert.assertTrue(iterator.hasNext());
+        Assert.assertEquals("2-0", iterator.next());
+        Assert.assertEquals("2-1", iterator.next());
+
+        reader.complete(0);
+        reader.complete(1);
+        Assert.assertEquals(Arrays.asList("0-0", "0-1", "1-0", "1-1"), consume(iterator));
+        Assert.assertFalse(iterator.hasNext());
+    }
+
+    @Test
+    public void testTakeRequestsBatchesUntilThePartitionIsExhausted() {
+        TestReader reader = new TestReader(true, 2, 5);
+        ScatterGatherIterator<String> iterator = new ScatterGatherIterator<String>(reader, true, 2, Integer.MAX_VALUE, null, true);
+        Assert.assertEquals(10, new HashSet<String>(consume(iterator)).size());
+        // batches of 2, 2 and 1 entries from each partition
+        Assert.assertEquals(6, reader.numOfRequests);
+        Assert.assertEquals(0, iterator.getNumOfPendingRequests());
+    }
+
+    @Test
+    public void testTakeDoesNotRequestMoreThanMaxEntries() {
+        TestReader reader = new TestReader(false, 2, 1);
+        reader.add(0, 10);
+        ScatterGatherIterator<String> iterator = new ScatterGatherIterator<String>(reader, true, 2, 5, null, true);
+        Assert.assertEquals(2, reader.requests.size());
+        Assert.assertEquals(4, reader.requestedEntries());
+
+        // partition 1 takes fewer entries than requested, so they may be taken from partition 0
+        reader.complete(1);
+        Assert.assertEquals(2, reader.requestedEntries());
+        reader.complete(0);
+        Assert.assertEquals(0, reader.requestedEntries());
+        Assert.assertEquals(Arrays.asList("1-0", "0-0", "0-1"), Arrays.asList(iterator.next(), iterator.next(), iterator.next()));
+        Assert.assertEquals(0, reader.requestedEntries());
+
+        reader.immediate = true;
+        Assert.assertEquals(2, consume(iterator).size());
+        Assert.assertEquals(6, reader.remaining(0));
+    }
+
+    @Test
+    public void testStarvedPartitionIsRequestedOnceEntriesAreReturned() {
+        TestReader reader = new TestReader(false, 3, 0);
+        reader.add(2, 5);
+        ScatterGatherIterator<String> iterator = new ScatterGatherIterator<String>(reader, true, 2, 4, null, true);
+        // partitions 0 and 1 reserved all the entries
+        Assert.assertEquals(2, reader.requests.size());
+
+        reader.complete(0);
+        reader.complete(1);
+        Assert.assertEquals(1, reader.requests.size());
+        Assert.assertEquals(2, reader.requests.get(0)[0]);
+        reader.complete(2);
+        reader.immediate = true;
+        Assert.assertEquals(Arrays.asList("2-0", "2-1", "2-2", "2-3"), consume(iterator));
+    }
+
+    @Test
+    public void testOrderedIteratorMergesThePartitions() {
+        TestReader reader = new TestReader(true, 0, 0);
+        reader.add(0, "5", "1", "9");
+        reader.add(1, "4", "8");
+        reader.add(2, "7", "2", "3", "6");
+        ScatterGatherIterator<String> iterator = new ScatterGatherIterator<String>(reader, false, 10, Integer.MAX_VALUE, numeric(), true);
+        Assert.assertEquals(Arrays.asList("1", "2", "3", "4", "5", "6", "7", "8", "9"), consume(iterator));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testOrderedIteratorDoesNotSupportMaxEntries() {
+        new ScatterGatherIterator<String>(new TestReader(true, 1, 1), false, 10, 5, numeric(), true);
+    }
+
+    @Test
+    public void testTakeRequestsTheNextBatchOnceThePreviousWasReturned() {
+        TestReader reader = new TestReader(false, 2, 10);
+        ScatterGatherIterator<String> iterator = new ScatterGatherIterator<String>(reader, true, 2, Integer.MAX_VALUE, null, true);
+        reader.complete(0);
+        reader.complete(1);
+        Assert.assertEquals("0-0", iterator.next());
+        Assert.assertEquals("0-1", iterator.next());
+        Assert.assertEquals(2, reader.numOfRequests);
+
+        // the batch of partition 1 is returned while the next batch of partition 0 is taken
+        Assert.assertEquals("1-0", iterator.next());
+        Assert.assertEquals(3, reader.numOfRequests);
+        Assert.assertEquals(0, reader.requests.get(0)[0]);
+        Assert.assertEquals("1-1", iterator.next());
+    }
+
+    @Test
+    public void testCloseStopsRequestingBatches() {
+        TestReader reader = new TestReader(false, 1, 10);
+        ScatterGatherIterator<String> iterator = new ScatterGatherIterator<String>(reader, true, 2, Integer.MAX_VALUE, null, true);
+        reader.complete(0);
+        Assert.assertEquals("0-0", iterator.next());
+        iterator.close();
+
+        Assert.assertTrue(reader.requests.isEmpty());
+        Assert.assertEquals(1, reader.numOfRequests);
+        Assert.assertFalse(iterator.hasNext());
+    }
+
+    @Test
+    public void testMaxEntriesLimitsReadResults() {
+        TestReader reader = new TestReader(true, 3, 4);
+        ScatterGatherIterator<String> iterator = new ScatterGatherIterator<String>(reader, false, 10, 6, null, true);
+        Assert.assertEquals(6, consume(iterator).size());
+    }
+
+    @Test
+    public void testFailedPartition() {
+        TestReader reader = new TestReader(false, 2, 1);
+        ScatterGatherIterator<String> iterator = new ScatterGatherIterator<String>(reader, false, 10, Integer.MAX_VALUE, null, true);
+        reader.fail(0);
+        try {
+            iterator.hasNext();
+            Assert.fail("Expected ReadMultipleException");
+        } catch (ReadMultipleException e) {
+            // expected
+        }
+        Assert.assertFalse(iterator.hasNext());
+
+        reader = new TestReader(false, 2, 1);
+        iterator = new ScatterGatherIterator<String>(reader, false, 10, Integer.MAX_VALUE, null, false);
+        reader.fail(0);
+        reader.complete(1);
+        Assert.assertEquals(Arrays.asList("1-0"), consume(iterator));
+    }
+
+    private static List<String> consume(ScatterGatherIterator<String> iterator) {
+        List<String> result = new ArrayList<String>();
+        for (String uid : iterator)
+            result.add(uid);
+        return result;
+    }
+
+    private static Comparator<String> numeric() {
+        return new Comparator<String>() {
+            @Override
+            public int compare(String o1, String o2) {
+                return Integer.compare(Integer.parseInt(o1), Integer.parseInt(o2));
+            }
+        };
+    }
+
+    private static class TestReader implements ScatterGatherIterator.PartitionReader {
+        private boolean immediate;
+        private final List<ArrayDeque<IEntryPacket>> partitions = new ArrayList<ArrayDeque<IEntryPacket>>();
+        private final List<int[]> requests = new ArrayList<int[]>();
+        private final List<ScatterGatherIterator<?>> targets = new ArrayList<ScatterGatherIterator<?>>();
+        private int numOfRequests;
+
+        private TestReader(boolean immediate, int numOfPartitions, int entriesPerPartition) {
+            this.immediate = immediate;
+            for (int i = 0; i < numOfPartitions; i++)
+                add(i, entriesPerPartition);
+        }
+
+        /**
+         * Adds entries to the partition up to the given count, whose uid is the partition id and
+         * the index of the entry.
+         */
+        private void add(int partitionId, int count) {
+            ArrayDeque<IEntryPacket> partition = partition(partitionId);
+            for (int i = partition.size(); i < count; i++)
+                partition.add(packet(partitionId + "-" + i));
+        }
+
+        private void add(int partitionId, String... uids) {
+            ArrayDeque<IEntryPacket> partition = partition(partitionId);
+            for (String uid : uids)
+                partition.add(packet(uid));
+        }
+
+        private ArrayDeque<IEntryPacket> partition(int partitionId) {
+            while (partitions.size() <= partitionId)
+                partitions.add(new ArrayDeque<IEntryPacket>());
+            return partitions.get(partitionId);
+        }
+
+        private IEntryPacket packet(String uid) {
+            IEntryPacket packet = Mockito.mock(IEntryPacket.class);
+            Mockito.when(packet.getUID()).thenReturn(uid);
+            return packet;
+        }
+
+        @Override
+        public int getNumOfPartitions() {
+            return partitions.size();
+        }
+
+        @Override
+        public synchronized void read(int partitionId, int maxEntries, ScatterGatherIterator<?> target) {
+            numOfRequests++;
+            requests.add(new int[]{partitionId, maxEntries});
+            targets.add(target);
+            if (immediate)
+                complete(partitionId);
+        }
+
+        @Override
+        public Object convert(IEntryPacket packet) {
+            return packet.getUID();
+        }
+
+        private int requestedEntries() {
+            int result = 0;
+            for (int[] request : requests)
+                result += request[1];
+            return result;
+        }
+
+        private int remaining(int partitionId) {
+            return partitions.get(partitionId).size();
+        }
+
+        private void complete(int partitionId) {
+            int index = indexOf(partitionId);
+            int maxEntries = requests.remove(index)[1];
+            ScatterGatherIterator<?> target = targets.remove(index);
+            ArrayDeque<IEntryPacket> partition = partitions.get(partitionId);
+            List<IEntryPacket> batch = new ArrayList<IEntryPacket>();
+            while (batch.size() < maxEntries && !partition.isEmpty())
+                batch.add(partition.poll());
+            target.onBatch(partitionId, maxEntries, batch.toArray(new IEntryPacket[0]), null);
+        }
+
+        private void fail(int partitionId) {
+            int index = indexOf(partitionId);
+            int maxEntries = requests.remove(index)[1];
+            targets.remove(index).onBatch(partitionId, maxEntries, null, new RemoteException("partition " + partitionId + " is not available"));
+        }
+
+        private int indexOf(int partitionId) {
+            for (int i = 0; i < requests.size(); i++)
+                if (requests.get(i)[0] == partitionId)
+                    return i;
+            throw new IllegalStateException("No request to partition " + partitionId);
+        }
+    }
+}
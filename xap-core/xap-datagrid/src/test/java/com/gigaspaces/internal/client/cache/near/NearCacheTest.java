@@ -0,0 +1,140 @@
+/*
+ * Copyright (c) 2008-2016, GigaSpaces Technologies, Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.gigaspaces.internal.client.cache.near;
+
+import com.gigaspaces.internal.transport.EntryPacket;
+import com.gigaspaces.internal.transport.IEntryPacket;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class NearCacheTest {
+
+    @Test
+    public void testCachedPacketsAreCopies() {
+        NearCache cache = new NearCache(100, 0);
+        IEntryPacket packet = packet("uid-1", 1, "value");
+        Assert.assertTrue(cache.put("key-1", packet, System.nanoTime()));
+
+        IEntryPacket cached = cache.get("key-1");
+        Assert.assertNotSame(packet, cached);
+        Assert.assertEquals("uid-1", cached.getUID());
+        Assert.assertEquals("value", cached.getFieldValues()[0]);
+        Assert.assertNull(cache.get("key-2"));
+
+        Assert.assertEquals(1, cache.getHits());
+        Assert.assertEquals(1, cache.getMisses());
+        Assert.assertEquals(50.0, cache.getHitRatio(), 0);
+        Assert.assertTrue(cache.getEstimatedMemory() > 0);
+    }
+
+    @Test
+    public void testUpdateInvalidatesOlderVersions() {
+        NearCache cache = new NearCache(100, 0);
+        cache.put("by-id", packet("uid-1", 2, "v2"), System.nanoTime());
+        cache.put("by-uid", packet("uid-1", 2, "v2"), System.nanoTime());
+
+        cache.invalidate("uid-1", 2, false);
+        Assert.assertEquals(2, cache.size());
+
+        cache.invalidate("uid-1", 3, false);
+        Assert.assertEquals(0, cache.size());
+        Assert.assertNull(cache.get("by-id"));
+        Assert.assertNull(cache.get("by-uid"));
+        Assert.assertEquals(0, cache.getEstimatedMemory());
+    }
+
+    @Test
+    public void testRemovalInvalidatesAllVersions() {
+        NearCache cache = new NearCache(100, 0);
+        cache.put("key-1", packet("uid-1", 5, "v5"), System.nanoTime());
+        cache.put("key-2", packet("uid-2", 1, "v1"), System.nanoTime());
+        cache.invalidate("uid-1", 1, true);
+        Assert.assertNull(cache.get("key-1"));
+        Assert.assertNotNull(cache.get("key-2"));
+    }
+
+    @Test
+    public void testStaleReadResultsAreNotCached() {
+        NearCache cache = new NearCache(100, 0);
+        long readStartTime = System.nanoTime();
+        cache.invalidate("uid-1", 3, false);
+
+        Assert.assertFalse(cache.put("key-1", packet("uid-1", 2, "v2"), readStartTime));
+        Assert.assertEquals(1, cache.getRejectedStalePuts());
+        Assert.assertTrue(cache.put("key-1", packet("uid-1", 3, "v3"), readStartTime));
+
+        cache.invalidate("uid-2", 1, true);
+        Assert.assertFalse(cache.put("key-2", packet("uid-2", 1, "v1"), readStartTime));
+        // a read which started after the entry was removed returns the entry written again
+        Assert.assertTrue(cache.put("key-2", packet("uid-2", 1, "v1"), System.nanoTime()));
+    }
+
+    @Test
+    public void testFrequentlyReadEntriesSurviveScans() {
+        NearCache cache = new NearCache(100, 0);
+        for (int i = 0; i < 50; i++)
+            cache.put("hot-" + i, packet("hot-" + i, 1, "hot"), System.nanoTime());
+        for (int round = 0; round < 5; round++)
+            for (int i = 0; i < 50; i++)
+                Assert.assertNotNull(cache.get("hot-" + i));
+
+        for (int i = 0; i < 1000; i++) {
+            cache.get("cold-" + i);
+            cache.put("cold-" + i, packet("cold-" + i, 1, "cold"), System.nanoTime());
+        }
+
+        Assert.assertEquals(100, cache.size());
+        Assert.assertTrue(cache.getEvictions() >= 950);
+        int hotHits = 0;
+        for (int i = 0; i < 50; i++)
+            if (cache.get("hot-" + i) != null)
+                hotHits++;
+        Assert.assertEquals(50, hotHits);
+    }
+
+    @Test
+    public void testEntriesExpire() throws Exception {
+        NearCache cache = new NearCache(100, 1);
+        cache.put("key-1", packet("uid-1", 1, "v1"), System.nanoTime());
+        Thread.sleep(10);
+        Assert.assertNull(cache.get("key-1"));
+        Assert.assertEquals(0, cache.size());
+    }
+
+    @Test
+    public void testInvalidationLagOfLocalModifications() throws Exception {
+        NearCache cache = new NearCache(100, 0);
+        cache.put("key-1", packet("uid-1", 1, "v1"), System.nanoTime());
+        cache.invalidateLocally("uid-1", 2, false);
+        Assert.assertNull(cache.get("key-1"));
+        Assert.assertEquals(-1, cache.getAverageInvalidationLag(), 0);
+
+        Thread.sleep(5);
+        cache.invalidate("uid-1", 2, false);
+        Assert.assertTrue(cache.getAverageInvalidationLag() >= 5);
+        Assert.assertEquals(cache.getAverageInvalidationLag(), cache.getMaxInvalidationLag(), 0);
+    }
+
+    private static IEntryPacket packet(String uid, int version, String value) {
+        EntryPacket packet = new EntryPacket();
+        packet.setUID(uid);
+        packet.setVersion(version);
+        packet.setFieldsValues(new Object[]{value});
+        return packet;
+    }
+}
@@ -0,0 +1,298 @@
+/*
+ * Copyright (c) 2008-2016, GigaSpaces Technologies, Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.gigaspaces.internal.client.spaceproxy.router;
+
+import com.gigaspaces.internal.remoting.routing.partitioned.PartitionedClusterUtils;
+import com.gigaspaces.internal.transport.EntryPacket;
+import com.gigaspaces.internal.transport.IEntryPacket;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.rmi.RemoteException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+
+public class OnewayWriteBatcherTest {
+    private static final Executor DIRECT = new Executor() {
+        @Override
+        public void execute(Runnable command) {
+            command.run();
+        }
+    };
+
+    private final RecordingSender sender = new RecordingSender();
+    private OnewayWriteBatcher batcher;
+
+    @After
+    public void tearDown() {
+        if (batcher != null)
+            batcher.close();
+    }
+
+    @Test
+    public void testFullBatchesAreSentPerPartition() throws Exception {
+        batcher = new OnewayWriteBatcher("test", null, 2, 3, 60000, 100, sender, DIRECT);
+        batcher.add(0, packet("a1"), 1000, 0);
+        batcher.add(1, packet("b1"), 1000, 0);
+        batcher.add(0, packet("a2"), 2000, 0);
+        Assert.assertTrue(sender.batches.isEmpty());
+        batcher.add(0, packet("a3"), 3000, 0);
+
+        Assert.assertEquals(1, sender.batches.size());
+        SentBatch batch = sender.batches.get(0);
+        Assert.assertEquals(0, batch.partitionId);
+        Assert.assertEquals(3, batch.packets.length);
+        Assert.assertEquals("a2", batch.packets[1].getUID());
+        Assert.assertEquals(3000, batch.leases[2]);
+        Assert.assertEquals(1, batcher.getPendingWrites());
+
+        batcher.flush();
+        Assert.assertEquals(2, sender.batches.size());
+        Assert.assertEquals(1, sender.batches.get(1).partitionId);
+        Assert.assertEquals(1, sender.batches.get(1).packets.length);
+        Assert.assertEquals(0, batcher.getPendingWrites());
+        Assert.assertEquals(4, batcher.getSentWrites());
+        Assert.assertEquals(2, batcher.getSentBatches());
+    }
+
+    @Test
+    public void testWritesWithDifferentModifiersAreSentSeparately() throws Exception {
+        batcher = new OnewayWriteBatcher("test", null, 0, 10, 60000, 100, sender, DIRECT);
+        batcher.add(PartitionedClusterUtils.NO_PARTITION, packet("a"), 0, 1);
+        batcher.add(PartitionedClusterUtils.NO_PARTITION, packet("b"), 0, 1);
+        batcher.add(PartitionedClusterUtils.NO_PARTITION, packet("c"), 0, 2);
+        batcher.flush();
+
+        Assert.assertEquals(2, sender.batches.size());
+        Assert.assertEquals(PartitionedClusterUtils.NO_PARTITION, sender.batches.get(0).partitionId);
+        Assert.assertEquals(1, sender.batches.get(0).modifiers);
+        Assert.assertEquals(2, sender.batches.get(0).packets.length);
+        Assert.assertEquals(2, sender.batches.get(1).modifiers);
+    }
+
+    @Test
+    public void testLingeringBatchesAreSent() throws Exception {
+        batcher = new OnewayWriteBatcher("test", null, 1, 100, 10, 1000, sender, DIRECT);
+        batcher.add(0, packet("a"), 0, 0);
+        Assert.assertTrue(sender.await(1, 5000));
+        Assert.assertEquals(1, sender.batches.get(0).packets.length);
+    }
+
+    @Test
+    public void testFailedPartitionFailsItsNextWrite() throws Exception {
+        batcher = new OnewayWriteBatcher("test", null, 2, 1, 60000, 100, sender, DIRECT);
+        sender.failure = new RemoteException("partition is not available");
+        batcher.add(0, packet("a"), 0, 0);
+        Assert.assertEquals(1, batcher.getFailedWrites());
+        Assert.assertEquals(0, batcher.getPendingWrites());
+
+        sender.failure = null;
+        batcher.add(1, packet("b"), 0, 0);
+        try {
+            batcher.add(0, packet("c"), 0, 0);
+            Assert.fail("Expected RemoteException");
+        } catch (RemoteException e) {
+            Assert.assertSame(e.getCause(), e.detail);
+            Assert.assertEquals("partition is not available", e.detail.getMessage());
+        }
+        batcher.add(0, packet("d"), 0, 0);
+        Assert.assertEquals(2, batcher.getSentWrites());
+    }
+
+    @Test
+    public void testPendingWritesAreBounded() throws Exception {
+        final CountDownLatch release = new CountDownLatch(1);
+        final BlockingSender blockingSender = new BlockingSender(release);
+        batcher = new OnewayWriteBatcher("test", null, 0, 2, 60000, 4, blockingSender, DIRECT);
+        try {
+            // the writer which fills the first batch sends it, and is blocked while it is sent
+            Thread sendingWriter = startWriter("a", 2);
+            Assert.assertTrue(blockingSender.started.await(5, TimeUnit.SECONDS));
+            // the next batch waits for the first one to be sent
+            batcher.add(PartitionedClusterUtils.NO_PARTITION, packet("b0"), 0, 0);
+            batcher.add(PartitionedClusterUtils.NO_PARTITION, packet("b1"), 0, 0);
+            Assert.assertEquals(4, batcher.getPendingWrites());
+
+            Thread waitingWriter = startWriter("c", 1);
+            Thread.sleep(100);
+            Assert.assertTrue(waitingWriter.isAlive());
+            Assert.assertEquals(4, batcher.getPendingWrites());
+
+            release.countDown();
+            sendingWriter.join(5000);
+            waitingWriter.join(5000);
+            Assert.assertFalse(waitingWriter.isAlive());
+            batcher.flush();
+            Assert.assertEquals(0, batcher.getPendingWrites());
+            Assert.assertEquals(5, blockingSender.sentWrites);
+        } finally {
+            release.countDown();
+        }
+    }
+
+    @Test
+    public void testDirectWriteFlushesItsPartitionAndSpaceRoutedWrites() throws Exception {
+        batcher = new OnewayWriteBatcher("test", null, 2, 10, 60000, 100, sender, DIRECT);
+        batcher.add(0, packet("a"), 0, 0);
+        batcher.add(1, packet("b"), 0, 0);
+        batcher.add(PartitionedClusterUtils.NO_PARTITION, packet("c"), 0, 0);
+        batcher.flushBefore(0);
+
+        Assert.assertEquals(2, sender.batches.size());
+        Assert.assertEquals(0, sender.batches.get(0).partitionId);
+        Assert.assertEquals(PartitionedClusterUtils.NO_PARTITION, sender.batches.get(1).partitionId);
+        Assert.assertEquals(1, batcher.getPendingWrites());
+
+        // the partition of a packet without routing is not known
+        batcher.flushBefore(packet("d"));
+        Assert.assertEquals(3, sender.batches.size());
+        Assert.assertEquals(1, sender.batches.get(2).partitionId);
+        Assert.assertEquals(0, batcher.getPendingWrites());
+    }
+
+    @Test
+    public void testDirectWriteWaitsForBatchesSentByOtherThreads() throws Exception {
+        final CountDownLatch release = new CountDownLatch(1);
+        final BlockingSender blockingSender = new BlockingSender(release);
+        batcher = new OnewayWriteBatcher("test", null, 0, 2, 60000, 10, blockingSender, DIRECT);
+        try {
+            Thread sendingWriter = startWriter("a", 2);
+            Assert.assertTrue(blockingSender.started.await(5, TimeUnit.SECONDS));
+            Thread directWriter = new Thread() {
+                @Override
+                public void run() {
+                    try {
+                        batcher.flushBefore(PartitionedClusterUtils.NO_PARTITION);
+                    } catch (InterruptedException e) {
+                        throw new RuntimeException(e);
+                    }
+                }
+            };
+            directWriter.start();
+            Thread.sleep(100);
+            Assert.assertTrue(directWriter.isAlive());
+
+            release.countDown();
+            directWriter.join(5000);
+            Assert.assertFalse(directWriter.isAlive());
+            Assert.assertEquals(2, blockingSender.sentWrites);
+            sendingWriter.join(5000);
+        } finally {
+            release.countDown();
+        }
+    }
+
+    private Thread startWriter(final String prefix, final int numOfWrites) {
+        Thread writer = new Thread() {
+            @Override
+            public void run() {
+                try {
+                    for (int i = 0; i < numOfWrites; i++)
+                        batcher.add(PartitionedClusterUtils.NO_PARTITION, packet(prefix + i), 0, 0);
+                } catch (Exception e) {
+                    throw new RuntimeException(e);
+                }
+            }
+        };
+        writer.start();
+        return writer;
+    }
+
+    @Test
+    public void testCloseSendsPendingWrites() throws Exception {
+        batcher = new OnewayWriteBatcher("test", null, 1, 10, 60000, 100, sender, DIRECT);
+        batcher.add(0, packet("a"), 0, 0);
+        batcher.add(1, packet("b"), 0, 0);
+        batcher.close();
+        Assert.assertEquals(2, sender.batches.size());
+        try {
+            batcher.add(0, packet("c"), 0, 0);
+            Assert.fail("Expected IllegalStateException");
+        } catch (IllegalStateException e) {
+            // expected
+        }
+    }
+
+    private static IEntryPacket packet(String uid) {
+        EntryPacket packet = new EntryPacket();
+        packet.setUID(uid);
+        return packet;
+    }
+
+    private static class SentBatch {
+        private final int partitionId;
+        private final IEntryPacket[] packets;
+        private final long[] leases;
+        private final int modifiers;
+
+        private SentBatch(int partitionId, IEntryPacket[] packets, long[] leases, int modifiers) {
+            this.partitionId = partitionId;
+            this.packets = packets;
+            this.leases = leases;
+            this.modifiers = modifiers;
+        }
+    }
+
+    private static class RecordingSender implements OnewayWriteBatcher.BatchSender {
+        private final List<SentBatch> batches = Collections.synchronizedList(new ArrayList<SentBatch>());
+        private volatile Exception failure;
+
+        @Override
+        public void send(int partitionId, IEntryPacket[] packets, long[] leases, int modifiers) throws Exception {
+            if (failure != null)
+                throw failure;
+            batches.add(new SentBatch(partitionId, packets, leases, modifiers));
+            synchronized (this) {
+                notifyAll();
+            }
+        }
+
+        private synchronized boolean await(int numOfBatches, long timeout) throws InterruptedException {
+            long deadline = System.currentTimeMillis() + timeout;
+            while (batches.size() < numOfBatches) {
+                long remaining = deadline - System.currentTimeMillis();
+                if (remaining <= 0)
+                    return false;
+                wait(remaining);
+            }
+            return true;
+        }
+    }
+
+    private static class BlockingSender implements OnewayWriteBatcher.BatchSender {
+        private final CountDownLatch started = new CountDownLatch(1);
+        private final CountDownLatch release;
+        private volatile int sentWrites;
+
+        private BlockingSender(CountDownLatch release) {
+            this.release = release;
+        }
+
+        @Override
+        public void send(int partitionId, IEntryPacket[] packets, long[] leases, int modifiers) throws Exception {
+            started.countDown();
+            release.await();
+            sentWrites += packets.length;
+        }
+    }
+}
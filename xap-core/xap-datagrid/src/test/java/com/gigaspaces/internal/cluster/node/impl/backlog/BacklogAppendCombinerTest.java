@@ -0,0 +1,132 @@
+/*
+ * Copyright (c) 2008-2016, GigaSpaces Technologies, Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.gigaspaces.internal.cluster.node.impl.backlog;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+public class BacklogAppendCombinerTest {
+
+    @Test
+    public void testConcurrentAppendsAreSerialized() throws Exception {
+        testConcurrentAppends(true);
+    }
+
+    @Test
+    public void testConcurrentAppendsWithoutCombining() throws Exception {
+        testConcurrentAppends(false);
+    }
+
+    private void testConcurrentAppends(boolean combining) throws Exception {
+        final int threads = 8;
+        final int appendsPerThread = 5000;
+        final ReentrantReadWriteLock rwLock = new ReentrantReadWriteLock();
+        final BacklogAppendCombiner combiner = new BacklogAppendCombiner(rwLock.writeLock(), combining);
+        // not thread safe, relies on the combiner to append under the lock
+        final List<Long> backlog = new ArrayList<Long>();
+        final long[] nextKey = new long[1];
+        final CountDownLatch start = new CountDownLatch(1);
+
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            List<Future<List<Long>>> futures = new ArrayList<Future<List<Long>>>();
+            for (int i = 0; i < threads; i++) {
+                futures.add(executor.submit(() -> {
+                    start.await();
+                    List<Long> keys = new ArrayList<Long>();
+                    for (int j = 0; j < appendsPerThread; j++) {
+                        keys.add(combiner.append(() -> {
+                            Assert.assertTrue(rwLock.isWriteLocked());
+                            long key = nextKey[0]++;
+                            backlog.add(key);
+                            return key;
+                        }));
+                    }
+                    return keys;
+                }));
+            }
+            start.countDown();
+
+            boolean[] seen = new boolean[threads * appendsPerThread];
+            for (Future<List<Long>> future : futures) {
+                long previous = -1;
+                for (long key : future.get(60, TimeUnit.SECONDS)) {
+                    // appends of each producer keep their order
+                    Assert.assertTrue(key > previous);
+                    previous = key;
+                    Assert.assertFalse(seen[(int) key]);
+                    seen[(int) key] = true;
+                }
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        Assert.assertEquals(threads * appendsPerThread, backlog.size());
+        for (int i = 0; i < backlog.size(); i++)
+            Assert.assertEquals(i, backlog.get(i).longValue());
+        Assert.assertEquals(threads * appendsPerThread, combiner.getAppends());
+        Assert.assertTrue(combiner.getLockAcquisitions() > 0);
+        Assert.assertTrue(combiner.getLockAcquisitions() <= combiner.getAppends());
+        Assert.assertFalse(rwLock.isWriteLocked());
+    }
+
+    @Test
+    public void testAppendFailureIsThrownToItsProducer() {
+        ReentrantReadWriteLock rwLock = new ReentrantReadWriteLock();
+        BacklogAppendCombiner combiner = new BacklogAppendCombiner(rwLock.writeLock(), true);
+        try {
+            combiner.append(() -> {
+                throw new IllegalStateException("backlog is closed");
+            });
+            Assert.fail("Expected IllegalStateException");
+        } catch (IllegalStateException e) {
+            Assert.assertEquals("backlog is closed", e.getMessage());
+        }
+        Assert.assertEquals("appended", combiner.append(() -> "appended"));
+        Assert.assertFalse(rwLock.isWriteLocked());
+    }
+
+    @Test
+    public void testAppendWaitsForReaders() throws Exception {
+        final ReentrantReadWriteLock rwLock = new ReentrantReadWriteLock();
+        final BacklogAppendCombiner combiner = new BacklogAppendCombiner(rwLock.writeLock(), true);
+        final List<String> backlog = new ArrayList<String>();
+        rwLock.readLock().lock();
+        Thread producer = new Thread(() -> combiner.append(() -> backlog.add("packet")));
+        producer.start();
+        try {
+            producer.join(200);
+            Assert.assertTrue(producer.isAlive());
+            Assert.assertTrue(backlog.isEmpty());
+        } finally {
+            rwLock.readLock().unlock();
+        }
+        producer.join(10000);
+        Assert.assertFalse(producer.isAlive());
+        Assert.assertEquals(1, backlog.size());
+    }
+}
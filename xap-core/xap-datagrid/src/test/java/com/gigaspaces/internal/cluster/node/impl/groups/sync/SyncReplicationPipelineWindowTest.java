@@ -0,0 +1,79 @@
+/*
+ * Copyright (c) 2008-2016, GigaSpaces Technologies, Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.gigaspaces.internal.cluster.node.impl.groups.sync;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class SyncReplicationPipelineWindowTest {
+
+    @Test
+    public void testWindowBoundsUnacknowledgedBatches() {
+        SyncReplicationPipelineWindow window = new SyncReplicationPipelineWindow(2, 10);
+        SyncReplicationPipelineWindow.Slot first = window.acquire();
+        SyncReplicationPipelineWindow.Slot second = window.acquire();
+        Assert.assertNotNull(first);
+        Assert.assertNotNull(second);
+        Assert.assertEquals(2, window.getInFlight());
+
+        Assert.assertNull(window.acquire());
+        Assert.assertEquals(1, window.getOverflows());
+
+        first.onReplicateSucceeded(null);
+        Assert.assertEquals(1, window.getInFlight());
+        Assert.assertNotNull(window.acquire());
+        Assert.assertEquals(2, window.getInFlight());
+    }
+
+    @Test
+    public void testSlotIsReleasedOnce() {
+        SyncReplicationPipelineWindow window = new SyncReplicationPipelineWindow(1, 10);
+        SyncReplicationPipelineWindow.Slot slot = window.acquire();
+        slot.onReplicateFailed(new RuntimeException());
+        slot.release();
+        Assert.assertEquals(0, window.getInFlight());
+
+        Assert.assertNotNull(window.acquire());
+        Assert.assertNull(window.acquire());
+    }
+
+    @Test
+    public void testWaitingCallerGetsReleasedSlot() throws Exception {
+        final SyncReplicationPipelineWindow window = new SyncReplicationPipelineWindow(1, 10000);
+        final SyncReplicationPipelineWindow.Slot slot = window.acquire();
+        Thread releaser = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    Thread.sleep(50);
+                } catch (InterruptedException e) {
+                    return;
+                }
+                slot.release();
+            }
+        });
+        releaser.start();
+        Assert.assertNotNull(window.acquire());
+        releaser.join();
+        Assert.assertEquals(0, window.getOverflows());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testWindowSizeMustBePositive() {
+        new SyncReplicationPipelineWindow(0, 10);
+    }
+}
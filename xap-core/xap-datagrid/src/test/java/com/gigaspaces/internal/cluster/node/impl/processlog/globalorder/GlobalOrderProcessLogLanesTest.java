@@ -0,0 +1,175 @@
+/*
+ * Copyright (c) 2008-2016, GigaSpaces Technologies, Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.gigaspaces.internal.cluster.node.impl.processlog.globalorder;
+
+import com.gigaspaces.internal.cluster.node.impl.ReplicationInContext;
+import com.gigaspaces.internal.cluster.node.impl.ReplicationSingleOperationType;
+import com.gigaspaces.internal.cluster.node.impl.backlog.globalorder.GlobalOrderDiscardedReplicationPacket;
+import com.gigaspaces.internal.cluster.node.impl.backlog.globalorder.GlobalOrderOperationPacket;
+import com.gigaspaces.internal.cluster.node.impl.packets.IReplicationOrderedPacket;
+import com.gigaspaces.internal.cluster.node.impl.packets.data.operations.AbstractReplicationPacketSingleEntryData;
+import com.gigaspaces.internal.cluster.node.impl.packets.data.operations.AbstractTransactionReplicationPacketData;
+import com.gigaspaces.internal.cluster.node.impl.processlog.AbstractSingleFileTargetProcessLog;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Test;
+import org.mockito.Mockito;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+public class GlobalOrderProcessLogLanesTest {
+    private final GlobalOrderProcessLogLanes lanes = new GlobalOrderProcessLogLanes(4, Mockito.mock(AbstractSingleFileTargetProcessLog.class));
+
+    @After
+    public void tearDown() {
+        lanes.close();
+    }
+
+    @Test
+    public void testPacketsOfAnEntryAreAppliedInOrder() throws Exception {
+        List<IReplicationOrderedPacket> packets = new ArrayList<IReplicationOrderedPacket>();
+        for (int i = 0; i < 200; i++)
+            packets.add(packet(i, "uid" + (i % 10), ReplicationSingleOperationType.UPDATE));
+
+        final Map<String, List<Long>> appliedKeys = new HashMap<String, List<Long>>();
+        List<IReplicationOrderedPacket> applied = lanes.apply(packets, new GlobalOrderProcessLogLanes.PacketApplier() {
+            @Override
+            public void apply(ReplicationInContext context, IReplicationOrderedPacket packet) throws Exception {
+                record(appliedKeys, packet);
+            }
+        });
+
+        Assert.assertEquals(packets, applied);
+        Assert.assertEquals(10, appliedKeys.size());
+        for (List<Long> keys : appliedKeys.values()) {
+            Assert.assertEquals(20, keys.size());
+            for (int i = 1; i < keys.size(); i++)
+                Assert.assertTrue(keys.get(i - 1) < keys.get(i));
+        }
+        long appliedPackets = 0;
+        for (int i = 0; i < lanes.getLanesCount(); i++) {
+            Assert.assertEquals(0, lanes.getQueueDepth(i));
+            appliedPackets += lanes.getAppliedPackets(i);
+        }
+        Assert.assertEquals(200, appliedPackets);
+    }
+
+    @Test
+    public void testPacketsPrecedingTheFirstFailureAreReportedAsApplied() {
+        List<IReplicationOrderedPacket> packets = new ArrayList<IReplicationOrderedPacket>();
+        for (int i = 0; i < 100; i++)
+            packets.add(packet(i, "uid" + (i % 7), ReplicationSingleOperationType.WRITE));
+
+        final Map<String, List<Long>> appliedKeys = new HashMap<String, List<Long>>();
+        final IllegalStateException failure = new IllegalStateException("failed");
+        try {
+            lanes.apply(packets, new GlobalOrderProcessLogLanes.PacketApplier() {
+                @Override
+                public void apply(ReplicationInContext context, IReplicationOrderedPacket packet) throws Exception {
+                    if (packet.getKey() == 50 || packet.getKey() == 80)
+                        throw failure;
+                    record(appliedKeys, packet);
+                }
+            });
+            Assert.fail("Expected ParallelApplyException");
+        } catch (GlobalOrderProcessLogLanes.ParallelApplyException e) {
+            Assert.assertSame(failure, e.getCause());
+            Assert.assertEquals(packets.subList(0, 50), e.getAppliedPackets());
+        }
+        // The lane of the failed packet stops applying its packets
+        Assert.assertFalse(appliedKeys.get("uid1").contains(57L));
+        for (int i = 0; i < lanes.getLanesCount(); i++)
+            Assert.assertEquals(0, lanes.getQueueDepth(i));
+    }
+
+    @Test
+    public void testPacketsAppliedByOtherLanesAfterAFailureAreReported() {
+        List<IReplicationOrderedPacket> packets = new ArrayList<IReplicationOrderedPacket>();
+        for (int i = 0; i < 100; i++)
+            packets.add(packet(i, "uid" + (i % 7), ReplicationSingleOperationType.UPDATE));
+
+        final Map<String, List<Long>> appliedKeys = new HashMap<String, List<Long>>();
+        List<IReplicationOrderedPacket> appliedAhead = null;
+        try {
+            lanes.apply(packets, new GlobalOrderProcessLogLanes.PacketApplier() {
+                @Override
+                public void apply(ReplicationInContext context, IReplicationOrderedPacket packet) throws Exception {
+                    if (packet.getKey() == 50)
+                        throw new IllegalStateException("failed");
+                    record(appliedKeys, packet);
+                }
+            });
+            Assert.fail("Expected ParallelApplyException");
+        } catch (GlobalOrderProcessLogLanes.ParallelApplyException e) {
+            Assert.assertEquals(packets.subList(0, 50), e.getAppliedPackets());
+            appliedAhead = e.getAppliedAheadPackets();
+        }
+
+        List<Long> expectedKeys = new ArrayList<Long>();
+        for (List<Long> keys : appliedKeys.values()) {
+            for (Long key : keys) {
+                if (key > 50)
+                    expectedKeys.add(key);
+            }
+        }
+        Collections.sort(expectedKeys);
+        List<Long> appliedAheadKeys = new ArrayList<Long>();
+        for (IReplicationOrderedPacket packet : appliedAhead)
+            appliedAheadKeys.add(packet.getKey());
+        Assert.assertFalse(appliedAheadKeys.isEmpty());
+        Assert.assertFalse(appliedAheadKeys.contains(57L));
+        Assert.assertEquals(expectedKeys, appliedAheadKeys);
+    }
+
+    @Test
+    public void testOnlyNonTransactionalEntryOperationsAreLaneApplicable() {
+        Assert.assertTrue(GlobalOrderProcessLogLanes.isLaneApplicable(packet(0, "a", ReplicationSingleOperationType.CHANGE)));
+        Assert.assertFalse(GlobalOrderProcessLogLanes.isLaneApplicable(packet(0, "a", ReplicationSingleOperationType.DATA_TYPE_INTRODUCE)));
+        Assert.assertFalse(GlobalOrderProcessLogLanes.isLaneApplicable(packet(0, null, ReplicationSingleOperationType.WRITE)));
+        Assert.assertFalse(GlobalOrderProcessLogLanes.isLaneApplicable(new GlobalOrderDiscardedReplicationPacket(0)));
+
+        AbstractTransactionReplicationPacketData transaction = Mockito.mock(AbstractTransactionReplicationPacketData.class);
+        Mockito.when(transaction.isSingleEntryData()).thenReturn(false);
+        Assert.assertFalse(GlobalOrderProcessLogLanes.isLaneApplicable(new GlobalOrderOperationPacket(0, transaction)));
+    }
+
+    private static void record(Map<String, List<Long>> appliedKeys, IReplicationOrderedPacket packet) {
+        String uid = packet.getData().getSingleEntryData().getUid();
+        synchronized (appliedKeys) {
+            List<Long> keys = appliedKeys.get(uid);
+            if (keys == null) {
+                keys = new ArrayList<Long>();
+                appliedKeys.put(uid, keys);
+            }
+            keys.add(packet.getKey());
+        }
+    }
+
+    private static IReplicationOrderedPacket packet(long key, String uid, ReplicationSingleOperationType operationType) {
+        AbstractReplicationPacketSingleEntryData data = Mockito.mock(AbstractReplicationPacketSingleEntryData.class);
+        Mockito.when(data.isSingleEntryData()).thenReturn(true);
+        Mockito.when(data.getSingleEntryData()).thenReturn(data);
+        Mockito.when(data.getUid()).thenReturn(uid);
+        Mockito.when(data.getOperationType()).thenReturn(operationType);
+        return new GlobalOrderOperationPacket(key, data);
+    }
+}
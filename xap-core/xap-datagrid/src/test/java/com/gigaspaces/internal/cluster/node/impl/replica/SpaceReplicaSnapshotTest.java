@@ -0,0 +1,206 @@
+/*
+ * Copyright (c) 2008-2016, GigaSpaces Technologies, Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.gigaspaces.internal.cluster.node.impl.replica;
+
+import com.gigaspaces.internal.cluster.node.replica.SpaceCopyReplicaParameters;
+import com.j_spaces.core.cluster.IReplicationFilterEntry;
+
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.ObjectInput;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutput;
+import java.io.ObjectOutputStream;
+import java.io.RandomAccessFile;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+public class SpaceReplicaSnapshotTest {
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void testSnapshotIsReadInTheOrderItWasWritten() throws Exception {
+        File file = SpaceReplicaSnapshot.getFile(new File(folder.getRoot(), "snapshots"), "container:space");
+        Assert.assertEquals("container_space.snapshot", file.getName());
+
+        SpaceReplicaSnapshot snapshot = new SpaceReplicaSnapshot("container:space", "group", "source-id", 17);
+        long count = snapshot.write(file, Arrays.asList(new TestProducer("type", 1), new TestProducer("entry", 2500)));
+        Assert.assertEquals(2501, count);
+        Assert.assertFalse(new File(file.getParentFile(), file.getName() + ".tmp").exists());
+
+        SpaceReplicaSnapshot.Reader reader = SpaceReplicaSnapshot.read(file);
+        try {
+            SpaceReplicaSnapshot read = reader.getSnapshot();
+            Assert.assertEquals("container:space", read.getSpaceName());
+            Assert.assertEquals("group", read.getGroupName());
+            Assert.assertEquals("source-id", read.getSourceUniqueId());
+            Assert.assertEquals(17, read.getLastProcessedKey());
+
+            Assert.assertEquals("type-0", reader.next().getUid());
+            for (int i = 0; i < 2500; i++)
+                Assert.assertEquals("entry-" + i, reader.next().getUid());
+            Assert.assertNull(reader.next());
+            Assert.assertNull(reader.next());
+        } finally {
+            reader.close();
+        }
+    }
+
+    @Test
+    public void testTruncatedSnapshotIsDetected() throws Exception {
+        File file = folder.newFile("space.snapshot");
+        new SpaceReplicaSnapshot("space", "group", "source-id", 3).write(file, Collections.singletonList(new TestProducer("entry", 10)));
+        RandomAccessFile raf = new RandomAccessFile(file, "rw");
+        try {
+            // drop the written count
+            raf.setLength(raf.length() - 8);
+        } finally {
+            raf.close();
+        }
+
+        SpaceReplicaSnapshot.Reader reader = SpaceReplicaSnapshot.read(file);
+        try {
+            for (int i = 0; i < 10; i++)
+                Assert.assertNotNull(reader.next());
+            reader.next();
+            Assert.fail("Expected IOException");
+        } catch (IOException e) {
+            // expected
+        } finally {
+            reader.close();
+        }
+    }
+
+    @Test(expected = IOException.class)
+    public void testFileWhichIsNotASnapshotIsRejected() throws Exception {
+        File file = folder.newFile("other.snapshot");
+        ObjectOutputStream out = new ObjectOutputStream(new FileOutputStream(file));
+        try {
+            out.writeInt(42);
+        } finally {
+            out.close();
+        }
+        SpaceReplicaSnapshot.read(file);
+    }
+
+    @Test
+    public void testResumePointIsSerialized() throws Exception {
+        SpaceCopyReplicaParameters parameters = new SpaceCopyReplicaParameters();
+        parameters.setReplicaType(SpaceCopyReplicaParameters.ReplicaType.SYNCRONIZE);
+        Assert.assertFalse(parameters.isResumeSynchronization());
+        Assert.assertFalse(copy(parameters).isResumeSynchronization());
+
+        parameters.setResumePoint("source-id", 0);
+        SpaceCopyReplicaParameters copy = copy(parameters);
+        Assert.assertTrue(copy.isResumeSynchronization());
+        Assert.assertEquals("source-id", copy.getResumeSourceUniqueId());
+        Assert.assertEquals(0, copy.getResumeFromKey());
+    }
+
+    private static SpaceCopyReplicaParameters copy(SpaceCopyReplicaParameters parameters) throws Exception {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        ObjectOutputStream out = new ObjectOutputStream(bytes);
+        parameters.writeExternal(out);
+        out.close();
+        SpaceCopyReplicaParameters copy = new SpaceCopyReplicaParameters();
+        copy.readExternal(new ObjectInputStream(new ByteArrayInputStream(bytes.toByteArray())));
+        return copy;
+    }
+
+    private static class TestProducer implements ISingleStageReplicaDataProducer<TestReplicaData> {
+        private final List<TestReplicaData> _data = new ArrayList<TestReplicaData>();
+
+        private TestProducer(String prefix, int count) {
+            for (int i = 0; i < count; i++)
+                _data.add(new TestReplicaData(prefix + "-" + i));
+        }
+
+        @Override
+        public CloseStatus close(boolean forced) {
+            return CloseStatus.CLOSED;
+        }
+
+        @Override
+        public TestReplicaData produceNextData(ISynchronizationCallback synchCallback) {
+            return _data.isEmpty() ? null : _data.remove(0);
+        }
+
+        @Override
+        public IReplicationFilterEntry toFilterEntry(TestReplicaData data) {
+            return null;
+        }
+
+        @Override
+        public String dumpState() {
+            return "";
+        }
+
+        @Override
+        public String getName() {
+            return "TestProducer";
+        }
+    }
+
+    public static class TestReplicaData implements ISpaceReplicaData {
+        private static final long serialVersionUID = 1L;
+
+        private String _uid;
+
+        public TestReplicaData() {
+        }
+
+        private TestReplicaData(String uid) {
+            _uid = uid;
+        }
+
+        @Override
+        public String getUid() {
+            return _uid;
+        }
+
+        @Override
+        public boolean supportsReplicationFilter() {
+            return false;
+        }
+
+        @Override
+        public boolean isEntryReplicaData() {
+            return true;
+        }
+
+        @Override
+        public void writeExternal(ObjectOutput out) throws IOException {
+            out.writeUTF(_uid);
+        }
+
+        @Override
+        public void readExternal(ObjectInput in) throws IOException {
+            _uid = in.readUTF();
+        }
+    }
+}
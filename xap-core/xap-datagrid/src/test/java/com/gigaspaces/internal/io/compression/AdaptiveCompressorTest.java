@@ -0,0 +1,89 @@
+/*
+ * Copyright (c) 2008-2016, GigaSpaces Technologies, Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.gigaspaces.internal.io.compression;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Random;
+
+public class AdaptiveCompressorTest {
+
+    @Test
+    public void testSmallPayloadsAreStored() throws IOException {
+        AdaptiveCompressor compressor = new AdaptiveCompressor(Lz4Codec.INSTANCE, false);
+        byte[] payload = new byte[AdaptiveCompressor.DEFAULT_MIN_LENGTH - 1];
+        byte[] compressed = compressor.compress(payload);
+        Assert.assertEquals(AdaptiveCompressor.STORED, compressed[0]);
+        Assert.assertEquals(payload.length + 1, compressed.length);
+        Assert.assertArrayEquals(payload, compressor.decompress(compressed));
+    }
+
+    @Test
+    public void testIncompressiblePayloadsAreStored() throws IOException {
+        AdaptiveCompressor compressor = new AdaptiveCompressor(Lz4Codec.INSTANCE, false);
+        byte[] payload = random(1000);
+        byte[] compressed = compressor.compress(payload);
+        Assert.assertEquals(AdaptiveCompressor.STORED, compressed[0]);
+        Assert.assertArrayEquals(payload, compressor.decompress(compressed));
+
+        byte[] zeros = new byte[1000];
+        compressed = compressor.compress(zeros);
+        Assert.assertEquals(Lz4Codec.ID, compressed[0]);
+        Assert.assertTrue(compressed.length < 100);
+        Assert.assertArrayEquals(zeros, compressor.decompress(compressed));
+    }
+
+    @Test
+    public void testCompressionIsBypassedAfterIncompressibleStreak() throws IOException {
+        AdaptiveCompressor compressor = new AdaptiveCompressor(Lz4Codec.INSTANCE, true);
+        for (int i = 0; i < 4; i++)
+            compressor.compress(random(1000));
+        // the next payload is bypassed even though it is compressible
+        byte[] zeros = new byte[1000];
+        Assert.assertEquals(AdaptiveCompressor.STORED, compressor.compress(zeros)[0]);
+        // and the one after it probes the data again
+        Assert.assertEquals(Lz4Codec.ID, compressor.compress(zeros)[0]);
+        Assert.assertEquals(Lz4Codec.ID, compressor.compress(zeros)[0]);
+    }
+
+    @Test
+    public void testNonAdaptiveCompressionIsDeterministic() throws IOException {
+        AdaptiveCompressor compressor = new AdaptiveCompressor(Lz4Codec.INSTANCE, false);
+        byte[] zeros = new byte[1000];
+        byte[] expected = compressor.compress(zeros);
+        for (int i = 0; i < 10; i++)
+            compressor.compress(random(1000));
+        Assert.assertTrue(Arrays.equals(expected, compressor.compress(zeros)));
+    }
+
+    @Test
+    public void testPayloadsOfOtherCodecsAreDecompressed() throws IOException {
+        byte[] zeros = new byte[1000];
+        byte[] compressed = new AdaptiveCompressor(CompressionCodecs.forName("deflate"), false).compress(zeros);
+        Assert.assertEquals(DeflateCodec.ID, compressed[0]);
+        Assert.assertArrayEquals(zeros, new AdaptiveCompressor(Lz4Codec.INSTANCE, false).decompress(compressed));
+    }
+
+    private static byte[] random(int length) {
+        byte[] bytes = new byte[length];
+        new Random(length).nextBytes(bytes);
+        return bytes;
+    }
+}
@@ -0,0 +1,211 @@
+/*
+ * Copyright (c) 2008-2016, GigaSpaces Technologies, Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.gigaspaces.internal.io.compression;
+
+import com.gigaspaces.document.pojos.Address;
+import com.gigaspaces.document.pojos.Person;
+import com.gigaspaces.internal.client.spaceproxy.metadata.TypeDescFactory;
+import com.gigaspaces.internal.io.GSByteArrayOutputStream;
+import com.gigaspaces.internal.io.MarshalOutputStream;
+import com.gigaspaces.internal.metadata.EntryType;
+import com.gigaspaces.internal.metadata.ITypeDesc;
+import com.gigaspaces.internal.transport.EntryPacketFactory;
+import com.gigaspaces.internal.transport.IEntryPacket;
+import com.gigaspaces.lrmi.nio.filters.IOStreamCompressionFilter;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+
+public class CompressionCodecsTest {
+    private static final CompressionCodec[] CODECS = {Lz4Codec.INSTANCE, new DeflateCodec(Deflater.BEST_SPEED)};
+
+    @Test
+    public void testRoundTrip() throws IOException {
+        Random random = new Random(42);
+        List<byte[]> inputs = new ArrayList<byte[]>();
+        inputs.add(new byte[0]);
+        inputs.add("a".getBytes(StandardCharsets.UTF_8));
+        inputs.add("abcdefghijklmnop".getBytes(StandardCharsets.UTF_8));
+        inputs.add(repetitive(random, 100000));
+        byte[] noise = new byte[70000];
+        random.nextBytes(noise);
+        inputs.add(noise);
+        byte[] zeros = new byte[5000];
+        inputs.add(zeros);
+
+        for (CompressionCodec codec : CODECS) {
+            for (byte[] input : inputs) {
+                byte[] compressed = new byte[3 + codec.getMaxCompressedLength(input.length)];
+                int compressedLength = codec.compress(input, 0, input.length, compressed, 3);
+                Assert.assertTrue(compressedLength <= codec.getMaxCompressedLength(input.length));
+                byte[] output = new byte[input.length + 2];
+                codec.decompress(compressed, 3, compressedLength, output, 2, input.length);
+                Assert.assertArrayEquals(codec.getName(), input, Arrays.copyOfRange(output, 2, output.length));
+            }
+        }
+    }
+
+    @Test
+    public void testLz4CompressesRepetitiveData() throws IOException {
+        byte[] input = repetitive(new Random(7), 100000);
+        byte[] compressed = new byte[Lz4Codec.INSTANCE.getMaxCompressedLength(input.length)];
+        int compressedLength = Lz4Codec.INSTANCE.compress(input, 0, input.length, compressed, 0);
+        Assert.assertTrue("compressed to " + compressedLength, compressedLength < input.length / 2);
+    }
+
+    @Test
+    public void testMalformedLz4DataIsRejected() throws IOException {
+        byte[] input = repetitive(new Random(3), 1000);
+        byte[] compressed = new byte[Lz4Codec.INSTANCE.getMaxCompressedLength(input.length)];
+        int compressedLength = Lz4Codec.INSTANCE.compress(input, 0, input.length, compressed, 0);
+        try {
+            Lz4Codec.INSTANCE.decompress(compressed, 0, compressedLength / 2, new byte[input.length], 0, input.length);
+            Assert.fail("Expected IOException");
+        } catch (IOException e) {
+            // expected
+        }
+        try {
+            Lz4Codec.INSTANCE.decompress(compressed, 0, compressedLength, new byte[input.length + 1], 0, input.length + 1);
+            Assert.fail("Expected IOException");
+        } catch (IOException e) {
+            // expected
+        }
+    }
+
+    @Test
+    public void testDictionaryCompressesSmallPayloads() throws IOException {
+        List<byte[]> samples = new ArrayList<byte[]>();
+        for (int i = 0; i < 200; i++)
+            samples.add(smallPayload(i));
+        CompressionDictionary dictionary = CompressionDictionary.train(samples, 4096);
+        Assert.assertTrue(dictionary.getBytes().length > 0);
+        Assert.assertTrue(dictionary.getBytes().length <= 4096);
+
+        Lz4Codec codec = new Lz4Codec(dictionary);
+        byte[] payload = smallPayload(1000);
+        byte[] compressed = new byte[codec.getMaxCompressedLength(payload.length)];
+        int compressedLength = codec.compress(payload, 0, payload.length, compressed, 0);
+        int plainLength = Lz4Codec.INSTANCE.compress(payload, 0, payload.length, new byte[Lz4Codec.INSTANCE.getMaxCompressedLength(payload.length)], 0);
+        Assert.assertTrue("dictionary " + compressedLength + ", plain " + plainLength, compressedLength < plainLength / 2);
+
+        byte[] output = new byte[payload.length];
+        codec.decompress(compressed, 0, compressedLength, output, 0, payload.length);
+        Assert.assertArrayEquals(payload, output);
+
+        Lz4Codec otherCodec = new Lz4Codec(new CompressionDictionary("other".getBytes(StandardCharsets.UTF_8)));
+        try {
+            otherCodec.decompress(compressed, 0, compressedLength, output, 0, payload.length);
+            Assert.fail("Expected IOException");
+        } catch (IOException e) {
+            // expected
+        }
+    }
+
+    @Test
+    public void testCompressionFilterRoundTrip() throws Exception {
+        for (IOStreamCompressionFilter.Algo algo : IOStreamCompressionFilter.Algo.values()) {
+            IOStreamCompressionFilter sender = new IOStreamCompressionFilter(algo);
+            IOStreamCompressionFilter receiver = new IOStreamCompressionFilter(algo);
+            byte[] message = repetitive(new Random(11), 20000);
+            ByteBuffer buffer = ByteBuffer.allocate(message.length + 8);
+            buffer.position(8);
+            buffer.put(message).flip().position(8);
+            byte[] wrapped = sender.wrap(buffer);
+            Assert.assertFalse(buffer.hasRemaining());
+            Assert.assertTrue(wrapped.length < message.length);
+            Assert.assertArrayEquals(message, receiver.unrwap(ByteBuffer.wrap(wrapped)));
+        }
+        // messages are tagged by their codec, so the ends may use different codecs
+        byte[] message = repetitive(new Random(5), 1000);
+        byte[] wrapped = new IOStreamCompressionFilter(IOStreamCompressionFilter.Algo.DEFLATE).wrap(ByteBuffer.wrap(message));
+        Assert.assertArrayEquals(message, new IOStreamCompressionFilter(IOStreamCompressionFilter.Algo.LZ4).unrwap(ByteBuffer.wrap(wrapped)));
+    }
+
+    @Test
+    public void testCompressionFilterReportsMalformedMessages() throws Exception {
+        IOStreamCompressionFilter receiver = new IOStreamCompressionFilter(IOStreamCompressionFilter.Algo.LZ4);
+        try {
+            receiver.unrwap(ByteBuffer.wrap(new byte[]{Lz4Codec.INSTANCE.getId()}));
+            Assert.fail("Expected DataFormatException");
+        } catch (DataFormatException e) {
+            Assert.assertTrue(e.getCause() instanceof IOException);
+        }
+    }
+
+    @Test
+    public void testEntryPacketStreamRoundTrip() throws Exception {
+        List<byte[]> packets = marshalledPackets(2000);
+        CompressionDictionary dictionary = CompressionDictionary.train(packets.subList(0, 500), 8192);
+        CompressionCodec[] codecs = {Lz4Codec.INSTANCE, new Lz4Codec(dictionary), new DeflateCodec(Deflater.BEST_SPEED),
+                new DeflateCodec(Deflater.BEST_COMPRESSION)};
+        for (CompressionCodec codec : codecs) {
+            AdaptiveCompressor compressor = new AdaptiveCompressor(codec, 0, 1, false);
+            long totalLength = 0;
+            long compressedLength = 0;
+            for (byte[] packet : packets) {
+                byte[] compressed = compressor.compress(packet);
+                Assert.assertArrayEquals(codec.getName(), packet, compressor.decompress(compressed));
+                totalLength += packet.length;
+                compressedLength += compressed.length;
+            }
+            Assert.assertTrue(codec.getName(), compressedLength <= totalLength + packets.size() * 3);
+        }
+    }
+
+    static List<byte[]> marshalledPackets(int count) throws IOException {
+        ITypeDesc typeDesc = new TypeDescFactory().createPojoTypeDesc(Person.class, null, null);
+        GSByteArrayOutputStream bos = new GSByteArrayOutputStream();
+        MarshalOutputStream mos = new MarshalOutputStream(bos, false);
+        Random random = new Random(1);
+        List<byte[]> packets = new ArrayList<byte[]>();
+        for (int i = 0; i < count; i++) {
+            Person person = new Person().setName("person-" + random.nextInt(100000)).setAge(random.nextInt(100))
+                    .setHomeAddress(new Address().setStreet("street-" + random.nextInt(50)).setHouseNumber(random.nextInt(1000)))
+                    .setWorkAddress(new Address().setStreet("Main street").setHouseNumber(i));
+            IEntryPacket packet = EntryPacketFactory.createFromObject(person, typeDesc, EntryType.OBJECT_JAVA, true);
+            bos.reset();
+            mos.reset();
+            mos.writeObject(packet);
+            mos.flush();
+            packets.add(bos.toByteArray());
+        }
+        return packets;
+    }
+
+    private static byte[] repetitive(Random random, int length) {
+        String[] words = {"space", "entry", "partition", "replication", "template", "lease", "transaction"};
+        StringBuilder sb = new StringBuilder();
+        while (sb.length() < length)
+            sb.append(words[random.nextInt(words.length)]).append(random.nextInt(10)).append(' ');
+        return Arrays.copyOf(sb.toString().getBytes(StandardCharsets.UTF_8), length);
+    }
+
+    private static byte[] smallPayload(int i) {
+        return ("{\"type\":\"com.example.trading.Order\",\"id\":" + i + ",\"status\":\"PENDING\",\"account\":\"ACC-" + (i % 17)
+                + "\",\"currency\":\"USD\",\"exchange\":\"NASDAQ\"}").getBytes(StandardCharsets.UTF_8);
+    }
+}
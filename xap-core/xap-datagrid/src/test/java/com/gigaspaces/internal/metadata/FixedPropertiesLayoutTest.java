@@ -0,0 +1,232 @@
+/*
+ * Copyright (c) 2008-2016, GigaSpaces Technologies, Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.gigaspaces.internal.metadata;
+
+import com.gigaspaces.document.pojos.Address;
+import com.gigaspaces.internal.client.spaceproxy.metadata.TypeDescFactory;
+import com.gigaspaces.internal.io.GSByteArrayOutputStream;
+import com.gigaspaces.internal.io.IOUtils;
+import com.gigaspaces.internal.io.MarshalInputStream;
+import com.gigaspaces.internal.io.MarshalOutputStream;
+import com.gigaspaces.internal.transport.EntryPacketFactory;
+import com.gigaspaces.internal.transport.IEntryPacket;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+
+public class FixedPropertiesLayoutTest {
+    private final ITypeDesc typeDesc = new TypeDescFactory().createPojoTypeDesc(Order.class, null, null);
+
+    @Test
+    public void testValuesRoundTrip() throws Exception {
+        FixedPropertiesLayout layout = typeDesc.getFixedPropertiesLayout();
+        Object[] full = packetOf(newOrder(1)).getFieldValues();
+        Object[] sparse = packetOf(new Order().setId("order-2").setQuantity(7)).getFieldValues();
+        Assert.assertTrue(layout.matches(full));
+        Assert.assertTrue(layout.matches(sparse));
+
+        GSByteArrayOutputStream bos = new GSByteArrayOutputStream();
+        MarshalOutputStream out = new MarshalOutputStream(bos, true);
+        layout.writeValues(out, full);
+        layout.writeValues(out, sparse);
+        out.flush();
+
+        MarshalInputStream in = new MarshalInputStream(new ByteArrayInputStream(bos.toByteArray()));
+        Assert.assertArrayEquals(full, layout.readValues(in));
+        Assert.assertArrayEquals(sparse, layout.readValues(in));
+    }
+
+    @Test
+    public void testValuesWhichDoNotMatchTheLayout() {
+        FixedPropertiesLayout layout = typeDesc.getFixedPropertiesLayout();
+        Object[] values = packetOf(newOrder(1)).getFieldValues();
+        Assert.assertFalse(layout.matches(new Object[values.length + 1]));
+
+        int quantityIndex = typeDesc.getFixedPropertyPosition("quantity");
+        values[quantityIndex] = 7L;
+        Assert.assertFalse(layout.matches(values));
+        values[quantityIndex] = null;
+        Assert.assertTrue(layout.matches(values));
+    }
+
+    @Test
+    public void testLayoutIsWrittenOncePerStream() throws Exception {
+        GSByteArrayOutputStream bos = new GSByteArrayOutputStream();
+        MarshalOutputStream out = new MarshalOutputStream(bos, true);
+        out.writeObject(packetOf(newOrder(1)));
+        out.flush();
+        int firstLength = bos.size();
+        out.writeObject(packetOf(newOrder(2)));
+        out.flush();
+        int secondLength = bos.size() - firstLength;
+        Assert.assertTrue("first=" + firstLength + ", second=" + secondLength, secondLength < firstLength);
+
+        MarshalInputStream in = new MarshalInputStream(new ByteArrayInputStream(bos.toByteArray()));
+        Assert.assertArrayEquals(packetOf(newOrder(1)).getFieldValues(), ((IEntryPacket) in.readObject()).getFieldValues());
+        Assert.assertArrayEquals(packetOf(newOrder(2)).getFieldValues(), ((IEntryPacket) in.readObject()).getFieldValues());
+    }
+
+    @Test
+    public void testLayoutIsSmallerThanObjectArray() throws Exception {
+        FixedPropertiesLayout layout = typeDesc.getFixedPropertiesLayout();
+        GSByteArrayOutputStream layoutBytes = new GSByteArrayOutputStream();
+        MarshalOutputStream layoutOut = new MarshalOutputStream(layoutBytes, true);
+        GSByteArrayOutputStream arrayBytes = new GSByteArrayOutputStream();
+        MarshalOutputStream arrayOut = new MarshalOutputStream(arrayBytes, true);
+        for (int i = 0; i < 100; i++) {
+            Object[] values = packetOf(newOrder(i)).getFieldValues();
+            layout.writeValues(layoutOut, values);
+            IOUtils.writeObjectArrayCompressed(arrayOut, values);
+        }
+        layoutOut.flush();
+        arrayOut.flush();
+
+        Assert.assertTrue("layout=" + layoutBytes.size() + ", array=" + arrayBytes.size(), layoutBytes.size() < arrayBytes.size());
+    }
+
+    @Test
+    public void testLongStringsRoundTrip() throws Exception {
+        FixedPropertiesLayout layout = typeDesc.getFixedPropertiesLayout();
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < 30000; i++)
+            sb.append((char) ('a' + i % 26));
+        Object[] values = packetOf(newOrder(1).setDescription(sb.toString())).getFieldValues();
+
+        GSByteArrayOutputStream bos = new GSByteArrayOutputStream();
+        MarshalOutputStream out = new MarshalOutputStream(bos, true);
+        layout.writeValues(out, values);
+        out.flush();
+
+        MarshalInputStream in = new MarshalInputStream(new ByteArrayInputStream(bos.toByteArray()));
+        Assert.assertArrayEquals(values, layout.readValues(in));
+    }
+
+    @Test
+    public void testRepetitiveObjectsLimit() throws Exception {
+        MarshalOutputStream out = new MarshalOutputStream(new GSByteArrayOutputStream(), true);
+        out.writeRepetitiveObject("cached");
+        Assert.assertTrue(out.canWriteRepetitiveObject("cached", 1));
+        Assert.assertFalse(out.canWriteRepetitiveObject("other", 1));
+        Assert.assertTrue(out.canWriteRepetitiveObject("other", 2));
+    }
+
+    @Test(expected = IOException.class)
+    public void testUnknownKindIsRejected() throws Exception {
+        GSByteArrayOutputStream bos = new GSByteArrayOutputStream();
+        MarshalOutputStream out = new MarshalOutputStream(bos, false);
+        out.writeInt(1);
+        out.writeByte(100);
+        out.flush();
+        new FixedPropertiesLayout().readExternal(new MarshalInputStream(new ByteArrayInputStream(bos.toByteArray())));
+    }
+
+    private Order newOrder(int i) {
+        return new Order().setId("order-" + i).setCustomer("customer-" + i % 10).setDescription("description")
+                .setQuantity(i).setPrice(i * 1.5).setActive(i % 2 == 0).setCode((char) ('A' + i % 26))
+                .setShippingAddress(new Address().setStreet("Main street").setHouseNumber(i));
+    }
+
+    private IEntryPacket packetOf(Order order) {
+        return EntryPacketFactory.createFromObject(order, typeDesc, EntryType.OBJECT_JAVA, true);
+    }
+
+    public static class Order {
+        private String id;
+        private String customer;
+        private String description;
+        private Integer quantity;
+        private double price;
+        private boolean active;
+        private char code;
+        private Address shippingAddress;
+
+        public String getId() {
+            return id;
+        }
+
+        public Order setId(String id) {
+            this.id = id;
+            return this;
+        }
+
+        public String getCustomer() {
+            return customer;
+        }
+
+        public Order setCustomer(String customer) {
+            this.customer = customer;
+            return this;
+        }
+
+        public String getDescription() {
+            return description;
+        }
+
+        public Order setDescription(String description) {
+            this.description = description;
+            return this;
+        }
+
+        public Integer getQuantity() {
+            return quantity;
+        }
+
+        public Order setQuantity(Integer quantity) {
+            this.quantity = quantity;
+            return this;
+        }
+
+        public double getPrice() {
+            return price;
+        }
+
+        public Order setPrice(double price) {
+            this.price = price;
+            return this;
+        }
+
+        public boolean isActive() {
+            return active;
+        }
+
+        public Order setActive(boolean active) {
+            this.active = active;
+            return this;
+        }
+
+        public char getCode() {
+            return code;
+        }
+
+        public Order setCode(char code) {
+            this.code = code;
+            return this;
+        }
+
+        public Address getShippingAddress() {
+            return shippingAddress;
+        }
+
+        public Order setShippingAddress(Address shippingAddress) {
+            this.shippingAddress = shippingAddress;
+            return this;
+        }
+    }
+}
@@ -0,0 +1,131 @@
+/*
+ * Copyright (c) 2008-2016, GigaSpaces Technologies, Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.gigaspaces.internal.server.space.redolog;
+
+import com.gigaspaces.internal.cluster.node.impl.ReplicationSingleOperationType;
+import com.gigaspaces.internal.cluster.node.impl.backlog.globalorder.GlobalOrderOperationPacket;
+import com.gigaspaces.internal.cluster.node.impl.packets.IReplicationOrderedPacket;
+import com.gigaspaces.internal.cluster.node.impl.packets.data.operations.AbstractReplicationPacketSingleEntryData;
+import com.gigaspaces.internal.metadata.ITypeDesc;
+import com.gigaspaces.internal.server.space.redolog.storage.INonBatchRedoLogFileStorage;
+import com.gigaspaces.internal.server.space.redolog.storage.StorageReadOnlyIterator;
+import com.gigaspaces.internal.server.storage.IEntryData;
+
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.Mockito;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+
+public class FixedSizeSwapRedoLogFileTest {
+    private final List<IReplicationOrderedPacket> storagePackets = new ArrayList<IReplicationOrderedPacket>();
+    private FixedSizeSwapRedoLogFile<IReplicationOrderedPacket> redoLogFile;
+    private long nextKey;
+
+    @Before
+    @SuppressWarnings("unchecked")
+    public void setUp() throws Exception {
+        INonBatchRedoLogFileStorage<IReplicationOrderedPacket> storage = Mockito.mock(INonBatchRedoLogFileStorage.class);
+        Mockito.doAnswer(new Answer<Void>() {
+            @Override
+            public Void answer(InvocationOnMock invocation) {
+                storagePackets.add((IReplicationOrderedPacket) invocation.getArguments()[0]);
+                return null;
+            }
+        }).when(storage).append(Mockito.any(IReplicationOrderedPacket.class));
+        Mockito.when(storage.readOnlyIterator()).thenAnswer(new Answer<StorageReadOnlyIterator<IReplicationOrderedPacket>>() {
+            @Override
+            public StorageReadOnlyIterator<IReplicationOrderedPacket> answer(InvocationOnMock invocation) {
+                final Iterator<IReplicationOrderedPacket> iterator = storagePackets.iterator();
+                return new StorageReadOnlyIterator<IReplicationOrderedPacket>() {
+                    public boolean hasNext() {
+                        return iterator.hasNext();
+                    }
+
+                    public IReplicationOrderedPacket next() {
+                        return iterator.next();
+                    }
+
+                    public void close() {
+                    }
+                };
+            }
+        });
+        redoLogFile = new FixedSizeSwapRedoLogFile<IReplicationOrderedPacket>(
+                new FixedSizeSwapRedoLogFileConfig<IReplicationOrderedPacket>(4, 4, 8, storage), "test", null);
+
+        add("a", ReplicationSingleOperationType.UPDATE, true);
+        add("b", ReplicationSingleOperationType.UPDATE, true);
+        add("c", ReplicationSingleOperationType.UPDATE, true);
+        add("d", ReplicationSingleOperationType.UPDATE, true);
+        // spilled to the external storage
+        add("a", ReplicationSingleOperationType.UPDATE, true);
+        add("b", ReplicationSingleOperationType.CHANGE, false);
+        add("c", ReplicationSingleOperationType.REMOVE_ENTRY, false);
+        add("d", ReplicationSingleOperationType.UPDATE, true);
+    }
+
+    @Test
+    public void testMemoryPacketsAreSupersededByPacketsOfTheExternalStorage() {
+        Assert.assertEquals(4, redoLogFile.getMemoryPacketCount());
+        Assert.assertEquals(4, storagePackets.size());
+        Assert.assertEquals(3, redoLogFile.getLastSupersedableKey());
+
+        Assert.assertEquals(3, redoLogFile.compactSupersededUpdates(0, 3, 7).getDiscardedCount());
+        assertDiscarded(0, 2, 3);
+        for (IReplicationOrderedPacket packet : storagePackets)
+            Assert.assertFalse(packet.isDiscardedPacket());
+    }
+
+    @Test
+    public void testExternalStoragePacketsAfterTheScanEndAreNotRead() {
+        Assert.assertEquals(1, redoLogFile.compactSupersededUpdates(0, 3, 5).getDiscardedCount());
+        assertDiscarded(0);
+    }
+
+    private void assertDiscarded(long... keys) {
+        Iterator<IReplicationOrderedPacket> iterator = redoLogFile.iterator();
+        while (iterator.hasNext()) {
+            IReplicationOrderedPacket packet = iterator.next();
+            boolean expected = false;
+            for (long key : keys)
+                expected |= key == packet.getKey();
+            Assert.assertEquals("packet " + packet.getKey(), expected, packet.isDiscardedPacket());
+        }
+    }
+
+    private void add(String uid, ReplicationSingleOperationType operationType, boolean fullEntryData) {
+        ITypeDesc typeDesc = Mockito.mock(ITypeDesc.class);
+        IEntryData entryData = Mockito.mock(IEntryData.class);
+        Mockito.when(entryData.getSpaceTypeDescriptor()).thenReturn(typeDesc);
+
+        AbstractReplicationPacketSingleEntryData data = Mockito.mock(AbstractReplicationPacketSingleEntryData.class);
+        Mockito.when(data.isSingleEntryData()).thenReturn(true);
+        Mockito.when(data.getSingleEntryData()).thenReturn(data);
+        Mockito.when(data.getUid()).thenReturn(uid);
+        Mockito.when(data.getOperationType()).thenReturn(operationType);
+        Mockito.when(data.containsFullEntryData()).thenReturn(fullEntryData);
+        Mockito.when(data.getMainEntryData()).thenReturn(entryData);
+        Mockito.when(data.getWeight()).thenReturn(1);
+        redoLogFile.add(new GlobalOrderOperationPacket(nextKey++, data));
+    }
+}
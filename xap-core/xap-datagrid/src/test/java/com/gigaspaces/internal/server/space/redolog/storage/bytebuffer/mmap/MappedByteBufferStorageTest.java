@@ -0,0 +1,198 @@
+/*
+ * Copyright (c) 2008-2016, GigaSpaces Technologies, Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.gigaspaces.internal.server.space.redolog.storage.bytebuffer.mmap;
+
+import com.gigaspaces.internal.server.space.redolog.storage.bytebuffer.DefaultPacketStreamSerializer;
+import com.gigaspaces.internal.server.space.redolog.storage.bytebuffer.IByteBufferStorage;
+import com.gigaspaces.internal.server.space.redolog.storage.bytebuffer.IByteBufferStorageCursor;
+import com.gigaspaces.internal.server.space.redolog.storage.bytebuffer.PacketSerializer;
+import com.gigaspaces.internal.server.space.redolog.storage.bytebuffer.raf.RAFByteBufferStorage;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.Random;
+
+public class MappedByteBufferStorageTest {
+
+    private static final int REGION_SIZE = 1024;
+
+    private MappedByteBufferStorage storage;
+
+    @After
+    public void tearDown() {
+        if (storage != null)
+            storage.close();
+    }
+
+    @Test
+    public void primitivesAcrossRegionBoundary() throws Exception {
+        storage = new MappedByteBufferStorage("mmap_test", REGION_SIZE, false);
+        IByteBufferStorageCursor cursor = storage.getCursor();
+        cursor.setPosition(REGION_SIZE - 2);
+        cursor.writeInt(0x01020304);
+        cursor.setPosition(2 * REGION_SIZE - 5);
+        cursor.writeLong(Long.MIN_VALUE + 7);
+        cursor.writeByte((byte) 9);
+
+        cursor.setPosition(REGION_SIZE - 2);
+        Assert.assertEquals(0x01020304, cursor.readInt());
+        cursor.setPosition(2 * REGION_SIZE - 5);
+        Assert.assertEquals(Long.MIN_VALUE + 7, cursor.readLong());
+        Assert.assertEquals(9, cursor.readByte());
+        Assert.assertEquals(2 * REGION_SIZE + 4, cursor.getPosition());
+    }
+
+    @Test
+    public void bytesAcrossRegionsAndSlices() throws Exception {
+        storage = new MappedByteBufferStorage("mmap_test", REGION_SIZE, true);
+        IByteBufferStorageCursor cursor = storage.getCursor();
+        byte[] small = bytes(100, 1);
+        byte[] large = bytes(3 * REGION_SIZE, 2);
+        cursor.writeBytes(small, 0, small.length);
+        cursor.writeBytes(large, 0, large.length);
+
+        cursor.setPosition(0);
+        ByteBuffer slice = cursor.readSlice(small.length);
+        Assert.assertNotNull(slice);
+        Assert.assertEquals(small.length, slice.remaining());
+        byte[] result = new byte[small.length];
+        slice.get(result);
+        Assert.assertArrayEquals(small, result);
+
+        // a range which spans regions can not be sliced and the position is left unchanged
+        long position = cursor.getPosition();
+        Assert.assertNull(cursor.readSlice(large.length));
+        Assert.assertEquals(position, cursor.getPosition());
+        result = new byte[large.length];
+        cursor.readBytes(result, 0, result.length);
+        Assert.assertArrayEquals(large, result);
+    }
+
+    @Test
+    public void contentSurvivesCursorRecreationAndClear() throws Exception {
+        storage = new MappedByteBufferStorage("mmap_test", REGION_SIZE, false);
+        IByteBufferStorageCursor cursor = storage.getCursor();
+        cursor.writeLong(42);
+        cursor.close();
+        cursor = storage.getCursor();
+        cursor.setPosition(0);
+        Assert.assertEquals(42, cursor.readLong());
+
+        storage.clear();
+        Assert.assertEquals(0, storage.getFile().length());
+        Assert.assertEquals(0, cursor.getPosition());
+        cursor.writeLong(43);
+        cursor.setPosition(0);
+        Assert.assertEquals(43, cursor.readLong());
+    }
+
+    @Test
+    public void deserializePacketsInPlace() throws Exception {
+        storage = new MappedByteBufferStorage("mmap_test", REGION_SIZE, false);
+        PacketSerializer<String> serializer = new PacketSerializer<String>(new DefaultPacketStreamSerializer<String>());
+        IByteBufferStorageCursor cursor = storage.getCursor();
+        for (int i = 0; i < 10; i++) {
+            ByteBuffer packet = serializer.serializePacket("packet" + i);
+            cursor.writeInt(packet.remaining());
+            cursor.writeBytes(packet.array(), packet.position(), packet.remaining());
+        }
+        cursor.setPosition(0);
+        for (int i = 0; i < 10; i++) {
+            ByteBuffer slice = cursor.readSlice(cursor.readInt());
+            Assert.assertNotNull(slice);
+            Assert.assertEquals("packet" + i, serializer.deserializePacket(slice));
+        }
+    }
+
+    @Test(expected = MappedByteBufferStorageException.class)
+    public void closedStorage() throws Exception {
+        storage = new MappedByteBufferStorage("mmap_test", REGION_SIZE, false);
+        storage.close();
+        Assert.assertFalse(storage.getFile().exists());
+        storage.getCursor();
+    }
+
+    @Test
+    public void clearDropsMappedRegions() throws Exception {
+        storage = new MappedByteBufferStorage("mmap_test", REGION_SIZE, true);
+        IByteBufferStorageCursor cursor = storage.getCursor();
+        byte[] content = bytes(10 * REGION_SIZE, 3);
+        for (int i = 0; i < 20; i++) {
+            // filled regions are forced in the background while the file is truncated
+            cursor.writeBytes(content, 0, content.length);
+            storage.clear();
+            Assert.assertEquals(0, storage.getFile().length());
+            Assert.assertEquals(0, cursor.getPosition());
+        }
+        cursor.writeBytes(content, 0, content.length);
+        cursor.setPosition(0);
+        byte[] result = new byte[content.length];
+        cursor.readBytes(result, 0, result.length);
+        Assert.assertArrayEquals(content, result);
+    }
+
+    /**
+     * Runs the same length prefixed packets workload the redo log performs over both storage types
+     * and verifies they are equivalent, see MappedByteBufferStorageBenchmark for their timings.
+     */
+    @Test
+    public void sameContentAsRAFStorage() throws Exception {
+        storage = new MappedByteBufferStorage("mmap_test", 64 * 1024, false);
+        RAFByteBufferStorage rafStorage = new RAFByteBufferStorage("raf_test");
+        try {
+            byte[][] packets = new byte[2000][];
+            Random random = new Random(17);
+            for (int i = 0; i < packets.length; i++)
+                packets[i] = bytes(16 + random.nextInt(512), i);
+
+            runWorkload(storage, packets);
+            runWorkload(rafStorage, packets);
+        } finally {
+            rafStorage.close();
+        }
+    }
+
+    private static void runWorkload(IByteBufferStorage storage, byte[][] packets) throws Exception {
+        IByteBufferStorageCursor cursor = storage.getCursor();
+        for (byte[] packet : packets) {
+            cursor.writeInt(packet.length);
+            cursor.writeBytes(packet, 0, packet.length);
+        }
+        cursor.setPosition(0);
+        byte[] buffer = new byte[1024];
+        for (byte[] packet : packets) {
+            int length = cursor.readInt();
+            Assert.assertEquals(packet.length, length);
+            ByteBuffer slice = cursor.readSlice(length);
+            if (slice != null)
+                slice.get(buffer, 0, length);
+            else
+                cursor.readBytes(buffer, 0, length);
+            Assert.assertArrayEquals(packet, Arrays.copyOf(buffer, length));
+        }
+    }
+
+    private static byte[] bytes(int length, int seed) {
+        byte[] result = new byte[length];
+        for (int i = 0; i < length; i++)
+            result[i] = (byte) (seed + i);
+        return result;
+    }
+}
@@ -0,0 +1,168 @@
+/*
+ * Copyright (c) 2008-2016, GigaSpaces Technologies, Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.gigaspaces.internal.server.storage;
+
+import com.gigaspaces.internal.metadata.ITypeDesc;
+import com.gigaspaces.metadata.ClassBinaryStorageLayout;
+import com.gigaspaces.metadata.SpaceTypeDescriptorBuilder;
+
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+public class HybridPropertiesHolderTest {
+    private static final AtomicInteger payloadDeserializations = new AtomicInteger();
+
+    @Before
+    public void setUp() {
+        payloadDeserializations.set(0);
+    }
+
+    @Test
+    public void testDirectLayoutDeserializesAccessedPropertiesOnly() {
+        ITypeDesc typeDesc = createTypeDesc(ClassBinaryStorageLayout.DIRECT);
+        HybridPropertiesHolder holder = packedHolder(typeDesc);
+        int name = typeDesc.getFixedPropertyPosition("name");
+        int payload = typeDesc.getFixedPropertyPosition("payload");
+
+        Assert.assertEquals("foo", holder.getFixedProperty(typeDesc, name));
+        Assert.assertEquals(0, payloadDeserializations.get());
+        Assert.assertFalse(holder.isUnpacked());
+
+        Payload first = (Payload) holder.getFixedProperty(typeDesc, payload);
+        Assert.assertSame(first, holder.getFixedProperty(typeDesc, payload));
+        Assert.assertEquals(1, payloadDeserializations.get());
+
+        Object[] values = holder.getFixedProperties(typeDesc);
+        Assert.assertTrue(holder.isUnpacked());
+        Assert.assertSame(first, values[payload]);
+        Assert.assertEquals("foo", values[name]);
+        Assert.assertEquals(42, values[typeDesc.getFixedPropertyPosition("age")]);
+    }
+
+    @Test
+    public void testSequentialLayoutDeserializesAllProperties() {
+        ITypeDesc typeDesc = createTypeDesc(ClassBinaryStorageLayout.SEQUENTIAL);
+        HybridPropertiesHolder holder = packedHolder(typeDesc);
+
+        Assert.assertEquals("foo", holder.getFixedProperty(typeDesc, typeDesc.getFixedPropertyPosition("name")));
+        Assert.assertTrue(holder.isUnpacked());
+        Assert.assertEquals(1, payloadDeserializations.get());
+    }
+
+    @Test
+    public void testModifyingPartiallyDeserializedProperties() {
+        ITypeDesc typeDesc = createTypeDesc(ClassBinaryStorageLayout.DIRECT);
+        HybridPropertiesHolder holder = packedHolder(typeDesc);
+        int name = typeDesc.getFixedPropertyPosition("name");
+        Payload payload = (Payload) holder.getFixedProperty(typeDesc, typeDesc.getFixedPropertyPosition("payload"));
+
+        HybridPropertiesHolder clone = holder.clone();
+        clone.setFixedProperty(typeDesc, name, "bar");
+        Assert.assertTrue(clone.isDirty());
+        Assert.assertEquals("bar", clone.getFixedProperty(typeDesc, name));
+        Assert.assertSame(payload, clone.getFixedProperty(typeDesc, typeDesc.getFixedPropertyPosition("payload")));
+        Assert.assertEquals("foo", holder.getFixedProperty(typeDesc, name));
+    }
+
+    @Test
+    public void testConcurrentReadersShareTheDeserializedProperty() throws Exception {
+        final ITypeDesc typeDesc = createTypeDesc(ClassBinaryStorageLayout.DIRECT);
+        final int payload = typeDesc.getFixedPropertyPosition("payload");
+        final int holders = 200;
+        final int threads = 4;
+        final HybridPropertiesHolder[] holder = new HybridPropertiesHolder[1];
+        final Object[][] results = new Object[holders][threads];
+        final AtomicReference<Throwable> error = new AtomicReference<Throwable>();
+        final CyclicBarrier barrier = new CyclicBarrier(threads, new Runnable() {
+            @Override
+            public void run() {
+                holder[0] = packedHolder(typeDesc);
+            }
+        });
+        List<Thread> list = new ArrayList<Thread>();
+        for (int t = 0; t < threads; t++) {
+            final int thread = t;
+            Thread reader = new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    try {
+                        for (int i = 0; i < holders; i++) {
+                            barrier.await();
+                            results[i][thread] = holder[0].getFixedProperty(typeDesc, payload);
+                        }
+                    } catch (Throwable e) {
+                        error.set(e);
+                        barrier.reset();
+                    }
+                }
+            });
+            list.add(reader);
+            reader.start();
+        }
+        for (Thread reader : list)
+            reader.join();
+        if (error.get() != null)
+            throw new AssertionError(error.get());
+        for (Object[] result : results) {
+            Assert.assertNotNull(result[0]);
+            for (Object value : result)
+                Assert.assertSame(result[0], value);
+        }
+        Assert.assertEquals(holders, payloadDeserializations.get());
+    }
+
+    private static ITypeDesc createTypeDesc(ClassBinaryStorageLayout layout) {
+        return (ITypeDesc) new SpaceTypeDescriptorBuilder("Fat")
+                .addFixedProperty("id", String.class)
+                .addFixedProperty("name", String.class)
+                .addFixedProperty("age", Integer.class)
+                .addFixedProperty("payload", Payload.class)
+                .idProperty("id")
+                .binaryStorage(layout)
+                .create();
+    }
+
+    private static HybridPropertiesHolder packedHolder(ITypeDesc typeDesc) {
+        Object[] values = new Object[typeDesc.getNumOfFixedProperties()];
+        values[typeDesc.getFixedPropertyPosition("id")] = "1";
+        values[typeDesc.getFixedPropertyPosition("name")] = "foo";
+        values[typeDesc.getFixedPropertyPosition("age")] = 42;
+        values[typeDesc.getFixedPropertyPosition("payload")] = new Payload();
+        HybridPropertiesHolder holder = new HybridPropertiesHolder(typeDesc, values);
+        return new HybridPropertiesHolder(typeDesc, holder.getNonSerializedProperties(), holder.getPackedSerializedProperties());
+    }
+
+    public static class Payload implements Serializable {
+        private static final long serialVersionUID = 1L;
+        private final long[] data = new long[128];
+
+        private void readObject(ObjectInputStream in) throws IOException, ClassNotFoundException {
+            in.defaultReadObject();
+            payloadDeserializations.incrementAndGet();
+        }
+    }
+}
@@ -0,0 +1,137 @@
+/*
+ * Copyright (c) 2008-2016, GigaSpaces Technologies, Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.gigaspaces.internal.server.storage;
+
+import com.gigaspaces.events.EventSessionConfig;
+import com.gigaspaces.events.NotifyActionType;
+import com.gigaspaces.events.NotifyInfo;
+import com.gigaspaces.internal.server.metadata.IServerTypeDesc;
+import com.gigaspaces.internal.server.space.events.BatchNotifyExecutor.EventHolder;
+import com.gigaspaces.internal.transport.IEntryPacket;
+import com.gigaspaces.internal.transport.ITemplatePacket;
+import com.j_spaces.core.IJSpace;
+import com.j_spaces.core.client.EntryArrivedRemoteEvent;
+
+import net.jini.core.event.RemoteEvent;
+import net.jini.core.event.RemoteEventListener;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.mockito.Mockito;
+
+public class NotifyTemplateHolderTest {
+    private long sequenceNumber;
+
+    @Test
+    public void testUpdatesOfAnEntryAreCoalesced() {
+        NotifyTemplateHolder template = createTemplate(true);
+        EventHolder write = add(template, "a", NotifyActionType.NOTIFY_WRITE, true);
+        EventHolder firstUpdate = add(template, "a", NotifyActionType.NOTIFY_UPDATE, true);
+        add(template, "b", NotifyActionType.NOTIFY_UPDATE, true);
+        EventHolder secondUpdate = add(template, "a", NotifyActionType.NOTIFY_UPDATE, false);
+        EventHolder thirdUpdate = add(template, "a", NotifyActionType.NOTIFY_UPDATE, false);
+        Assert.assertEquals(3, template.getPendingEventsSize());
+
+        Assert.assertSame(write, template.pollPendingEvent());
+        EventHolder coalesced = template.pollPendingEvent();
+        Assert.assertSame(firstUpdate, coalesced);
+        Assert.assertSame(thirdUpdate.getEvent(), coalesced.getEvent());
+        Assert.assertNotSame(secondUpdate.getEvent(), coalesced.getEvent());
+        // the holder keeps the sequence number of the event it was scheduled with
+        Assert.assertEquals(firstUpdate.getSequenceNumber(), coalesced.getSequenceNumber());
+        Assert.assertEquals("b", uidOf(template.pollPendingEvent()));
+        Assert.assertNull(template.pollPendingEvent());
+    }
+
+    @Test
+    public void testUpdatesAreNotCoalescedAcrossOtherEventsOfTheEntry() {
+        NotifyTemplateHolder template = createTemplate(true);
+        add(template, "a", NotifyActionType.NOTIFY_UPDATE, true);
+        add(template, "a", NotifyActionType.NOTIFY_TAKE, true);
+        add(template, "a", NotifyActionType.NOTIFY_WRITE, true);
+        add(template, "a", NotifyActionType.NOTIFY_UPDATE, true);
+        add(template, "a", NotifyActionType.NOTIFY_UPDATE, false);
+        Assert.assertEquals(4, template.getPendingEventsSize());
+
+        Assert.assertEquals(NotifyActionType.NOTIFY_UPDATE.getModifier(), notifyTypeOf(template.pollPendingEvent()));
+        Assert.assertEquals(NotifyActionType.NOTIFY_TAKE.getModifier(), notifyTypeOf(template.pollPendingEvent()));
+        Assert.assertEquals(NotifyActionType.NOTIFY_WRITE.getModifier(), notifyTypeOf(template.pollPendingEvent()));
+        Assert.assertEquals(NotifyActionType.NOTIFY_UPDATE.getModifier(), notifyTypeOf(template.pollPendingEvent()));
+    }
+
+    @Test
+    public void testUpdatesOfDifferentTypesAreNotCoalesced() {
+        NotifyTemplateHolder template = createTemplate(true);
+        add(template, "a", NotifyActionType.NOTIFY_UPDATE, true);
+        add(template, "a", NotifyActionType.NOTIFY_MATCHED_UPDATE, true);
+        add(template, "a", NotifyActionType.NOTIFY_MATCHED_UPDATE, false);
+        add(template, "a", NotifyActionType.NOTIFY_UPDATE, true);
+        Assert.assertEquals(3, template.getPendingEventsSize());
+
+        Assert.assertEquals(NotifyActionType.NOTIFY_UPDATE.getModifier(), notifyTypeOf(template.pollPendingEvent()));
+        Assert.assertEquals(NotifyActionType.NOTIFY_MATCHED_UPDATE.getModifier(), notifyTypeOf(template.pollPendingEvent()));
+        Assert.assertEquals(NotifyActionType.NOTIFY_UPDATE.getModifier(), notifyTypeOf(template.pollPendingEvent()));
+    }
+
+    @Test
+    public void testPolledUpdateIsNotReplaced() {
+        NotifyTemplateHolder template = createTemplate(true);
+        EventHolder first = add(template, "a", NotifyActionType.NOTIFY_UPDATE, true);
+        RemoteEvent sent = template.pollPendingEvent().getEvent();
+
+        EventHolder second = add(template, "a", NotifyActionType.NOTIFY_UPDATE, true);
+        Assert.assertSame(sent, first.getEvent());
+        Assert.assertEquals(1, template.getPendingEventsSize());
+        Assert.assertSame(second, template.pollPendingEvent());
+    }
+
+    @Test
+    public void testUpdatesAreNotCoalescedByDefault() {
+        NotifyTemplateHolder template = createTemplate(false);
+        Assert.assertFalse(template.isCoalesceUpdates());
+        add(template, "a", NotifyActionType.NOTIFY_UPDATE, true);
+        add(template, "a", NotifyActionType.NOTIFY_UPDATE, true);
+        Assert.assertEquals(2, template.getPendingEventsSize());
+    }
+
+    private EventHolder add(NotifyTemplateHolder template, String uid, NotifyActionType notifyType, boolean expectedAdded) {
+        IEntryPacket entryPacket = Mockito.mock(IEntryPacket.class);
+        Mockito.when(entryPacket.getUID()).thenReturn(uid);
+        EntryArrivedRemoteEvent event = new EntryArrivedRemoteEvent(Mockito.mock(IJSpace.class), 1, sequenceNumber++, null,
+                entryPacket, null, notifyType, false, null, null);
+        EventHolder holder = new EventHolder(event, 0);
+        Assert.assertEquals(expectedAdded, template.addPendingEvent(holder));
+        return holder;
+    }
+
+    private static String uidOf(EventHolder holder) {
+        return ((EntryArrivedRemoteEvent) holder.getEvent()).getEntryPacket().getUID();
+    }
+
+    private static int notifyTypeOf(EventHolder holder) {
+        return ((EntryArrivedRemoteEvent) holder.getEvent()).getNotifyType();
+    }
+
+    private static NotifyTemplateHolder createTemplate(boolean coalesceUpdates) {
+        EventSessionConfig config = new EventSessionConfig();
+        config.setBatch(100, 1000);
+        config.setCoalesceUpdates(coalesceUpdates);
+        NotifyInfo info = new NotifyInfo(Mockito.mock(RemoteEventListener.class), NotifyActionType.NOTIFY_ALL, config, null, null, null);
+        return new NotifyTemplateHolder(Mockito.mock(IServerTypeDesc.class, Mockito.RETURNS_DEEP_STUBS),
+                Mockito.mock(ITemplatePacket.class), "template", Long.MAX_VALUE, 1, info, false);
+    }
+}
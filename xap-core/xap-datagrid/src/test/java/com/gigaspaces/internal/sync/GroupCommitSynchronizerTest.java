@@ -0,0 +1,169 @@
+/*
+ * Copyright (c) 2008-2016, GigaSpaces Technologies, Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.gigaspaces.internal.sync;
+
+import com.gigaspaces.sync.DataSyncOperation;
+import com.gigaspaces.sync.OperationsBatchData;
+import com.gigaspaces.sync.SpaceSynchronizationEndpoint;
+import org.junit.Assert;
+import org.junit.Test;
+import org.mockito.Mockito;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicReference;
+
+public class GroupCommitSynchronizerTest {
+
+    private static final int THREADS = 8;
+    private static final Throwable SUCCESS = new Throwable();
+
+    @Test
+    public void concurrentOperationsAreBatched() throws Exception {
+        // a slow endpoint, operations arriving while a batch is synchronized are collected to the next one
+        RecordingEndpoint endpoint = new RecordingEndpoint(null, 1);
+        GroupCommitSynchronizer synchronizer = new GroupCommitSynchronizer(endpoint, "space", 20000, THREADS);
+        DataSyncOperation[] operations = createOperations(THREADS * 50);
+        Map<DataSyncOperation, Throwable> results = runConcurrently(synchronizer, operations);
+
+        Assert.assertEquals(operations.length, results.size());
+        for (Throwable result : results.values())
+            Assert.assertSame(SUCCESS, result);
+        Assert.assertEquals(operations.length, endpoint.synchronizedOperations.size());
+        Assert.assertTrue(endpoint.batches.size() < operations.length);
+        for (int size : endpoint.batches)
+            Assert.assertTrue(size <= THREADS);
+    }
+
+    @Test
+    public void batchFailureIsReportedToItsOperationsWithoutReplay() throws Exception {
+        DataSyncOperation[] operations = createOperations(THREADS * 20);
+        DataSyncOperation failing = operations[operations.length / 2];
+        RecordingEndpoint endpoint = new RecordingEndpoint(failing, 1);
+        GroupCommitSynchronizer synchronizer = new GroupCommitSynchronizer(endpoint, "space", 20000, THREADS);
+        Map<DataSyncOperation, Throwable> results = runConcurrently(synchronizer, operations);
+
+        Assert.assertTrue(results.get(failing) instanceof IllegalStateException);
+        Assert.assertEquals(1, endpoint.failedBatches.size());
+        List<DataSyncOperation> failedBatch = endpoint.failedBatches.get(0);
+        Assert.assertTrue(failedBatch.contains(failing));
+        for (DataSyncOperation operation : operations) {
+            if (failedBatch.contains(operation))
+                Assert.assertSame(results.get(failing), results.get(operation));
+            else
+                Assert.assertSame(SUCCESS, results.get(operation));
+        }
+        // every operation is passed to the endpoint exactly once
+        Assert.assertEquals(operations.length - failedBatch.size(), endpoint.synchronizedOperations.size());
+        Assert.assertEquals(operations.length - failedBatch.size(), new HashSet<DataSyncOperation>(endpoint.synchronizedOperations).size());
+        for (DataSyncOperation operation : failedBatch)
+            Assert.assertFalse(endpoint.synchronizedOperations.contains(operation));
+    }
+
+    @Test(timeout = 5000)
+    public void loneOperationDoesNotWaitForTheWindow() throws Exception {
+        RecordingEndpoint endpoint = new RecordingEndpoint(null, 0);
+        // a window of a minute, which would fail the test if waited for
+        GroupCommitSynchronizer synchronizer = new GroupCommitSynchronizer(endpoint, "space", 60 * 1000 * 1000, THREADS);
+        DataSyncOperation[] operations = createOperations(3);
+        for (DataSyncOperation operation : operations)
+            synchronizer.synchronize(operation);
+        Assert.assertEquals(Arrays.asList(operations), endpoint.synchronizedOperations);
+    }
+
+    private static DataSyncOperation[] createOperations(int count) {
+        DataSyncOperation[] operations = new DataSyncOperation[count];
+        for (int i = 0; i < count; i++)
+            operations[i] = Mockito.mock(DataSyncOperation.class);
+        return operations;
+    }
+
+    private static Map<DataSyncOperation, Throwable> runConcurrently(final GroupCommitSynchronizer synchronizer, final DataSyncOperation[] operations) throws Exception {
+        final Map<DataSyncOperation, Throwable> results = new ConcurrentHashMap<DataSyncOperation, Throwable>();
+        final AtomicReference<Throwable> error = new AtomicReference<Throwable>();
+        final CountDownLatch start = new CountDownLatch(1);
+        List<Thread> threads = new ArrayList<Thread>();
+        for (int t = 0; t < THREADS; t++) {
+            final int offset = t;
+            Thread thread = new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    try {
+                        start.await();
+                        for (int i = offset; i < operations.length; i += THREADS) {
+                            try {
+                                synchronizer.synchronize(operations[i]);
+                                results.put(operations[i], SUCCESS);
+                            } catch (RuntimeException e) {
+                                results.put(operations[i], e);
+                            }
+                        }
+                    } catch (Throwable e) {
+                        error.set(e);
+                    }
+                }
+            });
+            threads.add(thread);
+            thread.start();
+        }
+        start.countDown();
+        for (Thread thread : threads)
+            thread.join();
+        if (error.get() != null)
+            throw new AssertionError(error.get());
+        return results;
+    }
+
+    private static class RecordingEndpoint extends SpaceSynchronizationEndpoint {
+        private final DataSyncOperation _failing;
+        private final long _delayMillis;
+        final List<DataSyncOperation> synchronizedOperations = Collections.synchronizedList(new ArrayList<DataSyncOperation>());
+        final List<Integer> batches = Collections.synchronizedList(new ArrayList<Integer>());
+        final List<List<DataSyncOperation>> failedBatches = Collections.synchronizedList(new ArrayList<List<DataSyncOperation>>());
+
+        private RecordingEndpoint(DataSyncOperation failing, long delayMillis) {
+            _failing = failing;
+            _delayMillis = delayMillis;
+        }
+
+        @Override
+        public void onOperationsBatchSynchronization(OperationsBatchData batchData) {
+            if (_delayMillis > 0) {
+                try {
+                    Thread.sleep(_delayMillis);
+                } catch (InterruptedException e) {
+                    throw new IllegalStateException(e);
+                }
+            }
+            DataSyncOperation[] operations = batchData.getBatchDataItems();
+            for (DataSyncOperation operation : operations) {
+                if (operation == _failing) {
+                    failedBatches.add(Arrays.asList(operations));
+                    throw new IllegalStateException("failed operation");
+                }
+            }
+            batches.add(operations.length);
+            Collections.addAll(synchronizedOperations, operations);
+        }
+    }
+}
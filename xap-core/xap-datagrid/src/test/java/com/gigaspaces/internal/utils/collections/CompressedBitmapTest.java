@@ -0,0 +1,103 @@
+/*
+ * Copyright (c) 2008-2016, GigaSpaces Technologies, Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.gigaspaces.internal.utils.collections;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.Random;
+import java.util.TreeSet;
+
+public class CompressedBitmapTest {
+
+    @Test
+    public void addAndRemoveAcrossContainers() {
+        Random random = new Random(7);
+        CompressedBitmap bitmap = new CompressedBitmap();
+        TreeSet<Integer> expected = new TreeSet<Integer>();
+        //dense enough to convert the first chunks to bitmap containers and back
+        for (int i = 0; i < 200000; i++) {
+            int value = random.nextInt(3 << 16);
+            if (random.nextInt(3) == 0)
+                Assert.assertEquals(expected.remove(value), bitmap.remove(value));
+            else
+                Assert.assertEquals(expected.add(value), bitmap.add(value));
+        }
+        assertSame(expected, bitmap);
+        for (int value = 0; value < (3 << 16); value += 97)
+            Assert.assertEquals(expected.contains(value), bitmap.contains(value));
+
+        for (Integer value : expected)
+            bitmap.remove(value);
+        Assert.assertTrue(bitmap.isEmpty());
+    }
+
+    @Test
+    public void andOr() {
+        Random random = new Random(11);
+        CompressedBitmap sparse = new CompressedBitmap();
+        CompressedBitmap dense = new CompressedBitmap();
+        TreeSet<Integer> sparseValues = new TreeSet<Integer>();
+        TreeSet<Integer> denseValues = new TreeSet<Integer>();
+        for (int i = 0; i < 3000; i++) {
+            int value = random.nextInt(1 << 18);
+            sparse.add(value);
+            sparseValues.add(value);
+        }
+        for (int i = 0; i < 100000; i++) {
+            int value = random.nextInt(1 << 17);
+            dense.add(value);
+            denseValues.add(value);
+        }
+
+        TreeSet<Integer> intersection = new TreeSet<Integer>(sparseValues);
+        intersection.retainAll(denseValues);
+        assertSame(intersection, sparse.and(dense));
+        assertSame(intersection, dense.and(sparse));
+
+        TreeSet<Integer> union = new TreeSet<Integer>(sparseValues);
+        union.addAll(denseValues);
+        assertSame(union, sparse.or(dense));
+        assertSame(union, dense.or(sparse));
+
+        //operands are not modified
+        assertSame(sparseValues, sparse);
+        assertSame(denseValues, dense);
+    }
+
+    @Test
+    public void copyIsIndependent() {
+        CompressedBitmap bitmap = new CompressedBitmap();
+        bitmap.add(1);
+        bitmap.add(70000);
+        CompressedBitmap copy = bitmap.copy();
+        bitmap.remove(1);
+        Assert.assertTrue(copy.contains(1));
+        Assert.assertEquals(2, copy.cardinality());
+        Assert.assertEquals(1, bitmap.cardinality());
+    }
+
+    private static void assertSame(TreeSet<Integer> expected, CompressedBitmap bitmap) {
+        Assert.assertEquals(expected.size(), bitmap.cardinality());
+        CompressedBitmap.IntIterator iterator = bitmap.iterator();
+        for (Integer value : expected) {
+            Assert.assertTrue(iterator.hasNext());
+            Assert.assertEquals(value.intValue(), iterator.next());
+        }
+        Assert.assertFalse(iterator.hasNext());
+    }
+}
@@ -0,0 +1,222 @@
+/*
+ * Copyright (c) 2008-2016, GigaSpaces Technologies, Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.gigaspaces.internal.utils.collections;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Random;
+import java.util.TreeMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+
+public class OffHeapOrderedConcurrentMapTest {
+
+    @Test
+    public void basicOperations() {
+        OffHeapOrderedConcurrentMap<String> map = new OffHeapOrderedConcurrentMap<String>(OffHeapOrderedConcurrentMap.KeyType.LONG);
+        Assert.assertNull(map.putIfAbsent(1L, "a"));
+        Assert.assertEquals("a", map.putIfAbsent(1L, "b"));
+        Assert.assertEquals("a", map.get(1L));
+        Assert.assertEquals(1, map.size());
+
+        Assert.assertFalse(map.replace(1L, "x", "c"));
+        Assert.assertTrue(map.replace(1L, "a", "c"));
+        Assert.assertEquals("c", map.replace(1L, "d"));
+        Assert.assertNull(map.replace(2L, "d"));
+
+        Assert.assertFalse(map.remove(1L, "c"));
+        Assert.assertTrue(map.remove(1L, "d"));
+        Assert.assertNull(map.get(1L));
+        Assert.assertTrue(map.isEmpty());
+        Assert.assertNull(map.remove(1L));
+    }
+
+    @Test(expected = ClassCastException.class)
+    public void otherKeyTypesAreRejected() {
+        OffHeapOrderedConcurrentMap<String> map = new OffHeapOrderedConcurrentMap<String>(OffHeapOrderedConcurrentMap.KeyType.LONG);
+        map.get(5);
+    }
+
+    @Test
+    public void floatingPointOrder() {
+        OffHeapOrderedConcurrentMap<Double> map = new OffHeapOrderedConcurrentMap<Double>(OffHeapOrderedConcurrentMap.KeyType.DOUBLE);
+        double[] values = {Double.NaN, Double.POSITIVE_INFINITY, 1.5d, 0.0d, -0.0d, -1.5d, Double.NEGATIVE_INFINITY, Double.MIN_VALUE, -Double.MAX_VALUE};
+        TreeMap<Object, Double> expected = new TreeMap<Object, Double>();
+        for (double value : values) {
+            map.put(value, value);
+            expected.put(value, value);
+        }
+        assertSameEntries(expected, map);
+        Assert.assertEquals(Double.valueOf(-0.0d), map.get(-0.0d));
+
+        OffHeapOrderedConcurrentMap<Float> floats = new OffHeapOrderedConcurrentMap<Float>(OffHeapOrderedConcurrentMap.KeyType.FLOAT);
+        TreeMap<Object, Float> expectedFloats = new TreeMap<Object, Float>();
+        for (double value : values) {
+            floats.put((float) value, (float) value);
+            expectedFloats.put((float) value, (float) value);
+        }
+        assertSameEntries(expectedFloats, floats);
+    }
+
+    @Test
+    public void randomOperationsAndRangeScans() {
+        OffHeapOrderedConcurrentMap<Integer> map = new OffHeapOrderedConcurrentMap<Integer>(OffHeapOrderedConcurrentMap.KeyType.INTEGER);
+        TreeMap<Object, Integer> expected = new TreeMap<Object, Integer>();
+        Random random = new Random(7);
+        for (int i = 0; i < 50000; i++) {
+            int key = random.nextInt(20000) - 10000;
+            if (random.nextInt(3) == 0) {
+                Assert.assertEquals(expected.remove(key), map.remove(key));
+            } else {
+                Assert.assertEquals(expected.put(key, i), map.put(key, i));
+            }
+        }
+        Assert.assertEquals(expected.size(), map.size());
+        assertSameEntries(expected, map);
+
+        for (int i = 0; i < 200; i++) {
+            int low = random.nextInt(22000) - 11000;
+            int high = low + random.nextInt(5000);
+            boolean lowInclusive = random.nextBoolean();
+            boolean highInclusive = random.nextBoolean();
+            NavigableMap<Object, Integer> range = expected.subMap(low, lowInclusive, high, highInclusive);
+            Assert.assertEquals(range.size(), map.count(low, lowInclusive, high, highInclusive));
+            assertSameValues(range.values().iterator(), map.valuesIterator(low, lowInclusive, high, highInclusive, false));
+            assertSameValues(range.descendingMap().values().iterator(), map.valuesIterator(low, lowInclusive, high, highInclusive, true));
+        }
+        assertSameValues(expected.tailMap(0, false).values().iterator(), map.valuesIterator(0, false, null, false, false));
+        assertSameValues(expected.headMap(0, true).descendingMap().values().iterator(), map.valuesIterator(null, false, 0, true, true));
+
+        //empty the map and reuse the released pages
+        for (Object key : new ArrayList<Object>(expected.keySet()))
+            Assert.assertEquals(expected.remove(key), map.remove(key));
+        Assert.assertTrue(map.isEmpty());
+        Assert.assertFalse(map.valuesIterator(null, false, null, false, false).hasNext());
+        long reserved = map.getReservedBytes();
+        for (int i = 0; i < 10000; i++)
+            map.put(i, i);
+        Assert.assertEquals(reserved, map.getReservedBytes());
+        Assert.assertEquals(10000, map.count(null, false, null, false));
+    }
+
+    @Test
+    public void iteratorRemove() {
+        OffHeapOrderedConcurrentMap<Long> map = new OffHeapOrderedConcurrentMap<Long>(OffHeapOrderedConcurrentMap.KeyType.LONG);
+        for (long i = 0; i < 1000; i++)
+            map.put(i, i);
+        Iterator<Map.Entry<Object, Long>> iterator = map.entrySet().iterator();
+        while (iterator.hasNext()) {
+            if ((Long) iterator.next().getKey() % 2 == 0)
+                iterator.remove();
+        }
+        Assert.assertEquals(500, map.size());
+        Assert.assertNull(map.get(42L));
+        Assert.assertEquals(Long.valueOf(43), map.get(43L));
+    }
+
+    @Test
+    public void concurrentUpdatesAndScans() throws Exception {
+        final OffHeapOrderedConcurrentMap<Long> map = new OffHeapOrderedConcurrentMap<Long>(OffHeapOrderedConcurrentMap.KeyType.LONG);
+        final int threads = 4;
+        final int keys = 20000;
+        final AtomicReference<Throwable> error = new AtomicReference<Throwable>();
+        final AtomicBoolean done = new AtomicBoolean();
+        List<Thread> writers = new ArrayList<Thread>();
+        for (int t = 0; t < threads; t++) {
+            final long base = t;
+            Thread thread = new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    try {
+                        //threads interleave their keys so all of them update the same leaves
+                        for (long i = base; i < (long) threads * keys; i += threads) {
+                            Assert.assertNull(map.putIfAbsent(i, i));
+                            Assert.assertEquals(Long.valueOf(i), map.get(i));
+                            if (i % 3 == 0)
+                                Assert.assertTrue(map.remove(i, i));
+                        }
+                    } catch (Throwable e) {
+                        error.set(e);
+                    }
+                }
+            });
+            writers.add(thread);
+            thread.start();
+        }
+        Thread scanner = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    while (!done.get()) {
+                        long previous = Long.MAX_VALUE;
+                        Iterator<Long> iterator = map.valuesIterator(null, false, null, false, true);
+                        while (iterator.hasNext()) {
+                            long value = iterator.next();
+                            Assert.assertTrue(value < previous);
+                            previous = value;
+                        }
+                    }
+                } catch (Throwable e) {
+                    error.set(e);
+                }
+            }
+        });
+        scanner.start();
+        for (Thread thread : writers)
+            thread.join();
+        done.set(true);
+        scanner.join();
+        if (error.get() != null)
+            throw new AssertionError(error.get());
+        int expected = 0;
+        for (long i = 0; i < (long) threads * keys; i++) {
+            if (i % 3 != 0) {
+                expected++;
+                Assert.assertEquals(Long.valueOf(i), map.get(i));
+            } else {
+                Assert.assertNull(map.get(i));
+            }
+        }
+        Assert.assertEquals(expected, map.size());
+        Assert.assertEquals(expected, map.count(null, false, null, false));
+    }
+
+    private static <V> void assertSameEntries(TreeMap<Object, V> expected, OffHeapOrderedConcurrentMap<V> map) {
+        Iterator<Map.Entry<Object, V>> actual = map.entrySet().iterator();
+        for (Map.Entry<Object, V> entry : expected.entrySet()) {
+            Assert.assertTrue(actual.hasNext());
+            Map.Entry<Object, V> actualEntry = actual.next();
+            Assert.assertEquals(entry.getKey(), actualEntry.getKey());
+            Assert.assertEquals(entry.getValue(), actualEntry.getValue());
+        }
+        Assert.assertFalse(actual.hasNext());
+    }
+
+    private static <V> void assertSameValues(Iterator<V> expected, Iterator<V> actual) {
+        while (expected.hasNext()) {
+            Assert.assertTrue(actual.hasNext());
+            Assert.assertEquals(expected.next(), actual.next());
+        }
+        Assert.assertFalse(actual.hasNext());
+    }
+}
@@ -0,0 +1,224 @@
+/*
+ * Copyright (c) 2008-2016, GigaSpaces Technologies, Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.gigaspaces.internal.utils.collections;
+
+import com.gigaspaces.internal.gnu.trove.HashFunctions;
+import com.gigaspaces.internal.gnu.trove.PrimeFinder;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+
+public class PrimitiveKeyConcurrentHashMapTest {
+
+    @Test
+    public void basicOperations() {
+        PrimitiveKeyConcurrentHashMap<String> map = new PrimitiveKeyConcurrentHashMap<String>(PrimitiveKeyConcurrentHashMap.KeyType.LONG, 16, 4);
+        Assert.assertNull(map.putIfAbsent(1L, "a"));
+        Assert.assertEquals("a", map.putIfAbsent(1L, "b"));
+        Assert.assertEquals("a", map.get(1L));
+        Assert.assertTrue(map.containsKey(1L));
+        Assert.assertEquals(1, map.size());
+
+        Assert.assertFalse(map.replace(1L, "x", "c"));
+        Assert.assertTrue(map.replace(1L, "a", "c"));
+        Assert.assertEquals("c", map.get(1L));
+        Assert.assertEquals("c", map.replace(1L, "d"));
+        Assert.assertNull(map.replace(2L, "d"));
+
+        Assert.assertFalse(map.remove(1L, "c"));
+        Assert.assertTrue(map.remove(1L, "d"));
+        Assert.assertNull(map.get(1L));
+        Assert.assertTrue(map.isEmpty());
+        Assert.assertNull(map.remove(1L));
+    }
+
+    @Test
+    public void otherKeyTypesAreNotEqual() {
+        PrimitiveKeyConcurrentHashMap<String> map = new PrimitiveKeyConcurrentHashMap<String>(PrimitiveKeyConcurrentHashMap.KeyType.LONG, 16, 1);
+        map.put(5L, "long");
+        Assert.assertNull(map.get(5));
+        map.put(5, "int");
+        Assert.assertEquals("long", map.get(5L));
+        Assert.assertEquals("int", map.get(5));
+        Assert.assertEquals(2, map.size());
+        Assert.assertEquals("int", map.remove(5));
+        Assert.assertEquals(1, map.size());
+    }
+
+    @Test
+    public void doubleKeysFollowEquals() {
+        PrimitiveKeyConcurrentHashMap<String> map = new PrimitiveKeyConcurrentHashMap<String>(PrimitiveKeyConcurrentHashMap.KeyType.DOUBLE, 16, 1);
+        map.put(Double.NaN, "nan");
+        map.put(0.0d, "zero");
+        Assert.assertEquals("nan", map.get(Double.NaN));
+        Assert.assertNull(map.get(-0.0d));
+        Assert.assertEquals(Double.valueOf(0.0d), findKey(map, "zero"));
+    }
+
+    @Test
+    public void growAndIterate() {
+        PrimitiveKeyConcurrentHashMap<Integer> map = new PrimitiveKeyConcurrentHashMap<Integer>(PrimitiveKeyConcurrentHashMap.KeyType.INTEGER, 16, 8);
+        for (int i = -5000; i < 5000; i++)
+            map.put(i, i);
+        for (int i = -5000; i < 0; i++)
+            map.remove(i);
+        Assert.assertEquals(5000, map.size());
+        for (int i = 0; i < 5000; i++)
+            Assert.assertEquals(Integer.valueOf(i), map.get(i));
+
+        Map<Object, Integer> copy = new HashMap<Object, Integer>();
+        for (Map.Entry<Object, Integer> entry : map.entrySet())
+            copy.put(entry.getKey(), entry.getValue());
+        Assert.assertEquals(5000, copy.size());
+        Assert.assertEquals(Integer.valueOf(42), copy.get(42));
+
+        Iterator<Object> iterator = map.keySet().iterator();
+        while (iterator.hasNext()) {
+            if (((Integer) iterator.next()) % 2 == 0)
+                iterator.remove();
+        }
+        Assert.assertEquals(2500, map.size());
+        Assert.assertNull(map.get(42));
+        Assert.assertEquals(Integer.valueOf(43), map.get(43));
+    }
+
+    @Test
+    public void concurrentUpdatesAndReads() throws Exception {
+        final PrimitiveKeyConcurrentHashMap<Long> map = new PrimitiveKeyConcurrentHashMap<Long>(PrimitiveKeyConcurrentHashMap.KeyType.LONG, 16, 4);
+        final int threads = 4;
+        final int keys = 20000;
+        final AtomicReference<Throwable> error = new AtomicReference<Throwable>();
+        List<Thread> list = new ArrayList<Thread>();
+        for (int t = 0; t < threads; t++) {
+            final long base = (long) t * keys;
+            Thread thread = new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    try {
+                        for (long i = base; i < base + keys; i++) {
+                            Assert.assertNull(map.putIfAbsent(i, i));
+                            Assert.assertEquals(Long.valueOf(i), map.get(i));
+                            if (i % 3 == 0)
+                                Assert.assertTrue(map.remove(i, i));
+                        }
+                    } catch (Throwable e) {
+                        error.set(e);
+                    }
+                }
+            });
+            list.add(thread);
+            thread.start();
+        }
+        for (Thread thread : list)
+            thread.join();
+        if (error.get() != null)
+            throw new AssertionError(error.get());
+        int expected = 0;
+        for (long i = 0; i < (long) threads * keys; i++) {
+            if (i % 3 != 0) {
+                expected++;
+                Assert.assertEquals(Long.valueOf(i), map.get(i));
+            } else {
+                Assert.assertNull(map.get(i));
+            }
+        }
+        Assert.assertEquals(expected, map.size());
+    }
+
+    @Test
+    public void concurrentRemoveAndReinsertOfReusedSlot() throws Exception {
+        //a single segment whose table is never rehashed, both keys start probing at the same slot
+        final PrimitiveKeyConcurrentHashMap<Long> map = new PrimitiveKeyConcurrentHashMap<Long>(PrimitiveKeyConcurrentHashMap.KeyType.LONG, 1, 1);
+        final int length = PrimeFinder.nextPrime(5);
+        final long keyA = 1;
+        long candidate = keyA + 1;
+        while (slotOf(candidate, length) != slotOf(keyA, length))
+            candidate++;
+        final long keyB = candidate;
+        final Long valueA = keyA;
+        final Long valueB = keyB;
+        final int iterations = 1000000;
+        final AtomicReference<Throwable> error = new AtomicReference<Throwable>();
+        final AtomicBoolean done = new AtomicBoolean();
+
+        Thread writer = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    for (int i = 0; i < iterations; i++) {
+                        map.put(keyA, valueA);
+                        map.remove(keyA);
+                        map.put(keyB, valueB);
+                        map.remove(keyB);
+                    }
+                } catch (Throwable e) {
+                    error.set(e);
+                } finally {
+                    done.set(true);
+                }
+            }
+        });
+        List<Thread> readers = new ArrayList<Thread>();
+        for (int t = 0; t < 3; t++) {
+            readers.add(new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    try {
+                        while (!done.get()) {
+                            Long a = map.get(keyA);
+                            if (a != null && a != valueA)
+                                throw new AssertionError("key " + keyA + " returned the value of " + a);
+                            Long b = map.get(keyB);
+                            if (b != null && b != valueB)
+                                throw new AssertionError("key " + keyB + " returned the value of " + b);
+                        }
+                    } catch (Throwable e) {
+                        error.set(e);
+                    }
+                }
+            }));
+        }
+        for (Thread reader : readers)
+            reader.start();
+        writer.start();
+        writer.join();
+        for (Thread reader : readers)
+            reader.join();
+        if (error.get() != null)
+            throw new AssertionError(error.get());
+        Assert.assertTrue(map.isEmpty());
+    }
+
+    private static int slotOf(long key, int length) {
+        return (HashFunctions.hash(key) & 0x7fffffff) % length;
+    }
+
+    private static Object findKey(Map<Object, String> map, String value) {
+        for (Map.Entry<Object, String> entry : map.entrySet())
+            if (entry.getValue().equals(value))
+                return entry.getKey();
+        return null;
+    }
+}
@@ -0,0 +1,112 @@
+/*
+ * Copyright (c) 2008-2016, GigaSpaces Technologies, Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.gigaspaces.lrmi.nio;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.WritableByteChannel;
+import java.util.Random;
+
+public class DirectByteBufferPoolTest {
+
+    @Test
+    public void testReleasedBuffersAreReused() {
+        DirectByteBufferPool pool = new DirectByteBufferPool(64 * 1024, 1024 * 1024);
+        DirectByteBufferPool.PooledByteBuffer first = pool.acquire(5000);
+        Assert.assertTrue(first.buffer().isDirect());
+        Assert.assertEquals(8 * 1024, first.buffer().capacity());
+        Assert.assertEquals(8 * 1024, pool.getOutstandingBytes());
+        first.release();
+        Assert.assertEquals(0, pool.getOutstandingBytes());
+        Assert.assertEquals(8 * 1024, pool.getPooledBytes());
+
+        DirectByteBufferPool.PooledByteBuffer second = pool.acquire(8 * 1024);
+        Assert.assertSame(first.buffer(), second.buffer());
+        Assert.assertEquals(1, pool.getHits());
+        Assert.assertEquals(1, pool.getMisses());
+
+        DirectByteBufferPool.PooledByteBuffer small = pool.acquire(10);
+        Assert.assertEquals(4 * 1024, small.buffer().capacity());
+        Assert.assertEquals(2, pool.getMisses());
+    }
+
+    @Test
+    public void testBufferIsReleasedOnce() {
+        DirectByteBufferPool pool = new DirectByteBufferPool(64 * 1024, 1024 * 1024);
+        DirectByteBufferPool.PooledByteBuffer buffer = pool.acquire(100);
+        buffer.release();
+        Assert.assertEquals(4 * 1024, pool.getPooledBytes());
+
+        try {
+            buffer.release();
+            Assert.fail("Expected IllegalStateException");
+        } catch (IllegalStateException e) {
+            // expected
+        }
+    }
+
+    @Test
+    public void testIdleBuffersAreBounded() {
+        DirectByteBufferPool pool = new DirectByteBufferPool(64 * 1024, 8 * 1024);
+        DirectByteBufferPool.PooledByteBuffer first = pool.acquire(8 * 1024);
+        DirectByteBufferPool.PooledByteBuffer second = pool.acquire(8 * 1024);
+        first.release();
+        second.release();
+        Assert.assertEquals(8 * 1024, pool.getPooledBytes());
+        Assert.assertEquals(0, pool.getOutstandingBytes());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testBuffersLargerThanTheMaximalSizeAreRejected() {
+        new DirectByteBufferPool(64 * 1024, 1024 * 1024).acquire(64 * 1024 + 1);
+    }
+
+    @Test
+    public void testHeapBuffersAreStagedThroughThePool() throws Exception {
+        DirectByteBufferPool pool = new DirectByteBufferPool(4 * 1024, 1024 * 1024);
+        byte[] data = new byte[10000];
+        new Random(17).nextBytes(data);
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        WritableByteChannel sink = Channels.newChannel(out);
+        ByteBuffer src = ByteBuffer.wrap(data, 100, 9000);
+        Assert.assertEquals(9000, pool.write(sink, src));
+        Assert.assertFalse(src.hasRemaining());
+        byte[] written = out.toByteArray();
+        Assert.assertEquals(9000, written.length);
+        for (int i = 0; i < written.length; i++)
+            Assert.assertEquals(data[100 + i], written[i]);
+
+        ReadableByteChannel source = Channels.newChannel(new ByteArrayInputStream(written));
+        ByteBuffer dst = ByteBuffer.allocate(9000);
+        int read = 0;
+        while (dst.hasRemaining())
+            read += pool.read(source, dst);
+        Assert.assertEquals(9000, read);
+        Assert.assertArrayEquals(written, dst.array());
+        Assert.assertEquals(-1, pool.read(source, ByteBuffer.allocate(10)));
+
+        Assert.assertEquals(0, pool.getOutstandingBytes());
+        Assert.assertTrue(pool.getHits() > 0);
+    }
+}
@@ -0,0 +1,124 @@
+/*
+ * Copyright (c) 2008-2016, GigaSpaces Technologies, Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.gigaspaces.lrmi.nio;
+
+import com.gigaspaces.internal.version.PlatformLogicalVersion;
+import com.gigaspaces.lrmi.LRMIInvocationContext;
+import com.gigaspaces.lrmi.LRMIInvocationContext.InvocationStage;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.Mockito;
+
+import java.net.InetSocketAddress;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.rmi.ConnectException;
+
+public class MultiplexedChannelTest {
+    private ServerSocketChannel acceptor;
+    private SocketChannel clientChannel;
+    private SocketChannel serverChannel;
+    private Writer serverWriter;
+    private CPeer cpeer;
+    private MultiplexedChannel channel;
+
+    @Before
+    public void setUp() throws Exception {
+        acceptor = ServerSocketChannel.open();
+        acceptor.bind(new InetSocketAddress("localhost", 0));
+        clientChannel = SocketChannel.open(acceptor.getLocalAddress());
+        serverChannel = acceptor.accept();
+        serverWriter = new Writer(serverChannel, null);
+
+        PlatformLogicalVersion version = PlatformLogicalVersion.getLogicalVersion();
+        LRMIInvocationContext.updateContext(null, null, InvocationStage.CLIENT_SEND_REQUEST, version, version, false, null, null);
+
+        cpeer = Mockito.mock(CPeer.class);
+        Mockito.when(cpeer.getServiceVersion()).thenReturn(version);
+        channel = new MultiplexedChannel(cpeer, new Reader(clientChannel, 0), Mockito.mock(ClientPeerWatchedObjectsContext.class), null, "test");
+        channel.start();
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        LRMIInvocationContext.resetContext();
+        clientChannel.close();
+        serverChannel.close();
+        acceptor.close();
+    }
+
+    @Test
+    public void testRepliesAreCorrelatedWithRequests() throws Exception {
+        MultiplexedChannel.PendingInvocation first = channel.register("first");
+        MultiplexedChannel.PendingInvocation second = channel.register("second");
+        MultiplexedChannel.PendingInvocation third = channel.register("third");
+        Assert.assertEquals(3, channel.getNumOfPendingInvocations());
+
+        writeReply("third-result", third.getRequestId());
+        writeReply("first-result", first.getRequestId());
+        writeReply("second-result", second.getRequestId());
+
+        Assert.assertEquals("first-result", first.awaitReply().getResult());
+        Assert.assertEquals("second-result", second.awaitReply().getResult());
+        Assert.assertEquals("third-result", third.awaitReply().getResult());
+        Assert.assertEquals(0, channel.getNumOfPendingInvocations());
+    }
+
+    @Test
+    public void testReplyOfCancelledInvocationIsDropped() throws Exception {
+        MultiplexedChannel.PendingInvocation cancelled = channel.register("cancelled");
+        MultiplexedChannel.PendingInvocation pending = channel.register("pending");
+        cancelled.cancel();
+
+        writeReply("cancelled-result", cancelled.getRequestId());
+        writeReply("pending-result", pending.getRequestId());
+
+        Assert.assertEquals("pending-result", pending.awaitReply().getResult());
+        Assert.assertFalse(channel.isClosed());
+    }
+
+    @Test
+    public void testPendingInvocationsFailWhenConnectionBreaks() throws Exception {
+        MultiplexedChannel.PendingInvocation invocation = channel.register("broken");
+        serverChannel.close();
+
+        try {
+            invocation.awaitReply();
+            Assert.fail("Expected ConnectException");
+        } catch (ConnectException e) {
+            // expected
+        }
+        Assert.assertTrue(channel.isClosed());
+        Mockito.verify(cpeer, Mockito.timeout(5000)).disconnect();
+
+        try {
+            channel.register("closed");
+            Assert.fail("Expected ConnectException");
+        } catch (ConnectException e) {
+            // expected
+        }
+    }
+
+    private void writeReply(Object result, long requestId) throws Exception {
+        ReplyPacket<Object> reply = new ReplyPacket<Object>(result, null);
+        reply.setRequestId(requestId);
+        serverWriter.writeReply(reply);
+    }
+}
@@ -0,0 +1,182 @@
+/*
+ * Copyright (c) 2008-2016, GigaSpaces Technologies, Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.gigaspaces.server.blobstore;
+
+import com.gigaspaces.datasource.DataIterator;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+public class MappedSegmentBlobStoreStorageHandlerTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private MappedSegmentBlobStoreStorageHandler handler;
+
+    @After
+    public void tearDown() {
+        if (handler != null)
+            handler.close();
+    }
+
+    private MappedSegmentBlobStoreStorageHandler open(boolean warmStart) {
+        if (handler != null)
+            handler.close();
+        handler = new MappedSegmentBlobStoreStorageHandler();
+        handler.setPath(folder.getRoot().getPath());
+        handler.setSegmentSize(4096);
+        handler.setCompactionInterval(0);
+        handler.initialize(new BlobStoreConfig("container1:mySpace", 1, 0, warmStart, null));
+        return handler;
+    }
+
+    @Test
+    public void addGetReplaceRemove() {
+        open(false);
+        Object position = handler.add("uid1", bytes("v1"), BlobStoreObjectType.DATA);
+        Assert.assertTrue(position instanceof Long);
+        Assert.assertEquals("v1", string(handler.get("uid1", position, BlobStoreObjectType.DATA)));
+        Assert.assertEquals("v1", string(handler.get("uid1", null, BlobStoreObjectType.DATA)));
+
+        Object newPosition = handler.replace("uid1", bytes("v2"), position, BlobStoreObjectType.DATA);
+        Assert.assertNotEquals(position, newPosition);
+        Assert.assertEquals("v2", string(handler.get("uid1", newPosition, BlobStoreObjectType.DATA)));
+
+        Assert.assertEquals("v2", string(handler.remove("uid1", newPosition, BlobStoreObjectType.DATA)));
+        Assert.assertNull(handler.get("uid1", null, BlobStoreObjectType.DATA));
+    }
+
+    @Test(expected = BlobStoreException.class)
+    public void addExistingFails() {
+        open(false);
+        handler.add("uid1", bytes("v1"), BlobStoreObjectType.DATA);
+        handler.add("uid1", bytes("v1"), BlobStoreObjectType.DATA);
+    }
+
+    @Test
+    public void objectTypesAreSeparated() {
+        open(false);
+        handler.add("uid1", bytes("data"), BlobStoreObjectType.DATA);
+        handler.add("uid1", "metadata", BlobStoreObjectType.METADATA);
+        Assert.assertEquals("data", string(handler.get("uid1", null, BlobStoreObjectType.DATA)));
+        Assert.assertEquals("metadata", handler.get("uid1", null, BlobStoreObjectType.METADATA));
+    }
+
+    @Test
+    public void compactionRelocatesLiveRecords() {
+        open(false);
+        Object position = handler.add("live", bytes("keep me"), BlobStoreObjectType.DATA);
+        for (int i = 0; i < 200; i++)
+            handler.add("dead" + i, bytes("some payload " + i), BlobStoreObjectType.DATA);
+        for (int i = 0; i < 200; i++)
+            handler.remove("dead" + i, null, BlobStoreObjectType.DATA);
+        int segments = handler.getNumOfSegments();
+        long garbage = handler.getGarbageBytes();
+        Assert.assertTrue(segments > 1);
+
+        handler.compact();
+
+        Assert.assertTrue(handler.getNumOfSegments() < segments);
+        // the stale position no longer exists and the record is found through the index
+        Assert.assertEquals("keep me", string(handler.get("live", position, BlobStoreObjectType.DATA)));
+        Assert.assertTrue(handler.getGarbageBytes() < garbage);
+    }
+
+    @Test
+    public void bulkResults() {
+        open(false);
+        handler.add("uid2", bytes("v2"), BlobStoreObjectType.DATA);
+        List<BlobStoreBulkOperationRequest> operations = new ArrayList<BlobStoreBulkOperationRequest>();
+        operations.add(new BlobStoreAddBulkOperationRequest("uid1", bytes("v1"), null));
+        operations.add(new BlobStoreAddBulkOperationRequest("uid2", bytes("v2"), null));
+        operations.add(new BlobStoreRemoveBulkOperationRequest("uid2", null, null));
+
+        List<BlobStoreBulkOperationResult> results = handler.executeBulk(operations, BlobStoreObjectType.DATA, false);
+        Assert.assertEquals(3, results.size());
+        Assert.assertNull(results.get(0).getException());
+        Assert.assertNotNull(results.get(1).getException());
+        Assert.assertNull(results.get(2).getException());
+        Assert.assertEquals("v1", string(handler.get("uid1", results.get(0).getPosition(), BlobStoreObjectType.DATA)));
+        Assert.assertNull(handler.get("uid2", null, BlobStoreObjectType.DATA));
+    }
+
+    @Test
+    public void transactionalBulkIsAtomic() {
+        open(false);
+        List<BlobStoreBulkOperationRequest> operations = new ArrayList<BlobStoreBulkOperationRequest>();
+        operations.add(new BlobStoreAddBulkOperationRequest("uid1", bytes("v1"), null));
+        operations.add(new BlobStoreReplaceBulkOperationRequest("missing", bytes("v2"), null, null));
+        try {
+            handler.executeBulk(operations, BlobStoreObjectType.DATA, true);
+            Assert.fail("expected BlobStoreException");
+        } catch (BlobStoreException e) {
+        }
+        Assert.assertNull(handler.get("uid1", null, BlobStoreObjectType.DATA));
+    }
+
+    @Test
+    public void warmStartRecoversLatestState() {
+        open(false);
+        handler.add("uid1", bytes("v1"), BlobStoreObjectType.DATA);
+        handler.add("uid2", bytes("v2"), BlobStoreObjectType.DATA);
+        handler.replace("uid1", bytes("v1.1"), null, BlobStoreObjectType.DATA);
+        handler.remove("uid2", null, BlobStoreObjectType.DATA);
+        List<BlobStoreBulkOperationRequest> operations = new ArrayList<BlobStoreBulkOperationRequest>();
+        operations.add(new BlobStoreAddBulkOperationRequest(3, bytes("v3"), null));
+        handler.executeBulk(operations, BlobStoreObjectType.DATA, true);
+
+        open(true);
+        Map<Serializable, String> recovered = new HashMap<Serializable, String>();
+        DataIterator<BlobStoreGetBulkOperationResult> iterator = handler.iterator(BlobStoreObjectType.DATA);
+        while (iterator.hasNext()) {
+            BlobStoreGetBulkOperationResult result = iterator.next();
+            recovered.put(result.getId(), string(result.getData()));
+        }
+        Assert.assertEquals(2, recovered.size());
+        Assert.assertEquals("v1.1", recovered.get("uid1"));
+        Assert.assertEquals("v3", recovered.get(3));
+
+        handler.add("uid4", bytes("v4"), BlobStoreObjectType.DATA);
+        Assert.assertEquals("v4", string(handler.get("uid4", null, BlobStoreObjectType.DATA)));
+    }
+
+    @Test
+    public void coldStartDiscardsPreviousData() {
+        open(false);
+        handler.add("uid1", bytes("v1"), BlobStoreObjectType.DATA);
+        open(false);
+        Assert.assertNull(handler.get("uid1", null, BlobStoreObjectType.DATA));
+        Assert.assertFalse(handler.iterator(BlobStoreObjectType.DATA).hasNext());
+    }
+
+    private static byte[] bytes(String s) {
+        return s.getBytes();
+    }
+
+    private static String string(Serializable data) {
+        return data == null ? null : new String((byte[]) data);
+    }
+}
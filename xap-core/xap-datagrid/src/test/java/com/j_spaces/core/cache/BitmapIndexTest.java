@@ -0,0 +1,86 @@
+/*
+ * Copyright (c) 2008-2016, GigaSpaces Technologies, Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.j_spaces.core.cache;
+
+import com.gigaspaces.internal.utils.collections.CompressedBitmap;
+import org.junit.Assert;
+import org.junit.Test;
+import org.mockito.Mockito;
+
+public class BitmapIndexTest {
+
+    @Test
+    public void intersectsIndexesByOrdinal() {
+        EntryOrdinals ordinals = new EntryOrdinals();
+        BitmapIndex color = new BitmapIndex(ordinals);
+        BitmapIndex size = new BitmapIndex(ordinals);
+        IEntryCacheInfo[] entries = new IEntryCacheInfo[100];
+        for (int i = 0; i < entries.length; i++) {
+            entries[i] = Mockito.mock(IEntryCacheInfo.class);
+            color.insert(i % 2 == 0 ? "red" : "blue", entries[i]);
+            size.insert(i % 3, entries[i]);
+        }
+        Assert.assertEquals(100, ordinals.size());
+
+        CompressedBitmap redAndZero = size.and(color.get("red"), 0);
+        Assert.assertEquals(17, redAndZero.cardinality());
+        for (CompressedBitmap.IntIterator iterator = redAndZero.iterator(); iterator.hasNext(); ) {
+            IEntryCacheInfo entry = ordinals.getEntry(iterator.next());
+            int i = indexOf(entries, entry);
+            Assert.assertTrue(i % 6 == 0);
+        }
+        Assert.assertEquals(67, size.or(size.get(0), 1).cardinality());
+        Assert.assertTrue(color.get("green").isEmpty());
+    }
+
+    @Test
+    public void ordinalIsKeptUntilRemovedFromAllIndexes() {
+        EntryOrdinals ordinals = new EntryOrdinals();
+        BitmapIndex color = new BitmapIndex(ordinals);
+        BitmapIndex size = new BitmapIndex(ordinals);
+        IEntryCacheInfo entry = Mockito.mock(IEntryCacheInfo.class);
+        color.insert("red", entry);
+        size.insert(1, entry);
+        int ordinal = ordinals.get(entry);
+
+        //update - the new value is inserted before the old one is removed
+        color.insert("blue", entry);
+        color.remove("red", entry);
+        Assert.assertEquals(ordinal, ordinals.get(entry));
+        Assert.assertTrue(color.get("blue").contains(ordinal));
+        Assert.assertEquals(1, color.getNumOfValues());
+
+        color.remove("blue", entry);
+        Assert.assertEquals(ordinal, ordinals.get(entry));
+        size.remove(1, entry);
+        Assert.assertEquals(-1, ordinals.get(entry));
+        Assert.assertNull(ordinals.getEntry(ordinal));
+        Assert.assertEquals(0, ordinals.size());
+
+        //released ordinals are reused
+        IEntryCacheInfo other = Mockito.mock(IEntryCacheInfo.class);
+        color.insert("red", other);
+        Assert.assertEquals(ordinal, ordinals.get(other));
+    }
+
+    private static int indexOf(IEntryCacheInfo[] entries, IEntryCacheInfo entry) {
+        for (int i = 0; i < entries.length; i++)
+            if (entries[i] == entry)
+                return i;
+        return -1;
+    }
+}
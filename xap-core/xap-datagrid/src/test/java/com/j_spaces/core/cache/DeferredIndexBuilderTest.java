@@ -0,0 +1,210 @@
+/*
+ * Copyright (c) 2008-2016, GigaSpaces Technologies, Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.j_spaces.core.cache;
+
+import com.gigaspaces.internal.server.space.SpaceEngine;
+import com.gigaspaces.internal.server.storage.IEntryData;
+import com.gigaspaces.internal.server.storage.IEntryHolder;
+import com.gigaspaces.server.ServerEntry;
+import com.j_spaces.kernel.IObjectInfo;
+import org.junit.Assert;
+import org.junit.Test;
+import org.mockito.Matchers;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class DeferredIndexBuilderTest {
+
+    private final Map<TypeDataIndex, List<IEntryCacheInfo>> insertedByIndex = new HashMap<TypeDataIndex, List<IEntryCacheInfo>>();
+
+    @Test
+    public void indexesAreBuiltInBackRefsOrder() throws Exception {
+        TypeDataIndex name = mockIndex("name", false, false);
+        TypeDataIndex id = mockIndex("id", false, false);
+        TypeDataIndex age = mockIndex("age", true, false);
+        TypeDataIndex city = mockIndex("city", false, false);
+        TypeData typeData = mockType(id, name, id, age, city);
+
+        DeferredIndexBuilder builder = new DeferredIndexBuilder(mockCacheManager(), 4);
+        List<IEntryCacheInfo> entries = new ArrayList<IEntryCacheInfo>();
+        for (int i = 0; i < 1000; i++) {
+            Map<TypeDataIndex, Object> values = new HashMap<TypeDataIndex, Object>();
+            values.put(name, "n" + i % 50);
+            values.put(id, i);
+            values.put(age, i % 10 == 0 ? null : i * 7919 % 1000);
+            values.put(city, "c" + i % 3);
+            IEntryCacheInfo entry = mockEntry(values, false);
+            entries.add(entry);
+            Assert.assertTrue(builder.defer(entry, typeData));
+        }
+        IEntryCacheInfo removed = mockEntry(Collections.<TypeDataIndex, Object>emptyMap(), true);
+        Assert.assertTrue(builder.defer(removed, typeData));
+        Assert.assertTrue(builder.isDeferred(typeData));
+
+        Assert.assertEquals(1000, builder.build());
+
+        Assert.assertNull(insertedByIndex.get(id));
+        Assert.assertEquals(1000, insertedByIndex.get(name).size());
+        Assert.assertEquals(1000, insertedByIndex.get(city).size());
+        Assert.assertFalse(insertedByIndex.get(name).contains(removed));
+        Assert.assertEquals(1, removed.getBackRefs().size());
+        for (IEntryCacheInfo entry : entries) {
+            IEntryData entryData = entry.getEntryHolder(null).getEntryData();
+            List<IObjectInfo<IEntryCacheInfo>> backRefs = entry.getBackRefs();
+            int pos = 1;
+            assertRef(backRefs.get(pos++), name, entry, 0);
+            assertRef(backRefs.get(pos++), age, entry, 0);
+            if (age.getIndexValue(entryData) != null)
+                assertRef(backRefs.get(pos++), age, entry, 1);
+            assertRef(backRefs.get(pos++), city, entry, 0);
+            Assert.assertEquals(pos, backRefs.size());
+        }
+
+        //the entries of the ordered index are inserted sorted by value
+        Integer previous = null;
+        for (IEntryCacheInfo entry : insertedByIndex.get(age)) {
+            Integer value = (Integer) age.getIndexValue(entry.getEntryHolder(null).getEntryData());
+            if (previous != null)
+                Assert.assertTrue(value != null && value >= previous);
+            previous = value;
+        }
+    }
+
+    @Test
+    public void typeWithUniqueIndexIsNotDeferred() throws Exception {
+        TypeDataIndex id = mockIndex("id", false, false);
+        TypeData typeData = mockType(id, mockIndex("name", false, false), mockIndex("code", false, true));
+        DeferredIndexBuilder builder = new DeferredIndexBuilder(mockCacheManager(), 1);
+        Assert.assertFalse(builder.defer(mockEntry(Collections.<TypeDataIndex, Object>emptyMap(), false), typeData));
+        Assert.assertFalse(builder.isDeferred(typeData));
+        Assert.assertEquals(0, builder.build());
+    }
+
+    private static void assertRef(IObjectInfo<IEntryCacheInfo> backRef, TypeDataIndex index, IEntryCacheInfo entry, int part) {
+        IndexRef ref = (IndexRef) backRef;
+        Assert.assertSame(index, ref.index);
+        Assert.assertSame(entry, ref.getSubject());
+        Assert.assertEquals(part, ref.part);
+    }
+
+    private static CacheManager mockCacheManager() {
+        CacheManager cacheManager = mock(CacheManager.class);
+        SpaceEngine engine = mock(SpaceEngine.class);
+        when(engine.getFullSpaceName()).thenReturn("space");
+        when(cacheManager.getEngine()).thenReturn(engine);
+        return cacheManager;
+    }
+
+    private static TypeData mockType(final TypeDataIndex idIndex, TypeDataIndex... indexes) {
+        TypeData typeData = mock(TypeData.class);
+        when(typeData.hasIndexes()).thenReturn(true);
+        when(typeData.getIndexes()).thenReturn(indexes);
+        when(typeData.disableIdIndexForEntries(Matchers.<TypeDataIndex>any())).thenAnswer(new Answer<Boolean>() {
+            @Override
+            public Boolean answer(InvocationOnMock invocation) {
+                return invocation.getArguments()[0] == idIndex;
+            }
+        });
+        return typeData;
+    }
+
+    private TypeDataIndex mockIndex(String name, final boolean extended, boolean unique) {
+        final TypeDataIndex index = mock(TypeDataIndex.class, name);
+        when(index.isExtendedIndex()).thenReturn(extended);
+        when(index.isUniqueIndex()).thenReturn(unique);
+        when(index.getIndexValue(Matchers.<ServerEntry>any())).thenAnswer(new Answer<Object>() {
+            @Override
+            public Object answer(InvocationOnMock invocation) {
+                return ((EntryData) invocation.getArguments()[0]).values.get(index);
+            }
+        });
+        when(index.numOfEntryIndexBackRefs(Matchers.any())).thenAnswer(new Answer<Integer>() {
+            @Override
+            public Integer answer(InvocationOnMock invocation) {
+                return extended && invocation.getArguments()[0] != null ? 2 : 1;
+            }
+        });
+        final List<IEntryCacheInfo> inserted = Collections.synchronizedList(new ArrayList<IEntryCacheInfo>());
+        doAnswer(new Answer<Void>() {
+            @Override
+            public Void answer(InvocationOnMock invocation) {
+                IEntryCacheInfo entry = (IEntryCacheInfo) invocation.getArguments()[0];
+                List<IObjectInfo<IEntryCacheInfo>> backRefs = (List<IObjectInfo<IEntryCacheInfo>>) invocation.getArguments()[3];
+                synchronized (insertedByIndex) {
+                    insertedByIndex.put(index, inserted);
+                }
+                inserted.add(entry);
+                backRefs.add(new IndexRef(index, entry, 0));
+                if (extended && invocation.getArguments()[1] != null)
+                    backRefs.add(new IndexRef(index, entry, 1));
+                return null;
+            }
+        }).when(index).insertEntryIndexedField(Matchers.<IEntryCacheInfo>any(), Matchers.any(), Matchers.<TypeData>any(),
+                Matchers.<ArrayList<IObjectInfo<IEntryCacheInfo>>>any());
+        return index;
+    }
+
+    private static IEntryCacheInfo mockEntry(Map<TypeDataIndex, Object> values, boolean removed) {
+        IEntryCacheInfo entry = mock(IEntryCacheInfo.class);
+        IEntryHolder entryHolder = mock(IEntryHolder.class);
+        IEntryData entryData = mock(EntryData.class);
+        ((EntryData) entryData).values = values;
+        ArrayList<IObjectInfo<IEntryCacheInfo>> backRefs = new ArrayList<IObjectInfo<IEntryCacheInfo>>();
+        backRefs.add(new IndexRef(null, entry, 0));
+        when(entry.getBackRefs()).thenReturn(backRefs);
+        when(entry.isRemovingOrRemoved()).thenReturn(removed);
+        when(entry.getEntryHolder(Matchers.<CacheManager>any())).thenReturn(entryHolder);
+        when(entryHolder.getEntryData()).thenReturn(entryData);
+        return entry;
+    }
+
+    static abstract class EntryData implements IEntryData {
+        Map<TypeDataIndex, Object> values;
+    }
+
+    private static class IndexRef implements IObjectInfo<IEntryCacheInfo> {
+        private final TypeDataIndex index;
+        private final int part;
+        private IEntryCacheInfo subject;
+
+        private IndexRef(TypeDataIndex index, IEntryCacheInfo subject, int part) {
+            this.index = index;
+            this.subject = subject;
+            this.part = part;
+        }
+
+        @Override
+        public void setSubject(IEntryCacheInfo subject) {
+            this.subject = subject;
+        }
+
+        @Override
+        public IEntryCacheInfo getSubject() {
+            return subject;
+        }
+    }
+}
@@ -0,0 +1,61 @@
+/*
+ * Copyright (c) 2008-2016, GigaSpaces Technologies, Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.j_spaces.core.cache;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class IndexStatisticsTest {
+
+    @Test
+    public void rangeEstimateFollowsDistribution() {
+        IndexStatistics statistics = new IndexStatistics();
+        for (int i = 0; i < 100000; i++)
+            statistics.onInsert(i);
+        Assert.assertEquals(100000, statistics.getNumOfValues());
+        Assert.assertEquals(100000, statistics.estimateRange(null, false, null, false));
+
+        long half = statistics.estimateRange(50000, true, null, false);
+        Assert.assertTrue("estimated " + half, half > 35000 && half < 65000);
+        long narrow = statistics.estimateRange(10, true, 20, true);
+        Assert.assertTrue("estimated " + narrow, narrow < 2000);
+        Assert.assertTrue(statistics.estimateRange(200000, true, null, false) < 1000);
+    }
+
+    @Test
+    public void removedValuesAgeOutOfTheSample() {
+        IndexStatistics statistics = new IndexStatistics();
+        for (int i = 0; i < 10000; i++)
+            statistics.onInsert(i);
+        for (int i = 0; i < 10000; i++)
+            statistics.onRemove(i);
+        Assert.assertEquals(0, statistics.getNumOfValues());
+        Assert.assertEquals(0, statistics.estimateRange(null, false, null, false));
+
+        for (int i = 0; i < 10000; i++)
+            statistics.onInsert(100000 + i);
+        long stale = statistics.estimateRange(null, false, 10000, false);
+        Assert.assertTrue("estimated " + stale, stale < 5000);
+    }
+
+    @Test
+    public void incomparableValuesCannotBeEstimated() {
+        IndexStatistics statistics = new IndexStatistics();
+        statistics.onInsert("a");
+        Assert.assertEquals(-1, statistics.estimateRange(1, true, null, false));
+    }
+}
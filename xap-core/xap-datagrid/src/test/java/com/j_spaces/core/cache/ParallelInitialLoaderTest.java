@@ -0,0 +1,136 @@
+/*
+ * Copyright (c) 2008-2016, GigaSpaces Technologies, Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.j_spaces.core.cache;
+
+import com.gigaspaces.internal.metadata.ITypeDesc;
+import com.gigaspaces.internal.server.metadata.IServerTypeDesc;
+import com.gigaspaces.internal.server.space.SpaceEngine;
+import com.gigaspaces.internal.server.storage.IEntryHolder;
+import com.j_spaces.core.cache.context.Context;
+import com.j_spaces.core.sadapter.SAException;
+import org.junit.Assert;
+import org.junit.Test;
+import org.mockito.Matchers;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class ParallelInitialLoaderTest {
+
+    @Test
+    public void entriesAreInsertedOnceAndFifoOrderIsKept() throws Exception {
+        final Map<String, List<IEntryHolder>> insertedByType = Collections.synchronizedMap(new HashMap<String, List<IEntryHolder>>());
+        CacheManager cacheManager = mockCacheManager(new Answer<IEntryCacheInfo>() {
+            @Override
+            public IEntryCacheInfo answer(InvocationOnMock invocation) {
+                IEntryHolder entryHolder = (IEntryHolder) invocation.getArguments()[1];
+                List<IEntryHolder> inserted;
+                synchronized (insertedByType) {
+                    inserted = insertedByType.get(entryHolder.getClassName());
+                    if (inserted == null) {
+                        inserted = Collections.synchronizedList(new ArrayList<IEntryHolder>());
+                        insertedByType.put(entryHolder.getClassName(), inserted);
+                    }
+                }
+                inserted.add(entryHolder);
+                IEntryCacheInfo result = mock(IEntryCacheInfo.class);
+                when(result.getEntryHolder(Matchers.<CacheManager>any())).thenReturn(entryHolder);
+                return result;
+            }
+        });
+        IServerTypeDesc fifoType = mockType("fifo", true);
+        IServerTypeDesc regularType = mockType("regular", false);
+        List<IEntryHolder> fifoEntries = new ArrayList<IEntryHolder>();
+
+        InitialLoadInfo initialLoadInfo = new InitialLoadInfo(null, false, 0);
+        ParallelInitialLoader loader = new ParallelInitialLoader(cacheManager, initialLoadInfo, 4);
+        for (int i = 0; i < 2000; i++) {
+            IEntryHolder entryHolder = mockEntry(i % 2 == 0 ? fifoType : regularType, "uid" + i);
+            if (i % 2 == 0)
+                fifoEntries.add(entryHolder);
+            loader.add(entryHolder);
+        }
+        loader.finish();
+
+        Assert.assertEquals(2000, initialLoadInfo.getInsertedToCache());
+        Assert.assertEquals(fifoEntries, insertedByType.get("fifo"));
+        Assert.assertEquals(1000, insertedByType.get("regular").size());
+        Assert.assertTrue(initialLoadInfo.getInitialLoadErrors().isEmpty());
+    }
+
+    @Test
+    public void failureIsRethrown() throws Exception {
+        CacheManager cacheManager = mockCacheManager(new Answer<IEntryCacheInfo>() {
+            @Override
+            public IEntryCacheInfo answer(InvocationOnMock invocation) throws Throwable {
+                throw new SAException("insert failed");
+            }
+        });
+        IServerTypeDesc regularType = mockType("regular", false);
+        ParallelInitialLoader loader = new ParallelInitialLoader(cacheManager, new InitialLoadInfo(null, false, 0), 2);
+        try {
+            //enough entries to fill the queues of the workers
+            for (int i = 0; i < 100000; i++)
+                loader.add(mockEntry(regularType, "uid" + (i % 1000)));
+            loader.finish();
+            Assert.fail("expected failure");
+        } catch (SAException e) {
+            Assert.assertEquals("insert failed", e.getMessage());
+        }
+    }
+
+    private static CacheManager mockCacheManager(Answer<IEntryCacheInfo> insertAnswer) throws SAException {
+        CacheManager cacheManager = mock(CacheManager.class);
+        SpaceEngine engine = mock(SpaceEngine.class);
+        when(engine.getFullSpaceName()).thenReturn("space");
+        when(cacheManager.getEngine()).thenReturn(engine);
+        when(cacheManager.getCacheContext()).thenAnswer(new Answer<Context>() {
+            @Override
+            public Context answer(InvocationOnMock invocation) {
+                return new Context();
+            }
+        });
+        when(cacheManager.safeInsertEntryToCache(Matchers.<Context>any(), Matchers.<IEntryHolder>any(), Matchers.anyBoolean(), Matchers.<TypeData>any(),
+                Matchers.anyBoolean(), Matchers.<CacheManager.InitialLoadOrigin>any())).thenAnswer(insertAnswer);
+        return cacheManager;
+    }
+
+    private static IServerTypeDesc mockType(String name, boolean fifo) {
+        IServerTypeDesc serverTypeDesc = mock(IServerTypeDesc.class);
+        when(serverTypeDesc.getTypeName()).thenReturn(name);
+        when(serverTypeDesc.isFifoSupported()).thenReturn(fifo);
+        when(serverTypeDesc.getTypeDesc()).thenReturn(mock(ITypeDesc.class));
+        return serverTypeDesc;
+    }
+
+    private static IEntryHolder mockEntry(IServerTypeDesc serverTypeDesc, String uid) {
+        IEntryHolder entryHolder = mock(IEntryHolder.class);
+        String typeName = serverTypeDesc.getTypeName();
+        when(entryHolder.getServerTypeDesc()).thenReturn(serverTypeDesc);
+        when(entryHolder.getClassName()).thenReturn(typeName);
+        when(entryHolder.getUID()).thenReturn(uid);
+        return entryHolder;
+    }
+}
@@ -0,0 +1,200 @@
+/*
+ * Copyright (c) 2008-2016, GigaSpaces Technologies, Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.j_spaces.core.cache.blobStore.offheap;
+
+import com.j_spaces.core.cache.blobStore.BlobStoreRefEntryCacheInfo;
+import com.j_spaces.core.cache.blobStore.memory_pool.SlabMemoryPool;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicReference;
+
+public class SlabMemoryPoolTest {
+
+    private final SlabMemoryPool pool = new SlabMemoryPool(10 * 1024 * 1024, 128 * 1024);
+
+    @After
+    public void tearDown() {
+        pool.close();
+    }
+
+    @Test
+    public void writeAndRead() {
+        BlobStoreOffHeapInfoMock info = new BlobStoreOffHeapInfoMock();
+        byte[] buffer = "Test Buffer".getBytes();
+        pool.write(info, buffer);
+        Assert.assertNotEquals(BlobStoreRefEntryCacheInfo.UNALLOCATED_OFFHEAP_MEMORY, info.getOffHeapAddress());
+        Assert.assertArrayEquals(buffer, pool.get(info));
+        // a single chunk is reserved, rounded down to a multiple of the 20 bytes slot
+        Assert.assertEquals(128 * 1024 / 20 * 20, pool.getReservedBytes());
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void writeToAllocatedAddressFails() {
+        BlobStoreOffHeapInfoMock info = new BlobStoreOffHeapInfoMock();
+        pool.write(info, "Test Buffer".getBytes());
+        pool.write(info, "Test Buffer".getBytes());
+    }
+
+    @Test
+    public void usedBytesAreSlotBytes() {
+        BlobStoreOffHeapInfoMock info = new BlobStoreOffHeapInfoMock();
+        // 20 bytes payload + 8 bytes header fit in the 28 bytes class
+        pool.write(info, new byte[20]);
+        Assert.assertEquals(28, pool.getUsedBytes());
+        pool.delete(info);
+        Assert.assertEquals(0, pool.getUsedBytes());
+        Assert.assertEquals(BlobStoreRefEntryCacheInfo.UNALLOCATED_OFFHEAP_MEMORY, info.getOffHeapAddress());
+    }
+
+    @Test
+    public void updateWithinClassIsInPlace() {
+        BlobStoreOffHeapInfoMock info = new BlobStoreOffHeapInfoMock();
+        pool.write(info, new byte[100]);
+        long address = info.getOffHeapAddress();
+        byte[] updated = new byte[98];
+        Arrays.fill(updated, (byte) 7);
+        pool.update(info, updated);
+        Assert.assertEquals(address, info.getOffHeapAddress());
+        Assert.assertArrayEquals(updated, pool.get(info));
+    }
+
+    @Test
+    public void updateToOtherClassMoves() {
+        BlobStoreOffHeapInfoMock info = new BlobStoreOffHeapInfoMock();
+        pool.write(info, new byte[100]);
+        long usedBefore = pool.getUsedBytes();
+        byte[] updated = new byte[1000];
+        Arrays.fill(updated, (byte) 3);
+        pool.update(info, updated);
+        Assert.assertArrayEquals(updated, pool.get(info));
+        Assert.assertTrue(pool.getUsedBytes() > usedBefore);
+        pool.update(info, new byte[10]);
+        Assert.assertEquals(20, pool.getUsedBytes());
+    }
+
+    @Test
+    public void freedSlotIsReused() {
+        BlobStoreOffHeapInfoMock info1 = new BlobStoreOffHeapInfoMock();
+        pool.write(info1, new byte[50]);
+        long address = info1.getOffHeapAddress();
+        pool.delete(info1);
+        BlobStoreOffHeapInfoMock info2 = new BlobStoreOffHeapInfoMock();
+        pool.write(info2, new byte[52]);
+        Assert.assertEquals(address, info2.getOffHeapAddress());
+    }
+
+    @Test
+    public void largeBuffersAreAllocatedDirectly() {
+        BlobStoreOffHeapInfoMock info = new BlobStoreOffHeapInfoMock();
+        byte[] buffer = new byte[100 * 1024];
+        buffer[buffer.length - 1] = 1;
+        pool.write(info, buffer);
+        Assert.assertArrayEquals(buffer, pool.get(info));
+        Assert.assertEquals(buffer.length + 8, pool.getUsedBytes());
+        pool.delete(info);
+        Assert.assertEquals(0, pool.getUsedBytes());
+    }
+
+    @Test
+    public void largeBuffersAreFreedOnClose() {
+        pool.write(new BlobStoreOffHeapInfoMock(), new byte[100 * 1024]);
+        pool.write(new BlobStoreOffHeapInfoMock(), new byte[10]);
+        Assert.assertEquals(100 * 1024 + 8 + 128 * 1024 / 20 * 20, pool.getReservedBytes());
+        pool.close();
+        Assert.assertEquals(0, pool.getReservedBytes());
+    }
+
+    @Test
+    public void freeSlotsOfEndedThreadsAreReclaimed() throws Exception {
+        final int entriesPerThread = 40;
+        final AtomicReference<Throwable> error = new AtomicReference<Throwable>();
+        // each thread frees fewer slots than a magazine holds, so all of them stay in its magazine
+        for (int t = 0; t < 100; t++) {
+            Thread thread = new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    try {
+                        List<BlobStoreOffHeapInfoMock> infos = new ArrayList<BlobStoreOffHeapInfoMock>();
+                        for (int i = 0; i < entriesPerThread; i++) {
+                            BlobStoreOffHeapInfoMock info = new BlobStoreOffHeapInfoMock();
+                            pool.write(info, new byte[100]);
+                            infos.add(info);
+                        }
+                        for (BlobStoreOffHeapInfoMock info : infos)
+                            pool.delete(info);
+                    } catch (Throwable e) {
+                        error.set(e);
+                    }
+                }
+            });
+            thread.start();
+            thread.join();
+        }
+        if (error.get() != null)
+            throw new AssertionError(error.get());
+        Assert.assertEquals(0, pool.getUsedBytes());
+        // 100 threads * 40 slots of the 112 bytes class would need four chunks if the freed slots were stranded
+        Assert.assertEquals(128 * 1024 / 112 * 112, pool.getReservedBytes());
+    }
+
+    @Test
+    public void concurrentAllocations() throws Exception {
+        final int threads = 4;
+        final int entries = 5000;
+        final AtomicReference<Throwable> error = new AtomicReference<Throwable>();
+        List<Thread> list = new ArrayList<Thread>();
+        for (int t = 0; t < threads; t++) {
+            final byte value = (byte) t;
+            Thread thread = new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    try {
+                        List<BlobStoreOffHeapInfoMock> infos = new ArrayList<BlobStoreOffHeapInfoMock>();
+                        for (int i = 0; i < entries; i++) {
+                            BlobStoreOffHeapInfoMock info = new BlobStoreOffHeapInfoMock();
+                            byte[] buffer = new byte[1 + i % 300];
+                            Arrays.fill(buffer, value);
+                            pool.write(info, buffer);
+                            infos.add(info);
+                        }
+                        for (int i = 0; i < entries; i++) {
+                            byte[] buffer = pool.get(infos.get(i));
+                            Assert.assertEquals(1 + i % 300, buffer.length);
+                            for (byte b : buffer)
+                                Assert.assertEquals(value, b);
+                            pool.delete(infos.get(i));
+                        }
+                    } catch (Throwable e) {
+                        error.set(e);
+                    }
+                }
+            });
+            list.add(thread);
+            thread.start();
+        }
+        for (Thread thread : list)
+            thread.join();
+        if (error.get() != null)
+            throw new AssertionError(error.get());
+        Assert.assertEquals(0, pool.getUsedBytes());
+    }
+}
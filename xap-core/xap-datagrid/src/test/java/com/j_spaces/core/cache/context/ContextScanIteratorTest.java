@@ -0,0 +1,90 @@
+/*
+ * Copyright (c) 2008-2016, GigaSpaces Technologies, Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.j_spaces.core.cache.context;
+
+import com.j_spaces.core.cache.IEntryCacheInfo;
+import com.j_spaces.kernel.IStoredList;
+import com.j_spaces.kernel.IStoredListIterator;
+import com.j_spaces.kernel.list.ScanSingleListIterator;
+import org.junit.Assert;
+import org.junit.Test;
+import org.mockito.Mockito;
+
+public class ContextScanIteratorTest {
+
+    @Test
+    public void scanIteratorIsReusedOnlyWhenEnabled() {
+        Context context = new Context();
+        IStoredList<IEntryCacheInfo> list = Mockito.mock(IStoredList.class);
+        Assert.assertNotSame(context.getScanSingleListIterator(list, false, false), context.getScanSingleListIterator(list, false, false));
+
+        context.setReuseScanIterator(true);
+        ScanSingleListIterator<IEntryCacheInfo> iterator = context.getScanSingleListIterator(list, false, false);
+        Assert.assertSame(iterator, context.getScanSingleListIterator(list, true, false));
+        Assert.assertNotSame(iterator, context.getScanSingleListIterator(list, false, true));
+
+        context.clean();
+        Assert.assertNotSame(iterator, context.getScanSingleListIterator(list, false, false));
+    }
+
+    @Test
+    public void reusedScanIteratorScansTheNewList() {
+        Context context = new Context();
+        context.setReuseScanIterator(true);
+        IEntryCacheInfo first = Mockito.mock(IEntryCacheInfo.class);
+        IEntryCacheInfo second = Mockito.mock(IEntryCacheInfo.class);
+        Mockito.when(first.isMultiObjectCollection()).thenReturn(false);
+        Mockito.when(second.isMultiObjectCollection()).thenReturn(false);
+
+        ScanSingleListIterator<IEntryCacheInfo> iterator = context.getScanSingleListIterator(first, false, false);
+        Assert.assertTrue(iterator.hasNext());
+        Assert.assertSame(first, iterator.next());
+        Assert.assertFalse(iterator.hasNext());
+        iterator.releaseScan();
+
+        iterator = context.getScanSingleListIterator(second, false, false);
+        Assert.assertTrue(iterator.hasNext());
+        Assert.assertSame(second, iterator.next());
+        Assert.assertFalse(iterator.hasNext());
+    }
+
+    @Test
+    public void abandonedScanIsReleasedOnReuse() {
+        Context context = new Context();
+        context.setReuseScanIterator(true);
+        IStoredList<IEntryCacheInfo> list = Mockito.mock(IStoredList.class);
+        IStoredListIterator<IEntryCacheInfo> pos = Mockito.mock(IStoredListIterator.class);
+        Mockito.when(list.isMultiObjectCollection()).thenReturn(true);
+        Mockito.when(list.establishListScan(true)).thenReturn(pos);
+        Mockito.when(pos.getSubject()).thenReturn(Mockito.mock(IEntryCacheInfo.class));
+
+        //the scan is abandoned after its first entry
+        ScanSingleListIterator<IEntryCacheInfo> iterator = context.getScanSingleListIterator(list, false, false);
+        Assert.assertTrue(iterator.hasNext());
+
+        IEntryCacheInfo other = Mockito.mock(IEntryCacheInfo.class);
+        iterator = context.getScanSingleListIterator(other, false, false);
+        Mockito.verify(list).freeSLHolder(pos);
+        Assert.assertTrue(iterator.hasNext());
+        Assert.assertSame(other, iterator.next());
+
+        //a released scan is not released again
+        iterator.releaseScan();
+        context.clean();
+        Mockito.verify(list, Mockito.times(1)).freeSLHolder(pos);
+    }
+}
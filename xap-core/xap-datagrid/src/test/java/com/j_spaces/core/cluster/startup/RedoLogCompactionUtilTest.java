@@ -0,0 +1,169 @@
+/*
+ * Copyright (c) 2008-2016, GigaSpaces Technologies, Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.j_spaces.core.cluster.startup;
+
+import com.gigaspaces.internal.cluster.node.impl.ReplicationSingleOperationType;
+import com.gigaspaces.internal.cluster.node.impl.backlog.globalorder.GlobalOrderOperationPacket;
+import com.gigaspaces.internal.cluster.node.impl.packets.IReplicationOrderedPacket;
+import com.gigaspaces.internal.cluster.node.impl.packets.data.IReplicationTransactionalPacketEntryData;
+import com.gigaspaces.internal.cluster.node.impl.packets.data.operations.AbstractReplicationPacketSingleEntryData;
+import com.gigaspaces.internal.cluster.node.impl.packets.data.operations.AbstractTransactionReplicationPacketData;
+import com.gigaspaces.internal.metadata.ITypeDesc;
+import com.gigaspaces.internal.server.storage.IEntryData;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.mockito.Mockito;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+
+public class RedoLogCompactionUtilTest {
+    private final List<IReplicationOrderedPacket> redoLog = new LinkedList<IReplicationOrderedPacket>();
+
+    @Test
+    public void testUpdatesSupersededByFullUpdateOrRemoveAreDiscarded() {
+        add("a", ReplicationSingleOperationType.WRITE, true, false);
+        add("a", ReplicationSingleOperationType.UPDATE, false, false);
+        add("b", ReplicationSingleOperationType.UPDATE, true, false);
+        add("a", ReplicationSingleOperationType.CHANGE, false, false);
+        add("a", ReplicationSingleOperationType.UPDATE, true, false);
+        add("b", ReplicationSingleOperationType.REMOVE_ENTRY, false, false);
+        add("a", ReplicationSingleOperationType.UPDATE, true, false);
+
+        Assert.assertEquals(4, compact(0, 6));
+        assertDiscarded(1, 2, 3, 4);
+    }
+
+    @Test
+    public void testUpdatesFollowedByDeltaOperationsAreKept() {
+        add("a", ReplicationSingleOperationType.UPDATE, true, false);
+        add("a", ReplicationSingleOperationType.CHANGE, false, false);
+        add("a", ReplicationSingleOperationType.UPDATE, false, false);
+        add("a", ReplicationSingleOperationType.WRITE, true, false);
+
+        Assert.assertEquals(0, compact(0, 3));
+        assertDiscarded();
+    }
+
+    @Test
+    public void testTransactionKeepsPrecedingUpdatesOfItsEntries() {
+        add("a", ReplicationSingleOperationType.UPDATE, true, false);
+        add("b", ReplicationSingleOperationType.UPDATE, true, false);
+        addTransaction("a");
+        add("a", ReplicationSingleOperationType.UPDATE, true, false);
+        add("b", ReplicationSingleOperationType.UPDATE, true, false);
+
+        Assert.assertEquals(1, compact(0, 4));
+        assertDiscarded(1);
+    }
+
+    @Test
+    public void testFifoTypesAndPacketsOutOfRangeAreKept() {
+        add("a", ReplicationSingleOperationType.UPDATE, true, true);
+        add("b", ReplicationSingleOperationType.UPDATE, true, false);
+        add("b", ReplicationSingleOperationType.UPDATE, true, false);
+        add("a", ReplicationSingleOperationType.UPDATE, true, true);
+        add("b", ReplicationSingleOperationType.UPDATE, true, false);
+
+        Assert.assertEquals(1, compact(2, 4));
+        assertDiscarded(2);
+    }
+
+    @Test
+    public void testPacketsFollowingTheRangeAreOnlyRead() {
+        add("a", ReplicationSingleOperationType.UPDATE, true, false);
+        add("b", ReplicationSingleOperationType.UPDATE, true, false);
+        add("a", ReplicationSingleOperationType.UPDATE, true, false);
+        add("b", ReplicationSingleOperationType.UPDATE, true, false);
+        add("a", ReplicationSingleOperationType.UPDATE, true, false);
+
+        Assert.assertEquals(2, compact(0, 1, 3, new HashMap<String, Boolean>()));
+        assertDiscarded(0, 1);
+    }
+
+    @Test
+    public void testCollectedOperationsSupersedeTheEndOfTheRange() {
+        add("a", ReplicationSingleOperationType.UPDATE, true, false);
+        add("b", ReplicationSingleOperationType.UPDATE, true, false);
+        add("c", ReplicationSingleOperationType.UPDATE, true, false);
+        add("a", ReplicationSingleOperationType.CHANGE, false, false);
+        addTransaction("b");
+        add("c", ReplicationSingleOperationType.REMOVE_ENTRY, false, false);
+        add("a", ReplicationSingleOperationType.REMOVE_ENTRY, false, false);
+
+        Map<String, Boolean> supersedingOperations = new HashMap<String, Boolean>();
+        for (IReplicationOrderedPacket packet : redoLog.subList(3, 7))
+            RedoLogCompactionUtil.collectSupersedingOperations(packet, supersedingOperations);
+        Assert.assertEquals(Boolean.FALSE, supersedingOperations.get("a"));
+        Assert.assertEquals(Boolean.FALSE, supersedingOperations.get("b"));
+        Assert.assertEquals(Boolean.TRUE, supersedingOperations.get("c"));
+
+        redoLog.subList(3, 7).clear();
+        Assert.assertEquals(1, compact(0, 2, 2, supersedingOperations));
+        assertDiscarded(2);
+    }
+
+    private long compact(long from, long to) {
+        return compact(from, to, to, new HashMap<String, Boolean>());
+    }
+
+    private long compact(long from, long to, long scanTo, Map<String, Boolean> supersedingOperations) {
+        return RedoLogCompactionUtil.compactSupersededUpdates(from, to, scanTo, redoLog.listIterator(redoLog.size()), supersedingOperations).getDiscardedCount();
+    }
+
+    private void assertDiscarded(long... keys) {
+        for (IReplicationOrderedPacket packet : redoLog) {
+            boolean expected = false;
+            for (long key : keys)
+                expected |= key == packet.getKey();
+            Assert.assertEquals("packet " + packet.getKey(), expected, packet.isDiscardedPacket());
+        }
+    }
+
+    private void add(String uid, ReplicationSingleOperationType operationType, boolean fullEntryData, boolean fifo) {
+        ITypeDesc typeDesc = Mockito.mock(ITypeDesc.class);
+        Mockito.when(typeDesc.isFifoSupported()).thenReturn(fifo);
+        IEntryData entryData = Mockito.mock(IEntryData.class);
+        Mockito.when(entryData.getSpaceTypeDescriptor()).thenReturn(typeDesc);
+
+        AbstractReplicationPacketSingleEntryData data = Mockito.mock(AbstractReplicationPacketSingleEntryData.class);
+        Mockito.when(data.isSingleEntryData()).thenReturn(true);
+        Mockito.when(data.getSingleEntryData()).thenReturn(data);
+        Mockito.when(data.getUid()).thenReturn(uid);
+        Mockito.when(data.getOperationType()).thenReturn(operationType);
+        Mockito.when(data.containsFullEntryData()).thenReturn(fullEntryData);
+        Mockito.when(data.getMainEntryData()).thenReturn(entryData);
+        redoLog.add(new GlobalOrderOperationPacket(redoLog.size(), data));
+    }
+
+    private void addTransaction(String... uids) {
+        List<IReplicationTransactionalPacketEntryData> entries = new LinkedList<IReplicationTransactionalPacketEntryData>();
+        for (String uid : Arrays.asList(uids)) {
+            IReplicationTransactionalPacketEntryData entry = Mockito.mock(IReplicationTransactionalPacketEntryData.class);
+            Mockito.when(entry.getUid()).thenReturn(uid);
+            entries.add(entry);
+        }
+        AbstractTransactionReplicationPacketData data = Mockito.mock(AbstractTransactionReplicationPacketData.class);
+        Mockito.when(data.isSingleEntryData()).thenReturn(false);
+        Mockito.when(data.iterator()).thenReturn(entries.iterator());
+        redoLog.add(new GlobalOrderOperationPacket(redoLog.size(), data));
+    }
+}
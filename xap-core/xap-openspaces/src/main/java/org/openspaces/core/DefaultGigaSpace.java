@@ -36,6 +36,8 @@ import com.gigaspaces.client.TakeByIdsResult;
 import com.gigaspaces.client.TakeByIdsResultImpl;
 import com.gigaspaces.client.TakeModifiers;
 import com.gigaspaces.client.WriteModifiers;
+import com.gigaspaces.client.iterator.ScatterGatherIterator;
+import com.gigaspaces.client.iterator.ScatterGatherIteratorConfiguration;
 import com.gigaspaces.client.iterator.SpaceIterator;
 import com.gigaspaces.client.iterator.SpaceIteratorConfiguration;
 import com.gigaspaces.datasource.SpaceDataSourceLoadRequest;
@@ -1386,6 +1388,42 @@ public class DefaultGigaSpace implements GigaSpace, InternalGigaSpace {
         }
     }
 
+    @Override
+    public <T> ScatterGatherIterator<T> readMultipleStream(T template, ScatterGatherIteratorConfiguration configuration) {
+        try {
+            return new ScatterGatherIterator<T>(space, template, getCurrentTransaction(), false, getDefaultReadModifiers().getCode(), configuration);
+        } catch (Exception e) {
+            throw exTranslator.translate(e);
+        }
+    }
+
+    @Override
+    public <T> ScatterGatherIterator<T> readMultipleStream(ISpaceQuery<T> template, ScatterGatherIteratorConfiguration configuration) {
+        try {
+            return new ScatterGatherIterator<T>(space, template, getCurrentTransaction(), false, getDefaultReadModifiers().getCode(), configuration);
+        } catch (Exception e) {
+            throw exTranslator.translate(e);
+        }
+    }
+
+    @Override
+    public <T> ScatterGatherIterator<T> takeMultipleStream(T template, ScatterGatherIteratorConfiguration configuration) {
+        try {
+            return new ScatterGatherIterator<T>(space, template, getCurrentTransaction(), true, getDefaultTakeModifiers().getCode(), configuration);
+        } catch (Exception e) {
+            throw exTranslator.translate(e);
+        }
+    }
+
+    @Override
+    public <T> ScatterGatherIterator<T> takeMultipleStream(ISpaceQuery<T> template, ScatterGatherIteratorConfiguration configuration) {
+        try {
+            return new ScatterGatherIterator<T>(space, template, getCurrentTransaction(), true, getDefaultTakeModifiers().getCode(), configuration);
+        } catch (Exception e) {
+            throw exTranslator.translate(e);
+        }
+    }
+
     public <T extends Serializable> AsyncFuture<T> execute(Task<T> task) {
         return execute(task, (AsyncFutureListener<T>) null);
     }
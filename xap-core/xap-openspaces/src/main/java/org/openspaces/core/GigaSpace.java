@@ -31,6 +31,8 @@ import com.gigaspaces.client.ReadModifiers;
 import com.gigaspaces.client.TakeByIdsResult;
 import com.gigaspaces.client.TakeModifiers;
 import com.gigaspaces.client.WriteModifiers;
+import com.gigaspaces.client.iterator.ScatterGatherIterator;
+import com.gigaspaces.client.iterator.ScatterGatherIteratorConfiguration;
 import com.gigaspaces.client.iterator.SpaceIterator;
 import com.gigaspaces.client.iterator.SpaceIteratorConfiguration;
 import com.gigaspaces.datasource.SpaceDataSourceLoadRequest;
@@ -2150,6 +2152,78 @@ public interface GigaSpace {
      */
     <T> SpaceIterator<T> iterator(ISpaceQuery<T> template, SpaceIteratorConfiguration spaceIteratorConfiguration);
 
+    /**
+     * Reads the entries in the space which match the specified template, the same as {@link
+     * #readMultiple(Object, int)}, and returns them as the replies of the partitions arrive instead
+     * of waiting for all the partitions to reply.
+     *
+     * @param template      The template used for matching. Matching is done against the template
+     *                      with <code>null</code> fields being. wildcards ("match anything") other
+     *                      fields being values ("match exactly on the serialized form").
+     * @param configuration {@link ScatterGatherIteratorConfiguration}.
+     * @return An iterator over the entries which match the template, which should be closed if it
+     * is not consumed to its end.
+     * @since 16.0
+     */
+    <T> ScatterGatherIterator<T> readMultipleStream(T template, ScatterGatherIteratorConfiguration configuration);
+
+    /**
+     * Reads the entries in the space which match the specified query, the same as {@link
+     * #readMultiple(ISpaceQuery, int)}, and returns them as the replies of the partitions arrive
+     * instead of waiting for all the partitions to reply.
+     *
+     * @param template      A query to be executed against the space. Most common one is {@link
+     *                      com.j_spaces.core.client.SQLQuery}.
+     * @param configuration {@link ScatterGatherIteratorConfiguration}.
+     * @return An iterator over the entries which match the query, which should be closed if it is
+     * not consumed to its end.
+     * @since 16.0
+     */
+    <T> ScatterGatherIterator<T> readMultipleStream(ISpaceQuery<T> template, ScatterGatherIteratorConfiguration configuration);
+
+    /**
+     * Takes the entries in the space which match the specified template, the same as {@link
+     * #takeMultiple(Object, int)}, and returns them as the replies of the partitions arrive.
+     * Entries are taken from each partition in batches. The next batch of a partition is taken
+     * once the entries of the previous one were returned, and no more batches are taken once the
+     * iterator is closed.
+     * <p>
+     * The iterator must be used under a transaction. The entries which were taken and were not
+     * returned when the iterator is closed, at most a batch per partition, are discarded. Abort the
+     * transaction to return them to the space.
+     *
+     * @param template      The template used for matching. Matching is done against the template
+     *                      with <code>null</code> fields being. wildcards ("match anything") other
+     *                      fields being values ("match exactly on the serialized form").
+     * @param configuration {@link ScatterGatherIteratorConfiguration}.
+     * @return An iterator over the taken entries, which should be closed if it is not consumed to
+     * its end.
+     * @throws IllegalArgumentException if there is no current transaction.
+     * @since 16.0
+     */
+    <T> ScatterGatherIterator<T> takeMultipleStream(T template, ScatterGatherIteratorConfiguration configuration);
+
+    /**
+     * Takes the entries in the space which match the specified query, the same as {@link
+     * #takeMultiple(ISpaceQuery, int)}, and returns them as the replies of the partitions arrive.
+     * Entries are taken from each partition in batches. The next batch of a partition is taken
+     * once the entries of the previous one were returned, and no more batches are taken once the
+     * iterator is closed.
+     * <p>
+     * The iterator must be used under a transaction. The entries which were taken and were not
+     * returned when the iterator is closed, at most a batch per partition, are discarded. Abort the
+     * transaction to return them to the space.
+     *
+     * @param template      A query to be executed against the space. Most common one is {@link
+     *                      com.j_spaces.core.client.SQLQuery}.
+     * @param configuration {@link ScatterGatherIteratorConfiguration}.
+     * @return An iterator over the taken entries, which should be closed if it is not consumed to
+     * its end.
+     * @throws IllegalArgumentException if there is no current transaction.
+     * @since 16.0
+     */
+    <T> ScatterGatherIterator<T> takeMultipleStream(ISpaceQuery<T> template, ScatterGatherIteratorConfiguration configuration);
+
     /**
      * Executes a task on a specific space node. The space node it will execute on should be
      * controlled by having a method that return the routing value annotated with {@link
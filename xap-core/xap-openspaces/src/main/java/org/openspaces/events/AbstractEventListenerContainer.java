@@ -979,6 +979,14 @@ public abstract class AbstractEventListenerContainer implements ApplicationConte
 
     protected abstract String getEventListenerContainerType();
 
+    /**
+     * Returns the manager of the metrics of this container, or <code>null</code> if the container
+     * is not running within a processing unit.
+     */
+    protected BeanMetricManager getBeanMetricManager() {
+        return beanMetricManager;
+    }
+
     protected void registerMetrics() {
         if (beanMetricManager != null) {
             beanMetricManager.register("processed-events", processedEvents);
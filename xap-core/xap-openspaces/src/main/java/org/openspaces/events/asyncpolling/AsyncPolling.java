@@ -67,6 +67,13 @@ public @interface AsyncPolling {
      */
     int concurrentConsumers() default 1;
 
+    /**
+     * Specify the maximum number of concurrent consumers to create. Default is 1.
+     *
+     * @see org.openspaces.events.asyncpolling.SimpleAsyncPollingEventListenerContainer#setMaxConcurrentConsumers(int)
+     */
+    int maxConcurrentConsumers() default 1;
+
     /**
      * Set the timeout to use for receive calls, in <b>milliseconds</b>. The default is 60000 ms,
      * that is, 1 minute.
@@ -0,0 +1,147 @@
+/*
+ * Copyright (c) 2008-2016, GigaSpaces Technologies, Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.openspaces.events.asyncpolling;
+
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Keeps track of the consumers of a {@link SimpleAsyncPollingEventListenerContainer} and decides
+ * when a consumer is added or removed.
+ *
+ * <p>A consumer is <i>scheduled</i> from the time it is started until it is stopped, and
+ * <i>waiting</i> while its async receive operation is in progress. A consumer is added when an
+ * event is received while no other consumer is waiting, up to the maximum number of consumers, and
+ * a consumer beyond the minimum number of consumers is removed once its receive operation returns
+ * no event.
+ *
+ * @since 16.0
+ */
+public class AsyncPollingConsumers {
+
+    private final int concurrentConsumers;
+
+    private final int maxConcurrentConsumers;
+
+    private int scheduledConsumers;
+
+    private int waitingConsumers;
+
+    private final AtomicInteger pendingEvents = new AtomicInteger();
+
+    public AsyncPollingConsumers(int concurrentConsumers, int maxConcurrentConsumers) {
+        this.concurrentConsumers = concurrentConsumers;
+        this.maxConcurrentConsumers = Math.max(concurrentConsumers, maxConcurrentConsumers);
+    }
+
+    public synchronized int getScheduledConsumers() {
+        return scheduledConsumers;
+    }
+
+    public synchronized int getWaitingConsumers() {
+        return waitingConsumers;
+    }
+
+    /**
+     * Returns the number of received events which wait for the task executor.
+     */
+    public int getPendingEvents() {
+        return pendingEvents.get();
+    }
+
+    /**
+     * Registers one of the initial consumers of the container.
+     */
+    public synchronized void consumerStarted() {
+        scheduledConsumers++;
+    }
+
+    /**
+     * Registers a consumer which is not rescheduled since the container is no longer running.
+     */
+    public synchronized void consumerStopped() {
+        scheduledConsumers--;
+    }
+
+    public synchronized void receiveStarted() {
+        waitingConsumers++;
+    }
+
+    public synchronized void receiveCompleted() {
+        waitingConsumers--;
+    }
+
+    /**
+     * Registers a consumer whose receive operation could not be started, which is therefore no
+     * longer scheduled.
+     */
+    public synchronized void receiveFailed() {
+        waitingConsumers--;
+        scheduledConsumers--;
+    }
+
+    /**
+     * Called once a consumer received an event, registers a new consumer if no other consumer is
+     * waiting for events and the maximum number of consumers was not reached.
+     *
+     * @return <code>true</code> if a new consumer should be started
+     */
+    public synchronized boolean addConsumerIfAppropriate() {
+        if (scheduledConsumers >= maxConcurrentConsumers || waitingConsumers > 0) {
+            return false;
+        }
+        scheduledConsumers++;
+        return true;
+    }
+
+    /**
+     * Called once the receive operation of a consumer returned no event, unregisters the consumer
+     * if there are more consumers than the minimum number of consumers.
+     *
+     * @return <code>true</code> if the consumer should not be rescheduled
+     */
+    public synchronized boolean removeIdleConsumerIfAppropriate() {
+        if (scheduledConsumers <= concurrentConsumers) {
+            return false;
+        }
+        scheduledConsumers--;
+        return true;
+    }
+
+    /**
+     * Executes the given task of a received event using the given executor, counting the event as
+     * pending until the task starts.
+     *
+     * @return <code>false</code> if the executor rejected the task, which was not executed
+     */
+    public boolean dispatch(Executor executor, final Runnable task) {
+        pendingEvents.incrementAndGet();
+        try {
+            executor.execute(new Runnable() {
+                public void run() {
+                    pendingEvents.decrementAndGet();
+                    task.run();
+                }
+            });
+            return true;
+        } catch (RejectedExecutionException e) {
+            pendingEvents.decrementAndGet();
+            return false;
+        }
+    }
+}
@@ -28,6 +28,8 @@ import org.openspaces.events.adapter.MethodEventListenerAdapter;
 import org.openspaces.events.asyncpolling.receive.AsyncOperationHandler;
 import org.springframework.transaction.PlatformTransactionManager;
 
+import java.util.concurrent.Executor;
+
 /**
  * A simplified programmatic configuration that for {@link SimpleAsyncPollingEventListenerContainer}.
  *
@@ -80,6 +82,22 @@ public class SimpleAsyncPollingContainerConfigurer {
         return this;
     }
 
+    /**
+     * @see org.openspaces.events.asyncpolling.SimpleAsyncPollingEventListenerContainer#setMaxConcurrentConsumers(int)
+     */
+    public SimpleAsyncPollingContainerConfigurer maxConcurrentConsumers(int maxConcurrentConsumers) {
+        pollingEventListenerContainer.setMaxConcurrentConsumers(maxConcurrentConsumers);
+        return this;
+    }
+
+    /**
+     * @see org.openspaces.events.asyncpolling.SimpleAsyncPollingEventListenerContainer#setTaskExecutor(java.util.concurrent.Executor)
+     */
+    public SimpleAsyncPollingContainerConfigurer taskExecutor(Executor taskExecutor) {
+        pollingEventListenerContainer.setTaskExecutor(taskExecutor);
+        return this;
+    }
+
     /**
      * @see org.openspaces.events.asyncpolling.SimpleAsyncPollingEventListenerContainer#setReceiveTimeout(long)
      */
@@ -19,6 +19,9 @@ package org.openspaces.events.asyncpolling;
 
 import com.gigaspaces.async.AsyncFutureListener;
 import com.gigaspaces.async.AsyncResult;
+import com.gigaspaces.metrics.BeanMetricManager;
+import com.gigaspaces.metrics.Gauge;
+import com.gigaspaces.metrics.LongCounter;
 
 import org.openspaces.core.transaction.internal.TransactionalAsyncFutureListener;
 import org.openspaces.events.AbstractEventListenerContainer;
@@ -31,12 +34,14 @@ import org.springframework.aop.support.AopUtils;
 import org.springframework.dao.DataAccessException;
 import org.springframework.transaction.TransactionDefinition;
 import org.springframework.transaction.TransactionStatus;
+import org.springframework.util.Assert;
 import org.springframework.util.ClassUtils;
 import org.springframework.util.ReflectionUtils;
 
 import java.io.PrintWriter;
 import java.io.Serializable;
 import java.lang.reflect.Method;
+import java.util.concurrent.Executor;
 import java.util.concurrent.atomic.AtomicReference;
 
 /**
@@ -52,7 +57,16 @@ import java.util.concurrent.atomic.AtomicReference;
  * <p>The number of async operarions executed on startup can be controlled using {@link
  * #setConcurrentConsumers(int)}. The rest of the operations will be driven by the results arriving,
  * but in essence, there will be concurrent async operations performed based on the inital number of
- * concurrent consumers.
+ * concurrent consumers. Specifying a {@link #setMaxConcurrentConsumers(int) maxConcurrentConsumers}
+ * value that is higher than the concurrent consumers allows to dynamically add consumers when an
+ * event is received while no other consumer is waiting for events, and to remove them once their
+ * receive operation times out with no event.
+ *
+ * <p>By default the listener is invoked by the thread on which the result of the async operation
+ * arrives. Setting a {@link #setTaskExecutor(Executor) taskExecutor} invokes it using the executor
+ * instead, for example one which runs each task on a virtual thread. Note that a transactional
+ * container always invokes the listener on the thread on which the result arrives, as the
+ * transaction is committed by that thread.
  *
  * <p>The actual execution of an async operation is abstracted using {@link
  * org.openspaces.events.asyncpolling.receive.AsyncOperationHandler} with default implementation for
@@ -74,8 +88,15 @@ public class SimpleAsyncPollingEventListenerContainer extends AbstractEventListe
 
     private int concurrentConsumers = 1;
 
+    private int maxConcurrentConsumers = 1;
+
+    private Executor taskExecutor;
+
+    private AsyncPollingConsumers consumers;
 
-    private AsyncFutureListener listener = new AsyncEventListener();
+    private final LongCounter receivedEvents = new LongCounter();
+
+    private final LongCounter receiveLatency = new LongCounter();
 
     /**
      * Set the timeout to use for receive calls, in <b>milliseconds</b>. The default is 60000 ms,
@@ -110,6 +131,55 @@ public class SimpleAsyncPollingEventListenerContainer extends AbstractEventListe
      */
     public void setConcurrentConsumers(int concurrentConsumers) {
         this.concurrentConsumers = concurrentConsumers;
+        if (this.maxConcurrentConsumers < concurrentConsumers) {
+            this.maxConcurrentConsumers = concurrentConsumers;
+        }
+    }
+
+    /**
+     * Sets the maximum number of concurrent async operation performed by this container. Default
+     * is 1.
+     *
+     * <p>If this setting is higher than "concurrentConsumers", the container adds a consumer when
+     * an event is received while no other consumer is waiting for events. Once a consumer beyond
+     * the "concurrentConsumers" receives no event within the receive timeout it is removed, so the
+     * number of consumers follows the number of events waiting to be received.
+     */
+    public void setMaxConcurrentConsumers(int maxConcurrentConsumers) {
+        Assert.isTrue(maxConcurrentConsumers > 0, "'maxConcurrentConsumers' value must be at least 1 (one)");
+        this.maxConcurrentConsumers = (maxConcurrentConsumers > this.concurrentConsumers ? maxConcurrentConsumers : this.concurrentConsumers);
+    }
+
+    /**
+     * Sets the executor used to invoke the listener of non transactional containers. Default is
+     * <code>null</code>, which invokes the listener on the thread on which the result of the async
+     * operation arrives.
+     */
+    public void setTaskExecutor(Executor taskExecutor) {
+        this.taskExecutor = taskExecutor;
+    }
+
+    /**
+     * Returns the number of consumers of this container, which is in between
+     * "concurrentConsumers" and "maxConcurrentConsumers".
+     */
+    public int getScheduledConsumers() {
+        return consumers != null ? consumers.getScheduledConsumers() : 0;
+    }
+
+    /**
+     * Returns the number of consumers which are waiting for an event.
+     */
+    public int getWaitingConsumers() {
+        return consumers != null ? consumers.getWaitingConsumers() : 0;
+    }
+
+    /**
+     * Returns the number of received events which wait for the task executor to invoke the
+     * listener.
+     */
+    public int getPendingEvents() {
+        return consumers != null ? consumers.getPendingEvents() : 0;
     }
 
     public ServiceDetails[] getServicesDetails() {
@@ -139,10 +209,15 @@ public class SimpleAsyncPollingEventListenerContainer extends AbstractEventListe
         super.dump(writer);
         writer.println("Receive Timeout       : [" + getReceiveTimeout() + "]");
         writer.println("Consumers             : [" + concurrentConsumers + "]");
+        writer.println("Max Consumers         : [" + maxConcurrentConsumers + "]");
+        writer.println("Scheduled Consumers   : [" + getScheduledConsumers() + "]");
+        writer.println("Waiting Consumers     : [" + getWaitingConsumers() + "]");
+        writer.println("Pending Events        : [" + getPendingEvents() + "]");
     }
 
     @Override
     public void initialize() throws DataAccessException {
+        consumers = new AsyncPollingConsumers(concurrentConsumers, maxConcurrentConsumers);
         if (asyncOperationHandler == null) {
             if (getActualEventListener() != null) {
                 // try and find an annotated one
@@ -182,7 +257,8 @@ public class SimpleAsyncPollingEventListenerContainer extends AbstractEventListe
     protected void doAfterStart() throws DataAccessException {
         super.doAfterStart();
         for (int i = 0; i < concurrentConsumers; i++) {
-            reschedule(listener);
+            consumers.consumerStarted();
+            reschedule(new AsyncEventListener());
         }
         if (logger.isDebugEnabled()) {
             StringBuilder sb = new StringBuilder();
@@ -191,6 +267,10 @@ public class SimpleAsyncPollingEventListenerContainer extends AbstractEventListe
                 sb.append(" transactional");
             }
             sb.append(" async polling event container");
+            if (maxConcurrentConsumers != concurrentConsumers) {
+                sb.append(", concurrentConsumers [").append(concurrentConsumers).append("]");
+                sb.append(", maxConcurrentConsumers [").append(maxConcurrentConsumers).append("]");
+            }
             if (getTemplate() != null) {
                 sb.append(", template ").append(ClassUtils.getShortName(getTemplate().getClass())).append("[").append(getTemplate()).append("]");
             } else {
@@ -201,8 +281,81 @@ public class SimpleAsyncPollingEventListenerContainer extends AbstractEventListe
     }
 
 
-    private void reschedule(AsyncFutureListener listener) {
+    @Override
+    protected void registerMetrics() {
+        super.registerMetrics();
+        BeanMetricManager beanMetricManager = getBeanMetricManager();
+        if (beanMetricManager != null) {
+            beanMetricManager.register("received-events", receivedEvents);
+            beanMetricManager.register("receive-latency", new Gauge<Long>() {
+                private long lastReceivedEvents;
+                private long lastReceiveLatency;
+
+                // the average time in milliseconds an event was waited for since the last sample
+                @Override
+                public synchronized Long getValue() {
+                    long currReceivedEvents = receivedEvents.getCount();
+                    long currReceiveLatency = receiveLatency.getCount();
+                    long result = currReceivedEvents == lastReceivedEvents ? 0
+                            : (currReceiveLatency - lastReceiveLatency) / (currReceivedEvents - lastReceivedEvents);
+                    lastReceivedEvents = currReceivedEvents;
+                    lastReceiveLatency = currReceiveLatency;
+                    return result;
+                }
+            });
+            beanMetricManager.register("scheduled-consumers", new Gauge<Integer>() {
+                @Override
+                public Integer getValue() {
+                    return getScheduledConsumers();
+                }
+            });
+            beanMetricManager.register("waiting-consumers", new Gauge<Integer>() {
+                @Override
+                public Integer getValue() {
+                    return getWaitingConsumers();
+                }
+            });
+            beanMetricManager.register("pending-events", new Gauge<Integer>() {
+                @Override
+                public Integer getValue() {
+                    return getPendingEvents();
+                }
+            });
+        }
+    }
+
+    private void afterReceive(AsyncEventListener listener) {
+        if (listener.receivedEvent) {
+            scheduleNewConsumerIfAppropriate();
+        } else if (removeIdleConsumerIfAppropriate()) {
+            return;
+        }
+        reschedule(listener);
+    }
+
+    private void scheduleNewConsumerIfAppropriate() {
+        if (!isRunning() || !consumers.addConsumerIfAppropriate()) {
+            return;
+        }
+        if (logger.isDebugEnabled()) {
+            logger.debug(message("Raised scheduled consumers to " + getScheduledConsumers()));
+        }
+        reschedule(new AsyncEventListener());
+    }
+
+    private boolean removeIdleConsumerIfAppropriate() {
+        if (!consumers.removeIdleConsumerIfAppropriate()) {
+            return false;
+        }
+        if (logger.isDebugEnabled()) {
+            logger.debug(message("Lowered scheduled consumers to " + getScheduledConsumers()));
+        }
+        return true;
+    }
+
+    private void reschedule(AsyncEventListener listener) {
         if (!isRunning()) {
+            consumers.consumerStopped();
             return;
         }
 
@@ -210,6 +363,20 @@ public class SimpleAsyncPollingEventListenerContainer extends AbstractEventListe
             logger.trace(message("Rescheduling async receive operation"));
         }
 
+        consumers.receiveStarted();
+        listener.receiveStartTime = System.currentTimeMillis();
+        try {
+            receive(listener);
+        } catch (RuntimeException ex) {
+            consumers.receiveFailed();
+            throw ex;
+        } catch (Error err) {
+            consumers.receiveFailed();
+            throw err;
+        }
+    }
+
+    private void receive(AsyncFutureListener listener) {
         if (this.getTransactionManager() != null) {
             // Execute receive within transaction.
             TransactionStatus status = this.getTransactionManager().getTransaction(this.getTransactionDefinition());
@@ -250,35 +417,85 @@ public class SimpleAsyncPollingEventListenerContainer extends AbstractEventListe
         }
     }
 
+    private void invokeListener(AsyncResult asyncResult) {
+        try {
+            executeListener(getEventListener(), asyncResult.getResult(), null, asyncResult);
+        } catch (Throwable e) {
+            handleListenerException(e);
+            if (e instanceof RuntimeException) {
+                throw (RuntimeException) e;
+            } else {
+                throw new ListenerExecutionFailedException(e.getMessage(), e);
+            }
+        }
+    }
+
     private class AsyncEventListener implements TransactionalAsyncFutureListener {
 
+        private long receiveStartTime;
+
+        private boolean receivedEvent;
+
+        private AsyncResult pendingResult;
+
         public void onTransactionalResult(AsyncResult asyncResult, TransactionStatus txStatus) {
+            consumers.receiveCompleted();
+            receivedEvent = false;
+            pendingResult = null;
             if (asyncResult.getException() != null) {
                 if (logger.isWarnEnabled()) {
                     logger.warn(message("Async result operation internal exception"), asyncResult.getException());
                 }
             } else {
                 if (asyncResult.getResult() != null) {
-                    try {
-                        executeListener(getEventListener(), asyncResult.getResult(), null, asyncResult);
-                    } catch (Throwable e) {
-                        handleListenerException(e);
-                        if (e instanceof RuntimeException) {
-                            throw (RuntimeException) e;
-                        } else {
-                            throw new ListenerExecutionFailedException(e.getMessage(), e);
-                        }
+                    receivedEvent = true;
+                    receivedEvents.inc();
+                    receiveLatency.inc(System.currentTimeMillis() - receiveStartTime);
+                    if (taskExecutor != null && getTransactionManager() == null) {
+                        // dispatched once the receive completes, so the consumer is rescheduled only by the executor
+                        pendingResult = asyncResult;
+                    } else {
+                        invokeListener(asyncResult);
                     }
                 }
             }
         }
 
         public void onPostCommitTransaction(AsyncResult asyncResult) {
-            reschedule(this);
+            AsyncResult result = pendingResult;
+            pendingResult = null;
+            if (result == null || !dispatch(result)) {
+                afterReceive(this);
+            }
         }
 
         public void onPostRollbackTransaction(AsyncResult asyncResult) {
-            reschedule(this);
+            afterReceive(this);
+        }
+
+        private boolean dispatch(final AsyncResult asyncResult) {
+            boolean dispatched = consumers.dispatch(taskExecutor, new Runnable() {
+                public void run() {
+                    try {
+                        invokeListener(asyncResult);
+                    } catch (RuntimeException e) {
+                        // already handled by the listener exception handling
+                    } finally {
+                        afterReceive(AsyncEventListener.this);
+                    }
+                }
+            });
+            if (!dispatched) {
+                if (logger.isWarnEnabled()) {
+                    logger.warn(message("Task executor rejected the event, invoking the listener directly"));
+                }
+                try {
+                    invokeListener(asyncResult);
+                } catch (RuntimeException e) {
+                    // already handled by the listener exception handling
+                }
+            }
+            return dispatched;
         }
 
         public void onResult(AsyncResult asyncResult) {
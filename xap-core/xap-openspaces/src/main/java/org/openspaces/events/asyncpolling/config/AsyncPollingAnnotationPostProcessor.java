@@ -89,6 +89,7 @@ public class AsyncPollingAnnotationPostProcessor implements BeanPostProcessor, A
         }
 
         pollingContainerConfigurer.concurrentConsumers(polling.concurrentConsumers());
+        pollingContainerConfigurer.maxConcurrentConsumers(polling.maxConcurrentConsumers());
         pollingContainerConfigurer.receiveTimeout(polling.receiveTimeout());
         pollingContainerConfigurer.performSnapshot(polling.performSnapshot());
         pollingContainerConfigurer.autoStart(polling.autoStart());
@@ -35,6 +35,10 @@ public class AsyncPollingContainerBeanDefinitionParser extends AbstractTemplateE
 
     private static final String CONCURRENT_CONSUMERS = "concurrent-consumers";
 
+    private static final String MAX_CONCURRENT_CONSUMERS = "max-concurrent-consumers";
+
+    private static final String TASK_EXECUTOR = "task-executor";
+
     private static final String PERFORM_SNAPSHOT = "perform-snapshot";
 
     protected Class<SimpleAsyncPollingEventListenerContainer> getBeanClass(Element element) {
@@ -61,6 +65,16 @@ public class AsyncPollingContainerBeanDefinitionParser extends AbstractTemplateE
             builder.addPropertyValue("concurrentConsumers", concurrentConsumers);
         }
 
+        String maxConcurrentConsumers = element.getAttribute(MAX_CONCURRENT_CONSUMERS);
+        if (StringUtils.hasLength(maxConcurrentConsumers)) {
+            builder.addPropertyValue("maxConcurrentConsumers", maxConcurrentConsumers);
+        }
+
+        String taskExecutor = element.getAttribute(TASK_EXECUTOR);
+        if (StringUtils.hasLength(taskExecutor)) {
+            builder.addPropertyReference("taskExecutor", taskExecutor);
+        }
+
         String performSnapshot = element.getAttribute(PERFORM_SNAPSHOT);
         if (StringUtils.hasLength(performSnapshot)) {
             builder.addPropertyValue("performSnapshot", performSnapshot);
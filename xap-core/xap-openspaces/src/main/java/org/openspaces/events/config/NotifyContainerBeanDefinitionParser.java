@@ -53,6 +53,8 @@ public class NotifyContainerBeanDefinitionParser extends AbstractTemplateEventCo
 
     private static final String BATCH_PENDING_THRESHOLD = "pending-threshold";
 
+    private static final String BATCH_COALESCE_UPDATES = "coalesce-updates";
+
     private static final String LEASE = "lease";
 
     private static final String LEASE_AUTO_RENEW = "auto-renew";
@@ -125,6 +127,9 @@ public class NotifyContainerBeanDefinitionParser extends AbstractTemplateEventCo
             if (batchEle.hasAttribute(BATCH_PENDING_THRESHOLD)) {
                 builder.addPropertyValue("batchPendingThreshold", batchEle.getAttribute(BATCH_PENDING_THRESHOLD));
             }
+            if (batchEle.hasAttribute(BATCH_COALESCE_UPDATES)) {
+                builder.addPropertyValue("coalesceUpdates", batchEle.getAttribute(BATCH_COALESCE_UPDATES));
+            }
         }
 
         Element leaseEle = DomUtils.getChildElementByTagName(element, LEASE);
@@ -56,4 +56,11 @@ public @interface NotifyBatch {
      */
     boolean passArrayAsIs() default false;
 
+    /**
+     * Should the server space replace a pending update notification of an entry which was not sent
+     * yet with the notification of its next update, so only the latest state of the entry is sent
+     * within the batch. Defaults to <code>false</code>.
+     */
+    boolean coalesceUpdates() default false;
+
 }
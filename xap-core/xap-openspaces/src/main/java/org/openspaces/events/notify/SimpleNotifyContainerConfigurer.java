@@ -134,6 +134,14 @@ public class SimpleNotifyContainerConfigurer {
         return this;
     }
 
+    /**
+     * @see org.openspaces.events.notify.SimpleNotifyEventListenerContainer#setCoalesceUpdates(boolean)
+     */
+    public SimpleNotifyContainerConfigurer coalesceUpdates(boolean coalesceUpdates) {
+        notifyEventListenerContainer.setCoalesceUpdates(coalesceUpdates);
+        return this;
+    }
+
     /**
      * @see org.openspaces.events.notify.SimpleNotifyEventListenerContainer#setAutoRenew(boolean)
      */
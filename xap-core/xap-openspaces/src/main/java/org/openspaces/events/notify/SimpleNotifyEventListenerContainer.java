@@ -74,6 +74,8 @@ public class SimpleNotifyEventListenerContainer extends AbstractEventListenerCon
 
     private Integer batchPendingThreshold;
 
+    private boolean coalesceUpdates = false;
+
     private boolean autoRenew = false;
 
     private long renewExpiration = EventSessionConfig.DEFAULT_RENEW_EXPIRATION;
@@ -199,6 +201,21 @@ public class SimpleNotifyEventListenerContainer extends AbstractEventListenerCon
         return this.batchPendingThreshold;
     }
 
+    /**
+     * If set to <code>true</code>, the server space replaces a pending update notification of an
+     * entry which was not sent yet with the notification of its next update, so only the latest
+     * state of the entry is sent within the batch. Updates of an entry are still delivered in
+     * order with respect to its other notifications. Requires batching, and can not be used with
+     * fifo or durable notifications. Defaults to <code>false</code>.
+     */
+    public void setCoalesceUpdates(boolean coalesceUpdates) {
+        this.coalesceUpdates = coalesceUpdates;
+    }
+
+    protected boolean isCoalesceUpdates() {
+        return this.coalesceUpdates;
+    }
+
     /**
      * If {@link #setListenerLease(long)} is set, automatically performs lease renewal. Defaults to
      * <code>false</code>.
@@ -618,6 +635,9 @@ public class SimpleNotifyEventListenerContainer extends AbstractEventListenerCon
             throw new IllegalArgumentException("batchSize has value [" + batchSize
                     + "] which enables batching. batchTime must have a value as well");
         }
+        if (coalesceUpdates && !isBatchEnabled()) {
+            throw new IllegalArgumentException("coalesceUpdates requires batching, batchSize and batchTime must have a value as well");
+        }
     }
 
     @Override
@@ -823,7 +843,7 @@ public class SimpleNotifyEventListenerContainer extends AbstractEventListenerCon
             notifications.append("REMATCHED_UPDATE, ");
 
         writer.println("Fifo                  : [" + isFifo() + "]");
-        writer.println("Batching              : Size [" + getBatchSize() + "], Time [" + getBatchTime() + "]");
+        writer.println("Batching              : Size [" + getBatchSize() + "], Time [" + getBatchTime() + "], Coalesce Updates [" + isCoalesceUpdates() + "]");
         writer.println("Auto Renew            : [" + isAutoRenew() + "]");
         writer.println("Notifications         : [" + notifications + "]");
         writer.println("Trigger Template      : [" + isTriggerNotifyTemplate() + "]");
@@ -859,6 +879,7 @@ public class SimpleNotifyEventListenerContainer extends AbstractEventListenerCon
                 eventSessionConfig.setBatch(batchSize, batchTime);
             }
         }
+        eventSessionConfig.setCoalesceUpdates(coalesceUpdates);
         if (leaseListener == null) {
             Object possibleListener = getActualEventListener();
             if (possibleListener instanceof LeaseListener) {
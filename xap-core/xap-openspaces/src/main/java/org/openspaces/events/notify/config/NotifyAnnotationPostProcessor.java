@@ -171,6 +171,7 @@ public class NotifyAnnotationPostProcessor implements BeanPostProcessor, Applica
             notifyContainerConfigurer.batchTime(notifyBatch.time());
             notifyContainerConfigurer.batchPendingThreshold(notifyBatch.pendingThreshold());
             notifyContainerConfigurer.passArrayAsIs(notifyBatch.passArrayAsIs());
+            notifyContainerConfigurer.coalesceUpdates(notifyBatch.coalesceUpdates());
         }
 
         NotifyLease notifyLease = AnnotationUtils.findAnnotation(beanClass, NotifyLease.class);
@@ -0,0 +1,134 @@
+/*
+ * Copyright (c) 2008-2016, GigaSpaces Technologies, Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.openspaces.test.events.asyncpolling;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.openspaces.events.asyncpolling.AsyncPollingConsumers;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class AsyncPollingConsumersTest {
+
+    @Test
+    public void testConsumersAreAddedWhileNoConsumerIsWaiting() {
+        AsyncPollingConsumers consumers = new AsyncPollingConsumers(1, 3);
+        consumers.consumerStarted();
+        consumers.receiveStarted();
+
+        consumers.receiveCompleted();
+        Assert.assertTrue(consumers.addConsumerIfAppropriate());
+        consumers.receiveStarted();
+        consumers.receiveStarted();
+        Assert.assertEquals(2, consumers.getScheduledConsumers());
+        Assert.assertEquals(2, consumers.getWaitingConsumers());
+
+        consumers.receiveCompleted();
+        Assert.assertFalse(consumers.addConsumerIfAppropriate());
+        consumers.receiveCompleted();
+        Assert.assertTrue(consumers.addConsumerIfAppropriate());
+        Assert.assertFalse(consumers.addConsumerIfAppropriate());
+        Assert.assertEquals(3, consumers.getScheduledConsumers());
+        Assert.assertEquals(0, consumers.getWaitingConsumers());
+    }
+
+    @Test
+    public void testIdleConsumersAreRemovedDownToTheConcurrentConsumers() {
+        AsyncPollingConsumers consumers = new AsyncPollingConsumers(1, 3);
+        consumers.consumerStarted();
+        Assert.assertTrue(consumers.addConsumerIfAppropriate());
+        Assert.assertTrue(consumers.addConsumerIfAppropriate());
+
+        Assert.assertTrue(consumers.removeIdleConsumerIfAppropriate());
+        Assert.assertTrue(consumers.removeIdleConsumerIfAppropriate());
+        Assert.assertFalse(consumers.removeIdleConsumerIfAppropriate());
+        Assert.assertEquals(1, consumers.getScheduledConsumers());
+    }
+
+    @Test
+    public void testEventsArePendingUntilTheExecutorRunsThem() {
+        AsyncPollingConsumers consumers = new AsyncPollingConsumers(1, 1);
+        final List<Runnable> queue = new ArrayList<Runnable>();
+        AtomicInteger executed = new AtomicInteger();
+
+        Assert.assertTrue(consumers.dispatch(new Executor() {
+            public void execute(Runnable command) {
+                queue.add(command);
+            }
+        }, counting(executed)));
+        Assert.assertEquals(1, consumers.getPendingEvents());
+        Assert.assertEquals(0, executed.get());
+
+        queue.get(0).run();
+        Assert.assertEquals(0, consumers.getPendingEvents());
+        Assert.assertEquals(1, executed.get());
+    }
+
+    @Test
+    public void testRejectedEventIsNotPending() {
+        AsyncPollingConsumers consumers = new AsyncPollingConsumers(1, 1);
+        AtomicInteger executed = new AtomicInteger();
+
+        Assert.assertFalse(consumers.dispatch(new Executor() {
+            public void execute(Runnable command) {
+                throw new RejectedExecutionException();
+            }
+        }, counting(executed)));
+        Assert.assertEquals(0, consumers.getPendingEvents());
+        Assert.assertEquals(0, executed.get());
+    }
+
+    @Test
+    public void testNoConsumersAreScheduledAfterStop() {
+        AsyncPollingConsumers consumers = new AsyncPollingConsumers(2, 4);
+        consumers.consumerStarted();
+        consumers.consumerStarted();
+        consumers.receiveStarted();
+        consumers.receiveStarted();
+        Assert.assertFalse(consumers.addConsumerIfAppropriate());
+
+        // the container stopped, the results of the in progress receive operations arrive
+        consumers.receiveCompleted();
+        consumers.consumerStopped();
+        consumers.receiveCompleted();
+        consumers.consumerStopped();
+        Assert.assertEquals(0, consumers.getScheduledConsumers());
+        Assert.assertEquals(0, consumers.getWaitingConsumers());
+    }
+
+    @Test
+    public void testConsumerWhoseReceiveFailedIsNotScheduled() {
+        AsyncPollingConsumers consumers = new AsyncPollingConsumers(1, 1);
+        consumers.consumerStarted();
+        consumers.receiveStarted();
+        consumers.receiveFailed();
+        Assert.assertEquals(0, consumers.getScheduledConsumers());
+        Assert.assertEquals(0, consumers.getWaitingConsumers());
+    }
+
+    private static Runnable counting(final AtomicInteger executed) {
+        return new Runnable() {
+            public void run() {
+                executed.incrementAndGet();
+            }
+        };
+    }
+}